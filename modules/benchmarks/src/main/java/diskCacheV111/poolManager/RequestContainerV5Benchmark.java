@@ -0,0 +1,313 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package diskCacheV111.poolManager;
+
+import com.google.common.collect.ImmutableMap;
+import diskCacheV111.pools.PoolCostInfo;
+import diskCacheV111.util.AccessLatency;
+import diskCacheV111.util.FileNotInCacheException;
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.util.RetentionPolicy;
+import diskCacheV111.vehicles.DCapProtocolInfo;
+import diskCacheV111.vehicles.GenericStorageInfo;
+import diskCacheV111.vehicles.PoolFetchFileMessage;
+import diskCacheV111.vehicles.PoolMgrSelectReadPoolMsg;
+import diskCacheV111.vehicles.ProtocolInfo;
+import diskCacheV111.vehicles.StorageInfo;
+import dmg.cells.nucleus.CellAddressCore;
+import dmg.cells.nucleus.CellEndpoint;
+import dmg.cells.nucleus.CellMessage;
+import dmg.cells.nucleus.CellMessageAnswerable;
+import dmg.util.CommandInterpreter;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.dcache.auth.Subjects;
+import org.dcache.cells.CellStub;
+import org.dcache.poolmanager.Partition;
+import org.dcache.poolmanager.PartitionManager;
+import org.dcache.poolmanager.PoolInfo;
+import org.dcache.poolmanager.PoolSelector;
+import org.dcache.poolmanager.SelectedPool;
+import org.dcache.util.Args;
+import org.dcache.vehicles.FileAttributes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Burst of read requests for files that are only on tape.
+ * <p>
+ * Each invocation delivers {@code requests} requests for distinct files to a fresh
+ * RequestContainerV5 from {@code doors} concurrent threads.  Every request results in a stage
+ * request to a pool; the benchmark thread plays the pools and replies to each stage request as
+ * soon as it is sent.  The invocation ends when all doors have received their reply.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class RequestContainerV5Benchmark {
+
+    private static final CellAddressCore POOL_MANAGER =
+          new CellAddressCore("PoolManager@dCacheDomain");
+
+    @Param({"100000"})
+    private int requests;
+
+    @Param({"8"})
+    private int doors;
+
+    @Param({"16"})
+    private int threads;
+
+    private ExecutorService executor;
+    private ExecutorService doorExecutor;
+    private RequestContainerV5 container;
+    private List<CellMessage> burst;
+    private BlockingQueue<CellMessage> stageRequests;
+    private CountDownLatch replies;
+
+    @Setup(Level.Invocation)
+    public void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(threads);
+        doorExecutor = Executors.newFixedThreadPool(doors);
+        stageRequests = new LinkedBlockingQueue<>();
+        replies = new CountDownLatch(requests);
+
+        PartitionManager partitionManager = new PartitionManager();
+        partitionManager.setProperties(null, ImmutableMap.of("stage-allowed", "yes"));
+
+        PoolSelectionUnitV2 psu = new PoolSelectionUnitV2();
+        CommandInterpreter interpreter = new CommandInterpreter(psu);
+        interpreter.command(new Args("psu create unit -net 0.0.0.0/0.0.0.0"));
+        interpreter.command(new Args("psu create unit -protocol */*"));
+
+        container = new RequestContainerV5();
+        container.setCellAddress(POOL_MANAGER);
+        container.setCellEndpoint(new Endpoint());
+        container.setPartitionManager(partitionManager);
+        container.setPoolSelectionUnit(psu);
+        container.setPoolMonitor(new TapeOnlyPoolMonitor(partitionManager.getDefaultPartition()));
+        container.setExecutor(executor);
+        container.setBilling(new CellStub());
+        container.setPoolStub(new CellStub());
+        container.setStageConfigurationFile(null);
+        container.setHitInfoMessages(false);
+
+        burst = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            burst.add(readRequest(i));
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        doorExecutor.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void stageBurst() throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        for (int i = 0; i < doors; i++) {
+            doorExecutor.execute(() -> {
+                for (int j = next.getAndIncrement(); j < requests; j = next.getAndIncrement()) {
+                    CellMessage envelope = burst.get(j);
+                    try {
+                        container.messageArrived(envelope,
+                              (PoolMgrSelectReadPoolMsg) envelope.getMessageObject());
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+        }
+
+        for (int i = 0; i < requests; i++) {
+            CellMessage envelope = stageRequests.take();
+            envelope.revertDirection();
+            container.messageArrived(envelope, envelope.getMessageObject());
+        }
+
+        if (!replies.await(10, TimeUnit.MINUTES)) {
+            throw new IllegalStateException(replies.getCount() + " requests were not answered");
+        }
+    }
+
+    private static CellMessage readRequest(int i) {
+        PnfsId pnfsId = new PnfsId(String.format("0000%032X", i));
+        StorageInfo storageInfo = new GenericStorageInfo("osm", "test:tape");
+        storageInfo.addLocation(URI.create("osm://osm/?store=test&group=tape&bfid=" + i));
+        FileAttributes attributes = FileAttributes.of()
+              .pnfsId(pnfsId)
+              .storageInfo(storageInfo)
+              .hsm("osm")
+              .storageClass("test:tape")
+              .cacheClass(null)
+              .locations(Collections.emptyList())
+              .size(1024)
+              .accessLatency(AccessLatency.NEARLINE)
+              .retentionPolicy(RetentionPolicy.CUSTODIAL)
+              .checksums(Collections.emptySet())
+              .build();
+        ProtocolInfo protocolInfo = new DCapProtocolInfo("DCap", 3, 0,
+              new InetSocketAddress("127.0.0.1", 22125));
+
+        PoolMgrSelectReadPoolMsg request =
+              new PoolMgrSelectReadPoolMsg(attributes, protocolInfo, null);
+        request.setSubject(Subjects.ROOT);
+
+        CellMessage envelope = new CellMessage(POOL_MANAGER, request);
+        envelope.addSourceAddress(new CellAddressCore("door" + i % 64 + "@dCacheDomain"));
+        envelope.nextDestination();
+        return envelope;
+    }
+
+    /**
+     * Collects the stage requests sent to pools and counts the replies sent to doors.
+     */
+    private class Endpoint implements CellEndpoint {
+
+        @Override
+        public void sendMessage(CellMessage envelope, SendFlag... flags) {
+            if (envelope.getMessageObject() instanceof PoolFetchFileMessage) {
+                envelope.addSourceAddress(POOL_MANAGER);
+                stageRequests.add(envelope);
+            } else if (envelope.getMessageObject() instanceof PoolMgrSelectReadPoolMsg) {
+                replies.countDown();
+            }
+        }
+
+        @Override
+        public void sendMessage(CellMessage envelope, CellMessageAnswerable callback,
+              Executor executor, long timeout, SendFlag... flags) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map<String, Object> getDomainContext() {
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Pool monitor for which no file is online and stage requests are spread over a few pools.
+     */
+    private static class TapeOnlyPoolMonitor extends PoolMonitorV5 {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Partition partition;
+        private final List<SelectedPool> pools = new ArrayList<>();
+        private final AtomicInteger next = new AtomicInteger();
+
+        TapeOnlyPoolMonitor(Partition partition) {
+            this.partition = partition;
+            for (int i = 0; i < 10; i++) {
+                String name = "pool" + i;
+                pools.add(new SelectedPool(new PoolInfo(new CellAddressCore(name, "dCacheDomain"),
+                      new PoolCostInfo(name, "regular"), ImmutableMap.of())));
+            }
+        }
+
+        @Override
+        public PoolSelector getPoolSelector(FileAttributes fileAttributes,
+              ProtocolInfo protocolInfo, String linkGroup, Set<String> excludedHosts) {
+            return new PoolSelector() {
+                @Override
+                public List<List<PoolInfo>> getReadPools() {
+                    return Collections.emptyList();
+                }
+
+                @Override
+                public Partition getCurrentPartition() {
+                    return partition;
+                }
+
+                @Override
+                public SelectedPool selectReadPool() throws FileNotInCacheException {
+                    throw new FileNotInCacheException("File not online");
+                }
+
+                @Override
+                public SelectedPool selectWritePool(long preallocated) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public Partition.P2pPair selectPool2Pool(boolean force) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public Partition.P2pPair selectPool2Pool(String poolGroup, boolean force) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public SelectedPool selectStagePool(Optional<PoolInfo> previous) {
+                    return pools.get(Math.floorMod(next.getAndIncrement(), pools.size()));
+                }
+
+                @Override
+                public SelectedPool selectPinPool() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+              .include(RequestContainerV5Benchmark.class.getSimpleName())
+              .build();
+
+        new Runner(opt).run();
+    }
+}
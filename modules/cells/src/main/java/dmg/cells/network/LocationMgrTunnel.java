@@ -17,10 +17,13 @@
  */
 package dmg.cells.network;
 
+import com.google.common.io.CountingInputStream;
+import com.google.common.io.CountingOutputStream;
 import dmg.cells.nucleus.CellAdapter;
 import dmg.cells.nucleus.CellDomainInfo;
 import dmg.cells.nucleus.CellDomainRole;
 import dmg.cells.nucleus.CellMessage;
+import dmg.cells.nucleus.CellMetricsProvider;
 import dmg.cells.nucleus.CellNucleus;
 import dmg.cells.nucleus.CellRoute;
 import dmg.cells.nucleus.CellTunnel;
@@ -49,6 +52,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.LongAdder;
+import org.dcache.metrics.MetricRegistry;
 import org.dcache.util.Args;
 import org.dcache.util.NDC;
 import org.dcache.util.Version;
@@ -57,7 +61,7 @@ import org.slf4j.LoggerFactory;
 
 public class LocationMgrTunnel
       extends CellAdapter
-      implements CellTunnel, Runnable {
+      implements CellTunnel, CellMetricsProvider, Runnable {
 
     /**
      * We use a single shared instance of Tunnels to coordinate route creation between tunnels.
@@ -89,13 +93,17 @@ public class LocationMgrTunnel
     //
     private LongAdder _messagesToTunnel = new LongAdder();
     private LongAdder _messagesToSystem = new LongAdder();
+    private final CountingOutputStream _bytesToTunnel;
+    private final CountingInputStream _bytesToSystem;
 
     public LocationMgrTunnel(String cellName, StreamEngine engine, Args args) {
         super(cellName, "System", args);
         _nucleus = getNucleus();
         _socket = engine.getSocket();
-        _rawOut = new BufferedOutputStream(engine.getOutputStream());
-        _rawIn = new BufferedInputStream(engine.getInputStream());
+        _bytesToTunnel = new CountingOutputStream(engine.getOutputStream());
+        _bytesToSystem = new CountingInputStream(engine.getInputStream());
+        _rawOut = new BufferedOutputStream(_bytesToTunnel);
+        _rawIn = new BufferedInputStream(_bytesToSystem);
         CellDomainRole role = args.hasOption("role") ? CellDomainRole.valueOf(
               args.getOption("role").toUpperCase()) : CellDomainRole.SATELLITE;
         _localDomainInfo = new CellDomainInfo(_nucleus.getCellDomainName(),
@@ -183,7 +191,8 @@ public class LocationMgrTunnel
                 /* Since dCache 3.0 we use raw encoding of CellMessage. */
                 _input = new RawObjectSource(_rawIn);
 
-                _output = new RawObjectSink(_rawOut, serializer);
+                _output = new RawObjectSink(_rawOut, serializer,
+                      release >= Releases.RELEASE_10_0);
             }
 
             _allowForwardingOfRemoteMessages = (_remoteDomainInfo.getRole() != CellDomainRole.CORE);
@@ -276,6 +285,19 @@ public class LocationMgrTunnel
               .orElse("");
     }
 
+    @Override
+    public void registerMetrics(MetricRegistry.Scope scope) {
+        String peer = getRemoteDomainName();
+        scope.counter("dcache_tunnel_messages", "Messages forwarded through a tunnel.", out -> {
+            out.sample("peer", peer, "direction", "out", _messagesToTunnel.sum());
+            out.sample("peer", peer, "direction", "in", _messagesToSystem.sum());
+        });
+        scope.counter("dcache_tunnel_bytes", "Bytes transferred through a tunnel.", out -> {
+            out.sample("peer", peer, "direction", "out", _bytesToTunnel.getCount());
+            out.sample("peer", peer, "direction", "in", _bytesToSystem.getCount());
+        });
+    }
+
     @Override
     public void getInfo(PrintWriter pw) {
         pw.println("Tunnel                    : " + getCellName());
@@ -283,6 +305,8 @@ public class LocationMgrTunnel
         pw.println("Messages delivered to");
         pw.println("   Peer       : " + _messagesToTunnel);
         pw.println("   Local      : " + _messagesToSystem);
+        pw.println("Bytes sent to peer        : " + _bytesToTunnel.getCount());
+        pw.println("Bytes received from peer  : " + _bytesToSystem.getCount());
         pw.println("Local domain");
         pw.println("   Name       : " + _localDomainInfo.getCellDomainName());
         pw.println("   Version    : " + _localDomainInfo.getVersion());
@@ -361,10 +385,13 @@ public class LocationMgrTunnel
 
         private final SerializationHandler.Serializer serializer;
         private final DataOutputStream out;
+        private final boolean withTraceContext;
 
-        private RawObjectSink(OutputStream out, SerializationHandler.Serializer serializer) {
+        private RawObjectSink(OutputStream out, SerializationHandler.Serializer serializer,
+              boolean withTraceContext) {
             this.out = new DataOutputStream(out);
             this.serializer = serializer;
+            this.withTraceContext = withTraceContext;
         }
 
         @Override
@@ -373,7 +400,7 @@ public class LocationMgrTunnel
             // Due to lack of message versioning support, always use JOS with different dCache versions
             message.ensureEncodedWith(serializer);
 
-            message.writeTo(out);
+            message.writeTo(out, withTraceContext);
             out.flush();
         }
     }
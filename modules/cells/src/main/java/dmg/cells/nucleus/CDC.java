@@ -1,11 +1,15 @@
 package dmg.cells.nucleus;
 
+import org.dcache.tracing.SpanContext;
 import org.dcache.util.NDC;
 import org.slf4j.MDC;
 
 /**
  * The Cell Diagnostic Context, a utility class for working with the Log4j NDC and MDC.
  * <p>
+ * Besides the domain, cell and session, the MDC holds the context of the active trace span, see
+ * {@link org.dcache.tracing.Tracer}.
+ * <p>
  * Notice that the MDC is automatically inherited by child threads upon creation. Thus the domain,
  * cell name, and session identifier is inherited. The same is not true for the NDC, which needs to
  * be explicitly copied. Special care must be taken when using shared thread pools, as this can span
@@ -33,9 +37,11 @@ public class CDC implements AutoCloseable {
     public static final String MDC_DOMAIN = "cells.domain";
     public static final String MDC_CELL = "cells.cell";
     public static final String MDC_SESSION = "cells.session";
+    public static final String MDC_TRACE = "cells.trace";
 
     private final NDC _ndc;
     private final String _session;
+    private final String _trace;
     private final String _cell;
     private final String _domain;
 
@@ -44,6 +50,7 @@ public class CDC implements AutoCloseable {
      */
     public CDC() {
         _session = MDC.get(MDC_SESSION);
+        _trace = MDC.get(MDC_TRACE);
         _cell = MDC.get(MDC_CELL);
         _domain = MDC.get(MDC_DOMAIN);
         _ndc = NDC.cloneNdc();
@@ -66,6 +73,7 @@ public class CDC implements AutoCloseable {
         setMdc(MDC_DOMAIN, _domain);
         setMdc(MDC_CELL, _cell);
         setMdc(MDC_SESSION, _session);
+        setMdc(MDC_TRACE, _trace);
         if (_ndc == null) {
             NDC.clear();
         } else {
@@ -93,6 +101,7 @@ public class CDC implements AutoCloseable {
      */
     public void execute(Runnable r) {
         String session = MDC.get(MDC_SESSION);
+        String trace = MDC.get(MDC_TRACE);
         String cell = MDC.get(MDC_CELL);
         String domain = MDC.get(MDC_DOMAIN);
         NDC ndc = NDC.cloneNdc();
@@ -103,6 +112,7 @@ public class CDC implements AutoCloseable {
             setMdc(MDC_DOMAIN, domain);
             setMdc(MDC_CELL, cell);
             setMdc(MDC_SESSION, session);
+            setMdc(MDC_TRACE, trace);
             NDC.set(ndc);
         }
     }
@@ -170,6 +180,7 @@ public class CDC implements AutoCloseable {
         setMdc(MDC_CELL, cellName);
         setMdc(MDC_DOMAIN, domainName);
         MDC.remove(MDC_SESSION);
+        MDC.remove(MDC_TRACE);
         NDC.clear();
         return cdc;
     }
@@ -201,14 +212,16 @@ public class CDC implements AutoCloseable {
 
     /**
      * Setup message related diagnostic context for the calling thread. Adds information about a
-     * message to the MDC and NDC.
+     * message, including its trace context, to the MDC and NDC.
      *
      * @see #clearMessageContext
      */
     public static void setMessageContext(CellMessage envelope) {
         Object session = envelope.getSession();
+        SpanContext trace = envelope.getTraceContext();
         NDC.push(getMessageContext(envelope));
         setMdc(MDC_SESSION, (session == null) ? null : session.toString());
+        setMdc(MDC_TRACE, (trace == null) ? null : trace.toString());
     }
 
     /**
@@ -220,6 +233,7 @@ public class CDC implements AutoCloseable {
      */
     public static void clearMessageContext() {
         MDC.remove(MDC_SESSION);
+        MDC.remove(MDC_TRACE);
         NDC.pop();
     }
 
@@ -230,6 +244,7 @@ public class CDC implements AutoCloseable {
         MDC.remove(MDC_DOMAIN);
         MDC.remove(MDC_CELL);
         MDC.remove(MDC_SESSION);
+        MDC.remove(MDC_TRACE);
         NDC.clear();
     }
 }
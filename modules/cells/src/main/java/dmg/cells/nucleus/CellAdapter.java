@@ -37,6 +37,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.LongAdder;
 import org.apache.curator.framework.CuratorFramework;
+import org.dcache.metrics.MetricRegistry;
 import org.dcache.util.Args;
 import org.dcache.util.Version;
 import org.dcache.util.cli.CommandExecutor;
@@ -78,6 +79,7 @@ public class CellAdapter
     private boolean _returnCommandException = true;
     private boolean _answerPing = true;
     private String _autoSetup;
+    private MetricRegistry.Scope _metrics;
     private String _definedSetup;
 
     private CommandInterpreter _commandInterpreter = new CommandInterpreter(this) {
@@ -710,10 +712,18 @@ public class CellAdapter
         } finally {
             EventLogger.startedEnd(getCellName());
         }
+
+        if (this instanceof CellMetricsProvider) {
+            _metrics = MetricRegistry.getDomainRegistry().scope("cell", getCellName());
+            ((CellMetricsProvider) this).registerMetrics(_metrics);
+        }
     }
 
     @Override
     public void prepareRemoval(KillEvent killEvent) {
+        if (_metrics != null) {
+            _metrics.close();
+        }
         try {
             EventLogger.stoppingBegin(getCellName());
             stopping();
@@ -26,6 +26,7 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nonnull;
 import org.apache.curator.framework.CuratorFramework;
+import org.dcache.metrics.MetricRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -215,6 +216,23 @@ class CellGlue {
         return new ArrayList<>(_cellList.keySet());
     }
 
+    /**
+     * Registers metrics covering all cells of this domain.
+     */
+    void registerMetrics(MetricRegistry.Scope scope) {
+        scope.gauge("dcache_cell_event_queue_size",
+              "Number of events waiting to be processed by a cell.",
+              out -> _cellList.forEach((name, nucleus) ->
+                    out.sample("cell", name, nucleus.getEventQueueSize())));
+        scope.gauge("dcache_cell_queue_time_seconds",
+              "Time the last message delivered to a cell spent in its event queue.",
+              out -> _cellList.forEach((name, nucleus) ->
+                    out.sample("cell", name, nucleus.getLastQueueTime() / 1000.0)));
+        scope.counter("dcache_cell_messages_received", "Messages received by a cell.",
+              out -> _cellList.forEach((name, nucleus) ->
+                    out.sample("cell", name, nucleus.getMessagesReceived())));
+    }
+
     String getUnique() {
         return COUNTER_ENCODING.encode(Longs.toByteArray(_uniqueCounter.next()));
     }
@@ -11,6 +11,8 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.Objects;
+import javax.annotation.Nullable;
+import org.dcache.tracing.SpanContext;
 
 /**
  * Do not subclass - otherwise raw encoding in LocationMgrTunnel will break.
@@ -44,6 +46,7 @@ public final class CellMessage implements Cloneable, Serializable {
     private byte[] _messageStream;
     private boolean _isPersistent;
     private Object _session;
+    private SpanContext _trace;
     /**
      * Indicates deserialized message format
      */
@@ -52,6 +55,11 @@ public final class CellMessage implements Cloneable, Serializable {
      * Indicates serialized message format
      */
     private static final int STREAM_MODE = 1;
+
+    /**
+     * Flag added to the mode in the raw encoding if the message carries a trace context.
+     */
+    private static final int TRACE_FLAG = 0x40;
     private transient long _receivedAt;
 
     public CellMessage(CellAddressCore address, Serializable msg) {
@@ -155,6 +163,19 @@ public final class CellMessage implements Cloneable, Serializable {
         _session = session;
     }
 
+    /**
+     * Returns the context of the trace span that sent this message, or null if the request is
+     * not traced.  Replies carry the context of the request.
+     */
+    @Nullable
+    public SpanContext getTraceContext() {
+        return _trace;
+    }
+
+    public void setTraceContext(@Nullable SpanContext trace) {
+        _trace = trace;
+    }
+
     public void setTtl(long ttl) {
         _ttl = ttl;
         _receivedAt = System.currentTimeMillis();
@@ -293,12 +314,26 @@ public final class CellMessage implements Cloneable, Serializable {
      * <p>
      * The CellMessage must be in stream mode.
      * <p>
-     * This is the raw encoding used by tunnels since release 3.0.
+     * This is the raw encoding used by tunnels since release 3.0. The trace context is not
+     * written.
      */
     public void writeTo(DataOutput out) throws IOException {
+        writeTo(out, false);
+    }
+
+    /**
+     * Writes CellMessage to a data output stream.
+     * <p>
+     * The CellMessage must be in stream mode.
+     *
+     * @param withTraceContext whether to include the trace context, if any; releases before 10.0
+     *                         cannot read such messages
+     */
+    public void writeTo(DataOutput out, boolean withTraceContext) throws IOException {
         checkState(_mode == STREAM_MODE);
 
-        out.writeByte(_mode);
+        boolean hasTrace = withTraceContext && _trace != null;
+        out.writeByte(hasTrace ? _mode | TRACE_FLAG : _mode);
         out.writeBoolean(_isPersistent);
         out.writeLong(_creationTime);
         out.writeLong(_ttl);
@@ -308,6 +343,9 @@ public final class CellMessage implements Cloneable, Serializable {
         _destination.writeTo(out);
 
         out.writeUTF(Objects.toString(_session, ""));
+        if (hasTrace) {
+            _trace.writeTo(out);
+        }
         out.writeInt(_messageStream.length);
         out.write(_messageStream);
     }
@@ -319,7 +357,8 @@ public final class CellMessage implements Cloneable, Serializable {
      */
     public static CellMessage createFrom(DataInput in) throws IOException {
         CellMessage message = new CellMessage();
-        message._mode = in.readByte();
+        int mode = in.readByte();
+        message._mode = mode & ~TRACE_FLAG;
         if (message._mode != STREAM_MODE) {
             throw new IOException("Invalid message tunnel wire format.");
         }
@@ -335,6 +374,9 @@ public final class CellMessage implements Cloneable, Serializable {
         message._source = CellPath.createFrom(in);
         message._destination = CellPath.createFrom(in);
         message._session = Strings.emptyToNull(in.readUTF());
+        if ((mode & TRACE_FLAG) != 0) {
+            message._trace = SpanContext.createFrom(in);
+        }
         int len = in.readInt();
         message._messageStream = new byte[len];
         in.readFully(message._messageStream);
@@ -0,0 +1,18 @@
+package dmg.cells.nucleus;
+
+import org.dcache.metrics.MetricRegistry;
+
+/**
+ * Classes implementing this interface can expose metrics of the cell.
+ * <p>
+ * Metrics are registered once the cell has started.  All samples carry the name of the cell as
+ * a label, and the collectors are unregistered when the cell is stopped.
+ */
+public interface CellMetricsProvider {
+
+    /**
+     * Registers collectors of metrics.  Collectors are called whenever the metrics of the
+     * domain are scraped, thus must be cheap and must not block.
+     */
+    void registerMetrics(MetricRegistry.Scope scope);
+}
@@ -50,11 +50,14 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.GuardedBy;
 import org.apache.curator.framework.CuratorFramework;
+import org.dcache.metrics.MetricRegistry;
+import org.dcache.tracing.Tracer;
 import org.dcache.util.BoundedCachedExecutor;
 import org.dcache.util.BoundedExecutor;
 import org.dcache.util.FireAndForgetTask;
@@ -134,6 +137,7 @@ public class CellNucleus implements ThreadFactory {
 
     private final BoundedExecutor _messageExecutor;
     private final AtomicInteger _eventQueueSize = new AtomicInteger();
+    private final LongAdder _messagesReceived = new LongAdder();
 
     /**
      * Timer for periodic low-priority maintenance tasks. Shared among all cell instances. Since a
@@ -410,6 +414,7 @@ public class CellNucleus implements ThreadFactory {
 
         if (shouldAddSource) {
             msg.addSourceAddress(getThisAddress());
+            addTraceContext(msg);
         }
 
         EventLogger.sendBegin(msg, "async");
@@ -420,6 +425,16 @@ public class CellNucleus implements ThreadFactory {
         }
     }
 
+    /**
+     * Attaches the active trace span of the calling thread to a message originating in this cell,
+     * unless the message already carries one.
+     */
+    private static void addTraceContext(CellMessage msg) {
+        if (msg.getTraceContext() == null) {
+            msg.setTraceContext(Tracer.current());
+        }
+    }
+
     /**
      * Sends <code>envelope</code> and waits <code>timeout</code> milliseconds for an answer to
      * arrive.  The answer will bypass the ordinary queuing mechanism and will be delivered before
@@ -517,6 +532,7 @@ public class CellNucleus implements ThreadFactory {
 
         if (shouldAddSource) {
             msg.addSourceAddress(getThisAddress());
+            addTraceContext(msg);
         } else {
             checkArgument(msg.getSourcePath().hops() > 0, "Message has no source address.");
         }
@@ -803,9 +819,18 @@ public class CellNucleus implements ThreadFactory {
         return _eventQueueSize.get();
     }
 
+    long getMessagesReceived() {
+        return _messagesReceived.sum();
+    }
+
+    long getLastQueueTime() {
+        return _lastQueueTime;
+    }
+
     void addToEventQueue(MessageEvent ce) {
         CellMessage msg = ce.getMessage();
         LOGGER.trace("addToEventQueue : message arrived : {}", msg);
+        _messagesReceived.increment();
 
         CellLock lock = _waitHash.remove(msg.getLastUOID());
         if (lock != null) {
@@ -1185,6 +1210,10 @@ public class CellNucleus implements ThreadFactory {
         return __cellGlue.getCellTunnelInfos();
     }
 
+    void registerCellMetrics(MetricRegistry.Scope scope) {
+        __cellGlue.registerMetrics(scope);
+    }
+
     public CuratorFramework getCuratorFramework() {
         return _curatorFramework;
     }
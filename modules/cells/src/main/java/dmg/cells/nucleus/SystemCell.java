@@ -12,11 +12,13 @@ import dmg.util.logback.FilterShell;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
 import java.io.Serializable;
+import java.io.StringWriter;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -32,6 +34,10 @@ import jdk.jfr.Recording;
 import org.apache.curator.framework.CuratorFramework;
 import org.dcache.alarms.AlarmMarkerFactory;
 import org.dcache.alarms.PredefinedAlarm;
+import org.dcache.metrics.JvmMetrics;
+import org.dcache.metrics.MetricRegistry;
+import org.dcache.tracing.SpanExporter;
+import org.dcache.tracing.Tracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.remoting.RemoteProxyFailureException;
@@ -51,6 +57,8 @@ public class SystemCell
 
     private volatile Recording recording;
 
+    private volatile Map<String, Long> _serviceStartupTimes = Map.of();
+
     private int _packetsReceived,
           _packetsAnswered,
           _packetsForwarded,
@@ -102,9 +110,20 @@ public class SystemCell
         _runtime.addShutdownHook(new TheKiller());
     }
 
+    /**
+     * Records the time in milliseconds each service of the domain took to start.
+     */
+    public void setServiceStartupTimes(Map<String, Long> times) {
+        _serviceStartupTimes = new LinkedHashMap<>(times);
+    }
+
     @Override
     protected void started() {
         Thread.setDefaultUncaughtExceptionHandler(this);
+
+        MetricRegistry.Scope metrics = MetricRegistry.getDomainRegistry().scope();
+        JvmMetrics.register(metrics);
+        _nucleus.registerCellMetrics(metrics);
     }
 
     @Override
@@ -196,6 +215,40 @@ public class SystemCell
         }
     }
 
+    @Command(name = "trace set sampling", hint = "set the fraction of requests to trace",
+          description = "Sets the fraction of requests entering dCache through this domain "
+                + "for which a trace is recorded. A value of 0 disables tracing of new "
+                + "requests; requests traced by other domains are still recorded. The "
+                + "setting is not persistent.")
+    public class TraceSetSamplingCommand implements Callable<String> {
+
+        @Argument(usage = "Fraction of requests to trace, between 0 and 1.")
+        double rate;
+
+        @Override
+        public String call() throws IllegalArgumentException {
+            Tracer.setSamplingRate(rate);
+            return "";
+        }
+    }
+
+    @Command(name = "trace info", hint = "show request tracing settings",
+          description = "Shows the sampling rate and the span exporter of this domain.")
+    public class TraceInfoCommand implements Callable<String> {
+
+        @Override
+        public String call() {
+            StringWriter out = new StringWriter();
+            PrintWriter pw = new PrintWriter(out);
+            SpanExporter exporter = Tracer.getExporter();
+            pw.println("Sampling rate : " + Tracer.getSamplingRate());
+            pw.println("Exporter      : " + (exporter == SpanExporter.NONE ? "none" : exporter));
+            exporter.getInfo(pw);
+            pw.flush();
+            return out.toString();
+        }
+    }
+
     private void shutdownSystem() {
         List<String> names = _nucleus.getCellNames();
         List<String> nonSystem = new ArrayList<>(names.size());
@@ -314,6 +367,12 @@ public class SystemCell
             }
             pw.println(")");
         }
+        Map<String, Long> startupTimes = _serviceStartupTimes;
+        if (!startupTimes.isEmpty()) {
+            pw.println(" Service startup (ms)");
+            startupTimes.forEach((name, millis) ->
+                  pw.append(" ").append(name).append(" : ").println(millis));
+        }
     }
 
     @Override
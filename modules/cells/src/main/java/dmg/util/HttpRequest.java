@@ -11,6 +11,9 @@ import java.util.Map;
  */
 public interface HttpRequest {
 
+    /**
+     * Returns the request headers by name.  As in HTTP, names are matched regardless of case.
+     */
     Map<String, String> getRequestAttributes();
 
     OutputStream getOutputStream();
@@ -34,4 +37,8 @@ public interface HttpRequest {
     String getPassword();
 
     void setContentType(String type);
+
+    void setHeader(String name, String value);
+
+    void setStatus(int code);
 }
@@ -30,6 +30,7 @@ public abstract class Releases {
     public static final short RELEASE_2_15 = 0x020F;
     public static final short RELEASE_2_16 = 0x0210;
     public static final short RELEASE_3_0 = 0x0300;
+    public static final short RELEASE_10_0 = 0x0A00;
 
     public static short getRelease(String version) throws BadVersionException {
         int i = version.indexOf('.');
@@ -0,0 +1,86 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.metrics;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.RuntimeMXBean;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Metrics of the Java virtual machine hosting the domain.
+ */
+public class JvmMetrics {
+
+    private JvmMetrics() {
+    }
+
+    public static void register(MetricRegistry.Scope scope) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        ClassLoadingMXBean classes = ManagementFactory.getClassLoadingMXBean();
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+
+        scope.gauge("jvm_memory_used_bytes", "Used memory of the JVM.", out -> {
+            out.sample("area", "heap", memory.getHeapMemoryUsage().getUsed());
+            out.sample("area", "nonheap", memory.getNonHeapMemoryUsage().getUsed());
+        });
+        scope.gauge("jvm_memory_committed_bytes", "Committed memory of the JVM.", out -> {
+            out.sample("area", "heap", memory.getHeapMemoryUsage().getCommitted());
+            out.sample("area", "nonheap", memory.getNonHeapMemoryUsage().getCommitted());
+        });
+        scope.gauge("jvm_memory_max_bytes", "Maximum memory of the JVM, or -1 if undefined.",
+              out -> {
+                  MemoryUsage heap = memory.getHeapMemoryUsage();
+                  MemoryUsage nonHeap = memory.getNonHeapMemoryUsage();
+                  out.sample("area", "heap", heap.getMax());
+                  out.sample("area", "nonheap", nonHeap.getMax());
+              });
+        scope.gauge("jvm_threads_current", "Current number of live threads.",
+              out -> out.sample(threads.getThreadCount()));
+        scope.gauge("jvm_threads_daemon", "Current number of live daemon threads.",
+              out -> out.sample(threads.getDaemonThreadCount()));
+        scope.gauge("jvm_classes_loaded", "Number of currently loaded classes.",
+              out -> out.sample(classes.getLoadedClassCount()));
+        scope.counter("jvm_gc_collections", "Number of garbage collections.", out -> {
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                out.sample("gc", gc.getName(), gc.getCollectionCount());
+            }
+        });
+        scope.counter("jvm_gc_collection_seconds", "Time spent in garbage collection.", out -> {
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                out.sample("gc", gc.getName(), gc.getCollectionTime() / 1000.0);
+            }
+        });
+        scope.gauge("process_start_time_seconds", "Start time of the JVM since the epoch.",
+              out -> out.sample(runtime.getStartTime() / 1000.0));
+        scope.gauge("process_system_load_average", "System load average of the last minute.",
+              out -> out.sample(os.getSystemLoadAverage()));
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            com.sun.management.OperatingSystemMXBean process =
+                  (com.sun.management.OperatingSystemMXBean) os;
+            scope.counter("process_cpu_seconds", "CPU time used by the JVM.",
+                  out -> out.sample(process.getProcessCpuTime() / 1e9));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry of metric families exposed by a domain.
+ * <p>
+ * Metrics are not stored in the registry.  Instead, components register collectors that are
+ * called whenever the registry is rendered, so that values are sampled at pull time and no
+ * background threads are needed.
+ * <p>
+ * Several components may contribute samples to the same family, e.g. every cell contributes to
+ * the cell event queue family.  Components register through a {@link Scope} that attaches
+ * constant labels, such as the name of the cell, to all samples of its collectors and that
+ * unregisters all of them when closed.
+ */
+public class MetricRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricRegistry.class);
+
+    private static final MetricRegistry DOMAIN = new MetricRegistry();
+
+    /**
+     * Type of a metric family as defined by OpenMetrics.
+     */
+    public enum Type {
+        GAUGE("gauge"), COUNTER("counter"), SUMMARY("summary");
+
+        private final String name;
+
+        Type(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Provides the samples of a family.
+     */
+    @FunctionalInterface
+    public interface Collector {
+
+        void collect(MetricWriter out);
+    }
+
+    private static class Family {
+
+        private final String name;
+        private final Type type;
+        private final String help;
+        private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+
+        private Family(String name, Type type, String help) {
+            this.name = name;
+            this.type = type;
+            this.help = help;
+        }
+    }
+
+    private static class Registration {
+
+        private final String labels;
+        private final Collector collector;
+
+        private Registration(String labels, Collector collector) {
+            this.labels = labels;
+            this.collector = collector;
+        }
+    }
+
+    private final ConcurrentSkipListMap<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * Returns the registry shared by all cells of this domain.
+     */
+    public static MetricRegistry getDomainRegistry() {
+        return DOMAIN;
+    }
+
+    /**
+     * Returns a scope without constant labels.
+     */
+    public Scope scope() {
+        return new Scope("");
+    }
+
+    /**
+     * Returns a scope that adds a constant label to all samples.
+     */
+    public Scope scope(String label, String value) {
+        StringBuilder labels = new StringBuilder();
+        MetricWriter.appendLabel(labels, label, value);
+        return new Scope(labels.toString());
+    }
+
+    private synchronized void register(String name, Type type, String help,
+          Registration registration) {
+        Family family = families.computeIfAbsent(name, n -> new Family(n, type, help));
+        if (family.type != type) {
+            throw new IllegalArgumentException(
+                  "Metric " + name + " is already registered as " + family.type + ".");
+        }
+        family.registrations.add(registration);
+    }
+
+    private synchronized void unregister(String name, Registration registration) {
+        Family family = families.get(name);
+        if (family != null && family.registrations.remove(registration)
+              && family.registrations.isEmpty()) {
+            families.remove(name);
+        }
+    }
+
+    /**
+     * Renders all families in OpenMetrics text format.  Collectors that fail are logged and
+     * skipped.
+     */
+    public void write(MetricWriter out) {
+        for (Family family : families.values()) {
+            out.beginFamily(family.name, family.type, family.help);
+            for (Registration registration : family.registrations) {
+                out.setConstantLabels(registration.labels);
+                try {
+                    registration.collector.collect(out);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Failed to collect {}: {}", family.name, e.toString());
+                }
+            }
+        }
+        out.end();
+    }
+
+    /**
+     * Set of collectors sharing the same constant labels.
+     */
+    public class Scope implements AutoCloseable {
+
+        private final String labels;
+        private final List<Runnable> registrations = new ArrayList<>();
+        private boolean isClosed;
+
+        private Scope(String labels) {
+            this.labels = labels;
+        }
+
+        public Scope gauge(String name, String help, Collector collector) {
+            return register(name, Type.GAUGE, help, collector);
+        }
+
+        /**
+         * Registers a counter.  The name must not include the {@code _total} suffix; it is
+         * added to every sample.
+         */
+        public Scope counter(String name, String help, Collector collector) {
+            return register(name, Type.COUNTER, help, collector);
+        }
+
+        public Scope summary(String name, String help, Collector collector) {
+            return register(name, Type.SUMMARY, help, collector);
+        }
+
+        private synchronized Scope register(String name, Type type, String help,
+              Collector collector) {
+            if (!isClosed) {
+                Registration registration = new Registration(labels, requireNonNull(collector));
+                MetricRegistry.this.register(name, type, help, registration);
+                registrations.add(() -> unregister(name, registration));
+            }
+            return this;
+        }
+
+        /**
+         * Unregisters all collectors of this scope.
+         */
+        @Override
+        public synchronized void close() {
+            isClosed = true;
+            registrations.forEach(Runnable::run);
+            registrations.clear();
+        }
+    }
+}
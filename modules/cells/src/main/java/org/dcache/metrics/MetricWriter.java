@@ -0,0 +1,228 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.metrics;
+
+import org.dcache.commons.stats.LatencyHistogram;
+import org.dcache.commons.stats.LatencyHistogramGauge;
+import org.dcache.commons.stats.RequestExecutionTimeGauge;
+
+/**
+ * Renders samples in OpenMetrics text format.
+ * <p>
+ * Samples are appended directly to a {@link StringBuilder}; numbers are not formatted through
+ * intermediate strings, and label values are only copied when they need escaping.  A writer is
+ * not thread safe.
+ */
+public class MetricWriter {
+
+    private static final String[] QUANTILES = {"0.5", "0.9", "0.99", "0.999"};
+    private static final double[] QUANTILE_VALUES = {0.5, 0.9, 0.99, 0.999};
+
+    private final StringBuilder out;
+    private String name;
+    private MetricRegistry.Type type;
+    private String constantLabels = "";
+    private boolean hasLabels;
+
+    public MetricWriter(StringBuilder out) {
+        this.out = out;
+    }
+
+    void beginFamily(String name, MetricRegistry.Type type, String help) {
+        this.name = name;
+        this.type = type;
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        out.append("# HELP ").append(name).append(' ');
+        appendEscaped(out, help, false);
+        out.append('\n');
+    }
+
+    void setConstantLabels(String labels) {
+        constantLabels = labels;
+    }
+
+    void end() {
+        out.append("# EOF\n");
+    }
+
+    public void sample(long value) {
+        begin(null);
+        end(value);
+    }
+
+    public void sample(double value) {
+        begin(null);
+        end(value);
+    }
+
+    public void sample(String label, String labelValue, long value) {
+        begin(null);
+        label(label, labelValue);
+        end(value);
+    }
+
+    public void sample(String label, String labelValue, double value) {
+        begin(null);
+        label(label, labelValue);
+        end(value);
+    }
+
+    public void sample(String label1, String value1, String label2, String value2, long value) {
+        begin(null);
+        label(label1, value1);
+        label(label2, value2);
+        end(value);
+    }
+
+    public void sample(String label1, String value1, String label2, String value2,
+          double value) {
+        begin(null);
+        label(label1, value1);
+        label(label2, value2);
+        end(value);
+    }
+
+    /**
+     * Writes a summary with quantiles of the values within a sliding window.
+     *
+     * @param label      optional label; may be null
+     * @param labelValue value of the label
+     * @param window     values within the sliding window
+     * @param count      total number of values
+     * @param sum        total sum of all values
+     * @param scale      factor by which values are multiplied, e.g. to convert them to seconds
+     */
+    public void summary(String label, String labelValue, LatencyHistogram.Snapshot window,
+          long count, double sum, double scale) {
+        if (window != null) {
+            for (int i = 0; i < QUANTILES.length; i++) {
+                begin(null);
+                if (label != null) {
+                    label(label, labelValue);
+                }
+                label("quantile", QUANTILES[i]);
+                end(window.getValueAtQuantile(QUANTILE_VALUES[i]) * scale);
+            }
+        }
+        begin("_count");
+        if (label != null) {
+            label(label, labelValue);
+        }
+        end(count);
+        begin("_sum");
+        if (label != null) {
+            label(label, labelValue);
+        }
+        end(sum * scale);
+    }
+
+    /**
+     * Writes a summary of a request execution time gauge.  Quantiles are only written if the
+     * gauge keeps a latency histogram.
+     */
+    public void summary(String label, String labelValue, RequestExecutionTimeGauge gauge,
+          double scale) {
+        long count = gauge.getUpdateNum();
+        double sum = count > 0 ? gauge.getAverageExecutionTime() * count : 0;
+        LatencyHistogram.Snapshot window = gauge instanceof LatencyHistogramGauge
+              ? ((LatencyHistogramGauge) gauge).snapshot() : null;
+        summary(label, labelValue, window, count, sum, scale);
+    }
+
+    private void begin(String suffix) {
+        out.append(name);
+        if (suffix != null) {
+            out.append(suffix);
+        } else if (type == MetricRegistry.Type.COUNTER) {
+            out.append("_total");
+        }
+        hasLabels = !constantLabels.isEmpty();
+        if (hasLabels) {
+            out.append('{').append(constantLabels);
+        }
+    }
+
+    private void label(String label, String value) {
+        out.append(hasLabels ? ',' : '{');
+        hasLabels = true;
+        appendLabel(out, label, value);
+    }
+
+    private void end(long value) {
+        if (hasLabels) {
+            out.append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private void end(double value) {
+        if (hasLabels) {
+            out.append('}');
+        }
+        out.append(' ');
+        if (Double.isNaN(value)) {
+            out.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            out.append(value > 0 ? "+Inf" : "-Inf");
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    static void appendLabel(StringBuilder out, String label, String value) {
+        out.append(label).append("=\"");
+        appendEscaped(out, value, true);
+        out.append('"');
+    }
+
+    private static void appendEscaped(StringBuilder out, String value, boolean isLabel) {
+        int length = value.length();
+        int i = 0;
+        while (i < length) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '\n' || (isLabel && c == '"')) {
+                break;
+            }
+            i++;
+        }
+        if (i == length) {
+            out.append(value);
+            return;
+        }
+        out.append(value, 0, i);
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '"':
+                    out.append(isLabel ? "\\\"" : "\"");
+                    break;
+                default:
+                    out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.tracing;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Appends spans as JSON lines to a local file.
+ * <p>
+ * Spans are queued and written by a background thread, which is only started once the first span
+ * is exported.  If the writer falls behind, spans are dropped rather than blocking the threads
+ * processing requests.
+ */
+public class JsonFileSpanExporter implements SpanExporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JsonFileSpanExporter.class);
+
+    private static final int QUEUE_SIZE = 10_000;
+    private static final int BATCH_SIZE = 512;
+
+    private final Path file;
+    private final BlockingQueue<Span> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile Thread writer;
+    private boolean isClosed;
+
+    public JsonFileSpanExporter(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public void export(Span span) {
+        if (writer == null) {
+            startWriter();
+        }
+        if (!queue.offer(span)) {
+            dropped.increment();
+        }
+    }
+
+    private synchronized void startWriter() {
+        if (writer == null && !isClosed) {
+            writer = new Thread(this::write, "span-exporter");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    private void write() {
+        List<Span> batch = new ArrayList<>(BATCH_SIZE);
+        StringBuilder line = new StringBuilder(512);
+        try (BufferedWriter out = Files.newBufferedWriter(file, UTF_8,
+              StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                for (Span span : batch) {
+                    line.setLength(0);
+                    JsonSpanFormat.append(line, span);
+                    line.append('\n');
+                    out.append(line);
+                }
+                written.add(batch.size());
+                batch.clear();
+                if (queue.isEmpty()) {
+                    out.flush();
+                }
+            }
+        } catch (InterruptedException ignored) {
+        } catch (IOException e) {
+            LOGGER.error("Failed to write spans to {}: {}", file, e.toString());
+        }
+    }
+
+    @Override
+    public void getInfo(PrintWriter pw) {
+        pw.println("File    : " + file);
+        pw.println("Written : " + written.sum());
+        pw.println("Dropped : " + dropped.sum());
+        pw.println("Queued  : " + queue.size());
+    }
+
+    @Override
+    public synchronized void close() {
+        isClosed = true;
+        if (writer != null) {
+            writer.interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "json:" + file;
+    }
+
+    /**
+     * Provides the {@code json} exporter.  The file is given by the
+     * {@code dcache.tracing.json.file} property.
+     */
+    public static class Provider implements SpanExporterProvider {
+
+        @Override
+        public String getName() {
+            return "json";
+        }
+
+        @Override
+        public SpanExporter createExporter(Properties properties) throws IOException {
+            String file = properties.getProperty("dcache.tracing.json.file");
+            if (file == null || file.isEmpty()) {
+                throw new IOException("dcache.tracing.json.file is not set.");
+            }
+            return new JsonFileSpanExporter(Path.of(file));
+        }
+    }
+}
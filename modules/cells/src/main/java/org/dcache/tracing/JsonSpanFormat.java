@@ -0,0 +1,115 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.tracing;
+
+import java.util.Map;
+
+/**
+ * Renders spans as single line JSON objects.
+ */
+final class JsonSpanFormat {
+
+    private JsonSpanFormat() {
+    }
+
+    static void append(StringBuilder out, Span span) {
+        SpanContext context = span.getContext();
+        SpanContext parent = span.getParent();
+        out.append('{');
+        field(out, "traceId", context.getTraceId());
+        out.append(',');
+        field(out, "spanId", context.getSpanId());
+        if (parent != null) {
+            out.append(',');
+            field(out, "parentSpanId", parent.getSpanId());
+        }
+        out.append(',');
+        field(out, "name", span.getName());
+        out.append(",\"startTime\":").append(span.getStartTime());
+        out.append(",\"durationMicros\":").append(span.getDuration());
+        if (span.getDomainName() != null) {
+            out.append(',');
+            field(out, "domain", span.getDomainName());
+        }
+        if (span.getCellName() != null) {
+            out.append(',');
+            field(out, "cell", span.getCellName());
+        }
+        if (span.getError() != null) {
+            out.append(',');
+            field(out, "error", span.getError());
+        }
+        Map<String, String> attributes = span.getAttributes();
+        if (!attributes.isEmpty()) {
+            out.append(",\"attributes\":{");
+            boolean first = true;
+            for (Map.Entry<String, String> e : attributes.entrySet()) {
+                if (!first) {
+                    out.append(',');
+                }
+                field(out, e.getKey(), e.getValue());
+                first = false;
+            }
+            out.append('}');
+        }
+        out.append('}');
+    }
+
+    static String format(Span span) {
+        StringBuilder out = new StringBuilder(256);
+        append(out, span);
+        return out.toString();
+    }
+
+    private static void field(StringBuilder out, String name, String value) {
+        string(out, name);
+        out.append(':');
+        string(out, value);
+    }
+
+    private static void string(StringBuilder out, String s) {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,59 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.tracing;
+
+import java.util.Properties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs spans as JSON to the {@code org.dcache.tracing.spans} logger, leaving it to the logging
+ * configuration where they end up.
+ */
+public class LogSpanExporter implements SpanExporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("org.dcache.tracing.spans");
+
+    @Override
+    public void export(Span span) {
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info(JsonSpanFormat.format(span));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "log";
+    }
+
+    /**
+     * Provides the {@code log} exporter.
+     */
+    public static class Provider implements SpanExporterProvider {
+
+        @Override
+        public String getName() {
+            return "log";
+        }
+
+        @Override
+        public SpanExporter createExporter(Properties properties) {
+            return new LogSpanExporter();
+        }
+    }
+}
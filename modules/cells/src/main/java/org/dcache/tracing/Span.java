@@ -0,0 +1,217 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.tracing;
+
+import dmg.cells.nucleus.CDC;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
+import org.slf4j.MDC;
+
+/**
+ * A timed operation within a trace.
+ * <p>
+ * Spans are created through {@link Tracer}.  When the request is not sampled, the tracer returns
+ * a shared span that records nothing, so instrumented code does not need to check whether
+ * tracing is enabled.  A span is exported when it is ended; ending a span more than once has no
+ * effect.
+ * <p>
+ * A span does not become the parent of spans started by the calling thread, nor of messages
+ * sent by it, until it is {@link #activate activated}.
+ */
+public class Span implements AutoCloseable {
+
+    /**
+     * Shared span of requests that are not traced.
+     */
+    static final Span NOOP = new Span();
+
+    /**
+     * Restores the previous span when closed.
+     */
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private static final Scope NOOP_SCOPE = () -> {
+    };
+
+    private final String name;
+    private final SpanContext context;
+    private final SpanContext parent;
+    private final long startTime;
+    private final long startNanos;
+    private final String cellName;
+    private final String domainName;
+    private final Map<String, String> attributes;
+    private final AtomicBoolean isEnded;
+    private volatile long duration;
+    private volatile String error;
+
+    private Span() {
+        name = null;
+        context = null;
+        parent = null;
+        startTime = 0;
+        startNanos = 0;
+        cellName = null;
+        domainName = null;
+        attributes = null;
+        isEnded = new AtomicBoolean(true);
+    }
+
+    Span(String name, SpanContext context, @Nullable SpanContext parent, long startTime) {
+        this.name = name;
+        this.context = context;
+        this.parent = parent;
+        this.startTime = startTime;
+        this.startNanos = System.nanoTime()
+              - TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - startTime);
+        this.cellName = CDC.getCellName();
+        this.domainName = CDC.getDomainName();
+        this.attributes = new LinkedHashMap<>();
+        this.isEnded = new AtomicBoolean();
+    }
+
+    /**
+     * Returns whether this span is recorded.
+     */
+    public boolean isRecording() {
+        return context != null;
+    }
+
+    /**
+     * Returns the context of this span, or null if the span is not recorded.
+     */
+    @Nullable
+    public SpanContext getContext() {
+        return context;
+    }
+
+    /**
+     * Returns the context of the parent span, or null if this span starts the trace.
+     */
+    @Nullable
+    public SpanContext getParent() {
+        return parent;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the start of the span in milliseconds since the epoch.
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Returns the duration of the span in microseconds.  Only valid once the span has ended.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    @Nullable
+    public String getCellName() {
+        return cellName;
+    }
+
+    @Nullable
+    public String getDomainName() {
+        return domainName;
+    }
+
+    public Map<String, String> getAttributes() {
+        synchronized (attributes) {
+            return new LinkedHashMap<>(attributes);
+        }
+    }
+
+    /**
+     * Returns the error the operation failed with, or null if it succeeded.
+     */
+    @Nullable
+    public String getError() {
+        return error;
+    }
+
+    public Span setAttribute(String key, Object value) {
+        if (context != null) {
+            synchronized (attributes) {
+                attributes.put(key, String.valueOf(value));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Marks the operation as failed.
+     */
+    public Span setError(String error) {
+        if (context != null) {
+            this.error = error;
+        }
+        return this;
+    }
+
+    /**
+     * Makes this span the parent of spans started and messages sent by the calling thread until
+     * the returned scope is closed.  Tasks submitted to CDC aware executors inherit the span.
+     */
+    public Scope activate() {
+        if (context == null) {
+            return NOOP_SCOPE;
+        }
+        String previous = MDC.get(CDC.MDC_TRACE);
+        MDC.put(CDC.MDC_TRACE, context.toString());
+        return () -> {
+            if (previous == null) {
+                MDC.remove(CDC.MDC_TRACE);
+            } else {
+                MDC.put(CDC.MDC_TRACE, previous);
+            }
+        };
+    }
+
+    /**
+     * Ends the span and passes it to the exporter.
+     */
+    public void end() {
+        if (isEnded.compareAndSet(false, true)) {
+            duration = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+            Tracer.export(this);
+        }
+    }
+
+    @Override
+    public void close() {
+        end();
+    }
+
+    @Override
+    public String toString() {
+        return context == null ? "(not traced)" : name + " " + context;
+    }
+}
@@ -0,0 +1,161 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.tracing;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.Nullable;
+
+/**
+ * Identifies a span within a trace.
+ * <p>
+ * Only sampled spans have a context, so a context being present means the request is traced.
+ * The string form is a W3C {@code traceparent} header, which is also the form stored in the
+ * cells diagnostic context.
+ */
+public final class SpanContext implements Serializable {
+
+    private static final long serialVersionUID = 6112542913740211393L;
+
+    private static final String VERSION = "00";
+    private static final String SAMPLED = "01";
+    private static final int LENGTH = 55;
+
+    private final long traceIdHigh;
+    private final long traceIdLow;
+    private final long spanId;
+
+    private transient String traceparent;
+
+    private SpanContext(long traceIdHigh, long traceIdLow, long spanId) {
+        this.traceIdHigh = traceIdHigh;
+        this.traceIdLow = traceIdLow;
+        this.spanId = spanId;
+    }
+
+    private static long nextId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        return id;
+    }
+
+    /**
+     * Returns the context of the first span of a new trace.
+     */
+    static SpanContext newTrace() {
+        return new SpanContext(ThreadLocalRandom.current().nextLong(), nextId(), nextId());
+    }
+
+    /**
+     * Returns the context of a new span in the same trace as this span.
+     */
+    SpanContext newChild() {
+        return new SpanContext(traceIdHigh, traceIdLow, nextId());
+    }
+
+    public String getTraceId() {
+        return toString().substring(3, 35);
+    }
+
+    public String getSpanId() {
+        return toString().substring(36, 52);
+    }
+
+    @Override
+    public String toString() {
+        String s = traceparent;
+        if (s == null) {
+            StringBuilder sb = new StringBuilder(LENGTH);
+            sb.append(VERSION).append('-');
+            appendHex(sb, traceIdHigh);
+            appendHex(sb, traceIdLow);
+            sb.append('-');
+            appendHex(sb, spanId);
+            sb.append('-').append(SAMPLED);
+            s = sb.toString();
+            traceparent = s;
+        }
+        return s;
+    }
+
+    private static void appendHex(StringBuilder sb, long value) {
+        String hex = Long.toHexString(value);
+        for (int i = hex.length(); i < 16; i++) {
+            sb.append('0');
+        }
+        sb.append(hex);
+    }
+
+    /**
+     * Parses a {@code traceparent} header.
+     *
+     * @return the context, or null if the header is malformed or not sampled
+     */
+    @Nullable
+    public static SpanContext parse(@Nullable String traceparent) {
+        if (traceparent == null || traceparent.length() != LENGTH
+              || !traceparent.startsWith(VERSION) || !traceparent.endsWith(SAMPLED)
+              || traceparent.charAt(2) != '-' || traceparent.charAt(35) != '-'
+              || traceparent.charAt(52) != '-') {
+            return null;
+        }
+        try {
+            SpanContext context = new SpanContext(
+                  Long.parseUnsignedLong(traceparent.substring(3, 19), 16),
+                  Long.parseUnsignedLong(traceparent.substring(19, 35), 16),
+                  Long.parseUnsignedLong(traceparent.substring(36, 52), 16));
+            context.traceparent = traceparent;
+            return context;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(traceIdHigh);
+        out.writeLong(traceIdLow);
+        out.writeLong(spanId);
+    }
+
+    public static SpanContext createFrom(DataInput in) throws IOException {
+        return new SpanContext(in.readLong(), in.readLong(), in.readLong());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SpanContext)) {
+            return false;
+        }
+        SpanContext other = (SpanContext) o;
+        return traceIdHigh == other.traceIdHigh && traceIdLow == other.traceIdLow
+              && spanId == other.spanId;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(traceIdLow) * 31 + Long.hashCode(spanId);
+    }
+}
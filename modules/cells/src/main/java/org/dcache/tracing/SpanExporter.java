@@ -0,0 +1,46 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.tracing;
+
+import java.io.PrintWriter;
+
+/**
+ * Receives spans as they end.
+ * <p>
+ * Spans are exported on the thread that ends them, which is often a message processing thread.
+ * Exporters must therefore not block.
+ */
+public interface SpanExporter {
+
+    /**
+     * Exporter that discards all spans.
+     */
+    SpanExporter NONE = span -> {
+    };
+
+    void export(Span span);
+
+    /**
+     * Prints information about the exporter for the admin interface.
+     */
+    default void getInfo(PrintWriter pw) {
+    }
+
+    default void close() {
+    }
+}
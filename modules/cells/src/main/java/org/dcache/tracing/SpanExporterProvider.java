@@ -0,0 +1,43 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.tracing;
+
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * Service provider interface for span exporters.
+ * <p>
+ * Providers are discovered with {@link java.util.ServiceLoader}, so plugins can add exporters
+ * for other tracing systems.
+ */
+public interface SpanExporterProvider {
+
+    /**
+     * Returns the name under which the exporter is configured.
+     */
+    String getName();
+
+    /**
+     * Creates an exporter.
+     *
+     * @param properties the {@code dcache.tracing} properties of the domain, with all
+     *                   placeholders resolved
+     */
+    SpanExporter createExporter(Properties properties) throws IOException;
+}
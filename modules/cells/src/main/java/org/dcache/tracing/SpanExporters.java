@@ -0,0 +1,52 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.tracing;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.ServiceLoader;
+
+/**
+ * Creates span exporters by name.
+ */
+public final class SpanExporters {
+
+    private static final ServiceLoader<SpanExporterProvider> PROVIDERS =
+          ServiceLoader.load(SpanExporterProvider.class);
+
+    private SpanExporters() {
+    }
+
+    /**
+     * Creates the exporter with the given name.  The name {@code none} disables exporting.
+     *
+     * @throws IllegalArgumentException if no provider supports the name
+     */
+    public static synchronized SpanExporter create(String name, Properties properties)
+          throws IOException {
+        if (name.equals("none")) {
+            return SpanExporter.NONE;
+        }
+        for (SpanExporterProvider provider : PROVIDERS) {
+            if (provider.getName().equals(name)) {
+                return provider.createExporter(properties);
+            }
+        }
+        throw new IllegalArgumentException("No span exporter named " + name);
+    }
+}
@@ -0,0 +1,146 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.tracing;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import dmg.cells.nucleus.CDC;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+/**
+ * Entry point for request tracing in a domain.
+ * <p>
+ * The context of the active span of a thread is stored in the cells diagnostic context.  It thus
+ * follows the request wherever the CDC does: to worker threads of CDC aware executors and, as
+ * the context of the {@link dmg.cells.nucleus.CellMessage}, to the cells that process the
+ * messages the request sends.  Those cells in turn run with the context of the message while
+ * processing it.
+ * <p>
+ * Whether a request is traced is decided once, by the domain in which its trace starts.  When
+ * tracing is off, starting a span costs a lookup in the MDC and a read of the sampling rate.
+ */
+public final class Tracer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Tracer.class);
+
+    private static volatile double samplingRate;
+    private static volatile SpanExporter exporter = SpanExporter.NONE;
+
+    private Tracer() {
+    }
+
+    /**
+     * Returns the context of the active span of the calling thread, or null if the thread is not
+     * part of a traced request.
+     */
+    @Nullable
+    public static SpanContext current() {
+        String traceparent = MDC.get(CDC.MDC_TRACE);
+        return traceparent == null ? null : SpanContext.parse(traceparent);
+    }
+
+    /**
+     * Starts a span at an entry point of requests into dCache.  If the calling thread is part of
+     * a traced request, the span becomes a child of the active span.  Otherwise a new trace is
+     * started for a fraction of the calls given by the sampling rate.
+     */
+    public static Span startTrace(String name) {
+        SpanContext parent = current();
+        if (parent != null) {
+            return new Span(name, parent.newChild(), parent, System.currentTimeMillis());
+        }
+        double rate = samplingRate;
+        if (rate > 0 && (rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate)) {
+            return new Span(name, SpanContext.newTrace(), null, System.currentTimeMillis());
+        }
+        return Span.NOOP;
+    }
+
+    /**
+     * Starts a child of the active span of the calling thread.  Records nothing unless the thread
+     * is part of a traced request.
+     */
+    public static Span startSpan(String name) {
+        return startSpan(name, current());
+    }
+
+    /**
+     * Starts a child of {@code parent}.  Records nothing if {@code parent} is null.
+     */
+    public static Span startSpan(String name, @Nullable SpanContext parent) {
+        if (parent == null) {
+            return Span.NOOP;
+        }
+        return new Span(name, parent.newChild(), parent, System.currentTimeMillis());
+    }
+
+    /**
+     * Starts a child of {@code parent}.  Records nothing if {@code parent} is null.
+     *
+     * @param startTime start of the span in milliseconds since the epoch; allows recording spans
+     *                  for operations that began before it was known whether they are traced,
+     *                  such as the time a message waited in a queue.
+     */
+    public static Span startSpan(String name, @Nullable SpanContext parent, long startTime) {
+        if (parent == null) {
+            return Span.NOOP;
+        }
+        return new Span(name, parent.newChild(), parent, startTime);
+    }
+
+    /**
+     * Sets the fraction of requests for which a new trace is started.
+     */
+    public static void setSamplingRate(double rate) {
+        checkArgument(rate >= 0 && rate <= 1, "Sampling rate must be between 0 and 1.");
+        samplingRate = rate;
+    }
+
+    public static double getSamplingRate() {
+        return samplingRate;
+    }
+
+    /**
+     * Sets the exporter that ended spans are passed to.  The previous exporter is closed.
+     */
+    public static void setExporter(SpanExporter exporter) {
+        SpanExporter previous;
+        synchronized (Tracer.class) {
+            previous = Tracer.exporter;
+            Tracer.exporter = requireNonNull(exporter);
+        }
+        previous.close();
+    }
+
+    public static SpanExporter getExporter() {
+        return exporter;
+    }
+
+    static void export(Span span) {
+        try {
+            exporter.export(span);
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to export span {}: {}", span, e.toString());
+        }
+    }
+}
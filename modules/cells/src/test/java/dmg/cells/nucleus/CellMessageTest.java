@@ -3,6 +3,7 @@ package dmg.cells.nucleus;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
@@ -10,6 +11,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import org.dcache.tracing.Span;
+import org.dcache.tracing.SpanContext;
+import org.dcache.tracing.Tracer;
 import org.junit.Test;
 
 public class CellMessageTest {
@@ -71,6 +75,60 @@ public class CellMessageTest {
         message.writeTo(outStream);
     }
 
+    private static CellMessage writeAndRead(CellMessage message, boolean withTraceContext)
+          throws IOException {
+        CellMessage encoded = message.encodeWith(SerializationHandler.Serializer.JOS);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoded.writeTo(new DataOutputStream(out), withTraceContext);
+        return CellMessage.createFrom(
+              new DataInputStream(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    private static SpanContext newTraceContext() {
+        Tracer.setSamplingRate(1);
+        try (Span span = Tracer.startTrace("test")) {
+            return span.getContext();
+        } finally {
+            Tracer.setSamplingRate(0);
+        }
+    }
+
+    @Test
+    public void shouldTransferTraceContext() throws Exception {
+        CellMessage message = new CellMessage(new CellPath("foo", "bar"), "payload");
+        SpanContext trace = newTraceContext();
+        message.setTraceContext(trace);
+
+        CellMessage decoded = writeAndRead(message, true).decode();
+
+        assertEquals(trace, decoded.getTraceContext());
+        assertEquals("payload", decoded.getMessageObject());
+        assertEquals(message.getUOID(), decoded.getUOID());
+    }
+
+    @Test
+    public void shouldOmitTraceContextForOldReleases() throws Exception {
+        CellMessage message = new CellMessage(new CellPath("foo", "bar"), "payload");
+        message.setTraceContext(newTraceContext());
+
+        CellMessage decoded = writeAndRead(message, false).decode();
+
+        assertNull(decoded.getTraceContext());
+        assertEquals("payload", decoded.getMessageObject());
+    }
+
+    @Test
+    public void shouldKeepTraceContextInReply() {
+        CellMessage message = new CellMessage(new CellPath("foo", "bar"), "payload");
+        SpanContext trace = newTraceContext();
+        message.setTraceContext(trace);
+        message.addSourceAddress(new CellAddressCore("foo", "source"));
+
+        message.revertDirection();
+
+        assertEquals(trace, message.getTraceContext());
+    }
+
     @Test
     public void shouldRevertDirection() {
         CellMessage message = new CellMessage(new CellPath("foo", "bar"), "payload");
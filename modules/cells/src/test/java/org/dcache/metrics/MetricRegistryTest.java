@@ -0,0 +1,139 @@
+package org.dcache.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+import java.util.concurrent.TimeUnit;
+import org.dcache.commons.stats.LatencyHistogram;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MetricRegistryTest {
+
+    private MetricRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new MetricRegistry();
+    }
+
+    private String render() {
+        StringBuilder sb = new StringBuilder();
+        registry.write(new MetricWriter(sb));
+        return sb.toString();
+    }
+
+    @Test
+    public void shouldRenderEmptyRegistry() {
+        assertThat(render(), equalTo("# EOF\n"));
+    }
+
+    @Test
+    public void shouldRenderGauge() {
+        registry.scope().gauge("queue_size", "Size of the queue.", out -> out.sample(42));
+
+        assertThat(render(), equalTo("# TYPE queue_size gauge\n"
+              + "# HELP queue_size Size of the queue.\n"
+              + "queue_size 42\n"
+              + "# EOF\n"));
+    }
+
+    @Test
+    public void shouldAddTotalSuffixToCounters() {
+        registry.scope().counter("messages", "Messages.", out -> out.sample("dir", "in", 7));
+
+        assertThat(render(), containsString("# TYPE messages counter\n"));
+        assertThat(render(), containsString("messages_total{dir=\"in\"} 7\n"));
+    }
+
+    @Test
+    public void shouldGroupSamplesOfScopesByFamily() {
+        registry.scope("cell", "a").gauge("queue", "Queue.", out -> out.sample(1));
+        registry.scope("other", "x").gauge("other", "Other.", out -> out.sample(3));
+        registry.scope("cell", "b").gauge("queue", "Queue.", out -> out.sample("q", "x", 2));
+
+        assertThat(render(), equalTo("# TYPE other gauge\n"
+              + "# HELP other Other.\n"
+              + "other{other=\"x\"} 3\n"
+              + "# TYPE queue gauge\n"
+              + "# HELP queue Queue.\n"
+              + "queue{cell=\"a\"} 1\n"
+              + "queue{cell=\"b\",q=\"x\"} 2\n"
+              + "# EOF\n"));
+    }
+
+    @Test
+    public void shouldUnregisterOnClose() {
+        MetricRegistry.Scope scope = registry.scope("cell", "a");
+        scope.gauge("queue", "Queue.", out -> out.sample(1));
+
+        scope.close();
+        scope.gauge("late", "Late.", out -> out.sample(1));
+
+        assertThat(render(), equalTo("# EOF\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectConflictingTypes() {
+        registry.scope().gauge("queue", "Queue.", out -> out.sample(1));
+        registry.scope().counter("queue", "Queue.", out -> out.sample(1));
+    }
+
+    @Test
+    public void shouldEscapeLabelValuesAndHelp() {
+        registry.scope().gauge("g", "Line\nbreak \\ \"quoted\"",
+              out -> out.sample("path", "a\"b\\c\nd", 1));
+
+        String text = render();
+        assertThat(text, containsString("# HELP g Line\\nbreak \\\\ \"quoted\"\n"));
+        assertThat(text, containsString("g{path=\"a\\\"b\\\\c\\nd\"} 1\n"));
+    }
+
+    @Test
+    public void shouldRenderDoubles() {
+        registry.scope().gauge("g", "G.", out -> {
+            out.sample("v", "a", 1.5);
+            out.sample("v", "b", 2.0);
+            out.sample("v", "c", Double.NaN);
+            out.sample("v", "d", Double.POSITIVE_INFINITY);
+        });
+
+        String text = render();
+        assertThat(text, containsString("g{v=\"a\"} 1.5\n"));
+        assertThat(text, containsString("g{v=\"b\"} 2\n"));
+        assertThat(text, containsString("g{v=\"c\"} NaN\n"));
+        assertThat(text, containsString("g{v=\"d\"} +Inf\n"));
+    }
+
+    @Test
+    public void shouldRenderSummary() {
+        LatencyHistogram histogram = new LatencyHistogram(1, TimeUnit.MINUTES, 6);
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        registry.scope("cell", "a").summary("latency_seconds", "Latency.",
+              out -> out.summary("op", "read", histogram.snapshot(), 100, 5050, 0.001));
+
+        String text = render();
+        assertThat(text, containsString("latency_seconds{cell=\"a\",op=\"read\",quantile=\"0.5\"}"));
+        assertThat(text, containsString("latency_seconds{cell=\"a\",op=\"read\",quantile=\"0.999\"} 0.1\n"));
+        assertThat(text, containsString("latency_seconds_count{cell=\"a\",op=\"read\"} 100\n"));
+        assertThat(text, containsString("latency_seconds_sum{cell=\"a\",op=\"read\"} 5.05\n"));
+    }
+
+    @Test
+    public void shouldSkipFailingCollector() {
+        registry.scope().gauge("bad", "Bad.", out -> {
+            throw new IllegalStateException("broken");
+        });
+        registry.scope().gauge("good", "Good.", out -> out.sample(1));
+
+        String text = render();
+        assertThat(text, containsString("good 1\n"));
+        assertThat(text, not(containsString("\nbad ")));
+        assertThat(text, endsWith("# EOF\n"));
+    }
+}
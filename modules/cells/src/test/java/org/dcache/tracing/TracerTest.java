@@ -0,0 +1,123 @@
+package org.dcache.tracing;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import dmg.cells.nucleus.CDC;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.MDC;
+
+public class TracerTest {
+
+    private final List<Span> exported = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        Tracer.setExporter(exported::add);
+    }
+
+    @After
+    public void tearDown() {
+        Tracer.setSamplingRate(0);
+        Tracer.setExporter(SpanExporter.NONE);
+        MDC.remove(CDC.MDC_TRACE);
+    }
+
+    @Test
+    public void shouldNotTraceWhenSamplingIsOff() {
+        Span span = Tracer.startTrace("request");
+
+        assertThat(span.isRecording(), equalTo(false));
+        assertThat(span.activate(), not(nullValue()));
+        span.end();
+        assertThat(exported.isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void shouldNotStartSpanOutsideTrace() {
+        Tracer.setSamplingRate(1);
+
+        assertThat(Tracer.startSpan("phase").isRecording(), equalTo(false));
+    }
+
+    @Test
+    public void shouldExportSpanWhenEnded() {
+        Tracer.setSamplingRate(1);
+
+        Span span = Tracer.startTrace("request").setAttribute("path", "/foo");
+        span.end();
+        span.end();
+
+        assertThat(exported, contains(sameInstance(span)));
+        assertThat(span.getParent(), nullValue());
+        assertThat(span.getAttributes(), hasEntry("path", "/foo"));
+    }
+
+    @Test
+    public void shouldStartChildOfActiveSpan() {
+        Tracer.setSamplingRate(1);
+        Span root = Tracer.startTrace("request");
+
+        Span child;
+        try (Span.Scope ignored = root.activate()) {
+            assertThat(Tracer.current(), equalTo(root.getContext()));
+            Tracer.setSamplingRate(0);
+            child = Tracer.startSpan("phase");
+        }
+
+        assertThat(Tracer.current(), nullValue());
+        assertThat(child.isRecording(), equalTo(true));
+        assertThat(child.getParent(), equalTo(root.getContext()));
+        assertThat(child.getContext().getTraceId(), equalTo(root.getContext().getTraceId()));
+        assertThat(child.getContext().getSpanId(),
+              not(equalTo(root.getContext().getSpanId())));
+    }
+
+    @Test
+    public void shouldContinueTraceStartedElsewhere() {
+        Tracer.setSamplingRate(1);
+        SpanContext remote = Tracer.startTrace("door").getContext();
+        Tracer.setSamplingRate(0);
+        MDC.put(CDC.MDC_TRACE, remote.toString());
+
+        Span span = Tracer.startTrace("request");
+
+        assertThat(span.getParent(), equalTo(remote));
+    }
+
+    @Test
+    public void shouldParseTraceparent() {
+        Tracer.setSamplingRate(1);
+        SpanContext context = Tracer.startTrace("request").getContext();
+
+        assertThat(SpanContext.parse(context.toString()), equalTo(context));
+        assertThat(context.toString().length(), equalTo(55));
+        assertThat(SpanContext.parse("00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-00"),
+              nullValue());
+        assertThat(SpanContext.parse("garbage"), nullValue());
+    }
+
+    @Test
+    public void shouldFormatSpanAsJson() {
+        Tracer.setSamplingRate(1);
+        Span span = Tracer.startTrace("request").setAttribute("path", "/a\"b").setError("failed");
+        span.end();
+
+        String json = JsonSpanFormat.format(span);
+
+        assertThat(json, equalTo("{\"traceId\":\"" + span.getContext().getTraceId()
+              + "\",\"spanId\":\"" + span.getContext().getSpanId()
+              + "\",\"name\":\"request\",\"startTime\":" + span.getStartTime()
+              + ",\"durationMicros\":" + span.getDuration()
+              + ",\"error\":\"failed\",\"attributes\":{\"path\":\"/a\\\"b\"}}"));
+    }
+}
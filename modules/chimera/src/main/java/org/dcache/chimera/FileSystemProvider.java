@@ -261,6 +261,27 @@ public interface FileSystemProvider extends Closeable {
      */
     FsInode id2inode(String id, StatCacheOption stat) throws ChimeraFsException;
 
+    /**
+     * Maps several persistent identifiers to inodes with a pre-filled stat cache. Identifiers
+     * for which no inode exists are not included in the result.
+     *
+     * @param ids
+     * @return the inodes by their identifier
+     * @throws ChimeraFsException
+     */
+    Map<String, FsInode> id2inodes(Collection<String> ids) throws ChimeraFsException;
+
+    /**
+     * Returns the inode number of a parent directory for each of several inodes. Inodes with
+     * hard links are mapped to one of their parents.
+     *
+     * @param inodes
+     * @return the parent inode numbers by the inode number of the child
+     * @throws ChimeraFsException
+     */
+    Map<Long, Long> getParentInumbers(Collection<? extends FsInode> inodes)
+          throws ChimeraFsException;
+
     List<FsInode> path2inodes(String path)
           throws ChimeraFsException;
 
@@ -337,12 +358,37 @@ public interface FileSystemProvider extends Closeable {
     List<StorageLocatable> getInodeLocations(FsInode inode)
           throws ChimeraFsException;
 
+    /**
+     * Returns the online locations of several inodes.
+     *
+     * @return the locations by inode number; inodes without locations are not included
+     */
+    Map<Long, List<StorageLocatable>> getInodeLocations(Collection<? extends FsInode> inodes)
+          throws ChimeraFsException;
+
     void addInodeLocation(FsInode inode, int type,
           String location) throws ChimeraFsException;
 
     void clearInodeLocation(FsInode inode, int type,
           String location) throws ChimeraFsException;
 
+    /**
+     * Adds the same location to several inodes using as few statements as possible. Inodes that
+     * no longer exist and inodes that already have the location are silently skipped.
+     *
+     * @return the number of locations added
+     */
+    int addInodeLocations(Collection<? extends FsInode> inodes, int type,
+          String location) throws ChimeraFsException;
+
+    /**
+     * Removes the same location from several inodes using as few statements as possible.
+     *
+     * @return the number of locations removed
+     */
+    int clearInodeLocations(Collection<? extends FsInode> inodes, int type,
+          String location) throws ChimeraFsException;
+
     void clearTapeLocations(FsInode inode) throws ChimeraFsException;
 
     String[] tags(FsInode inode) throws ChimeraFsException;
@@ -412,6 +458,14 @@ public interface FileSystemProvider extends Closeable {
     Set<Checksum> getInodeChecksums(FsInode inode)
           throws ChimeraFsException;
 
+    /**
+     * Returns the checksums of several inodes.
+     *
+     * @return the checksums by inode number; inodes without checksums are not included
+     */
+    Map<Long, Set<Checksum>> getInodeChecksums(Collection<? extends FsInode> inodes)
+          throws ChimeraFsException;
+
     String getInfo();
 
     /**
@@ -115,6 +115,11 @@ public class FsSqlDriver {
     private static final ServiceLoader<DBDriverProvider> ALL_PROVIDERS
           = ServiceLoader.load(DBDriverProvider.class);
 
+    /**
+     * Maximum number of values in an IN list. Some databases, e.g. Oracle, do not accept more.
+     */
+    protected static final int MAX_IN_LIST = 1000;
+
     final JdbcTemplate _jdbc;
 
     private final long _root;
@@ -383,6 +388,29 @@ public class FsSqlDriver {
         return stat(inode, 0);
     }
 
+    /**
+     * Returns the stat of all inodes with one of the given ids. Ids without an inode are
+     * skipped.
+     *
+     * @param ids
+     * @return
+     */
+    List<Stat> stat(Collection<String> ids) {
+        List<Stat> stats = new ArrayList<>(ids.size());
+        for (List<String> chunk : Lists.partition(new ArrayList<>(ids), MAX_IN_LIST)) {
+            stats.addAll(_jdbc.query(
+                  "SELECT * FROM t_inodes WHERE ipnfsid IN (" + placeholders(chunk.size()) + ")",
+                  ps -> {
+                      int i = 1;
+                      for (String id : chunk) {
+                          ps.setString(i++, id);
+                      }
+                  },
+                  (rs, rowNum) -> toStat(rs)));
+        }
+        return stats;
+    }
+
     public Stat stat(FsInode inode, int level) {
         if (level == 0) {
             return _jdbc.query(
@@ -829,6 +857,30 @@ public class FsSqlDriver {
                     rs.getString("iname")));
     }
 
+    /**
+     * Returns the inode number of a parent directory for each of the given inodes.
+     *
+     * @param inodes
+     * @return
+     */
+    Map<Long, Long> getParentInumbers(Collection<? extends FsInode> inodes) {
+        Map<Long, Long> parents = new HashMap<>();
+        for (List<Long> ids : Lists.partition(inumbers(inodes), MAX_IN_LIST)) {
+            _jdbc.query("SELECT ichild,iparent FROM t_dirs WHERE ichild IN ("
+                        + placeholders(ids.size()) + ")",
+                  ps -> {
+                      int i = 1;
+                      for (long id : ids) {
+                          ps.setLong(i++, id);
+                      }
+                  },
+                  rs -> {
+                      parents.putIfAbsent(rs.getLong("ichild"), rs.getLong("iparent"));
+                  });
+        }
+        return parents;
+    }
+
     boolean setInodeAttributes(FsInode inode, int level, Stat stat) {
         return _jdbc.update(con -> generateAttributeUpdateStatement(con, inode, stat, level)) > 0;
     }
@@ -1010,6 +1062,38 @@ public class FsSqlDriver {
     }
 
 
+    /**
+     * returns the 'online' locations of the inodes.
+     *
+     * @param inodes
+     * @return the locations by inode number
+     */
+    Map<Long, List<StorageLocatable>> getInodeLocations(Collection<? extends FsInode> inodes) {
+        Map<Long, List<StorageLocatable>> locations = new HashMap<>();
+        for (List<Long> ids : Lists.partition(inumbers(inodes), MAX_IN_LIST)) {
+            _jdbc.query("SELECT inumber,itype,ilocation,ipriority,ictime,iatime FROM t_locationinfo " +
+                        "WHERE istate=1 AND inumber IN (" + placeholders(ids.size()) + ") " +
+                        "ORDER BY ipriority DESC",
+                  ps -> {
+                      int i = 1;
+                      for (long id : ids) {
+                          ps.setLong(i++, id);
+                      }
+                  },
+                  rs -> {
+                      int type = rs.getInt("itype");
+                      long ctime = rs.getTimestamp("ictime").getTime();
+                      long atime = rs.getTimestamp("iatime").getTime();
+                      int priority = rs.getInt("ipriority");
+                      String location = rs.getString("ilocation");
+                      locations.computeIfAbsent(rs.getLong("inumber"), k -> new ArrayList<>())
+                            .add(new StorageGenericLocation(type, priority, location, ctime, atime,
+                                  true));
+                  });
+        }
+        return locations;
+    }
+
     /**
      * adds a new location for the inode
      *
@@ -1054,6 +1138,92 @@ public class FsSqlDriver {
               });
     }
 
+    /**
+     * adds the same location to several inodes. Inodes that do not exist (anymore) or that
+     * already have the location are skipped.
+     *
+     * @param inodes
+     * @param type
+     * @param location
+     * @return the number of added locations
+     */
+    int addInodeLocations(Collection<? extends FsInode> inodes, int type, String location) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        int n = 0;
+        for (List<Long> ids : Lists.partition(inumbers(inodes), MAX_IN_LIST)) {
+            n += _jdbc.update(
+                  "INSERT INTO t_locationinfo (inumber,itype,ilocation,ipriority,ictime,iatime,istate) "
+                        +
+                        "(SELECT i.inumber,?,?,?,?,?,? FROM t_inodes i WHERE i.inumber IN ("
+                        + placeholders(ids.size()) + ") AND NOT EXISTS " +
+                        "(SELECT 1 FROM t_locationinfo l WHERE l.inumber=i.inumber AND l.itype=? AND l.ilocation=?))",
+                  ps -> {
+                      int i = setLocationValues(ps, type, location, now);
+                      for (long id : ids) {
+                          ps.setLong(i++, id);
+                      }
+                      ps.setInt(i++, type);
+                      ps.setString(i, location);
+                  });
+        }
+        return n;
+    }
+
+    /**
+     * removes the same location from several inodes.
+     *
+     * @param inodes
+     * @param type
+     * @param location
+     * @return the number of removed locations
+     */
+    int clearInodeLocations(Collection<? extends FsInode> inodes, int type, String location) {
+        int n = 0;
+        for (List<Long> ids : Lists.partition(inumbers(inodes), MAX_IN_LIST)) {
+            n += _jdbc.update("DELETE FROM t_locationinfo WHERE itype=? AND ilocation=? AND inumber IN ("
+                        + placeholders(ids.size()) + ")",
+                  ps -> {
+                      ps.setInt(1, type);
+                      ps.setString(2, location);
+                      int i = 3;
+                      for (long id : ids) {
+                          ps.setLong(i++, id);
+                      }
+                  });
+        }
+        return n;
+    }
+
+    /**
+     * Sets the location columns of a new t_locationinfo row, starting at the first parameter.
+     *
+     * @return the index of the next parameter
+     */
+    protected static int setLocationValues(PreparedStatement ps, int type, String location,
+          Timestamp now) throws SQLException {
+        ps.setInt(1, type);
+        ps.setString(2, location);
+        ps.setInt(3, 10); // default priority
+        ps.setTimestamp(4, now);
+        ps.setTimestamp(5, now);
+        ps.setInt(6, 1); // online
+        return 7;
+    }
+
+    /**
+     * Returns the distinct inode numbers of {@code inodes}.
+     */
+    protected static List<Long> inumbers(Collection<? extends FsInode> inodes) {
+        return inodes.stream().map(FsInode::ino).distinct().collect(toList());
+    }
+
+    /**
+     * Returns a comma separated list of {@code n} parameter placeholders.
+     */
+    protected static String placeholders(int n) {
+        return String.join(",", Collections.nCopies(n, "?"));
+    }
+
     /**
      * remove the tape locations for an inode
      *
@@ -1573,6 +1743,31 @@ public class FsSqlDriver {
               });
     }
 
+    /**
+     * @param inodes
+     * @return the checksums by inode number
+     */
+    Map<Long, Set<Checksum>> getInodeChecksums(Collection<? extends FsInode> inodes) {
+        Map<Long, Set<Checksum>> checksums = new HashMap<>();
+        for (List<Long> ids : Lists.partition(inumbers(inodes), MAX_IN_LIST)) {
+            _jdbc.query("SELECT inumber,isum,itype FROM t_inodes_checksum WHERE inumber IN ("
+                        + placeholders(ids.size()) + ")",
+                  ps -> {
+                      int i = 1;
+                      for (long id : ids) {
+                          ps.setLong(i++, id);
+                      }
+                  },
+                  rs -> {
+                      String checksum = rs.getString("isum");
+                      int type = rs.getInt("itype");
+                      checksums.computeIfAbsent(rs.getLong("inumber"), k -> new HashSet<>())
+                            .add(new Checksum(ChecksumType.getChecksumType(type), checksum));
+                  });
+        }
+        return checksums;
+    }
+
     /**
      * @param inode
      * @param type
@@ -0,0 +1,241 @@
+/*
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this program (see the file COPYING.LIB for more
+ * details); if not, write to the Free Software Foundation, Inc.,
+ * 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.dcache.chimera;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a query over the inodes of the namespace in parallel.
+ * <p>
+ * The inumber range of {@code t_inodes} is split into partitions which are queried concurrently,
+ * each on its own connection.  Rows are handed to the caller in batches as they arrive, on the
+ * calling thread.  At most a fixed number of batches is buffered; once the buffer is full the
+ * partitions stop fetching rows until the caller has consumed a batch, so a scan never runs
+ * ahead of its consumer.
+ * <p>
+ * The query must end with two placeholders for the inclusive lower and the exclusive upper bound
+ * of the inumbers of a partition, e.g. {@code ... AND l.inumber >= ? AND l.inumber < ?}.
+ * <p>
+ * On PostgreSQL, rows are only streamed with a cursor if auto-commit is disabled, which is why
+ * the partitions run inside a read-only transaction.
+ */
+public class InumberRangeScanner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InumberRangeScanner.class);
+
+    private static final String SQL_GET_MIN_MAX_INUMBER =
+          "SELECT min(inumber), max(inumber) FROM t_inodes";
+
+    private static final long POLL_INTERVAL = 100;
+
+    @FunctionalInterface
+    public interface RowMapper<T> {
+
+        T map(ResultSet resultSet) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface BatchConsumer<T, E extends Exception> {
+
+        void accept(List<T> batch) throws E, InterruptedException;
+    }
+
+    private final DataSource dataSource;
+    private final Executor executor;
+    private final int partitions;
+    private final int batchSize;
+    private final int maxQueuedBatches;
+
+    /**
+     * @param dataSource       connections for the partitions; may be a read replica
+     * @param executor         runs the partitions; its size bounds the number of connections used
+     * @param partitions       number of partitions the inumber range is split into
+     * @param batchSize        rows per batch, also used as the JDBC fetch size
+     * @param maxQueuedBatches batches fetched but not yet consumed before partitions block
+     */
+    public InumberRangeScanner(DataSource dataSource, Executor executor, int partitions,
+          int batchSize, int maxQueuedBatches) {
+        checkArgument(partitions > 0, "partitions must be positive");
+        checkArgument(batchSize > 0, "batch size must be positive");
+        checkArgument(maxQueuedBatches > 0, "queued batches must be positive");
+        this.dataSource = dataSource;
+        this.executor = executor;
+        this.partitions = partitions;
+        this.batchSize = batchSize;
+        this.maxQueuedBatches = maxQueuedBatches;
+    }
+
+    /**
+     * Runs the query over all inodes and passes the mapped rows to {@code consumer}.  Returns
+     * once all partitions are done, the scan is cancelled, or an error occurred; in all cases no
+     * partition is still running when this method returns.
+     *
+     * @param sql         the query, ending with the inumber range placeholders
+     * @param arguments   values of the placeholders preceding the range
+     * @param mapper      maps a row to a result
+     * @param isCancelled polled while scanning; stops the scan once true
+     * @param consumer    called on the calling thread with each batch of results
+     * @return the number of rows passed to the consumer
+     */
+    public <T, E extends Exception> long scan(String sql, List<?> arguments,
+          RowMapper<T> mapper, BooleanSupplier isCancelled, BatchConsumer<T, E> consumer)
+          throws SQLException, InterruptedException, E {
+        long[] range = getInumberRange();
+        long from = range[0];
+        long to = range[1] + 1;
+        int n = (int) Math.max(1, Math.min(partitions, to - from));
+        long width = (to - from + n - 1) / n;
+
+        Scan<T> scan = new Scan<>(sql, arguments, mapper, n);
+        for (int i = 0; i < n; i++) {
+            long lower = from + i * width;
+            long upper = i == n - 1 ? to : lower + width;
+            try {
+                executor.execute(() -> scan.read(lower, upper));
+            } catch (RejectedExecutionException e) {
+                scan.fail(new SQLException("Partition scan rejected: " + e.getMessage(), e));
+                scan.finished.countDown();
+            }
+        }
+
+        long count = 0;
+        try {
+            while (!isCancelled.getAsBoolean()) {
+                List<T> batch = scan.queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (batch != null) {
+                    consumer.accept(batch);
+                    count += batch.size();
+                } else if (scan.error.get() != null || scan.finished.getCount() == 0
+                      && scan.queue.isEmpty()) {
+                    break;
+                }
+            }
+        } finally {
+            scan.stopped = true;
+            Uninterruptibles.awaitUninterruptibly(scan.finished);
+        }
+
+        Exception e = scan.error.get();
+        if (e instanceof SQLException) {
+            throw (SQLException) e;
+        } else if (e != null) {
+            throw (RuntimeException) e;
+        }
+        return count;
+    }
+
+    private long[] getInumberRange() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+              PreparedStatement statement = connection.prepareStatement(SQL_GET_MIN_MAX_INUMBER);
+              ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return new long[]{resultSet.getLong(1), resultSet.getLong(2)};
+        }
+    }
+
+    private class Scan<T> {
+
+        final String sql;
+        final List<?> arguments;
+        final RowMapper<T> mapper;
+        final BlockingQueue<List<T>> queue = new ArrayBlockingQueue<>(maxQueuedBatches);
+        final CountDownLatch finished;
+        final AtomicReference<Exception> error = new AtomicReference<>();
+        volatile boolean stopped;
+
+        Scan(String sql, List<?> arguments, RowMapper<T> mapper, int partitions) {
+            this.sql = sql;
+            this.arguments = arguments;
+            this.mapper = mapper;
+            finished = new CountDownLatch(partitions);
+        }
+
+        void fail(Exception e) {
+            if (error.compareAndSet(null, e)) {
+                stopped = true;
+            }
+        }
+
+        void read(long lower, long upper) {
+            LOGGER.debug("Scanning inumbers {} to {}.", lower, upper);
+            try (Connection connection = dataSource.getConnection()) {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    int index = 1;
+                    for (Object argument : arguments) {
+                        statement.setObject(index++, argument);
+                    }
+                    statement.setLong(index++, lower);
+                    statement.setLong(index, upper);
+                    statement.setFetchSize(batchSize);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        List<T> batch = new ArrayList<>(batchSize);
+                        while (!stopped && resultSet.next()) {
+                            batch.add(mapper.map(resultSet));
+                            if (batch.size() == batchSize) {
+                                put(batch);
+                                batch = new ArrayList<>(batchSize);
+                            }
+                        }
+                        if (!batch.isEmpty()) {
+                            put(batch);
+                        }
+                    }
+                } finally {
+                    connection.rollback();
+                    connection.setAutoCommit(autoCommit);
+                }
+            } catch (SQLException | RuntimeException e) {
+                LOGGER.warn("Scan of inumbers {} to {} failed: {}", lower, upper, e.toString());
+                fail(e);
+            } catch (InterruptedException e) {
+                fail(new SQLException("Scan of inumbers was interrupted."));
+                Thread.currentThread().interrupt();
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        private void put(List<T> batch) throws InterruptedException {
+            while (!stopped) {
+                if (queue.offer(batch, POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -41,6 +41,7 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -768,6 +769,23 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         }
     }
 
+    @Override
+    public Map<String, FsInode> id2inodes(Collection<String> ids) throws ChimeraFsException {
+        Map<String, FsInode> inodes = new HashMap<>();
+        for (Stat stat : _sqlDriver.stat(ids)) {
+            _inoCache.put(stat.getId(), stat.getIno());
+            _idCache.put(stat.getIno(), stat.getId());
+            inodes.put(stat.getId(), new FsInode(this, stat.getIno(), FsInodeType.INODE, 0, stat));
+        }
+        return inodes;
+    }
+
+    @Override
+    public Map<Long, Long> getParentInumbers(Collection<? extends FsInode> inodes)
+          throws ChimeraFsException {
+        return _sqlDriver.getParentInumbers(inodes);
+    }
+
     @Override
     public List<FsInode> path2inodes(String path) throws ChimeraFsException {
         return path2inodes(path, new RootInode(this, _sqlDriver.getRootInumber()));
@@ -1176,6 +1194,12 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         return _sqlDriver.getInodeLocations(inode);
     }
 
+    @Override
+    public Map<Long, List<StorageLocatable>> getInodeLocations(
+          Collection<? extends FsInode> inodes) throws ChimeraFsException {
+        return _sqlDriver.getInodeLocations(inodes);
+    }
+
     @Override
     public void addInodeLocation(FsInode inode, int type, String location)
           throws ChimeraFsException {
@@ -1198,6 +1222,18 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         });
     }
 
+    @Override
+    public int addInodeLocations(Collection<? extends FsInode> inodes, int type, String location)
+          throws ChimeraFsException {
+        return inTransaction(status -> _sqlDriver.addInodeLocations(inodes, type, location));
+    }
+
+    @Override
+    public int clearInodeLocations(Collection<? extends FsInode> inodes, int type, String location)
+          throws ChimeraFsException {
+        return inTransaction(status -> _sqlDriver.clearInodeLocations(inodes, type, location));
+    }
+
     @Override
     public void clearTapeLocations(FsInode inode) throws ChimeraFsException {
         inTransaction(status -> {
@@ -1362,6 +1398,12 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         return new HashSet<>(_sqlDriver.getInodeChecksums(inode));
     }
 
+    @Override
+    public Map<Long, Set<Checksum>> getInodeChecksums(Collection<? extends FsInode> inodes)
+          throws ChimeraFsException {
+        return _sqlDriver.getInodeChecksums(inodes);
+    }
+
     /**
      * Get inode's Access Control List. An empty list is returned if there are no ACL assigned to
      * the <code>inode</code>.
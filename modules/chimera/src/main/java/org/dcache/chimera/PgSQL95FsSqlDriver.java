@@ -17,6 +17,7 @@
 package org.dcache.chimera;
 
 import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 import java.io.File;
 import java.net.SocketException;
 import java.sql.PreparedStatement;
@@ -25,6 +26,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
@@ -371,6 +373,27 @@ public class PgSQL95FsSqlDriver extends FsSqlDriver {
     }
 
 
+    @Override
+    int addInodeLocations(Collection<? extends FsInode> inodes, int type, String location) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        int n = 0;
+        for (List<Long> ids : Lists.partition(inumbers(inodes), MAX_IN_LIST)) {
+            n += _jdbc.update(
+                  "INSERT INTO t_locationinfo (inumber,itype,ilocation,ipriority,ictime,iatime,istate) "
+                        +
+                        "SELECT inumber,?,?,?,?,?,? FROM t_inodes WHERE inumber IN ("
+                        + placeholders(ids.size()) + ") " +
+                        "ON CONFLICT ON CONSTRAINT t_locationinfo_pkey DO NOTHING",
+                  ps -> {
+                      int i = setLocationValues(ps, type, location, now);
+                      for (long id : ids) {
+                          ps.setLong(i++, id);
+                      }
+                  });
+        }
+        return n;
+    }
+
     /**
      * Attache a given label to  a given file system object.
      *
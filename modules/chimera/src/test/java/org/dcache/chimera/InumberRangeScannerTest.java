@@ -0,0 +1,102 @@
+package org.dcache.chimera;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class InumberRangeScannerTest extends ChimeraTestCaseHelper {
+
+    private static final String SQL_GET_FILES_AT_LOCATION =
+          "SELECT n.ipnfsid FROM t_locationinfo l, t_inodes n"
+                + " WHERE l.inumber = n.inumber AND l.ilocation = ?"
+                + " AND l.inumber >= ? AND l.inumber < ?";
+
+    private ExecutorService executor;
+    private final List<String> expected = new ArrayList<>();
+
+    @Before
+    public void setUpFiles() throws Exception {
+        executor = Executors.newFixedThreadPool(3);
+        FsInode dir = _rootInode.mkdir("dir");
+        for (int i = 0; i < 50; i++) {
+            FsInode file = dir.create("file" + i, 0, 0, 0644);
+            _fs.addInodeLocation(file, StorageGenericLocation.DISK, i % 2 == 0 ? "pool1" : "pool2");
+            if (i % 2 == 0) {
+                expected.add(file.getId());
+            }
+        }
+    }
+
+    @After
+    public void tearDownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldFindAllRowsOfAllPartitions() throws Exception {
+        InumberRangeScanner scanner = new InumberRangeScanner(_dataSource, executor, 4, 3, 2);
+        List<String> found = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+
+        long count = scanner.scan(SQL_GET_FILES_AT_LOCATION, List.of("pool1"),
+              rs -> rs.getString(1), () -> false, batch -> {
+                  sizes.add(batch.size());
+                  found.addAll(batch);
+              });
+
+        assertThat(count, equalTo(25L));
+        assertThat(found, containsInAnyOrder(expected.toArray()));
+        sizes.forEach(size -> assertThat(size, lessThan(4)));
+    }
+
+    @Test
+    public void shouldScanWithSinglePartition() throws Exception {
+        InumberRangeScanner scanner = new InumberRangeScanner(_dataSource, executor, 1, 100, 1);
+        List<String> found = new ArrayList<>();
+
+        scanner.scan(SQL_GET_FILES_AT_LOCATION, List.of("pool1"), rs -> rs.getString(1),
+              () -> false, found::addAll);
+
+        assertThat(found, containsInAnyOrder(expected.toArray()));
+    }
+
+    @Test
+    public void shouldStopWhenCancelled() throws Exception {
+        InumberRangeScanner scanner = new InumberRangeScanner(_dataSource, executor, 2, 1, 1);
+        List<String> found = new ArrayList<>();
+
+        long count = scanner.scan(SQL_GET_FILES_AT_LOCATION, List.of("pool1"),
+              rs -> rs.getString(1), () -> found.size() >= 5, found::addAll);
+
+        assertThat(count, equalTo(5L));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldPropagateConsumerFailure() throws Exception {
+        InumberRangeScanner scanner = new InumberRangeScanner(_dataSource, executor, 2, 1, 1);
+
+        scanner.scan(SQL_GET_FILES_AT_LOCATION, List.of("pool1"), rs -> rs.getString(1),
+              () -> false, batch -> {
+                  throw new IllegalStateException("failed");
+              });
+    }
+
+    @Test(expected = SQLException.class)
+    public void shouldPropagateQueryFailure() throws Exception {
+        InumberRangeScanner scanner = new InumberRangeScanner(_dataSource, executor, 2, 1, 1);
+
+        scanner.scan("SELECT no_such_column FROM t_inodes WHERE inumber >= ? AND inumber < ?",
+              List.of(), rs -> rs.getString(1), () -> false, batch -> {
+              });
+    }
+}
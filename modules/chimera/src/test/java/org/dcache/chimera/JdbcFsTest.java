@@ -28,9 +28,12 @@ import java.sql.Timestamp;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.dcache.acl.ACE;
 import org.dcache.acl.enums.AccessMask;
 import org.dcache.acl.enums.AceType;
@@ -615,6 +618,78 @@ public class JdbcFsTest extends ChimeraTestCaseHelper {
         _fs.addInodeLocation(fileInode, StorageGenericLocation.DISK, "/dev/null");
     }
 
+    @Test
+    public void testAddLocations() throws Exception {
+        FsInode base = _rootInode.mkdir("junit");
+        FsInode file1 = base.create("file1", 0, 0, 0644);
+        FsInode file2 = base.create("file2", 0, 0, 0644);
+        FsInode missing = new FsInode(_fs, Long.MAX_VALUE);
+        _fs.addInodeLocation(file1, StorageGenericLocation.DISK, "pool");
+
+        int n = _fs.addInodeLocations(Arrays.asList(file1, file2, file2, missing),
+              StorageGenericLocation.DISK, "pool");
+
+        assertEquals(1, n);
+        assertEquals(1, _fs.getInodeLocations(file1, StorageGenericLocation.DISK).size());
+        assertEquals(1, _fs.getInodeLocations(file2, StorageGenericLocation.DISK).size());
+    }
+
+    @Test
+    public void testClearLocations() throws Exception {
+        FsInode base = _rootInode.mkdir("junit");
+        FsInode file1 = base.create("file1", 0, 0, 0644);
+        FsInode file2 = base.create("file2", 0, 0, 0644);
+        _fs.addInodeLocation(file1, StorageGenericLocation.DISK, "pool1");
+        _fs.addInodeLocation(file1, StorageGenericLocation.DISK, "pool2");
+        _fs.addInodeLocation(file2, StorageGenericLocation.DISK, "pool1");
+
+        int n = _fs.clearInodeLocations(Arrays.asList(file1, file2),
+              StorageGenericLocation.DISK, "pool1");
+
+        assertEquals(2, n);
+        assertEquals(1, _fs.getInodeLocations(file1, StorageGenericLocation.DISK).size());
+        assertTrue(_fs.getInodeLocations(file2, StorageGenericLocation.DISK).isEmpty());
+    }
+
+    @Test
+    public void testId2Inodes() throws Exception {
+        FsInode base = _rootInode.mkdir("junit");
+        FsInode file1 = base.create("file1", 0, 0, 0644);
+        FsInode file2 = base.create("file2", 0, 0, 0644);
+
+        Map<String, FsInode> inodes = _fs.id2inodes(Arrays.asList(file1.getId(), file2.getId(),
+              "0000FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF"));
+
+        assertEquals(2, inodes.size());
+        assertEquals(file1.ino(), inodes.get(file1.getId()).ino());
+        assertEquals(file2.stat().getMode(), inodes.get(file2.getId()).stat().getMode());
+        assertEquals(Map.of(file1.ino(), base.ino(), file2.ino(), base.ino()),
+              _fs.getParentInumbers(inodes.values()));
+    }
+
+    @Test
+    public void testGetLocationsAndChecksumsOfInodes() throws Exception {
+        FsInode base = _rootInode.mkdir("junit");
+        FsInode file1 = base.create("file1", 0, 0, 0644);
+        FsInode file2 = base.create("file2", 0, 0, 0644);
+        FsInode file3 = base.create("file3", 0, 0, 0644);
+        _fs.addInodeLocation(file1, StorageGenericLocation.DISK, "pool1");
+        _fs.addInodeLocation(file1, StorageGenericLocation.DISK, "pool2");
+        _fs.addInodeLocation(file2, StorageGenericLocation.DISK, "pool1");
+        _fs.setInodeChecksum(file2, ChecksumType.ADLER32.getType(), "01020304");
+
+        List<FsInode> inodes = Arrays.asList(file1, file2, file3);
+        Map<Long, List<StorageLocatable>> locations = _fs.getInodeLocations(inodes);
+        Map<Long, Set<Checksum>> checksums = _fs.getInodeChecksums(inodes);
+
+        assertEquals(2, locations.get(file1.ino()).size());
+        assertEquals(1, locations.get(file2.ino()).size());
+        assertFalse(locations.containsKey(file3.ino()));
+        assertEquals(Set.of(new Checksum(ChecksumType.ADLER32, "01020304")),
+              checksums.get(file2.ino()));
+        assertFalse(checksums.containsKey(file1.ino()));
+    }
+
     @Test(expected = FileNotFoundChimeraFsException.class)
     public void testSetSizeNotExist() throws Exception {
 
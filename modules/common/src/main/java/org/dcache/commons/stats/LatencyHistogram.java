@@ -0,0 +1,270 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.commons.stats;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * A lock-free histogram of latencies over a sliding time window.
+ * <p>
+ * Values are counted in logarithmic buckets: values below 8 are counted exactly, larger values
+ * fall into one of eight buckets per power of two, which bounds the relative error of a reported
+ * percentile to 12.5%.  Values of 2<sup>32</sup> and more, about 50 days in milliseconds, are
+ * counted in the last bucket.
+ * <p>
+ * The window is divided into slices.  A slice is reused once it falls out of the window; the
+ * first thread to record into a reused slice clears it.  Samples recorded concurrently with
+ * clearing may be lost, thus the histogram is approximate.
+ * <p>
+ * To avoid contention, every thread records into one of several stripes.  Stripes are allocated
+ * on first use and are merged when a {@link Snapshot} is taken.  A stripe takes about 2 KiB per
+ * slice, and there are at most half as many stripes as processors, but no more than 16.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 31;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    /**
+     * Number of buckets needed for values up to {@code MAX_VALUE}.
+     */
+    static final int BUCKETS = SUB + (MAX_EXPONENT - SUB_BITS + 1) * SUB;
+
+    /**
+     * Per slice, the stripe holds the bucket counts followed by the sum and the maximum.
+     */
+    private static final int SUM = BUCKETS;
+    private static final int MAX = BUCKETS + 1;
+    private static final int SLICE_LENGTH = BUCKETS + 2;
+
+    private static final int STRIPES = Math.min(16,
+          Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() / 2)));
+
+    private final LongSupplier clock;
+    private final long sliceDuration;
+    private final int slices;
+    private final AtomicLongArray epochs;
+    private final AtomicReferenceArray<AtomicLongArray> stripes =
+          new AtomicReferenceArray<>(STRIPES);
+
+    /**
+     * @param window length of the sliding window
+     * @param unit   unit of {@code window}
+     * @param slices number of slices the window is divided into
+     */
+    public LatencyHistogram(long window, TimeUnit unit, int slices) {
+        this(window, unit, slices, System::currentTimeMillis);
+    }
+
+    LatencyHistogram(long window, TimeUnit unit, int slices, LongSupplier clock) {
+        checkArgument(slices > 0, "Number of slices must be positive.");
+        checkArgument(unit.toMillis(window) >= slices, "Window is too short.");
+        this.clock = clock;
+        this.slices = slices;
+        this.sliceDuration = unit.toMillis(window) / slices;
+        this.epochs = new AtomicLongArray(slices);
+        for (int i = 0; i < slices; i++) {
+            epochs.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Returns the length of the sliding window in milliseconds.
+     */
+    public long getWindow() {
+        return sliceDuration * slices;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB) {
+            return (int) value;
+        }
+        long v = Math.min(value, MAX_VALUE);
+        int exponent = 63 - Long.numberOfLeadingZeros(v);
+        int shift = exponent - SUB_BITS;
+        return SUB + shift * SUB + (int) ((v >>> shift) - SUB);
+    }
+
+    static long lowestValueOf(int bucket) {
+        if (bucket < SUB) {
+            return bucket;
+        }
+        int shift = (bucket - SUB) / SUB;
+        return (long) (SUB + (bucket - SUB) % SUB) << shift;
+    }
+
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB) {
+            return bucket;
+        }
+        return lowestValueOf(bucket) + (1L << ((bucket - SUB) / SUB)) - 1;
+    }
+
+    private AtomicLongArray stripe() {
+        long id = Thread.currentThread().getId();
+        int index = (int) ((id ^ (id >>> 16)) & (STRIPES - 1));
+        AtomicLongArray stripe = stripes.get(index);
+        if (stripe == null) {
+            stripes.compareAndSet(index, null, new AtomicLongArray(slices * SLICE_LENGTH));
+            stripe = stripes.get(index);
+        }
+        return stripe;
+    }
+
+    private int slice(long epoch) {
+        int slice = (int) Math.floorMod(epoch, (long) slices);
+        long current = epochs.get(slice);
+        if (current < epoch && epochs.compareAndSet(slice, current, epoch)) {
+            int offset = slice * SLICE_LENGTH;
+            for (int i = 0; i < STRIPES; i++) {
+                AtomicLongArray stripe = stripes.get(i);
+                if (stripe != null) {
+                    for (int j = 0; j < SLICE_LENGTH; j++) {
+                        stripe.set(offset + j, 0);
+                    }
+                }
+            }
+        }
+        return slice;
+    }
+
+    /**
+     * Records a value.  Negative values are ignored.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            return;
+        }
+        int offset = slice(clock.getAsLong() / sliceDuration) * SLICE_LENGTH;
+        AtomicLongArray stripe = stripe();
+        stripe.incrementAndGet(offset + bucketOf(value));
+        stripe.addAndGet(offset + SUM, value);
+        long max = stripe.get(offset + MAX);
+        while (value > max && !stripe.weakCompareAndSetVolatile(offset + MAX, max, value)) {
+            max = stripe.get(offset + MAX);
+        }
+    }
+
+    /**
+     * Discards all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < slices; i++) {
+            epochs.set(i, Long.MIN_VALUE);
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            stripes.set(i, null);
+        }
+    }
+
+    /**
+     * Returns the values recorded within the window.
+     */
+    public Snapshot snapshot() {
+        long epoch = clock.getAsLong() / sliceDuration;
+        long[] counts = new long[BUCKETS];
+        long sum = 0;
+        long max = 0;
+        for (int slice = 0; slice < slices; slice++) {
+            long e = epochs.get(slice);
+            if (e > epoch - slices && e <= epoch) {
+                int offset = slice * SLICE_LENGTH;
+                for (int i = 0; i < STRIPES; i++) {
+                    AtomicLongArray stripe = stripes.get(i);
+                    if (stripe != null) {
+                        for (int j = 0; j < BUCKETS; j++) {
+                            counts[j] += stripe.get(offset + j);
+                        }
+                        sum += stripe.get(offset + SUM);
+                        max = Math.max(max, stripe.get(offset + MAX));
+                    }
+                }
+            }
+        }
+        return new Snapshot(counts, sum, max);
+    }
+
+    /**
+     * Immutable merge of all stripes and slices within the window.
+     */
+    public static class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long sum, long max) {
+            long count = 0;
+            for (long c : counts) {
+                count += c;
+            }
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the largest value, or 0 if the snapshot is empty.
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Returns the mean value, or NaN if the snapshot is empty.
+         */
+        public double getMean() {
+            return count > 0 ? (double) sum / count : Double.NaN;
+        }
+
+        /**
+         * Returns an upper bound of the value below which the given fraction of values fall, or
+         * 0 if the snapshot is empty.
+         *
+         * @param quantile fraction between 0 and 1
+         */
+        public long getValueAtQuantile(double quantile) {
+            checkArgument(quantile >= 0 && quantile <= 1, "Quantile must be between 0 and 1.");
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueOf(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
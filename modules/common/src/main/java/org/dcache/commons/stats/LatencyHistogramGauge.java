@@ -0,0 +1,239 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.commons.stats;
+
+import java.lang.management.ManagementFactory;
+import java.util.Formatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import org.dcache.util.TimeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A request execution time gauge that records into a {@link LatencyHistogram}.
+ * <p>
+ * Unlike {@link RequestExecutionTimeGaugeImpl}, updates do not lock.  Lifetime statistics are kept
+ * in striped adders, while tail latencies are reported over a sliding window.
+ */
+public class LatencyHistogramGauge implements LatencyHistogramGaugeMXBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LatencyHistogramGauge.class);
+
+    /**
+     * Default length of the sliding window.
+     */
+    public static final long WINDOW = TimeUnit.MINUTES.toMillis(1);
+
+    private static final int SLICES = 6;
+
+    private final String name;
+    private final LatencyHistogram histogram =
+          new LatencyHistogram(WINDOW, TimeUnit.MILLISECONDS, SLICES);
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final DoubleAdder sumOfSquares = new DoubleAdder();
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    private volatile long lastExecutionTime;
+    private volatile long startTime;
+
+    public LatencyHistogramGauge(String name, String family) {
+        this.name = name;
+        String mxName = String.format("%s:type=LatencyHistogramGauge,family=%s,name=%s",
+              this.getClass().getPackage().getName(), family, this.name);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName mxBeanName = new ObjectName(mxName);
+            if (!server.isRegistered(mxBeanName)) {
+                server.registerMBean(this, mxBeanName);
+            }
+        } catch (MalformedObjectNameException ex) {
+            LOG.warn("Failed to create a MXBean with name: {} : {}", mxName, ex.toString());
+        } catch (InstanceAlreadyExistsException | MBeanRegistrationException ex) {
+            LOG.warn("Failed to register a MXBean: {}", ex.toString());
+        } catch (NotCompliantMBeanException ex) {
+            LOG.warn("Failed to create a MXBean: {}", ex.toString());
+        }
+        startTime = System.currentTimeMillis();
+    }
+
+    @Override
+    public void update(long nextExecTime) {
+        if (nextExecTime < 0) {
+            LOG.info("possible backwards time shift detected; discarding invalid data ({})",
+                  nextExecTime);
+            return;
+        }
+        histogram.record(nextExecTime);
+        count.increment();
+        sum.add(nextExecTime);
+        sumOfSquares.add((double) nextExecTime * nextExecTime);
+        min.accumulate(nextExecTime);
+        max.accumulate(nextExecTime);
+        lastExecutionTime = nextExecTime;
+    }
+
+    /**
+     * Returns the requests recorded within the sliding window.
+     */
+    public LatencyHistogram.Snapshot snapshot() {
+        return histogram.snapshot();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public double getAverageExecutionTime() {
+        long n = count.sum();
+        return n > 0 ? (double) sum.sum() / n : Double.NaN;
+    }
+
+    @Override
+    public double resetAndGetAverageExecutionTime() {
+        double avg = getAverageExecutionTime();
+        reset();
+        return avg;
+    }
+
+    @Override
+    public long getMinExecutionTime() {
+        return count.sum() > 0 ? min.get() : 0;
+    }
+
+    @Override
+    public long getMaxExecutionTime() {
+        return count.sum() > 0 ? max.get() : 0;
+    }
+
+    @Override
+    public double getStandardDeviation() {
+        long n = count.sum();
+        if (n < 2) {
+            return Double.NaN;
+        }
+        double s = sum.sum();
+        return Math.sqrt(Math.max(0, (sumOfSquares.sum() - s * s / n) / (n - 1)));
+    }
+
+    @Override
+    public double getStandardError() {
+        return getStandardDeviation() / Math.sqrt(count.sum());
+    }
+
+    @Override
+    public long getLastExecutionTime() {
+        return lastExecutionTime;
+    }
+
+    @Override
+    public long getStartTime() {
+        return startTime;
+    }
+
+    @Override
+    public long getUpdateNum() {
+        return count.sum();
+    }
+
+    @Override
+    public long getWindow() {
+        return histogram.getWindow();
+    }
+
+    @Override
+    public long getWindowCount() {
+        return histogram.snapshot().getCount();
+    }
+
+    @Override
+    public long getWindowMedian() {
+        return histogram.snapshot().getValueAtQuantile(0.5);
+    }
+
+    @Override
+    public long getWindow90thPercentile() {
+        return histogram.snapshot().getValueAtQuantile(0.9);
+    }
+
+    @Override
+    public long getWindow99thPercentile() {
+        return histogram.snapshot().getValueAtQuantile(0.99);
+    }
+
+    @Override
+    public long getWindow999thPercentile() {
+        return histogram.snapshot().getValueAtQuantile(0.999);
+    }
+
+    @Override
+    public long getWindowMax() {
+        return histogram.snapshot().getMax();
+    }
+
+    @Override
+    public void reset() {
+        startTime = System.currentTimeMillis();
+        lastExecutionTime = 0;
+        histogram.reset();
+        count.reset();
+        sum.reset();
+        sumOfSquares.reset();
+        min.reset();
+        max.reset();
+    }
+
+    /**
+     * Returns string representation of this gauge.  Percentiles are over the sliding window,
+     * the remaining columns over the lifetime of the gauge.
+     */
+    @Override
+    public String toString() {
+        String aName = (name.length() > 34) ? name.substring(0, 34) : name;
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        long updatePeriod = System.currentTimeMillis() - startTime;
+        StringBuilder sb = new StringBuilder();
+        try (Formatter formatter = new Formatter(sb)) {
+            formatter.format("%-34s %,12.2f %,10d %,10d %,10d %,10d %,10d %,12d %12s",
+                  aName,
+                  getAverageExecutionTime(),
+                  snapshot.getValueAtQuantile(0.5),
+                  snapshot.getValueAtQuantile(0.9),
+                  snapshot.getValueAtQuantile(0.99),
+                  snapshot.getValueAtQuantile(0.999),
+                  snapshot.getMax(),
+                  getUpdateNum(),
+                  TimeUtils.duration(updatePeriod, TimeUnit.MILLISECONDS,
+                        TimeUtils.TimeUnitFormat.SHORT));
+        }
+        return sb.toString();
+    }
+}
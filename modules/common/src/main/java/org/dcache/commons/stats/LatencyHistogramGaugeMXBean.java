@@ -0,0 +1,44 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.commons.stats;
+
+/**
+ * JMX bean of a gauge that in addition reports percentiles over a sliding window.
+ */
+public interface LatencyHistogramGaugeMXBean extends RequestExecutionTimeGauge {
+
+    /**
+     * @return length of the sliding window in milliseconds
+     */
+    long getWindow();
+
+    /**
+     * @return number of requests within the window
+     */
+    long getWindowCount();
+
+    long getWindowMedian();
+
+    long getWindow90thPercentile();
+
+    long getWindow99thPercentile();
+
+    long getWindow999thPercentile();
+
+    long getWindowMax();
+}
@@ -4,8 +4,10 @@ import static org.dcache.util.Strings.toStringSignature;
 
 import com.google.common.collect.Ordering;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Formatter;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
@@ -286,6 +288,13 @@ public class RequestCounters<T> {
         return counters.keySet();
     }
 
+    /**
+     * @return a snapshot of all counters
+     */
+    public synchronized List<RequestCounter> getCounters() {
+        return new ArrayList<>(counters.values());
+    }
+
     public RequestCounter getTotalRequestCounter() {
         return new RequestCounter() {
 
@@ -4,11 +4,13 @@ import static org.dcache.util.Strings.toStringSignature;
 
 import com.google.common.collect.Ordering;
 import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.Formatter;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @param <T>
@@ -20,8 +22,9 @@ public class RequestExecutionTimeGauges<T> {
           Ordering.natural().onResultOf(RequestExecutionTimeGauge::getName);
     private final String name;
     private final boolean autoCreate;
+    private final boolean histograms;
     private final Map<T, RequestExecutionTimeGauge> gauges =
-          new HashMap<>();
+          new ConcurrentHashMap<>();
 
     /**
      * @param name
@@ -35,8 +38,19 @@ public class RequestExecutionTimeGauges<T> {
      * @param autoCreate
      */
     public RequestExecutionTimeGauges(String name, boolean autoCreate) {
+        this(name, autoCreate, false);
+    }
+
+    /**
+     * @param name
+     * @param autoCreate
+     * @param histograms if true, gauges are {@link LatencyHistogramGauge}s that do not lock on
+     *                   update and report percentiles over a sliding window
+     */
+    public RequestExecutionTimeGauges(String name, boolean autoCreate, boolean histograms) {
         this.name = name;
         this.autoCreate = autoCreate;
+        this.histograms = histograms;
     }
 
     /**
@@ -79,7 +93,9 @@ public class RequestExecutionTimeGauges<T> {
         if (gauges.containsKey(key)) {
             return;
         }
-        RequestExecutionTimeGauge gauge = new RequestExecutionTimeGaugeImpl(name, this.name);
+        RequestExecutionTimeGauge gauge = histograms
+              ? new LatencyHistogramGauge(name, this.name)
+              : new RequestExecutionTimeGaugeImpl(name, this.name);
         gauges.put(key, gauge);
     }
 
@@ -96,19 +112,34 @@ public class RequestExecutionTimeGauges<T> {
     public String toString(String unitSymbol) {
         StringBuilder sb = new StringBuilder();
         try (Formatter formatter = new Formatter(sb)) {
-            formatter.format("%-36s %23s %12s %12s %12s %12s %12s",
-                  name,
-                  "average\u00B1stderr(" + unitSymbol + ')',
-                  "min(" + unitSymbol + ')',
-                  "max(" + unitSymbol + ')',
-                  "STD(" + unitSymbol + ')',
-                  "Samples", "Period");
-        }
-        synchronized (this) {
-            for (RequestExecutionTimeGauge gauge : ORDERING.sortedCopy(gauges.values())) {
-                sb.append("\n  ").append(gauge);
+            if (histograms) {
+                formatter.format("%-36s %12s %10s %10s %10s %10s %10s %12s %12s",
+                      name,
+                      "average(" + unitSymbol + ')',
+                      "p50(" + unitSymbol + ')',
+                      "p90(" + unitSymbol + ')',
+                      "p99(" + unitSymbol + ')',
+                      "p99.9(" + unitSymbol + ')',
+                      "max(" + unitSymbol + ')',
+                      "Samples", "Period");
+            } else {
+                formatter.format("%-36s %23s %12s %12s %12s %12s %12s",
+                      name,
+                      "average\u00B1stderr(" + unitSymbol + ')',
+                      "min(" + unitSymbol + ')',
+                      "max(" + unitSymbol + ')',
+                      "STD(" + unitSymbol + ')',
+                      "Samples", "Period");
             }
         }
+        for (RequestExecutionTimeGauge gauge : ORDERING.sortedCopy(gauges.values())) {
+            sb.append("\n  ").append(gauge);
+        }
+        if (histograms) {
+            sb.append("\n  Percentiles and maximum over the last ")
+                  .append(TimeUnit.MILLISECONDS.toSeconds(LatencyHistogramGauge.WINDOW))
+                  .append(" seconds.");
+        }
         return sb.toString();
     }
 
@@ -118,10 +149,7 @@ public class RequestExecutionTimeGauges<T> {
      * @throws NoSuchElementException if gauge for gaugeKey for is not defined
      */
     public String gaugeToString(T gaugeKey) {
-        RequestExecutionTimeGauge gauge;
-        synchronized (this) {
-            gauge = gauges.get(gaugeKey);
-        }
+        RequestExecutionTimeGauge gauge = gauges.get(gaugeKey);
 
         if (gauge == null) {
             throw new NoSuchElementException("gauge for key  " +
@@ -136,18 +164,16 @@ public class RequestExecutionTimeGauges<T> {
      * @throws NoSuchElementException if counter for counterKey is not defined
      */
     public RequestExecutionTimeGauge getGauge(T gaugeKey) {
-        synchronized (this) {
-            if (gauges.containsKey(gaugeKey)) {
-                return gauges.get(gaugeKey);
-            } else {
-                if (autoCreate) {
-                    addGauge(gaugeKey);
-                    return gauges.get(gaugeKey);
-                } else {
-                    throw new NoSuchElementException("gauge with name " +
-                          gaugeKey + " is not defined in " + name + " guages");
-                }
-            }
+        RequestExecutionTimeGauge gauge = gauges.get(gaugeKey);
+        if (gauge != null) {
+            return gauge;
+        }
+        if (autoCreate) {
+            addGauge(gaugeKey);
+            return gauges.get(gaugeKey);
+        } else {
+            throw new NoSuchElementException("gauge with name " +
+                  gaugeKey + " is not defined in " + name + " guages");
         }
     }
 
@@ -177,6 +203,13 @@ public class RequestExecutionTimeGauges<T> {
         return gauges.keySet();
     }
 
+    /**
+     * @return all gauges
+     */
+    public Collection<RequestExecutionTimeGauge> getGauges() {
+        return gauges.values();
+    }
+
 
     /**
      * reset all gauges.
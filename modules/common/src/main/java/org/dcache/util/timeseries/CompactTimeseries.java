@@ -0,0 +1,142 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.util.timeseries;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * An append-only time series held as a sequence of compressed blocks.
+ * <p>
+ * Points are added to an open block.  Once the open block holds a given number of points it is
+ * sealed and a new open block is started.  Old points are expired by discarding whole sealed
+ * blocks.
+ * <p>
+ * Instances are not thread safe.
+ */
+public class CompactTimeseries {
+
+    private final int pointsPerBlock;
+    private final Deque<TimeseriesBlock> blocks = new ArrayDeque<>();
+    private TimeseriesBlock.Builder open = new TimeseriesBlock.Builder();
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    /**
+     * @param pointsPerBlock the number of points after which a block is sealed
+     */
+    public CompactTimeseries(int pointsPerBlock) {
+        checkArgument(pointsPerBlock > 0, "Points per block must be positive.");
+        this.pointsPerBlock = pointsPerBlock;
+    }
+
+    /**
+     * Adds a point.  Points must be added in order of their timestamps.
+     *
+     * @return the block sealed as a consequence of adding the point, or null if no block was
+     * sealed
+     * @throws IllegalArgumentException if the timestamp precedes that of the last point
+     */
+    public TimeseriesBlock add(long timestamp, double value) {
+        checkArgument(timestamp >= lastTimestamp,
+              "Timestamp %s precedes last timestamp %s.", timestamp, lastTimestamp);
+        open.add(timestamp, value);
+        lastTimestamp = timestamp;
+        return open.size() < pointsPerBlock ? null : seal();
+    }
+
+    /**
+     * Adds a sealed block, e.g., one read from disk.  The block must not precede any point in
+     * this time series and no points must have been added to the open block.
+     *
+     * @throws IllegalArgumentException if the block precedes the last point
+     * @throws IllegalStateException if the open block is not empty
+     */
+    public void add(TimeseriesBlock block) {
+        checkArgument(block.getFirstTimestamp() >= lastTimestamp,
+              "Block starting at %s precedes last timestamp %s.",
+              block.getFirstTimestamp(), lastTimestamp);
+        if (!open.isEmpty()) {
+            throw new IllegalStateException("Cannot add block to time series with open block.");
+        }
+        if (block.size() > 0) {
+            blocks.addLast(block);
+            lastTimestamp = block.getLastTimestamp();
+        }
+    }
+
+    /**
+     * Seals the open block.
+     *
+     * @return the sealed block, or null if the open block is empty
+     */
+    public TimeseriesBlock seal() {
+        if (open.isEmpty()) {
+            return null;
+        }
+        TimeseriesBlock block = open.build();
+        blocks.addLast(block);
+        open = new TimeseriesBlock.Builder();
+        return block;
+    }
+
+    /**
+     * Returns a block with the points in the open block, or null if the open block is empty.
+     */
+    public TimeseriesBlock getOpenBlock() {
+        return open.isEmpty() ? null : open.build();
+    }
+
+    /**
+     * Discards blocks containing only points before the horizon.  The open block is discarded
+     * once all its points precede the horizon.
+     */
+    public void expire(long horizon) {
+        while (!blocks.isEmpty() && blocks.getFirst().getLastTimestamp() < horizon) {
+            blocks.removeFirst();
+        }
+        if (!open.isEmpty() && open.getLastTimestamp() < horizon) {
+            open = new TimeseriesBlock.Builder();
+        }
+    }
+
+    /**
+     * Supplies all points with a timestamp between {@code from} and {@code to} (both inclusive) to
+     * the consumer, in order.
+     */
+    public void forEach(long from, long to, TimeseriesConsumer consumer) {
+        for (TimeseriesBlock block : blocks) {
+            block.forEach(from, to, consumer);
+        }
+        if (!open.isEmpty() && lastTimestamp >= from) {
+            open.build().forEach(from, to, consumer);
+        }
+    }
+
+    public boolean isEmpty() {
+        return blocks.isEmpty() && open.isEmpty();
+    }
+
+    /**
+     * Returns the timestamp of the last point, or Long.MIN_VALUE if there are no points.
+     */
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+}
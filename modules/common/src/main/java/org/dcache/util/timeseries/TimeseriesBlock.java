@@ -0,0 +1,292 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.util.timeseries;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An immutable, compressed sequence of time series points.
+ * <p>
+ * Points are compressed as described in "Gorilla: A Fast, Scalable, In-Memory Time Series
+ * Database" (Pelkonen et al., VLDB 2015).  The first point is stored verbatim.  Each subsequent
+ * timestamp is stored as the difference between its delta and the previous delta (delta-of-delta),
+ * which is zero for regularly sampled series.  Each subsequent value is stored as the XOR with the
+ * previous value, using only the meaningful bits between the leading and trailing zeros, which is
+ * a single bit for unchanged values.
+ * <p>
+ * The compressed data may reside on the heap or in a memory-mapped file.
+ */
+public final class TimeseriesBlock {
+
+    private final ByteBuffer data;
+    private final int count;
+    private final long firstTimestamp;
+    private final long lastTimestamp;
+
+    TimeseriesBlock(ByteBuffer data, int count, long firstTimestamp, long lastTimestamp) {
+        this.data = data;
+        this.count = count;
+        this.firstTimestamp = firstTimestamp;
+        this.lastTimestamp = lastTimestamp;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    /**
+     * Returns the compressed data.
+     */
+    ByteBuffer getData() {
+        return data.duplicate();
+    }
+
+    /**
+     * Supplies all points with a timestamp between {@code from} and {@code to} (both inclusive) to
+     * the consumer, in order.
+     */
+    public void forEach(long from, long to, TimeseriesConsumer consumer) {
+        if (count == 0 || lastTimestamp < from || firstTimestamp > to) {
+            return;
+        }
+
+        BitInput in = new BitInput(data);
+        long timestamp = in.read(64);
+        long bits = in.read(64);
+        long delta = 0;
+        int leading = 0;
+        int trailing = 0;
+
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                delta += readDeltaOfDelta(in);
+                timestamp += delta;
+
+                if (in.readBit()) {
+                    if (in.readBit()) {
+                        leading = (int) in.read(5);
+                        int length = (int) in.read(6) + 1;
+                        trailing = 64 - leading - length;
+                    }
+                    bits ^= in.read(64 - leading - trailing) << trailing;
+                }
+            }
+
+            if (timestamp > to) {
+                break;
+            }
+            if (timestamp >= from) {
+                consumer.accept(timestamp, Double.longBitsToDouble(bits));
+            }
+        }
+    }
+
+    private static long readDeltaOfDelta(BitInput in) {
+        int prefix = 0;
+        while (prefix < 5 && in.readBit()) {
+            prefix++;
+        }
+        switch (prefix) {
+            case 0:
+                return 0;
+            case 1:
+                return in.read(7) - 63;
+            case 2:
+                return in.read(9) - 255;
+            case 3:
+                return in.read(12) - 2047;
+            case 4:
+                return (int) in.read(32);
+            default:
+                return in.read(64);
+        }
+    }
+
+    /**
+     * Compresses points into a TimeseriesBlock.  Points must be added in order of their
+     * timestamps.
+     */
+    public static class Builder {
+
+        private final BitOutput out = new BitOutput();
+        private int count;
+        private long firstTimestamp;
+        private long lastTimestamp;
+        private long lastDelta;
+        private long lastBits;
+        private int leading = -1;
+        private int trailing;
+
+        /**
+         * Adds a point.
+         *
+         * @throws IllegalArgumentException if the timestamp precedes that of the last point added
+         */
+        public Builder add(long timestamp, double value) {
+            checkArgument(count == 0 || timestamp >= lastTimestamp,
+                  "Timestamp %s precedes last timestamp %s.", timestamp, lastTimestamp);
+
+            long bits = Double.doubleToLongBits(value);
+            if (count == 0) {
+                out.write(timestamp, 64);
+                out.write(bits, 64);
+                firstTimestamp = timestamp;
+            } else {
+                long delta = timestamp - lastTimestamp;
+                writeDeltaOfDelta(delta - lastDelta);
+                writeValue(bits ^ lastBits);
+                lastDelta = delta;
+            }
+            lastTimestamp = timestamp;
+            lastBits = bits;
+            count++;
+            return this;
+        }
+
+        private void writeDeltaOfDelta(long dod) {
+            if (dod == 0) {
+                out.write(0, 1);
+            } else if (dod >= -63 && dod <= 64) {
+                out.write(0b10, 2);
+                out.write(dod + 63, 7);
+            } else if (dod >= -255 && dod <= 256) {
+                out.write(0b110, 3);
+                out.write(dod + 255, 9);
+            } else if (dod >= -2047 && dod <= 2048) {
+                out.write(0b1110, 4);
+                out.write(dod + 2047, 12);
+            } else if (dod >= Integer.MIN_VALUE && dod <= Integer.MAX_VALUE) {
+                out.write(0b11110, 5);
+                out.write(dod, 32);
+            } else {
+                out.write(0b11111, 5);
+                out.write(dod, 64);
+            }
+        }
+
+        private void writeValue(long xor) {
+            if (xor == 0) {
+                out.write(0, 1);
+                return;
+            }
+
+            int lz = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int tz = Long.numberOfTrailingZeros(xor);
+            if (leading >= 0 && lz >= leading && tz >= trailing) {
+                out.write(0b10, 2);
+                out.write(xor >>> trailing, 64 - leading - trailing);
+            } else {
+                leading = lz;
+                trailing = tz;
+                int length = 64 - lz - tz;
+                out.write(0b11, 2);
+                out.write(lz, 5);
+                out.write(length - 1, 6);
+                out.write(xor >>> tz, length);
+            }
+        }
+
+        public int size() {
+            return count;
+        }
+
+        public boolean isEmpty() {
+            return count == 0;
+        }
+
+        public long getLastTimestamp() {
+            return lastTimestamp;
+        }
+
+        /**
+         * Returns a block containing the points added so far.  Further points may be added to
+         * the builder; they do not affect blocks already built.
+         */
+        public TimeseriesBlock build() {
+            return new TimeseriesBlock(ByteBuffer.wrap(out.toByteArray()).asReadOnlyBuffer(),
+                  count, firstTimestamp, lastTimestamp);
+        }
+    }
+
+    private static class BitOutput {
+
+        private byte[] buffer = new byte[32];
+        private long position;
+
+        /**
+         * Writes the lowest {@code bits} bits of value, most significant bit first.
+         */
+        void write(long value, int bits) {
+            while (bits > 0) {
+                int index = (int) (position >>> 3);
+                if (index == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                int free = 8 - (int) (position & 7);
+                int n = Math.min(free, bits);
+                int chunk = (int) (value >>> (bits - n)) & ((1 << n) - 1);
+                buffer[index] |= (byte) (chunk << (free - n));
+                position += n;
+                bits -= n;
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, (int) ((position + 7) >>> 3));
+        }
+    }
+
+    private static class BitInput {
+
+        private final ByteBuffer buffer;
+        private long position;
+
+        BitInput(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        boolean readBit() {
+            return read(1) == 1;
+        }
+
+        long read(int bits) {
+            long result = 0;
+            while (bits > 0) {
+                int index = (int) (position >>> 3);
+                int available = 8 - (int) (position & 7);
+                int n = Math.min(available, bits);
+                int chunk = ((buffer.get(index) & 0xff) >>> (available - n)) & ((1 << n) - 1);
+                result = (result << n) | chunk;
+                position += n;
+                bits -= n;
+            }
+            return result;
+        }
+    }
+}
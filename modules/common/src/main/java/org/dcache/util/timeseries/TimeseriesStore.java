@@ -0,0 +1,505 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.util.timeseries;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import com.google.common.collect.ImmutableList;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A store of named, compact time series persisted in append-only segment files.
+ * <p>
+ * Each time series is kept in one or more {@link TimeseriesTier}s, typically one keeping all points
+ * for a short while and others keeping downsampled points for longer.  Every point added to a time
+ * series is added to all its tiers.  Queries are answered from the coarsest tier that is at least
+ * as fine as the requested resolution and still holds points for the requested range.
+ * <p>
+ * Sealed blocks are appended to the active segment file; once that exceeds a given size a new
+ * segment is started.  Segments are memory-mapped when the store is loaded, so blocks written
+ * before a restart are not copied onto the heap.  A segment is deleted once all blocks in it have
+ * expired.  The open blocks are written to a checkpoint file by {@link #checkpoint}; a store that
+ * was not closed cleanly loses the points added since the last checkpoint.  The last point in
+ * the current interval of a downsampling tier is not checkpointed.
+ * <p>
+ * Instances are thread safe.
+ */
+public class TimeseriesStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimeseriesStore.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".tss";
+    private static final String CHECKPOINT = "checkpoint.tss";
+
+    /**
+     * Size of a record without name and data: name length, tier, first and last timestamp and
+     * number of points.
+     */
+    private static final int RECORD_HEADER_SIZE =
+          Short.BYTES + Byte.BYTES + 2 * Long.BYTES + Integer.BYTES;
+
+    @FunctionalInterface
+    private interface RecordConsumer {
+
+        void accept(String name, int tier, TimeseriesBlock block);
+    }
+
+    /**
+     * A segment file.
+     */
+    private static class Segment {
+
+        private final File file;
+        private final long number;
+        private long size;
+        private long expiry = Long.MIN_VALUE;
+        private FileChannel channel;
+
+        private Segment(File file, long number) {
+            this.file = file;
+            this.number = number;
+        }
+
+        private void extendExpiry(long time) {
+            expiry = Math.max(expiry, time);
+        }
+    }
+
+    /**
+     * The points of a time series kept by a tier.
+     */
+    private static class TierSeries {
+
+        private final long resolution;
+        private final CompactTimeseries points;
+        private boolean hasPending;
+        private long pendingTimestamp;
+        private double pendingValue;
+
+        private TierSeries(TimeseriesTier tier, int pointsPerBlock) {
+            resolution = tier.getResolution();
+            points = new CompactTimeseries(pointsPerBlock);
+        }
+
+        /**
+         * @return the block sealed as a consequence of adding the point, or null
+         */
+        private TimeseriesBlock add(long timestamp, double value) {
+            if (resolution == 0) {
+                return points.add(timestamp, value);
+            }
+
+            TimeseriesBlock sealed = null;
+            if (hasPending && Math.floorDiv(timestamp, resolution)
+                  != Math.floorDiv(pendingTimestamp, resolution)) {
+                sealed = points.add(pendingTimestamp, pendingValue);
+            }
+            hasPending = true;
+            pendingTimestamp = timestamp;
+            pendingValue = value;
+            return sealed;
+        }
+
+        private void expire(long horizon) {
+            points.expire(horizon);
+            if (hasPending && pendingTimestamp < horizon) {
+                hasPending = false;
+            }
+        }
+
+        private void forEach(long from, long to, TimeseriesConsumer consumer) {
+            points.forEach(from, to, consumer);
+            if (hasPending && pendingTimestamp >= from && pendingTimestamp <= to) {
+                consumer.accept(pendingTimestamp, pendingValue);
+            }
+        }
+
+        private boolean isEmpty() {
+            return points.isEmpty() && !hasPending;
+        }
+    }
+
+    private final File directory;
+    private final List<TimeseriesTier> tiers;
+    private final Map<String, TierSeries[]> series = new HashMap<>();
+    private final Map<String, Long> lastTimestamps = new HashMap<>();
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment active;
+    private int pointsPerBlock = 120;
+    private long maxSegmentSize = 64 * 1024 * 1024;
+
+    /**
+     * @param directory where segments are stored
+     * @param tiers     the tiers in which each time series is kept
+     */
+    public TimeseriesStore(File directory, List<TimeseriesTier> tiers) {
+        checkArgument(!tiers.isEmpty(), "At least one tier is required.");
+        checkArgument(tiers.size() <= Byte.MAX_VALUE, "Too many tiers.");
+        this.directory = directory;
+        this.tiers = ImmutableList.copyOf(tiers);
+    }
+
+    /**
+     * Sets the number of points after which a block is sealed and written to a segment.
+     */
+    public synchronized void setPointsPerBlock(int pointsPerBlock) {
+        checkArgument(pointsPerBlock > 0, "Points per block must be positive.");
+        this.pointsPerBlock = pointsPerBlock;
+    }
+
+    /**
+     * Sets the size in bytes after which a new segment is started.
+     */
+    public synchronized void setMaxSegmentSize(long maxSegmentSize) {
+        checkArgument(maxSegmentSize > 0, "Segment size must be positive.");
+        this.maxSegmentSize = maxSegmentSize;
+    }
+
+    /**
+     * Loads the segments and the checkpoint.  Must be called before points are added.
+     */
+    public synchronized void load() throws IOException {
+        Files.createDirectories(directory.toPath());
+
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX)
+              && name.endsWith(SEGMENT_SUFFIX));
+        List<Segment> loaded = new ArrayList<>();
+        for (File file : files == null ? new File[0] : files) {
+            String name = file.getName();
+            try {
+                long number = Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                      name.length() - SEGMENT_SUFFIX.length()));
+                loaded.add(new Segment(file, number));
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Ignoring unexpected file {}.", file);
+            }
+        }
+        loaded.sort(Comparator.comparingLong(s -> s.number));
+
+        for (Segment segment : loaded) {
+            segment.size = segment.file.length();
+            read(segment.file, (name, tier, block) -> {
+                if (add(name, tier, block)) {
+                    segment.extendExpiry(
+                          block.getLastTimestamp() + tiers.get(tier).getRetention());
+                }
+            });
+            segments.add(segment);
+        }
+
+        /* Blocks in the checkpoint are written to a segment, as the next checkpoint replaces
+         * the current one.
+         */
+        File checkpoint = new File(directory, CHECKPOINT);
+        if (checkpoint.exists()) {
+            read(checkpoint, (name, tier, block) -> {
+                if (add(name, tier, block)) {
+                    write(name, tier, block);
+                }
+            });
+        }
+
+        LOGGER.info("Loaded {} time series from {} segments.", series.size(), segments.size());
+        expire();
+    }
+
+    private boolean add(String name, int tier, TimeseriesBlock block) {
+        if (tier >= tiers.size()) {
+            LOGGER.warn("Ignoring block of {} for unknown tier {}.", name, tier);
+            return false;
+        }
+
+        CompactTimeseries points = getSeries(name)[tier].points;
+        if (!points.isEmpty() && block.getFirstTimestamp() <= points.getLastTimestamp()) {
+            return false;
+        }
+        points.add(block);
+        lastTimestamps.merge(name, block.getLastTimestamp(), Math::max);
+        return true;
+    }
+
+    private TierSeries[] getSeries(String name) {
+        return series.computeIfAbsent(name, n -> tiers.stream()
+              .map(t -> new TierSeries(t, pointsPerBlock))
+              .toArray(TierSeries[]::new));
+    }
+
+    /**
+     * Adds a point to a time series.  Points older than the last point of the time series are
+     * ignored.
+     */
+    public synchronized void add(String name, long timestamp, double value) {
+        long last = lastTimestamps.getOrDefault(name, Long.MIN_VALUE);
+        if (timestamp < last) {
+            LOGGER.debug("Ignoring point of {} at {} preceding last point at {}.", name,
+                  timestamp, last);
+            return;
+        }
+        lastTimestamps.put(name, timestamp);
+
+        TierSeries[] tierSeries = getSeries(name);
+        for (int i = 0; i < tierSeries.length; i++) {
+            TimeseriesBlock sealed = tierSeries[i].add(timestamp, value);
+            if (sealed != null) {
+                write(name, i, sealed);
+            }
+        }
+    }
+
+    /**
+     * Supplies the points of a time series with a timestamp between {@code from} and {@code to}
+     * (both inclusive) to the consumer, in order.  The consumer must not call back into the
+     * store.
+     *
+     * @param resolution the resolution in milliseconds at which points are needed
+     */
+    public synchronized void forEach(String name, long resolution, long from, long to,
+          TimeseriesConsumer consumer) {
+        TierSeries[] tierSeries = series.get(name);
+        if (tierSeries != null) {
+            tierSeries[selectTier(resolution, from)].forEach(from, to, consumer);
+        }
+    }
+
+    private int selectTier(long resolution, long from) {
+        long now = System.currentTimeMillis();
+        int selected = 0;
+        for (int i = 0; i < tiers.size(); i++) {
+            TimeseriesTier tier = tiers.get(i);
+            if (tier.getResolution() <= resolution && now - tier.getRetention() <= from
+                  && tier.getResolution() >= tiers.get(selected).getResolution()) {
+                selected = i;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Returns whether the store holds a time series with the given name.
+     */
+    public synchronized boolean contains(String name) {
+        return series.containsKey(name);
+    }
+
+    /**
+     * Removes all time series with names not matching the predicate.
+     */
+    public synchronized void retainAll(Predicate<String> predicate) {
+        series.keySet().removeIf(predicate.negate());
+        lastTimestamps.keySet().removeIf(predicate.negate());
+    }
+
+    /**
+     * Discards expired points and deletes segments in which all blocks have expired.
+     */
+    public synchronized void expire() {
+        long now = System.currentTimeMillis();
+
+        for (Iterator<Map.Entry<String, TierSeries[]>> i = series.entrySet().iterator();
+              i.hasNext(); ) {
+            Map.Entry<String, TierSeries[]> entry = i.next();
+            TierSeries[] tierSeries = entry.getValue();
+            boolean isEmpty = true;
+            for (int tier = 0; tier < tierSeries.length; tier++) {
+                tierSeries[tier].expire(now - tiers.get(tier).getRetention());
+                isEmpty &= tierSeries[tier].isEmpty();
+            }
+            if (isEmpty) {
+                i.remove();
+                lastTimestamps.remove(entry.getKey());
+            }
+        }
+
+        for (Iterator<Segment> i = segments.iterator(); i.hasNext(); ) {
+            Segment segment = i.next();
+            if (segment != active && segment.expiry < now) {
+                LOGGER.debug("Deleting expired segment {}.", segment.file);
+                if (!segment.file.delete() && segment.file.exists()) {
+                    LOGGER.warn("Failed to delete expired segment {}.", segment.file);
+                }
+                i.remove();
+            }
+        }
+    }
+
+    /**
+     * Writes the open blocks of all time series to the checkpoint file.
+     */
+    public synchronized void checkpoint() {
+        File checkpoint = new File(directory, CHECKPOINT);
+        File temporary = new File(directory, CHECKPOINT + ".tmp");
+        try {
+            if (active != null) {
+                active.channel.force(false);
+            }
+            try (FileChannel channel = FileChannel.open(temporary.toPath(), CREATE, WRITE,
+                  TRUNCATE_EXISTING)) {
+                for (Map.Entry<String, TierSeries[]> entry : series.entrySet()) {
+                    TierSeries[] tierSeries = entry.getValue();
+                    for (int tier = 0; tier < tierSeries.length; tier++) {
+                        TimeseriesBlock block = tierSeries[tier].points.getOpenBlock();
+                        if (block != null) {
+                            write(channel, encode(entry.getKey(), tier, block));
+                        }
+                    }
+                }
+                channel.force(false);
+            }
+            Files.move(temporary.toPath(), checkpoint.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.error("Failed to write time series checkpoint {}: {}", checkpoint,
+                  e.toString());
+        }
+    }
+
+    /**
+     * Writes a checkpoint and closes the active segment.
+     */
+    public synchronized void close() {
+        checkpoint();
+        if (active != null) {
+            try {
+                active.channel.close();
+            } catch (IOException e) {
+                LOGGER.warn("Failed to close segment {}: {}", active.file, e.toString());
+            }
+            active = null;
+        }
+    }
+
+    private void write(String name, int tier, TimeseriesBlock block) {
+        try {
+            if (active == null || active.size >= maxSegmentSize) {
+                roll();
+            }
+            ByteBuffer record = encode(name, tier, block);
+            active.size += record.remaining();
+            write(active.channel, record);
+            active.extendExpiry(block.getLastTimestamp() + tiers.get(tier).getRetention());
+        } catch (IOException e) {
+            LOGGER.error("Failed to write time series {}: {}", name, e.toString());
+        }
+    }
+
+    private void roll() throws IOException {
+        if (active != null) {
+            active.channel.close();
+        }
+        long number = System.currentTimeMillis();
+        for (Segment segment : segments) {
+            number = Math.max(number, segment.number + 1);
+        }
+        File file = new File(directory, SEGMENT_PREFIX + number + SEGMENT_SUFFIX);
+        Segment segment = new Segment(file, number);
+        segment.channel = FileChannel.open(file.toPath(), CREATE_NEW, WRITE, APPEND);
+        segments.add(segment);
+        active = segment;
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Encodes a block as a record: the record length followed by the name, tier, first and last
+     * timestamp, number of points and the compressed points.
+     */
+    private static ByteBuffer encode(String name, int tier, TimeseriesBlock block) {
+        byte[] nameBytes = name.getBytes(UTF_8);
+        checkArgument(nameBytes.length <= 0xffff, "Name too long: %s", name);
+        ByteBuffer data = block.getData();
+        int length = RECORD_HEADER_SIZE + nameBytes.length + data.remaining();
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + length);
+        buffer.putInt(length)
+              .putShort((short) nameBytes.length)
+              .put(nameBytes)
+              .put((byte) tier)
+              .putLong(block.getFirstTimestamp())
+              .putLong(block.getLastTimestamp())
+              .putInt(block.size())
+              .put(data);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void read(File file, RecordConsumer consumer) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        while (buffer.remaining() >= Integer.BYTES) {
+            int length = buffer.getInt();
+            if (length < RECORD_HEADER_SIZE || length > buffer.remaining()) {
+                LOGGER.warn("Ignoring truncated record at offset {} of {}.",
+                      buffer.position() - Integer.BYTES, file);
+                break;
+            }
+            int end = buffer.position() + length;
+            byte[] name = new byte[buffer.getShort() & 0xffff];
+            if (name.length > length - RECORD_HEADER_SIZE) {
+                LOGGER.warn("Ignoring corrupt record at offset {} of {}.",
+                      buffer.position() - Integer.BYTES - Short.BYTES, file);
+                break;
+            }
+            buffer.get(name);
+            int tier = buffer.get();
+            long first = buffer.getLong();
+            long last = buffer.getLong();
+            int count = buffer.getInt();
+            ByteBuffer data = buffer.slice();
+            data.limit(end - buffer.position());
+            consumer.accept(new String(name, UTF_8), tier,
+                  new TimeseriesBlock(data.asReadOnlyBuffer(), count, first, last));
+            buffer.position(end);
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return series.size() + " time series in " + segments.size() + " segments "
+              + Arrays.toString(tiers.toArray());
+    }
+}
@@ -0,0 +1,61 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.util.timeseries;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes how long points of a time series are kept and at which resolution.
+ * <p>
+ * A tier with a resolution of zero keeps all points.  Otherwise, time is divided into intervals
+ * of the given resolution and only the last point of each interval is kept.
+ */
+public class TimeseriesTier {
+
+    private final long resolution;
+    private final long retention;
+
+    public TimeseriesTier(long resolution, TimeUnit resolutionUnit, long retention,
+          TimeUnit retentionUnit) {
+        checkArgument(resolution >= 0, "Resolution must not be negative.");
+        checkArgument(retention > 0, "Retention must be positive.");
+        this.resolution = resolutionUnit.toMillis(resolution);
+        this.retention = retentionUnit.toMillis(retention);
+    }
+
+    /**
+     * Returns the resolution in milliseconds.
+     */
+    public long getResolution() {
+        return resolution;
+    }
+
+    /**
+     * Returns the retention in milliseconds.
+     */
+    public long getRetention() {
+        return retention;
+    }
+
+    @Override
+    public String toString() {
+        return "resolution=" + resolution + "ms, retention=" + retention + "ms";
+    }
+}
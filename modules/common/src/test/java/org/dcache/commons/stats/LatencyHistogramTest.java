@@ -0,0 +1,151 @@
+package org.dcache.commons.stats;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.hamcrest.Matcher;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private LatencyHistogram histogram;
+
+    @Before
+    public void setUp() {
+        histogram = new LatencyHistogram(60, TimeUnit.SECONDS, 6, now::get);
+    }
+
+    @Test
+    public void shouldMapValuesToContiguousBuckets() {
+        int previous = -1;
+        for (int bucket = 0; bucket < LatencyHistogram.BUCKETS; bucket++) {
+            long low = LatencyHistogram.lowestValueOf(bucket);
+            long high = LatencyHistogram.highestValueOf(bucket);
+            assertThat(LatencyHistogram.bucketOf(low), equalTo(bucket));
+            assertThat(LatencyHistogram.bucketOf(high), equalTo(bucket));
+            assertThat(bucket, equalTo(previous + 1));
+            previous = LatencyHistogram.bucketOf(high);
+            if (bucket > 0) {
+                assertThat(LatencyHistogram.highestValueOf(bucket - 1) + 1, equalTo(low));
+            }
+        }
+        assertThat(LatencyHistogram.bucketOf(Long.MAX_VALUE),
+              equalTo(LatencyHistogram.BUCKETS - 1));
+    }
+
+    @Test
+    public void shouldReportEmptySnapshot() {
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getCount(), equalTo(0L));
+        assertThat(snapshot.getMax(), equalTo(0L));
+        assertThat(snapshot.getValueAtQuantile(0.99), equalTo(0L));
+    }
+
+    @Test
+    public void shouldReportExactSmallValues() {
+        for (int i = 0; i < 8; i++) {
+            histogram.record(i);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getCount(), equalTo(8L));
+        assertThat(snapshot.getValueAtQuantile(0.5), equalTo(3L));
+        assertThat(snapshot.getMax(), equalTo(7L));
+        assertThat(snapshot.getMean(), equalTo(3.5));
+    }
+
+    @Test
+    public void shouldReportPercentilesWithinRelativeError() {
+        for (int i = 1; i <= 100_000; i++) {
+            histogram.record(i);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getValueAtQuantile(0.5), approximately(50_000));
+        assertThat(snapshot.getValueAtQuantile(0.9), approximately(90_000));
+        assertThat(snapshot.getValueAtQuantile(0.99), approximately(99_000));
+        assertThat(snapshot.getValueAtQuantile(0.999), approximately(99_900));
+        assertThat(snapshot.getValueAtQuantile(1), equalTo(100_000L));
+        assertThat(snapshot.getMax(), equalTo(100_000L));
+    }
+
+    @Test
+    public void shouldIgnoreNegativeValues() {
+        histogram.record(-1);
+
+        assertThat(histogram.snapshot().getCount(), equalTo(0L));
+    }
+
+    @Test
+    public void shouldForgetValuesOutsideWindow() {
+        histogram.record(1000);
+        now.addAndGet(30_000);
+        histogram.record(10);
+
+        assertThat(histogram.snapshot().getCount(), equalTo(2L));
+
+        now.addAndGet(40_000);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount(), equalTo(1L));
+        assertThat(snapshot.getMax(), equalTo(10L));
+    }
+
+    @Test
+    public void shouldClearReusedSlice() {
+        histogram.record(1000);
+        now.addAndGet(60_000);
+        histogram.record(10);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount(), equalTo(1L));
+        assertThat(snapshot.getMax(), equalTo(10L));
+    }
+
+    @Test
+    public void shouldDiscardValuesOnReset() {
+        histogram.record(1000);
+
+        histogram.reset();
+
+        assertThat(histogram.snapshot().getCount(), equalTo(0L));
+    }
+
+    @Test
+    public void shouldMergeStripesOfConcurrentRecorders() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    histogram.record(j);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount(), equalTo(160_000L));
+        assertThat(snapshot.getMax(), equalTo(9_999L));
+    }
+
+    private static Matcher<Long> approximately(long expected) {
+        return both(greaterThanOrEqualTo(expected))
+              .and(lessThanOrEqualTo(expected + expected / 8));
+    }
+}
@@ -0,0 +1,91 @@
+package org.dcache.util.timeseries;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompactTimeseriesTest {
+
+    private CompactTimeseries timeseries;
+
+    @Before
+    public void setUp() {
+        timeseries = new CompactTimeseries(3);
+    }
+
+    @Test
+    public void shouldSealFullBlock() {
+        assertThat(timeseries.add(1, 1.0), nullValue());
+        assertThat(timeseries.add(2, 2.0), nullValue());
+        TimeseriesBlock sealed = timeseries.add(3, 3.0);
+
+        assertThat(sealed, notNullValue());
+        assertThat(sealed.getFirstTimestamp(), equalTo(1L));
+        assertThat(sealed.getLastTimestamp(), equalTo(3L));
+        assertThat(timeseries.getOpenBlock(), nullValue());
+    }
+
+    @Test
+    public void shouldSupplyPointsAcrossBlocks() {
+        for (int i = 1; i <= 7; i++) {
+            timeseries.add(i, i);
+        }
+
+        assertThat(timestamps(2, 7), contains(2L, 3L, 4L, 5L, 6L, 7L));
+    }
+
+    @Test
+    public void shouldExpireWholeBlocks() {
+        for (int i = 1; i <= 7; i++) {
+            timeseries.add(i, i);
+        }
+
+        timeseries.expire(5);
+
+        assertThat(timestamps(Long.MIN_VALUE, Long.MAX_VALUE), contains(4L, 5L, 6L, 7L));
+    }
+
+    @Test
+    public void shouldExpireOpenBlock() {
+        timeseries.add(1, 1.0);
+
+        timeseries.expire(2);
+
+        assertThat(timeseries.isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void shouldAddLoadedBlock() {
+        TimeseriesBlock block = new TimeseriesBlock.Builder().add(1, 1.0).add(2, 2.0).build();
+
+        timeseries.add(block);
+        timeseries.add(3, 3.0);
+
+        assertThat(timestamps(Long.MIN_VALUE, Long.MAX_VALUE), contains(1L, 2L, 3L));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectLoadedBlockAfterOpenBlock() {
+        timeseries.add(1, 1.0);
+        timeseries.add(new TimeseriesBlock.Builder().add(2, 2.0).build());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectPointsOutOfOrder() {
+        timeseries.add(2, 1.0);
+        timeseries.add(1, 1.0);
+    }
+
+    private List<Long> timestamps(long from, long to) {
+        List<Long> timestamps = new ArrayList<>();
+        timeseries.forEach(from, to, (t, v) -> timestamps.add(t));
+        return timestamps;
+    }
+}
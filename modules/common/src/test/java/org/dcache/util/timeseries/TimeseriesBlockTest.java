@@ -0,0 +1,111 @@
+package org.dcache.util.timeseries;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class TimeseriesBlockTest {
+
+    @Test
+    public void shouldRoundTripRegularPoints() {
+        TimeseriesBlock.Builder builder = new TimeseriesBlock.Builder();
+        List<Double> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            builder.add(1_600_000_000_000L + i * 300_000L, 42.0 + (i % 3));
+            expected.add(42.0 + (i % 3));
+        }
+
+        TimeseriesBlock block = builder.build();
+
+        assertThat(values(block, Long.MIN_VALUE, Long.MAX_VALUE), equalTo(expected));
+        assertThat(block.size(), equalTo(100));
+        assertThat(block.getData().remaining(), lessThan(100 * 16 / 4));
+    }
+
+    @Test
+    public void shouldRoundTripIrregularPoints() {
+        Random random = new Random(7);
+        TimeseriesBlock.Builder builder = new TimeseriesBlock.Builder();
+        List<Long> timestamps = new ArrayList<>();
+        List<Double> values = new ArrayList<>();
+        long timestamp = -1_000_000L;
+        for (int i = 0; i < 1000; i++) {
+            timestamp += random.nextInt(4) == 0
+                  ? random.nextLong() >>> 24 : random.nextInt(1 << random.nextInt(30));
+            double value = random.nextBoolean() ? random.nextGaussian() : random.nextInt(10);
+            builder.add(timestamp, value);
+            timestamps.add(timestamp);
+            values.add(value);
+        }
+
+        TimeseriesBlock block = builder.build();
+
+        List<Long> actualTimestamps = new ArrayList<>();
+        List<Double> actualValues = new ArrayList<>();
+        block.forEach(Long.MIN_VALUE, Long.MAX_VALUE, (t, v) -> {
+            actualTimestamps.add(t);
+            actualValues.add(v);
+        });
+        assertThat(actualTimestamps, equalTo(timestamps));
+        assertThat(actualValues, equalTo(values));
+    }
+
+    @Test
+    public void shouldRoundTripSpecialValues() {
+        double[] values = {0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY,
+              Double.NEGATIVE_INFINITY, Double.MIN_VALUE, Double.MAX_VALUE, 1.0, 1.0, -1.0};
+        TimeseriesBlock.Builder builder = new TimeseriesBlock.Builder();
+        for (int i = 0; i < values.length; i++) {
+            builder.add(i, values[i]);
+        }
+
+        List<Long> bits = new ArrayList<>();
+        builder.build().forEach(Long.MIN_VALUE, Long.MAX_VALUE,
+              (t, v) -> bits.add(Double.doubleToRawLongBits(v)));
+
+        List<Long> expected = new ArrayList<>();
+        for (double value : values) {
+            expected.add(Double.doubleToRawLongBits(value));
+        }
+        assertThat(bits, equalTo(expected));
+    }
+
+    @Test
+    public void shouldSupplyPointsInRange() {
+        TimeseriesBlock.Builder builder = new TimeseriesBlock.Builder();
+        for (int i = 0; i < 10; i++) {
+            builder.add(i * 10, i);
+        }
+
+        TimeseriesBlock block = builder.build();
+
+        assertThat(values(block, 25, 50), contains(3.0, 4.0, 5.0));
+        assertThat(values(block, 100, 200), empty());
+    }
+
+    @Test
+    public void shouldBuildEmptyBlock() {
+        TimeseriesBlock block = new TimeseriesBlock.Builder().build();
+
+        assertThat(block.size(), equalTo(0));
+        assertThat(values(block, Long.MIN_VALUE, Long.MAX_VALUE), empty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectPointsOutOfOrder() {
+        new TimeseriesBlock.Builder().add(10, 1.0).add(9, 2.0);
+    }
+
+    private static List<Double> values(TimeseriesBlock block, long from, long to) {
+        List<Double> values = new ArrayList<>();
+        block.forEach(from, to, (t, v) -> values.add(v));
+        return values;
+    }
+}
@@ -0,0 +1,171 @@
+package org.dcache.util.timeseries;
+
+import static java.util.concurrent.TimeUnit.DAYS;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TimeseriesStoreTest {
+
+    private static final long HOUR = HOURS.toMillis(1);
+
+    private static final List<TimeseriesTier> TIERS = Arrays.asList(
+          new TimeseriesTier(0, MILLISECONDS, 2, DAYS),
+          new TimeseriesTier(1, HOURS, 60, DAYS));
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private long start;
+    private TimeseriesStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        start = (System.currentTimeMillis() / HOUR - 24) * HOUR;
+        store = newStore();
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+    }
+
+    @Test
+    public void shouldReturnRawPoints() {
+        for (int i = 0; i < 10; i++) {
+            store.add("a", start + i * 60_000, i);
+        }
+
+        assertThat(values("a", 0, start + 120_000), contains(2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0,
+              9.0));
+    }
+
+    @Test
+    public void shouldReturnLastPointPerIntervalForCoarseResolution() {
+        for (int i = 0; i < 6; i++) {
+            store.add("a", start + i * HOUR / 2, i);
+        }
+
+        assertThat(values("a", HOUR, start), contains(1.0, 3.0, 5.0));
+    }
+
+    @Test
+    public void shouldUseCoarserTierBeyondRetention() {
+        long old = start - DAYS.toMillis(10);
+        store.add("a", old, 1.0);
+        store.add("a", old + HOUR, 2.0);
+        store.add("a", start, 3.0);
+
+        assertThat(values("a", DAYS.toMillis(1), old), contains(1.0, 2.0, 3.0));
+    }
+
+    @Test
+    public void shouldIgnorePointsOutOfOrder() {
+        store.add("a", start + 2, 1.0);
+        store.add("a", start + 1, 2.0);
+
+        assertThat(values("a", 0, start), contains(1.0));
+    }
+
+    @Test
+    public void shouldReturnNothingForUnknownSeries() {
+        assertThat(values("unknown", 0, start), empty());
+    }
+
+    @Test
+    public void shouldReloadSealedAndOpenBlocks() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            store.add("a", start + i * 60_000, i);
+            store.add("b", start + i * 60_000, -i);
+        }
+        store.close();
+
+        store = newStore();
+
+        assertThat(values("a", 0, start).size(), equalTo(10));
+        assertThat(values("b", 0, start + 540_000), contains(-9.0));
+    }
+
+    @Test
+    public void shouldNotDuplicateBlocksAfterRepeatedReload() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            store.add("a", start + i * 60_000, i);
+        }
+        store.close();
+        store = newStore();
+        store.close();
+        store = newStore();
+        store.add("a", start + 5 * 60_000, 5);
+
+        assertThat(values("a", 0, start), contains(0.0, 1.0, 2.0, 3.0, 4.0, 5.0));
+    }
+
+    @Test
+    public void shouldLosePointsAfterCheckpointOnCrash() throws IOException {
+        store.add("a", start, 1.0);
+        store.checkpoint();
+        store.add("a", start + 1, 2.0);
+
+        TimeseriesStore reloaded = newStore();
+
+        List<Double> values = new ArrayList<>();
+        reloaded.forEach("a", 0, start, Long.MAX_VALUE, (t, v) -> values.add(v));
+        assertThat(values, contains(1.0));
+    }
+
+    @Test
+    public void shouldExpireOldSegments() throws IOException {
+        long old = start - DAYS.toMillis(100);
+        for (int i = 0; i < 4; i++) {
+            store.add("a", old + i, i);
+        }
+        store.setMaxSegmentSize(1);
+        for (int i = 0; i < 4; i++) {
+            store.add("b", start + i, i);
+        }
+
+        store.expire();
+
+        assertThat(store.contains("a"), equalTo(false));
+        assertThat(folder.getRoot().list((d, n) -> n.startsWith("segment-")).length,
+              equalTo(1));
+    }
+
+    @Test
+    public void shouldRemoveSeriesNotRetained() {
+        store.add("a", start, 1.0);
+        store.add("b", start, 1.0);
+
+        store.retainAll("b"::equals);
+
+        assertThat(store.contains("a"), equalTo(false));
+        assertThat(store.contains("b"), equalTo(true));
+    }
+
+    private TimeseriesStore newStore() throws IOException {
+        TimeseriesStore store = new TimeseriesStore(folder.getRoot(), TIERS);
+        store.setPointsPerBlock(4);
+        store.load();
+        return store;
+    }
+
+    private List<Double> values(String name, long resolution, long from) {
+        List<Double> values = new ArrayList<>();
+        store.forEach(name, resolution, from, Long.MAX_VALUE, (t, v) -> values.add(v));
+        return values;
+    }
+}
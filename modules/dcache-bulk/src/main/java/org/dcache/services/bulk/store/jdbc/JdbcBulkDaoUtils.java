@@ -195,6 +195,11 @@ public final class JdbcBulkDaoUtils {
         support.getJdbcTemplate().batchUpdate(sql, targets, 100, setter);
     }
 
+    public void updateBatch(String sql, List<Object[]> arguments, JdbcDaoSupport support) {
+        LOGGER.trace("updateBatch {}, {} rows.", sql, arguments.size());
+        support.getJdbcTemplate().batchUpdate(sql, arguments);
+    }
+
     @Required
     public void setFetchSize(int fetchSize) {
         this.fetchSize = fetchSize;
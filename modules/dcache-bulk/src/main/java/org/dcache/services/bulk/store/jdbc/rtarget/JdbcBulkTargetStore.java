@@ -79,6 +79,9 @@ import org.springframework.beans.factory.annotation.Required;
 
 /**
  * Uses underlying JDBC Dao implementations to satisfy the API.
+ * <p>
+ * State transitions of existing targets are written behind (see
+ * {@link JdbcRequestTargetUpdateBuffer}); all other operations go directly to the database.
  */
 public final class JdbcBulkTargetStore implements BulkTargetStore {
 
@@ -195,13 +198,20 @@ public final class JdbcBulkTargetStore implements BulkTargetStore {
         if (id == null) {
             store(target);
         } else {
-            targetDao.update(targetDao.where().id(id), prepareUpdate(target));
+            targetDao.deferredUpdate(id, prepareUpdate(target));
         }
     }
 
     @Override
     public void update(Long id, State state, String errorType, String errorMessage) throws BulkStorageException {
-        targetDao.update(targetDao.where().id(id),
+        if (id == null) {
+            /*
+             *  Never stored, so there is no row to update.
+             */
+            LOGGER.trace("update of target without id to {}, ignored.", state);
+            return;
+        }
+        targetDao.deferredUpdate(id,
               targetDao.set().state(state).errorType(errorType).errorMessage(errorMessage));
     }
 
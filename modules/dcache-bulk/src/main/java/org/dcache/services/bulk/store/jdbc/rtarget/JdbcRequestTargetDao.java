@@ -71,6 +71,8 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -109,6 +111,8 @@ public final class JdbcRequestTargetDao extends JdbcDaoSupport {
           + "pid, rid, pnfsid, path, type, state, created_at, last_updated) "
           + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
 
+    static final String UPDATE_BY_ID = "UPDATE " + TABLE_NAME + " SET %s WHERE id = ?";
+
     static final String SELECT = "SELECT *";
 
     static final String JOINED_SELECT = "SELECT request_target.*, bulk_request.uid as ruid, bulk_request.activity";
@@ -143,32 +147,60 @@ public final class JdbcRequestTargetDao extends JdbcDaoSupport {
 
     private BulkServiceStatistics statistics;
     private JdbcBulkDaoUtils utils;
+    private JdbcRequestTargetUpdateBuffer updateBuffer;
 
     public int count(JdbcRequestTargetCriterion criterion) {
+        flushUpdates();
         return utils.count(criterion, tableNameForSelect(criterion), this);
     }
 
     public Map<String, Long> count(JdbcRequestTargetCriterion criterion, String classifier) {
+        flushUpdates();
         return utils.countGrouped(criterion.classifier(classifier), tableNameForSelect(criterion), this);
     }
 
     public Map<String, Long> countStates() {
+        flushUpdates();
         return utils.countGrouped(where().classifier("state"), TABLE_NAME, this);
     }
 
     public int delete(JdbcRequestTargetCriterion criterion) {
+        flushUpdates();
         if (criterion.isJoined()) {
             return utils.delete(criterion, TABLE_NAME, SECONDARY_TABLE_NAME, this);
         }
         return utils.delete(criterion, TABLE_NAME, this);
     }
 
+    /**
+     * Writes the update of a single target, possibly deferred to a later batch.
+     */
+    public void deferredUpdate(long id, JdbcRequestTargetUpdate update) {
+        if (updateBuffer == null) {
+            update(where().id(id), update);
+        } else {
+            updateBuffer.add(id, update);
+        }
+    }
+
+    /**
+     * Writes pending deferred updates.  Called before every other statement on the table so
+     * that those statements see the current state of all targets.
+     */
+    public void flushUpdates() {
+        if (updateBuffer != null) {
+            updateBuffer.flush();
+        }
+    }
+
     public List<BulkRequestTarget> get(JdbcRequestTargetCriterion criterion, int limit) {
+        flushUpdates();
         return utils.get(getSelect(criterion), criterion, limit, tableNameForSelect(criterion),
               this, criterion.isJoined() ? this::toFullRequestTarget : this::toRequestTarget);
     }
 
     public List<String> getRequestsOfFailed() {
+        flushUpdates();
         return getJdbcTemplate().queryForList(UIDS_OF_FAILED, String.class);
     }
 
@@ -208,6 +240,10 @@ public final class JdbcRequestTargetDao extends JdbcDaoSupport {
         this.statistics = statistics;
     }
 
+    public void setUpdateBuffer(JdbcRequestTargetUpdateBuffer updateBuffer) {
+        this.updateBuffer = updateBuffer;
+    }
+
     @Required
     public void setUtils(JdbcBulkDaoUtils utils) {
         this.utils = utils;
@@ -259,6 +295,7 @@ public final class JdbcRequestTargetDao extends JdbcDaoSupport {
     }
 
     public int update(JdbcRequestTargetCriterion criterion, JdbcRequestTargetUpdate update) {
+        flushUpdates();
         if (criterion.isJoined()) {
             return utils.update(criterion, update, TABLE_NAME, SECONDARY_TABLE_NAME, this);
         }
@@ -266,6 +303,21 @@ public final class JdbcRequestTargetDao extends JdbcDaoSupport {
         return utils.update(criterion, update, TABLE_NAME, this);
     }
 
+    /**
+     * Writes updates by target id as JDBC batches, one batch for each distinct set of columns.
+     */
+    void updateBatch(Map<Long, JdbcRequestTargetUpdate> updates) {
+        Map<String, List<Object[]>> batches = new HashMap<>();
+        updates.forEach((id, update) -> {
+            Object[] arguments = Arrays.copyOf(update.getArgumentsAsArray(),
+                  update.updates().size() + 1);
+            arguments[arguments.length - 1] = id;
+            batches.computeIfAbsent(String.format(UPDATE_BY_ID, update.getUpdate()),
+                  sql -> new ArrayList<>()).add(arguments);
+        });
+        batches.forEach((sql, arguments) -> utils.updateBatch(sql, arguments, this));
+    }
+
     public JdbcRequestTargetCriterion where() {
         return new JdbcRequestTargetCriterion();
     }
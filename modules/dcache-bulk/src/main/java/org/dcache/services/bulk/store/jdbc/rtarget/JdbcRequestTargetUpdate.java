@@ -95,6 +95,15 @@ public final class JdbcRequestTargetUpdate extends JdbcUpdate {
         return this;
     }
 
+    /**
+     * Adds the columns of a later update of the same row, overwriting the values of columns
+     * which both updates set.
+     */
+    public JdbcRequestTargetUpdate merge(JdbcRequestTargetUpdate later) {
+        later.updates().forEach(this::set);
+        return this;
+    }
+
     public String getStateName() {
         return (String)updates().get("state");
     }
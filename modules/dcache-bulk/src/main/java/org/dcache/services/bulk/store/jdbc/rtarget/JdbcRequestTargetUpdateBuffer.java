@@ -0,0 +1,218 @@
+/*
+COPYRIGHT STATUS:
+Dec 1st 2001, Fermi National Accelerator Laboratory (FNAL) documents and
+software are sponsored by the U.S. Department of Energy under Contract No.
+DE-AC02-76CH03000. Therefore, the U.S. Government retains a  world-wide
+non-exclusive, royalty-free license to publish or reproduce these documents
+and software for U.S. Government purposes.  All documents and software
+available from this server are protected under the U.S. and Foreign
+Copyright Laws, and FNAL reserves all rights.
+
+Distribution of the software available from this server is free of
+charge subject to the user following the terms of the Fermitools
+Software Legal Information.
+
+Redistribution and/or modification of the software shall be accompanied
+by the Fermitools Software Legal Information  (including the copyright
+notice).
+
+The user is asked to feed back problems, benefits, and/or suggestions
+about the software to the Fermilab Software Providers.
+
+Neither the name of Fermilab, the  URA, nor the names of the contributors
+may be used to endorse or promote products derived from this software
+without specific prior written permission.
+
+DISCLAIMER OF LIABILITY (BSD):
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED  WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED  WARRANTIES OF MERCHANTABILITY AND FITNESS
+FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL FERMILAB,
+OR THE URA, OR THE U.S. DEPARTMENT of ENERGY, OR CONTRIBUTORS BE LIABLE
+FOR  ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY  OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT  OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE  POSSIBILITY OF SUCH DAMAGE.
+
+Liabilities of the Government:
+
+This software is provided by URA, independent from its Prime Contract
+with the U.S. Department of Energy. URA is acting independently from
+the Government and in its own private capacity and is not acting on
+behalf of the U.S. Government, nor as its contractor nor its agent.
+Correspondingly, it is understood and agreed that the U.S. Government
+has no connection to this software and in no manner whatsoever shall
+be liable for nor assume any responsibility or obligation for any claim,
+cost, or damages arising out of or resulting from the use of the software
+available from this server.
+
+Export Control:
+
+All documents and software available from this server are subject to U.S.
+export control laws.  Anyone downloading information from this server is
+obligated to secure any necessary Government licenses before exporting
+documents or software obtained from this server.
+ */
+package org.dcache.services.bulk.store.jdbc.rtarget;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.dcache.services.bulk.util.BulkServiceStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Required;
+
+/**
+ * Write-behind buffer for target state transitions.
+ * <p>
+ * Updates are coalesced per target id, so a target which passes through several states before
+ * the buffer is flushed is written only once, with its latest values.  The buffer is flushed as
+ * a JDBC batch when it reaches its maximum size, when the oldest pending update has waited for
+ * the maximum lag, or before the dao runs any other statement on the target table (so that
+ * reads always see the buffered state).
+ * <p>
+ * Updates which have not been flushed are lost on a crash.  This is safe because on restart
+ * all non-terminal targets are reset and re-run from the state last written to the database.
+ */
+public final class JdbcRequestTargetUpdateBuffer {
+
+    private static final Logger LOGGER
+          = LoggerFactory.getLogger(JdbcRequestTargetUpdateBuffer.class);
+
+    private final Object flushLock = new Object();
+
+    private Map<Long, JdbcRequestTargetUpdate> pending = new LinkedHashMap<>();
+    private long oldestPending;
+
+    private JdbcRequestTargetDao targetDao;
+    private BulkServiceStatistics statistics;
+    private ScheduledExecutorService flushExecutor;
+    private int maxBatchSize = 500;
+    private long maxLag = 2;
+    private TimeUnit maxLagUnit = TimeUnit.SECONDS;
+
+    public void initialize() {
+        long period = Math.max(1, maxLagUnit.toMillis(maxLag) / 4);
+        flushExecutor.scheduleWithFixedDelay(this::flushIfDue, period, period,
+              TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds the update to the buffer, merging it with any update of the same target which is
+     * still pending.  If the buffer is full, it is flushed on the calling thread.
+     */
+    public void add(long id, JdbcRequestTargetUpdate update) {
+        boolean full;
+        synchronized (this) {
+            JdbcRequestTargetUpdate previous = pending.get(id);
+            if (previous == null) {
+                if (pending.isEmpty()) {
+                    oldestPending = System.currentTimeMillis();
+                }
+                pending.put(id, update);
+            } else {
+                previous.merge(update);
+            }
+            full = pending.size() >= maxBatchSize;
+        }
+
+        if (full) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes all pending updates.  Flushes are serialized, so that the updates of a target
+     * are written in the order in which they were added.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Map<Long, JdbcRequestTargetUpdate> batch;
+            long lag;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                lag = System.currentTimeMillis() - oldestPending;
+                pending = new LinkedHashMap<>();
+            }
+
+            try {
+                targetDao.updateBatch(batch);
+                statistics.targetUpdatesFlushed(batch.size(), lag);
+                LOGGER.trace("flushed {} target updates, lag {} ms.", batch.size(), lag);
+            } catch (RuntimeException e) {
+                LOGGER.error("Could not flush {} target updates: {}.", batch.size(),
+                      e.toString());
+                requeue(batch);
+            }
+        }
+    }
+
+    @Required
+    public void setFlushExecutor(ScheduledExecutorService flushExecutor) {
+        this.flushExecutor = flushExecutor;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public void setMaxLag(long maxLag) {
+        this.maxLag = maxLag;
+    }
+
+    public void setMaxLagUnit(TimeUnit maxLagUnit) {
+        this.maxLagUnit = maxLagUnit;
+    }
+
+    @Required
+    public void setStatistics(BulkServiceStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @Required
+    public void setTargetDao(JdbcRequestTargetDao targetDao) {
+        this.targetDao = targetDao;
+    }
+
+    public void shutdown() {
+        flushExecutor.shutdownNow();
+        flush();
+    }
+
+    private void flushIfDue() {
+        boolean due;
+        synchronized (this) {
+            due = !pending.isEmpty()
+                  && System.currentTimeMillis() - oldestPending >= maxLagUnit.toMillis(maxLag);
+        }
+
+        if (due) {
+            flush();
+        }
+    }
+
+    /*
+     *  Puts back the updates of a failed flush, so they are retried with the next one.
+     *  Updates which were added in the meantime are newer and take precedence.
+     */
+    private synchronized void requeue(Map<Long, JdbcRequestTargetUpdate> batch) {
+        batch.forEach((id, update) -> {
+            JdbcRequestTargetUpdate newer = pending.get(id);
+            if (newer != null) {
+                update.merge(newer);
+            }
+        });
+        pending.forEach(batch::putIfAbsent);
+        pending = batch;
+        oldestPending = System.currentTimeMillis();
+    }
+}
@@ -123,6 +123,12 @@ public final class BulkServiceStatistics implements CellInfoProvider {
           SKIPPED.name(), new AtomicLong(0L));
 
 
+    private final AtomicLong targetUpdateFlushes = new AtomicLong(0L);
+    private final AtomicLong targetUpdatesFlushed = new AtomicLong(0L);
+    private final AtomicLong targetUpdateFlushLag = new AtomicLong(0L);
+    private volatile int lastTargetUpdateFlushSize;
+    private volatile long lastTargetUpdateFlushLag;
+
     private RequestContainerJobFactory factory;
     private long lastSweep = started.getTime();
     private long lastSweepDuration = 0;
@@ -178,6 +184,18 @@ public final class BulkServiceStatistics implements CellInfoProvider {
         pw.println(String.format(STATS_FORMAT, "Active", activeRequests.get()));
         pw.println();
 
+        long flushes = targetUpdateFlushes.get();
+        pw.println("------------ TARGET UPDATE FLUSHES (since start) ------------");
+        pw.println(String.format(STATS_FORMAT, "Flushes", flushes));
+        pw.println(String.format(STATS_FORMAT, "Updates flushed", targetUpdatesFlushed.get()));
+        pw.println(String.format(STATS_FORMAT, "Average size",
+              flushes == 0 ? 0 : targetUpdatesFlushed.get() / flushes));
+        pw.println(String.format(STATS_FORMAT, "Average lag (ms)",
+              flushes == 0 ? 0 : targetUpdateFlushLag.get() / flushes));
+        pw.println(String.format(STATS_FORMAT, "Last size", lastTargetUpdateFlushSize));
+        pw.println(String.format(STATS_FORMAT, "Last lag (ms)", lastTargetUpdateFlushLag));
+        pw.println();
+
         pw.println(String.format(CONCURRENCY_FORMAT, "Available permits for directory listing",
               factory.getDirListSemaphoreAvailable()));
         pw.println(String.format(CONCURRENCY_FORMAT, "Available permits for in-flight targets",
@@ -232,6 +250,18 @@ public final class BulkServiceStatistics implements CellInfoProvider {
         this.factory = factory;
     }
 
+    /**
+     * @param size number of target updates written by the flush
+     * @param lag  how long the oldest of these updates waited to be written, in milliseconds
+     */
+    public void targetUpdatesFlushed(int size, long lag) {
+        targetUpdateFlushes.incrementAndGet();
+        targetUpdatesFlushed.addAndGet(size);
+        targetUpdateFlushLag.addAndGet(lag);
+        lastTargetUpdateFlushSize = size;
+        lastTargetUpdateFlushLag = lag;
+    }
+
     public void sweepFinished(long duration) {
         lastSweep = System.currentTimeMillis();
         lastSweepDuration = duration;
@@ -64,6 +64,7 @@ import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import org.dcache.services.bulk.store.jdbc.rtarget.JdbcRequestTargetUpdateBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Required;
@@ -74,6 +75,7 @@ public class BulkShutdownManager {
 
     private List<ExecutorService> executorServices;
     private Closeable dataSource;
+    private JdbcRequestTargetUpdateBuffer targetUpdateBuffer;
 
     private long await = 10;
     private TimeUnit awaitUnit = TimeUnit.SECONDS;
@@ -87,6 +89,9 @@ public class BulkShutdownManager {
                 LOGGER.error("awaitTermination interrupted for {}.", service);
             }
         });
+        if (targetUpdateBuffer != null) {
+            targetUpdateBuffer.shutdown();
+        }
         try {
             dataSource.close();
         } catch (IOException e) {
@@ -105,6 +110,10 @@ public class BulkShutdownManager {
         this.dataSource = dataSource;
     }
 
+    public void setTargetUpdateBuffer(JdbcRequestTargetUpdateBuffer targetUpdateBuffer) {
+        this.targetUpdateBuffer = targetUpdateBuffer;
+    }
+
     @Required
     public void setAwait(long await) {
         this.await = await;
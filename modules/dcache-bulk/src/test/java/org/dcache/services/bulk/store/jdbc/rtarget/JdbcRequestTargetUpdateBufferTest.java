@@ -0,0 +1,155 @@
+package org.dcache.services.bulk.store.jdbc.rtarget;
+
+import static org.dcache.services.bulk.util.BulkRequestTarget.State.COMPLETED;
+import static org.dcache.services.bulk.util.BulkRequestTarget.State.FAILED;
+import static org.dcache.services.bulk.util.BulkRequestTarget.State.RUNNING;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.dcache.services.bulk.store.jdbc.JdbcBulkDaoUtils;
+import org.dcache.services.bulk.util.BulkServiceStatistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+public class JdbcRequestTargetUpdateBufferTest {
+
+    private JdbcTemplate template;
+    private JdbcRequestTargetDao dao;
+    private JdbcRequestTargetUpdateBuffer buffer;
+    private List<String> statements;
+    private List<List<Object[]>> batches;
+
+    @Before
+    public void setUp() {
+        BulkServiceStatistics statistics = new BulkServiceStatistics();
+        template = mock(JdbcTemplate.class);
+        statements = new ArrayList<>();
+        batches = new ArrayList<>();
+        doAnswer(invocation -> {
+            statements.add(invocation.getArgument(0));
+            batches.add(invocation.getArgument(1));
+            return new int[0];
+        }).when(template).batchUpdate(anyString(), anyList());
+
+        dao = new JdbcRequestTargetDao();
+        dao.setJdbcTemplate(template);
+        dao.setStatistics(statistics);
+        dao.setUtils(new JdbcBulkDaoUtils());
+
+        buffer = new JdbcRequestTargetUpdateBuffer();
+        buffer.setTargetDao(dao);
+        buffer.setStatistics(statistics);
+        dao.setUpdateBuffer(buffer);
+    }
+
+    @Test
+    public void shouldWriteMergedUpdatesOfOneTargetOnce() {
+        givenDeferredUpdate(1L, dao.set().state(RUNNING));
+        givenDeferredUpdate(1L, dao.set().state(FAILED).errorMessage("no such file"));
+
+        buffer.flush();
+
+        assertEquals(1, batches.size());
+        assertEquals(1, batches.get(0).size());
+        assertEquals(FAILED.name(), valueOf("state", 0, 0));
+        assertEquals("no such file", valueOf("error_message", 0, 0));
+        assertEquals(1L, idOf(0, 0));
+    }
+
+    @Test
+    public void shouldNotWriteWhenNothingIsPending() {
+        buffer.flush();
+
+        verify(template, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    public void shouldFlushBeforeSelect() {
+        givenDeferredUpdate(1L, dao.set().state(COMPLETED));
+
+        dao.get(dao.where().rid(1L), 10);
+
+        InOrder order = inOrder(template);
+        order.verify(template).batchUpdate(anyString(), anyList());
+        order.verify(template).query(anyString(), any(Object[].class), any(RowMapper.class));
+    }
+
+    @Test
+    public void shouldFlushBeforeDelete() {
+        givenDeferredUpdate(1L, dao.set().state(COMPLETED));
+
+        dao.delete(dao.where().rid(1L));
+
+        InOrder order = inOrder(template);
+        order.verify(template).batchUpdate(anyString(), anyList());
+        order.verify(template).update(anyString(), eq(1L));
+    }
+
+    @Test
+    public void shouldRequeueFailedBatchWithoutLosingNewerUpdates() {
+        givenDeferredUpdate(1L, dao.set().state(RUNNING));
+        givenDeferredUpdate(2L, dao.set().state(RUNNING));
+        givenBatchFailsWhileUpdatesArrive(() -> {
+            givenDeferredUpdate(1L, dao.set().state(COMPLETED));
+            givenDeferredUpdate(3L, dao.set().state(RUNNING));
+        });
+
+        buffer.flush();
+        buffer.flush();
+
+        verify(template, times(2)).batchUpdate(anyString(), anyList());
+        assertEquals(1, batches.size());
+        assertEquals(3, batches.get(0).size());
+        assertEquals(1L, idOf(0, 0));
+        assertEquals(COMPLETED.name(), valueOf("state", 0, 0));
+        assertEquals(2L, idOf(0, 1));
+        assertEquals(RUNNING.name(), valueOf("state", 0, 1));
+        assertEquals(3L, idOf(0, 2));
+        assertEquals(RUNNING.name(), valueOf("state", 0, 2));
+    }
+
+    private void givenBatchFailsWhileUpdatesArrive(Runnable arrivals) {
+        doAnswer(invocation -> {
+            arrivals.run();
+            throw new TransientDataAccessResourceException("connection lost");
+        }).doAnswer(invocation -> {
+            statements.add(invocation.getArgument(0));
+            batches.add(invocation.getArgument(1));
+            return new int[0];
+        }).when(template).batchUpdate(anyString(), anyList());
+    }
+
+    private void givenDeferredUpdate(long id, JdbcRequestTargetUpdate update) {
+        dao.deferredUpdate(id, update);
+    }
+
+    private Object idOf(int batch, int row) {
+        Object[] arguments = batches.get(batch).get(row);
+        return arguments[arguments.length - 1];
+    }
+
+    private Object valueOf(String column, int batch, int row) {
+        String sql = statements.get(batch);
+        List<String> columns = Arrays.stream(sql.substring(sql.indexOf(" SET ") + 5,
+                    sql.indexOf(" WHERE ")).split(","))
+              .map(c -> c.replace(" = ?", "").trim())
+              .toList();
+        return batches.get(batch).get(row)[columns.indexOf(column)];
+    }
+}
@@ -53,6 +53,7 @@ import diskCacheV111.util.NotFileCacheException;
 import diskCacheV111.util.PermissionDeniedCacheException;
 import diskCacheV111.util.PnfsId;
 import diskCacheV111.util.RetentionPolicy;
+import diskCacheV111.vehicles.PnfsUpdateCacheLocationsMessage;
 import diskCacheV111.vehicles.StorageInfo;
 import dmg.cells.nucleus.CellCommandListener;
 import dmg.cells.nucleus.CellInfo;
@@ -69,6 +70,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -115,6 +117,7 @@ import org.dcache.util.ChecksumType;
 import org.dcache.util.Exceptions;
 import org.dcache.util.Glob;
 import org.dcache.vehicles.FileAttributes;
+import org.dcache.vehicles.PnfsGetFileAttributesBatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Required;
@@ -248,7 +251,7 @@ public class ChimeraNameSpaceProvider
             target = target.parent();
             try {
                 return _fs.path2inodes(target.toString());
-            } catch (FileNotFoundChimeraFsException ignored) {
+            } catch (FileNotFoundChimeraFsException notFound) {
                 // Continue onto next parent.
             }
         } while (target != FsPath.ROOT);
@@ -821,6 +824,128 @@ public class ChimeraNameSpaceProvider
         }
     }
 
+    /**
+     * Resolves the files of all updates with a single query and applies the updates in runs of
+     * consecutive additions or removals. Each run is written with a single multi-row statement,
+     * thus preserving the order of updates of the same file while avoiding one round trip to the
+     * database per update. Each run is a transaction of its own. Files that lost their last
+     * location are removed one by one, after checking the remaining locations of all of them
+     * with a single query.
+     */
+    @Override
+    public void updateCacheLocations(Subject subject, String cacheLocation,
+          List<PnfsUpdateCacheLocationsMessage.Update> updates) {
+        LOGGER.debug("update {} cache locations for {}", updates.size(), cacheLocation);
+
+        Map<String, FsInode> inodes;
+        try {
+            inodes = _fs.id2inodes(updates.stream()
+                  .map(u -> u.getPnfsId().toString())
+                  .distinct()
+                  .collect(Collectors.toList()));
+        } catch (ChimeraFsException e) {
+            LOGGER.error("Exception in updateCacheLocations for {} : {}", cacheLocation,
+                  e.getMessage());
+            updates.forEach(u -> u.setFailed(CacheException.UNEXPECTED_SYSTEM_EXCEPTION,
+                  e.getMessage()));
+            return;
+        }
+
+        int start = 0;
+        while (start < updates.size()) {
+            boolean isAdd = updates.get(start).isAdd();
+            int end = start + 1;
+            while (end < updates.size() && updates.get(end).isAdd() == isAdd) {
+                end++;
+            }
+            updateCacheLocations(cacheLocation, isAdd, updates.subList(start, end), inodes);
+            start = end;
+        }
+    }
+
+    private void updateCacheLocations(String cacheLocation, boolean isAdd,
+          List<PnfsUpdateCacheLocationsMessage.Update> updates, Map<String, FsInode> inodes) {
+        Map<PnfsUpdateCacheLocationsMessage.Update, FsInode> run = new LinkedHashMap<>();
+        for (PnfsUpdateCacheLocationsMessage.Update update : updates) {
+            FsInode inode = inodes.get(update.getPnfsId().toString());
+            if (inode == null) {
+                update.setFailed(CacheException.FILE_NOT_FOUND,
+                      "No such file: " + update.getPnfsId());
+            } else {
+                run.put(update, inode);
+            }
+        }
+
+        if (run.isEmpty()) {
+            return;
+        }
+
+        try {
+            if (isAdd) {
+                int added = _fs.addInodeLocations(run.values(), StorageGenericLocation.DISK,
+                      cacheLocation);
+                if (added < run.values().stream().mapToLong(FsInode::ino).distinct().count()) {
+                    failDeletedFiles(run);
+                }
+            } else {
+                _fs.clearInodeLocations(run.values(), StorageGenericLocation.DISK,
+                      cacheLocation);
+                removeIfNoLocations(run);
+            }
+        } catch (ChimeraFsException e) {
+            LOGGER.error("Exception in updateCacheLocations for {} : {}", cacheLocation,
+                  e.getMessage());
+            run.keySet().stream()
+                  .filter(u -> u.getReturnCode() == 0)
+                  .forEach(u -> u.setFailed(CacheException.UNEXPECTED_SYSTEM_EXCEPTION,
+                        e.getMessage()));
+        }
+    }
+
+    /**
+     * Fails the updates of files deleted after they were looked up.  The multi-row insert skips
+     * such files silently, while adding a location to a single deleted file fails with
+     * FILE_NOT_FOUND.  Fewer rows than files are also inserted if the location was already
+     * registered, so the files are looked up again to tell the two cases apart.
+     */
+    private void failDeletedFiles(Map<PnfsUpdateCacheLocationsMessage.Update, FsInode> run)
+          throws ChimeraFsException {
+        Map<String, FsInode> existing = _fs.id2inodes(run.keySet().stream()
+              .map(u -> u.getPnfsId().toString())
+              .distinct()
+              .collect(Collectors.toList()));
+        run.keySet().stream()
+              .filter(u -> !existing.containsKey(u.getPnfsId().toString()))
+              .forEach(u -> u.setFailed(CacheException.FILE_NOT_FOUND,
+                    "No such file: " + u.getPnfsId()));
+    }
+
+    private void removeIfNoLocations(Map<PnfsUpdateCacheLocationsMessage.Update, FsInode> run)
+          throws ChimeraFsException {
+        List<FsInode> candidates = run.entrySet().stream()
+              .filter(e -> e.getKey().removeIfLast())
+              .map(Map.Entry::getValue)
+              .collect(Collectors.toList());
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<StorageLocatable>> locations = _fs.getInodeLocations(candidates);
+        for (Map.Entry<PnfsUpdateCacheLocationsMessage.Update, FsInode> e : run.entrySet()) {
+            FsInode inode = e.getValue();
+            if (e.getKey().removeIfLast() && locations.getOrDefault(inode.ino(), List.of())
+                  .stream().noneMatch(l -> l.type() == StorageGenericLocation.DISK)) {
+                try {
+                    LOGGER.debug("last location cleaned. removing file {}", inode);
+                    _fs.remove(inode);
+                } catch (FileNotFoundChimeraFsException notFound) {
+                    e.getKey().setFailed(CacheException.FILE_NOT_FOUND,
+                          "No such file or directory: " + e.getKey().getPnfsId());
+                }
+            }
+        }
+    }
+
     @Override
     public String pnfsidToPath(Subject subject, PnfsId pnfsId) throws CacheException {
         try {
@@ -1113,6 +1238,85 @@ public class ChimeraNameSpaceProvider
         }
     }
 
+    /**
+     * Resolves all inodes, their parent directories, locations and checksums with a constant
+     * number of queries rather than with several queries per file.  Tags are fetched once per
+     * directory, as files sharing a directory share the parent inode.
+     */
+    @Override
+    public void getFileAttributesBatch(Subject subject,
+          List<PnfsGetFileAttributesBatch.Entry> entries, Set<FileAttribute> attr) {
+        boolean isExempt = Subjects.isExemptFromNamespaceChecks(subject);
+        Set<FileAttribute> required = EnumSet.noneOf(FileAttribute.class);
+        required.addAll(attr);
+        if (!isExempt) {
+            required.addAll(_permissionHandler.getRequiredAttributes());
+        }
+
+        List<PnfsGetFileAttributesBatch.Entry> pending = entries.stream()
+              .filter(e -> e.getPnfsId() != null)
+              .collect(Collectors.toList());
+        try {
+            Map<String, FsInode> inodes = _fs.id2inodes(pending.stream()
+                  .map(e -> e.getPnfsId().toString())
+                  .collect(Collectors.toList()));
+            Map<Long, Long> parents = _fs.getParentInumbers(inodes.values());
+            Map<Long, List<StorageLocatable>> locations =
+                  required.contains(LOCATIONS) || required.contains(STORAGEINFO)
+                        ? _fs.getInodeLocations(inodes.values())
+                        : Collections.emptyMap();
+            Map<Long, Set<Checksum>> checksums = required.contains(CHECKSUM)
+                  ? _fs.getInodeChecksums(inodes.values())
+                  : Collections.emptyMap();
+            Map<Long, ExtendedInode> directories = new HashMap<>();
+
+            for (PnfsGetFileAttributesBatch.Entry entry : pending) {
+                PnfsId pnfsId = entry.getPnfsId();
+                FsInode inode = inodes.get(pnfsId.toString());
+                if (inode == null) {
+                    entry.setFailed(CacheException.FILE_NOT_FOUND,
+                          "No such file or directory: " + pnfsId);
+                    continue;
+                }
+                try {
+                    Long parentIno = parents.get(inode.ino());
+                    ExtendedInode extended = parentIno == null
+                          ? new ExtendedInode(_fs, inode)
+                          : new ExtendedInode(directories.computeIfAbsent(parentIno,
+                                ino -> new ExtendedInode(_fs, ino)), inode);
+                    extended.setLocations(
+                          locations.getOrDefault(inode.ino(), Collections.emptyList()));
+                    extended.setChecksums(
+                          checksums.getOrDefault(inode.ino(), Collections.emptySet()));
+
+                    FileAttributes fileAttributes = getFileAttributes(extended, required);
+                    if (!isExempt && _permissionHandler.canGetAttributes(subject,
+                          fileAttributes, attr) != ACCESS_ALLOWED) {
+                        entry.setFailed(CacheException.PERMISSION_DENIED,
+                              "Access denied: " + pnfsId);
+                    } else {
+                        entry.setFileAttributes(fileAttributes);
+                    }
+                } catch (FileNotFoundChimeraFsException e) {
+                    entry.setFailed(CacheException.FILE_NOT_FOUND,
+                          "No such file or directory: " + pnfsId);
+                } catch (CacheException e) {
+                    entry.setFailed(e.getRc(), e.getMessage());
+                } catch (IOException e) {
+                    entry.setFailed(CacheException.UNEXPECTED_SYSTEM_EXCEPTION,
+                          e.getMessage());
+                }
+            }
+        } catch (ChimeraFsException e) {
+            for (PnfsGetFileAttributesBatch.Entry entry : pending) {
+                if (entry.getFileAttributes() == null && entry.getReturnCode() == 0) {
+                    entry.setFailed(CacheException.UNEXPECTED_SYSTEM_EXCEPTION,
+                          e.getMessage());
+                }
+            }
+        }
+    }
+
     @Override
     public FileAttributes setFileAttributes(Subject subject, PnfsId pnfsId,
           FileAttributes attr, Set<FileAttribute> acquire)
@@ -1488,7 +1692,7 @@ public class ChimeraNameSpaceProvider
                         throw new PermissionDeniedCacheException("Access denied: " + path);
                     }
                 }
-            } catch (FileNotFoundChimeraFsException ignored) {
+            } catch (FileNotFoundChimeraFsException notFound) {
             }
 
             /* User must be authorized to create file.
@@ -1678,7 +1882,7 @@ public class ChimeraNameSpaceProvider
                         throw new PermissionDeniedCacheException("Overwrite denied: " + finalPath);
                     }
                 }
-            } catch (FileNotFoundChimeraFsException ignored) {
+            } catch (FileNotFoundChimeraFsException notFound) {
             }
 
             /* Read file attributes before moving the file. Otherwise the cached parent will
@@ -26,6 +26,7 @@ import com.google.common.io.ByteSource;
 import diskCacheV111.util.FsPath;
 import diskCacheV111.util.PnfsId;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -61,7 +62,7 @@ public class ExtendedInode extends FsInode {
     private InodeStorageInformation storageInfo;
     private Optional<ExtendedInode> parent;
 
-    private ExtendedInode(ExtendedInode parent, FsInode inode) {
+    ExtendedInode(ExtendedInode parent, FsInode inode) {
         this(parent.getFs(), inode);
         this.parent = Optional.of(parent);
     }
@@ -160,6 +161,13 @@ public class ExtendedInode extends FsInode {
         return checksums;
     }
 
+    /**
+     * Fills the checksum cache, e.g. with the result of a lookup of many inodes.
+     */
+    void setChecksums(Collection<Checksum> checksums) {
+        this.checksums = ImmutableList.copyOf(checksums);
+    }
+
     public ImmutableList<String> getLocations(int type) throws ChimeraFsException {
         return ImmutableList.copyOf(
               getLocations().stream().filter(l -> l.type() == type).map(StorageLocatable::location)
@@ -173,6 +181,13 @@ public class ExtendedInode extends FsInode {
         return locations;
     }
 
+    /**
+     * Fills the location cache, e.g. with the result of a lookup of many inodes.
+     */
+    void setLocations(Collection<StorageLocatable> locations) {
+        this.locations = ImmutableList.copyOf(locations);
+    }
+
     public ImmutableMap<String, String> getFlags() throws ChimeraFsException {
         if (flags == null) {
             ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
@@ -6,6 +6,7 @@ import static org.dcache.namespace.FileAttribute.ACCESS_LATENCY;
 import static org.dcache.namespace.FileAttribute.ACCESS_TIME;
 import static org.dcache.namespace.FileAttribute.CHANGE_TIME;
 import static org.dcache.namespace.FileAttribute.CREATION_TIME;
+import static org.dcache.namespace.FileAttribute.LOCATIONS;
 import static org.dcache.namespace.FileAttribute.MODE;
 import static org.dcache.namespace.FileAttribute.MODIFICATION_TIME;
 import static org.dcache.namespace.FileAttribute.OWNER;
@@ -18,7 +19,10 @@ import static org.dcache.namespace.FileAttribute.TYPE;
 import static org.dcache.namespace.FileType.DIR;
 import static org.dcache.namespace.FileType.REGULAR;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -62,6 +66,7 @@ import org.dcache.chimera.FileNotFoundChimeraFsException;
 import org.dcache.chimera.FileSystemProvider;
 import org.dcache.chimera.FsFactory;
 import org.dcache.chimera.FsInode;
+import org.dcache.chimera.StorageGenericLocation;
 import org.dcache.chimera.UnixPermission;
 import org.dcache.chimera.namespace.ChimeraNameSpaceProvider;
 import org.dcache.chimera.namespace.ChimeraOsmStorageInfoExtractor;
@@ -73,6 +78,7 @@ import org.dcache.util.Checksum;
 import org.dcache.util.ChecksumType;
 import org.dcache.vehicles.FileAttributes;
 import org.dcache.vehicles.PnfsGetFileAttributes;
+import org.dcache.vehicles.PnfsGetFileAttributesBatch;
 import org.dcache.vehicles.PnfsSetFileAttributes;
 import org.junit.After;
 import org.junit.Before;
@@ -775,6 +781,43 @@ public class PnfsManagerTest {
               stat_after.getATime() == stat_before.getATime());
     }
 
+    @Test
+    public void testGetFileAttributesBatch() throws Exception {
+        FsInode file1 = _fs.createFile("/pnfs/testRoot/batch1");
+        FsInode file2 = _fs.createFile("/pnfs/testRoot/batch2");
+        _fs.addInodeLocation(file1, StorageGenericLocation.DISK, "pool1");
+        PnfsId missing = new PnfsId("0000FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF");
+
+        PnfsGetFileAttributesBatch message = new PnfsGetFileAttributesBatch(List.of(
+              new PnfsGetFileAttributesBatch.Entry(new PnfsId(file1.getId())),
+              new PnfsGetFileAttributesBatch.Entry("/pnfs/testRoot/batch2"),
+              new PnfsGetFileAttributesBatch.Entry(missing),
+              new PnfsGetFileAttributesBatch.Entry("/pnfs/testRoot/missing")),
+              EnumSet.of(PNFSID, SIZE, LOCATIONS, STORAGEINFO));
+        message.setSubject(Subjects.ROOT);
+
+        _pnfsManager.getFileAttributesBatch(message);
+
+        assertThat(message.getReturnCode(), is(0));
+        List<PnfsGetFileAttributesBatch.Entry> entries = message.getEntries();
+
+        FileAttributes attributes1 = entries.get(0).getFileAttributes();
+        assertThat(entries.get(0).getReturnCode(), is(0));
+        assertThat(attributes1.getLocations(), contains("pool1"));
+        assertThat(attributes1.getStorageInfo().getKey("path"), is("/pnfs/testRoot/batch1"));
+        assertThat(attributes1.getStorageInfo().getStorageClass(), is("sql:chimera"));
+
+        FileAttributes attributes2 = entries.get(1).getFileAttributes();
+        assertThat(entries.get(1).getReturnCode(), is(0));
+        assertThat(attributes2.getPnfsId(), is(new PnfsId(file2.getId())));
+        assertThat(attributes2.getLocations(), empty());
+        assertThat(attributes2.getStorageInfo().getKey("path"), is("/pnfs/testRoot/batch2"));
+
+        assertThat(entries.get(2).getReturnCode(), is(CacheException.FILE_NOT_FOUND));
+        assertThat(entries.get(2).getFileAttributes(), is(nullValue()));
+        assertThat(entries.get(3).getReturnCode(), is(CacheException.FILE_NOT_FOUND));
+    }
+
     private void assertNotExists(String path) throws ChimeraFsException {
         try {
             _fs.path2inode(path);
@@ -71,6 +71,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import org.dcache.cells.CellStub;
+import org.dcache.cells.RequestCoalescer;
 import org.dcache.pool.classic.json.SweeperData;
 import org.dcache.pool.json.PoolData;
 import org.dcache.pool.json.PoolDataDetails;
@@ -87,6 +88,7 @@ import org.dcache.vehicles.histograms.PoolTimeseriesRequestMessage;
 import org.dcache.vehicles.histograms.PoolTimeseriesRequestMessage.TimeseriesType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Required;
 
 /**
@@ -99,6 +101,10 @@ import org.springframework.beans.factory.annotation.Required;
  *
  * <p>Also responsible for aggregation of cost info data according to
  * pool groups.</p>
+ *
+ * <p>If a request coalescer is configured, concurrent identical history
+ * queries share a single request to the history service.  This is safe as
+ * both query types are idempotent and the replies are only read.</p>
  */
 public final class PoolHistoriesHandler extends PoolInfoAggregator
       implements PoolTimeseriesService {
@@ -107,6 +113,7 @@ public final class PoolHistoriesHandler extends PoolInfoAggregator
           = LoggerFactory.getLogger(PoolHistoriesHandler.class);
     private CellStub historyService;
     private PoolInfoServiceImpl poolInfoService;
+    private RequestCoalescer requestCoalescer;
 
     /**
      * <p>Responsible for adding the timeseries histograms to the
@@ -211,6 +218,16 @@ public final class PoolHistoriesHandler extends PoolInfoAggregator
         return getHistogramAndSweeperData(pool, types).getHistogramMap();
     }
 
+    public void initialize() {
+        if (requestCoalescer != null) {
+            requestCoalescer.register(PoolTimeseriesRequestMessage.class,
+                  m -> List.of(m.getPool(), m.getKeys()));
+            requestCoalescer.register(AggregateFileLifetimeRequestMessage.class,
+                  AggregateFileLifetimeRequestMessage::getPoolGroup);
+            historyService.setRequestCoalescer(requestCoalescer);
+        }
+    }
+
     @Required
     public void setHistoryService(CellStub historyService) {
         this.historyService = historyService;
@@ -221,6 +238,11 @@ public final class PoolHistoriesHandler extends PoolInfoAggregator
         this.poolInfoService = poolInfoService;
     }
 
+    @Autowired(required = false)
+    public void setRequestCoalescer(RequestCoalescer requestCoalescer) {
+        this.requestCoalescer = requestCoalescer;
+    }
+
     @Override
     protected PoolInfoWrapper getAggregateWrapper(String key) {
         PoolInfoWrapper groupInfo = poolInfoService.getCache().read(key);
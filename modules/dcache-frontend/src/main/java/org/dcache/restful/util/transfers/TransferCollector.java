@@ -65,36 +65,58 @@ import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static com.google.common.util.concurrent.Futures.transform;
 
 import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import diskCacheV111.util.TransferInfo;
+import diskCacheV111.vehicles.DoorEventMessage;
 import diskCacheV111.vehicles.IoDoorInfo;
 import diskCacheV111.vehicles.IoJobInfo;
+import diskCacheV111.vehicles.MoverEventMessage;
+import diskCacheV111.vehicles.TransferEventSnapshotRequest;
+import dmg.cells.nucleus.CellAddressCore;
+import dmg.cells.nucleus.CellMessageReceiver;
 import dmg.cells.nucleus.CellPath;
 import dmg.cells.services.login.LoginBrokerInfo;
 import dmg.cells.services.login.LoginBrokerSubscriber;
 import dmg.cells.services.login.LoginManagerChildrenInfo;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import org.dcache.util.TransferEventIndex;
 import org.dcache.util.collector.CellMessagingCollector;
 
 /**
  * <p>Adapted from {@link org.dcache.util.TransferCollector}.
  * (Will eventually replace that class.)</p>
  *
+ * <p>Doors and pools publish changes to their transfers and movers on a
+ * topic; these are maintained in a {@link TransferEventIndex}.  Only doors
+ * and pools that do not publish are queried, which on startup means all
+ * of them.  If the index detects that a message of a door or pool was
+ * lost, a snapshot is requested from that door or pool.</p>
+ *
  * <p>May be overridden for testing purposes.</p>
  */
-public class TransferCollector extends CellMessagingCollector<Map<String, TransferInfo>> {
+public class TransferCollector extends CellMessagingCollector<Map<String, TransferInfo>>
+      implements CellMessageReceiver {
 
     private static final String DOOR_INFO_CMD = "get door info -binary";
     private static final String LM_INFO_CMD = "get children -binary";
     private static final String MOVER_INFO_CMD = "mover ls -binary";
 
+    /**
+     * <p>Live view of the doors and pools publishing transfer events.</p>
+     */
+    private final TransferEventIndex index = new TransferEventIndex();
+
     /**
      * <p>For obtaining current door information.</p>
      */
@@ -102,9 +124,10 @@ public class TransferCollector extends CellMessagingCollector<Map<String, Transf
 
     /**
      * <p>Gathers endpoints for the login managers, pulls
-     * in their children and queueries each for their door instances; from these the targeted pool
-     * endpoints are obtained, which are then queried for their movers.  The door and mover info is
-     * encapsulated into {@link TransferInfo}.</p>
+     * in their children and queries those doors that do not publish transfer events for their
+     * door instances; from these the targeted pool endpoints are obtained, which are then queried
+     * for their movers unless they publish transfer events.  The door and mover info is
+     * merged with the published information and encapsulated into {@link TransferInfo}.</p>
      *
      * @return map of transfer key, transfer info.
      */
@@ -115,11 +138,14 @@ public class TransferCollector extends CellMessagingCollector<Map<String, Transf
             Set<CellPath> cellPaths = TransferCollectionUtils.getLoginManagers(loginBrokerInfos);
             Collection<LoginManagerChildrenInfo> loginManagerInfos
                   = collectLoginManagerInfo(cellPaths).get();
-            Collection<IoDoorInfo> doorInfos
-                  = collectDoorInfo(
-                  TransferCollectionUtils.getDoors(loginManagerInfos)).get();
-            cellPaths = TransferCollectionUtils.getPools(doorInfos);
-            Collection<IoJobInfo> movers = collectMovers(cellPaths).get();
+            cellPaths = unpublished(TransferCollectionUtils.getDoors(loginManagerInfos),
+                  p -> index.isPublishingDoor(p.getDestinationAddress()));
+            List<IoDoorInfo> doorInfos = new ArrayList<>(index.getDoors());
+            doorInfos.addAll(collectDoorInfo(cellPaths).get());
+            cellPaths = unpublished(TransferCollectionUtils.getPools(doorInfos),
+                  p -> index.isPublishingPool(p.getCellName()));
+            List<IoJobInfo> movers = new ArrayList<>(index.getMovers());
+            movers.addAll(collectMovers(cellPaths).get());
             List<TransferInfo> transfers = TransferCollectionUtils.transfers(doorInfos, movers);
             Map<String, TransferInfo> refreshedData = new HashMap<>();
             for (TransferInfo info : transfers) {
@@ -134,10 +160,45 @@ public class TransferCollector extends CellMessagingCollector<Map<String, Transf
         }
     }
 
+    public void messageArrived(DoorEventMessage message) {
+        if (!index.apply(message)) {
+            requestSnapshot(message.getSource(), DoorEventMessage.class, index::apply);
+        }
+    }
+
+    public void messageArrived(MoverEventMessage message) {
+        if (!index.apply(message)) {
+            requestSnapshot(message.getSource(), MoverEventMessage.class, index::apply);
+        }
+    }
+
     public void setLoginBrokerSource(LoginBrokerSubscriber loginBrokerSource) {
         this.loginBrokerSource = loginBrokerSource;
     }
 
+    private static Set<CellPath> unpublished(Set<CellPath> cells,
+          Predicate<CellPath> isPublishing) {
+        return cells.stream().filter(isPublishing.negate()).collect(Collectors.toSet());
+    }
+
+    private <T> void requestSnapshot(CellAddressCore source, Class<T> type,
+          Predicate<T> apply) {
+        Futures.addCallback(stub.send(new CellPath(source),
+                    new TransferEventSnapshotRequest(), type),
+              new FutureCallback<T>() {
+                  @Override
+                  public void onSuccess(T snapshot) {
+                      apply.test(snapshot);
+                  }
+
+                  @Override
+                  public void onFailure(Throwable t) {
+                      LOGGER.debug("Failed to request transfer snapshot from {}: {}",
+                            source, t.toString());
+                  }
+              }, MoreExecutors.directExecutor());
+    }
+
     private ListenableFuture<Collection<IoDoorInfo>>
     collectDoorInfo(Set<CellPath> doors) {
         return transform(query(doors,
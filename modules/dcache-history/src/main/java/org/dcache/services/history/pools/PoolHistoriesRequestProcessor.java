@@ -87,8 +87,8 @@ import org.springframework.beans.factory.annotation.Required;
 
 /**
  * <p>Handles the transformation of message content from pools into a cached
- * {@link PoolInfoWrapper}.  The data handled by this transformation are the timeseries histograms
- * for request queues and for file lifetime.</p>
+ * {@link PoolInfoWrapper}.  The current values of the timeseries for request queues and for file
+ * lifetime are recorded by the service.</p>
  *
  * <p>Post-processing stores all data to local files that are read back
  * in on start-up.</p>
@@ -216,9 +216,7 @@ public final class PoolHistoriesRequestProcessor extends
         PoolCostData poolCostData = data.getPoolCostData();
 
         if (poolCostData != null) {
-            PoolInfoCollectorUtils.updateQstatTimeSeries(poolCostData,
-                  info,
-                  timestamp);
+            service.record(key, PoolInfoCollectorUtils.getQueueValues(poolCostData), timestamp);
         }
 
         SweeperData sweeperData = data.getSweeperData();
@@ -226,8 +224,8 @@ public final class PoolHistoriesRequestProcessor extends
               sweeperData.getLastAccessHistogram();
 
         if (histogram != null) {
-            PoolInfoCollectorUtils.updateFstatHistograms(histogram,
-                  info,
+            service.record(key,
+                  PoolInfoCollectorUtils.getLifetimeValues(histogram.getMetadata()),
                   timestamp);
         }
 
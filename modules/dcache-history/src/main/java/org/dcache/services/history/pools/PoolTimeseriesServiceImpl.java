@@ -64,9 +64,11 @@ import diskCacheV111.vehicles.Message;
 import dmg.cells.nucleus.CellMessageReceiver;
 import dmg.cells.nucleus.Reply;
 import dmg.util.command.Command;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executor;
@@ -80,6 +82,7 @@ import org.dcache.util.collector.ListenableFutureWrapper;
 import org.dcache.util.collector.pools.PoolInfoCollectorUtils;
 import org.dcache.util.collector.pools.PoolLiveDataCollector;
 import org.dcache.util.histograms.TimeseriesHistogram;
+import org.dcache.util.timeseries.TimeseriesStore;
 import org.dcache.vehicles.histograms.AggregateFileLifetimeRequestMessage;
 import org.dcache.vehicles.histograms.PoolTimeseriesRequestMessage;
 import org.dcache.vehicles.histograms.PoolTimeseriesRequestMessage.TimeseriesType;
@@ -89,7 +92,8 @@ import org.springframework.beans.factory.annotation.Required;
 /**
  * <p>This is an implementation of the {@link PoolTimeseriesService} interface
  * which uses the {@link CellDataCollectingService} abstraction in order to maintain and serve local
- * file copies of the JSON objects containing historical/timeseries pool data.</p>
+ * file copies of the JSON objects containing historical pool data.  The timeseries are kept in a
+ * {@link TimeseriesStore}; histograms are built from it on request.</p>
  */
 public final class PoolTimeseriesServiceImpl extends
       CellDataCollectingService<Map<String, ListenableFutureWrapper<PoolLiveDataForHistoriesMessage>>,
@@ -102,6 +106,8 @@ public final class PoolTimeseriesServiceImpl extends
 
     private PoolMonitor monitor;
 
+    private TimeseriesStore store;
+
     protected Executor executor;
 
     @Command(name = "pools set timeout",
@@ -129,6 +135,10 @@ public final class PoolTimeseriesServiceImpl extends
     public void configure() {
         synchronized (cache) {
             cache.putAll(processor.readFromDisk());
+            cache.forEach((key, info) -> {
+                info.setKey(key);
+                migrateHistograms(key, info);
+            });
         }
     }
 
@@ -151,33 +161,111 @@ public final class PoolTimeseriesServiceImpl extends
         PoolInfoWrapper info = getWrapper(key);
 
         if (info != null) {
-            histograms.put(TimeseriesType.ACTIVE_FLUSH, info.getActiveFlush());
-            histograms.put(TimeseriesType.ACTIVE_MOVERS,
-                  info.getActiveMovers());
-            histograms.put(TimeseriesType.ACTIVE_P2P, info.getActiveP2P());
-            histograms.put(TimeseriesType.ACTIVE_P2P_CLIENT,
-                  info.getActiveP2PClient());
-            histograms.put(TimeseriesType.ACTIVE_STAGE, info.getActiveStage());
-            histograms.put(TimeseriesType.QUEUED_FLUSH, info.getQueuedFlush());
-            histograms.put(TimeseriesType.QUEUED_MOVERS,
-                  info.getQueuedMovers());
-            histograms.put(TimeseriesType.QUEUED_P2P, info.getQueuedP2P());
-            histograms.put(TimeseriesType.QUEUED_P2P_CLIENT,
-                  info.getQueuedP2PClient());
-            histograms.put(TimeseriesType.QUEUED_STAGE, info.getQueuedStage());
-            histograms.put(TimeseriesType.FILE_LIFETIME_MAX,
-                  info.getFileLiftimeMax());
-            histograms.put(TimeseriesType.FILE_LIFETIME_AVG,
-                  info.getFileLiftimeAvg());
-            histograms.put(TimeseriesType.FILE_LIFETIME_MIN,
-                  info.getFileLiftimeMin());
-            histograms.put(TimeseriesType.FILE_LIFETIME_STDDEV,
-                  info.getFileLiftimeStddev());
+            Set<TimeseriesType> requested = types == null || types.isEmpty()
+                  ? EnumSet.allOf(TimeseriesType.class) : types;
+            for (TimeseriesType type : requested) {
+                histograms.put(type, readTimeseries(key, type));
+            }
         }
 
         return histograms;
     }
 
+    /**
+     * <p>Records the current values of the time series of a pool or
+     * pool group.</p>
+     *
+     * @param key       pool or pool group
+     * @param values    the current values
+     * @param timestamp of update
+     */
+    public void record(String key, Map<TimeseriesType, Double> values, long timestamp) {
+        values.forEach((type, value) -> store.add(seriesName(key, type), timestamp, value));
+    }
+
+    /**
+     * <p>Builds the histogram of a time series from the points held
+     * by the store.  Undefined values (NaN) leave the bin empty.</p>
+     *
+     * @return the histogram, or null if the store holds no such time series.
+     */
+    private TimeseriesHistogram readTimeseries(String key, TimeseriesType type) {
+        String series = seriesName(key, type);
+        if (!store.contains(series)) {
+            return null;
+        }
+
+        TimeseriesHistogram histogram = PoolInfoCollectorUtils.newTimeSeriesHistogram(type);
+        store.forEach(series, (long) histogram.getBinSize(),
+              histogram.getLowestBin().longValue(), Long.MAX_VALUE,
+              (timestamp, value) -> histogram.replace(Double.isNaN(value) ? null : value,
+                    timestamp));
+        return histogram;
+    }
+
+    private static String seriesName(String key, TimeseriesType type) {
+        return key + "/" + type.name();
+    }
+
+    private static String keyOf(String series) {
+        return series.substring(0, series.lastIndexOf('/'));
+    }
+
+    /**
+     * <p>Earlier versions kept the histograms as part of the JSON
+     * data; these are moved to the store unless it already holds the time series.</p>
+     */
+    private void migrateHistograms(String key, PoolInfoWrapper info) {
+        migrateHistogram(key, TimeseriesType.ACTIVE_FLUSH, info.getActiveFlush());
+        migrateHistogram(key, TimeseriesType.ACTIVE_MOVERS, info.getActiveMovers());
+        migrateHistogram(key, TimeseriesType.ACTIVE_P2P, info.getActiveP2P());
+        migrateHistogram(key, TimeseriesType.ACTIVE_P2P_CLIENT, info.getActiveP2PClient());
+        migrateHistogram(key, TimeseriesType.ACTIVE_STAGE, info.getActiveStage());
+        migrateHistogram(key, TimeseriesType.QUEUED_FLUSH, info.getQueuedFlush());
+        migrateHistogram(key, TimeseriesType.QUEUED_MOVERS, info.getQueuedMovers());
+        migrateHistogram(key, TimeseriesType.QUEUED_P2P, info.getQueuedP2P());
+        migrateHistogram(key, TimeseriesType.QUEUED_P2P_CLIENT, info.getQueuedP2PClient());
+        migrateHistogram(key, TimeseriesType.QUEUED_STAGE, info.getQueuedStage());
+        migrateHistogram(key, TimeseriesType.FILE_LIFETIME_MAX, info.getFileLiftimeMax());
+        migrateHistogram(key, TimeseriesType.FILE_LIFETIME_AVG, info.getFileLiftimeAvg());
+        migrateHistogram(key, TimeseriesType.FILE_LIFETIME_MIN, info.getFileLiftimeMin());
+        migrateHistogram(key, TimeseriesType.FILE_LIFETIME_STDDEV,
+              info.getFileLiftimeStddev());
+
+        info.setActiveFlush(null);
+        info.setActiveMovers(null);
+        info.setActiveP2P(null);
+        info.setActiveP2PClient(null);
+        info.setActiveStage(null);
+        info.setQueuedFlush(null);
+        info.setQueuedMovers(null);
+        info.setQueuedP2P(null);
+        info.setQueuedP2PClient(null);
+        info.setQueuedStage(null);
+        info.setFileLiftimeMax(null);
+        info.setFileLiftimeAvg(null);
+        info.setFileLiftimeMin(null);
+        info.setFileLiftimeStddev(null);
+    }
+
+    private void migrateHistogram(String key, TimeseriesType type,
+          TimeseriesHistogram histogram) {
+        String series = seriesName(key, type);
+        if (histogram == null || histogram.getData() == null
+              || histogram.getLowestBin() == null || store.contains(series)) {
+            return;
+        }
+
+        List<Double> data = histogram.getData();
+        for (int i = 0; i < data.size(); i++) {
+            Double value = data.get(i);
+            if (value != null) {
+                long timestamp = (long) (histogram.getLowestBin() + i * histogram.getBinSize());
+                store.add(series, timestamp, value);
+            }
+        }
+    }
+
     public PoolInfoWrapper getWrapper(String key) {
         synchronized (cache) {
             return cache.get(key);
@@ -253,6 +341,11 @@ public final class PoolTimeseriesServiceImpl extends
         this.monitor = monitor;
     }
 
+    @Required
+    public void setStore(TimeseriesStore store) {
+        this.store = store;
+    }
+
     @Required
     public void setProcessor(PoolHistoriesRequestProcessor processor) {
         this.processor = processor;
@@ -290,7 +383,11 @@ public final class PoolTimeseriesServiceImpl extends
                     i.remove();
                 }
             }
+            store.retainAll(series -> valid.contains(keyOf(series)));
         }
+
+        store.expire();
+        store.checkpoint();
     }
 
     @Override
@@ -98,7 +98,8 @@ public class PoolHistoriesAggregator extends PoolInfoAggregator {
         SweeperData sweeperData = new SweeperData(model);
         poolData.setSweeperData(sweeperData);
         group.setInfo(poolData);
-        PoolInfoCollectorUtils.updateFstatTimeSeries(model.getMetadata(), group, timestamp);
-        PoolInfoCollectorUtils.updateQstatTimeSeries(pools, group, timestamp);
+        service.record(group.getKey(),
+              PoolInfoCollectorUtils.getLifetimeValues(model.getMetadata()), timestamp);
+        service.record(group.getKey(), PoolInfoCollectorUtils.getQueueValues(pools), timestamp);
     }
 }
@@ -9,6 +9,7 @@ import static java.util.Arrays.asList;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -51,6 +52,10 @@ import org.slf4j.LoggerFactory;
  * <p>
  * The implementation caches serialised data for one second.  This is a safety feature to reducing
  * the impact on info of pathologically broken clients that make many requests per second.
+ * <p>
+ * Responses carry an ETag header.  Clients polling for data may send this value in an
+ * If-None-Match header, in which case the data is only sent if it has changed.  Similarly, the info
+ * cell only sends data that has changed since the previous request.
  */
 public class InfoHttpEngine implements HttpResponseEngine, CellMessageSender {
 
@@ -85,6 +90,20 @@ public class InfoHttpEngine implements HttpResponseEngine, CellMessageSender {
 
     private CellStub _info;
 
+    /**
+     * Serialised data along with its entity tag, if known.
+     */
+    private static class Result {
+
+        private final byte[] _data;
+        private final String _etag;
+
+        Result(String data, String etag) {
+            _data = data.getBytes(UTF_8);
+            _etag = etag;
+        }
+    }
+
     /**
      * httpd-side class for each info-side serialiser.
      */
@@ -93,18 +112,34 @@ public class InfoHttpEngine implements HttpResponseEngine, CellMessageSender {
         private final String _name;
         private final String _mimeType;
 
-        LoadingCache<List<String>, String> resultCache = CacheBuilder.newBuilder()
+        /**
+         * The last result for each path, allowing conditional requests to the info cell.
+         */
+        private final Cache<List<String>, Result> lastResults = CacheBuilder.newBuilder()
+              .maximumSize(10)
+              .build();
+
+        LoadingCache<List<String>, Result> resultCache = CacheBuilder.newBuilder()
               .maximumSize(10)
               .expireAfterWrite(1, TimeUnit.SECONDS)
-              .build(new CacheLoader<List<String>, String>() {
+              .build(new CacheLoader<List<String>, Result>() {
                   @Override
-                  public String load(List<String> path)
+                  public Result load(List<String> path)
                         throws InterruptedException, CacheException, NoRouteToCellException {
                       InfoGetSerialisedDataMessage message =
                             (path == ENTIRE_TREE) ? new InfoGetSerialisedDataMessage(_name)
                                   : new InfoGetSerialisedDataMessage(path, _name);
+                      Result last = lastResults.getIfPresent(path);
+                      if (last != null) {
+                          message.setIfNoneMatch(last._etag);
+                      }
                       message = _info.sendAndWait(message);
-                      return message.getSerialisedData();
+                      if (message.isNotModified()) {
+                          return last;
+                      }
+                      Result result = new Result(message.getSerialisedData(), message.getETag());
+                      lastResults.put(path, result);
+                      return result;
                   }
               });
 
@@ -121,10 +156,18 @@ public class InfoHttpEngine implements HttpResponseEngine, CellMessageSender {
                   Arrays.asList(urlItems).subList(1, urlItems.length);
 
             try {
-                byte[] raw = resultCache.get(path).getBytes(UTF_8);
-                request.printHttpHeader(raw.length);
+                Result result = resultCache.get(path);
+                if (result._etag != null) {
+                    request.setHeader("ETag", result._etag);
+                    if (isMatch(request.getRequestAttributes().get("If-None-Match"),
+                          result._etag)) {
+                        request.setStatus(304);
+                        return;
+                    }
+                }
+                request.printHttpHeader(result._data.length);
                 request.setContentType(this._mimeType);
-                out.write(raw);
+                out.write(result._data);
             } catch (ExecutionException e) {
                 Throwable cause = e.getCause();
                 if (cause instanceof TimeoutCacheException) {
@@ -182,6 +225,28 @@ public class InfoHttpEngine implements HttpResponseEngine, CellMessageSender {
         handler.handleRequest(request);
     }
 
+    /**
+     * Whether the value of an If-None-Match header matches an entity tag.  Following RFC 7232, the
+     * weak comparison function is used.
+     */
+    private static boolean isMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (String candidate : Splitter.on(',').trimResults().split(ifNoneMatch)) {
+            if (candidate.equals("*") || removeWeakIndicator(candidate).equals(
+                  removeWeakIndicator(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String removeWeakIndicator(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
     private SerialisationHandler serialiserFromUri(HttpRequest request) throws HttpException {
         SerialisationHandler serialiser = null;
 
@@ -1,5 +1,11 @@
 package org.dcache.services.info;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.hash.Hashing;
 import dmg.cells.nucleus.CellCommandListener;
 import dmg.cells.nucleus.CellInfo;
 import dmg.cells.nucleus.CellInfoProvider;
@@ -46,6 +52,15 @@ public class InfoProvider implements CellCommandListener, CellInfoProvider,
     private State _state;
     private StateObservatory _observatory;
 
+    /**
+     * Entity tags of recently serialised data.  Serialisers return the same String while dCache
+     * state is unchanged, so the cache is keyed on object identity.
+     */
+    private final LoadingCache<String, String> _etags = CacheBuilder.newBuilder()
+          .weakKeys()
+          .build(CacheLoader.from(data ->
+                '"' + Hashing.murmur3_128().hashString(data, UTF_8).toString() + '"'));
+
     /**
      * Provide information for the info command.
      */
@@ -198,7 +213,9 @@ public class InfoProvider implements CellCommandListener, CellInfoProvider,
             data = serialiser.serialise(path);
         }
 
-        message.setData(data);
+        String etag = _etags.getUnchecked(data);
+        message.setETag(etag);
+        message.setData(etag.equals(message.getIfNoneMatch()) ? null : data);
 
         return message;
     }
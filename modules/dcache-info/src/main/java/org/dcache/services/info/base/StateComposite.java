@@ -8,6 +8,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,6 +27,10 @@ import org.slf4j.LoggerFactory;
  * A StateComposite also maintains a record of the earliest any of its children (or children of
  * children) will expire.  This is an optimisation, allowing a quick determination when a tree
  * should next be purged and, with any subtree, whether it is necessary to purge that subtree.
+ * <p>
+ * Each StateComposite has a generation: a number that is unique to the StateComposite and is
+ * renewed whenever a StateTransition changes it or anything below it.  Visitors may use this to
+ * reuse results from an earlier visit.
  *
  * @author Paul Millar <paul.millar@desy.de>
  */
@@ -38,11 +43,14 @@ public class StateComposite implements StateComponent {
      */
     static final long DEFAULT_LIFETIME = 10;
 
+    private static final AtomicLong GENERATIONS = new AtomicLong();
+
     private final Map<String, StateComponent> _children = new HashMap<>();
     private StatePersistentMetadata _metadataRef;
     private Date _earliestChildExpiry;
     private Date _whenIShouldExpire;
     private boolean _isEphemeral;
+    private long _generation = GENERATIONS.incrementAndGet();
 
     /**
      * The constructor for public use: a StateComposite with a finite lifetime.
@@ -239,6 +247,11 @@ public class StateComposite implements StateComponent {
     @Override
     public void acceptVisitor(StatePath path, StateVisitor visitor) {
         LOGGER.trace("acceptVisitor({})", path);
+
+        if (visitor.skipComposite(path, _generation)) {
+            return;
+        }
+
         Map<String, String> branchMetadata = getMetadataInfo();
 
         visitor.visitCompositePreDescend(path, branchMetadata);
@@ -392,6 +405,8 @@ public class StateComposite implements StateComponent {
         }
 
         recalcEarliestChildExpiry();
+
+        _generation = GENERATIONS.incrementAndGet();
     }
 
 
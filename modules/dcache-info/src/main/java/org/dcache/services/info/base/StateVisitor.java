@@ -16,6 +16,11 @@ import java.util.Map;
  * StateComposite. The metadata is persistent and independent of the actual contents of the State
  * tree; it is linked to a nodes path within the state.
  * <p>
+ * Before visiting a StateComposite, the visitor is asked whether it wishes to skip that
+ * StateComposite. Along with the path, the StateComposite's generation is supplied. This is a
+ * number that changes whenever the StateComposite or anything below it changes, allowing a visitor
+ * to reuse results from an earlier visit.
+ * <p>
  *
  * @author Paul Millar <paul.millar@desy.de>
  */
@@ -35,4 +40,16 @@ public interface StateVisitor extends StateGuide {
     void visitCompositePreDescend(StatePath path, Map<String, String> metadata);
 
     void visitCompositePostDescend(StatePath path, Map<String, String> metadata);
+
+    /**
+     * Whether to skip a StateComposite.  If true is returned then neither the StateComposite nor
+     * any of its children are visited.
+     *
+     * @param path       the path of the StateComposite, or null for the top-most StateComposite
+     * @param generation the generation of the StateComposite
+     * @return true if the StateComposite should be skipped, false otherwise.
+     */
+    default boolean skipComposite(StatePath path, long generation) {
+        return false;
+    }
 }
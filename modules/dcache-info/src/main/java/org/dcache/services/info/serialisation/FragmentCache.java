@@ -0,0 +1,173 @@
+package org.dcache.services.info.serialisation;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.dcache.services.info.base.StatePath;
+
+/**
+ * A cache of serialised StateComposites, allowing a serialiser to reuse the output of an earlier
+ * serialisation for those parts of dCache state that have not changed since.
+ * <p>
+ * Fragments are stored against the path and generation of the StateComposite they were serialised
+ * from; a fragment is reused only if the StateComposite still has the same generation.  As the
+ * output of a StateComposite may depend on the point from which state is serialised, fragments are
+ * held separately for each starting point.  Only the top-most StateComposite (the complete
+ * document) and StateComposites close to the top of the tree are cached; these cover the large
+ * lists (pools, links, reservations, ...) and their items.
+ * <p>
+ * A serialiser brackets each serialisation with calls to {@link #begin} and {@link #end}.  Fragments
+ * that were neither reused nor stored during a serialisation are discarded by {@code end}, so
+ * fragments of StateComposites that no longer exist do not accumulate.  Reusing a fragment also
+ * keeps the cached fragments below it; these are found through an index of each cached path's
+ * ancestors, so the cost of a reuse is proportional to the number of fragments it keeps.
+ * <p>
+ * The cache does not shorten the time for which the state's read lock is held while a changed
+ * StateComposite is serialised: serialisation happens during {@link
+ * org.dcache.services.info.base.StateExhibitor#visitState}, which holds that lock for the whole
+ * walk, and the output of changed StateComposites is built from the live state.  A serialisation
+ * after most of the cached StateComposites have changed, for example when every pool reports
+ * new metrics, therefore blocks state updates for as long as an uncached serialisation.
+ * <p>
+ * NB, instances of this Class are not thread-safe.
+ */
+class FragmentCache {
+
+    /**
+     * The maximum number of starting points for which fragments are held.
+     */
+    private static final int MAX_STARTING_POINTS = 8;
+
+    /**
+     * The maximum number of elements in the path of a cached StateComposite.
+     */
+    private static final int MAX_DEPTH = 2;
+
+    private static class Fragment {
+
+        private final long _generation;
+        private final String _text;
+
+        private Fragment(long generation, String text) {
+            _generation = generation;
+            _text = text;
+        }
+    }
+
+    /**
+     * The fragments held for one starting point.
+     */
+    private static class Fragments {
+
+        private final Map<StatePath, Fragment> _byPath = new HashMap<>();
+
+        /**
+         * The paths of cached fragments, indexed by each of their ancestors; the top-most
+         * StateComposite is indexed as null.
+         */
+        private final Map<StatePath, Set<StatePath>> _byAncestor = new HashMap<>();
+
+        private void put(StatePath path, Fragment fragment) {
+            if (_byPath.put(path, fragment) == null && path != null) {
+                StatePath ancestor = path;
+                do {
+                    ancestor = ancestor.parentPath();
+                    _byAncestor.computeIfAbsent(ancestor, k -> new HashSet<>()).add(path);
+                } while (ancestor != null);
+            }
+        }
+
+        private Set<StatePath> descendants(StatePath path) {
+            return _byAncestor.getOrDefault(path, Collections.emptySet());
+        }
+
+        private void retainAll(Set<StatePath> paths) {
+            _byPath.keySet().retainAll(paths);
+            _byAncestor.values().removeIf(descendants -> {
+                descendants.retainAll(paths);
+                return descendants.isEmpty();
+            });
+        }
+    }
+
+    private final Map<StatePath, Fragments> _startingPoints =
+          new LinkedHashMap<StatePath, Fragments>(16, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(Map.Entry<StatePath, Fragments> eldest) {
+                  return size() > MAX_STARTING_POINTS;
+              }
+          };
+
+    private StatePath _start;
+    private Fragments _fragments;
+    private final Set<StatePath> _used = new HashSet<>();
+
+    /**
+     * Whether the serialised form of the StateComposite with this path is cached.
+     *
+     * @param path the path of a StateComposite, or null for the top-most StateComposite.
+     */
+    static boolean isCacheable(StatePath path) {
+        int depth = 0;
+        for (StatePath p = path; p != null; p = p.parentPath()) {
+            if (++depth > MAX_DEPTH) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Start a new serialisation.
+     *
+     * @param start where serialisation starts, or null if all state is serialised.
+     */
+    void begin(StatePath start) {
+        _start = start;
+        _fragments = _startingPoints.computeIfAbsent(start, k -> new Fragments());
+        _used.clear();
+    }
+
+    /**
+     * Return the serialised form of a StateComposite, if it is cached.
+     *
+     * @param path       the path of the StateComposite, or null for the top-most StateComposite.
+     * @param generation the current generation of the StateComposite.
+     * @return the serialised StateComposite or null if not cached.
+     */
+    String get(StatePath path, long generation) {
+        Fragment fragment = _fragments._byPath.get(path);
+        if (fragment == null || fragment._generation != generation) {
+            return null;
+        }
+
+        _used.add(path);
+        /* Fragments below this one are still valid; keep them for when this one changes. */
+        _used.addAll(_fragments.descendants(path));
+        return fragment._text;
+    }
+
+    /**
+     * Store the serialised form of a StateComposite.
+     *
+     * @param path       the path of the StateComposite, or null for the top-most StateComposite.
+     * @param generation the generation of the StateComposite that was serialised.
+     * @param text       the serialised StateComposite.
+     */
+    void put(StatePath path, long generation, String text) {
+        _fragments.put(path, new Fragment(generation, text));
+        _used.add(path);
+    }
+
+    /**
+     * Complete a serialisation, discarding fragments that were neither used nor stored.
+     */
+    void end() {
+        _fragments.retainAll(_used);
+        _used.clear();
+        _startingPoints.put(_start, _fragments);
+    }
+}
@@ -4,6 +4,8 @@ import com.google.common.base.Objects;
 import com.google.gson.stream.JsonWriter;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
 import org.dcache.services.info.base.BooleanStateValue;
 import org.dcache.services.info.base.FloatingPointStateValue;
@@ -15,6 +17,11 @@ import org.springframework.beans.factory.annotation.Required;
 
 /**
  * Serialise state into a json object.
+ * <p>
+ * The JSON of StateComposites near the top of the tree is cached, along with the complete document.
+ * Subsequent serialisations reuse this JSON for those StateComposites that have not changed.  Such
+ * a StateComposite is serialised as a separate JSON object, which is then embedded in the
+ * enclosing object.
  */
 public class JsonSerialiser extends SubtreeVisitor implements StateSerialiser {
 
@@ -24,6 +31,50 @@ public class JsonSerialiser extends SubtreeVisitor implements StateSerialiser {
     private JsonWriter _writer;
     private StringWriter _string;
     private StatePath _top;
+    private int _depth;
+
+    private final FragmentCache _cache = new FragmentCache();
+    private final Deque<Fragment> _fragments = new ArrayDeque<>();
+    private String _document;
+    private long _documentGeneration;
+    private boolean _isDocumentCacheable;
+
+    /**
+     * A StateComposite that is serialised as a separate JSON object.
+     */
+    private static class Fragment {
+
+        final StatePath path;
+        final long generation;
+        final int depth;
+        final int indentation;
+        final StringWriter string = new StringWriter();
+        final JsonWriter writer = new JsonWriter(string);
+        final JsonWriter parent;
+
+        /**
+         * @param depth       the number of objects enclosing this fragment
+         * @param indentation the number of objects enclosing this fragment within the parent
+         * @param parent      the writer to which the fragment is added
+         */
+        Fragment(StatePath path, long generation, int depth, int indentation,
+              JsonWriter parent) {
+            this.path = path;
+            this.generation = generation;
+            this.depth = depth;
+            this.indentation = indentation;
+            this.parent = parent;
+            writer.setIndent("  ");
+        }
+
+        /**
+         * Return the object, indented so it may be embedded in the parent.
+         */
+        String getEmbeddableText() throws IOException {
+            writer.flush();
+            return string.toString().replace("\n", "\n" + "  ".repeat(indentation));
+        }
+    }
 
     @Required
     public void setStateExhibitor(StateExhibitor exhibitor) {
@@ -66,6 +117,42 @@ public class JsonSerialiser extends SubtreeVisitor implements StateSerialiser {
         }
     }
 
+    @Override
+    public boolean skipComposite(StatePath path, long generation) {
+        if (!FragmentCache.isCacheable(path)) {
+            return false;
+        }
+
+        String cached = _cache.get(path, generation);
+
+        if (path == null) {
+            _document = cached;
+            _documentGeneration = generation;
+            _isDocumentCacheable = true;
+            return cached != null;
+        }
+
+        if (!isInsideScope(path) || Objects.equal(_top, path)) {
+            return false;
+        }
+
+        if (cached != null) {
+            try {
+                _writer.name(path.getLastElement()).jsonValue(cached);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return true;
+        }
+
+        Fragment enclosing = _fragments.peek();
+        int indentation = enclosing == null ? _depth : _depth - enclosing.depth;
+        Fragment fragment = new Fragment(path, generation, _depth, indentation, _writer);
+        _fragments.push(fragment);
+        _writer = fragment.writer;
+        return false;
+    }
+
     @Override
     public void visitCompositePreDescend(StatePath path, Map<String, String> metadata) {
         if (!isInsideScope(path) || Objects.equal(_top, path)) {
@@ -73,8 +160,11 @@ public class JsonSerialiser extends SubtreeVisitor implements StateSerialiser {
         }
 
         try {
-            _writer.name(path.getLastElement());
+            if (!isFragment(path)) {
+                _writer.name(path.getLastElement());
+            }
             _writer.beginObject();
+            _depth++;
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -88,11 +178,25 @@ public class JsonSerialiser extends SubtreeVisitor implements StateSerialiser {
 
         try {
             _writer.endObject();
+            _depth--;
+
+            if (isFragment(path)) {
+                Fragment fragment = _fragments.pop();
+                String text = fragment.getEmbeddableText();
+                _writer = fragment.parent;
+                _writer.name(path.getLastElement()).jsonValue(text);
+                _cache.put(path, fragment.generation, text);
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private boolean isFragment(StatePath path) {
+        Fragment fragment = _fragments.peek();
+        return fragment != null && fragment.path.equals(path);
+    }
+
     @Override
     public String getName() {
         return NAME;
@@ -110,6 +214,11 @@ public class JsonSerialiser extends SubtreeVisitor implements StateSerialiser {
         _string = new StringWriter();
         _writer = new JsonWriter(_string);
         _writer.setIndent("  ");
+        _depth = 0;
+        _fragments.clear();
+        _document = null;
+        _isDocumentCacheable = false;
+        _cache.begin(start);
 
         if (start != null) {
             setVisitScopeToSubtree(start);
@@ -119,7 +228,14 @@ public class JsonSerialiser extends SubtreeVisitor implements StateSerialiser {
 
         try {
             _writer.beginObject();
+            _depth++;
             _exhibitor.visitState(this);
+
+            if (_document != null) {
+                _cache.end();
+                return _document;
+            }
+
             _writer.endObject();
 
             _writer.flush();
@@ -129,6 +245,11 @@ public class JsonSerialiser extends SubtreeVisitor implements StateSerialiser {
             throw new RuntimeException(e);
         }
 
-        return _string.toString();
+        String document = _string.toString();
+        if (_isDocumentCacheable) {
+            _cache.put(null, _documentGeneration, document);
+        }
+        _cache.end();
+        return document;
     }
 }
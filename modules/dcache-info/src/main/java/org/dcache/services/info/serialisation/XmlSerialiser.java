@@ -1,6 +1,8 @@
 package org.dcache.services.info.serialisation;
 
+import java.util.ArrayDeque;
 import java.util.Date;
+import java.util.Deque;
 import java.util.Map;
 import org.dcache.services.info.base.BooleanStateValue;
 import org.dcache.services.info.base.FloatingPointStateValue;
@@ -18,6 +20,10 @@ import org.springframework.beans.factory.annotation.Required;
  * For the most part, this is a simple mapping with some support for handling branch-nodes with a
  * known special parent branch differently.
  * <p>
+ * The XML of StateComposites near the top of the tree is cached, along with the complete document.
+ * Subsequent serialisations reuse this XML for those StateComposites that have not changed,
+ * leaving only changed parts of dCache state to be serialised while holding the state read-lock.
+ * <p>
  * NB, instances of this Class are not thread-safe: the caller is responsible for ensuring no
  * concurrent calls to serialise().
  *
@@ -46,11 +52,33 @@ public class XmlSerialiser extends SubtreeVisitor implements StateSerialiser {
 
     private StateExhibitor _exhibitor;
 
+    private final FragmentCache _cache = new FragmentCache();
+    private final Deque<Fragment> _fragments = new ArrayDeque<>();
+    private String _document;
+    private long _documentGeneration;
+    private boolean _isDocumentCacheable;
+
     @Required
     public void setStateExhibitor(StateExhibitor exhibitor) {
         _exhibitor = exhibitor;
     }
 
+    /**
+     * A StateComposite whose XML is being built.
+     */
+    private static class Fragment {
+
+        final StatePath path;
+        final long generation;
+        final int start;
+
+        Fragment(StatePath path, long generation, int start) {
+            this.path = path;
+            this.generation = generation;
+            this.start = start;
+        }
+    }
+
     private static class Attribute {
 
         final String name, value;
@@ -85,6 +113,10 @@ public class XmlSerialiser extends SubtreeVisitor implements StateSerialiser {
         _haveLastBranch = false;
         _indentationLevel = 0;
         updateIndentPrefix();
+        _fragments.clear();
+        _document = null;
+        _isDocumentCacheable = false;
+        _cache.begin(start);
 
         if (start != null) {
             setVisitScopeToSubtree(start);
@@ -96,6 +128,11 @@ public class XmlSerialiser extends SubtreeVisitor implements StateSerialiser {
 
         _exhibitor.visitState(this);
 
+        if (_document != null) {
+            _cache.end();
+            return _document;
+        }
+
         /**
          *  We ensure that there is always at least one element (the &lt;dCache/> element).
          *  _isTopBranch is true only if no state has been traversed, so no &lt;dCache> element
@@ -107,7 +144,12 @@ public class XmlSerialiser extends SubtreeVisitor implements StateSerialiser {
             emitLastBeginElement(true);
         }
 
-        return _out.toString();
+        String document = _out.toString();
+        if (_isDocumentCacheable) {
+            _cache.put(null, _documentGeneration, document);
+        }
+        _cache.end();
+        return document;
     }
 
 
@@ -116,6 +158,33 @@ public class XmlSerialiser extends SubtreeVisitor implements StateSerialiser {
         return NAME;
     }
 
+    /* Reuse the XML of unchanged branches */
+    @Override
+    public boolean skipComposite(StatePath path, long generation) {
+        if (!FragmentCache.isCacheable(path)) {
+            return false;
+        }
+
+        String cached = _cache.get(path, generation);
+
+        if (path == null) {
+            _document = cached;
+            _documentGeneration = generation;
+            _isDocumentCacheable = true;
+            return cached != null;
+        }
+
+        emitLastBeginElement(false);
+
+        if (cached != null) {
+            _out.append(cached);
+            return true;
+        }
+
+        _fragments.push(new Fragment(path, generation, _out.length()));
+        return false;
+    }
+
     /* Deal with branch movement */
     @Override
     public void visitCompositePreDescend(StatePath path, Map<String, String> metadata) {
@@ -125,6 +194,12 @@ public class XmlSerialiser extends SubtreeVisitor implements StateSerialiser {
     @Override
     public void visitCompositePostDescend(StatePath path, Map<String, String> metadata) {
         exitingBranch(path, metadata);
+
+        Fragment fragment = _fragments.peek();
+        if (fragment != null && fragment.path.equals(path)) {
+            _fragments.pop();
+            _cache.put(path, fragment.generation, _out.substring(fragment.start));
+        }
     }
 
     /* Deal with metric values */
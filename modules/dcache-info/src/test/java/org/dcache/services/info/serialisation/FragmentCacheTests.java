@@ -0,0 +1,83 @@
+package org.dcache.services.info.serialisation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.dcache.services.info.base.StatePath;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FragmentCacheTests {
+
+    private static final StatePath POOLS = StatePath.parsePath("pools");
+    private static final StatePath POOL_1 = POOLS.newChild("pool-1");
+    private static final StatePath POOL_2 = POOLS.newChild("pool-2");
+    private static final StatePath LINKS = StatePath.parsePath("links");
+
+    private FragmentCache _cache;
+
+    @Before
+    public void setUp() {
+        _cache = new FragmentCache();
+        _cache.begin(null);
+        _cache.put(POOL_1, 1, "pool-1");
+        _cache.put(POOL_2, 1, "pool-2");
+        _cache.put(POOLS, 1, "pools");
+        _cache.put(LINKS, 1, "links");
+        _cache.put(null, 1, "document");
+        _cache.end();
+    }
+
+    @Test
+    public void shouldKeepAllFragmentsWhenDocumentReused() {
+        _cache.begin(null);
+        assertEquals("document", _cache.get(null, 1));
+        _cache.end();
+
+        _cache.begin(null);
+        assertNull(_cache.get(null, 2));
+        assertEquals("pools", _cache.get(POOLS, 1));
+        assertEquals("links", _cache.get(LINKS, 1));
+        _cache.end();
+    }
+
+    @Test
+    public void shouldKeepFragmentsBelowReusedFragment() {
+        _cache.begin(null);
+        assertNull(_cache.get(null, 2));
+        assertNull(_cache.get(POOLS, 2));
+        assertEquals("pool-1", _cache.get(POOL_1, 1));
+        assertEquals("pool-2", _cache.get(POOL_2, 1));
+        assertEquals("links", _cache.get(LINKS, 1));
+        _cache.put(POOLS, 2, "pools-2");
+        _cache.put(null, 2, "document-2");
+        _cache.end();
+
+        _cache.begin(null);
+        assertNull(_cache.get(null, 3));
+        assertEquals("links", _cache.get(LINKS, 1));
+        assertEquals("pools-2", _cache.get(POOLS, 2));
+        _cache.end();
+
+        _cache.begin(null);
+        assertNull(_cache.get(null, 4));
+        assertNull(_cache.get(POOLS, 3));
+        assertEquals("pool-1", _cache.get(POOL_1, 1));
+        assertEquals("pool-2", _cache.get(POOL_2, 1));
+        _cache.end();
+    }
+
+    @Test
+    public void shouldDiscardFragmentsNotReused() {
+        _cache.begin(null);
+        assertNull(_cache.get(null, 2));
+        assertEquals("links", _cache.get(LINKS, 1));
+        _cache.put(null, 2, "document-2");
+        _cache.end();
+
+        _cache.begin(null);
+        assertNull(_cache.get(POOLS, 1));
+        assertNull(_cache.get(POOL_1, 1));
+        _cache.end();
+    }
+}
@@ -0,0 +1,209 @@
+package org.dcache.services.info.serialisation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import org.dcache.services.info.base.BooleanStateValue;
+import org.dcache.services.info.base.FloatingPointStateValue;
+import org.dcache.services.info.base.IntegerStateValue;
+import org.dcache.services.info.base.State;
+import org.dcache.services.info.base.StateExhibitor;
+import org.dcache.services.info.base.StatePath;
+import org.dcache.services.info.base.StateUpdate;
+import org.dcache.services.info.base.StateValue;
+import org.dcache.services.info.base.StateVisitor;
+import org.dcache.services.info.base.StringStateValue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that serialisers reusing the output of earlier serialisations produce the same output as
+ * a serialisation of the complete state.
+ */
+public class IncrementalSerialisationTests {
+
+    private static final StatePath POOLS = StatePath.parsePath("pools");
+    private static final StatePath POOL_1 = POOLS.newChild("pool-1");
+
+    private State _state;
+    private StateExhibitor _uncached;
+
+    @Before
+    public void setUp() {
+        _state = new State();
+        _uncached = visitor -> _state.visitState(new UncachedVisitor(visitor));
+
+        StateUpdate update = new StateUpdate();
+        for (int i = 1; i <= 3; i++) {
+            StatePath pool = POOLS.newChild("pool-" + i);
+            update.appendUpdate(pool.newChild("space").newChild("total"),
+                  new IntegerStateValue(100 * i, true));
+            update.appendUpdate(pool.newChild("space").newChild("free"),
+                  new IntegerStateValue(10 * i, true));
+            update.appendUpdate(pool.newChild("enabled"), new BooleanStateValue(true, true));
+            update.appendUpdate(pool.newChild("read-only"), new BooleanStateValue(false, true));
+        }
+        update.appendUpdate(StatePath.parsePath("domains.dCacheDomain.cells.info.version"),
+              new StringStateValue("1.0", true));
+        update.appendUpdate(StatePath.parsePath("summary.pools.load"),
+              new FloatingPointStateValue(0.5, true));
+        _state.processUpdate(update);
+    }
+
+    @Test
+    public void shouldReturnSameXmlWhenStateUnchanged() {
+        XmlSerialiser serialiser = xmlSerialiser(_state);
+
+        String first = serialiser.serialise();
+        String second = serialiser.serialise();
+
+        assertSame(first, second);
+        assertEquals(xmlSerialiser(_uncached).serialise(), second);
+    }
+
+    @Test
+    public void shouldReturnSameJsonWhenStateUnchanged() {
+        JsonSerialiser serialiser = jsonSerialiser(_state);
+
+        String first = serialiser.serialise();
+        String second = serialiser.serialise();
+
+        assertSame(first, second);
+        assertEquals(jsonSerialiser(_uncached).serialise(), second);
+    }
+
+    @Test
+    public void shouldSerialiseUpdatedXml() {
+        XmlSerialiser serialiser = xmlSerialiser(_state);
+        String before = serialiser.serialise();
+
+        update(POOL_1.newChild("space").newChild("free"), new IntegerStateValue(42, true));
+        String after = serialiser.serialise();
+
+        assertNotSame(before, after);
+        assertTrue(after.contains(">42<"));
+        assertEquals(xmlSerialiser(_uncached).serialise(), after);
+    }
+
+    @Test
+    public void shouldSerialiseUpdatedJson() {
+        JsonSerialiser serialiser = jsonSerialiser(_state);
+        serialiser.serialise();
+
+        update(POOL_1.newChild("space").newChild("free"), new IntegerStateValue(42, true));
+        String after = serialiser.serialise();
+
+        assertTrue(after.contains("\"free\": 42"));
+        assertEquals(jsonSerialiser(_uncached).serialise(), after);
+    }
+
+    @Test
+    public void shouldSerialiseNewAndRemovedBranches() {
+        XmlSerialiser xml = xmlSerialiser(_state);
+        JsonSerialiser json = jsonSerialiser(_state);
+        xml.serialise();
+        json.serialise();
+
+        update(POOLS.newChild("pool-4").newChild("enabled"), new BooleanStateValue(true, true));
+        StateUpdate purge = new StateUpdate();
+        purge.purgeUnder(POOL_1);
+        _state.processUpdate(purge);
+
+        String xmlAfter = xml.serialise();
+        String jsonAfter = json.serialise();
+
+        assertTrue(xmlAfter.contains("pool-4"));
+        assertFalse(xmlAfter.contains("pool-1"));
+        assertEquals(xmlSerialiser(_uncached).serialise(), xmlAfter);
+        assertEquals(jsonSerialiser(_uncached).serialise(), jsonAfter);
+    }
+
+    @Test
+    public void shouldSerialiseSubtreesIndependently() {
+        XmlSerialiser xml = xmlSerialiser(_state);
+        JsonSerialiser json = jsonSerialiser(_state);
+        xml.serialise();
+        json.serialise();
+        xml.serialise(POOLS);
+        json.serialise(POOLS);
+
+        update(POOL_1.newChild("enabled"), new BooleanStateValue(false, true));
+
+        assertEquals(xmlSerialiser(_uncached).serialise(POOLS), xml.serialise(POOLS));
+        assertEquals(jsonSerialiser(_uncached).serialise(POOLS), json.serialise(POOLS));
+        assertEquals(xmlSerialiser(_uncached).serialise(POOL_1), xml.serialise(POOL_1));
+        assertEquals(jsonSerialiser(_uncached).serialise(POOL_1), json.serialise(POOL_1));
+        assertEquals(xmlSerialiser(_uncached).serialise(), xml.serialise());
+        assertEquals(jsonSerialiser(_uncached).serialise(), json.serialise());
+    }
+
+    private void update(StatePath path, StateValue value) {
+        StateUpdate update = new StateUpdate();
+        update.appendUpdate(path, value);
+        _state.processUpdate(update);
+    }
+
+    private static XmlSerialiser xmlSerialiser(StateExhibitor exhibitor) {
+        XmlSerialiser serialiser = new XmlSerialiser();
+        serialiser.setStateExhibitor(exhibitor);
+        return serialiser;
+    }
+
+    private static JsonSerialiser jsonSerialiser(StateExhibitor exhibitor) {
+        JsonSerialiser serialiser = new JsonSerialiser();
+        serialiser.setStateExhibitor(exhibitor);
+        return serialiser;
+    }
+
+    /**
+     * A StateVisitor that never skips a StateComposite, so serialisers cannot reuse earlier
+     * output.
+     */
+    private static class UncachedVisitor implements StateVisitor {
+
+        private final StateVisitor _inner;
+
+        UncachedVisitor(StateVisitor inner) {
+            _inner = inner;
+        }
+
+        @Override
+        public boolean isVisitable(StatePath path) {
+            return _inner.isVisitable(path);
+        }
+
+        @Override
+        public void visitString(StatePath path, StringStateValue value) {
+            _inner.visitString(path, value);
+        }
+
+        @Override
+        public void visitInteger(StatePath path, IntegerStateValue value) {
+            _inner.visitInteger(path, value);
+        }
+
+        @Override
+        public void visitBoolean(StatePath path, BooleanStateValue value) {
+            _inner.visitBoolean(path, value);
+        }
+
+        @Override
+        public void visitFloatingPoint(StatePath path, FloatingPointStateValue value) {
+            _inner.visitFloatingPoint(path, value);
+        }
+
+        @Override
+        public void visitCompositePreDescend(StatePath path, Map<String, String> metadata) {
+            _inner.visitCompositePreDescend(path, metadata);
+        }
+
+        @Override
+        public void visitCompositePostDescend(StatePath path, Map<String, String> metadata) {
+            _inner.visitCompositePostDescend(path, metadata);
+        }
+    }
+}
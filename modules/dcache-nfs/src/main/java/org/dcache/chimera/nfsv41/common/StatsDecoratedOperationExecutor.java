@@ -38,7 +38,8 @@ public class StatsDecoratedOperationExecutor implements OperationExecutor {
      * Request execution gauges.
      */
     private final RequestExecutionTimeGauges<String> gauges
-          = new RequestExecutionTimeGauges<>(StatsDecoratedOperationExecutor.class.getName());
+          = new RequestExecutionTimeGauges<>(StatsDecoratedOperationExecutor.class.getName(),
+          true, true);
 
 
     private final OperationExecutor inner;
@@ -95,6 +95,7 @@ import org.dcache.chimera.nfsv41.door.proxy.NfsProxyIoFactory;
 import org.dcache.chimera.nfsv41.door.proxy.ProxyIoFactory;
 import org.dcache.chimera.nfsv41.mover.NFS4ProtocolInfo;
 import org.dcache.commons.stats.RequestExecutionTimeGauges;
+import org.dcache.kafka.KafkaEventPublisher;
 import org.dcache.namespace.FileAttribute;
 import org.dcache.nfs.ChimeraNFSException;
 import org.dcache.nfs.ExportFile;
@@ -172,6 +173,7 @@ import org.dcache.poolmanager.PoolManagerStub;
 import org.dcache.poolmanager.PoolMonitor;
 import org.dcache.util.ByteUnit;
 import org.dcache.util.CDCScheduledExecutorServiceDecorator;
+import org.dcache.util.DoorEventPublisher;
 import org.dcache.util.FireAndForgetTask;
 import org.dcache.util.Glob;
 import org.dcache.util.NDC;
@@ -185,7 +187,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Required;
-import org.springframework.kafka.core.KafkaTemplate;
 
 public class NFSv41Door extends AbstractCellComponent implements
       NFSv41DeviceManager, CellCommandListener,
@@ -390,6 +391,10 @@ public class NFSv41Door extends AbstractCellComponent implements
         _loginBrokerPublisher = loginBrokerPublisher;
     }
 
+    public void setTransferEventPublisher(DoorEventPublisher publisher) {
+        publisher.setDoorInfoSupplier(this::getIoDoorInfo);
+    }
+
     @Required
     public void setVfsCacheConfig(VfsCacheConfig vfsCacheConfig) {
         _vfsCacheConfig = vfsCacheConfig;
@@ -401,8 +406,8 @@ public class NFSv41Door extends AbstractCellComponent implements
     }
 
     @Autowired(required = false)
-    public void setKafkaTemplate(KafkaTemplate kafkaTemplate) {
-        _kafkaSender = kafkaTemplate::sendDefault;
+    public void setKafkaPublisher(KafkaEventPublisher kafkaPublisher) {
+        _kafkaSender = kafkaPublisher;
     }
 
     @Autowired(required = false)
@@ -1755,22 +1760,25 @@ public class NFSv41Door extends AbstractCellComponent implements
 
         @Override
         public Serializable call() {
-
-            List<IoDoorEntry> entries = _transfers.values()
-                  .stream()
-                  .map(Transfer::getIoDoorEntry)
-                  .collect(toList());
-
-            IoDoorInfo doorInfo = new IoDoorInfo(NFSv41Door.this.getCellName(),
-                  NFSv41Door.this.getCellDomainName());
-            doorInfo.setProtocol("NFSV4.1", "0");
-            doorInfo.setOwner("");
-            doorInfo.setProcess("");
-            doorInfo.setIoDoorEntries(entries.toArray(IoDoorEntry[]::new));
+            IoDoorInfo doorInfo = getIoDoorInfo();
             return isBinary ? doorInfo : doorInfo.toString();
         }
     }
 
+    private IoDoorInfo getIoDoorInfo() {
+        List<IoDoorEntry> entries = _transfers.values()
+              .stream()
+              .map(Transfer::getIoDoorEntry)
+              .collect(toList());
+
+        IoDoorInfo doorInfo = new IoDoorInfo(getCellName(), getCellDomainName());
+        doorInfo.setProtocol("NFSV4.1", "0");
+        doorInfo.setOwner("");
+        doorInfo.setProcess("");
+        doorInfo.setIoDoorEntries(entries.toArray(IoDoorEntry[]::new));
+        return doorInfo;
+    }
+
     @Command(name = "stats", hint = "Show nfs requests statistics.")
     public class NfsStatsCmd implements Callable<String> {
 
@@ -73,6 +73,11 @@ public final class PoolScanSummary extends ScanSummary {
     private final String storageUnit;
     private final boolean forced;
 
+    /*
+     *  Files of this scan the verifier has reported back on.
+     */
+    private long completed;
+
     public PoolScanSummary(String pool,
           QoSMessageType type,
           String group,
@@ -100,4 +105,48 @@ public final class PoolScanSummary extends ScanSummary {
     public boolean isForced() {
         return forced;
     }
+
+    public synchronized void incrementCompleted() {
+        incrementCompleted(1);
+    }
+
+    public synchronized void incrementCompleted(long count) {
+        completed += count;
+        notifyAll();
+    }
+
+    /**
+     * Blocks until fewer than {@code limit} of the files dispatched by this scan are still being
+     * verified, or the scan is cancelled.
+     * <p>
+     * If the verifier does not report back on any file for {@code timeout} milliseconds, the
+     * reports are assumed to be lost (e.g., because the verifier was restarted) and all files
+     * dispatched so far are considered completed.
+     *
+     * @return false if waiting timed out, true otherwise
+     */
+    public synchronized boolean awaitOutstandingBelow(long limit, long timeout)
+          throws InterruptedException {
+        long lastCompleted = completed;
+        long deadline = System.currentTimeMillis() + timeout;
+        while (!isCancelled() && getCount() - completed >= limit) {
+            if (completed != lastCompleted) {
+                lastCompleted = completed;
+                deadline = System.currentTimeMillis() + timeout;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                completed = getCount();
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void setCancelled(boolean canceled) {
+        super.setCancelled(canceled);
+        notifyAll();
+    }
 }
@@ -71,10 +71,12 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.sql.DataSource;
 import org.dcache.chimera.BackEndErrorChimeraFsException;
 import org.dcache.chimera.ChimeraFsException;
+import org.dcache.chimera.InumberRangeScanner;
 import org.dcache.qos.QoSException;
 import org.dcache.qos.data.QoSMessageType;
 import org.dcache.qos.listeners.QoSVerificationListener;
@@ -84,6 +86,7 @@ import org.dcache.qos.util.CacheExceptionUtils;
 import org.dcache.qos.vehicles.QoSScannerVerificationRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * Provides handling of specialized long-running queries which require direct access to the
@@ -129,6 +132,14 @@ public class LocalNamespaceAccess implements NamespaceAccess {
           + " AND n.iaccess_latency = 1"
           + " AND l.ilocation = ?";
 
+    /**
+     * As above, restricted to a range of inumbers for partitioned scans.
+     */
+    static final String SQL_GET_ONLINE_FOR_LOCATION_IN_RANGE
+          = SQL_GET_ONLINE_FOR_LOCATION
+          + " AND l.inumber >= ?"
+          + " AND l.inumber < ?";
+
     /**
      * Get the current range of the entire scan.
      */
@@ -166,6 +177,24 @@ public class LocalNamespaceAccess implements NamespaceAccess {
      */
     private int fetchSize;
 
+    /**
+     * If set, pool scans query partitions of the inumber range concurrently.
+     */
+    private InumberRangeScanner rangeScanner;
+
+    /**
+     * Maximum number of files a partitioned pool scan may have dispatched without the verifier
+     * having reported back on them.
+     */
+    private long maxOutstanding = Long.MAX_VALUE;
+
+    /**
+     * How long a partitioned pool scan waits for the verifier to report back on any of the files
+     * in flight before assuming the reports were lost.
+     */
+    private long maxOutstandingWait = 10;
+    private TimeUnit maxOutstandingWaitUnit = TimeUnit.MINUTES;
+
     public long[] getMinMaxInumbers() throws CacheException {
         try {
             Connection connection = getConnection();
@@ -189,7 +218,23 @@ public class LocalNamespaceAccess implements NamespaceAccess {
 
     @Override
     public void handlePoolScan(PoolScanSummary poolScan) throws CacheException {
-        handleQuery((connection, scan) -> handleQuery(connection, scan), poolScan);
+        if (rangeScanner == null) {
+            handleQuery((connection, scan) -> handleQuery(connection, scan), poolScan);
+            return;
+        }
+
+        try {
+            handlePartitionedQuery(poolScan);
+        } catch (SQLException e) {
+            throw new CacheException(CacheException.RESOURCE,
+                  String.format("Could not handle query %s", poolScan), e);
+        } catch (QoSException e) {
+            throw CacheExceptionUtils.getCacheExceptionFrom(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheException(CacheException.RESOURCE,
+                  String.format("Query %s was interrupted", poolScan));
+        }
     }
 
     @Override
@@ -230,6 +275,23 @@ public class LocalNamespaceAccess implements NamespaceAccess {
         this.fetchSize = fetchSize;
     }
 
+    @Autowired(required = false)
+    public void setRangeScanner(InumberRangeScanner rangeScanner) {
+        this.rangeScanner = rangeScanner;
+    }
+
+    public void setMaxOutstanding(long maxOutstanding) {
+        this.maxOutstanding = maxOutstanding;
+    }
+
+    public void setMaxOutstandingWait(long maxOutstandingWait) {
+        this.maxOutstandingWait = maxOutstandingWait;
+    }
+
+    public void setMaxOutstandingWaitUnit(TimeUnit maxOutstandingWaitUnit) {
+        this.maxOutstandingWaitUnit = maxOutstandingWaitUnit;
+    }
+
     public void setVerificationListener(QoSVerificationListener verificationListener) {
         this.verificationListener = verificationListener;
     }
@@ -311,6 +373,46 @@ public class LocalNamespaceAccess implements NamespaceAccess {
         }
     }
 
+    /**
+     * As above, but the partitions of the inumber range are queried concurrently.  Before each
+     * batch is dispatched, the scan waits for the verifier to report back on enough of the files
+     * already dispatched, so that a scan never has more than maxOutstanding files in flight.
+     */
+    private void handlePartitionedQuery(PoolScanSummary scan)
+          throws SQLException, QoSException, InterruptedException {
+        String pool = scan.getId();
+        String group = scan.getGroup();
+        String storageUnit = scan.getStorageUnit();
+        QoSMessageType type = scan.getType();
+        boolean forced = scan.isForced();
+
+        LOGGER.debug("handlePartitionedQuery: (pool {})(group {})(storageUnit {})(type {})"
+              + "(forced {})", pool, group, storageUnit, type, forced);
+
+        rangeScanner.scan(SQL_GET_ONLINE_FOR_LOCATION_IN_RANGE, List.of(pool),
+              resultSet -> new PnfsId(resultSet.getString(1)), scan::isCancelled,
+              replicas -> {
+                  if (!scan.awaitOutstandingBelow(maxOutstanding,
+                        maxOutstandingWaitUnit.toMillis(maxOutstandingWait))) {
+                      LOGGER.warn("Scan of {}: no verification results received for {} {}; "
+                                  + "assuming they were lost.", pool, maxOutstandingWait,
+                            maxOutstandingWaitUnit.name().toLowerCase());
+                  }
+                  if (!scan.isCancelled()) {
+                      scan.incrementCount(replicas.size());
+                      try {
+                          verificationListener.fileQoSVerificationRequested(
+                                new QoSScannerVerificationRequest(pool, replicas, type, group,
+                                      storageUnit, forced));
+                      } catch (QoSException | RuntimeException e) {
+                          /* No results will be reported for files that were not dispatched. */
+                          scan.incrementCompleted(replicas.size());
+                          throw e;
+                      }
+                  }
+              });
+    }
+
     /**
      * The query processes file inodes by batching the returned pnfsids into lists to be dispatched
      * to the verification service.
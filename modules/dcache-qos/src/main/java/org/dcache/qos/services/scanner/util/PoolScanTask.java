@@ -89,6 +89,13 @@ public final class PoolScanTask extends ScanTask {
         }
     }
 
+    /**
+     * Called when the verifier has reported back on one of the files dispatched by the scan.
+     */
+    public void childCompleted() {
+        scan.incrementCompleted();
+    }
+
     @Override
     public synchronized void cancel(String explanation) {
         scan.setCancelled(true);
@@ -68,6 +68,8 @@ import static org.dcache.qos.services.verifier.data.VerifyOperationState.READY;
 import static org.dcache.qos.services.verifier.data.VerifyOperationState.UNINITIALIZED;
 import static org.dcache.qos.services.verifier.data.VerifyOperationState.WAITING;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import diskCacheV111.util.CacheException;
 import diskCacheV111.util.PnfsId;
 import java.util.Collection;
@@ -87,6 +89,10 @@ import org.dcache.qos.vehicles.QoSAdjustmentRequest;
  * As a fresh instance of this object is dehydrated by the handler and the map as needed, no
  * synchronization is necessary.
  * <p/>
+ * Since the store may hold tens of millions of operations, timestamps are kept as primitives and
+ * pool, pool group and storage unit names are interned, so that operations share a single copy
+ * of each name rather than each holding the one deserialized from its message or database row.
+ * <p/>
  * Has natural ordering defined on lastUpdate.
  */
 public final class VerifyOperation implements Comparable<VerifyOperation> {
@@ -94,10 +100,19 @@ public final class VerifyOperation implements Comparable<VerifyOperation> {
     private static final String TO_STRING = "%s (%s %s)(%s %s)(parent %s, src %s, tgt %s, retried %s) %s";
     private static final String TO_ARCHIVE_STRING = "%s (%s %s)(last adjustment: %s)(parent %s, retried %s) %s";
 
+    private static final Interner<String> NAMES = Interners.newWeakInterner();
+
+    private static String intern(String name) {
+        return name == null ? null : NAMES.intern(name);
+    }
+
     private final PnfsId pnfsId;
 
-    private Long arrived;
-    private Long lastUpdate;
+    /*
+     *  Zero means not yet set.
+     */
+    private long arrived;
+    private long lastUpdate;
 
     private QoSMessageType messageType;
     private VerifyOperationState state;
@@ -128,13 +143,13 @@ public final class VerifyOperation implements Comparable<VerifyOperation> {
 
     @Override
     public int compareTo(VerifyOperation operation) {
-        if (operation == null || operation.lastUpdate == null) {
+        if (operation == null || operation.lastUpdate == 0) {
             return -1;
         }
-        if (lastUpdate == null) {
+        if (lastUpdate == 0) {
             return 1;
         }
-        return lastUpdate.compareTo(operation.lastUpdate);
+        return Long.compare(lastUpdate, operation.lastUpdate);
     }
 
     public void abortOperation() {
@@ -327,7 +342,7 @@ public final class VerifyOperation implements Comparable<VerifyOperation> {
         this.exception = exception;
     }
 
-    public void setLastUpdate(Long lastUpdate) {
+    public void setLastUpdate(long lastUpdate) {
         this.lastUpdate = lastUpdate;
     }
 
@@ -347,11 +362,11 @@ public final class VerifyOperation implements Comparable<VerifyOperation> {
     }
 
     public void setParent(String parent) {
-        this.parent = parent;
+        this.parent = intern(parent);
     }
 
     public void setPoolGroup(String poolGroup) {
-        this.poolGroup = poolGroup;
+        this.poolGroup = intern(poolGroup);
     }
 
     public void setPreviousAction(QoSAction previousAction) {
@@ -363,7 +378,7 @@ public final class VerifyOperation implements Comparable<VerifyOperation> {
     }
 
     public void setSource(String source) {
-        this.source = source;
+        this.source = intern(source);
     }
 
     public void setState(VerifyOperationState state) {
@@ -371,11 +386,11 @@ public final class VerifyOperation implements Comparable<VerifyOperation> {
     }
 
     public void setStorageUnit(String storageUnit) {
-        this.storageUnit = storageUnit;
+        this.storageUnit = intern(storageUnit);
     }
 
     public void setTarget(String target) {
-        this.target = target;
+        this.target = intern(target);
     }
 
     public void setTried(Set<String> tried) {
@@ -61,16 +61,15 @@ package org.dcache.qos.services.verifier.data;
 
 import com.google.common.annotations.VisibleForTesting;
 import diskCacheV111.util.PnfsId;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 import javax.annotation.concurrent.GuardedBy;
 import org.dcache.qos.services.verifier.data.VerifyOperationQueueIndex.QueueType;
 import org.dcache.util.SignalAware;
@@ -81,14 +80,17 @@ import org.slf4j.LoggerFactory;
  *  Responsible for the management of a verify operation of a given message type.
  *  Uses three internal queues to track the state of the operation (running, ready, waiting).
  *  Calls back the manager when an operation is ready for post-processing.
+ *  <p/>
+ *  The queues are array-backed and only hold the PNFS-ID instances which also serve as keys of
+ *  the manager's operation map, so a queued operation costs a single reference per queue.
  */
 public class VerifyOperationQueue implements SignalAware, Runnable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(VerifyOperationQueue.class);
 
-    private final Deque<PnfsId> running = new LinkedList<PnfsId>();
-    private final Deque<PnfsId> ready = new LinkedList<PnfsId>();
-    private final Deque<PnfsId> waiting = new LinkedList<PnfsId>();
+    private final Deque<PnfsId> running = new ArrayDeque<>();
+    private final Deque<PnfsId> ready = new ArrayDeque<>();
+    private final Deque<PnfsId> waiting = new ArrayDeque<>();
     private final ReadWriteLock lock = new ReentrantReadWriteLock(true);
     private final Lock write = lock.writeLock();
     private final Lock read = lock.readLock();
@@ -268,8 +270,8 @@ public class VerifyOperationQueue implements SignalAware, Runnable {
     @GuardedBy("lock")
     private List<PnfsId> removeFrom(String name, Deque<PnfsId> deque) {
         LOGGER.debug("{} queue, {} before remove {}.", queueType, name, deque.size());
-        List<PnfsId> from = deque.stream().filter(terminated).collect(Collectors.toList());
-        from.forEach(deque::remove);
+        List<PnfsId> from = new ArrayList<>();
+        deque.removeIf(id -> terminated.test(id) && from.add(id));
         LOGGER.debug("{} queue, {} after remove {}.", queueType, name, deque.size());
         return from;
     }
@@ -0,0 +1,53 @@
+package org.dcache.qos.services.scanner.data;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.dcache.qos.data.QoSMessageType;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PoolScanSummaryTest {
+
+    private PoolScanSummary scan;
+
+    @Before
+    public void setUp() {
+        scan = new PoolScanSummary("pool", QoSMessageType.POOL_STATUS_DOWN, null, null, false);
+    }
+
+    @Test
+    public void shouldNotWaitWhenBelowLimit() throws Exception {
+        scan.incrementCount(5);
+
+        assertTrue(scan.awaitOutstandingBelow(10, 0));
+    }
+
+    @Test
+    public void shouldWaitForCompletions() throws Exception {
+        scan.incrementCount(10);
+        Thread completer = new Thread(() -> scan.incrementCompleted(5));
+        completer.start();
+
+        assertTrue(scan.awaitOutstandingBelow(10, 60_000));
+        completer.join();
+    }
+
+    @Test
+    public void shouldGiveUpWithoutCompletions() throws Exception {
+        scan.incrementCount(10);
+
+        assertFalse(scan.awaitOutstandingBelow(10, 10));
+        assertTrue(scan.awaitOutstandingBelow(1, 0));
+    }
+
+    @Test
+    public void shouldStopWaitingWhenCancelled() throws Exception {
+        scan.incrementCount(10);
+        Thread canceller = new Thread(() -> scan.setCancelled(true));
+        canceller.start();
+
+        assertTrue(scan.awaitOutstandingBelow(10, 60_000));
+        canceller.join();
+    }
+}
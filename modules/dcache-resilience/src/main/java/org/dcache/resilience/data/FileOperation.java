@@ -65,10 +65,9 @@ import diskCacheV111.util.CacheException;
 import diskCacheV111.util.PnfsId;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashSet;
 import java.util.Set;
 import org.dcache.pool.migration.PoolMigrationCopyFinishedMessage;
 import org.dcache.resilience.handlers.FileOperationHandler;
@@ -87,6 +86,8 @@ import org.slf4j.LoggerFactory;
  * <ol>
  *  <li>Enums are replaced by int values and conversion methods.</li>
  *  <li>Only int indices referencing the {@link PoolInfoMap} are stored.</li>
+ *  <li>The pools already tried are kept in a small int array rather than
+ *      a set of boxed indices.</li>
  * </ol>
  *
  * <p>The latter choice is to minimize variable allocation to 4-byte primitives
@@ -177,7 +178,10 @@ public final class FileOperation {
     private int opCount;
     private int retried;
 
-    private Collection<Integer> tried;
+    /*
+     * Sorted pool indices; null when no pool has been tried.
+     */
+    private int[] tried;
     private ResilientFileTask task;
     private CacheException exception;
 
@@ -217,7 +221,7 @@ public final class FileOperation {
         target = operation.target;
         task = operation.task;
         if (operation.tried != null) {
-            tried.addAll(operation.tried);
+            tried = operation.tried.clone();
         }
     }
 
@@ -314,7 +318,7 @@ public final class FileOperation {
         if (tried == null) {
             return Collections.EMPTY_SET;
         }
-        return ImmutableSet.copyOf(tried);
+        return ImmutableSet.copyOf(Arrays.stream(tried).iterator());
     }
 
     public synchronized void incrementCount() {
@@ -384,26 +388,11 @@ public final class FileOperation {
     }
 
     void addSourceToTriedLocations() {
-        if (source == NIL) {
-            return;
-        }
-
-        if (tried == null) {
-            tried = new HashSet<>();
-        }
-
-        tried.add(source);
+        addToTriedLocations(source);
     }
 
     void addTargetToTriedLocations() {
-        if (target == NIL) {
-            return;
-        }
-
-        if (tried == null) {
-            tried = new HashSet<>();
-        }
-        tried.add(target);
+        addToTriedLocations(target);
     }
 
     synchronized boolean cancelCurrent() {
@@ -577,6 +566,27 @@ public final class FileOperation {
         return true;
     }
 
+    private void addToTriedLocations(int pool) {
+        if (pool == NIL) {
+            return;
+        }
+
+        if (tried == null) {
+            tried = new int[]{pool};
+            return;
+        }
+
+        int index = Arrays.binarySearch(tried, pool);
+        if (index < 0) {
+            int insert = -index - 1;
+            int[] extended = new int[tried.length + 1];
+            System.arraycopy(tried, 0, extended, 0, insert);
+            extended[insert] = pool;
+            System.arraycopy(tried, insert, extended, insert + 1, tried.length - insert);
+            tried = extended;
+        }
+    }
+
     private Integer getNullForNil(int value) {
         return value == NIL ? null : value;
     }
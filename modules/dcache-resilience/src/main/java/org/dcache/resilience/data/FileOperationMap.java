@@ -62,12 +62,12 @@ package org.dcache.resilience.data;
 import com.google.common.annotations.VisibleForTesting;
 import diskCacheV111.util.CacheException;
 import diskCacheV111.util.PnfsId;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Queue;
@@ -76,6 +76,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 import org.dcache.pool.migration.PoolMigrationCopyFinishedMessage;
 import org.dcache.resilience.handlers.FileOperationHandler;
@@ -530,9 +531,21 @@ public class FileOperationMap extends RunnableModule {
      * <p>Default sharding is probably OK for the present purposes,
      * even with a large copyThreads value, so we have not specified the constructor
      * parameters.</p>
+     *
+     * <p>Each entry costs a map node, the {@link FileOperation} and its
+     * {@link PnfsId}, which the queues share rather than copy.  A primitive-keyed or off-heap
+     * store would save the node, but it would have to build operation objects again for
+     * {@link FileMatcher}, the checkpointer and the running tasks, and would lose the lock-free
+     * reads described above.</p>
      */
     final Map<PnfsId, FileOperation> index = new ConcurrentHashMap<>();
 
+    /**
+     * <p>Notified whenever operations are removed from the index, for
+     * pool scans waiting for the map to shrink.</p>
+     */
+    private final Object removals = new Object();
+
     /**
      * <p>These queues are entirely used by the consumer thread. Hence
      * there is no need for synchronization on any of them.</p>
@@ -541,17 +554,21 @@ public class FileOperationMap extends RunnableModule {
      * removed from these waiting queues and added to running; an attempt at fairness is made by
      * appending it back to these queues when it successfully terminates, if more work is to be
      * done, but to restoring it to the head of the queue if there is a retriable failure.</p>
+     *
+     * <p>The queues are array-backed, since after a pool group goes down they
+     * may hold tens of millions of operations; a linked list would add a node object per
+     * entry.</p>
      */
-    final Deque<FileOperation> foreground = new LinkedList<>();
-    final Deque<FileOperation> background = new LinkedList<>();
-    final Queue<FileOperation> running = new LinkedList<>();
+    final Deque<FileOperation> foreground = new ArrayDeque<>();
+    final Deque<FileOperation> background = new ArrayDeque<>();
+    final Queue<FileOperation> running = new ArrayDeque<>();
 
     /**
      * <p>Queue of incoming/ready operations.  This buffer is
      * shared between the handler and consumer threads, to avoid synchronizing the internal queues.
      * The incoming operations are appended to the latter during the consumer scan.</p>
      */
-    final Queue<FileOperation> incoming = new LinkedList<>();
+    final Queue<FileOperation> incoming = new ArrayDeque<>();
 
     /**
      * <p>List of filters for cancelling operations.  This buffer is
@@ -917,6 +934,40 @@ public class FileOperationMap extends RunnableModule {
         return index.size();
     }
 
+    /**
+     * <p>Blocks until fewer than {@code limit} operations are in the map,
+     * or {@code isCancelled} returns true.  Used by pool scans so that they
+     * do not add operations faster than they are processed.</p>
+     *
+     * <p>If no operation is removed for {@code timeout} milliseconds, the
+     * consumer is assumed to be stuck and the call returns anyway.</p>
+     *
+     * @return false if waiting timed out, true otherwise
+     */
+    public boolean awaitSizeBelow(long limit, long timeout, BooleanSupplier isCancelled)
+          throws InterruptedException {
+        synchronized (removals) {
+            long lastSize = index.size();
+            long deadline = System.currentTimeMillis() + timeout;
+            while (!isCancelled.getAsBoolean() && index.size() >= limit) {
+                long size = index.size();
+                if (size < lastSize) {
+                    lastSize = size;
+                    deadline = System.currentTimeMillis() + timeout;
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                /*
+                 *  Cancellation is not signalled, so poll for it.
+                 */
+                removals.wait(Math.min(remaining, TimeUnit.SECONDS.toMillis(1)));
+            }
+        }
+        return true;
+    }
+
     public void startCheckpointer() {
         checkpointer.thread = new Thread(checkpointer, "Checkpointing");
         checkpointer.thread.start();
@@ -1035,6 +1086,9 @@ public class FileOperationMap extends RunnableModule {
             incoming.clear();
         }
         index.clear();
+        synchronized (removals) {
+            removals.notifyAll();
+        }
     }
 
     private void remove(PnfsId pnfsId, boolean failed) {
@@ -1044,6 +1098,10 @@ public class FileOperationMap extends RunnableModule {
             return;
         }
 
+        synchronized (removals) {
+            removals.notifyAll();
+        }
+
         if (operation.isBackground()) {
             String parent = poolInfoMap.getPool(operation.getParent());
             if (parent == null) {
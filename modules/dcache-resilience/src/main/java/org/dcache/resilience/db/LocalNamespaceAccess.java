@@ -74,11 +74,13 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.sql.DataSource;
 import org.dcache.auth.Subjects;
 import org.dcache.chimera.BackEndErrorChimeraFsException;
 import org.dcache.chimera.ChimeraFsException;
+import org.dcache.chimera.InumberRangeScanner;
 import org.dcache.resilience.data.FileOperationMap;
 import org.dcache.resilience.data.FileUpdate;
 import org.dcache.resilience.data.MessageType;
@@ -89,6 +91,7 @@ import org.dcache.resilience.util.ExceptionMessage;
 import org.dcache.vehicles.FileAttributes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * <p>Provides handling of specialized resilience-related queries which require
@@ -111,6 +114,10 @@ public class LocalNamespaceAccess implements NamespaceAccess {
           + "AND l.itype = 1 AND n.iaccess_latency = 1 "
           + "AND l.ilocation = ?";
 
+    static final String SQL_GET_ONLINE_FOR_LOCATION_IN_RANGE
+          = SQL_GET_ONLINE_FOR_LOCATION
+          + " AND l.inumber >= ? AND l.inumber < ?";
+
     static final String SQL_GET_CONTAINED_IN
           = "SELECT n.ipnfsid FROM t_locationinfo l, t_inodes n "
           + "WHERE n.inumber = l.inumber "
@@ -145,6 +152,21 @@ public class LocalNamespaceAccess implements NamespaceAccess {
      */
     private int fetchSize;
 
+    /**
+     * <p>If set, pool scans query partitions of the inumber range
+     * concurrently.</p>
+     */
+    private InumberRangeScanner rangeScanner;
+
+    /**
+     * <p>Partitioned pool scans wait while the operation map holds
+     * this many operations or more.</p>
+     */
+    private FileOperationMap fileOpMap;
+    private long maxOperations = Long.MAX_VALUE;
+    private long maxOperationsWait = 10;
+    private TimeUnit maxOperationsWaitUnit = TimeUnit.MINUTES;
+
     @Override
     public void printInaccessibleFiles(String location,
           PoolInfoMap poolInfoMap,
@@ -208,6 +230,11 @@ public class LocalNamespaceAccess implements NamespaceAccess {
     @Override
     public void handlePnfsidsForPool(ScanSummary scan)
           throws CacheException {
+        if (rangeScanner != null) {
+            handlePartitionedQuery(scan);
+            return;
+        }
+
         try {
             Connection connection = getConnection();
             try {
@@ -247,10 +274,31 @@ public class LocalNamespaceAccess implements NamespaceAccess {
         this.fetchSize = fetchSize;
     }
 
+    @Autowired(required = false)
+    public void setRangeScanner(InumberRangeScanner rangeScanner) {
+        this.rangeScanner = rangeScanner;
+    }
+
     public void setHandler(FileOperationHandler handler) {
         this.handler = handler;
     }
 
+    public void setFileOpMap(FileOperationMap fileOpMap) {
+        this.fileOpMap = fileOpMap;
+    }
+
+    public void setMaxOperations(long maxOperations) {
+        this.maxOperations = maxOperations;
+    }
+
+    public void setMaxOperationsWait(long maxOperationsWait) {
+        this.maxOperationsWait = maxOperationsWait;
+    }
+
+    public void setMaxOperationsWaitUnit(TimeUnit maxOperationsWaitUnit) {
+        this.maxOperationsWaitUnit = maxOperationsWaitUnit;
+    }
+
     @Override
     public void setNamespace(NameSpaceProvider namespace) {
         this.namespace = namespace;
@@ -309,6 +357,61 @@ public class LocalNamespaceAccess implements NamespaceAccess {
         }
     }
 
+    /**
+     * <p>As above, but the partitions of the inumber range are queried
+     * concurrently.  The pnfsids are still handed to the
+     * {@link FileOperationHandler} on the calling thread; the partitions
+     * pause whenever they get too far ahead of it.  Before each batch is
+     * handled, the scan waits for the {@link FileOperationMap} to hold fewer
+     * than maxOperations operations, since the partitions may otherwise
+     * create operations much faster than they are processed.</p>
+     */
+    private void handlePartitionedQuery(ScanSummary scan)
+          throws CacheException {
+        String pool = scan.getPool();
+        MessageType type = scan.getType();
+        Integer group = scan.getGroup();
+        Integer storageUnit = scan.getStorageUnit();
+        boolean full = scan.isForced();
+
+        try {
+            rangeScanner.scan(SQL_GET_ONLINE_FOR_LOCATION_IN_RANGE,
+                  List.of(pool),
+                  resultSet -> new PnfsId(resultSet.getString(1)),
+                  scan::isCancelled,
+                  pnfsIds -> {
+                      if (fileOpMap != null && !fileOpMap.awaitSizeBelow(maxOperations,
+                            maxOperationsWaitUnit.toMillis(maxOperationsWait),
+                            scan::isCancelled)) {
+                          LOGGER.warn("Scan of {}: no file operation completed for {} {}; "
+                                      + "continuing.", pool, maxOperationsWait,
+                                maxOperationsWaitUnit.name().toLowerCase());
+                      }
+                      for (PnfsId pnfsId : pnfsIds) {
+                          if (scan.isCancelled()) {
+                              return;
+                          }
+                          FileUpdate data = new FileUpdate(pnfsId, pool, type,
+                                group, full);
+                          try {
+                              if (handler.handleScannedLocation(data, storageUnit)) {
+                                  scan.incrementCount();
+                              }
+                          } catch (CacheException e) {
+                              LOGGER.debug("{}: {}", data, new ExceptionMessage(e));
+                          }
+                      }
+                  });
+        } catch (SQLException e) {
+            throw new CacheException(CacheException.RESOURCE,
+                  String.format("Could not handle pnfsids for %s", pool), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheException(CacheException.RESOURCE,
+                  String.format("Scan of %s was interrupted", pool));
+        }
+    }
+
     /**
      * <p>Used by the inaccessible file query.</p>
      *
@@ -60,9 +60,11 @@ documents or software obtained from this server.
 package org.dcache.resilience.data;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import diskCacheV111.util.CacheException;
 import diskCacheV111.util.PnfsId;
@@ -119,6 +121,30 @@ public final class FileOperationMapTest extends TestBase {
         assertNotNull(fileOperationMap.getOperation(operation.getPnfsId()));
     }
 
+    @Test
+    public void shouldNotWaitWhenMapIsBelowLimit()
+          throws CacheException, IOException, InterruptedException {
+        givenANewPnfsId();
+        afterOperationAdded(1);
+        assertTrue(fileOperationMap.awaitSizeBelow(2, 60_000, () -> false));
+    }
+
+    @Test
+    public void shouldStopWaitingForMapWhenNoOperationCompletes()
+          throws CacheException, IOException, InterruptedException {
+        givenANewPnfsId();
+        afterOperationAdded(1);
+        assertFalse(fileOperationMap.awaitSizeBelow(1, 10, () -> false));
+    }
+
+    @Test
+    public void shouldStopWaitingForMapWhenScanIsCancelled()
+          throws CacheException, IOException, InterruptedException {
+        givenANewPnfsId();
+        afterOperationAdded(1);
+        assertTrue(fileOperationMap.awaitSizeBelow(1, 60_000, () -> true));
+    }
+
     @Test
     public void shouldBehaveLikeCancelAllWhenOperationIsVoided()
           throws CacheException, IOException {
@@ -12,6 +12,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
@@ -563,6 +564,28 @@ public class JdbcSpaceManagerDatabase extends JdbcDaoSupport implements SpaceMan
         return (Long) keyHolder.getKeys().get("id");
     }
 
+    @Override
+    public void insertFiles(Collection<File> files) throws DataAccessException {
+        if (files.isEmpty()) {
+            return;
+        }
+        List<Object[]> arguments = new ArrayList<>(files.size());
+        for (File f : files) {
+            arguments.add(new Object[]{
+                  f.getVoGroup(),
+                  f.getVoRole(),
+                  f.getSpaceId(),
+                  f.getSizeInBytes(),
+                  f.getCreationTime(),
+                  Objects.toString(f.getPnfsId(), null),
+                  f.getState().getStateId()});
+        }
+        getJdbcTemplate().batchUpdate(
+              "INSERT INTO " + SPACEFILE_TABLE
+                    + " (vogroup,vorole,spacereservationid,sizeinbytes,creationtime,pnfsid,state) "
+                    + " VALUES  (?,?,?,?,?,?,?)", arguments);
+    }
+
     @Override
     public void expire(SpaceCriterion criterion) {
         JdbcCriterion c = (JdbcCriterion) criterion;
@@ -784,6 +807,12 @@ public class JdbcSpaceManagerDatabase extends JdbcDaoSupport implements SpaceMan
             addClause("creationtime < ?", millis);
             return this;
         }
+
+        @Override
+        public FileCriterion thatHaveNoPnfsId() {
+            addClause("pnfsid IS NULL");
+            return this;
+        }
     }
 
     private Space toSpace(ResultSet set, int rowNum) throws SQLException {
@@ -0,0 +1,530 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package diskCacheV111.services.space;
+
+import static java.util.stream.Collectors.toList;
+
+import diskCacheV111.util.PnfsId;
+import dmg.cells.nucleus.CellInfoProvider;
+import dmg.cells.nucleus.CellLifeCycleAware;
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Required;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Escrow style accounting of uploads into space reservations.
+ * <p>
+ * Adding, updating or removing a file reservation updates the accumulated fields of its space
+ * reservation, so all concurrent uploads into the same space reservation serialize on the lock
+ * of a single row. In escrow mode, space manager instead leases a chunk of the free space of a
+ * reservation. The lease is recorded in the database as a file reservation without a PNFS ID,
+ * so the leased space is tracked as allocated in the space reservation. Uploads are charged
+ * against the lease in memory and their file reservations are kept in memory until they are
+ * periodically written to the database in a batch, at which point the lease shrinks by the same
+ * amount.
+ * <p>
+ * Space is only leased once an upload could not be charged, so such an upload and uploads
+ * arriving before the next reconciliation are recorded directly. Leases that were not used
+ * during a reconciliation period are returned to the space reservation.
+ * <p>
+ * Pending file reservations are lost if space manager dies before they are written to the
+ * database; the space of such uploads is returned to the reservation when the stale lease is
+ * removed on the next start.
+ * <p>
+ * A lease is written to the database without holding its monitor, so that neither uploads nor
+ * notifications wait for the database. While a lease is written, uploads are not charged against
+ * it, and notifications for file reservations that are being written wait until the write has
+ * completed. As the write locks the space reservation, methods of this class must not be called
+ * by a transaction that has already modified a space reservation or any of its file
+ * reservations.
+ */
+public class SpaceEscrow implements CellInfoProvider, CellLifeCycleAware {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpaceEscrow.class);
+
+    /**
+     * The effect of a notification on a file reservation.
+     */
+    enum Change {
+        NONE, UPDATE, REMOVE
+    }
+
+    /**
+     * A file reservation that has not been written to the database yet.
+     */
+    private static class Pending {
+
+        final File file;
+
+        /**
+         * The number of leased bytes charged for the file.
+         */
+        final long charge;
+
+        Pending(File file, long charge) {
+            this.file = file;
+            this.charge = charge;
+        }
+    }
+
+    /**
+     * The escrow of a single space reservation.
+     */
+    private static class Lease {
+
+        final long spaceId;
+        Map<PnfsId, Pending> pending = new LinkedHashMap<>();
+
+        /**
+         * File reservations being written to the database by a reconciliation.
+         */
+        Map<PnfsId, Pending> writing = Collections.emptyMap();
+
+        /**
+         * File reservation recording the lease in the database, or null if no space is leased.
+         */
+        File record;
+
+        /**
+         * Leased bytes not charged yet.
+         */
+        long remaining;
+
+        Long expirationTime;
+
+        /**
+         * Whether uploads were charged or asked to be charged since the last reconciliation.
+         */
+        boolean isUsed;
+
+        /**
+         * Whether an upload could not be charged since the last reconciliation.
+         */
+        boolean isWanted;
+
+        /**
+         * Whether the space reservation has been released.
+         */
+        boolean isReleased;
+
+        /**
+         * Whether the lease has been removed from the escrow.
+         */
+        boolean isDiscarded;
+
+        /**
+         * Whether the lease is being written to the database.
+         */
+        boolean isWriting;
+
+        Lease(long spaceId) {
+            this.spaceId = spaceId;
+        }
+
+        boolean hasExpired(long now) {
+            return expirationTime != null && expirationTime <= now;
+        }
+    }
+
+    /**
+     * The state of a lease when its reconciliation started.
+     */
+    private static class Snapshot {
+
+        final long spaceId;
+        final List<File> files;
+        final File record;
+        final long remaining;
+        final boolean isUsed;
+        final boolean isWanted;
+        final boolean isReleased;
+
+        Snapshot(Lease lease) {
+            spaceId = lease.spaceId;
+            files = lease.pending.values().stream().map(p -> p.file).collect(toList());
+            record = lease.record;
+            remaining = lease.remaining;
+            isUsed = lease.isUsed;
+            isWanted = lease.isWanted;
+            isReleased = lease.isReleased;
+        }
+    }
+
+    /**
+     * The outcome of writing a lease to the database.
+     */
+    private static class Reconciliation {
+
+        final File record;
+        final long remaining;
+        final Long expirationTime;
+
+        Reconciliation(@Nullable File record, long remaining, @Nullable Long expirationTime) {
+            this.record = record;
+            this.remaining = remaining;
+            this.expirationTime = expirationTime;
+        }
+    }
+
+    private final ConcurrentMap<Long, Lease> leases = new ConcurrentHashMap<>();
+    private final LongAdder charged = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder reconciliations = new LongAdder();
+
+    private SpaceManagerDatabase db;
+    private long leaseSize;
+    private long reconcilePeriod;
+    private TimeUnit reconcilePeriodUnit;
+
+    private ScheduledExecutorService executor;
+
+    @Required
+    public void setDatabase(SpaceManagerDatabase db) {
+        this.db = db;
+    }
+
+    /**
+     * The number of bytes to lease from a space reservation. Zero disables escrow mode.
+     */
+    @Required
+    public void setLeaseSize(long leaseSize) {
+        this.leaseSize = leaseSize;
+    }
+
+    @Required
+    public void setReconcilePeriod(long reconcilePeriod) {
+        this.reconcilePeriod = reconcilePeriod;
+    }
+
+    @Required
+    public void setReconcilePeriodUnit(TimeUnit reconcilePeriodUnit) {
+        this.reconcilePeriodUnit = reconcilePeriodUnit;
+    }
+
+    public boolean isEnabled() {
+        return leaseSize > 0;
+    }
+
+    public void start() {
+        if (isEnabled()) {
+            int removed = db.remove(db.files().thatHaveNoPnfsId());
+            if (removed > 0) {
+                LOGGER.warn("Removed {} stale space leases.", removed);
+            }
+            executor = Executors.newSingleThreadScheduledExecutor();
+        }
+    }
+
+    @Override
+    public void afterStart() {
+        if (executor != null) {
+            executor.scheduleWithFixedDelay(this::reconcile, reconcilePeriod, reconcilePeriod,
+                  reconcilePeriodUnit);
+        }
+    }
+
+    public void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(reconcilePeriod, reconcilePeriodUnit);
+            reconcile(true);
+        }
+    }
+
+    @Override
+    public void getInfo(PrintWriter pw) {
+        pw.append("Escrow lease size = ").println(leaseSize);
+        if (isEnabled()) {
+            long leased = 0;
+            int pending = 0;
+            for (Lease lease : leases.values()) {
+                synchronized (lease) {
+                    leased += lease.remaining;
+                    pending += lease.pending.size() + lease.writing.size();
+                }
+            }
+            pw.append("Escrow leases = ").println(leases.size());
+            pw.append("Escrow bytes leased and not charged = ").println(leased);
+            pw.append("Escrow file reservations pending = ").println(pending);
+            pw.append("Escrow uploads charged = ").println(charged.sum());
+            pw.append("Escrow uploads not charged = ").println(rejected.sum());
+            pw.append("Escrow file reservations written = ").println(written.sum());
+            pw.append("Escrow reconciliations = ").println(reconciliations.sum());
+        }
+    }
+
+    /**
+     * Charges an upload against the lease of a space reservation.
+     *
+     * @return true if the upload was charged, false if the file reservation has to be added to
+     * the database by the caller.
+     */
+    public boolean charge(long spaceId, String voGroup, String voRole, long sizeInBytes,
+          PnfsId pnfsId) throws DataAccessException {
+        if (!isEnabled() || db.findFile(pnfsId) != null) {
+            return false;
+        }
+        while (true) {
+            Lease lease = leases.computeIfAbsent(spaceId, Lease::new);
+            synchronized (lease) {
+                if (lease.isDiscarded) {
+                    continue;
+                }
+                if (lease.pending.containsKey(pnfsId)) {
+                    return true;
+                }
+                long now = System.currentTimeMillis();
+                lease.isUsed = true;
+                if (lease.isReleased) {
+                    rejected.increment();
+                    return false;
+                }
+                if (lease.isWriting || lease.remaining < sizeInBytes || lease.hasExpired(now)) {
+                    lease.isWanted = true;
+                    rejected.increment();
+                    return false;
+                }
+                lease.remaining -= sizeInBytes;
+                lease.pending.put(pnfsId, new Pending(
+                      new File(0, voGroup, voRole, spaceId, sizeInBytes, now, pnfsId,
+                            FileState.TRANSFERRING), sizeInBytes));
+                charged.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Applies a change to a pending file reservation. Removed file reservations return their
+     * charge to the lease.
+     *
+     * @return true if a pending file reservation was found, false if the file reservation has to
+     * be looked up in the database by the caller.
+     */
+    public boolean update(PnfsId pnfsId, Function<File, Change> change) {
+        if (!isEnabled()) {
+            return false;
+        }
+        for (Lease lease : leases.values()) {
+            synchronized (lease) {
+                awaitWritten(lease, pnfsId);
+                Pending pending = lease.pending.get(pnfsId);
+                if (pending != null) {
+                    if (change.apply(pending.file) == Change.REMOVE) {
+                        lease.pending.remove(pnfsId);
+                        lease.remaining += pending.charge;
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the space reservation of a pending file reservation, or null if there is none.
+     */
+    @Nullable
+    public Long getSpaceToken(PnfsId pnfsId) {
+        if (!isEnabled()) {
+            return null;
+        }
+        for (Lease lease : leases.values()) {
+            synchronized (lease) {
+                if (lease.pending.containsKey(pnfsId) || lease.writing.containsKey(pnfsId)) {
+                    return lease.spaceId;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stops charging uploads against the lease of a space reservation. The lease is returned
+     * by the next reconciliation.
+     */
+    public void release(long spaceId) {
+        Lease lease = leases.get(spaceId);
+        if (lease != null) {
+            synchronized (lease) {
+                lease.isReleased = true;
+            }
+        }
+    }
+
+    void reconcile() {
+        reconcile(false);
+    }
+
+    private void reconcile(boolean isStopping) {
+        for (Lease lease : leases.values()) {
+            Snapshot snapshot;
+            synchronized (lease) {
+                snapshot = new Snapshot(lease);
+                lease.writing = lease.pending;
+                lease.pending = new LinkedHashMap<>();
+                lease.isWriting = true;
+                lease.isUsed = false;
+                lease.isWanted = false;
+            }
+
+            Reconciliation result = null;
+            try {
+                result = write(snapshot, isStopping);
+            } catch (DataAccessException e) {
+                LOGGER.warn("Failed to reconcile lease of space reservation {}: {}",
+                      lease.spaceId, e.getMessage());
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to reconcile lease of space reservation {}",
+                      lease.spaceId, e);
+            } finally {
+                synchronized (lease) {
+                    finish(lease, snapshot, result);
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the outcome of a reconciliation to the lease. If the write failed, the file
+     * reservations are pending again and are written by the next reconciliation.
+     */
+    private void finish(Lease lease, Snapshot snapshot, @Nullable Reconciliation result) {
+        if (result == null) {
+            lease.writing.putAll(lease.pending);
+            lease.pending = lease.writing;
+            lease.isUsed |= snapshot.isUsed;
+            lease.isWanted |= snapshot.isWanted;
+        } else {
+            lease.record = result.record;
+            lease.remaining = result.remaining;
+            lease.expirationTime = result.expirationTime;
+            if (lease.record == null) {
+                lease.isDiscarded = true;
+                leases.remove(lease.spaceId, lease);
+            }
+            written.add(snapshot.files.size());
+            reconciliations.increment();
+        }
+        lease.writing = Collections.emptyMap();
+        lease.isWriting = false;
+        lease.notifyAll();
+    }
+
+    /**
+     * Waits until a file reservation of the lease is no longer being written. Must be called
+     * while holding the monitor of the lease.
+     */
+    private static void awaitWritten(Lease lease, PnfsId pnfsId) {
+        boolean isInterrupted = false;
+        while (lease.writing.containsKey(pnfsId)) {
+            try {
+                lease.wait();
+            } catch (InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the pending file reservations of a lease to the database and shrinks, grows or
+     * returns the lease. The lease itself is not modified, as the transaction may still fail
+     * to commit.
+     */
+    @Transactional
+    protected Reconciliation write(Snapshot lease, boolean isStopping)
+          throws DataAccessException {
+        List<File> files = lease.files;
+        Space space;
+        try {
+            space = db.selectSpaceForUpdate(lease.spaceId);
+        } catch (EmptyResultDataAccessException e) {
+            LOGGER.error("Space reservation {} no longer exists; {} file reservations are lost.",
+                  lease.spaceId, files.size());
+            return new Reconciliation(null, 0, null);
+        }
+
+        long now = System.currentTimeMillis();
+        Long expirationTime = space.getExpirationTime();
+        boolean isKept = !isStopping && !lease.isReleased && lease.isUsed
+              && space.getState() == SpaceState.RESERVED
+              && (expirationTime == null || expirationTime > now);
+
+        /* Shrink the lease before adding the files, such that the space is never accounted
+         * twice.
+         */
+        File record = lease.record;
+        long remaining = 0;
+        if (record != null) {
+            if (isKept) {
+                remaining = lease.remaining;
+                record.setSizeInBytes(remaining);
+                db.updateFile(record);
+            } else {
+                db.removeFile(record.getId());
+                record = null;
+            }
+        }
+
+        db.insertFiles(files);
+
+        if (isKept && lease.isWanted && remaining < leaseSize) {
+            long grant = Math.min(leaseSize - remaining,
+                  db.getSpace(lease.spaceId).getAvailableSpaceInBytes());
+            if (grant > 0) {
+                if (record == null) {
+                    try {
+                        long id = db.insertFile(lease.spaceId, null, null, grant, null,
+                              FileState.TRANSFERRING);
+                        record = new File(id, null, null, lease.spaceId, grant, now, null,
+                              FileState.TRANSFERRING);
+                        remaining = grant;
+                    } catch (SpaceException e) {
+                        LOGGER.debug("Unable to lease space of reservation {}: {}",
+                              lease.spaceId, e.getMessage());
+                    }
+                } else {
+                    remaining += grant;
+                    record.setSizeInBytes(remaining);
+                    db.updateFile(record);
+                }
+            }
+        }
+        return new Reconciliation(record, remaining, expirationTime);
+    }
+}
@@ -24,6 +24,7 @@ import dmg.util.command.Command;
 import dmg.util.command.DelayedCommand;
 import dmg.util.command.Option;
 import java.io.Serializable;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -31,11 +32,14 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import org.dcache.auth.FQAN;
+import org.dcache.namespace.FileAttribute;
+import org.dcache.namespace.FileType;
 import org.dcache.util.ByteSizeParser;
 import org.dcache.util.ByteUnit;
 import org.dcache.util.CDCExecutorServiceDecorator;
 import org.dcache.util.ColumnWriter;
 import org.dcache.util.SqlGlob;
+import org.dcache.vehicles.FileAttributes;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
@@ -51,6 +55,7 @@ public class SpaceManagerCommandLineInterface implements CellCommandListener {
     private SpaceManagerDatabase db;
     private PnfsHandler pnfs;
     private LinkGroupLoader linkGroupLoader;
+    private SpaceEscrow escrow;
     private Executor executor;
 
     @Required
@@ -68,6 +73,11 @@ public class SpaceManagerCommandLineInterface implements CellCommandListener {
         this.pnfs = pnfs;
     }
 
+    @Required
+    public void setEscrow(SpaceEscrow escrow) {
+        this.escrow = escrow;
+    }
+
     @Required
     public void setLinkGroupLoader(LinkGroupLoader linkGroupLoader) {
         this.linkGroupLoader = linkGroupLoader;
@@ -645,7 +655,7 @@ public class SpaceManagerCommandLineInterface implements CellCommandListener {
                 PnfsId pnfsId = file.getPnfsId();
                 FsPath path;
                 try {
-                    path = lookup ? pnfs.getPathByPnfsId(pnfsId) : null;
+                    path = (lookup && pnfsId != null) ? pnfs.getPathByPnfsId(pnfsId) : null;
                 } catch (FileNotFoundCacheException e) {
                     path = null;
                 }
@@ -803,6 +813,44 @@ public class SpaceManagerCommandLineInterface implements CellCommandListener {
         }
     }
 
+    @Command(name = "add file", hint = "add untracked file to space",
+          description = "Adds a file reservation for a file that was uploaded into a space " +
+                "reservation, but which is not tracked by space manager. This happens if space " +
+                "manager stops unexpectedly in escrow mode, as the file reservations charged " +
+                "against a lease since the last reconciliation are lost.\n\n" +
+
+                "The file reservation is owned by the owner of the space reservation, is in " +
+                "state STORED and has the size recorded in the name space. The space reservation " +
+                "must have enough free space for the file.\n\n" +
+
+                "This command is the inverse of 'purge file'.")
+    public class AddFileCommand extends AsyncCommand {
+
+        @Argument(index = 0, metaVar = "spacetoken", usage = "Token of space reservation.")
+        long token;
+
+        @Argument(index = 1, metaVar = "file", usage = "PNFS ID or path of file.")
+        String file;
+
+        @Override
+        public String executeInTransaction()
+              throws DataAccessException, SpaceException, CacheException {
+            PnfsId pnfsId = PnfsId.isValid(file) ? new PnfsId(file) : pnfs.getPnfsIdByPath(file);
+            if (db.findFile(pnfsId) != null || escrow.getSpaceToken(pnfsId) != null) {
+                return "File already has a file reservation: " + pnfsId;
+            }
+            FileAttributes attributes = pnfs.getFileAttributes(pnfsId,
+                  EnumSet.of(FileAttribute.TYPE, FileAttribute.SIZE));
+            if (attributes.getFileType() != FileType.REGULAR) {
+                throw new IllegalArgumentException("Not a regular file: " + file);
+            }
+            Space space = db.getSpace(token);
+            db.insertFile(token, space.getVoGroup(), space.getVoRole(), attributes.getSize(),
+                  pnfsId, FileState.STORED);
+            return "Added " + db.findFile(pnfsId);
+        }
+    }
+
     @Command(name = "purge spaces", hint = "remove perished space reservations",
           description =
                 "Space reservations that are expired or released are said to have perished. " +
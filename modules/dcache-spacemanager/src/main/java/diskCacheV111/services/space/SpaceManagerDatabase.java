@@ -4,6 +4,7 @@ import diskCacheV111.util.AccessLatency;
 import diskCacheV111.util.PnfsId;
 import diskCacheV111.util.RetentionPolicy;
 import diskCacheV111.util.VOInfo;
+import java.util.Collection;
 import java.util.List;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -30,6 +31,12 @@ public interface SpaceManagerDatabase {
           FileState state)
           throws DataAccessException, SpaceException;
 
+    /**
+     * Adds file reservations in a batch without checking their space reservations. The ids of
+     * the given files are ignored.
+     */
+    void insertFiles(Collection<File> files) throws DataAccessException;
+
     void expire(SpaceCriterion criterion);
 
     Space insertSpace(@Nullable String voGroup,
@@ -196,5 +203,7 @@ public interface SpaceManagerDatabase {
         FileCriterion in(SpaceCriterion spaceCriterion);
 
         FileCriterion whereCreationTimeIsBefore(long millis);
+
+        FileCriterion thatHaveNoPnfsId();
     }
 }
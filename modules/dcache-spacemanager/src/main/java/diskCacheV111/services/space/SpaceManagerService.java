@@ -42,6 +42,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import diskCacheV111.poolManager.PoolPreferenceLevel;
 import diskCacheV111.poolManager.PoolSelectionUnit;
+import diskCacheV111.services.space.SpaceEscrow.Change;
 import diskCacheV111.services.space.message.GetFileSpaceTokensMessage;
 import diskCacheV111.services.space.message.GetLinkGroupNamesMessage;
 import diskCacheV111.services.space.message.GetLinkGroupsMessage;
@@ -143,6 +144,7 @@ public final class SpaceManagerService
 
     private PoolMonitor poolMonitor;
     private SpaceManagerDatabase db;
+    private SpaceEscrow escrow;
     private LinkGroupLoader linkGroupLoader;
     private long perishedSpacePurgeDelay;
     private int threads;
@@ -224,6 +226,11 @@ public final class SpaceManagerService
         this.db = db;
     }
 
+    @Required
+    public void setEscrow(SpaceEscrow escrow) {
+        this.escrow = escrow;
+    }
+
     @Required
     public void setAuthorizationPolicy(SpaceManagerAuthorizationPolicy authorizationPolicy) {
         this.authorizationPolicy = authorizationPolicy;
@@ -293,6 +300,10 @@ public final class SpaceManagerService
               .whereCreationTimeIsBefore(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1));
         final int maximumNumberFilesToLoadAtOnce = 1000;
         for (File file : db.get(oldTransfers, maximumNumberFilesToLoadAtOnce)) {
+            if (file.getPnfsId() == null) {
+                /* Space leased by the escrow. */
+                continue;
+            }
             try {
                 EnumSet<FileAttribute> attributes =
                       EnumSet.of(FileAttribute.TYPE,
@@ -689,6 +700,7 @@ public final class SpaceManagerService
             throw new UnsupportedOperationException("partial release is not supported yet");
         }
 
+        escrow.release(spaceToken);
         Space space = db.selectSpaceForUpdate(spaceToken);
         SpaceState state = space.getState();
         if (state.isFinal()) {
@@ -725,6 +737,10 @@ public final class SpaceManagerService
         String spaceToken = fileAttributes.getStorageInfo().getKey("SpaceToken");
         if (spaceToken != null) {
             spaceId = Long.parseLong(spaceToken);
+            if (escrow.charge(spaceId, owner.getVoGroup(), owner.getVoRole(), sizeInBytes,
+                  pnfsId)) {
+                return;
+            }
         } else {
             LOGGER.trace(
                   "transferStarting: file is not found, no prior reservations for this file");
@@ -758,7 +774,8 @@ public final class SpaceManagerService
     private void transferStarted(PnfsId pnfsId, boolean success)
           throws DataAccessException {
         LOGGER.trace("transferStarted({},{})", pnfsId, success);
-        if (!success) {
+        if (!success && !escrow.update(pnfsId,
+              f -> f.getState() == FileState.TRANSFERRING ? Change.REMOVE : Change.NONE)) {
             db.remove(db.files().wherePnfsIdIs(pnfsId).whereStateIsIn(FileState.TRANSFERRING));
 
             /* TODO: If we also created the reservation, we should
@@ -791,6 +808,9 @@ public final class SpaceManagerService
     private void transferFinished(PnfsId pnfsId, long size)
           throws DataAccessException {
         LOGGER.trace("transferFinished({})", pnfsId);
+        if (escrow.update(pnfsId, f -> transferFinished(f, size))) {
+            return;
+        }
         File f;
         try {
             f = db.selectFileForUpdate(pnfsId);
@@ -799,16 +819,32 @@ public final class SpaceManagerService
                   e.getMessage());
             return;
         }
+        apply(f, transferFinished(f, size));
+    }
+
+    private Change transferFinished(File f, long size) {
         if (f.getState() != FileState.TRANSFERRING) {
             LOGGER.trace("transferFinished({}): file state={}",
-                  pnfsId, f.getState());
+                  f.getPnfsId(), f.getState());
+            return Change.NONE;
         } else if (shouldDeleteStoredFileRecord) {
             LOGGER.trace("file transferred, deleting file record");
-            db.removeFile(f.getId());
+            return Change.REMOVE;
         } else {
             f.setSizeInBytes(size);
             f.setState(FileState.STORED);
-            db.updateFile(f);
+            return Change.UPDATE;
+        }
+    }
+
+    private void apply(File f, Change change) throws DataAccessException {
+        switch (change) {
+            case UPDATE:
+                db.updateFile(f);
+                break;
+            case REMOVE:
+                db.removeFile(f.getId());
+                break;
         }
     }
 
@@ -823,6 +859,9 @@ public final class SpaceManagerService
     private void fileFlushed(PnfsId pnfsId, long size, boolean isRemovable)
           throws DataAccessException {
         LOGGER.trace("fileFlushed({})", pnfsId);
+        if (escrow.update(pnfsId, f -> fileFlushed(f, size, isRemovable))) {
+            return;
+        }
         File f;
         try {
             f = db.selectFileForUpdate(pnfsId);
@@ -830,31 +869,38 @@ public final class SpaceManagerService
             LOGGER.trace("failed to find file {}: {}", pnfsId, e.getMessage());
             return;
         }
+        apply(f, fileFlushed(f, size, isRemovable));
+    }
+
+    private Change fileFlushed(File f, long size, boolean isRemovable) {
         if (shouldDeleteStoredFileRecord) {
             /* A file must have been stored for it to be flushed. If we didn't do
              * it during DoorTransferFinished, we do it now.
              */
-            db.removeFile(f.getId());
+            return Change.REMOVE;
         } else if (f.getState() != FileState.FLUSHED) {
             if (shouldReturnFlushedSpaceToReservation && isRemovable) {
                 f.setSizeInBytes(size);
                 f.setState(FileState.FLUSHED);
-                db.updateFile(f);
+                return Change.UPDATE;
             } else if (f.getState() == FileState.TRANSFERRING) {
                 /* A file must have been stored for it to be flushed. If we didn't do
                  * it during DoorTransferFinished, we do it now.
                  */
                 f.setSizeInBytes(size);
                 f.setState(FileState.STORED);
-                db.updateFile(f);
+                return Change.UPDATE;
             }
         }
+        return Change.NONE;
     }
 
     @Transactional
     private void fileRemoved(PnfsId pnfsId) {
         LOGGER.trace("fileRemoved({})", pnfsId);
-        db.remove(db.files().wherePnfsIdIs(pnfsId));
+        if (!escrow.update(pnfsId, f -> Change.REMOVE)) {
+            db.remove(db.files().wherePnfsIdIs(pnfsId));
+        }
     }
 
     private Space reserveSpace(Subject subject,
@@ -1258,8 +1304,13 @@ public final class SpaceManagerService
     private void getFileSpaceTokens(GetFileSpaceTokensMessage getFileTokens)
           throws DataAccessException {
         PnfsId pnfsId = getFileTokens.getPnfsId();
-        List<File> files = db.get(db.files().wherePnfsIdIs(pnfsId), null);
-        getFileTokens.setSpaceToken(Longs.toArray(transform(files, File::getSpaceId)));
+        Long pending = escrow.getSpaceToken(pnfsId);
+        if (pending != null) {
+            getFileTokens.setSpaceToken(new long[]{pending});
+        } else {
+            List<File> files = db.get(db.files().wherePnfsIdIs(pnfsId), null);
+            getFileTokens.setSpaceToken(Longs.toArray(transform(files, File::getSpaceId)));
+        }
     }
 
     /**
@@ -0,0 +1,223 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package diskCacheV111.services.space;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import diskCacheV111.services.space.SpaceEscrow.Change;
+import diskCacheV111.util.PnfsId;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+public class SpaceEscrowTest {
+
+    private static final long SPACE = 42;
+    private static final long LEASE = 7;
+    private static final PnfsId ID1 = new PnfsId("000000000000000000000000000000000001");
+    private static final PnfsId ID2 = new PnfsId("000000000000000000000000000000000002");
+
+    private SpaceManagerDatabase db;
+    private Space space;
+    private SpaceEscrow escrow;
+
+    @Before
+    public void setUp() throws Exception {
+        db = mock(SpaceManagerDatabase.class);
+        space = mock(Space.class);
+        when(space.getState()).thenReturn(SpaceState.RESERVED);
+        when(space.getExpirationTime()).thenReturn(null);
+        when(space.getAvailableSpaceInBytes()).thenReturn(10_000L);
+        when(db.selectSpaceForUpdate(SPACE)).thenReturn(space);
+        when(db.getSpace(SPACE)).thenReturn(space);
+        when(db.findFile(any())).thenReturn(null);
+        when(db.insertFile(eq(SPACE), isNull(), isNull(), anyLong(), isNull(),
+              eq(FileState.TRANSFERRING))).thenReturn(LEASE);
+
+        escrow = new SpaceEscrow();
+        escrow.setDatabase(db);
+        escrow.setLeaseSize(1000);
+        escrow.setReconcilePeriod(1);
+        escrow.setReconcilePeriodUnit(TimeUnit.SECONDS);
+    }
+
+    private void lease() {
+        assertThat(escrow.charge(SPACE, "group", "role", 100, ID1), equalTo(false));
+        escrow.reconcile();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<File> lastInsertedFiles() {
+        ArgumentCaptor<Collection<File>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(db, atLeastOnce()).insertFiles(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    public void shouldNotChargeWhenDisabled() {
+        escrow.setLeaseSize(0);
+
+        assertThat(escrow.charge(SPACE, "group", "role", 100, ID1), equalTo(false));
+        assertThat(escrow.update(ID1, f -> Change.REMOVE), equalTo(false));
+    }
+
+    @Test
+    public void shouldLeaseSpaceOnceUploadWasNotCharged() throws Exception {
+        lease();
+
+        verify(db).insertFile(SPACE, null, null, 1000, null, FileState.TRANSFERRING);
+        assertThat(escrow.charge(SPACE, "group", "role", 100, ID1), equalTo(true));
+        assertThat(escrow.getSpaceToken(ID1), equalTo(SPACE));
+    }
+
+    @Test
+    public void shouldNotLeaseMoreThanAvailable() throws Exception {
+        when(space.getAvailableSpaceInBytes()).thenReturn(150L);
+
+        lease();
+
+        verify(db).insertFile(SPACE, null, null, 150, null, FileState.TRANSFERRING);
+        assertThat(escrow.charge(SPACE, "group", "role", 100, ID1), equalTo(true));
+        assertThat(escrow.charge(SPACE, "group", "role", 100, ID2), equalTo(false));
+    }
+
+    @Test
+    public void shouldWritePendingFilesAndShrinkLease() throws Exception {
+        lease();
+        escrow.charge(SPACE, "group", "role", 100, ID1);
+        escrow.charge(SPACE, "group", "role", 200, ID2);
+        escrow.update(ID2, f -> {
+            f.setState(FileState.STORED);
+            f.setSizeInBytes(250);
+            return Change.UPDATE;
+        });
+
+        escrow.reconcile();
+
+        assertThat(lastInsertedFiles().stream()
+                    .map(f -> f.getPnfsId() + ":" + f.getState() + ":" + f.getSizeInBytes())
+                    .collect(Collectors.toList()),
+              contains(ID1 + ":TRANSFERRING:100", ID2 + ":STORED:250"));
+        ArgumentCaptor<File> record = ArgumentCaptor.forClass(File.class);
+        verify(db, atLeastOnce()).updateFile(record.capture());
+        assertThat(record.getValue().getId(), equalTo(LEASE));
+        assertThat(record.getValue().getSizeInBytes(), equalTo(700L));
+        assertThat(escrow.getSpaceToken(ID1), nullValue());
+    }
+
+    @Test
+    public void shouldReturnChargeOfRemovedFile() throws Exception {
+        lease();
+        escrow.charge(SPACE, "group", "role", 1000, ID1);
+
+        assertThat(escrow.update(ID1, f -> Change.REMOVE), equalTo(true));
+
+        assertThat(escrow.getSpaceToken(ID1), nullValue());
+        assertThat(escrow.charge(SPACE, "group", "role", 1000, ID2), equalTo(true));
+    }
+
+    @Test
+    public void shouldReturnUnusedLease() throws Exception {
+        lease();
+        escrow.charge(SPACE, "group", "role", 100, ID1);
+        escrow.reconcile();
+
+        escrow.reconcile();
+
+        verify(db).removeFile(LEASE);
+        assertThat(lastInsertedFiles(), empty());
+    }
+
+    @Test
+    public void shouldNotChargeReleasedReservation() throws Exception {
+        lease();
+
+        escrow.release(SPACE);
+
+        assertThat(escrow.charge(SPACE, "group", "role", 100, ID1), equalTo(false));
+        escrow.reconcile();
+        verify(db).removeFile(LEASE);
+    }
+
+    @Test
+    public void shouldNotChargeFileKnownToDatabase() throws Exception {
+        lease();
+        when(db.findFile(ID1)).thenReturn(mock(File.class));
+
+        assertThat(escrow.charge(SPACE, "group", "role", 100, ID1), equalTo(false));
+        assertThat(escrow.getSpaceToken(ID1), nullValue());
+    }
+
+    @Test
+    public void shouldKeepPendingFilesWhenWriteFails() throws Exception {
+        lease();
+        escrow.charge(SPACE, "group", "role", 100, ID1);
+        doThrow(new DataAccessResourceFailureException("connection lost"))
+              .when(db).insertFiles(any());
+
+        escrow.reconcile();
+
+        assertThat(escrow.getSpaceToken(ID1), equalTo(SPACE));
+        assertThat(escrow.update(ID1, f -> Change.NONE), equalTo(true));
+    }
+
+    @Test(timeout = 10_000)
+    public void shouldNotBlockUploadsWhileWriting() throws Exception {
+        lease();
+        escrow.charge(SPACE, "group", "role", 100, ID1);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            written.await();
+            return null;
+        }).when(db).insertFiles(any());
+        CompletableFuture<Void> reconciliation = CompletableFuture.runAsync(escrow::reconcile);
+        writing.await();
+
+        CompletableFuture<Boolean> update =
+              CompletableFuture.supplyAsync(() -> escrow.update(ID1, f -> Change.REMOVE));
+
+        assertThat(escrow.charge(SPACE, "group", "role", 100, ID2), equalTo(false));
+        assertThat(escrow.getSpaceToken(ID1), equalTo(SPACE));
+        assertThat(update.isDone(), equalTo(false));
+        written.countDown();
+        reconciliation.get();
+        assertThat(update.get(), equalTo(false));
+    }
+}
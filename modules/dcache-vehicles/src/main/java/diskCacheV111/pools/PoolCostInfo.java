@@ -301,6 +301,26 @@ public class PoolCostInfo implements Serializable {
         _extendedMoverHash.put(name, info);
     }
 
+    /**
+     * Returns a copy of this cost information with some parts replaced. Null arguments leave the
+     * corresponding part unchanged, as do mover queues not included in {@code movers}.
+     */
+    public PoolCostInfo withUpdate(PoolSpaceInfo space, PoolQueueInfo store, PoolQueueInfo restore,
+          PoolQueueInfo p2p, PoolQueueInfo p2pClient, Collection<NamedPoolQueueInfo> movers) {
+        PoolCostInfo info = new PoolCostInfo(_poolName, _defaultQueueName);
+        info._space = (space == null) ? _space : space;
+        info._store = (store == null) ? _store : store;
+        info._restore = (restore == null) ? _restore : restore;
+        info._p2p = (p2p == null) ? _p2p : p2p;
+        info._p2pClient = (p2pClient == null) ? _p2pClient : p2pClient;
+        info._extendedMoverHash.putAll(_extendedMoverHash);
+        for (NamedPoolQueueInfo queue : movers) {
+            info._extendedMoverHash.put(queue.getName(), queue);
+        }
+        info._moverCostFactor = _moverCostFactor;
+        return info;
+    }
+
     @Nonnull
     public Map<String, NamedPoolQueueInfo> getExtendedMoverHash() {
         return _extendedMoverHash;
@@ -0,0 +1,49 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package diskCacheV111.vehicles;
+
+import dmg.cells.nucleus.CellAddressCore;
+import java.util.Collection;
+
+/**
+ * Changes to the transfers of a door.  Entries are keyed by their serial id.
+ */
+public class DoorEventMessage extends TransferEventMessage<IoDoorEntry> {
+
+    private static final long serialVersionUID = 4512297751374186370L;
+
+    private final DoorInfo _door;
+
+    /**
+     * @param door description of the door; the detail is ignored
+     */
+    public DoorEventMessage(CellAddressCore source, long epoch, long sequence, boolean snapshot,
+          long expiry, DoorInfo door, Collection<IoDoorEntry> updated, long[] finished) {
+        super(source, epoch, sequence, snapshot, expiry, updated, finished);
+        _door = door;
+    }
+
+    public DoorInfo getDoor() {
+        return _door;
+    }
+
+    @Override
+    public long getKey(IoDoorEntry entry) {
+        return entry.getSerialId();
+    }
+}
@@ -0,0 +1,39 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package diskCacheV111.vehicles;
+
+import dmg.cells.nucleus.CellAddressCore;
+import java.util.Collection;
+
+/**
+ * Changes to the movers of a pool.  Entries are keyed by their job id.
+ */
+public class MoverEventMessage extends TransferEventMessage<IoJobInfo> {
+
+    private static final long serialVersionUID = -1201870245216633528L;
+
+    public MoverEventMessage(CellAddressCore source, long epoch, long sequence, boolean snapshot,
+          long expiry, Collection<IoJobInfo> updated, long[] finished) {
+        super(source, epoch, sequence, snapshot, expiry, updated, finished);
+    }
+
+    @Override
+    public long getKey(IoJobInfo entry) {
+        return entry.getJobId();
+    }
+}
@@ -0,0 +1,117 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package diskCacheV111.vehicles;
+
+import static java.util.Objects.requireNonNull;
+
+import diskCacheV111.util.PnfsId;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adds and removes cache locations of a single pool for a batch of files.
+ * <p>
+ * The updates are applied in the order in which they appear in the message.  The message as a
+ * whole succeeds even if individual updates fail; the outcome of each update is reported in the
+ * update itself.
+ */
+public class PnfsUpdateCacheLocationsMessage extends PnfsMessage {
+
+    private static final long serialVersionUID = -1866418815634582305L;
+
+    /**
+     * A single cache location change.
+     */
+    public static class Update implements Serializable {
+
+        private static final long serialVersionUID = 6313582236386104612L;
+
+        private final PnfsId _pnfsId;
+        private final boolean _isAdd;
+        private final boolean _removeIfLast;
+        private int _returnCode;
+        private String _errorMessage;
+
+        private Update(PnfsId pnfsId, boolean isAdd, boolean removeIfLast) {
+            _pnfsId = requireNonNull(pnfsId);
+            _isAdd = isAdd;
+            _removeIfLast = removeIfLast;
+        }
+
+        public static Update add(PnfsId pnfsId) {
+            return new Update(pnfsId, true, false);
+        }
+
+        public static Update clear(PnfsId pnfsId, boolean removeIfLast) {
+            return new Update(pnfsId, false, removeIfLast);
+        }
+
+        public PnfsId getPnfsId() {
+            return _pnfsId;
+        }
+
+        public boolean isAdd() {
+            return _isAdd;
+        }
+
+        public boolean removeIfLast() {
+            return _removeIfLast;
+        }
+
+        public void setFailed(int returnCode, String errorMessage) {
+            _returnCode = returnCode;
+            _errorMessage = errorMessage;
+        }
+
+        public int getReturnCode() {
+            return _returnCode;
+        }
+
+        public String getErrorMessage() {
+            return _errorMessage;
+        }
+
+        @Override
+        public String toString() {
+            return _pnfsId + (_isAdd ? ";adding" : ";removing") + (_removeIfLast ? ";removeIfLast"
+                  : "") + (_returnCode == 0 ? "" : ";rc=" + _returnCode);
+        }
+    }
+
+    private final String _poolName;
+    private final List<Update> _updates;
+
+    public PnfsUpdateCacheLocationsMessage(String poolName, List<Update> updates) {
+        _poolName = requireNonNull(poolName);
+        _updates = new ArrayList<>(updates);
+    }
+
+    public String getPoolName() {
+        return _poolName;
+    }
+
+    public List<Update> getUpdates() {
+        return _updates;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + ";Pool=" + _poolName + ";updates=" + _updates.size();
+    }
+}
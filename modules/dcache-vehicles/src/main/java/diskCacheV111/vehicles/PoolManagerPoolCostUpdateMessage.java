@@ -0,0 +1,146 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package diskCacheV111.vehicles;
+
+import static java.util.Objects.requireNonNull;
+
+import diskCacheV111.pools.PoolCostInfo;
+import diskCacheV111.pools.PoolCostInfo.NamedPoolQueueInfo;
+import diskCacheV111.pools.PoolCostInfo.PoolQueueInfo;
+import diskCacheV111.pools.PoolCostInfo.PoolSpaceInfo;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Notifies pool manager about significant changes in the cost of a pool between two {@link
+ * PoolManagerPoolUpMessage}s.
+ * <p>
+ * The message only carries those parts of the cost information that changed since the pool last
+ * reported its cost. Parts that are null are unchanged. Updates are numbered by a sequence shared
+ * with the PoolManagerPoolUpMessages of the pool; an update applies to the cost information of the
+ * same pool instance (serial ID) with a lower sequence number. Receivers that do not know the pool
+ * or missed its last full report ignore the update and wait for the next
+ * PoolManagerPoolUpMessage.
+ */
+public class PoolManagerPoolCostUpdateMessage extends PoolManagerMessage {
+
+    private static final long serialVersionUID = 3184027375513645092L;
+
+    private final String _poolName;
+    private final long _serialId;
+    private final long _sequence;
+    private PoolSpaceInfo _space;
+    private PoolQueueInfo _store;
+    private PoolQueueInfo _restore;
+    private PoolQueueInfo _p2p;
+    private PoolQueueInfo _p2pClient;
+    private final List<NamedPoolQueueInfo> _movers = new ArrayList<>();
+
+    public PoolManagerPoolCostUpdateMessage(String poolName, long serialId, long sequence) {
+        _poolName = requireNonNull(poolName);
+        _serialId = serialId;
+        _sequence = sequence;
+        setReplyRequired(false);
+    }
+
+    public String getPoolName() {
+        return _poolName;
+    }
+
+    public long getSerialId() {
+        return _serialId;
+    }
+
+    public long getSequence() {
+        return _sequence;
+    }
+
+    public PoolSpaceInfo getSpaceInfo() {
+        return _space;
+    }
+
+    public void setSpaceInfo(PoolSpaceInfo space) {
+        _space = space;
+    }
+
+    public PoolQueueInfo getStoreQueue() {
+        return _store;
+    }
+
+    public void setStoreQueue(PoolQueueInfo store) {
+        _store = store;
+    }
+
+    public PoolQueueInfo getRestoreQueue() {
+        return _restore;
+    }
+
+    public void setRestoreQueue(PoolQueueInfo restore) {
+        _restore = restore;
+    }
+
+    public PoolQueueInfo getP2pQueue() {
+        return _p2p;
+    }
+
+    public void setP2pQueue(PoolQueueInfo p2p) {
+        _p2p = p2p;
+    }
+
+    public PoolQueueInfo getP2pClientQueue() {
+        return _p2pClient;
+    }
+
+    public void setP2pClientQueue(PoolQueueInfo p2pClient) {
+        _p2pClient = p2pClient;
+    }
+
+    /**
+     * Returns the mover queues that changed.
+     */
+    public Collection<NamedPoolQueueInfo> getMoverQueues() {
+        return _movers;
+    }
+
+    public void addMoverQueue(NamedPoolQueueInfo queue) {
+        _movers.add(queue);
+    }
+
+    /**
+     * Returns whether the update contains no changes.
+     */
+    public boolean isEmpty() {
+        return _space == null && _store == null && _restore == null && _p2p == null
+              && _p2pClient == null && _movers.isEmpty();
+    }
+
+    /**
+     * Returns a copy of the given cost information with the changes applied.
+     */
+    public PoolCostInfo applyTo(PoolCostInfo info) {
+        return info.withUpdate(_space, _store, _restore, _p2p, _p2pClient, _movers);
+    }
+
+    @Override
+    public String toString() {
+        return "PoolCostUpdate[" + _poolName + ",serialId=" + _serialId + ",sequence=" + _sequence
+              + ",space=" + _space + ",store=" + _store + ",restore=" + _restore + ",p2p=" + _p2p
+              + ",p2pClient=" + _p2pClient + ",movers=" + _movers + "]";
+    }
+}
@@ -20,6 +20,7 @@ public class PoolManagerPoolUpMessage extends PoolManagerMessage {
     private Set<String> _hsmInstances = ImmutableSet.of();
     private String _message = "";
     private int _code;
+    private long _sequence;
 
     public PoolManagerPoolUpMessage(String poolName, long serialId,
           PoolV2Mode mode) {
@@ -96,6 +97,22 @@ public class PoolManagerPoolUpMessage extends PoolManagerMessage {
         return _code;
     }
 
+    /**
+     * Sets the sequence number of the cost information in this message. Subsequent {@link
+     * PoolManagerPoolCostUpdateMessage}s of the pool have higher sequence numbers.
+     */
+    public void setSequence(long sequence) {
+        _sequence = sequence;
+    }
+
+    /**
+     * Returns the sequence number of the cost information in this message, or 0 if the pool does
+     * not send cost updates.
+     */
+    public long getSequence() {
+        return _sequence;
+    }
+
     /**
      * Returns the mode of the pool. The mode indicates which operations are currently supported by
      * the pool.
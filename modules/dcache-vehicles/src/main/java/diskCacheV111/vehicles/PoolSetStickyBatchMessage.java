@@ -0,0 +1,114 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package diskCacheV111.vehicles;
+
+import static java.util.Objects.requireNonNull;
+
+import diskCacheV111.util.PnfsId;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sets or clears sticky flags of a batch of replicas on a single pool.
+ * <p>
+ * Each entry carries its own flag owner and expiration time. The message as a whole succeeds
+ * even if individual entries fail; the outcome of each entry is reported in the entry itself.
+ */
+public class PoolSetStickyBatchMessage extends PoolMessage {
+
+    private static final long serialVersionUID = 4120683926713874123L;
+
+    /**
+     * A sticky flag change of a single replica.
+     */
+    public static class Entry implements Serializable {
+
+        private static final long serialVersionUID = -3405982297311364412L;
+
+        private final PnfsId _pnfsId;
+        private final String _owner;
+        private final long _validTill;
+        private int _returnCode;
+        private String _errorMessage;
+
+        /**
+         * @param pnfsId    the replica
+         * @param owner     flag owner
+         * @param validTill time milliseconds since 00:00:00 1 Jan. 1970; ignored when clearing
+         */
+        public Entry(PnfsId pnfsId, String owner, long validTill) {
+            _pnfsId = requireNonNull(pnfsId);
+            _owner = requireNonNull(owner);
+            _validTill = validTill;
+        }
+
+        public PnfsId getPnfsId() {
+            return _pnfsId;
+        }
+
+        public String getOwner() {
+            return _owner;
+        }
+
+        public long getLifeTime() {
+            return _validTill;
+        }
+
+        public void setFailed(int returnCode, String errorMessage) {
+            _returnCode = returnCode;
+            _errorMessage = errorMessage;
+        }
+
+        public int getReturnCode() {
+            return _returnCode;
+        }
+
+        public String getErrorMessage() {
+            return _errorMessage;
+        }
+
+        @Override
+        public String toString() {
+            return _pnfsId + ";" + _owner + (_returnCode == 0 ? "" : ";rc=" + _returnCode);
+        }
+    }
+
+    private final boolean _sticky;
+    private final List<Entry> _entries;
+
+    public PoolSetStickyBatchMessage(String poolName, boolean sticky, List<Entry> entries) {
+        super(poolName);
+        setReplyRequired(true);
+        _sticky = sticky;
+        _entries = new ArrayList<>(entries);
+    }
+
+    public boolean isSticky() {
+        return _sticky;
+    }
+
+    public List<Entry> getEntries() {
+        return _entries;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + ";sticky=" + _sticky + ";entries=" + _entries.size();
+    }
+}
@@ -0,0 +1,125 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package diskCacheV111.vehicles;
+
+import static java.util.Objects.requireNonNull;
+
+import dmg.cells.nucleus.CellAddressCore;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Changes to the transfers of a door or the movers of a pool.
+ * <p>
+ * Publishers number their messages per source.  A message that carries changes has a sequence
+ * number one higher than the previous message; a message without changes is a heartbeat and
+ * repeats the sequence number of the previous message.  The epoch identifies an incarnation of the
+ * publisher, so a restarted source is not mistaken for a gap.  A subscriber that misses a message
+ * requests a snapshot from the source.
+ * <p>
+ * A snapshot lists all entries of the source and carries the sequence number of the last change
+ * it reflects.
+ *
+ * @param <T> type of the entries
+ */
+public abstract class TransferEventMessage<T extends Serializable> implements Serializable {
+
+    private static final long serialVersionUID = -3829218462530120217L;
+
+    private final CellAddressCore _source;
+    private final long _epoch;
+    private final long _sequence;
+    private final boolean _snapshot;
+    private final long _expiry;
+    private final ArrayList<T> _updated;
+    private final long[] _finished;
+
+    protected TransferEventMessage(CellAddressCore source, long epoch, long sequence,
+          boolean snapshot, long expiry, Collection<T> updated, long[] finished) {
+        _source = requireNonNull(source);
+        _epoch = epoch;
+        _sequence = sequence;
+        _snapshot = snapshot;
+        _expiry = expiry;
+        _updated = new ArrayList<>(updated);
+        _finished = finished.clone();
+    }
+
+    /**
+     * The cell publishing the message.
+     */
+    public CellAddressCore getSource() {
+        return _source;
+    }
+
+    public long getEpoch() {
+        return _epoch;
+    }
+
+    public long getSequence() {
+        return _sequence;
+    }
+
+    /**
+     * Whether the message lists all entries of the source rather than the changes since the
+     * previous message.
+     */
+    public boolean isSnapshot() {
+        return _snapshot;
+    }
+
+    /**
+     * Time in milliseconds after which the information of the source should be discarded unless
+     * another message is received.
+     */
+    public long getExpiry() {
+        return _expiry;
+    }
+
+    /**
+     * Entries that started or changed.
+     */
+    public List<T> getUpdated() {
+        return _updated;
+    }
+
+    /**
+     * Keys of entries that finished.
+     */
+    public long[] getFinished() {
+        return _finished;
+    }
+
+    public boolean hasChanges() {
+        return !_updated.isEmpty() || _finished.length > 0;
+    }
+
+    /**
+     * Returns the key of an entry, as used for {@link #getFinished}.
+     */
+    public abstract long getKey(T entry);
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + _source + ";" + _epoch + ";" + _sequence
+              + (_snapshot ? ";snapshot" : "") + ";updated=" + _updated.size()
+              + ";finished=" + _finished.length + "]";
+    }
+}
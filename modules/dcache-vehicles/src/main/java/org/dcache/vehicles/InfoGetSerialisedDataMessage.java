@@ -25,6 +25,16 @@ public class InfoGetSerialisedDataMessage extends Message {
      */
     private String _data;
 
+    /**
+     * The entity tag of the data the requester already has, if any.
+     */
+    private String _ifNoneMatch;
+
+    /**
+     * The entity tag of the serialised data.
+     */
+    private String _etag;
+
     /**
      * Request a complete dump of dCache's state in the specified serialisation.
      */
@@ -61,6 +71,37 @@ public class InfoGetSerialisedDataMessage extends Message {
         _data = serialisedData;
     }
 
+    /**
+     * Only send the serialised data if its entity tag differs from the one supplied.  The entity
+     * tag is obtained from an earlier reply.
+     */
+    public void setIfNoneMatch(String etag) {
+        _ifNoneMatch = etag;
+    }
+
+    public String getIfNoneMatch() {
+        return _ifNoneMatch;
+    }
+
+    /**
+     * Set the entity tag of the serialised data.  The entity tag changes whenever the serialised
+     * data changes.
+     */
+    public void setETag(String etag) {
+        _etag = etag;
+    }
+
+    public String getETag() {
+        return _etag;
+    }
+
+    /**
+     * Is true when no data was sent because the requester already has the current data.
+     */
+    public boolean isNotModified() {
+        return _data == null && _etag != null && _etag.equals(_ifNoneMatch);
+    }
+
     /**
      * Obtain the a List of path elements.
      *
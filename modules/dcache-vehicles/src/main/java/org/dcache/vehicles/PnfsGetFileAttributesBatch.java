@@ -0,0 +1,163 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.vehicles;
+
+import static java.util.Objects.requireNonNull;
+
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.vehicles.Message;
+import diskCacheV111.vehicles.PnfsMessage;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import org.dcache.namespace.FileAttribute;
+
+/**
+ * Requests the same attributes of many files identified by PNFS ID or path.
+ * <p>
+ * The message is meant for services that look up large numbers of files. The outcome of each
+ * lookup is reported in the corresponding {@link Entry}; the message as a whole only fails if the
+ * request could not be processed at all.  Large requests should be split into messages of at most
+ * {@link #MAX_ENTRIES} entries.
+ */
+public class PnfsGetFileAttributesBatch extends PnfsMessage {
+
+    private static final long serialVersionUID = 3390262950873441474L;
+
+    /**
+     * The recommended maximum number of entries of a single message.
+     */
+    public static final int MAX_ENTRIES = 1000;
+
+    /**
+     * The attributes of a single file.
+     */
+    public static class Entry implements Serializable {
+
+        private static final long serialVersionUID = -3406402342826596327L;
+
+        private PnfsId _pnfsId;
+        private final String _path;
+        private FileAttributes _fileAttributes;
+        private int _returnCode;
+        private String _errorMessage;
+
+        public Entry(PnfsId pnfsId) {
+            _pnfsId = requireNonNull(pnfsId);
+            _path = null;
+        }
+
+        public Entry(String path) {
+            _pnfsId = null;
+            _path = requireNonNull(path);
+        }
+
+        public PnfsId getPnfsId() {
+            return _pnfsId;
+        }
+
+        public void setPnfsId(PnfsId pnfsId) {
+            _pnfsId = pnfsId;
+        }
+
+        public String getPnfsPath() {
+            return _path;
+        }
+
+        public FileAttributes getFileAttributes() {
+            return _fileAttributes;
+        }
+
+        public void setFileAttributes(FileAttributes fileAttributes) {
+            _fileAttributes = fileAttributes;
+        }
+
+        public void setFailed(int returnCode, String errorMessage) {
+            _returnCode = returnCode;
+            _errorMessage = errorMessage;
+            _fileAttributes = null;
+        }
+
+        public int getReturnCode() {
+            return _returnCode;
+        }
+
+        public String getErrorMessage() {
+            return _errorMessage;
+        }
+
+        @Override
+        public String toString() {
+            return (_pnfsId != null ? _pnfsId.toString() : _path)
+                  + (_returnCode == 0 ? "" : ";rc=" + _returnCode);
+        }
+    }
+
+    private final Set<FileAttribute> _attributes;
+    private final List<Entry> _entries;
+
+    public PnfsGetFileAttributesBatch(Collection<Entry> entries, Set<FileAttribute> attr) {
+        _entries = new ArrayList<>(entries);
+        _attributes = requireNonNull(attr);
+        setReplyRequired(true);
+    }
+
+    /**
+     * Creates a request for the files with the given PNFS IDs.
+     */
+    public static PnfsGetFileAttributesBatch ofPnfsIds(Collection<PnfsId> ids,
+          Set<FileAttribute> attr) {
+        List<Entry> entries = new ArrayList<>(ids.size());
+        ids.forEach(id -> entries.add(new Entry(id)));
+        return new PnfsGetFileAttributesBatch(entries, attr);
+    }
+
+    /**
+     * Creates a request for the files with the given paths.
+     */
+    public static PnfsGetFileAttributesBatch ofPaths(Collection<String> paths,
+          Set<FileAttribute> attr) {
+        List<Entry> entries = new ArrayList<>(paths.size());
+        paths.forEach(path -> entries.add(new Entry(path)));
+        return new PnfsGetFileAttributesBatch(entries, attr);
+    }
+
+    /**
+     * Get set of requested {@link FileAttribute}s.  PnfsManager may return less attributes than
+     * requested.
+     */
+    public Set<FileAttribute> getRequestedAttributes() {
+        return _attributes;
+    }
+
+    public List<Entry> getEntries() {
+        return _entries;
+    }
+
+    @Override
+    public boolean invalidates(Message message) {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + ";entries=" + _entries.size() + ";attributes=" + _attributes;
+    }
+}
@@ -128,6 +128,7 @@ import org.dcache.auth.attributes.Restrictions;
 import org.dcache.cells.CellStub;
 import org.dcache.http.AuthenticationHandler;
 import org.dcache.http.PathMapper;
+import org.dcache.kafka.KafkaEventPublisher;
 import org.dcache.missingfiles.AlwaysFailMissingFileStrategy;
 import org.dcache.missingfiles.MissingFileStrategy;
 import org.dcache.namespace.FileAttribute;
@@ -137,6 +138,7 @@ import org.dcache.util.Args;
 import org.dcache.util.Checksum;
 import org.dcache.util.ChecksumType;
 import org.dcache.util.Checksums;
+import org.dcache.util.DoorEventPublisher;
 import org.dcache.util.Exceptions;
 import org.dcache.util.NetworkUtils;
 import org.dcache.util.PingMoversTask;
@@ -156,7 +158,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.kafka.KafkaException;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.stringtemplate.v4.AutoIndentWriter;
 import org.stringtemplate.v4.ST;
 
@@ -274,8 +275,8 @@ public class DcacheResourceFactory
     }
 
     @Autowired(required = false)
-    private void setTransferTemplate(KafkaTemplate kafkaTemplate) {
-        _kafkaSender = kafkaTemplate::sendDefault;
+    private void setKafkaPublisher(KafkaEventPublisher kafkaPublisher) {
+        _kafkaSender = kafkaPublisher;
     }
 
     @Required
@@ -509,6 +510,13 @@ public class DcacheResourceFactory
         _poolStub = stub;
     }
 
+    /**
+     * Sets the publisher of changes to the transfers of this door.
+     */
+    public void setTransferEventPublisher(DoorEventPublisher publisher) {
+        publisher.setDoorInfoSupplier(this::getIoDoorInfo);
+    }
+
     /**
      * Sets the cell stub for PoolManager communication.
      *
@@ -1516,6 +1524,11 @@ public class DcacheResourceFactory
     public static final String hh_get_door_info = "[-binary]";
 
     public Object ac_get_door_info(Args args) {
+        IoDoorInfo doorInfo = getIoDoorInfo();
+        return args.hasOption("binary") ? doorInfo : doorInfo.toString();
+    }
+
+    private IoDoorInfo getIoDoorInfo() {
         List<IoDoorEntry> transfers = new ArrayList<>();
         _remoteTransferHandler.addTransfers(transfers);
         for (Transfer transfer : _transfers.values()) {
@@ -1527,7 +1540,7 @@ public class DcacheResourceFactory
         doorInfo.setOwner("");
         doorInfo.setProcess("");
         doorInfo.setIoDoorEntries(transfers.toArray(IoDoorEntry[]::new));
-        return args.hasOption("binary") ? doorInfo : doorInfo.toString();
+        return doorInfo;
     }
 
     private void initializeTransfer(HttpTransfer transfer, Subject subject)
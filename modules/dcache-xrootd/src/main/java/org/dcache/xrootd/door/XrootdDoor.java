@@ -102,6 +102,7 @@ import org.dcache.auth.attributes.Activity;
 import org.dcache.auth.attributes.Restriction;
 import org.dcache.cells.CellStub;
 import org.dcache.cells.MessageCallback;
+import org.dcache.kafka.KafkaEventPublisher;
 import org.dcache.namespace.ACLPermissionHandler;
 import org.dcache.namespace.ChainedPermissionHandler;
 import org.dcache.namespace.CreateOption;
@@ -112,6 +113,7 @@ import org.dcache.namespace.PosixPermissionHandler;
 import org.dcache.poolmanager.PoolManagerStub;
 import org.dcache.poolmanager.PoolMonitor;
 import org.dcache.util.Checksum;
+import org.dcache.util.DoorEventPublisher;
 import org.dcache.util.FireAndForgetTask;
 import org.dcache.util.NettyPortRange;
 import org.dcache.util.NetworkUtils;
@@ -139,7 +141,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.kafka.KafkaException;
-import org.springframework.kafka.core.KafkaTemplate;
 
 /**
  * Shared cell component used to interface with the rest of dCache.
@@ -228,9 +229,9 @@ public class XrootdDoor
     private UnionLoginStrategy.AccessLevel anonymousUserAccess = AccessLevel.NONE;
 
     @Autowired(required = false)
-    private void setKafkaTemplate(
-          @Qualifier("billing-template") KafkaTemplate kafkaTemplate) {
-        _kafkaSender = kafkaTemplate::sendDefault;
+    private void setKafkaPublisher(
+          @Qualifier("billing-publisher") KafkaEventPublisher kafkaPublisher) {
+        _kafkaSender = kafkaPublisher;
     }
 
     public void setProxyGroups(EventLoopGroup acceptGroup, EventLoopGroup socketGroup,
@@ -410,6 +411,10 @@ public class XrootdDoor
         lb.addConsumer(this::acceptLoginBrokerInfo);
     }
 
+    public void setTransferEventPublisher(DoorEventPublisher publisher) {
+        publisher.setDoorInfoSupplier(this::getIoDoorInfo);
+    }
+
     private synchronized void acceptLoginBrokerInfo(Optional<LoginBrokerInfo> info)
     {
         _loginBrokerInfo = info;
@@ -1296,20 +1301,25 @@ public class XrootdDoor
 
         @Override
         public Serializable call() throws Exception {
-            List<IoDoorEntry> entries = new ArrayList<>();
-            for (Transfer transfer : _transfers.values()) {
-                entries.add(transfer.getIoDoorEntry());
-            }
-
-            IoDoorInfo doorInfo = new IoDoorInfo(getCellName(), getCellDomainName());
-            doorInfo.setProtocol(XROOTD_PROTOCOL_STRING, XROOTD_PROTOCOL_VERSION);
-            doorInfo.setOwner("");
-            doorInfo.setProcess("");
-            doorInfo.setIoDoorEntries(entries.toArray(IoDoorEntry[]::new));
+            IoDoorInfo doorInfo = getIoDoorInfo();
             return binary ? doorInfo : doorInfo.toString();
         }
     }
 
+    private IoDoorInfo getIoDoorInfo() {
+        List<IoDoorEntry> entries = new ArrayList<>();
+        for (Transfer transfer : _transfers.values()) {
+            entries.add(transfer.getIoDoorEntry());
+        }
+
+        IoDoorInfo doorInfo = new IoDoorInfo(getCellName(), getCellDomainName());
+        doorInfo.setProtocol(XROOTD_PROTOCOL_STRING, XROOTD_PROTOCOL_VERSION);
+        doorInfo.setOwner("");
+        doorInfo.setProcess("");
+        doorInfo.setIoDoorEntries(entries.toArray(IoDoorEntry[]::new));
+        return doorInfo;
+    }
+
     @Command(name = "kill mover", hint = "Kill transfer on the pool.",
           description = "Submits request to kill mover to the pool.")
     class KillMover implements Callable<String> {
@@ -61,6 +61,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.annotation.concurrent.GuardedBy;
 import org.dcache.namespace.FileAttribute;
 import org.dcache.pool.movers.NettyTransferService;
+import org.dcache.pool.movers.ReadThrottle;
 import org.dcache.pool.repository.OutOfDiskException;
 import org.dcache.pool.repository.RepositoryChannel;
 import org.dcache.util.Version;
@@ -165,6 +166,11 @@ public class XrootdPoolRequestHandler extends AbstractXrootdRequestHandler {
      */
     private final Map<String, String> _queryConfig;
 
+    /**
+     * Suspends reading further requests while the bandwidth limits of a mover are exceeded.
+     */
+    private final ReadThrottle _readThrottle = new ReadThrottle();
+
     /**
      * The switch from synchronized collection to read-write lock is to facilitate removing write
      * descriptors on inactive channel events. This is to avoid allowing a subsequent write call to
@@ -616,7 +622,9 @@ public class XrootdPoolRequestHandler extends AbstractXrootdRequestHandler {
         if (msg.bytesToRead() == 0) {
             return withOk(msg);
         } else {
-            return new ChunkedFileDescriptorReadResponse(msg, _maxFrameSize, getDescriptor(fd));
+            FileDescriptor descriptor = getDescriptor(fd);
+            _readThrottle.suspend(ctx.channel(), descriptor.getChannel().getBandwidthDelay());
+            return new ChunkedFileDescriptorReadResponse(msg, _maxFrameSize, descriptor);
         }
     }
 
@@ -637,13 +645,15 @@ public class XrootdPoolRequestHandler extends AbstractXrootdRequestHandler {
             throw new XrootdException(kXR_ArgMissing, "Request contains no vector");
         }
 
+        long delay = 0;
         for (EmbeddedReadRequest req : list) {
             int fd = req.getFileHandle();
 
             /*
              * checks for validity.
              */
-            getDescriptor(fd);
+            FileDescriptor descriptor = getDescriptor(fd);
+            delay = Math.max(delay, descriptor.getChannel().getBandwidthDelay());
 
             int totalBytesToRead = req.BytesToRead() +
                   ReadVResponse.READ_LIST_HEADER_SIZE;
@@ -656,6 +666,7 @@ public class XrootdPoolRequestHandler extends AbstractXrootdRequestHandler {
             }
         }
 
+        _readThrottle.suspend(ctx.channel(), delay);
         return new ChunkedFileDescriptorReadvResponse(msg, _maxFrameSize, copyDescriptors());
     }
 
@@ -686,6 +697,7 @@ public class XrootdPoolRequestHandler extends AbstractXrootdRequestHandler {
             }
 
             descriptor.write(msg);
+            _readThrottle.suspend(ctx.channel(), descriptor.getChannel().getBandwidthDelay());
             return withOk(msg);
         } catch (OutOfDiskException e) {
             throw new XrootdException(kXR_NoSpace, e.getMessage());
@@ -0,0 +1,168 @@
+package diskCacheV111.admin;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Splitter;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reduces the replies of many cells to a single result.
+ * <p>
+ * Replies are split into lines and lines into whitespace separated columns. A reducer is described
+ * by a specification of the form FUNCTION[:COLUMN][/GROUP] where FUNCTION is one of count, sum,
+ * min or max, COLUMN is the (one based) column to aggregate and GROUP is the column by which
+ * lines are grouped. Lines lacking any of these columns, or in which COLUMN is not a number, are
+ * ignored.
+ * <p>
+ * Instances are not thread safe.
+ */
+class ReplyReducer {
+
+    private static final Splitter COLUMNS =
+          Splitter.on(CharMatcher.whitespace()).omitEmptyStrings();
+
+    private enum Function {
+        COUNT, SUM, MIN, MAX
+    }
+
+    private static class Aggregate {
+
+        private long count;
+        private BigDecimal sum = BigDecimal.ZERO;
+        private BigDecimal min;
+        private BigDecimal max;
+
+        private void add(BigDecimal value) {
+            count++;
+            if (value != null) {
+                sum = sum.add(value);
+                min = (min == null) ? value : min.min(value);
+                max = (max == null) ? value : max.max(value);
+            }
+        }
+
+        private String get(Function function) {
+            switch (function) {
+                case COUNT:
+                    return String.valueOf(count);
+                case SUM:
+                    return sum.toPlainString();
+                case MIN:
+                    return (min == null) ? "-" : min.toPlainString();
+                case MAX:
+                    return (max == null) ? "-" : max.toPlainString();
+                default:
+                    throw new IllegalStateException("Unexpected function: " + function);
+            }
+        }
+    }
+
+    private final String specification;
+    private final Function function;
+    private final int column;
+    private final int group;
+    private final Map<String, Aggregate> aggregates = new TreeMap<>();
+    private int replies;
+
+    private ReplyReducer(String specification, Function function, int column, int group) {
+        this.specification = specification;
+        this.function = function;
+        this.column = column;
+        this.group = group;
+    }
+
+    /**
+     * Creates a reducer from a specification of the form FUNCTION[:COLUMN][/GROUP].
+     *
+     * @throws IllegalArgumentException if the specification is malformed
+     */
+    static ReplyReducer parse(String specification) {
+        String s = specification;
+        int group = 0;
+        int slash = s.indexOf('/');
+        if (slash > -1) {
+            group = parseColumn(s.substring(slash + 1), specification);
+            s = s.substring(0, slash);
+        }
+        int column = 0;
+        int colon = s.indexOf(':');
+        if (colon > -1) {
+            column = parseColumn(s.substring(colon + 1), specification);
+            s = s.substring(0, colon);
+        }
+
+        Function function;
+        try {
+            function = Function.valueOf(s.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown function in " + specification
+                  + "; use one of count, sum, min or max.");
+        }
+        checkArgument(function == Function.COUNT || column > 0,
+              "Function %s requires a column, e.g. %s:2", s, s);
+        return new ReplyReducer(specification, function, column, group);
+    }
+
+    private static int parseColumn(String s, String specification) {
+        try {
+            int column = Integer.parseInt(s);
+            checkArgument(column > 0, "Columns are numbered from 1: %s", specification);
+            return column;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid column in " + specification + ": " + s);
+        }
+    }
+
+    /**
+     * Adds the reply of a cell.
+     */
+    void add(String reply) {
+        replies++;
+        for (String line : reply.split("\n")) {
+            List<String> columns = COLUMNS.splitToList(line);
+            if (columns.isEmpty() || columns.size() < Math.max(column, group)) {
+                continue;
+            }
+
+            BigDecimal value = null;
+            if (column > 0) {
+                try {
+                    value = new BigDecimal(columns.get(column - 1));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+            }
+            String key = (group > 0) ? columns.get(group - 1) : "";
+            aggregates.computeIfAbsent(key, k -> new Aggregate()).add(value);
+        }
+    }
+
+    /**
+     * Returns the number of replies added.
+     */
+    int getReplies() {
+        return replies;
+    }
+
+    /**
+     * Returns the result, one line per group.
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        if (group == 0) {
+            Aggregate aggregate = aggregates.getOrDefault("", new Aggregate());
+            result.append(specification).append(" = ").append(aggregate.get(function))
+                  .append('\n');
+        } else {
+            aggregates.forEach((key, aggregate) -> result.append(key).append(' ')
+                  .append(aggregate.get(function)).append('\n'));
+        }
+        return result.toString();
+    }
+}
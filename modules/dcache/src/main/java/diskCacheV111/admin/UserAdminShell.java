@@ -65,14 +65,19 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -119,7 +124,7 @@ public class UserAdminShell
      */
     private static final StringsCompleter SHELL_COMMAND_COMPLETER =
           new StringsCompleter("\\c", "\\exception", "\\l", "\\s", "\\sl", "\\sn",
-                "\\sp", "\\timeout", "\\q", "\\h", "\\?");
+                "\\sp", "\\sr", "\\timeout", "\\q", "\\h", "\\?");
 
     /**
      * Communication endpoint of the admin cell.
@@ -179,6 +184,17 @@ public class UserAdminShell
      */
     private long _timeout = TimeUnit.MINUTES.toMillis(5);
 
+    /**
+     * Maximum number of outstanding requests when sending a command to many cells.
+     */
+    private int _fanOutLimit = 100;
+
+    /**
+     * Where replies from many cells are written as they arrive. If null, the replies are
+     * collected and returned as the result of the command.
+     */
+    private PrintWriter _output;
+
     /**
      * Whether to provide a full stack trace when cell commands result in an exception. This is a
      * debugging feature and can be enabled using the {@literal \exception} command.
@@ -241,6 +257,19 @@ public class UserAdminShell
         _list = list;
     }
 
+    public void setFanOutLimit(int limit) {
+        checkArgument(limit > 0, "Fan-out limit must be positive.");
+        _fanOutLimit = limit;
+    }
+
+    /**
+     * Sets the writer to which replies of commands sent to many cells are streamed as they
+     * arrive.
+     */
+    public void setOutput(PrintWriter output) {
+        _output = output;
+    }
+
     @Override
     protected Serializable doExecute(CommandEntry entry, Args args, String[] acls)
           throws CommandException {
@@ -767,18 +796,61 @@ public class UserAdminShell
                 return sendObject(destination, command);
             }
 
-            /* Expand wildcards.
-             */
-            Map<Boolean, List<String>> expandable =
-                  StreamSupport.stream(Glob.expandList(destination).spliterator(), false)
-                        .collect(partitioningBy(UserAdminShell::isExpandable));
-            Iterable<String> destinations = concat(expandable.get(false),
-                  expandCellPatterns(expandable.get(true)));
+            return sendToMany(expandDestinations(destination), command, null);
+        }
+    }
+
+    @Command(name = "\\sr", hint = "send command and reduce replies",
+          description = "Sends COMMAND to one or more cells and combines the replies into a " +
+                "single result. Each line of a reply is split into whitespace separated " +
+                "columns. The first argument has the form FUNCTION[:COLUMN][/GROUP], where " +
+                "FUNCTION is one of count, sum, min or max, COLUMN is the number of the column " +
+                "to aggregate and GROUP is the number of the column by which lines are grouped. " +
+                "Columns are numbered from 1. Lines without these columns, or in which COLUMN " +
+                "is not a number, are ignored. For instance, 'sum:2/1' sums the second column " +
+                "for each distinct value of the first column.\n\n" +
+                "Failed cells are reported as they fail; the combined result is shown once " +
+                "all cells replied.")
+    class SendReduceCommand implements Callable<Serializable> {
+
+        @Argument(index = 0, valueSpec = "FUNCTION[:COLUMN][/GROUP]",
+              usage = "How to combine the replies.")
+        String reducer;
+
+        @Argument(index = 1, valueSpec = "(CELL[@DOMAIN]|POOL/POOLGROUP)[,(CELL[@DOMAIN]|POOL/POOLGROUP)]...",
+              usage = "List of cell addresses. Wildcards are expanded. An empty CELL, DOMAIN, " +
+                    "POOL or POOLGROUP string matches any name.")
+        String destination;
 
-            return sendToMany(destinations, command);
+        @Argument(index = 2, usage = "A cell command.")
+        String[] command;
+
+        @CommandLine(allowAnyOption = true, valueSpec = "[OPTIONS]")
+        Args args;
+
+        @Override
+        public Serializable call()
+              throws InterruptedException, ExecutionException, CacheException, AclException,
+              NoRouteToCellException {
+            ReplyReducer reducer = ReplyReducer.parse(this.reducer);
+            args.shift(2);
+            AuthorizedString command = new AuthorizedString(_user, args.toString());
+            return sendToMany(expandDestinations(destination), command, reducer);
         }
     }
 
+    /**
+     * Expands a comma separated list of destinations with wildcards into a list of cells.
+     */
+    private Iterable<String> expandDestinations(String destination)
+          throws InterruptedException, ExecutionException, CacheException,
+          NoRouteToCellException {
+        Map<Boolean, List<String>> expandable =
+              StreamSupport.stream(Glob.expandList(destination).spliterator(), false)
+                    .collect(partitioningBy(UserAdminShell::isExpandable));
+        return concat(expandable.get(false), expandCellPatterns(expandable.get(true)));
+    }
+
     @Command(name = "\\sl", hint = "send to locations",
           description = "Sends COMMAND to all pools hosting a copy of the given file. If the " +
                 "string $1 occurs in the command, the string is replaced by the PNFS ID " +
@@ -803,7 +875,7 @@ public class UserAdminShell
             AuthorizedString command =
                   new AuthorizedString(_user,
                         args.toString().replace("$1", attributes.getPnfsId().toString()));
-            return sendToMany(attributes.getLocations(), command);
+            return sendToMany(attributes.getLocations(), command, null);
         }
     }
 
@@ -954,6 +1026,15 @@ public class UserAdminShell
         return -1;
     }
 
+    /**
+     * Completes the arguments of the \\sr command. The reducer is not completed.
+     */
+    private int completeSendReduceCommand(String buffer, int cursor,
+          List<CharSequence> candidates) {
+        Completable arguments = new Completable(buffer, cursor, candidates);
+        return arguments.hasTail() ? arguments.completeTail(this::completeSendCommand) : -1;
+    }
+
     /**
      * Completes a name space path. This will query pnfs manager to obtain a directory listing with
      * possible candidates.
@@ -1063,6 +1144,8 @@ public class UserAdminShell
                 return command.completeTail(this::completeListCommand);
             case "\\s":
                 return command.completeTail(this::completeSendCommand);
+            case "\\sr":
+                return command.completeTail(this::completeSendReduceCommand);
             case "\\sl":
                 return command.completeTail(this::completeSendLocationsCommand);
             case "\\sp":
@@ -1175,10 +1258,16 @@ public class UserAdminShell
     }
 
     /**
-     * Concurrently sends a command to several cells and collects the result from each.
+     * Concurrently sends a command to several cells and reports the result from each.
+     * <p>
+     * At most {@code _fanOutLimit} requests are outstanding at any time, each subject to the
+     * command timeout. Replies are reported in the order they arrive: if an output writer has
+     * been set they are written to it immediately, otherwise they are collected and returned. If
+     * a reducer is given, successful replies are passed to the reducer rather than reported, and
+     * the reduced result is returned once all cells have replied.
      */
-    private String sendToMany(Iterable<String> destinations, Serializable object)
-          throws AclException {
+    private String sendToMany(Iterable<String> destinations, Serializable object,
+          ReplyReducer reducer) throws AclException {
         /* Check permissions */
         try {
             checkPermission("cell.*.execute");
@@ -1188,50 +1277,100 @@ public class UserAdminShell
             }
         }
 
-        /* Submit */
-        List<Map.Entry<String, ListenableFuture<Serializable>>> futures = new ArrayList<>();
-        for (String cell : destinations) {
-            futures.add(immutableEntry(cell,
-                  _cellStub.send(new CellPath(cell), object, Serializable.class, _timeout)));
-        }
-
-        /* Collect results */
         StringBuilder result = new StringBuilder();
-        for (Map.Entry<String, ListenableFuture<Serializable>> entry : futures) {
-            result.append(Ansi.ansi().bold().a(entry.getKey()).boldOff()).append(":");
-            try {
-                String reply = Objects.toString(entry.getValue().get(), "");
-                if (reply.isEmpty()) {
-                    result.append(Ansi.ansi().fg(GREEN).a(" OK").reset()).append("\n");
-                } else {
-                    result.append("\n");
-                    for (String s : reply.split("\n")) {
-                        result.append("    ").append(s).append("\n");
-                    }
+        Iterator<String> remaining = destinations.iterator();
+        Set<ListenableFuture<Serializable>> outstanding = new HashSet<>();
+        BlockingQueue<Map.Entry<String, ListenableFuture<Serializable>>> replies =
+              new LinkedBlockingQueue<>();
+        int cells = 0;
+        int failed = 0;
+        try {
+            while (true) {
+                /* Submit */
+                while (outstanding.size() < _fanOutLimit && remaining.hasNext()) {
+                    String cell = remaining.next();
+                    ListenableFuture<Serializable> future =
+                          _cellStub.send(new CellPath(cell), object, Serializable.class, _timeout);
+                    future.addListener(() -> replies.add(immutableEntry(cell, future)),
+                          MoreExecutors.directExecutor());
+                    outstanding.add(future);
+                    cells++;
                 }
-            } catch (ExecutionException e) {
-                Throwable cause = e.getCause();
-                if (cause instanceof NoRouteToCellException) {
-                    result.append(Ansi.ansi().fg(RED).a(" Cell is unreachable.").reset())
-                          .append("\n");
-                } else {
-                    result.append(" ").append(Ansi.ansi().fg(RED).a(cause.getMessage()).reset())
-                          .append("\n");
+                if (outstanding.isEmpty()) {
+                    break;
                 }
-            } catch (InterruptedException e) {
-                result.append(" ^C\n");
 
-                /* Cancel all uncompleted tasks. Doesn't actually cancel any requests, but will cause
-                 * the remaining uncompleted futures to throw a CancellationException.
-                 */
-                for (Map.Entry<String, ListenableFuture<Serializable>> entry2 : futures) {
-                    entry2.getValue().cancel(true);
+                /* Report the next reply */
+                Map.Entry<String, ListenableFuture<Serializable>> entry = replies.take();
+                outstanding.remove(entry.getValue());
+                if (reducer != null && isSuccessful(entry.getValue())) {
+                    reducer.add(Objects.toString(Futures.getUnchecked(entry.getValue()), ""));
+                } else {
+                    failed += isSuccessful(entry.getValue()) ? 0 : 1;
+                    report(result, formatReply(entry.getKey(), entry.getValue()));
                 }
-            } catch (CancellationException e) {
-                result.append(" ^C\n");
             }
+        } catch (InterruptedException e) {
+            /* Doesn't actually cancel any requests, but stops waiting for them.
+             */
+            outstanding.forEach(f -> f.cancel(true));
+            report(result, "^C\n");
+            return result.toString();
+        }
+
+        if (reducer != null) {
+            report(result, reducer.toString());
+            if (failed > 0) {
+                report(result, Ansi.ansi().fg(RED).a("(" + failed + " of " + cells
+                      + " cells failed)").reset() + "\n");
+            }
+        }
+        return result.toString();
+    }
+
+    private void report(StringBuilder result, String s) {
+        if (_output != null) {
+            _output.print(s);
+            _output.flush();
+        } else {
+            result.append(s);
+        }
+    }
+
+    private static boolean isSuccessful(ListenableFuture<Serializable> future) {
+        try {
+            Futures.getDone(future);
+            return true;
+        } catch (ExecutionException | CancellationException e) {
+            return false;
         }
+    }
 
+    private static String formatReply(String cell, ListenableFuture<Serializable> future) {
+        StringBuilder result = new StringBuilder();
+        result.append(Ansi.ansi().bold().a(cell).boldOff()).append(":");
+        try {
+            String reply = Objects.toString(Futures.getDone(future), "");
+            if (reply.isEmpty()) {
+                result.append(Ansi.ansi().fg(GREEN).a(" OK").reset()).append("\n");
+            } else {
+                result.append("\n");
+                for (String s : reply.split("\n")) {
+                    result.append("    ").append(s).append("\n");
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof NoRouteToCellException) {
+                result.append(Ansi.ansi().fg(RED).a(" Cell is unreachable.").reset())
+                      .append("\n");
+            } else {
+                result.append(" ").append(Ansi.ansi().fg(RED).a(cause.getMessage()).reset())
+                      .append("\n");
+            }
+        } catch (CancellationException e) {
+            result.append(" ^C\n");
+        }
         return result.toString();
     }
 
@@ -24,6 +24,7 @@ import diskCacheV111.util.CacheException;
 import diskCacheV111.util.FsPath;
 import diskCacheV111.util.PnfsId;
 import diskCacheV111.util.RetentionPolicy;
+import diskCacheV111.vehicles.PnfsUpdateCacheLocationsMessage;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -35,6 +36,7 @@ import org.dcache.namespace.ListHandler;
 import org.dcache.util.ChecksumType;
 import org.dcache.util.Glob;
 import org.dcache.vehicles.FileAttributes;
+import org.dcache.vehicles.PnfsGetFileAttributesBatch;
 
 /**
  * An implementation of NameSpaceProvider that forwards all requests to some other
@@ -137,12 +139,24 @@ public abstract class ForwardingNameSpaceProvider implements NameSpaceProvider {
         delegate().clearCacheLocation(subject, pnfsId, cacheLocation, removeIfLast);
     }
 
+    @Override
+    public void updateCacheLocations(Subject subject, String cacheLocation,
+          List<PnfsUpdateCacheLocationsMessage.Update> updates) {
+        delegate().updateCacheLocations(subject, cacheLocation, updates);
+    }
+
     @Override
     public FileAttributes getFileAttributes(Subject subject, PnfsId pnfsId,
           Set<FileAttribute> attr) throws CacheException {
         return delegate().getFileAttributes(subject, pnfsId, attr);
     }
 
+    @Override
+    public void getFileAttributesBatch(Subject subject,
+          List<PnfsGetFileAttributesBatch.Entry> entries, Set<FileAttribute> attr) {
+        delegate().getFileAttributesBatch(subject, entries, attr);
+    }
+
     @Override
     public FileAttributes setFileAttributes(Subject subject, PnfsId pnfsId,
           FileAttributes attr, Set<FileAttribute> fetch) throws CacheException {
@@ -28,10 +28,12 @@ import diskCacheV111.util.CacheException;
 import diskCacheV111.util.FileNotFoundCacheException;
 import diskCacheV111.util.FsPath;
 import diskCacheV111.util.PnfsId;
+import diskCacheV111.vehicles.PnfsUpdateCacheLocationsMessage;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -407,6 +409,26 @@ public class MonitoringNameSpaceProvider extends ForwardingNameSpaceProvider {
               l.getParent(), l.getName(), FileType.REGULAR));
     }
 
+    @Override
+    public void updateCacheLocations(Subject subject, String cacheLocation,
+          List<PnfsUpdateCacheLocationsMessage.Update> updates) {
+        List<Collection<Link>> links = updates.stream()
+              .map(u -> find(u.getPnfsId()))
+              .collect(Collectors.toList());
+
+        super.updateCacheLocations(subject, cacheLocation, updates);
+
+        for (int i = 0; i < updates.size(); i++) {
+            PnfsUpdateCacheLocationsMessage.Update update = updates.get(i);
+            if (update.getReturnCode() == 0) {
+                eventReceiver.notifySelfEvent(EventType.IN_ATTRIB, update.getPnfsId(),
+                      FileType.REGULAR);
+                links.get(i).forEach(l -> eventReceiver.notifyChildEvent(EventType.IN_ATTRIB,
+                      l.getParent(), l.getName(), FileType.REGULAR));
+            }
+        }
+    }
+
     @Override
     public FileAttributes commitUpload(Subject subject, FsPath uploadPath,
           FsPath path, Set<CreateOption> options, Set<FileAttribute> fetch)
@@ -10,6 +10,7 @@ import diskCacheV111.util.NoAttributeCacheException;
 import diskCacheV111.util.PermissionDeniedCacheException;
 import diskCacheV111.util.PnfsId;
 import diskCacheV111.util.RetentionPolicy;
+import diskCacheV111.vehicles.PnfsUpdateCacheLocationsMessage;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -22,6 +23,7 @@ import org.dcache.namespace.ListHandler;
 import org.dcache.util.ChecksumType;
 import org.dcache.util.Glob;
 import org.dcache.vehicles.FileAttributes;
+import org.dcache.vehicles.PnfsGetFileAttributesBatch;
 
 /**
  * Any mechanism of storing dCache namespace must implement this interface.
@@ -247,6 +249,31 @@ public interface NameSpaceProvider {
     void clearCacheLocation(Subject subject, PnfsId pnfsId, String cacheLocation,
           boolean removeIfLast) throws CacheException;
 
+    /**
+     * Apply a sequence of cache location changes of a single pool. The updates are applied in
+     * order. The failure of an individual update does not abort the remaining updates; instead
+     * the failure is recorded in the update.
+     *
+     * @param subject       Subject of user who invoked this method.
+     * @param cacheLocation the pool whose locations are changed
+     * @param updates       the changes to apply
+     */
+    default void updateCacheLocations(Subject subject, String cacheLocation,
+          List<PnfsUpdateCacheLocationsMessage.Update> updates) {
+        for (PnfsUpdateCacheLocationsMessage.Update update : updates) {
+            try {
+                if (update.isAdd()) {
+                    addCacheLocation(subject, update.getPnfsId(), cacheLocation);
+                } else {
+                    clearCacheLocation(subject, update.getPnfsId(), cacheLocation,
+                          update.removeIfLast());
+                }
+            } catch (CacheException e) {
+                update.setFailed(e.getRc(), e.getMessage());
+            }
+        }
+    }
+
     /**
      * Get files attributes defined by <code>attr</code>. It's allowed to return less attributes
      * than requested. Empty <code>attr</code> equals to file existence check.
@@ -260,6 +287,28 @@ public interface NameSpaceProvider {
           Set<FileAttribute> attr)
           throws CacheException;
 
+    /**
+     * Get the same attributes of several files. The outcome of each lookup is recorded in the
+     * corresponding entry; entries without a PNFS ID are skipped.
+     *
+     * @param subject Subject of user who invoked this method.
+     * @param entries the files to look up
+     * @param attr    the requested attributes
+     * @see #getFileAttributes(Subject, PnfsId, Set)
+     */
+    default void getFileAttributesBatch(Subject subject,
+          List<PnfsGetFileAttributesBatch.Entry> entries, Set<FileAttribute> attr) {
+        for (PnfsGetFileAttributesBatch.Entry entry : entries) {
+            if (entry.getPnfsId() != null) {
+                try {
+                    entry.setFileAttributes(getFileAttributes(subject, entry.getPnfsId(), attr));
+                } catch (CacheException e) {
+                    entry.setFailed(e.getRc(), e.getMessage());
+                }
+            }
+        }
+    }
+
     /**
      * Set files attributes defined by <code>attr</code>.
      * <p>
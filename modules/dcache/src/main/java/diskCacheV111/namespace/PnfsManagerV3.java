@@ -69,6 +69,7 @@ import diskCacheV111.vehicles.PnfsReadExtendedAttributesMessage;
 import diskCacheV111.vehicles.PnfsRemoveExtendedAttributesMessage;
 import diskCacheV111.vehicles.PnfsRemoveLabelsMessage;
 import diskCacheV111.vehicles.PnfsRenameMessage;
+import diskCacheV111.vehicles.PnfsUpdateCacheLocationsMessage;
 import diskCacheV111.vehicles.PnfsWriteExtendedAttributesMessage;
 import diskCacheV111.vehicles.PoolFileFlushedMessage;
 import diskCacheV111.vehicles.StorageInfo;
@@ -80,6 +81,7 @@ import dmg.cells.nucleus.CellCommandListener;
 import dmg.cells.nucleus.CellInfoProvider;
 import dmg.cells.nucleus.CellMessage;
 import dmg.cells.nucleus.CellMessageReceiver;
+import dmg.cells.nucleus.CellMetricsProvider;
 import dmg.cells.nucleus.CellPath;
 import dmg.cells.nucleus.NoRouteToCellException;
 import dmg.cells.nucleus.UOID;
@@ -125,6 +127,7 @@ import org.dcache.acl.enums.AccessType;
 import org.dcache.auth.Subjects;
 import org.dcache.auth.attributes.Activity;
 import org.dcache.auth.attributes.Restriction;
+import org.dcache.auth.attributes.Restrictions;
 import org.dcache.cells.CellStub;
 import org.dcache.chimera.ChimeraFsException;
 import org.dcache.chimera.UnixPermission;
@@ -132,8 +135,11 @@ import org.dcache.chimera.qos.JdbcQos;
 import org.dcache.chimera.quota.JdbcQuota;
 import org.dcache.chimera.quota.Quota;
 import org.dcache.chimera.quota.QuotaHandler;
+import org.dcache.commons.stats.RequestCounter;
 import org.dcache.commons.stats.RequestCounters;
+import org.dcache.commons.stats.RequestExecutionTimeGauge;
 import org.dcache.commons.stats.RequestExecutionTimeGauges;
+import org.dcache.metrics.MetricRegistry;
 import org.dcache.namespace.FileAttribute;
 import org.dcache.namespace.FileType;
 import org.dcache.namespace.ListHandler;
@@ -142,6 +148,8 @@ import org.dcache.qos.QoSPolicy;
 import org.dcache.quota.data.QuotaInfo;
 import org.dcache.quota.data.QuotaRequest;
 import org.dcache.quota.data.QuotaType;
+import org.dcache.tracing.Span;
+import org.dcache.tracing.Tracer;
 import org.dcache.util.Args;
 import org.dcache.util.ByteUnit;
 import org.dcache.util.Checksum;
@@ -153,6 +161,7 @@ import org.dcache.util.TimeUtils;
 import org.dcache.vehicles.FileAttributes;
 import org.dcache.vehicles.PnfsCreateSymLinkMessage;
 import org.dcache.vehicles.PnfsGetFileAttributes;
+import org.dcache.vehicles.PnfsGetFileAttributesBatch;
 import org.dcache.vehicles.PnfsListDirectoryMessage;
 import org.dcache.vehicles.PnfsRemoveChecksumMessage;
 import org.dcache.vehicles.PnfsResolveSymlinksMessage;
@@ -176,7 +185,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 public class PnfsManagerV3
       extends AbstractCellComponent
-      implements CellCommandListener, CellMessageReceiver, CellInfoProvider, LeaderLatchListener {
+      implements CellCommandListener, CellMessageReceiver, CellInfoProvider, CellMetricsProvider,
+      LeaderLatchListener {
 
     private static final Logger LOGGER =
           LoggerFactory.getLogger(PnfsManagerV3.class);
@@ -190,7 +200,7 @@ public class PnfsManagerV3
     private final Random _random = new Random(System.currentTimeMillis());
 
     private final RequestExecutionTimeGauges<Class<? extends PnfsMessage>> _gauges =
-          new RequestExecutionTimeGauges<>("PnfsManagerV3");
+          new RequestExecutionTimeGauges<>("PnfsManagerV3", true, true);
     private final RequestCounters<Class<?>> _foldedCounters =
           new RequestCounters<>("PnfsManagerV3.Folded");
 
@@ -282,6 +292,8 @@ public class PnfsManagerV3
     private void populateRequestMap() {
         _gauges.addGauge(PnfsAddCacheLocationMessage.class);
         _gauges.addGauge(PnfsClearCacheLocationMessage.class);
+        _gauges.addGauge(PnfsUpdateCacheLocationsMessage.class);
+        _gauges.addGauge(PnfsGetFileAttributesBatch.class);
         _gauges.addGauge(PnfsGetCacheLocationsMessage.class);
         _gauges.addGauge(PnfsCreateEntryMessage.class);
         _gauges.addGauge(PnfsDeleteEntryMessage.class);
@@ -579,6 +591,30 @@ public class PnfsManagerV3
         }
     }
 
+    @Override
+    public void registerMetrics(MetricRegistry.Scope scope) {
+        scope.gauge("dcache_pnfsmanager_queue_size",
+              "Requests waiting for a PnfsManager thread.", out -> {
+                  for (int i = 0; i < _fifos.length; i++) {
+                      out.sample("queue", String.valueOf(i), _fifos[i].size());
+                  }
+                  out.sample("queue", "list",
+                        Arrays.stream(_listQueues).mapToInt(BlockingQueue::size).sum());
+              });
+        scope.summary("dcache_pnfsmanager_request_duration_seconds",
+              "Time taken by PnfsManager to process requests.", out -> {
+                  for (RequestExecutionTimeGauge gauge : _gauges.getGauges()) {
+                      out.summary("message", gauge.getName(), gauge, 0.001);
+                  }
+              });
+        scope.counter("dcache_pnfsmanager_folded_requests",
+              "Requests answered by folding them into an identical request.", out -> {
+                  for (RequestCounter counter : _foldedCounters.getCounters()) {
+                      out.sample("message", counter.getName(), counter.getTotalRequests());
+                  }
+              });
+    }
+
     @Override
     public void getInfo(PrintWriter pw) {
         pw.print("atime precision: ");
@@ -1916,6 +1952,25 @@ public class PnfsManagerV3
 
     }
 
+    public void updateCacheLocations(PnfsUpdateCacheLocationsMessage pnfsMessage) {
+        LOGGER.info("updateCacheLocations : {} for {} files", pnfsMessage.getPoolName(),
+              pnfsMessage.getUpdates().size());
+        try {
+            checkMask(pnfsMessage);
+            checkRestriction(pnfsMessage, UPDATE_METADATA);
+            _nameSpaceProvider.updateCacheLocations(pnfsMessage.getSubject(),
+                  pnfsMessage.getPoolName(),
+                  pnfsMessage.getUpdates());
+        } catch (CacheException e) {
+            LOGGER.warn("Exception in updateCacheLocations: {}", e.toString());
+            pnfsMessage.setFailed(e.getRc(), e.getMessage());
+        } catch (RuntimeException e) {
+            LOGGER.error("Exception in updateCacheLocations", e);
+            pnfsMessage.setFailed(CacheException.UNEXPECTED_SYSTEM_EXCEPTION,
+                  "Exception in updateCacheLocations");
+        }
+    }
+
     public void getCacheLocations(PnfsGetCacheLocationsMessage pnfsMessage) {
         Subject subject = pnfsMessage.getSubject();
         try {
@@ -2480,7 +2535,13 @@ public class PnfsManagerV3
                 for (CellMessage message = _fifo.take(); message != SHUTDOWN_SENTINEL;
                       message = _fifo.take()) {
                     CDC.setMessageContext(message);
-                    try {
+                    Span span = Tracer.startSpan("PnfsManager", message.getTraceContext());
+                    if (span.isRecording()) {
+                        span.setAttribute("message",
+                              message.getMessageObject().getClass().getSimpleName());
+                        span.setAttribute("queueTimeMillis", message.getLocalAge());
+                    }
+                    try (Span.Scope ignored = span.activate()) {
                         recordActivity(message);
 
                         /* Discard messages if we are close to their
@@ -2511,10 +2572,15 @@ public class PnfsManagerV3
                             postProcessMessage(message, pnfs);
                         }
                         fold(pnfs);
+                        if (pnfs.getReturnCode() != 0) {
+                            span.setError(String.valueOf(pnfs.getErrorObject()));
+                        }
                     } catch (Throwable e) {
+                        span.setError(e.toString());
                         LOGGER.warn("processPnfsMessage: {} : {}",
                               Thread.currentThread().getName(), e);
                     } finally {
+                        span.end();
                         clearActivity();
                         CDC.clearMessageContext();
                     }
@@ -2854,6 +2920,20 @@ public class PnfsManagerV3
         }
     }
 
+    /**
+     * Cache location updates of a pool are always processed by the same thread. Together with
+     * the pool not sending a batch before the previous batch has been answered, this preserves
+     * the order of updates of the same file.
+     */
+    public void messageArrived(CellMessage envelope, PnfsUpdateCacheLocationsMessage message)
+          throws CacheException {
+        int index = (int) (Math.abs((long) message.getPoolName().hashCode()) % _threads);
+        LOGGER.info("Using thread [{}] {}", message.getPoolName(), index);
+        if (!_fifos[index].offer(envelope)) {
+            throw new MissingResourceCacheException("PnfsManager queue limit exceeded");
+        }
+    }
+
     public void messageArrived(CellMessage envelope, PnfsMessage message)
           throws CacheException {
         PnfsId pnfsId = message.getPnfsId();
@@ -2930,8 +3010,12 @@ public class PnfsManagerV3
             addCacheLocation((PnfsAddCacheLocationMessage) pnfsMessage);
         } else if (pnfsMessage instanceof PnfsClearCacheLocationMessage) {
             clearCacheLocation((PnfsClearCacheLocationMessage) pnfsMessage);
+        } else if (pnfsMessage instanceof PnfsUpdateCacheLocationsMessage) {
+            updateCacheLocations((PnfsUpdateCacheLocationsMessage) pnfsMessage);
         } else if (pnfsMessage instanceof PnfsGetCacheLocationsMessage) {
             getCacheLocations((PnfsGetCacheLocationsMessage) pnfsMessage);
+        } else if (pnfsMessage instanceof PnfsGetFileAttributesBatch) {
+            getFileAttributesBatch((PnfsGetFileAttributesBatch) pnfsMessage);
         } else if (pnfsMessage instanceof PnfsCreateEntryMessage) {
             createEntry((PnfsCreateEntryMessage) pnfsMessage);
         } else if (pnfsMessage instanceof PnfsCreateUploadPath) {
@@ -3081,6 +3165,17 @@ public class PnfsManagerV3
             PnfsMessage msg = new PnfsClearCacheLocationMessage(message.getPnfsId(),
                   ((PnfsClearCacheLocationMessage) message).getPoolName());
             sendMessage(new CellMessage(_cacheModificationRelay, msg));
+        } else if (message instanceof PnfsUpdateCacheLocationsMessage) {
+            String pool = ((PnfsUpdateCacheLocationsMessage) message).getPoolName();
+            for (PnfsUpdateCacheLocationsMessage.Update update :
+                  ((PnfsUpdateCacheLocationsMessage) message).getUpdates()) {
+                if (update.getReturnCode() == 0) {
+                    PnfsMessage msg = update.isAdd()
+                          ? new PnfsAddCacheLocationMessage(update.getPnfsId(), pool)
+                          : new PnfsClearCacheLocationMessage(update.getPnfsId(), pool);
+                    sendMessage(new CellMessage(_cacheModificationRelay, msg));
+                }
+            }
         } else if (message instanceof PnfsSetFileAttributes) {
             Collection<String> locations
                   = ((PnfsSetFileAttributes) message).getLocations();
@@ -3165,22 +3260,7 @@ public class PnfsManagerV3
                         pnfsId,
                         requested);
 
-            if (attrs.isDefined(FileAttribute.STORAGEINFO)) {
-                StorageInfo storageInfo = attrs.getStorageInfo();
-                if (storageInfo.getKey("path") == null) {
-                    String path = message.getPnfsPath() != null ?
-                          message.getPnfsPath() : _nameSpaceProvider.pnfsidToPath(subject, pnfsId);
-                    storageInfo.setKey("path", path);
-                }
-                storageInfo.setKey("uid", Integer.toString(attrs.getOwner()));
-                storageInfo.setKey("gid", Integer.toString(attrs.getGroup()));
-
-                // REVISIT: consider removing xattr injection once pools can accept FileAttribute.XATTR
-                if (attrs.isDefined(XATTR)) {
-                    attrs.getXattrs()
-                          .forEach((k, v) -> storageInfo.setKey(STORAGE_INFO_XATTR_PREFIX + k, v));
-                }
-            }
+            decorateStorageInfo(subject, pnfsId, message.getPnfsPath(), attrs);
 
             message.setFileAttributes(attrs);
             message.setSucceeded();
@@ -3203,6 +3283,78 @@ public class PnfsManagerV3
         }
     }
 
+    private void decorateStorageInfo(Subject subject, PnfsId pnfsId, String path,
+          FileAttributes attrs) throws CacheException {
+        if (attrs.isDefined(FileAttribute.STORAGEINFO)) {
+            StorageInfo storageInfo = attrs.getStorageInfo();
+            if (storageInfo.getKey("path") == null) {
+                storageInfo.setKey("path",
+                      path != null ? path : _nameSpaceProvider.pnfsidToPath(subject, pnfsId));
+            }
+            storageInfo.setKey("uid", Integer.toString(attrs.getOwner()));
+            storageInfo.setKey("gid", Integer.toString(attrs.getGroup()));
+
+            // REVISIT: consider removing xattr injection once pools can accept FileAttribute.XATTR
+            if (attrs.isDefined(XATTR)) {
+                attrs.getXattrs()
+                      .forEach((k, v) -> storageInfo.setKey(STORAGE_INFO_XATTR_PREFIX + k, v));
+            }
+        }
+    }
+
+    public void getFileAttributesBatch(PnfsGetFileAttributesBatch message) {
+        LOGGER.info("getFileAttributesBatch : {} files", message.getEntries().size());
+        try {
+            Subject subject = message.getSubject();
+            boolean isRestricted = !Subjects.isRoot(subject)
+                  && !message.getRestriction().equals(Restrictions.none());
+
+            for (PnfsGetFileAttributesBatch.Entry entry : message.getEntries()) {
+                try {
+                    String path = entry.getPnfsPath();
+                    if (path != null) {
+                        checkRestriction(message, READ_METADATA, FsPath.create(path));
+                        entry.setPnfsId(_nameSpaceProvider.pathToPnfsid(subject, path, true));
+                    } else if (isRestricted) {
+                        checkRestriction(message, READ_METADATA, FsPath.create(
+                              _nameSpaceProvider.pnfsidToPath(subject, entry.getPnfsId())));
+                    }
+                } catch (CacheException e) {
+                    entry.setPnfsId(null);
+                    entry.setFailed(e.getRc(), e.getMessage());
+                }
+            }
+
+            Set<FileAttribute> requested = message.getRequestedAttributes();
+            if (requested.contains(FileAttribute.STORAGEINFO)) {
+                /* See getFileAttributes for why the storage info needs these.
+                 */
+                requested = EnumSet.copyOf(requested);
+                requested.add(FileAttribute.OWNER);
+                requested.add(FileAttribute.OWNER_GROUP);
+                requested.add(FileAttribute.XATTR);
+                requested.add(FileAttribute.CREATION_TIME);
+            }
+            _nameSpaceProvider.getFileAttributesBatch(subject, message.getEntries(), requested);
+
+            for (PnfsGetFileAttributesBatch.Entry entry : message.getEntries()) {
+                FileAttributes attrs = entry.getFileAttributes();
+                if (attrs != null) {
+                    try {
+                        decorateStorageInfo(subject, entry.getPnfsId(), entry.getPnfsPath(),
+                              attrs);
+                    } catch (CacheException e) {
+                        entry.setFailed(e.getRc(), e.getMessage());
+                    }
+                }
+            }
+            message.setSucceeded();
+        } catch (RuntimeException e) {
+            LOGGER.error("Error while retrieving file attributes: " + e.getMessage(), e);
+            message.setFailed(CacheException.UNEXPECTED_SYSTEM_EXCEPTION, e);
+        }
+    }
+
     public void setFileAttributes(PnfsSetFileAttributes message) {
         try {
             checkRestriction(message, UPDATE_METADATA);
@@ -4,6 +4,7 @@ import com.google.common.collect.ImmutableMap;
 import diskCacheV111.pools.PoolCostInfo;
 import diskCacheV111.pools.PoolV2Mode;
 import diskCacheV111.vehicles.CostModulePoolInfoTable;
+import diskCacheV111.vehicles.PoolManagerPoolCostUpdateMessage;
 import diskCacheV111.vehicles.PoolManagerPoolUpMessage;
 import dmg.cells.nucleus.CellAddressCore;
 import dmg.cells.nucleus.CellCommandListener;
@@ -57,15 +58,44 @@ public class CostModuleV1
         private double _fakeCpu = -1.0;
         private final ImmutableMap<String, String> _tagMap;
         private final CellAddressCore _address;
+        private final long _serialId;
+        private final long _sequence;
+
+        public Entry(CellAddressCore address, PoolCostInfo info, Map<String, String> tagMap,
+              long serialId, long sequence) {
+            this(System.currentTimeMillis(), address, info,
+                  (tagMap == null) ? ImmutableMap.of() : ImmutableMap.copyOf(tagMap),
+                  serialId, sequence);
+        }
 
-        public Entry(CellAddressCore address, PoolCostInfo info, Map<String, String> tagMap) {
-            timestamp = System.currentTimeMillis();
+        private Entry(long timestamp, CellAddressCore address, PoolCostInfo info,
+              ImmutableMap<String, String> tagMap, long serialId, long sequence) {
+            this.timestamp = timestamp;
             _address = address;
             _info = info;
-            _tagMap =
-                  (tagMap == null)
-                        ? ImmutableMap.of()
-                        : ImmutableMap.copyOf(tagMap);
+            _tagMap = tagMap;
+            _serialId = serialId;
+            _sequence = sequence;
+        }
+
+        /**
+         * Returns whether the update applies to the cost information of this entry. As an update
+         * only contains what changed since the previous report, it applies only if it directly
+         * follows the report this entry is based on. After a lost update, the entry is only
+         * refreshed by the next full report.
+         */
+        public boolean isUpdatedBy(PoolManagerPoolCostUpdateMessage update) {
+            return _sequence > 0 && update.getSerialId() == _serialId
+                  && update.getSequence() == _sequence + 1;
+        }
+
+        /**
+         * Returns an entry with the update applied. The age of the entry is unchanged, as only
+         * the full cost information keeps a pool alive.
+         */
+        public Entry update(PoolManagerPoolCostUpdateMessage update) {
+            return new Entry(timestamp, _address, update.applyTo(_info), _tagMap, _serialId,
+                  update.getSequence());
         }
 
         public boolean isValid() {
@@ -108,7 +138,33 @@ public class CostModuleV1
         if (shouldRemovePool) {
             _hash.remove(poolName);
         } else if (newInfo != null) {
-            _hash.put(poolName, new Entry(poolAddress, newInfo, msg.getTagMap()));
+            _hash.put(poolName, new Entry(poolAddress, newInfo, msg.getTagMap(),
+                  msg.getSerialId(), msg.getSequence()));
+        }
+    }
+
+    /**
+     * Apply a cost update.  The updated copy of the pool's entry is built outside the lock; the
+     * lock is held only to look up the current entry and to replace it.  An update racing with
+     * another report from the same pool is dropped, as it no longer follows the current entry.
+     */
+    public void messageArrived(PoolManagerPoolCostUpdateMessage msg) {
+        Entry poolEntry;
+        synchronized (this) {
+            poolEntry = _hash.get(msg.getPoolName());
+        }
+        if (poolEntry == null || !poolEntry.isUpdatedBy(msg)) {
+            LOGGER.debug("Ignoring out of sequence cost update: {}", msg);
+            return;
+        }
+        Entry newEntry = poolEntry.update(msg);
+        synchronized (this) {
+            if (_hash.get(msg.getPoolName()) != poolEntry) {
+                LOGGER.debug("Ignoring cost update racing with another report: {}", msg);
+                return;
+            }
+            considerInvalidatingCache(poolEntry.getPoolCostInfo(), newEntry.getPoolCostInfo());
+            _hash.put(msg.getPoolName(), newEntry);
         }
     }
 
@@ -60,6 +60,8 @@ import org.dcache.poolmanager.PoolSelector;
 import org.dcache.poolmanager.SelectedPool;
 import org.dcache.poolmanager.SerializablePoolMonitor;
 import org.dcache.poolmanager.Utils;
+import org.dcache.tracing.Span;
+import org.dcache.tracing.Tracer;
 import org.dcache.util.Args;
 import org.dcache.util.CDCExecutorServiceDecorator;
 import org.dcache.util.Version;
@@ -672,7 +674,8 @@ public class PoolManagerV5
             LOGGER.info("{} write handler started", _pnfsId);
             long started = System.currentTimeMillis();
 
-            try {
+            Span span = Tracer.startSpan("PoolManager select write pool");
+            try (Span.Scope ignored = span.activate()) {
                 SelectedPool pool = _poolMonitor
                       .getPoolSelector(fileAttributes,
                             protocolInfo,
@@ -681,11 +684,16 @@ public class PoolManagerV5
                       .selectWritePool(_request.getPreallocated());
                 LOGGER.info("{} write handler selected {} after {} ms", _pnfsId, pool.name(),
                       System.currentTimeMillis() - started);
+                span.setAttribute("pool", pool.name());
                 requestSucceeded(pool);
             } catch (CacheException ce) {
+                span.setError(ce.getMessage());
                 requestFailed(ce.getRc(), ce.getMessage());
             } catch (Exception ee) {
+                span.setError(ee.toString());
                 requestFailed(17, ee.getMessage());
+            } finally {
+                span.end();
             }
         }
 
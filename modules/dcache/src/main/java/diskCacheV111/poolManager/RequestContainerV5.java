@@ -42,6 +42,7 @@ import dmg.cells.nucleus.CellCommandListener;
 import dmg.cells.nucleus.CellInfoProvider;
 import dmg.cells.nucleus.CellMessage;
 import dmg.cells.nucleus.CellMessageReceiver;
+import dmg.cells.nucleus.CellMetricsProvider;
 import dmg.cells.nucleus.CellPath;
 import dmg.cells.nucleus.CellSetupProvider;
 import dmg.cells.nucleus.NoRouteToCellException;
@@ -57,20 +58,23 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -78,6 +82,8 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 import org.dcache.cells.CellStub;
+import org.dcache.commons.stats.LatencyHistogramGauge;
+import org.dcache.metrics.MetricRegistry;
 import org.dcache.poolmanager.CostException;
 import org.dcache.poolmanager.Partition;
 import org.dcache.poolmanager.PartitionManager;
@@ -85,6 +91,9 @@ import org.dcache.poolmanager.PoolInfo;
 import org.dcache.poolmanager.PoolManagerGetRestoreHandlerInfo;
 import org.dcache.poolmanager.PoolSelector;
 import org.dcache.poolmanager.SelectedPool;
+import org.dcache.tracing.Span;
+import org.dcache.tracing.SpanContext;
+import org.dcache.tracing.Tracer;
 import org.dcache.util.Args;
 import org.dcache.util.FireAndForgetTask;
 import org.dcache.vehicles.FileAttributes;
@@ -95,7 +104,7 @@ import org.springframework.beans.factory.annotation.Required;
 public class RequestContainerV5
       extends AbstractCellComponent
       implements Runnable, CellCommandListener, CellMessageReceiver, CellSetupProvider,
-      CellInfoProvider {
+      CellInfoProvider, CellMetricsProvider {
 
     private static final Logger LOGGER =
           LoggerFactory.getLogger(RequestContainerV5.class);
@@ -182,8 +191,17 @@ public class RequestContainerV5
     private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern(
           "MM.dd HH:mm:ss");
 
-    private final Map<UOID, PoolRequestHandler> _messageHash = new HashMap<>();
-    private final Map<String, PoolRequestHandler> _handlerHash = new HashMap<>();
+    /**
+     * Handlers waiting for a reply from a pool, by the UOID of the request sent to the pool.
+     */
+    private final Map<UOID, PoolRequestHandler> _messageHash = new ConcurrentHashMap<>();
+
+    /**
+     * Handlers by canonical name.  A handler is added when the first request for a file arrives
+     * and removed when the requests are answered; requests arriving in between join the existing
+     * handler.
+     */
+    private final Map<String, PoolRequestHandler> _handlerHash = new ConcurrentHashMap<>();
 
     private CellStub _billing;
     private CellStub _poolStub;
@@ -201,6 +219,14 @@ public class RequestContainerV5
     private boolean _sendHitInfo;
 
     private int _restoreExceeded;
+
+    /**
+     * Time from arrival of a read pool selection request until it is answered.
+     */
+    private final LatencyHistogramGauge _readRequests =
+          new LatencyHistogramGauge("PoolMgrSelectReadPoolMsg", "RequestContainerV5");
+    private final LongAdder _readRequestsFailed = new LongAdder();
+
     private boolean _suspendIncoming;
     private boolean _suspendStaging;
 
@@ -310,17 +336,10 @@ public class RequestContainerV5
     }
 
     public void messageArrived(CellMessage envelope, Object message) {
-        UOID uoid = envelope.getLastUOID();
-        PoolRequestHandler handler;
-
-        synchronized (_messageHash) {
-            handler = _messageHash.remove(uoid);
-            if (handler == null) {
-                return;
-            }
+        PoolRequestHandler handler = _messageHash.remove(envelope.getLastUOID());
+        if (handler != null) {
+            handler.mailForYou(message);
         }
-
-        handler.mailForYou(message);
     }
 
     @Override
@@ -328,12 +347,7 @@ public class RequestContainerV5
         while (!Thread.interrupted()) {
             try {
                 Thread.sleep(_ticketInterval);
-
-                List<PoolRequestHandler> list;
-                synchronized (_handlerHash) {
-                    list = new ArrayList<>(_handlerHash.values());
-                }
-                list.forEach(PoolRequestHandler::checkExpiredRequests);
+                tick(System.currentTimeMillis());
             } catch (InterruptedException e) {
                 break;
             } catch (Throwable t) {
@@ -346,15 +360,22 @@ public class RequestContainerV5
         LOGGER.debug("Container-ticker done");
     }
 
+    /**
+     * Resumes handlers whose state engine was rejected by the executor and expires requests
+     * whose TTL has passed.
+     */
+    @VisibleForTesting
+    void tick(long now) {
+        _handlerHash.values().forEach(h -> {
+            h.resumeIfRejected();
+            h.checkExpiredRequests(now);
+        });
+    }
+
     public void poolStatusChanged(String poolName, int poolStatus) {
         LOGGER.info("Restore Manager : got 'poolRestarted' for {}", poolName);
         try {
-            List<PoolRequestHandler> list;
-            synchronized (_handlerHash) {
-                list = new ArrayList<>(_handlerHash.values());
-            }
-
-            for (PoolRequestHandler rph : list) {
+            for (PoolRequestHandler rph : _handlerHash.values()) {
                 switch (poolStatus) {
                     case PoolStatusChangedMessage.UP:
                         /*
@@ -408,6 +429,33 @@ public class RequestContainerV5
         }
     }
 
+    @Override
+    public void registerMetrics(MetricRegistry.Scope scope) {
+        RequestState[] states = RequestState.values();
+        scope.gauge("dcache_poolmanager_read_requests_pending",
+              "Files for which a read pool is being selected.", out -> {
+                  int[] count = new int[states.length];
+                  for (PoolRequestHandler handler : _handlerHash.values()) {
+                      count[handler._state.ordinal()]++;
+                  }
+                  for (RequestState state : states) {
+                      out.sample("state", state.name(), count[state.ordinal()]);
+                  }
+              });
+        scope.gauge("dcache_poolmanager_pool_requests_pending",
+              "Stage and pool to pool requests waiting for a reply from a pool.",
+              out -> out.sample(_messageHash.size()));
+        scope.summary("dcache_poolmanager_read_request_duration_seconds",
+              "Time taken to select a read pool, including staging and pool to pool copies.",
+              out -> out.summary(null, null, _readRequests, 0.001));
+        scope.counter("dcache_poolmanager_read_request_failures",
+              "Read pool selection requests that failed.",
+              out -> out.sample(_readRequestsFailed.sum()));
+        scope.counter("dcache_poolmanager_restore_limit_exceeded",
+              "Stage requests rejected because the restore limit was reached.",
+              out -> out.sample(_restoreExceeded));
+    }
+
     @Override
     public void printSetup(PrintWriter pw) {
         pw.append("rc onerror ").println(_onError);
@@ -593,26 +641,15 @@ public class RequestContainerV5
     public String ac_rc_retry_$_1(Args args) {
         boolean forceAll = args.hasOption("force-all");
         if (args.argv(0).equals("*")) {
-            List<PoolRequestHandler> all;
-            //
-            // Remember : we are not allowed to call 'retry' as long
-            // as we  are holding the _handlerHash lock.
-            //
-            synchronized (_handlerHash) {
-                all = new ArrayList<>(_handlerHash.values());
-            }
-            all.stream()
+            _handlerHash.values().stream()
                   .filter(h -> forceAll || h._currentRc != 0)
                   .forEach(PoolRequestHandler::retry);
         } else {
-            PoolRequestHandler rph;
-            synchronized (_handlerHash) {
-                rph = _handlerHash.get(args.argv(0));
-                if (rph == null) {
-                    throw new
-                          IllegalArgumentException("Not found : " + args
-                          .argv(0));
-                }
+            PoolRequestHandler rph = _handlerHash.get(args.argv(0));
+            if (rph == null) {
+                throw new
+                      IllegalArgumentException("Not found : " + args
+                      .argv(0));
             }
             rph.retry();
         }
@@ -644,11 +681,7 @@ public class RequestContainerV5
         public String call() throws CommandException {
             checkCommand(errorNumber >= 0, "Error number must be >= 0");
 
-            PoolRequestHandler rph;
-            synchronized (_handlerHash) {
-                rph = _handlerHash.get(id);
-            }
-
+            PoolRequestHandler rph = _handlerHash.get(id);
             checkCommand(rph != null, "Not found : %s", id);
 
             rph.fail(errorNumber, errorString);
@@ -665,15 +698,7 @@ public class RequestContainerV5
         boolean isLongListing = args.hasOption("l");
 
         if (!args.hasOption("w")) {
-            List<PoolRequestHandler> allRequestHandlers;
-            synchronized (_handlerHash) {
-                allRequestHandlers = new ArrayList<>(_handlerHash.values());
-            }
-
-            for (PoolRequestHandler h : allRequestHandlers) {
-                if (h == null) {
-                    continue;
-                }
+            for (PoolRequestHandler h : _handlerHash.values()) {
                 String line = h.toString();
                 if ((pattern == null) || pattern.matcher(line).matches()) {
                     sb.append(line).append("\n");
@@ -687,18 +712,9 @@ public class RequestContainerV5
                 }
             }
         } else {
-            Map<UOID, PoolRequestHandler> allPendingRequestHandlers = new HashMap<>();
-            synchronized (_messageHash) {
-                allPendingRequestHandlers.putAll(_messageHash);
-            }
-
-            for (Map.Entry<UOID, PoolRequestHandler> requestHandler : allPendingRequestHandlers.entrySet()) {
+            for (Map.Entry<UOID, PoolRequestHandler> requestHandler : _messageHash.entrySet()) {
                 UOID uoid = requestHandler.getKey();
                 PoolRequestHandler h = requestHandler.getValue();
-
-                if (h == null) {
-                    continue;
-                }
                 String line = uoid.toString() + " " + h.toString();
                 if ((pattern == null) || pattern.matcher(line).matches()) {
                     sb.append(line).append("\n");
@@ -715,25 +731,16 @@ public class RequestContainerV5
     }
 
     public List<RestoreHandlerInfo> getRestoreHandlerInfo() {
-        List<RestoreHandlerInfo> requests;
-        synchronized (_handlerHash) {
-            requests = _handlerHash.values().stream()
-                  .map(PoolRequestHandler::getRestoreHandlerInfo)
-                  .collect(toList());
-        }
-        return requests;
+        return _handlerHash.values().stream()
+              .map(PoolRequestHandler::getRestoreHandlerInfo)
+              .collect(toList());
     }
 
     public static final String hh_xrc_ls = " # lists pending requests (binary)";
 
     public Object ac_xrc_ls(Args args) {
 
-        List<PoolRequestHandler> all;
-        synchronized (_handlerHash) {
-            all = new ArrayList<>(_handlerHash.values());
-        }
-
-        return all.stream()
+        return _handlerHash.values().stream()
               .map(PoolRequestHandler::getRestoreHandlerInfo)
               .toArray(RestoreHandlerInfo[]::new);
     }
@@ -781,19 +788,17 @@ public class RequestContainerV5
                     + (poolGroup == null ? "" : ("-pg-" + poolGroup));
 
         LOGGER.info("Adding request for : {}", canonicalName);
-        synchronized (_handlerHash) {
-            _handlerHash.compute(canonicalName, (k, v) -> {
-                if (v == null) {
-                    PoolRequestHandler h = new PoolRequestHandler(pnfsId, poolGroup,
-                          canonicalName, allowedStates, envelope);
-                    h.start();
-                    return h;
-                } else {
-                    v.addRequest(envelope);
-                    return v;
-                }
-            });
-        }
+        _handlerHash.compute(canonicalName, (k, v) -> {
+            if (v == null) {
+                PoolRequestHandler h = new PoolRequestHandler(pnfsId, poolGroup,
+                      canonicalName, allowedStates, envelope);
+                h.start();
+                return h;
+            } else {
+                v.addRequest(envelope);
+                return v;
+            }
+        });
     }
 
     // replicate a file
@@ -834,6 +839,7 @@ public class RequestContainerV5
 
         private final PnfsId _pnfsId;
         private final String _poolGroup;
+        @GuardedBy("this")
         private final List<CellMessage> _messages = new ArrayList<>();
         private int _retryCounter;
         private final CDC _cdc = new CDC();
@@ -846,7 +852,10 @@ public class RequestContainerV5
         private final List<Consumer<RequestState>> _observers = new CopyOnWriteArrayList<>();
 
 
-        @GuardedBy("RequestContainerV5.this._messageHash")
+        /**
+         * The UOID of the request sent to a pool for which a reply is awaited.  Only accessed by
+         * the state engine.
+         */
         private UOID _waitingFor;
 
         private String _status = "Idle";
@@ -910,7 +919,26 @@ public class RequestContainerV5
         /**
          * Indicates the next time a TTL of a request message will be exceeded.
          */
-        private long _nextTtlTimeout;
+        private volatile long _nextTtlTimeout;
+
+        /**
+         * Inputs waiting for the state engine of this handler, in order of arrival.
+         */
+        private final Queue<Object> _inputs = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Whether a task running the state engine of this handler has been submitted to the
+         * container's executor and not yet finished.  Inputs are thus processed one at a time
+         * and in order, while the handlers of different files share the threads of the
+         * executor.
+         */
+        private final AtomicBoolean _isEngineScheduled = new AtomicBoolean();
+
+        /**
+         * Whether the executor rejected the state engine of this handler.  Such a handler is
+         * resumed by the next tick of the container.
+         */
+        private volatile boolean _isEngineRejected;
 
         public PoolRequestHandler(PnfsId pnfsId, String poolGroup,
               String canonicalName, Collection<RequestState> allowedStates,
@@ -979,7 +1007,7 @@ public class RequestContainerV5
          * request.
          */
         public void start() {
-            startStateEngine();
+            schedule();
         }
 
         //...........................................................
@@ -988,7 +1016,8 @@ public class RequestContainerV5
         // at any time.
         //...........................................................
         //
-        // add request is assumed to be synchronized by a higher level.
+        // add request is assumed to be synchronized by a higher level: it
+        // is called from within _handlerHash.compute.
         //
         public void addRequest(CellMessage message) {
 
@@ -1004,17 +1033,17 @@ public class RequestContainerV5
                 return;
             }
 
-            _messages.add(message);
-            _stagingDenied = false;
+            synchronized (this) {
+                _messages.add(message);
+                _stagingDenied = false;
 
-            _nextTtlTimeout = Math.min(_nextTtlTimeout,
-                  addWithInfinity(System.currentTimeMillis(), message.getTtl()));
+                _nextTtlTimeout = Math.min(_nextTtlTimeout,
+                      addWithInfinity(System.currentTimeMillis(), message.getTtl()));
+            }
         }
 
-        public List<CellMessage> getMessages() {
-            synchronized (_handlerHash) {
-                return new ArrayList<>(_messages);
-            }
+        public synchronized List<CellMessage> getMessages() {
+            return new ArrayList<>(_messages);
         }
 
         public String getPoolCandidate() {
@@ -1070,8 +1099,17 @@ public class RequestContainerV5
             add(message);
         }
 
-        private void checkExpiredRequests() {
-            add((Runnable) this::expireRequests);
+        private void resumeIfRejected() {
+            if (_isEngineRejected) {
+                _isEngineRejected = false;
+                schedule();
+            }
+        }
+
+        private void checkExpiredRequests(long now) {
+            if (now >= _nextTtlTimeout) {
+                add((Runnable) this::expireRequests);
+            }
         }
 
         private void retry() {
@@ -1094,11 +1132,9 @@ public class RequestContainerV5
         // we only allow to run a single thread at a time.
         //
         private void clearSteering() {
-            synchronized (_messageHash) {
-                if (_waitingFor != null) {
-                    _messageHash.remove(_waitingFor);
-                    _waitingFor = null;
-                }
+            if (_waitingFor != null) {
+                _messageHash.remove(_waitingFor);
+                _waitingFor = null;
             }
         }
 
@@ -1122,13 +1158,11 @@ public class RequestContainerV5
                     throw new MissingResourceCacheException("Stage attempts exceed limit "
                           + _maxRestore);
                 }
-                if (_waitingFor != null) {
-                    _messageHash.remove(_waitingFor);
-                }
+                clearSteering();
                 _waitingFor = cellMessage.getUOID();
                 _messageHash.put(_waitingFor, this);
-                sendMessage(cellMessage);
             }
+            sendMessage(cellMessage);
         }
 
         private void sendPool2PoolRequest(SelectedPool sourcePool, SelectedPool destPool) {
@@ -1141,13 +1175,11 @@ public class RequestContainerV5
                   new CellMessage(new CellPath(destPool.address()), pool2pool);
 
             synchronized (_messageHash) {
-                if (_waitingFor != null) {
-                    _messageHash.remove(_waitingFor);
-                }
+                clearSteering();
                 _waitingFor = cellMessage.getUOID();
                 _messageHash.put(_waitingFor, this);
-                sendMessage(cellMessage);
             }
+            sendMessage(cellMessage);
         }
 
         private void retryRequest() {
@@ -1171,10 +1203,7 @@ public class RequestContainerV5
          * reply is sent to the requestor, as we assume it is no longer waiting for the reply.
          */
         private void expireRequests() {
-            /* Access to _messages is controlled by a lock on
-             * _handlerHash.
-             */
-            synchronized (_handlerHash) {
+            synchronized (this) {
                 long now = System.currentTimeMillis();
 
                 if (now < _nextTtlTimeout) {
@@ -1199,7 +1228,7 @@ public class RequestContainerV5
             }
         }
 
-        private boolean answerRequests(int limit) {
+        private synchronized boolean answerRequests(int limit) {
             Iterator<CellMessage> messages = _messages.iterator();
             for (int i = 0; i < limit && messages.hasNext(); i++) {
                 CellMessage message = messages.next();
@@ -1219,6 +1248,21 @@ public class RequestContainerV5
                 rpm.setSucceeded();
             } else {
                 rpm.setFailed(_currentRc, _currentRm);
+                _readRequestsFailed.increment();
+            }
+            long age = message.getLocalAge();
+            _readRequests.update(age);
+            SpanContext trace = message.getTraceContext();
+            if (trace != null) {
+                Span span = Tracer.startSpan("PoolManager select read pool", trace,
+                      System.currentTimeMillis() - age);
+                span.setAttribute("retries", _retryCounter);
+                if (_currentRc == 0) {
+                    span.setAttribute("pool", _poolCandidate.name());
+                } else {
+                    span.setError(_currentRm);
+                }
+                span.end();
             }
             message.revertDirection();
             sendMessage(message);
@@ -1227,8 +1271,6 @@ public class RequestContainerV5
         //
         // and the heart ...
         //
-        private final Deque<Object> _fifo = new LinkedList<>();
-        private boolean _stateEngineActive;
         private boolean _overwriteCost;
 
         public class RunEngine implements Runnable {
@@ -1236,10 +1278,13 @@ public class RequestContainerV5
             @Override
             public void run() {
                 try (CDC ignored = _cdc.restore()) {
-                    stateLoop();
+                    do {
+                        stateLoop(_inputs.poll());
+                    } while (!_inputs.isEmpty());
                 } finally {
-                    synchronized (_fifo) {
-                        _stateEngineActive = false;
+                    _isEngineScheduled.set(false);
+                    if (!_inputs.isEmpty()) {
+                        schedule();
                     }
                 }
             }
@@ -1251,70 +1296,70 @@ public class RequestContainerV5
         }
 
         private void add(Object obj) {
-            synchronized (_fifo) {
-                LOGGER.info("Adding Object : {}", obj);
-                _fifo.addFirst(obj);
-
-                if (!_stateEngineActive) {
-                    startStateEngine();
-                }
-            }
+            LOGGER.info("Adding Object : {}", obj);
+            _inputs.add(obj);
+            schedule();
         }
 
-        private void startStateEngine() {
-            synchronized (_fifo) {
-                LOGGER.info("Starting Engine");
-                _stateEngineActive = true;
+        /**
+         * Submits the state engine to the executor unless it is already submitted.  If the
+         * executor rejects it, the inputs stay queued until the next tick of the container.
+         */
+        private void schedule() {
+            if (_isEngineScheduled.compareAndSet(false, true)) {
                 try {
                     _executor.execute(new FireAndForgetTask(new RunEngine()));
-                } catch (RuntimeException e) {
-                    _stateEngineActive = false;
-                    throw e;
+                } catch (RejectedExecutionException e) {
+                    _isEngineScheduled.set(false);
+                    _isEngineRejected = true;
+                    LOGGER.warn("Delaying request for {}: {}", _name, e.getMessage());
                 }
             }
         }
 
-        private void stateLoop() {
+        /**
+         * Advances the state engine through all TRANSITORY states, then feeds it the input (if
+         * any) and again advances it until it waits for the next input.  Inputs arriving after
+         * the request completed are ignored.
+         */
+        private void stateLoop(@Nullable Object inputObject) {
             LOGGER.info("ACTIVATING STATE ENGINE {} {}", _pnfsId,
                   (System.currentTimeMillis() - _started));
 
-            while (!Thread.interrupted() && _state != RequestState.ST_OUT) {
+            runTransitoryStates();
+            if (inputObject != null && _state != RequestState.ST_OUT) {
+                process(inputObject);
+                runTransitoryStates();
+            }
+        }
 
-                Object inputObject;
+        private void runTransitoryStates() {
+            while (_state != RequestState.ST_OUT && _state.is(TRANSITORY)) {
+                process(null);
+            }
+        }
 
-                if (_state.is(TRANSITORY)) {
-                    inputObject = null;
+        private void process(@Nullable Object inputObject) {
+            try {
+                if (inputObject instanceof Runnable) {
+                    ((Runnable) inputObject).run();
                 } else {
-                    synchronized (_fifo) {
-                        inputObject = _fifo.pollLast();
-                    }
-
-                    if (inputObject == null) {
-                        return;
-                    }
-                }
-
-                try {
-                    if (inputObject instanceof Runnable) {
-                        ((Runnable) inputObject).run();
-                    } else {
-                        LOGGER.info("StageEngine called in mode {}", _state);
-
-                        RequestState formerState = _state;
+                    LOGGER.info("StageEngine called in mode {}", _state);
 
-                        stateEngine(inputObject);
+                    RequestState formerState = _state;
 
-                        if (_state.is(TRANSITORY) && _state == formerState) {
-                            throw new RuntimeException("Loop detected in state " + _state);
-                        }
+                    stateEngine(inputObject);
 
-                        LOGGER.info("StageEngine left with: {}", _state);
+                    if (_state.is(TRANSITORY) && _state == formerState) {
+                        throw new RuntimeException("Loop detected in state " + _state);
                     }
-                } catch (RuntimeException e) {
-                    LOGGER.error("Bug in state loop for {}", _pnfsId, e);
-                    failRequest(CacheException.UNEXPECTED_SYSTEM_EXCEPTION,
-                          "Bug detected: " + e);
+
+                    LOGGER.info("StageEngine left with: {}", _state);
                 }
+            } catch (RuntimeException e) {
+                LOGGER.error("Bug in state loop for {}", _pnfsId, e);
+                failRequest(CacheException.UNEXPECTED_SYSTEM_EXCEPTION,
+                      "Bug detected: " + e);
             }
         }
 
@@ -1333,7 +1378,7 @@ public class RequestContainerV5
             /* Staging is allowed if just one of the requests has
              * permission to stage.
              */
-            for (CellMessage envelope : _messages) {
+            for (CellMessage envelope : getMessages()) {
                 try {
                     PoolMgrSelectReadPoolMsg msg =
                           (PoolMgrSelectReadPoolMsg) envelope.getMessageObject();
@@ -1759,12 +1804,10 @@ public class RequestContainerV5
 
         private void answerRequests() {
             //
-            // it is essential that we are not within any other
-            // lock when trying to get the handlerHash lock.
+            // once removed, no further requests are added to this
+            // handler.
             //
-            synchronized (_handlerHash) {
-                _handlerHash.remove(_name);
-            }
+            _handlerHash.remove(_name, this);
 
             int limit = _currentRc == 0 ? MAX_REQUEST_CLUMPING
                   : Integer.MAX_VALUE;
@@ -1922,13 +1965,9 @@ public class RequestContainerV5
                         long now = System.currentTimeMillis();
 
                         // Determine which pools to query
-                        List<PoolRequestHandler> list;
-                        synchronized (_handlerHash) {
-                            list = new ArrayList<>(_handlerHash.values());
-                        }
                         Multimap<CellAddressCore, PoolRequestHandler> p2pRequests = ArrayListMultimap.create();
                         Multimap<CellAddressCore, PoolRequestHandler> stageRequests = ArrayListMultimap.create();
-                        for (PoolRequestHandler handler : list) {
+                        for (PoolRequestHandler handler : _handlerHash.values()) {
                             if (oneShot || handler._started < now - _checkFilePingTimer) {
                                 SelectedPool pool;
                                 switch (handler._state) {
@@ -0,0 +1,275 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package diskCacheV111.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import diskCacheV111.vehicles.PnfsUpdateCacheLocationsMessage;
+import diskCacheV111.vehicles.PnfsUpdateCacheLocationsMessage.Update;
+import dmg.cells.nucleus.CellInfoProvider;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.dcache.cells.CellStub;
+import org.dcache.util.CacheExceptionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the cache location changes of a pool and sends them to PnfsManager in batches.
+ * <p>
+ * Updates are collected for a short window and then sent as a single {@link
+ * PnfsUpdateCacheLocationsMessage}. At most one batch is outstanding at any time and the updates
+ * of a batch are applied in order, thus updates of the same file are applied in the order in
+ * which they were submitted.
+ * <p>
+ * Urgent updates, i.e. updates a caller waits for, cause the pending batch to be sent
+ * immediately rather than at the end of the window. So does {@link #flush}, which is used before
+ * a location is registered through another message, so that a removal still waiting in a batch
+ * cannot undo the registration of a new replica of the same file.
+ */
+public class CacheLocationBatcher implements CellInfoProvider {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheLocationBatcher.class);
+
+    private final CellStub _stub;
+    private final String _poolName;
+
+    private ScheduledExecutorService _executor;
+    private long _window = 50;
+    private int _maxBatchSize = 500;
+
+    private final Deque<Pending> _queue = new ArrayDeque<>();
+    private int _urgent;
+    private List<Pending> _inFlight;
+    private ScheduledFuture<?> _scheduled;
+
+    private final LongAdder _batches = new LongAdder();
+    private final LongAdder _updates = new LongAdder();
+    private final LongAdder _failures = new LongAdder();
+
+    private static class Pending {
+
+        final Update update;
+        boolean isUrgent;
+        final SettableFuture<Void> future = SettableFuture.create();
+
+        Pending(Update update, boolean isUrgent) {
+            this.update = update;
+            this.isUrgent = isUrgent;
+        }
+    }
+
+    public CacheLocationBatcher(CellStub stub, String poolName) {
+        _stub = requireNonNull(stub);
+        _poolName = requireNonNull(poolName);
+    }
+
+    public void setExecutor(ScheduledExecutorService executor) {
+        _executor = executor;
+    }
+
+    /**
+     * Sets the time in milliseconds updates are collected before they are sent. A window of
+     * zero disables batching.
+     */
+    public synchronized void setWindow(long window) {
+        checkArgument(window >= 0, "Window must not be negative");
+        _window = window;
+    }
+
+    public synchronized void setMaxBatchSize(int size) {
+        checkArgument(size > 0, "Batch size must be positive");
+        _maxBatchSize = size;
+    }
+
+    public String getPoolName() {
+        return _poolName;
+    }
+
+    public synchronized boolean isEnabled() {
+        return _window > 0;
+    }
+
+    /**
+     * Registers the replica of {@code pnfsId} on the pool.
+     *
+     * @param isUrgent true if the caller waits for the result
+     * @return a future completing once PnfsManager has applied the update
+     */
+    public ListenableFuture<Void> add(PnfsId pnfsId, boolean isUrgent) {
+        return submit(Update.add(pnfsId), isUrgent);
+    }
+
+    /**
+     * Unregisters the replica of {@code pnfsId} from the pool.
+     *
+     * @return a future completing once PnfsManager has applied the update
+     */
+    public ListenableFuture<Void> clear(PnfsId pnfsId, boolean removeIfLast) {
+        return submit(Update.clear(pnfsId, removeIfLast), false);
+    }
+
+    /**
+     * Sends the pending updates of {@code pnfsId} immediately. Callers that update the cache
+     * locations of a file by other means use this to keep the order of updates.
+     *
+     * @return a future completing once all updates of the file submitted so far have been
+     * applied or have failed
+     */
+    public synchronized ListenableFuture<Void> flush(PnfsId pnfsId) {
+        Pending last = null;
+        for (Pending pending : _queue) {
+            if (pending.update.getPnfsId().equals(pnfsId)) {
+                last = pending;
+            }
+        }
+        if (last != null) {
+            if (!last.isUrgent) {
+                last.isUrgent = true;
+                _urgent++;
+            }
+            schedule();
+            return last.future;
+        }
+        if (_inFlight != null) {
+            for (Pending pending : Lists.reverse(_inFlight)) {
+                if (pending.update.getPnfsId().equals(pnfsId)) {
+                    return pending.future;
+                }
+            }
+        }
+        return Futures.immediateFuture(null);
+    }
+
+    private synchronized ListenableFuture<Void> submit(Update update, boolean isUrgent) {
+        Pending pending = new Pending(update, isUrgent);
+        _queue.add(pending);
+        if (isUrgent) {
+            _urgent++;
+        }
+        schedule();
+        return pending.future;
+    }
+
+    /**
+     * Arranges for the next batch to be sent. Must be called with the monitor held.
+     */
+    private void schedule() {
+        if (_inFlight != null || _queue.isEmpty()) {
+            return;
+        }
+        if (_urgent > 0 || _queue.size() >= _maxBatchSize) {
+            if (_scheduled != null) {
+                _scheduled.cancel(false);
+                _scheduled = null;
+            }
+            _executor.execute(this::send);
+        } else if (_scheduled == null) {
+            _scheduled = _executor.schedule(this::send, _window, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void send() {
+        List<Pending> batch = new ArrayList<>();
+        synchronized (this) {
+            _scheduled = null;
+            if (_inFlight != null || _queue.isEmpty()) {
+                return;
+            }
+            while (!_queue.isEmpty() && batch.size() < _maxBatchSize) {
+                Pending pending = _queue.remove();
+                if (pending.isUrgent) {
+                    _urgent--;
+                }
+                batch.add(pending);
+            }
+            _inFlight = batch;
+        }
+
+        List<Update> updates = new ArrayList<>(batch.size());
+        batch.forEach(p -> updates.add(p.update));
+        _batches.increment();
+        _updates.add(updates.size());
+
+        ListenableFuture<PnfsUpdateCacheLocationsMessage> future;
+        try {
+            future = _stub.send(new PnfsUpdateCacheLocationsMessage(_poolName, updates));
+        } catch (RuntimeException e) {
+            future = Futures.immediateFailedFuture(e);
+        }
+        Futures.addCallback(future, new FutureCallback<PnfsUpdateCacheLocationsMessage>() {
+            @Override
+            public void onSuccess(PnfsUpdateCacheLocationsMessage reply) {
+                if (reply.getReturnCode() != 0) {
+                    onFailure(CacheExceptionFactory.exceptionOf(reply));
+                    return;
+                }
+                List<Update> results = reply.getUpdates();
+                for (int i = 0; i < batch.size(); i++) {
+                    Update result = results.get(i);
+                    if (result.getReturnCode() == 0) {
+                        batch.get(i).future.set(null);
+                    } else {
+                        _failures.increment();
+                        batch.get(i).future.setException(CacheExceptionFactory.exceptionOf(
+                              result.getReturnCode(), result.getErrorMessage()));
+                    }
+                }
+                completed();
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                LOGGER.warn("Failed to update {} cache locations: {}", batch.size(),
+                      t.getMessage());
+                _failures.add(batch.size());
+                batch.forEach(p -> p.future.setException(t));
+                completed();
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    private synchronized void completed() {
+        _inFlight = null;
+        schedule();
+    }
+
+    @Override
+    public synchronized void getInfo(PrintWriter pw) {
+        pw.println("Batch window       : " + (_window > 0 ? _window + " ms" : "disabled"));
+        pw.println("Max batch size     : " + _maxBatchSize);
+        pw.println("Queued updates     : " + _queue.size());
+        pw.println("Batches sent       : " + _batches.sum());
+        pw.println("Updates sent       : " + _updates.sum());
+        pw.println("Failed updates     : " + _failures.sum());
+    }
+}
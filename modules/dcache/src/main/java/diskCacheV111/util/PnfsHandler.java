@@ -5,7 +5,10 @@ import static org.dcache.namespace.FileAttribute.PNFSID;
 import static org.dcache.namespace.FileType.DIR;
 import static org.dcache.namespace.FileType.LINK;
 
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import diskCacheV111.namespace.NameSpaceProvider.Link;
 import diskCacheV111.vehicles.PnfsAddCacheLocationMessage;
 import diskCacheV111.vehicles.PnfsClearCacheLocationMessage;
@@ -32,9 +35,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import javax.security.auth.Subject;
 import org.dcache.acl.enums.AccessMask;
@@ -42,10 +47,12 @@ import org.dcache.auth.attributes.Restriction;
 import org.dcache.cells.CellStub;
 import org.dcache.namespace.FileAttribute;
 import org.dcache.namespace.FileType;
+import org.dcache.util.CacheExceptionFactory;
 import org.dcache.util.ChecksumType;
 import org.dcache.vehicles.FileAttributes;
 import org.dcache.vehicles.PnfsCreateSymLinkMessage;
 import org.dcache.vehicles.PnfsGetFileAttributes;
+import org.dcache.vehicles.PnfsGetFileAttributesBatch;
 import org.dcache.vehicles.PnfsRemoveChecksumMessage;
 import org.dcache.vehicles.PnfsSetFileAttributes;
 import org.slf4j.Logger;
@@ -61,6 +68,7 @@ public class PnfsHandler implements CellMessageSender {
 
     private Subject _subject;
     private Restriction _restriction;
+    private CacheLocationBatcher _cacheLocationBatcher;
 
     private static final Logger _logNameSpace =
           LoggerFactory.getLogger("logger.org.dcache.namespace."
@@ -113,6 +121,7 @@ public class PnfsHandler implements CellMessageSender {
         _cellStub = handler._cellStub;
         _subject = subject;
         _restriction = restriction;
+        _cacheLocationBatcher = handler._cacheLocationBatcher;
     }
 
     /**
@@ -140,6 +149,19 @@ public class PnfsHandler implements CellMessageSender {
         _restriction = restriction;
     }
 
+    /**
+     * Sets a batcher through which cache location changes of the batcher's pool are sent.
+     */
+    public void setCacheLocationBatcher(CacheLocationBatcher batcher) {
+        _cacheLocationBatcher = batcher;
+    }
+
+    private CacheLocationBatcher batcherFor(String pool) {
+        CacheLocationBatcher batcher = _cacheLocationBatcher;
+        return batcher != null && batcher.isEnabled() && batcher.getPoolName().equals(pool)
+              && _subject == null && _restriction == null ? batcher : null;
+    }
+
     /**
      * Sends a PnfsMessage to PnfsManager.
      */
@@ -193,7 +215,12 @@ public class PnfsHandler implements CellMessageSender {
     }
 
     public void clearCacheLocation(PnfsId id, boolean removeIfLast) {
-        notify(new PnfsClearCacheLocationMessage(id, _poolName, removeIfLast));
+        CacheLocationBatcher batcher = batcherFor(_poolName);
+        if (batcher != null) {
+            batcher.clear(id, removeIfLast);
+        } else {
+            notify(new PnfsClearCacheLocationMessage(id, _poolName, removeIfLast));
+        }
     }
 
     public void addCacheLocation(PnfsId id) throws CacheException {
@@ -201,7 +228,52 @@ public class PnfsHandler implements CellMessageSender {
     }
 
     public void addCacheLocation(PnfsId id, String pool) throws CacheException {
-        request(new PnfsAddCacheLocationMessage(id, pool));
+        CacheLocationBatcher batcher = batcherFor(pool);
+        if (batcher != null) {
+            try {
+                CellStub.get(batcher.add(id, true));
+            } catch (InterruptedException e) {
+                throw new CacheException(CacheException.UNEXPECTED_SYSTEM_EXCEPTION,
+                      "Sending message to " + _cellStub.getDestinationPath() + " interrupted");
+            } catch (NoRouteToCellException e) {
+                throw new TimeoutCacheException(e.getMessage(), e);
+            }
+        } else {
+            flushCacheLocations(id, List.of(pool));
+            request(new PnfsAddCacheLocationMessage(id, pool));
+        }
+    }
+
+    /**
+     * Registers the pool as a location of a file without waiting for the outcome.
+     */
+    public void notifyCacheLocation(PnfsId id) {
+        CacheLocationBatcher batcher = batcherFor(_poolName);
+        if (batcher != null) {
+            batcher.add(id, false);
+        } else {
+            notify(new PnfsAddCacheLocationMessage(id, _poolName));
+        }
+    }
+
+    /**
+     * Waits for batched cache location updates of a file before any of {@code pools} is
+     * registered as a location without the batcher, as otherwise a pending removal could be
+     * applied after the new location was registered.
+     */
+    private void flushCacheLocations(PnfsId id, Collection<String> pools) throws CacheException {
+        CacheLocationBatcher batcher = _cacheLocationBatcher;
+        if (batcher == null || !pools.contains(batcher.getPoolName())) {
+            return;
+        }
+        try {
+            batcher.flush(id).get();
+        } catch (InterruptedException e) {
+            throw new CacheException(CacheException.UNEXPECTED_SYSTEM_EXCEPTION,
+                  "Sending message to " + _cellStub.getDestinationPath() + " interrupted");
+        } catch (ExecutionException ignored) {
+            // The outcome of earlier updates does not affect this one.
+        }
     }
 
     public List<String> getCacheLocations(PnfsId pnfsId) throws CacheException {
@@ -526,6 +598,39 @@ public class PnfsHandler implements CellMessageSender {
         return getFileAttributes(path.toString(), attr);
     }
 
+    /**
+     * Get the same attributes of many files with as few messages as possible.  The PnfsManager is
+     * free to return fewer attributes than requested.  Files that do not exist are omitted from
+     * the result; any other failure fails the returned future.
+     *
+     * @param pnfsids the files to look up
+     * @param attr    the requested attributes
+     * @return a future map of PNFS IDs to the requested attributes
+     */
+    public ListenableFuture<Map<PnfsId, FileAttributes>> getFileAttributesAsync(
+          Collection<PnfsId> pnfsids, Set<FileAttribute> attr) {
+        List<ListenableFuture<PnfsGetFileAttributesBatch>> replies = new ArrayList<>();
+        for (List<PnfsId> chunk : Iterables.partition(pnfsids,
+              PnfsGetFileAttributesBatch.MAX_ENTRIES)) {
+            replies.add(requestAsync(PnfsGetFileAttributesBatch.ofPnfsIds(chunk, attr)));
+        }
+        return Futures.transformAsync(Futures.allAsList(replies), messages -> {
+            Map<PnfsId, FileAttributes> result = new HashMap<>();
+            for (PnfsGetFileAttributesBatch message : messages) {
+                for (PnfsGetFileAttributesBatch.Entry entry : message.getEntries()) {
+                    int rc = entry.getReturnCode();
+                    if (rc == 0) {
+                        result.put(entry.getPnfsId(), entry.getFileAttributes());
+                    } else if (rc != CacheException.FILE_NOT_FOUND) {
+                        return Futures.immediateFailedFuture(
+                              CacheExceptionFactory.exceptionOf(rc, entry.getErrorMessage()));
+                    }
+                }
+            }
+            return Futures.immediateFuture(result);
+        }, MoreExecutors.directExecutor());
+    }
+
     /**
      * Get file attributes. The PnfsManager is free to return less attributes than requested. If
      * <code>attr</code> is an empty array, file existence if checked.
@@ -560,6 +665,9 @@ public class PnfsHandler implements CellMessageSender {
      */
     public FileAttributes setFileAttributes(PnfsId pnfsid, FileAttributes attr,
           Set<FileAttribute> acquire) throws CacheException {
+        if (attr.isDefined(FileAttribute.LOCATIONS)) {
+            flushCacheLocations(pnfsid, attr.getLocations());
+        }
         return request(new PnfsSetFileAttributes(pnfsid, attr, acquire)).getFileAttributes();
     }
 
@@ -570,6 +678,9 @@ public class PnfsHandler implements CellMessageSender {
      * @param attr   array of requested attributes.
      */
     public void setFileAttributes(PnfsId pnfsid, FileAttributes attr) throws CacheException {
+        if (attr.isDefined(FileAttribute.LOCATIONS)) {
+            flushCacheLocations(pnfsid, attr.getLocations());
+        }
         request(new PnfsSetFileAttributes(pnfsid, attr));
     }
 
@@ -4,13 +4,20 @@ import static com.google.common.base.Strings.emptyToNull;
 import static org.dcache.boot.Properties.PATH_DELIMITER;
 import static org.dcache.boot.Properties.PROPERTY_DOMAIN_NAME;
 import static org.dcache.boot.Properties.PROPERTY_DOMAIN_PRELOAD;
+import static org.dcache.boot.Properties.PROPERTY_DOMAIN_STARTUP_SEQUENTIAL;
+import static org.dcache.boot.Properties.PROPERTY_DOMAIN_STARTUP_THREADS;
 import static org.dcache.boot.Properties.PROPERTY_DOMAIN_SERVICE;
 import static org.dcache.boot.Properties.PROPERTY_DOMAIN_SERVICE_BATCH;
+import static org.dcache.boot.Properties.PROPERTY_DOMAIN_SERVICE_START_AFTER;
 import static org.dcache.boot.Properties.PROPERTY_DOMAIN_SERVICE_URI;
 import static org.dcache.boot.Properties.PROPERTY_DOMAIN_SERVICE_URI_BASE;
 import static org.dcache.boot.Properties.PROPERTY_LOG_CONFIG;
+import static org.dcache.boot.Properties.PROPERTY_METRICS_LISTEN;
+import static org.dcache.boot.Properties.PROPERTY_METRICS_PORT;
 import static org.dcache.boot.Properties.PROPERTY_MSG_PAYLOAD_SERIALIZER;
 import static org.dcache.boot.Properties.PROPERTY_PLUGIN_PATH;
+import static org.dcache.boot.Properties.PROPERTY_TRACING_EXPORTER;
+import static org.dcache.boot.Properties.PROPERTY_TRACING_SAMPLING_RATE;
 import static org.dcache.boot.Properties.PROPERTY_ZONE;
 import static org.dcache.boot.Properties.PROPERTY_ZOOKEPER_CONNECTION;
 import static org.dcache.boot.Properties.PROPERTY_ZOOKEPER_CONNECTION_TIMEOUT;
@@ -26,6 +33,7 @@ import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.joran.JoranConfigurator;
 import ch.qos.logback.core.joran.spi.JoranException;
 import ch.qos.logback.core.util.StatusPrinter;
+import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 import com.google.common.base.Throwables;
 import com.google.common.primitives.Ints;
@@ -39,18 +47,26 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import org.apache.curator.RetryPolicy;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
 import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.dcache.metrics.MetricRegistry;
+import org.dcache.metrics.OpenMetricsServer;
+import org.dcache.tracing.SpanExporters;
+import org.dcache.tracing.Tracer;
 import org.dcache.util.Args;
 import org.dcache.util.configuration.ConfigurationProperties;
 import org.slf4j.Logger;
@@ -71,6 +87,8 @@ public class Domain {
     private static final Logger LOGGER =
           LoggerFactory.getLogger(SystemCell.class);
 
+    private static final Splitter SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
     private static final Logger EVENT_LOGGER = LoggerFactory.getLogger("org.dcache.zookeeper");
 
     private final ConfigurationProperties _properties;
@@ -159,16 +177,76 @@ public class Domain {
         }
         LOGGER.info("Starting {}", domainName);
 
+        startMetricsServer();
+        configureTracing();
         executePreload(systemCell);
-        for (ConfigurationProperties serviceConfig : _services) {
-            executeService(systemCell, serviceConfig);
-        }
+        startServices(systemCell);
 
         if (_services.isEmpty()) {
             LOGGER.warn("No services found. Domain appears to be empty.");
         }
     }
 
+    /**
+     * Executes the batch files of all services.  Services are started concurrently, subject to the
+     * order given by their start-after constraints and the sequential service types.
+     */
+    private void startServices(SystemCell systemCell) throws Exception {
+        String domainName = getName();
+        int threads = Integer.parseInt(_properties.getValue(PROPERTY_DOMAIN_STARTUP_THREADS));
+        Set<String> sequential = new HashSet<>(SPLITTER.splitToList(
+              Strings.nullToEmpty(_properties.getValue(PROPERTY_DOMAIN_STARTUP_SEQUENTIAL))));
+
+        ServiceStartup startup = new ServiceStartup(Math.max(threads, 1));
+        for (ConfigurationProperties service : _services) {
+            String type = service.getValue(PROPERTY_DOMAIN_SERVICE);
+            String name = Optional.ofNullable(emptyToNull(Properties.getCellName(service)))
+                  .orElse(type);
+            List<String> startAfter = SPLITTER.splitToList(
+                  Strings.nullToEmpty(service.getValue(PROPERTY_DOMAIN_SERVICE_START_AFTER)));
+            startup.add(name, sequential.contains(type), startAfter, () -> {
+                try (CDC ignored = CDC.reset(SYSTEM_CELL_NAME, domainName)) {
+                    executeService(systemCell, service);
+                }
+            });
+        }
+        startup.start();
+
+        Map<String, Long> times = startup.getStartupTimes();
+        if (!times.isEmpty()) {
+            LOGGER.info("Started services in {}", times.entrySet().stream()
+                  .map(e -> e.getKey() + " (" + e.getValue() + " ms)")
+                  .collect(Collectors.joining(", ")));
+        }
+        systemCell.setServiceStartupTimes(times);
+    }
+
+    private void startMetricsServer() throws IOException {
+        String port = _properties.getValue(PROPERTY_METRICS_PORT);
+        if (!Strings.isNullOrEmpty(port)) {
+            String listen = _properties.getValue(PROPERTY_METRICS_LISTEN);
+            InetSocketAddress address = Strings.isNullOrEmpty(listen)
+                  ? new InetSocketAddress(Integer.parseInt(port))
+                  : new InetSocketAddress(listen, Integer.parseInt(port));
+            OpenMetricsServer server = new OpenMetricsServer(MetricRegistry.getDomainRegistry());
+            server.start(address);
+            LOGGER.info("Serving metrics on {}", server.getAddress());
+        }
+    }
+
+    private void configureTracing() throws IOException {
+        java.util.Properties configuration = new java.util.Properties();
+        for (String name : _properties.stringPropertyNames()) {
+            if (name.startsWith("dcache.tracing.")) {
+                configuration.setProperty(name, _properties.getValue(name));
+            }
+        }
+        Tracer.setExporter(SpanExporters.create(
+              _properties.getValue(PROPERTY_TRACING_EXPORTER), configuration));
+        Tracer.setSamplingRate(
+              Double.parseDouble(_properties.getValue(PROPERTY_TRACING_SAMPLING_RATE)));
+    }
+
     protected CuratorFramework createCuratorFramework() {
         int maxRetries = Integer.parseInt(_properties.getValue(PROPERTY_ZOOKEPER_RETRIES));
         String zookeeperConnectionString = _properties.getValue(PROPERTY_ZOOKEPER_CONNECTION);
@@ -22,9 +22,16 @@ public class Properties {
     public static final String PROPERTY_DOMAIN_SERVICE_URI = "dcache.domain.service.uri";
     public static final String PROPERTY_DOMAIN_SERVICE_BATCH = "dcache.domain.service.batch";
     public static final String PROPERTY_DOMAIN_PRELOAD = "dcache.domain.preload";
+    public static final String PROPERTY_DOMAIN_STARTUP_THREADS = "dcache.domain.startup.threads";
+    public static final String PROPERTY_DOMAIN_STARTUP_SEQUENTIAL = "dcache.domain.startup.sequential-services";
+    public static final String PROPERTY_DOMAIN_SERVICE_START_AFTER = "dcache.domain.service.start-after";
     public static final String PROPERTY_LOG_CONFIG = "dcache.log.configuration";
     public static final String PROPERTY_ZONE = "dcache.zone";
     public static final String PROPERTY_MSG_PAYLOAD_SERIALIZER = "dcache.broker.channel.msg-payload-serializer";
+    public static final String PROPERTY_METRICS_PORT = "dcache.metrics.port";
+    public static final String PROPERTY_METRICS_LISTEN = "dcache.metrics.listen";
+    public static final String PROPERTY_TRACING_SAMPLING_RATE = "dcache.tracing.sampling-rate";
+    public static final String PROPERTY_TRACING_EXPORTER = "dcache.tracing.exporter";
 
     public static final String PROPERTY_ZOOKEPER_CONNECTION = "dcache.zookeeper.connection";
     public static final String PROPERTY_ZOOKEPER_RETRIES = "dcache.zookeeper.max-retries";
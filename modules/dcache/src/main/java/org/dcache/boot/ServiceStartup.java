@@ -0,0 +1,210 @@
+package org.dcache.boot;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the services of a domain concurrently, subject to ordering constraints.
+ * <p>
+ * A service starts once all services it is declared to start after have started. The name
+ * {@code *} stands for all services added before it. A sequential service starts after all
+ * services added before it, and all services added after it start after it.  Services without
+ * constraints start in the order they were added as threads become available, so a single thread
+ * starts all services strictly in order.
+ * <p>
+ * If a service fails to start, services that have not started yet are not started.
+ */
+class ServiceStartup {
+
+    /**
+     * Starts a service.
+     */
+    @FunctionalInterface
+    interface Task {
+
+        void run() throws Exception;
+    }
+
+    private enum State {
+        WAITING, STARTING, STARTED, FAILED
+    }
+
+    private static class Service {
+
+        private final String name;
+        private final Task task;
+        private final List<Service> dependencies;
+        private State state = State.WAITING;
+        private Throwable failure;
+        private long millis;
+
+        private Service(String name, Task task, List<Service> dependencies) {
+            this.name = name;
+            this.task = task;
+            this.dependencies = dependencies;
+        }
+
+        private boolean isReady() {
+            return state == State.WAITING
+                  && dependencies.stream().allMatch(s -> s.state == State.STARTED);
+        }
+    }
+
+    private final int threads;
+    private final List<Service> services = new ArrayList<>();
+    private final Map<String, Service> byName = new HashMap<>();
+    private Service barrier;
+    private int starting;
+    private boolean isFailed;
+
+    /**
+     * @param threads the maximum number of services starting at the same time
+     */
+    ServiceStartup(int threads) {
+        checkArgument(threads > 0, "Number of threads must be positive.");
+        this.threads = threads;
+    }
+
+    /**
+     * Adds a service.
+     *
+     * @param name       name of the service
+     * @param sequential whether the service must start on its own
+     * @param startAfter names of services added before that must have started before this one
+     * @param task       starts the service
+     * @throws IllegalArgumentException if a name in startAfter was not added before
+     */
+    synchronized void add(String name, boolean sequential, Collection<String> startAfter,
+          Task task) {
+        List<Service> dependencies = new ArrayList<>();
+        if (barrier != null) {
+            dependencies.add(barrier);
+        }
+        for (String after : startAfter) {
+            if (after.equals("*")) {
+                sequential = true;
+            } else {
+                Service service = byName.get(after);
+                if (service == null) {
+                    throw new IllegalArgumentException("Service " + name + " cannot start after "
+                          + after + ": No such service is defined before it.");
+                }
+                dependencies.add(service);
+            }
+        }
+        if (sequential) {
+            dependencies.addAll(services);
+        }
+
+        Service service = new Service(name, task, dependencies);
+        services.add(service);
+        byName.putIfAbsent(name, service);
+        if (sequential) {
+            barrier = service;
+        }
+    }
+
+    /**
+     * Returns the first service, in the order services were added, that may start now, waiting
+     * for one to become available. Returns null once no further service is to be started.
+     */
+    private synchronized Service next() throws InterruptedException {
+        while (!isFailed) {
+            Optional<Service> ready = services.stream().filter(Service::isReady).findFirst();
+            if (ready.isPresent()) {
+                Service service = ready.get();
+                service.state = State.STARTING;
+                starting++;
+                return service;
+            }
+            if (starting == 0) {
+                break;
+            }
+            wait();
+        }
+        return null;
+    }
+
+    private synchronized void finished(Service service, long millis, Throwable failure) {
+        service.millis = millis;
+        service.failure = failure;
+        service.state = (failure == null) ? State.STARTED : State.FAILED;
+        isFailed |= (failure != null);
+        starting--;
+        notifyAll();
+    }
+
+    private void work() {
+        try {
+            Service service;
+            while ((service = next()) != null) {
+                long start = System.nanoTime();
+                Throwable failure = null;
+                try {
+                    service.task.run();
+                } catch (Exception | Error e) {
+                    failure = e;
+                }
+                finished(service,
+                      TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Starts the services and waits until all have started.  If a service fails to start, waits
+     * for the services already starting and does not start any further services.
+     *
+     * @throws Exception the failure of the first service, in the order services were added, that
+     *                   failed to start
+     */
+    void start() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+              new ThreadFactoryBuilder().setNameFormat("startup-%d").build());
+        try {
+            executor.invokeAll(Collections.nCopies(threads, Executors.callable(this::work)));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        synchronized (this) {
+            for (Service service : services) {
+                if (service.state == State.FAILED) {
+                    Throwables.propagateIfPossible(service.failure, Exception.class);
+                    throw new AssertionError(
+                          "Throwable should be either unchecked or subclass of Exception",
+                          service.failure);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the time in milliseconds each service took to start, in the order services were
+     * added.  Services that did not start are omitted.
+     */
+    synchronized Map<String, Long> getStartupTimes() {
+        Map<String, Long> times = new LinkedHashMap<>();
+        for (Service service : services) {
+            if (service.state == State.STARTED) {
+                times.put(service.name, service.millis);
+            }
+        }
+        return times;
+    }
+}
@@ -7,10 +7,12 @@ import dmg.cells.nucleus.CellAddressCore;
 import dmg.cells.nucleus.CellEndpoint;
 import dmg.cells.nucleus.CellMessage;
 import dmg.cells.nucleus.CellMessageReceiver;
+import dmg.cells.nucleus.CellMetricsProvider;
 import dmg.cells.nucleus.Reply;
 import dmg.cells.nucleus.UOID;
 import java.io.Serializable;
 import java.util.concurrent.Executor;
+import org.dcache.metrics.MetricRegistry;
 import org.dcache.util.Args;
 import org.dcache.util.Option;
 import org.dcache.util.OptionParser;
@@ -79,7 +81,8 @@ import org.dcache.util.OptionParser;
  *
  * @see org.dcache.cells.CellMessageDispatcher
  */
-public class AbstractCell extends CellAdapter implements CellMessageReceiver {
+public class AbstractCell extends CellAdapter
+      implements CellMessageReceiver, CellMetricsProvider {
 
     private static final String MSG_UOID_MISMATCH =
           "A reply [%s] was generated by a message listener, but the " +
@@ -171,6 +174,11 @@ public class AbstractCell extends CellAdapter implements CellMessageReceiver {
         addCommandListener(_monitor);
     }
 
+    @Override
+    public void registerMetrics(MetricRegistry.Scope scope) {
+        _monitor.registerMetrics(scope);
+    }
+
     /**
      * Adds a listener for dCache messages.
      *
@@ -45,6 +45,7 @@ public class CellStub
     private CellEndpoint.SendFlag[] _flags = {};
     private volatile Semaphore _concurrency = new UnlimitedSemaphore();
     private volatile RateLimiter _rateLimiter = RateLimiter.create(Double.POSITIVE_INFINITY);
+    private volatile RequestCoalescer _coalescer;
 
     public CellStub() {
     }
@@ -79,6 +80,7 @@ public class CellStub
         CellStub newStub = new CellStub(_endpoint, destination, _timeout,
                 _timeoutUnit);
         newStub._flags = _flags;
+        newStub._coalescer = _coalescer;
         return newStub;
     }
 
@@ -188,6 +190,22 @@ public class CellStub
         return _rateLimiter;
     }
 
+    /**
+     * Sets the coalescer through which requests are sent.
+     * <p>
+     * Concurrent requests that the coalescer considers identical are sent only once and share the
+     * reply.  Notification requests are not coalesced.
+     *
+     * @param coalescer request coalescer, or null to send every request
+     */
+    public void setRequestCoalescer(RequestCoalescer coalescer) {
+        _coalescer = coalescer;
+    }
+
+    public RequestCoalescer getRequestCoalescer() {
+        return _coalescer;
+    }
+
     /**
      * Sends a message and waits for the reply. The reply is expected to contain a message object of
      * the same type as the message object that was sent, and the return code of that message is
@@ -380,6 +398,17 @@ public class CellStub
     public <T> ListenableFuture<T> send(
           CellPath destination, Serializable message, Class<T> type, long timeout,
           CellEndpoint.SendFlag... flags) {
+        RequestCoalescer coalescer = _coalescer;
+        if (coalescer != null) {
+            return coalescer.send(destination, message, type, timeout, flags,
+                  () -> doSend(destination, message, type, timeout, flags));
+        }
+        return doSend(destination, message, type, timeout, flags);
+    }
+
+    private <T> ListenableFuture<T> doSend(
+          CellPath destination, Serializable message, Class<T> type, long timeout,
+          CellEndpoint.SendFlag[] flags) {
         CellMessage envelope = new CellMessage(requireNonNull(destination),
               requireNonNull(message));
         Semaphore concurrency = _concurrency;
@@ -6,17 +6,21 @@ import dmg.cells.nucleus.CellEndpoint;
 import dmg.cells.nucleus.CellMessage;
 import dmg.cells.nucleus.CellMessageAnswerable;
 import dmg.cells.nucleus.CellMessageSender;
+import dmg.cells.nucleus.CellMetricsProvider;
 import dmg.cells.nucleus.SerializationException;
 import dmg.util.command.Command;
 import java.io.Serializable;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
+import org.dcache.commons.stats.RequestCounter;
 import org.dcache.commons.stats.RequestCounters;
+import org.dcache.commons.stats.RequestExecutionTimeGauge;
 import org.dcache.commons.stats.RequestExecutionTimeGauges;
+import org.dcache.metrics.MetricRegistry;
 
 public class MessageProcessingMonitor
-      implements CellCommandListener, CellMessageSender {
+      implements CellCommandListener, CellMessageSender, CellMetricsProvider {
 
     /**
      * Request counters used to count message processing.
@@ -38,7 +42,7 @@ public class MessageProcessingMonitor
 
     public MessageProcessingMonitor() {
         _counters = new RequestCounters<>("Messages");
-        _gauges = new RequestExecutionTimeGauges<>("Messages");
+        _gauges = new RequestExecutionTimeGauges<>("Messages", true, true);
         _enabled = false;
     }
 
@@ -55,6 +59,29 @@ public class MessageProcessingMonitor
         return _enabled;
     }
 
+    /**
+     * Exposes the message statistics.  Samples only change while monitoring is enabled.
+     */
+    @Override
+    public void registerMetrics(MetricRegistry.Scope scope) {
+        scope.counter("dcache_cell_requests", "Requests processed by a cell.", out -> {
+            for (RequestCounter counter : _counters.getCounters()) {
+                out.sample("message", counter.getName(), counter.getTotalRequests());
+            }
+        });
+        scope.counter("dcache_cell_request_failures", "Requests failed by a cell.", out -> {
+            for (RequestCounter counter : _counters.getCounters()) {
+                out.sample("message", counter.getName(), counter.getFailed());
+            }
+        });
+        scope.summary("dcache_cell_request_duration_seconds",
+              "Time taken by a cell to process requests.", out -> {
+                  for (RequestExecutionTimeGauge gauge : _gauges.getGauges()) {
+                      out.summary("message", gauge.getName(), gauge, 0.001);
+                  }
+              });
+    }
+
     public CellEndpoint getReplyCellEndpoint(CellMessage envelope) {
         if (_enabled) {
             Class<? extends Serializable> type = envelope.getMessageObject().getClass();
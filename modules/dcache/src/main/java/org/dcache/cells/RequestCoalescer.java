@@ -0,0 +1,179 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.cells;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import dmg.cells.nucleus.CellEndpoint;
+import dmg.cells.nucleus.CellInfoProvider;
+import dmg.cells.nucleus.CellPath;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent, identical requests sent through a {@link CellStub}.
+ * <p>
+ * A request is sent at most once while an identical request is in flight: later requests share
+ * the reply of the earlier one.  Two requests are identical if they are of the same type, are sent
+ * to the same destination with the same timeout and flags, expect the same type of reply and the
+ * key extractor registered for the message type yields equal keys for them.  Messages of types for
+ * which no key extractor is registered, or for which the key extractor returns null, are always
+ * sent.
+ * <p>
+ * Only message types whose processing is idempotent and independent of anything not captured by
+ * the key (such as the subject of a message) should be registered.  As requests share the reply
+ * object, callers must not modify replies of registered types.
+ * <p>
+ * Cancelling the future of a coalesced request does not cancel the shared request.
+ */
+public class RequestCoalescer implements CellInfoProvider {
+
+    private static class Key {
+
+        private final CellPath destination;
+        private final Class<?> messageType;
+        private final Class<?> replyType;
+        private final long timeout;
+        private final List<CellEndpoint.SendFlag> flags;
+        private final Object key;
+
+        private Key(CellPath destination, Class<?> messageType, Class<?> replyType, long timeout,
+              CellEndpoint.SendFlag[] flags, Object key) {
+            this.destination = requireNonNull(destination).clone();
+            this.messageType = messageType;
+            this.replyType = replyType;
+            this.timeout = timeout;
+            this.flags = Arrays.asList(flags);
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return timeout == other.timeout
+                  && destination.equals(other.destination)
+                  && messageType.equals(other.messageType)
+                  && replyType.equals(other.replyType)
+                  && flags.equals(other.flags)
+                  && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(destination, messageType, replyType, timeout, flags, key);
+        }
+    }
+
+    private static class Counters {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+    }
+
+    private final Map<Class<?>, Function<Object, ?>> extractors = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Key, ListenableFuture<?>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Counters> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a key extractor for messages of the given type.  Subclasses of the type are not
+     * affected.
+     *
+     * @param type      message type
+     * @param extractor function returning the key identifying equal requests, or null if the
+     *                  request must not be coalesced
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Serializable> void register(Class<T> type,
+          Function<? super T, ?> extractor) {
+        extractors.put(type, (Function<Object, ?>) requireNonNull(extractor));
+        counters.computeIfAbsent(type, t -> new Counters());
+    }
+
+    /**
+     * Sends a request unless an identical request is in flight.
+     *
+     * @param send sends the request
+     * @return the future of the request or of the identical request in flight
+     */
+    @SuppressWarnings("unchecked")
+    <T> ListenableFuture<T> send(CellPath destination, Serializable message, Class<T> type,
+          long timeout, CellEndpoint.SendFlag[] flags, Supplier<ListenableFuture<T>> send) {
+        Function<Object, ?> extractor = extractors.get(message.getClass());
+        Object id = (extractor == null) ? null : extractor.apply(message);
+        if (id == null) {
+            return send.get();
+        }
+
+        Counters counter = counters.get(message.getClass());
+        counter.requests.increment();
+
+        Key key = new Key(destination, message.getClass(), type, timeout, flags, id);
+        SettableFuture<T> future = SettableFuture.create();
+        ListenableFuture<?> existing;
+        while ((existing = inFlight.putIfAbsent(key, future)) != null) {
+            if (!existing.isDone()) {
+                counter.coalesced.increment();
+                return Futures.nonCancellationPropagating((ListenableFuture<T>) existing);
+            }
+            inFlight.remove(key, existing);
+        }
+
+        future.addListener(() -> inFlight.remove(key, future), MoreExecutors.directExecutor());
+        try {
+            future.setFuture(send.get());
+        } catch (RuntimeException | Error e) {
+            future.setException(e);
+            throw e;
+        }
+        return Futures.nonCancellationPropagating(future);
+    }
+
+    @Override
+    public void getInfo(PrintWriter pw) {
+        pw.println("Requests in flight: " + inFlight.size());
+        counters.entrySet().stream()
+              .sorted(Map.Entry.comparingByKey(Comparator.comparing(Class::getName)))
+              .forEach(e -> {
+                  long requests = e.getValue().requests.sum();
+                  long coalesced = e.getValue().coalesced.sum();
+                  pw.println(String.format("  %-40s %10d requests %10d coalesced (%.1f%%)",
+                        e.getKey().getSimpleName(), requests, coalesced,
+                        requests == 0 ? 0.0 : 100.0 * coalesced / requests));
+              });
+    }
+}
@@ -25,6 +25,7 @@ import dmg.cells.nucleus.CellInfoProvider;
 import dmg.cells.nucleus.CellLifeCycleAware;
 import dmg.cells.nucleus.CellMessageReceiver;
 import dmg.cells.nucleus.CellMessageSender;
+import dmg.cells.nucleus.CellMetricsProvider;
 import dmg.cells.nucleus.CellSetupProvider;
 import dmg.cells.nucleus.DelayedReply;
 import dmg.cells.nucleus.DomainContextAware;
@@ -75,6 +76,7 @@ import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.KeeperException.BadVersionException;
 import org.apache.zookeeper.KeeperException.NoNodeException;
 import org.apache.zookeeper.data.Stat;
+import org.dcache.metrics.MetricRegistry;
 import org.dcache.util.Args;
 import org.dcache.util.cli.CommandExecutor;
 import org.dcache.vehicles.BeanQueryAllPropertiesMessage;
@@ -113,7 +115,7 @@ import org.springframework.core.env.PropertySource;
  * <p>
  * Beans can get access to core cell functionality by implementing one or more of the following
  * interfaces: CellInfoProvider, CellCommunicationAware, ThreadFactoryAware, CellCommandListener,
- * and CellSetupAware. When instantiated through this class, those interfaces are detected and the
+ * CellMetricsProvider and CellSetupAware. When instantiated through this class, those interfaces are detected and the
  * necessary wiring is performed automatically.
  */
 public class UniversalSpringCell
@@ -165,6 +167,12 @@ public class UniversalSpringCell
     private final Map<String, CellLifeCycleAware> _lifeCycleAware =
           new TreeMap<>();
 
+    /**
+     * List of registered metrics providers. Sorted to maintain consistent ordering.
+     */
+    private final Map<String, CellMetricsProvider> _metricsProviders =
+          new TreeMap<>();
+
     /**
      * Command interpreter for processing setup files.
      */
@@ -253,6 +261,14 @@ public class UniversalSpringCell
         }
     }
 
+    @Override
+    public void registerMetrics(MetricRegistry.Scope scope) {
+        super.registerMetrics(scope);
+        for (CellMetricsProvider provider : _metricsProviders.values()) {
+            provider.registerMetrics(scope);
+        }
+    }
+
     @Override
     protected void stopping() {
         super.stopping();
@@ -944,6 +960,14 @@ public class UniversalSpringCell
         _lifeCycleAware.put(name, bean);
     }
 
+    /**
+     * Registers a metrics provider. Metrics providers contribute to the metrics of the domain
+     * while the cell is running.
+     */
+    public void addMetricsProviderBean(CellMetricsProvider bean, String name) {
+        _metricsProviders.put(name, bean);
+    }
+
     /**
      * Part of the BeanPostProcessor implementation. Recognizes beans implementing
      * CellCommandListener, CellInfoProvider, CellCommunicationAware, CellSetupProvider and
@@ -1016,6 +1040,10 @@ public class UniversalSpringCell
             addLifeCycleAwareBean((CellLifeCycleAware) bean, beanName);
         }
 
+        if (bean instanceof CellMetricsProvider) {
+            addMetricsProviderBean((CellMetricsProvider) bean, beanName);
+        }
+
         if (bean instanceof CellEventListener) {
             addCellEventListener((CellEventListener) bean);
         }
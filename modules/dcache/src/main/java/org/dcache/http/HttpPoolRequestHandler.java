@@ -75,6 +75,7 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 import org.dcache.namespace.FileAttribute;
 import org.dcache.pool.movers.NettyTransferService;
+import org.dcache.pool.movers.ReadThrottle;
 import org.dcache.pool.movers.RepositoryFileRegion;
 import org.dcache.pool.repository.OutOfDiskException;
 import org.dcache.util.Checksum;
@@ -133,6 +134,11 @@ public class HttpPoolRequestHandler extends HttpRequestHandler {
      */
     private NettyTransferService<HttpProtocolInfo>.NettyMoverChannel _writeChannel;
 
+    /**
+     * Suspends reading uploaded data while the bandwidth limits of the upload are exceeded.
+     */
+    private final ReadThrottle _readThrottle = new ReadThrottle();
+
     private Optional<ChecksumType> _wantedDigest;
 
     /**
@@ -576,6 +582,7 @@ public class HttpPoolRequestHandler extends HttpRequestHandler {
                     checkContentHeader(((LastHttpContent) content).trailingHeaders().names(),
                           Collections.singletonList(CONTENT_LENGTH));
 
+                    _readThrottle.cancel();
                     context.channel().config().setAutoRead(false);
 
                     NettyTransferService<HttpProtocolInfo>.NettyMoverChannel writeChannel = _writeChannel;
@@ -622,6 +629,7 @@ public class HttpPoolRequestHandler extends HttpRequestHandler {
                     }, MoreExecutors.directExecutor());
                     return promise;
                 }
+                _readThrottle.suspend(context.channel(), _writeChannel.getBandwidthDelay());
             } catch (OutOfDiskException e) {
                 _writeChannel.release(e);
                 _files.remove(_writeChannel);
@@ -796,7 +804,8 @@ public class HttpPoolRequestHandler extends HttpRequestHandler {
         /* need to count position 0 as well */
         long length = (upperRange - lowerRange) + 1;
 
-        if (_useZeroCopy) {
+        /* Zero-copy transfers cannot be deferred while bandwidth limits are exceeded. */
+        if (_useZeroCopy && !file.isBandwidthShaped()) {
             // disable timeout manager as zero-copy can't keep idle counters in sync
             var hasIdleStateHandler = context.channel().pipeline().get(IdleStateHandler.class) != null;
             if (hasIdleStateHandler) {
@@ -5,7 +5,10 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.stream.ChunkedInput;
 import io.netty.handler.stream.ChunkedNioFile;
+import io.netty.handler.stream.ChunkedWriteHandler;
 import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.dcache.pool.bandwidth.BandwidthShapingChannel;
 import org.dcache.pool.repository.RepositoryChannel;
 
 /*
@@ -32,6 +35,7 @@ public class ReusableChunkedNioFile implements ChunkedInput<ByteBuf> {
     private final long _startOffset;
     private final long _endOffset;
     private final int _chunkSize;
+    private final BandwidthShapingChannel _shapingChannel;
 
     private volatile long _offset;
 
@@ -59,6 +63,7 @@ public class ReusableChunkedNioFile implements ChunkedInput<ByteBuf> {
         }
 
         _channel = channel;
+        _shapingChannel = channel.optionallyAs(BandwidthShapingChannel.class).orElse(null);
         _chunkSize = chunkSize;
         _startOffset = _offset = offset;
         _endOffset = _offset + length;
@@ -79,8 +84,18 @@ public class ReusableChunkedNioFile implements ChunkedInput<ByteBuf> {
         return _offset >= _endOffset || !_channel.isOpen();
     }
 
+    /**
+     * While the bandwidth limits of the channel are exceeded, returns null and resumes the
+     * transfer once the limits permit it, rather than blocking the event loop.
+     */
     @Override
     public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+        long delay = (_shapingChannel == null) ? 0 : _shapingChannel.getDelay();
+        if (delay > 0 && ctx.handler() instanceof ChunkedWriteHandler) {
+            ChunkedWriteHandler handler = (ChunkedWriteHandler) ctx.handler();
+            ctx.executor().schedule(handler::resumeTransfer, delay, TimeUnit.NANOSECONDS);
+            return null;
+        }
         return readChunk(ctx.alloc());
     }
 
@@ -0,0 +1,184 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.kafka;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.base.Throwables;
+import dmg.cells.nucleus.CellInfoProvider;
+import java.io.PrintWriter;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * Publishes events to the default topic of a {@link KafkaTemplate} without blocking the caller.
+ * <p>
+ * Events are added to a bounded, lock-free queue and handed to the producer by a dedicated
+ * thread.  Sending a record may block for a long time if the brokers are slow or unreachable;
+ * with this class only the publisher thread waits, while doors and movers carry on.  If the
+ * queue is full, further events are dropped and counted rather than queued.
+ * <p>
+ * Batching and compression of the records are done by the Kafka producer of the template, as
+ * configured through its {@code linger.ms}, {@code batch.size} and {@code compression.type}
+ * properties.
+ */
+public class KafkaEventPublisher<T> implements Consumer<T>, CellInfoProvider {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KafkaEventPublisher.class);
+
+    private static final long STOP_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+    private final KafkaTemplate<String, T> template;
+
+    private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private int capacity = 10_000;
+
+    private String name;
+
+    private volatile boolean isRunning;
+    private Thread thread;
+
+    public KafkaEventPublisher(KafkaTemplate<String, T> template) {
+        this.template = requireNonNull(template);
+    }
+
+    public void setCapacity(int capacity) {
+        checkArgument(capacity > 0, "Capacity must be positive.");
+        this.capacity = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets the name under which the publisher is reported.  Defaults to the topic.
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name != null ? name : template.getDefaultTopic();
+    }
+
+    public synchronized void start() {
+        isRunning = true;
+        thread = new Thread(this::run, "kafka-publisher-" + getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() throws InterruptedException {
+        if (thread != null) {
+            isRunning = false;
+            LockSupport.unpark(thread);
+            thread.join(STOP_TIMEOUT);
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    /**
+     * Queues an event for publication.  Never blocks; if the queue is full the event is dropped.
+     */
+    @Override
+    public void accept(T event) {
+        int size = queued.incrementAndGet();
+        if (size > capacity) {
+            queued.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        queue.offer(event);
+        if (size == 1) {
+            Thread publisher = thread;
+            if (publisher != null) {
+                LockSupport.unpark(publisher);
+            }
+        }
+    }
+
+    private void run() {
+        while (isRunning || !queue.isEmpty()) {
+            T event = queue.poll();
+            if (event == null) {
+                LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+                if (Thread.interrupted()) {
+                    break;
+                }
+                continue;
+            }
+            queued.decrementAndGet();
+            publish(event);
+        }
+        template.flush();
+    }
+
+    private void publish(T event) {
+        try {
+            template.sendDefault(event).addCallback(
+                  r -> published.increment(),
+                  e -> failed.increment());
+        } catch (RuntimeException e) {
+            failed.increment();
+            LOGGER.warn("Failed to send message to kafka: {}",
+                  Throwables.getRootCause(e).getMessage());
+        }
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    @Override
+    public void getInfo(PrintWriter pw) {
+        pw.println("Kafka publisher " + getName() + ":");
+        pw.println("    Queued    : " + getQueued() + " of " + capacity);
+        pw.println("    Published : " + getPublished());
+        pw.println("    Dropped   : " + getDropped());
+        pw.println("    Failed    : " + getFailed());
+    }
+}
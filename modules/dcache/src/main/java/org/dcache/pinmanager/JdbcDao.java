@@ -132,6 +132,37 @@ public class JdbcDao extends JdbcDaoSupport implements PinDao {
               c.getArgumentsAsArray());
     }
 
+    @Override
+    public int update(Collection<Pin> pins, PinUpdate update) {
+        JdbcUpdate u = (JdbcUpdate) update;
+        List<Object[]> arguments = new ArrayList<>(pins.size());
+        for (Pin pin : pins) {
+            arguments.add(Stream.concat(u.getArguments().stream(), Stream.of(pin.getPinId()))
+                  .toArray(Object[]::new));
+        }
+        return batchUpdate("UPDATE pins SET " + u.getUpdate() + " WHERE id = ?", arguments);
+    }
+
+    @Override
+    public int delete(Collection<Pin> pins) {
+        List<Object[]> arguments = new ArrayList<>(pins.size());
+        for (Pin pin : pins) {
+            arguments.add(new Object[]{pin.getPinId()});
+        }
+        return batchUpdate("DELETE FROM pins WHERE id = ?", arguments);
+    }
+
+    private int batchUpdate(String sql, List<Object[]> arguments) {
+        if (arguments.isEmpty()) {
+            return 0;
+        }
+        int n = 0;
+        for (int count : getJdbcTemplate().batchUpdate(sql, arguments)) {
+            n += (count == Statement.SUCCESS_NO_INFO) ? 1 : count;
+        }
+        return n;
+    }
+
     @Override
     public void foreach(PinCriterion criterion, InterruptibleConsumer<Pin> f)
           throws InterruptedException {
@@ -1,6 +1,7 @@
 package org.dcache.pinmanager;
 
 import diskCacheV111.util.PnfsId;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -354,6 +355,23 @@ public class LoggingDao implements PinDao {
         return inner.delete(c.inner);
     }
 
+    @Override
+    public int update(Collection<Pin> pins, PinUpdate update) {
+        LoggingPinUpdate u = (LoggingPinUpdate) update;
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Updating {} pins so they{}.", pins.size(), u.getDescription(false));
+        }
+        return inner.update(pins, u.inner);
+    }
+
+    @Override
+    public int delete(Collection<Pin> pins) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Deleting {} pins.", pins.size());
+        }
+        return inner.delete(pins);
+    }
+
     @Override
     public void foreach(PinCriterion criterion, InterruptibleConsumer<Pin> f)
           throws InterruptedException {
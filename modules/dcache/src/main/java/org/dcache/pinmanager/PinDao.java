@@ -1,6 +1,7 @@
 package org.dcache.pinmanager;
 
 import diskCacheV111.util.PnfsId;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import javax.annotation.Nullable;
@@ -96,6 +97,35 @@ public interface PinDao {
         return delete(where().id(pin.getPinId()));
     }
 
+    /**
+     * Updates the given pins with the same field values. Implementations may submit the updates
+     * as a single batch.
+     *
+     * @return The number of pins updated
+     */
+    default int update(Collection<Pin> pins, PinUpdate update) {
+        int n = 0;
+        for (Pin pin : pins) {
+            if (update(pin, update) != null) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Deletes the given pins. Implementations may submit the deletions as a single batch.
+     *
+     * @return The number of pins deleted
+     */
+    default int delete(Collection<Pin> pins) {
+        int n = 0;
+        for (Pin pin : pins) {
+            n += delete(pin);
+        }
+        return n;
+    }
+
     /**
      * Performs the given action for every pin matching the selection criterion.
      */
@@ -47,6 +47,7 @@ public class PinManager implements CellMessageReceiver, LeaderLatchListener, Cel
     // Period in which to reset all pins that failed to be unpinned from state FAILED_TO_UNPIN to READY_TO_UNPIN
     private Duration resetFailedUnpinsPeriod;
     private int maxUnpinsPerRun = -1;
+    private boolean isUnpinBatching;
 
     @Required
     public void setExecutor(ScheduledExecutorService executor) {
@@ -88,6 +89,10 @@ public class PinManager implements CellMessageReceiver, LeaderLatchListener, Cel
         maxUnpinsPerRun = value;
     }
 
+    public void setUnpinBatching(boolean value) {
+        isUnpinBatching = value;
+    }
+
     public PnfsDeleteEntryNotificationMessage messageArrived(
           PnfsDeleteEntryNotificationMessage message) {
         dao.delete(dao.where().pnfsId(message.getPnfsId()));
@@ -179,6 +184,7 @@ public class PinManager implements CellMessageReceiver, LeaderLatchListener, Cel
     public void init() {
         // Needs to be assigned after dao has been initialized
         unpinTask = new UnpinProcessor(dao, poolStub, poolMonitor, maxUnpinsPerRun);
+        unpinTask.setBatching(isUnpinBatching);
     }
 
     @Override
@@ -219,5 +225,6 @@ public class PinManager implements CellMessageReceiver, LeaderLatchListener, Cel
         pw.printf("Reset pins that failed to unpin period: %s\n",
               TimeUtils.describe(resetFailedUnpinsPeriod).orElse("-"));
         pw.printf("Max unpin operations per run:           %s\n", maxUnpinsPerRun);
+        pw.printf("Batched unpinning:                      %s\n", isUnpinBatching);
     }
 }
\ No newline at end of file
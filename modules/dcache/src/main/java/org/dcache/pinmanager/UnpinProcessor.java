@@ -1,21 +1,32 @@
 package org.dcache.pinmanager;
 
+import static java.util.stream.Collectors.toList;
 import static org.dcache.pinmanager.model.Pin.State.FAILED_TO_UNPIN;
 import static org.dcache.pinmanager.model.Pin.State.READY_TO_UNPIN;
 import static org.dcache.pinmanager.model.Pin.State.UNPINNING;
 
 import diskCacheV111.poolManager.PoolSelectionUnit;
 import diskCacheV111.util.CacheException;
+import diskCacheV111.vehicles.PoolSetStickyBatchMessage;
 import diskCacheV111.vehicles.PoolSetStickyMessage;
 import dmg.cells.nucleus.CellPath;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
 import javax.jdo.JDOException;
 import org.dcache.cells.AbstractMessageCallback;
 import org.dcache.cells.CellStub;
+import org.dcache.pinmanager.PinDao.InterruptibleConsumer;
 import org.dcache.pinmanager.model.Pin;
 import org.dcache.poolmanager.PoolMonitor;
 import org.dcache.util.CDCExecutorServiceDecorator;
@@ -33,13 +44,16 @@ import org.springframework.transaction.annotation.Transactional;
  * unpinning a file is performed independently of the unpin request.
  * <p>
  * This class attempts to unpin a limited number of files per run which are in state
- * READY_TO_UNPIN.
+ * READY_TO_UNPIN. Pins are grouped by pool, such that the pins are deleted in a single database
+ * batch and, if batching is enabled, the sticky flags of many pins are cleared with a single
+ * message to the pool.
  */
 public class UnpinProcessor implements Runnable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(UnpinProcessor.class);
 
     private static final int MAX_RUNNING = 1000;
+    private static final int MAX_PINS_PER_MESSAGE = 500;
     private static final int NO_UNPIN_LIMIT_PER_RUN = -1;
 
     private final PinDao _dao;
@@ -48,6 +62,12 @@ public class UnpinProcessor implements Runnable {
     private final AtomicInteger _count = new AtomicInteger();
     private final int _maxUnpinsPerRun;
 
+    /**
+     * Pools that failed a batch but answered the individual messages that followed it.
+     */
+    private final Set<String> _poolsWithoutBatching = ConcurrentHashMap.newKeySet();
+    private volatile boolean _isBatching;
+
 
     public UnpinProcessor(PinDao dao, CellStub poolStub, PoolMonitor poolMonitor,
           int maxUnpinsPerRun) {
@@ -57,6 +77,15 @@ public class UnpinProcessor implements Runnable {
         _maxUnpinsPerRun = maxUnpinsPerRun;
     }
 
+    /**
+     * Sets whether sticky flags are cleared with one message per pool. Pools that cannot
+     * process such messages are detected and sent one message per pin instead, but only after
+     * a batch to them failed, so this should only be enabled once all pools support batches.
+     */
+    public void setBatching(boolean isBatching) {
+        _isBatching = isBatching;
+    }
+
     @Override
     public void run() {
         final ExecutorService executor = new CDCExecutorServiceDecorator(
@@ -96,72 +125,152 @@ public class UnpinProcessor implements Runnable {
     @Transactional
     protected void unpin(final Semaphore idle, final Executor executor)
           throws InterruptedException {
+        Map<String, List<Pin>> pinsByPool = new HashMap<>();
+        InterruptibleConsumer<Pin> collect = pin -> {
+            LOGGER.info("Unpining {}", pin.toString());
+            List<Pin> pins = pinsByPool.computeIfAbsent(pin.getPool(), p -> new ArrayList<>());
+            pins.add(pin);
+            if (pins.size() >= MAX_PINS_PER_MESSAGE) {
+                pinsByPool.remove(pin.getPool());
+                unpin(idle, executor, pin.getPool(), pins);
+            }
+        };
         if (_maxUnpinsPerRun == NO_UNPIN_LIMIT_PER_RUN) {
-            _dao.foreach(_dao.where().state(READY_TO_UNPIN), pin -> upin(idle, executor, pin));
+            _dao.foreach(_dao.where().state(READY_TO_UNPIN), collect);
         } else {
-            _dao.foreach(_dao.where().state(READY_TO_UNPIN), pin -> upin(idle, executor, pin),
-                  _maxUnpinsPerRun);
+            _dao.foreach(_dao.where().state(READY_TO_UNPIN), collect, _maxUnpinsPerRun);
+        }
+        for (Map.Entry<String, List<Pin>> e : pinsByPool.entrySet()) {
+            unpin(idle, executor, e.getKey(), e.getValue());
         }
     }
 
-    private void upin(Semaphore idle, Executor executor, Pin pin) throws InterruptedException {
-        LOGGER.info("Unpining {}", pin.toString());
-        if (pin.getPool() == null) {
-            LOGGER.debug("No pool found for pin {}, pnfsid {}; no sticky flags to clear",
-                  pin.getPinId(), pin.getPnfsId());
-            _dao.delete(pin);
+    private void unpin(Semaphore idle, Executor executor, @Nullable String pool, List<Pin> pins)
+          throws InterruptedException {
+        if (pool == null) {
+            LOGGER.debug("No pool found for {} pin(s); no sticky flags to clear", pins.size());
+            _dao.delete(pins);
         } else {
-            LOGGER.debug("Clearing sticky flag for pin {}, pnfsid {} on pool {}", pin.getPinId(),
-                  pin.getPnfsId(), pin.getPool());
-            _dao.update(pin, _dao.set().state(UNPINNING));
-            clearStickyFlag(idle, pin, executor);
+            LOGGER.debug("Clearing sticky flags for {} pin(s) on pool {}", pins.size(), pool);
+            _dao.update(pins, _dao.set().state(UNPINNING));
+            clearStickyFlags(idle, pool, pins, executor);
         }
     }
 
-    private void failedToUnpin(Pin pin) {
-        _dao.update(pin, _dao.set().state(FAILED_TO_UNPIN));
+    private void failedToUnpin(List<Pin> pins) {
+        _dao.update(pins, _dao.set().state(FAILED_TO_UNPIN));
     }
 
-    private void clearStickyFlag(final Semaphore idle, final Pin pin, Executor executor)
-          throws InterruptedException {
+    private void clearStickyFlags(final Semaphore idle, String poolName, final List<Pin> pins,
+          Executor executor) throws InterruptedException {
         PoolSelectionUnit.SelectionPool pool = _poolMonitor.getPoolSelectionUnit()
-              .getPool(pin.getPool());
+              .getPool(poolName);
         if (pool == null || !pool.isActive()) {
             LOGGER.warn(
-                  "Unable to clear sticky flag for pin {} on pnfsid {} because pool {} is unavailable",
-                  pin.getPinId(), pin.getPnfsId(), pin.getPool());
-            failedToUnpin(pin);
+                  "Unable to clear sticky flags for {} pin(s) because pool {} is unavailable",
+                  pins.size(), poolName);
+            failedToUnpin(pins);
             return;
         }
 
         idle.acquire();
-        PoolSetStickyMessage msg =
-              new PoolSetStickyMessage(pin.getPool(),
-                    pin.getPnfsId(),
-                    false,
-                    pin.getSticky(),
-                    0);
+        if (!_isBatching || _poolsWithoutBatching.contains(poolName)) {
+            clearStickyFlagsOneByOne(idle, pool, pins, executor, false);
+            return;
+        }
+
+        List<PoolSetStickyBatchMessage.Entry> entries = pins.stream()
+              .map(pin -> new PoolSetStickyBatchMessage.Entry(pin.getPnfsId(), pin.getSticky(), 0))
+              .collect(toList());
+        PoolSetStickyBatchMessage msg = new PoolSetStickyBatchMessage(poolName, false, entries);
         CellStub.addCallback(_poolStub.send(new CellPath(pool.getAddress()), msg),
-              new AbstractMessageCallback<PoolSetStickyMessage>() {
+              new AbstractMessageCallback<PoolSetStickyBatchMessage>() {
                   @Override
-                  public void success(PoolSetStickyMessage msg) {
+                  public void success(PoolSetStickyBatchMessage msg) {
                       idle.release();
-                      _dao.delete(pin);
+                      List<Pin> unpinned = new ArrayList<>(pins.size());
+                      List<Pin> failed = new ArrayList<>();
+                      List<PoolSetStickyBatchMessage.Entry> results = msg.getEntries();
+                      for (int i = 0; i < pins.size(); i++) {
+                          PoolSetStickyBatchMessage.Entry result = results.get(i);
+                          switch (result.getReturnCode()) {
+                              case 0:
+                              case CacheException.FILE_NOT_IN_REPOSITORY:
+                                  unpinned.add(pins.get(i));
+                                  break;
+                              default:
+                                  LOGGER.warn("Failed to clear sticky flag of {}: {} [{}]",
+                                        result.getPnfsId(), result.getErrorMessage(),
+                                        result.getReturnCode());
+                                  failed.add(pins.get(i));
+                                  break;
+                          }
+                      }
+                      _dao.delete(unpinned);
+                      if (!failed.isEmpty()) {
+                          failedToUnpin(failed);
+                      }
                   }
 
                   @Override
                   public void failure(int rc, Object error) {
-                      idle.release();
-                      switch (rc) {
-                          case CacheException.FILE_NOT_IN_REPOSITORY:
-                              _dao.delete(pin);
-                              break;
-                          default:
-                              LOGGER.warn("Failed to clear sticky flag: {} [{}]", error, rc);
-                              failedToUnpin(pin);
-                              break;
-                      }
+                      LOGGER.warn("Failed to clear sticky flags on {} in one message: {} [{}]; "
+                            + "clearing them one at a time", poolName, error, rc);
+                      clearStickyFlagsOneByOne(idle, pool, pins, executor, true);
                   }
               }, executor);
     }
-}
\ No newline at end of file
+
+    /**
+     * Clears sticky flags with one PoolSetStickyMessage per pin, as pools that do not understand
+     * PoolSetStickyBatchMessage require.  The permit the caller acquired from {@code idle} is
+     * released once all pins have been processed.
+     *
+     * @param isFallback whether a batch was rejected by the pool; if so and the pool answers any
+     *                   of the individual messages, no further batches are sent to it
+     */
+    private void clearStickyFlagsOneByOne(Semaphore idle, PoolSelectionUnit.SelectionPool pool,
+          List<Pin> pins, Executor executor, boolean isFallback) {
+        AtomicInteger remaining = new AtomicInteger(pins.size());
+        AtomicBoolean isResponding = new AtomicBoolean();
+        for (Pin pin : pins) {
+            PoolSetStickyMessage msg = new PoolSetStickyMessage(pool.getName(), pin.getPnfsId(),
+                  false, pin.getSticky(), 0);
+            CellStub.addCallback(_poolStub.send(new CellPath(pool.getAddress()), msg),
+                  new AbstractMessageCallback<PoolSetStickyMessage>() {
+                      @Override
+                      public void success(PoolSetStickyMessage msg) {
+                          isResponding.set(true);
+                          _dao.delete(pin);
+                          completed();
+                      }
+
+                      @Override
+                      public void failure(int rc, Object error) {
+                          switch (rc) {
+                              case CacheException.FILE_NOT_IN_REPOSITORY:
+                                  isResponding.set(true);
+                                  _dao.delete(pin);
+                                  break;
+                              default:
+                                  LOGGER.warn("Failed to clear sticky flag: {} [{}]", error, rc);
+                                  failedToUnpin(List.of(pin));
+                                  break;
+                          }
+                          completed();
+                      }
+
+                      private void completed() {
+                          if (remaining.decrementAndGet() == 0) {
+                              if (isFallback && isResponding.get()) {
+                                  LOGGER.info("Pool {} does not support batched unpinning; "
+                                        + "unpinning one file at a time", pool.getName());
+                                  _poolsWithoutBatching.add(pool.getName());
+                              }
+                              idle.release();
+                          }
+                      }
+                  }, executor);
+        }
+    }
+}
@@ -0,0 +1,555 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.bandwidth;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.dcache.util.ByteUnit.BYTES;
+import static org.dcache.util.ByteUnit.MiB;
+import static org.dcache.util.ByteUnits.isoSymbol;
+
+import dmg.cells.nucleus.CellCommandListener;
+import dmg.cells.nucleus.CellInfoProvider;
+import dmg.cells.nucleus.CellSetupProvider;
+import dmg.util.command.Argument;
+import dmg.util.command.Command;
+import dmg.util.command.Option;
+import java.io.InterruptedIOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import javax.annotation.concurrent.GuardedBy;
+import javax.security.auth.Subject;
+import org.dcache.auth.FQAN;
+import org.dcache.auth.Subjects;
+import org.dcache.pool.repository.ModifiableReplicaDescriptor;
+import org.dcache.pool.repository.ReplicaDescriptor;
+import org.dcache.pool.repository.RepositoryChannel;
+import org.dcache.util.ByteSizeParser;
+import org.dcache.util.ByteUnit;
+import org.dcache.util.ColumnWriter;
+import org.dcache.util.Strings;
+
+/**
+ * Limits the bandwidth consumed by movers on this pool.
+ * <p>
+ * Bandwidth is shared through a hierarchy of token buckets: the pool, the mover queue, the VO of
+ * the user and the user.  Each level may be given a limit, a weight and a burst size.  Limits and
+ * weights are configured per name, with {@literal *} providing the defaults of a level.  While no
+ * limit is configured, channels are not decorated and shaping has no cost.
+ * <p>
+ * Shaping is applied to the channels that movers open on their replica, so it covers both
+ * blocking and Netty based movers.  On the threads of blocking movers, a request is delayed until
+ * the buckets have tokens for it.  Netty based movers use their channels on event loop threads
+ * that must not wait; their channels are non-blocking and charge requests right away, possibly
+ * driving the buckets into debt, while the mover defers further transfers until the buckets
+ * permit them again.  No memory is allocated per request.
+ * <p>
+ * The hierarchy is guarded by a single lock.  To keep this lock off the I/O path, a channel
+ * charges at least a fraction of the burst of its bucket at a time and serves subsequent requests
+ * from the surplus without locking; unused bytes are returned the same way and the credit left is
+ * refunded when the channel is closed.  Only requests that exhaust this credit, or have to wait
+ * for bandwidth, take the lock.  Transferred bytes are accounted without locking.
+ */
+public class BandwidthShaper implements CellCommandListener, CellInfoProvider,
+      CellSetupProvider {
+
+    private static final ByteSizeParser SIZE_PARSER = ByteSizeParser.using(isoSymbol()).build();
+
+    /**
+     * Upper bound on how long a request waits before the buckets are reevaluated. Rates change as
+     * channels are opened and closed, so waiting for the full estimate may be too long.
+     */
+    private static final long MAX_WAIT = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final String DEFAULT_NAME = "*";
+
+    /**
+     * The fraction of the burst of its bucket that a channel charges at least when its credit is
+     * exhausted.
+     */
+    private static final int CREDIT_PER_BURST = 8;
+
+    public enum Level {
+        POOL, QUEUE, VO, USER;
+
+        Level child() {
+            return this == USER ? null : values()[ordinal() + 1];
+        }
+    }
+
+    /**
+     * The configured parameters of a bucket.
+     */
+    public static class Limits {
+
+        private final long limit;
+        private final int weight;
+        private final long burst;
+
+        public Limits(long limit, int weight, long burst) {
+            checkArgument(limit >= 0, "Limit must be non-negative");
+            checkArgument(weight > 0, "Weight must be positive");
+            checkArgument(burst > 0, "Burst must be positive");
+            this.limit = limit;
+            this.weight = weight;
+            this.burst = burst;
+        }
+
+        /**
+         * The maximum bandwidth in bytes per second, or zero if unlimited.
+         */
+        public long getLimit() {
+            return limit;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public long getBurst() {
+            return burst;
+        }
+
+        private String toOptions() {
+            return "-limit=" + limit + " -weight=" + weight + " -burst=" + burst;
+        }
+    }
+
+    private final Object lock = new Object();
+
+    private final LongSupplier clock;
+
+    @GuardedBy("lock")
+    private final Map<Level, Map<String, Limits>> configuration = new EnumMap<>(Level.class);
+
+    @GuardedBy("lock")
+    private final TokenBucket root;
+
+    @GuardedBy("lock")
+    private long waitTime;
+
+    private volatile boolean isEnabled;
+
+    private volatile long defaultBurst = MiB.toBytes(4);
+
+    private volatile long maxChunk = MiB.toBytes(1);
+
+    public BandwidthShaper() {
+        this(System::nanoTime);
+    }
+
+    BandwidthShaper(LongSupplier clock) {
+        this.clock = clock;
+        for (Level level : Level.values()) {
+            configuration.put(level, new TreeMap<>());
+        }
+        root = new TokenBucket(Level.POOL, "pool", null, defaultLimits(), clock.getAsLong());
+    }
+
+    /**
+     * Sets the burst size used for buckets without an explicitly configured burst.
+     */
+    public void setDefaultBurst(long bytes) {
+        checkArgument(bytes > 0, "Burst must be positive");
+        defaultBurst = bytes;
+    }
+
+    /**
+     * Sets the maximum number of bytes charged for a single zero-copy transfer.
+     */
+    public void setMaxChunk(long bytes) {
+        checkArgument(bytes > 0, "Chunk size must be positive");
+        maxChunk = bytes;
+    }
+
+    long getMaxChunk() {
+        return maxChunk;
+    }
+
+    private Limits defaultLimits() {
+        return new Limits(0, 1, defaultBurst);
+    }
+
+    @GuardedBy("lock")
+    private Limits limitsFor(Level level, String name) {
+        Map<String, Limits> limits = configuration.get(level);
+        Limits l = limits.get(name);
+        if (l == null) {
+            l = limits.get(DEFAULT_NAME);
+        }
+        return l == null ? defaultLimits() : l;
+    }
+
+    public void setLimits(Level level, String name, Limits limits) {
+        synchronized (lock) {
+            configuration.get(level).put(level == Level.POOL ? DEFAULT_NAME : name, limits);
+            reconfigure();
+        }
+    }
+
+    public void removeLimits(Level level, String name) {
+        synchronized (lock) {
+            configuration.get(level).remove(level == Level.POOL ? DEFAULT_NAME : name);
+            reconfigure();
+        }
+    }
+
+    @GuardedBy("lock")
+    private void reconfigure() {
+        isEnabled = configuration.values().stream()
+              .flatMap(m -> m.values().stream())
+              .anyMatch(l -> l.getLimit() > 0);
+        reconfigure(root);
+    }
+
+    @GuardedBy("lock")
+    private void reconfigure(TokenBucket node) {
+        node.setLimits(limitsFor(node.getLevel(), node.getName()));
+        node.getChildren().forEach(this::reconfigure);
+    }
+
+    /**
+     * Returns a descriptor that shapes the bandwidth of the channels created through {@code
+     * handle}. If no limits are configured then {@code handle} is returned.
+     *
+     * @param handle  the descriptor of the replica accessed by a mover
+     * @param queue   the name of the mover queue
+     * @param subject the user on whose behalf the mover transfers data
+     */
+    public ReplicaDescriptor decorate(ReplicaDescriptor handle, String queue, Subject subject) {
+        if (!isEnabled) {
+            return handle;
+        }
+        String vo = voOf(subject);
+        String user = userOf(subject);
+        return handle instanceof ModifiableReplicaDescriptor
+              ? new BandwidthShapingReplicaDescriptor.Modifiable(
+              (ModifiableReplicaDescriptor) handle, this, queue, vo, user)
+              : new BandwidthShapingReplicaDescriptor(handle, this, queue, vo, user);
+    }
+
+    private static String voOf(Subject subject) {
+        FQAN fqan = Subjects.getPrimaryFqan(subject);
+        if (fqan != null) {
+            String group = fqan.getGroup();
+            int end = group.indexOf('/', 1);
+            return end == -1 ? group.substring(1) : group.substring(1, end);
+        }
+        long[] gids = Subjects.getGids(subject);
+        return gids.length == 0 ? Subjects.UNKNOWN : "gid:" + gids[0];
+    }
+
+    private static String userOf(Subject subject) {
+        String name = Subjects.getUserName(subject);
+        if (name != null) {
+            return name;
+        }
+        long[] uids = Subjects.getUids(subject);
+        return uids.length == 0 ? Subjects.UNKNOWN : "uid:" + uids[0];
+    }
+
+    RepositoryChannel decorate(RepositoryChannel channel, String queue, String vo, String user) {
+        synchronized (lock) {
+            TokenBucket bucket = child(child(child(root, queue), vo), user);
+            bucket.open();
+            return new BandwidthShapingChannel(channel, this, bucket);
+        }
+    }
+
+    @GuardedBy("lock")
+    private TokenBucket child(TokenBucket parent, String name) {
+        TokenBucket child = parent.getChild(name);
+        if (child == null) {
+            Level level = parent.getLevel().child();
+            child = new TokenBucket(level, name, parent, limitsFor(level, name),
+                  clock.getAsLong());
+            parent.addChild(child);
+        }
+        return child;
+    }
+
+    /**
+     * Unregisters a closed channel from {@code bucket}, refunding the credit of the channel.
+     */
+    void release(TokenBucket bucket, AtomicLong credit) {
+        synchronized (lock) {
+            bucket.refund(credit.getAndSet(0));
+            bucket.close();
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Charges {@code amount} bytes to {@code bucket} without blocking.
+     *
+     * @return zero if charged, otherwise the number of nanoseconds to wait before trying again
+     */
+    long tryAcquire(TokenBucket bucket, long amount) {
+        synchronized (lock) {
+            return bucket.tryCharge(amount, clock.getAsLong());
+        }
+    }
+
+    /**
+     * Charges at least {@code amount} bytes to {@code bucket}, adding any surplus to {@code
+     * credit}.
+     *
+     * @return zero if charged, otherwise the number of nanoseconds to wait before trying again
+     */
+    @GuardedBy("lock")
+    private long tryCharge(TokenBucket bucket, AtomicLong credit, long amount) {
+        long charge = Math.max(amount, bucket.burst() / CREDIT_PER_BURST);
+        long wait = bucket.tryCharge(charge, clock.getAsLong());
+        if (wait == 0 && charge > amount) {
+            credit.addAndGet(charge - amount);
+        }
+        return wait;
+    }
+
+    private static boolean takeCredit(AtomicLong credit, long amount) {
+        long current;
+        do {
+            current = credit.get();
+            if (current < amount) {
+                return false;
+            }
+        } while (!credit.compareAndSet(current, current - amount));
+        return true;
+    }
+
+    /**
+     * Charges {@code amount} bytes to {@code bucket}, blocking until the bucket and its ancestors
+     * permit the transfer.  The bytes are taken from {@code credit} if it suffices.
+     *
+     * @throws InterruptedIOException if the thread was interrupted while waiting
+     */
+    void acquire(TokenBucket bucket, AtomicLong credit, long amount)
+          throws InterruptedIOException {
+        if (amount <= 0 || takeCredit(credit, amount)) {
+            return;
+        }
+        synchronized (lock) {
+            long wait;
+            while (!takeCredit(credit, amount)
+                  && (wait = tryCharge(bucket, credit, amount)) > 0) {
+                wait = Math.min(wait, MAX_WAIT);
+                waitTime += wait;
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(lock, wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for bandwidth");
+                }
+            }
+        }
+    }
+
+    /**
+     * Charges {@code amount} bytes to {@code bucket} without blocking.  The bytes are taken from
+     * {@code credit} if it suffices.  If the bucket and its ancestors do not permit the transfer,
+     * the bytes are charged nonetheless and delay subsequent transfers; callers are expected to
+     * consult {@link #getDelay} before their next transfer.
+     */
+    void charge(TokenBucket bucket, AtomicLong credit, long amount) {
+        if (amount <= 0 || takeCredit(credit, amount)) {
+            return;
+        }
+        synchronized (lock) {
+            if (!takeCredit(credit, amount) && tryCharge(bucket, credit, amount) > 0) {
+                bucket.forceCharge(amount);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of nanoseconds to wait before {@code bucket} permits another transfer, or
+     * zero if {@code credit} is left or the bucket permits a transfer now.  The result is bounded
+     * by {@link #MAX_WAIT}, as rates change while channels are opened and closed.
+     */
+    long getDelay(TokenBucket bucket, AtomicLong credit) {
+        if (credit.get() > 0) {
+            return 0;
+        }
+        synchronized (lock) {
+            return Math.min(bucket.getDelay(clock.getAsLong()), MAX_WAIT);
+        }
+    }
+
+    /**
+     * Returns {@code amount} bytes that were charged but not transferred to {@code credit}.
+     */
+    void refund(AtomicLong credit, long amount) {
+        credit.addAndGet(amount);
+    }
+
+    /**
+     * Accounts {@code amount} bytes transferred through a channel of {@code bucket}.
+     */
+    void transferred(TokenBucket bucket, long amount) {
+        bucket.record(amount);
+    }
+
+    @Override
+    public void printSetup(PrintWriter pw) {
+        synchronized (lock) {
+            configuration.forEach((level, limits) ->
+                  limits.forEach((name, l) -> {
+                      String target = level == Level.POOL ? "pool" : level.name().toLowerCase()
+                            + " " + name;
+                      pw.println("bandwidth set " + target + " " + l.toOptions());
+                  }));
+        }
+    }
+
+    @Override
+    public void getInfo(PrintWriter pw) {
+        synchronized (lock) {
+            pw.println("Enabled     : " + isEnabled);
+            if (isEnabled) {
+                Limits limits = root.getLimits();
+                pw.println("Limit       : " + (limits.getLimit() == 0
+                      ? "unlimited" : Strings.describeBandwidth(limits.getLimit())));
+                pw.println("Channels    : " + root.getChannels());
+                pw.println("Transferred : " + Strings.describeSize(root.getBytes()));
+                pw.println("Throttled   : " + root.getThrottled() + " requests, "
+                      + TimeUnit.NANOSECONDS.toMillis(waitTime) + " ms");
+            }
+        }
+    }
+
+    @GuardedBy("lock")
+    private void list(ColumnWriter table, TokenBucket node, String indent) {
+        double rate = node.rate();
+        table.row()
+              .value("name", indent + node.getName())
+              .value("level", node.getLevel().name().toLowerCase())
+              .value("channels", node.getChannels())
+              .value("weight", node.getLimits().getWeight())
+              .value("limit", node.getLimits().getLimit() == 0 ? "-"
+                    : Strings.describeBandwidth(node.getLimits().getLimit()))
+              .value("rate", Double.isInfinite(rate) ? "-" : Strings.describeBandwidth(rate))
+              .value("bytes", node.getBytes())
+              .value("throttled", node.getThrottled());
+        node.getChildren().forEach(c -> list(table, c, indent + "  "));
+    }
+
+    @Command(name = "bandwidth ls", hint = "list bandwidth shaping buckets",
+          description = "Lists the configured bandwidth limits and the buckets of the movers "
+                + "that are currently active.  The rate column shows the bandwidth currently "
+                + "assured to the bucket; buckets may borrow idle bandwidth up to their limit.")
+    class ListCommand implements Callable<String> {
+
+        @Override
+        public String call() {
+            StringWriter out = new StringWriter();
+            PrintWriter pw = new PrintWriter(out);
+            printSetup(pw);
+            ColumnWriter table = new ColumnWriter()
+                  .header("NAME").left("name").space()
+                  .header("LEVEL").left("level").space()
+                  .header("CHANNELS").right("channels").space()
+                  .header("WEIGHT").right("weight").space()
+                  .header("LIMIT").right("limit").space()
+                  .header("RATE").right("rate").space()
+                  .header("BYTES").bytes("bytes", ByteUnit.Type.BINARY).space()
+                  .header("THROTTLED").right("throttled");
+            synchronized (lock) {
+                list(table, root, "");
+            }
+            pw.println();
+            pw.print(table);
+            pw.flush();
+            return out.toString();
+        }
+    }
+
+    @AffectsSetup
+    @Command(name = "bandwidth set", hint = "set bandwidth limits",
+          description = "Sets the bandwidth limit, weight and burst size of the pool, of a "
+                + "mover queue, of a VO or of a user.  VOs are identified by the first "
+                + "component of the primary FQAN or by the primary GID, users by their user "
+                + "name or UID.  The name * sets the defaults of a level.\n\n"
+                + "Bandwidth is shared between the active members of a level in proportion "
+                + "to their weight.  Members may use idle bandwidth up to their limit.  A "
+                + "limit of zero means unlimited.  The settings apply to channels opened "
+                + "after bandwidth shaping was first enabled by configuring a limit.")
+    class SetCommand implements Callable<String> {
+
+        @Argument(index = 0, valueSpec = "pool|queue|vo|user")
+        String level;
+
+        @Argument(index = 1, required = false, usage = "Name of the queue, VO or user.")
+        String name;
+
+        @Option(name = "limit", metaVar = "bytes/s",
+              usage = "Maximum bandwidth, e.g. 100MiB; zero means unlimited.")
+        String limit;
+
+        @Option(name = "weight", usage = "Share of the bandwidth relative to other members "
+              + "of the same level.")
+        Integer weight;
+
+        @Option(name = "burst", metaVar = "bytes",
+              usage = "Number of bytes that may be transferred at once after a period of "
+                    + "inactivity.")
+        String burst;
+
+        @Override
+        public String call() throws IllegalArgumentException {
+            Level l = Level.valueOf(level.toUpperCase());
+            checkArgument(l == Level.POOL || name != null, "Name is required.");
+            synchronized (lock) {
+                Limits current = configuration.get(l)
+                      .getOrDefault(l == Level.POOL ? DEFAULT_NAME : name, defaultLimits());
+                Limits limits = new Limits(
+                      limit == null ? current.getLimit() : SIZE_PARSER.parse(limit, BYTES),
+                      weight == null ? current.getWeight() : weight,
+                      burst == null ? current.getBurst() : SIZE_PARSER.parse(burst, BYTES));
+                setLimits(l, name, limits);
+                return "";
+            }
+        }
+    }
+
+    @AffectsSetup
+    @Command(name = "bandwidth unset", hint = "remove bandwidth limits",
+          description = "Removes the bandwidth settings of the pool, a mover queue, a VO or a "
+                + "user.  The defaults of the level apply afterwards.")
+    class UnsetCommand implements Callable<String> {
+
+        @Argument(index = 0, valueSpec = "pool|queue|vo|user")
+        String level;
+
+        @Argument(index = 1, required = false)
+        String name;
+
+        @Override
+        public String call() throws IllegalArgumentException {
+            Level l = Level.valueOf(level.toUpperCase());
+            checkArgument(l == Level.POOL || name != null, "Name is required.");
+            removeLimits(l, name);
+            return "";
+        }
+    }
+}
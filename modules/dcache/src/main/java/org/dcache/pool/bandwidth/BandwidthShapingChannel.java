@@ -0,0 +1,237 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.bandwidth;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import org.dcache.pool.repository.ForwardingRepositoryChannel;
+import org.dcache.pool.repository.RepositoryChannel;
+
+/**
+ * This class decorates a RepositoryChannel and delays IO requests such that the bandwidth
+ * consumed by the channel stays within the limits of its {@link TokenBucket}.
+ * <p>
+ * Bytes are charged before the request is forwarded and any bytes not transferred are refunded
+ * afterwards.  Zero-copy transfers are limited to {@link BandwidthShaper#getMaxChunk} bytes per
+ * call, which the contract of {@link RepositoryChannel#transferTo} permits; callers such as
+ * Netty's file region handling loop until the requested range has been transferred.
+ * <p>
+ * By default, requests block until the bucket permits them.  Channels used on threads that must
+ * not block, such as Netty event loops, are switched to non-blocking mode: requests are then
+ * forwarded right away and callers defer further requests while {@link #getDelay} is positive.
+ */
+public class BandwidthShapingChannel extends ForwardingRepositoryChannel {
+
+    private final RepositoryChannel inner;
+    private final BandwidthShaper shaper;
+    private final TokenBucket bucket;
+
+    /**
+     * Bytes charged to the bucket in advance that have not been used yet.
+     */
+    private final AtomicLong credit = new AtomicLong();
+
+    private volatile boolean isNonBlocking;
+    private boolean isClosed;
+
+    BandwidthShapingChannel(RepositoryChannel inner, BandwidthShaper shaper, TokenBucket bucket) {
+        this.inner = inner;
+        this.shaper = shaper;
+        this.bucket = bucket;
+    }
+
+    @Override
+    protected RepositoryChannel delegate() {
+        return inner;
+    }
+
+    TokenBucket getBucket() {
+        return bucket;
+    }
+
+    /**
+     * Sets whether requests are forwarded without waiting for bandwidth.
+     */
+    public void setNonBlocking(boolean isNonBlocking) {
+        this.isNonBlocking = isNonBlocking;
+    }
+
+    /**
+     * Returns the number of nanoseconds callers in non-blocking mode should wait before their next
+     * request, or zero if they may proceed.
+     */
+    public long getDelay() {
+        return shaper.getDelay(bucket, credit);
+    }
+
+    private static long remaining(ByteBuffer[] buffers, int offset, int length) {
+        long remaining = 0;
+        for (int i = offset; i < offset + length; i++) {
+            remaining += buffers[i].remaining();
+        }
+        return remaining;
+    }
+
+    private void charge(long amount) throws IOException {
+        if (isNonBlocking) {
+            shaper.charge(bucket, credit, amount);
+        } else {
+            shaper.acquire(bucket, credit, amount);
+        }
+    }
+
+    private void settle(long charged, long transferred) {
+        long used = Math.max(transferred, 0);
+        if (used > 0) {
+            shaper.transferred(bucket, used);
+        }
+        if (charged > used) {
+            shaper.refund(credit, charged - used);
+        }
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int charged = dst.remaining();
+        charge(charged);
+        int n = 0;
+        try {
+            n = super.read(dst);
+        } finally {
+            settle(charged, n);
+        }
+        return n;
+    }
+
+    @Override
+    public int read(ByteBuffer buffer, long position) throws IOException {
+        int charged = buffer.remaining();
+        charge(charged);
+        int n = 0;
+        try {
+            n = super.read(buffer, position);
+        } finally {
+            settle(charged, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+        long charged = remaining(dsts, offset, length);
+        charge(charged);
+        long n = 0;
+        try {
+            n = super.read(dsts, offset, length);
+        } finally {
+            settle(charged, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts) throws IOException {
+        return read(dsts, 0, dsts.length);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int charged = src.remaining();
+        charge(charged);
+        int n = 0;
+        try {
+            n = super.write(src);
+        } finally {
+            settle(charged, n);
+        }
+        return n;
+    }
+
+    @Override
+    public int write(ByteBuffer buffer, long position) throws IOException {
+        int charged = buffer.remaining();
+        charge(charged);
+        int n = 0;
+        try {
+            n = super.write(buffer, position);
+        } finally {
+            settle(charged, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+        long charged = remaining(srcs, offset, length);
+        charge(charged);
+        long n = 0;
+        try {
+            n = super.write(srcs, offset, length);
+        } finally {
+            settle(charged, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException {
+        return write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target)
+          throws IOException {
+        long charged = Math.min(count, shaper.getMaxChunk());
+        charge(charged);
+        long n = 0;
+        try {
+            n = super.transferTo(position, charged, target);
+        } finally {
+            settle(charged, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long transferFrom(ReadableByteChannel src, long position, long count)
+          throws IOException {
+        long charged = Math.min(count, shaper.getMaxChunk());
+        charge(charged);
+        long n = 0;
+        try {
+            n = super.transferFrom(src, position, charged);
+        } finally {
+            settle(charged, n);
+        }
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (!isClosed) {
+                isClosed = true;
+                shaper.release(bucket, credit);
+            }
+        }
+        super.close();
+    }
+}
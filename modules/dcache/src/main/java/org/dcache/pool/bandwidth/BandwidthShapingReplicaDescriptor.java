@@ -0,0 +1,119 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.bandwidth;
+
+import static java.util.Objects.requireNonNull;
+
+import diskCacheV111.util.CacheException;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collection;
+import org.dcache.pool.repository.FileSizeMismatchException;
+import org.dcache.pool.repository.ModifiableReplicaDescriptor;
+import org.dcache.pool.repository.ReplicaDescriptor;
+import org.dcache.pool.repository.RepositoryChannel;
+import org.dcache.util.Checksum;
+import org.dcache.vehicles.FileAttributes;
+
+/**
+ * A ReplicaDescriptor that delegates to some inner descriptor while subjecting all channels it
+ * creates to bandwidth shaping.
+ */
+class BandwidthShapingReplicaDescriptor implements ReplicaDescriptor {
+
+    private final ReplicaDescriptor inner;
+    private final BandwidthShaper shaper;
+    private final String queue;
+    private final String vo;
+    private final String user;
+
+    BandwidthShapingReplicaDescriptor(ReplicaDescriptor inner, BandwidthShaper shaper,
+          String queue, String vo, String user) {
+        this.inner = requireNonNull(inner);
+        this.shaper = requireNonNull(shaper);
+        this.queue = requireNonNull(queue);
+        this.vo = requireNonNull(vo);
+        this.user = requireNonNull(user);
+    }
+
+    @Override
+    public void close() throws IllegalStateException {
+        inner.close();
+    }
+
+    @Override
+    public URI getReplicaFile() throws IllegalStateException {
+        return inner.getReplicaFile();
+    }
+
+    @Override
+    public RepositoryChannel createChannel() throws IOException, CacheException {
+        return shaper.decorate(inner.createChannel(), queue, vo, user);
+    }
+
+    @Override
+    public FileAttributes getFileAttributes() throws IllegalStateException {
+        return inner.getFileAttributes();
+    }
+
+    @Override
+    public Collection<Checksum> getChecksums() throws CacheException {
+        return inner.getChecksums();
+    }
+
+    @Override
+    public long getReplicaSize() {
+        return inner.getReplicaSize();
+    }
+
+    @Override
+    public long getReplicaCreationTime() {
+        return inner.getReplicaCreationTime();
+    }
+
+    /**
+     * Variant for descriptors through which the replica is written.
+     */
+    static class Modifiable extends BandwidthShapingReplicaDescriptor implements
+          ModifiableReplicaDescriptor {
+
+        private final ModifiableReplicaDescriptor inner;
+
+        Modifiable(ModifiableReplicaDescriptor inner, BandwidthShaper shaper, String queue,
+              String vo, String user) {
+            super(inner, shaper, queue, vo, user);
+            this.inner = inner;
+        }
+
+        @Override
+        public void commit() throws IllegalStateException, InterruptedException,
+              FileSizeMismatchException, CacheException {
+            inner.commit();
+        }
+
+        @Override
+        public void addChecksums(Iterable<Checksum> checksum) {
+            inner.addChecksums(checksum);
+        }
+
+        @Override
+        public void setLastAccessTime(long time) {
+            inner.setLastAccessTime(time);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.bandwidth;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * A node in the hierarchy of token buckets maintained by {@link BandwidthShaper}.
+ * <p>
+ * The scheme follows that of a hierarchical token bucket: every node has an assured rate and a
+ * ceiling.  The assured rate of a node is its weighted share of the parent's assured rate, where
+ * only siblings with open channels take part in the share.  The ceiling is the configured limit
+ * of the node, bounded by the ceiling of its parent.  A node may transfer data while it has
+ * assured tokens; once these are exhausted it may borrow idle capacity from its ancestors as long
+ * as it stays below its ceiling.  Every transfer is charged to all nodes on the path to the root.
+ * <p>
+ * Buckets track a debt rather than refusing requests larger than their burst, so a single large
+ * request delays the next request rather than being split.
+ * <p>
+ * Bytes are charged to the hierarchy in advance of a transfer, while the statistics count the
+ * bytes actually transferred.  These are recorded without holding the lock.
+ * <p>
+ * Except for {@link #record} and {@link #getBytes}, all methods must be called while holding the
+ * lock of the owning shaper.
+ */
+class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final BandwidthShaper.Level level;
+    private final String name;
+    private final TokenBucket parent;
+
+    @GuardedBy("shaper")
+    private final Map<String, TokenBucket> children = new HashMap<>();
+
+    @GuardedBy("shaper")
+    private BandwidthShaper.Limits limits;
+
+    /**
+     * Number of channels open against this node or any of its descendants.
+     */
+    @GuardedBy("shaper")
+    private int channels;
+
+    /**
+     * Sum of the weights of those children that have open channels.
+     */
+    @GuardedBy("shaper")
+    private long activeWeight;
+
+    @GuardedBy("shaper")
+    private double tokens;
+
+    @GuardedBy("shaper")
+    private double ctokens;
+
+    @GuardedBy("shaper")
+    private long lastUpdate;
+
+    private final LongAdder bytes = new LongAdder();
+
+    @GuardedBy("shaper")
+    private long throttled;
+
+    TokenBucket(BandwidthShaper.Level level, String name, TokenBucket parent,
+          BandwidthShaper.Limits limits, long now) {
+        this.level = level;
+        this.name = name;
+        this.parent = parent;
+        this.limits = limits;
+        this.lastUpdate = now;
+        this.tokens = burst();
+        this.ctokens = burst();
+    }
+
+    BandwidthShaper.Level getLevel() {
+        return level;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    TokenBucket getParent() {
+        return parent;
+    }
+
+    TokenBucket getChild(String name) {
+        return children.get(name);
+    }
+
+    void addChild(TokenBucket child) {
+        children.put(child.getName(), child);
+    }
+
+    Collection<TokenBucket> getChildren() {
+        return children.values();
+    }
+
+    BandwidthShaper.Limits getLimits() {
+        return limits;
+    }
+
+    void setLimits(BandwidthShaper.Limits limits) {
+        if (channels > 0 && parent != null) {
+            parent.activeWeight += limits.getWeight() - this.limits.getWeight();
+        }
+        this.limits = limits;
+        tokens = Math.min(tokens, burst());
+        ctokens = Math.min(ctokens, burst());
+    }
+
+    int getChannels() {
+        return channels;
+    }
+
+    long getBytes() {
+        return bytes.sum();
+    }
+
+    long getThrottled() {
+        return throttled;
+    }
+
+    /**
+     * Registers an open channel with this node and all its ancestors.
+     */
+    void open() {
+        for (TokenBucket node = this; node != null; node = node.parent) {
+            if (node.channels++ == 0 && node.parent != null) {
+                node.parent.activeWeight += node.limits.getWeight();
+            }
+        }
+    }
+
+    /**
+     * Unregisters an open channel from this node and all its ancestors. Nodes without open
+     * channels are removed from the hierarchy.
+     */
+    void close() {
+        for (TokenBucket node = this; node != null; node = node.parent) {
+            if (--node.channels == 0 && node.parent != null) {
+                node.parent.activeWeight -= node.limits.getWeight();
+                node.parent.children.remove(node.name);
+            }
+        }
+    }
+
+    /**
+     * The ceiling of this node in bytes per second.
+     */
+    double ceil() {
+        double ceil = limits.getLimit() > 0 ? limits.getLimit() : Double.POSITIVE_INFINITY;
+        return parent == null ? ceil : Math.min(ceil, parent.ceil());
+    }
+
+    /**
+     * The burst of this node in bytes, bounded by the burst of its parent. Assured transfers are
+     * not checked against the ceiling of ancestors, so this bounds by how much they may overshoot.
+     */
+    long burst() {
+        long burst = limits.getBurst();
+        return parent == null ? burst : Math.min(burst, parent.burst());
+    }
+
+    /**
+     * The assured rate of this node in bytes per second.
+     */
+    double rate() {
+        if (parent == null) {
+            return ceil();
+        }
+        double share = parent.rate();
+        if (!Double.isInfinite(share)) {
+            long weight = limits.getWeight();
+            long total = channels > 0 ? parent.activeWeight : parent.activeWeight + weight;
+            share = share * weight / total;
+        }
+        return Math.min(ceil(), share);
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastUpdate;
+        if (elapsed > 0) {
+            tokens = fill(tokens, rate(), elapsed);
+            ctokens = fill(ctokens, ceil(), elapsed);
+            lastUpdate = now;
+        }
+    }
+
+    private double fill(double current, double rate, long elapsed) {
+        long burst = burst();
+        return Double.isInfinite(rate)
+              ? burst
+              : Math.min(burst, current + rate * elapsed / NANOS_PER_SECOND);
+    }
+
+    private static long nanosUntilPositive(double tokens, double rate) {
+        if (tokens > 0 || Double.isInfinite(rate)) {
+            return 0;
+        }
+        if (rate <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return (long) Math.ceil((1 - tokens) / rate * NANOS_PER_SECOND);
+    }
+
+    /**
+     * Attempts to charge {@code amount} bytes to this node.
+     *
+     * @return zero if the bytes were charged, otherwise an estimate of the number of nanoseconds
+     * to wait before trying again
+     */
+    long tryCharge(long amount, long now) {
+        long wait = getDelay(now);
+        if (wait == 0) {
+            charge(amount);
+            return 0;
+        }
+        throttled++;
+        return wait;
+    }
+
+    /**
+     * Charges {@code amount} bytes to this node even if it does not permit the transfer. The
+     * resulting debt delays subsequent transfers.
+     */
+    void forceCharge(long amount) {
+        charge(amount);
+    }
+
+    /**
+     * Returns zero if this node permits a transfer, otherwise an estimate of the number of
+     * nanoseconds until it does.
+     */
+    long getDelay(long now) {
+        long wait = Long.MAX_VALUE;
+        for (TokenBucket node = this; node != null; node = node.parent) {
+            node.refill(now);
+        }
+        for (TokenBucket node = this; node != null; node = node.parent) {
+            double ceil = node.ceil();
+            if (node.ctokens <= 0 && !Double.isInfinite(ceil)) {
+                wait = Math.min(wait, nanosUntilPositive(node.ctokens, ceil));
+                break;
+            }
+            if (node.tokens > 0 || node.parent == null) {
+                return 0;
+            }
+            wait = Math.min(wait, nanosUntilPositive(node.tokens, node.rate()));
+        }
+        return Math.max(wait, 1);
+    }
+
+    /**
+     * Records {@code amount} bytes transferred through this node.
+     */
+    void record(long amount) {
+        for (TokenBucket node = this; node != null; node = node.parent) {
+            node.bytes.add(amount);
+        }
+    }
+
+    /**
+     * Returns {@code amount} previously charged bytes that were not transferred.
+     */
+    void refund(long amount) {
+        charge(-amount);
+    }
+
+    private void charge(long amount) {
+        for (TokenBucket node = this; node != null; node = node.parent) {
+            long burst = node.burst();
+            node.tokens = Math.min(burst, node.tokens - amount);
+            node.ctokens = Math.min(burst, node.ctokens - amount);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.classic;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import diskCacheV111.pools.PoolCostInfo;
+import diskCacheV111.pools.PoolCostInfo.NamedPoolQueueInfo;
+import diskCacheV111.pools.PoolCostInfo.PoolQueueInfo;
+import diskCacheV111.pools.PoolCostInfo.PoolSpaceInfo;
+import diskCacheV111.vehicles.PoolManagerPoolCostUpdateMessage;
+import java.util.Map;
+
+/**
+ * Tracks the cost information a pool last reported and decides which changes are significant
+ * enough to be reported before the next heartbeat.
+ * <p>
+ * A change of a queue is significant if the queue starts or stops queuing requests, or if the
+ * number of active and queued requests changes by at least a fraction of the maximum number of
+ * active requests (and at least by one). A change of space is significant if free, precious or
+ * removable space changes by at least a fraction of the total space, or if free space crosses the
+ * gap. Changes that cannot be expressed as an update, like added or removed mover queues or a
+ * different total space, require the full cost information to be reported.
+ * <p>
+ * Instances are not thread safe.
+ */
+class CostUpdateTracker {
+
+    private double _queueThreshold;
+    private double _spaceThreshold;
+    private PoolCostInfo _reported;
+    private long _sequence;
+    private long _updates;
+
+    CostUpdateTracker(double queueThreshold, double spaceThreshold) {
+        setQueueThreshold(queueThreshold);
+        setSpaceThreshold(spaceThreshold);
+    }
+
+    void setQueueThreshold(double fraction) {
+        checkArgument(fraction >= 0, "Queue threshold must not be negative.");
+        _queueThreshold = fraction;
+    }
+
+    void setSpaceThreshold(double fraction) {
+        checkArgument(fraction >= 0, "Space threshold must not be negative.");
+        _spaceThreshold = fraction;
+    }
+
+    /**
+     * Records that the given cost information was reported in full.
+     *
+     * @return the sequence number of the report
+     */
+    long reported(PoolCostInfo info) {
+        _reported = info;
+        return ++_sequence;
+    }
+
+    /**
+     * Forgets the cost information last reported, e.g. because the pool was disabled.
+     */
+    void reset() {
+        _reported = null;
+    }
+
+    /**
+     * Returns the number of updates created.
+     */
+    long getUpdates() {
+        return _updates;
+    }
+
+    /**
+     * Returns whether the changes since the last report can only be reported by reporting the
+     * cost information in full.
+     */
+    boolean requiresFullReport(PoolCostInfo info) {
+        if (_reported == null) {
+            return true;
+        }
+        if (_reported.getMoverCostFactor() != info.getMoverCostFactor()
+              || isStructurallyDifferent(_reported.getSpaceInfo(), info.getSpaceInfo())
+              || isStructurallyDifferent(_reported.getStoreQueue(), info.getStoreQueue())
+              || isStructurallyDifferent(_reported.getRestoreQueue(), info.getRestoreQueue())
+              || isStructurallyDifferent(_reported.getP2pQueue(), info.getP2pQueue())
+              || isStructurallyDifferent(_reported.getP2pClientQueue(),
+              info.getP2pClientQueue())) {
+            return true;
+        }
+        Map<String, NamedPoolQueueInfo> before = _reported.getExtendedMoverHash();
+        Map<String, NamedPoolQueueInfo> after = info.getExtendedMoverHash();
+        if (!before.keySet().equals(after.keySet())) {
+            return true;
+        }
+        return after.values().stream()
+              .anyMatch(queue -> isStructurallyDifferent(before.get(queue.getName()), queue));
+    }
+
+    /**
+     * Returns an update containing all changes since the last report if at least one of them is
+     * significant, and records the update as reported. Returns null otherwise.
+     * <p>
+     * Must only be called if a full report is not required.
+     */
+    PoolManagerPoolCostUpdateMessage getUpdate(String poolName, long serialId,
+          PoolCostInfo info) {
+        boolean isSignificant = false;
+        PoolManagerPoolCostUpdateMessage update =
+              new PoolManagerPoolCostUpdateMessage(poolName, serialId, _sequence + 1);
+
+        PoolSpaceInfo space = info.getSpaceInfo();
+        if (!isSame(_reported.getSpaceInfo(), space)) {
+            update.setSpaceInfo(space);
+            isSignificant |= isSignificant(_reported.getSpaceInfo(), space);
+        }
+        PoolQueueInfo store = info.getStoreQueue();
+        if (!isSame(_reported.getStoreQueue(), store)) {
+            update.setStoreQueue(store);
+            isSignificant |= isSignificant(_reported.getStoreQueue(), store);
+        }
+        PoolQueueInfo restore = info.getRestoreQueue();
+        if (!isSame(_reported.getRestoreQueue(), restore)) {
+            update.setRestoreQueue(restore);
+            isSignificant |= isSignificant(_reported.getRestoreQueue(), restore);
+        }
+        PoolQueueInfo p2p = info.getP2pQueue();
+        if (!isSame(_reported.getP2pQueue(), p2p)) {
+            update.setP2pQueue(p2p);
+            isSignificant |= isSignificant(_reported.getP2pQueue(), p2p);
+        }
+        PoolQueueInfo p2pClient = info.getP2pClientQueue();
+        if (!isSame(_reported.getP2pClientQueue(), p2pClient)) {
+            update.setP2pClientQueue(p2pClient);
+            isSignificant |= isSignificant(_reported.getP2pClientQueue(), p2pClient);
+        }
+        Map<String, NamedPoolQueueInfo> movers = _reported.getExtendedMoverHash();
+        for (NamedPoolQueueInfo queue : info.getExtendedMoverHash().values()) {
+            NamedPoolQueueInfo before = movers.get(queue.getName());
+            if (!isSame(before, queue)) {
+                update.addMoverQueue(queue);
+                isSignificant |= isSignificant(before, queue);
+            }
+        }
+
+        if (!isSignificant) {
+            return null;
+        }
+        _reported = info;
+        _sequence++;
+        _updates++;
+        return update;
+    }
+
+    private static boolean isStructurallyDifferent(PoolQueueInfo before, PoolQueueInfo after) {
+        if (before == null || after == null) {
+            return before != after;
+        }
+        return before.getMaxActive() != after.getMaxActive();
+    }
+
+    private static boolean isStructurallyDifferent(PoolSpaceInfo before, PoolSpaceInfo after) {
+        if (before == null || after == null) {
+            return before != after;
+        }
+        return before.getTotalSpace() != after.getTotalSpace()
+              || before.getGap() != after.getGap()
+              || before.getBreakEven() != after.getBreakEven();
+    }
+
+    private static boolean isSame(PoolQueueInfo before, PoolQueueInfo after) {
+        if (before == null || after == null) {
+            return before == after;
+        }
+        return before.getActive() == after.getActive()
+              && before.getMaxActive() == after.getMaxActive()
+              && before.getQueued() == after.getQueued()
+              && before.getReaders() == after.getReaders()
+              && before.getWriters() == after.getWriters();
+    }
+
+    private static boolean isSame(PoolSpaceInfo before, PoolSpaceInfo after) {
+        if (before == null || after == null) {
+            return before == after;
+        }
+        return before.getTotalSpace() == after.getTotalSpace()
+              && before.getFreeSpace() == after.getFreeSpace()
+              && before.getPreciousSpace() == after.getPreciousSpace()
+              && before.getRemovableSpace() == after.getRemovableSpace()
+              && before.getLRUSeconds() == after.getLRUSeconds()
+              && before.getGap() == after.getGap()
+              && before.getBreakEven() == after.getBreakEven();
+    }
+
+    private boolean isSignificant(PoolQueueInfo before, PoolQueueInfo after) {
+        if ((before.getQueued() == 0) != (after.getQueued() == 0)) {
+            return true;
+        }
+        long threshold = Math.max(1, (long) Math.ceil(_queueThreshold * after.getMaxActive()));
+        int load = after.getActive() + after.getQueued();
+        return Math.abs(load - (before.getActive() + before.getQueued())) >= threshold;
+    }
+
+    private boolean isSignificant(PoolSpaceInfo before, PoolSpaceInfo after) {
+        if ((before.getFreeSpace() < before.getGap()) != (after.getFreeSpace() < after.getGap())) {
+            return true;
+        }
+        long threshold = Math.max(1, (long) Math.ceil(_spaceThreshold * after.getTotalSpace()));
+        return Math.abs(after.getFreeSpace() - before.getFreeSpace()) >= threshold
+              || Math.abs(after.getPreciousSpace() - before.getPreciousSpace()) >= threshold
+              || Math.abs(after.getRemovableSpace() - before.getRemovableSpace()) >= threshold;
+    }
+}
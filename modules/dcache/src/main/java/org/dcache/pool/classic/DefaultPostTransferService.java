@@ -36,6 +36,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import org.dcache.cells.CellStub;
+import org.dcache.kafka.KafkaEventPublisher;
 import org.dcache.pool.movers.Mover;
 import org.dcache.pool.repository.ModifiableReplicaDescriptor;
 import org.dcache.pool.repository.ReplicaDescriptor;
@@ -52,7 +53,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.kafka.KafkaException;
-import org.springframework.kafka.core.KafkaTemplate;
 
 public class DefaultPostTransferService extends AbstractCellComponent implements
       PostTransferService, CellInfoProvider {
@@ -88,8 +88,8 @@ public class DefaultPostTransferService extends AbstractCellComponent implements
 
     @Autowired(required = false)
     @Qualifier("transfer")
-    public void setKafkaTemplate(KafkaTemplate kafkaTemplate) {
-        _kafkaSender = kafkaTemplate::sendDefault;
+    public void setKafkaPublisher(KafkaEventPublisher kafkaPublisher) {
+        _kafkaSender = kafkaPublisher;
     }
 
     public void init() {
@@ -7,6 +7,7 @@ import static java.util.stream.Collectors.joining;
 import diskCacheV111.util.CacheException;
 import diskCacheV111.vehicles.IoJobInfo;
 import dmg.cells.nucleus.CellCommandListener;
+import dmg.cells.nucleus.CellMetricsProvider;
 import dmg.cells.nucleus.CellSetupProvider;
 import dmg.util.CommandException;
 import dmg.util.command.Argument;
@@ -30,6 +31,7 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import org.dcache.pool.FaultEvent;
+import org.dcache.metrics.MetricRegistry;
 import org.dcache.pool.FaultListener;
 import org.dcache.pool.classic.MoverRequestScheduler.Order;
 import org.dcache.util.IoPriority;
@@ -37,7 +39,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class IoQueueManager
-      implements FaultListener, CellCommandListener, CellSetupProvider {
+      implements FaultListener, CellCommandListener, CellSetupProvider, CellMetricsProvider {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(IoQueueManager.class);
 
@@ -125,6 +127,19 @@ public class IoQueueManager
         }
     }
 
+    @Override
+    public void registerMetrics(MetricRegistry.Scope scope) {
+        scope.gauge("dcache_pool_movers_active", "Movers currently running.",
+              out -> queuesById.values().forEach(
+                    q -> out.sample("queue", q.getName(), q.getActiveJobs())));
+        scope.gauge("dcache_pool_movers_queued", "Movers waiting for a free slot.",
+              out -> queuesById.values().forEach(
+                    q -> out.sample("queue", q.getName(), q.getQueueSize())));
+        scope.gauge("dcache_pool_movers_max_active", "Maximum number of concurrent movers.",
+              out -> queuesById.values().forEach(
+                    q -> out.sample("queue", q.getName(), q.getMaxActiveJobs())));
+    }
+
     public Collection<MoverRequestScheduler> queues() {
         return queuesById.values();
     }
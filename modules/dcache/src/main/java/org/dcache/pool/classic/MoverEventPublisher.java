@@ -0,0 +1,68 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.classic;
+
+import static java.util.Objects.requireNonNull;
+
+import diskCacheV111.vehicles.IoJobInfo;
+import diskCacheV111.vehicles.MoverEventMessage;
+import diskCacheV111.vehicles.TransferEventMessage;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.dcache.util.TransferEventPublisher;
+
+/**
+ * Publishes the changes to the movers of a pool.
+ * <p>
+ * A mover is published again when its state changes or when it transferred data since it was
+ * published last, i.e. progress is reported at most once per period.
+ */
+public class MoverEventPublisher extends TransferEventPublisher<IoJobInfo> {
+
+    private IoQueueManager ioQueueManager;
+
+    public void setIoQueueManager(IoQueueManager ioQueueManager) {
+        this.ioQueueManager = requireNonNull(ioQueueManager);
+    }
+
+    @Override
+    protected Map<Long, IoJobInfo> collect() {
+        Map<Long, IoJobInfo> movers = new HashMap<>();
+        for (MoverRequestScheduler queue : ioQueueManager.queues()) {
+            for (IoJobInfo info : queue.getJobInfos()) {
+                movers.put(info.getJobId(), info);
+            }
+        }
+        return movers;
+    }
+
+    @Override
+    protected boolean hasChanged(IoJobInfo before, IoJobInfo after) {
+        return !before.getStatus().equals(after.getStatus())
+              || before.getStartTime() != after.getStartTime()
+              || before.getBytesTransferred() != after.getBytesTransferred();
+    }
+
+    @Override
+    protected TransferEventMessage<IoJobInfo> createMessage(long epoch, long sequence,
+          boolean snapshot, long expiry, List<IoJobInfo> updated, long[] finished) {
+        return new MoverEventMessage(getCellAddress(), epoch, sequence, snapshot, expiry,
+              updated, finished);
+    }
+}
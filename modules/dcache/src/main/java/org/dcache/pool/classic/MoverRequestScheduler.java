@@ -41,6 +41,9 @@ import org.dcache.pool.FaultListener;
 import org.dcache.pool.movers.Mover;
 import org.dcache.pool.movers.json.MoverData;
 import org.dcache.pool.repository.FileStore;
+import org.dcache.tracing.Span;
+import org.dcache.tracing.SpanContext;
+import org.dcache.tracing.Tracer;
 import org.dcache.util.AdjustableSemaphore;
 import org.dcache.util.IoPrioritizable;
 import org.dcache.util.IoPriority;
@@ -607,6 +610,16 @@ public class MoverRequestScheduler {
         private final int _id;
         private final CDC _cdc;
 
+        /**
+         * Trace context of the request that created the mover, if traced.
+         */
+        private final SpanContext _trace;
+
+        /**
+         * Trace span of the running mover.
+         */
+        private Span _span;
+
         /**
          * Request creation time.
          */
@@ -632,6 +645,7 @@ public class MoverRequestScheduler {
             _state = NEW;
             _doorUniqueId = doorUniqueId;
             _cdc = new CDC();
+            _trace = Tracer.current();
         }
 
         @Override
@@ -739,6 +753,14 @@ public class MoverRequestScheduler {
                 }
                 _state = RUNNING;
                 _startTime = System.currentTimeMillis();
+                if (_trace != null) {
+                    Tracer.startSpan("mover queue", _trace, _submitTime)
+                          .setAttribute("queue", _mover.getQueueName())
+                          .end();
+                    _span = Tracer.startSpan("mover", _trace)
+                          .setAttribute("mode", isWrite() ? "write" : "read")
+                          .setAttribute("protocol", _mover.getProtocolInfo().getProtocol());
+                }
                 _cancellable = _mover.execute(completionHandler);
             } catch (RuntimeException e) {
                 completionHandler.failed(e, null);
@@ -766,6 +788,13 @@ public class MoverRequestScheduler {
 
         public synchronized void done() {
             _state = DONE;
+            if (_span != null) {
+                _span.setAttribute("bytes", _mover.getBytesTransferred());
+                if (_mover.getErrorCode() != 0) {
+                    _span.setError(_mover.getErrorMessage());
+                }
+                _span.end();
+            }
         }
     }
 }
@@ -37,6 +37,7 @@ import diskCacheV111.vehicles.PoolCheckFreeSpaceMessage;
 import diskCacheV111.vehicles.PoolDeliverFileMessage;
 import diskCacheV111.vehicles.PoolFetchFileMessage;
 import diskCacheV111.vehicles.PoolIoFileMessage;
+import diskCacheV111.vehicles.PoolManagerPoolCostUpdateMessage;
 import diskCacheV111.vehicles.PoolManagerPoolUpMessage;
 import diskCacheV111.vehicles.PoolMgrReplicateFileMsg;
 import diskCacheV111.vehicles.PoolModifyModeMessage;
@@ -44,6 +45,7 @@ import diskCacheV111.vehicles.PoolModifyPersistencyMessage;
 import diskCacheV111.vehicles.PoolMoverKillMessage;
 import diskCacheV111.vehicles.PoolRemoveFilesFromHSMMessage;
 import diskCacheV111.vehicles.PoolRemoveFilesMessage;
+import diskCacheV111.vehicles.PoolSetStickyBatchMessage;
 import diskCacheV111.vehicles.PoolSetStickyMessage;
 import diskCacheV111.vehicles.ProtocolInfo;
 import diskCacheV111.vehicles.RemoveFileInfoMessage;
@@ -88,6 +90,7 @@ import java.util.TreeSet;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 import org.dcache.alarms.AlarmMarkerFactory;
@@ -97,10 +100,13 @@ import org.dcache.cells.CellStub;
 import org.dcache.cells.MessageReply;
 import org.dcache.cells.ThreadCreator;
 import org.dcache.cells.ZoneAware;
+import org.dcache.kafka.KafkaEventPublisher;
 import org.dcache.pool.FaultEvent;
 import org.dcache.pool.FaultListener;
 import org.dcache.pool.PoolDataBeanProvider;
 import org.dcache.pool.assumption.Assumption;
+import org.dcache.pool.bandwidth.BandwidthShaper;
+import org.dcache.pool.hotfiles.HotFileCache;
 import org.dcache.pool.json.PoolDataDetails;
 import org.dcache.pool.json.PoolDataDetails.Lsf;
 import org.dcache.pool.json.PoolDataDetails.P2PMode;
@@ -109,6 +115,7 @@ import org.dcache.pool.movers.MoverFactory;
 import org.dcache.pool.nearline.HsmSet;
 import org.dcache.pool.nearline.NearlineStorageHandler;
 import org.dcache.pool.p2p.P2PClient;
+import org.dcache.pool.readahead.ReadAheadManager;
 import org.dcache.pool.repository.AbstractStateChangeListener;
 import org.dcache.pool.repository.Account;
 import org.dcache.pool.repository.CacheEntry;
@@ -129,7 +136,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.kafka.KafkaException;
-import org.springframework.kafka.core.KafkaTemplate;
 
 public class PoolV4
       extends AbstractCellComponent
@@ -140,6 +146,8 @@ public class PoolV4
     private static final int P2P_CACHED = 1;
     private static final int P2P_PRECIOUS = 2;
     private static final int HEARTBEAT = 30;
+    private static final double DEFAULT_COST_UPDATE_QUEUE_THRESHOLD = 0.1;
+    private static final double DEFAULT_COST_UPDATE_SPACE_THRESHOLD = 0.01;
 
     private static final double DEFAULT_BREAK_EVEN = 0.7;
 
@@ -181,6 +189,9 @@ public class PoolV4
     private final PoolManagerPingThread _pingThread = new PoolManagerPingThread();
     private HsmFlushController _flushingThread;
     private IoQueueManager _ioQueue;
+    private BandwidthShaper _bandwidthShaper;
+    private ReadAheadManager _readAheadManager;
+    private HotFileCache _hotFileCache;
     private HsmSet _hsmSet;
     private NearlineStorageHandler _storageHandler;
     private int _p2pFileMode = P2P_CACHED;
@@ -226,8 +237,8 @@ public class PoolV4
 
     @Autowired(required = false)
     @Qualifier("remove")
-    public void setKafkaTemplate(KafkaTemplate kafkaTemplate) {
-        _kafkaSender = kafkaTemplate::sendDefault;
+    public void setKafkaPublisher(KafkaEventPublisher kafkaPublisher) {
+        _kafkaSender = kafkaPublisher;
     }
 
     @Required
@@ -306,6 +317,27 @@ public class PoolV4
         _poolupDestination = name;
     }
 
+    /**
+     * Sets how often the pool checks for significant changes of its cost between two heartbeats.
+     * Zero disables such cost updates.
+     */
+    public void setCostUpdatePeriod(long period) {
+        checkArgument(period >= 0, "Cost update period must not be negative.");
+        _pingThread.setCostUpdatePeriod(period);
+    }
+
+    public void setCostUpdatePeriodUnit(TimeUnit unit) {
+        _pingThread.setCostUpdatePeriodUnit(unit);
+    }
+
+    public void setCostUpdateQueueThreshold(double fraction) {
+        _pingThread.setCostUpdateQueueThreshold(fraction);
+    }
+
+    public void setCostUpdateSpaceThreshold(double fraction) {
+        _pingThread.setCostUpdateSpaceThreshold(fraction);
+    }
+
     @Required
     public void setBillingStub(CellStub stub) {
         assertNotRunning("Cannot set billing stub after initialization");
@@ -390,6 +422,24 @@ public class PoolV4
         _ioQueue = ioQueueManager;
     }
 
+    @Required
+    public void setBandwidthShaper(BandwidthShaper shaper) {
+        assertNotRunning("Cannot set bandwidth shaper after initialization");
+        _bandwidthShaper = shaper;
+    }
+
+    @Required
+    public void setReadAheadManager(ReadAheadManager manager) {
+        assertNotRunning("Cannot set read-ahead manager after initialization");
+        _readAheadManager = manager;
+    }
+
+    @Required
+    public void setHotFileCache(HotFileCache cache) {
+        assertNotRunning("Cannot set hot file cache after initialization");
+        _hotFileCache = cache;
+    }
+
     @Required
     public void setPoolMode(PoolV2Mode mode) {
         _poolMode = mode;
@@ -670,6 +720,8 @@ public class PoolV4
         }
 
         info.setPingHeartbeatInSecs(_pingThread.getHeartbeat());
+        info.setCostUpdatePeriodInMillis(_pingThread.getCostUpdatePeriodInMillis());
+        info.setCostUpdates(_pingThread.getCostUpdates());
         info.setP2pFileMode(_p2pFileMode == P2P_PRECIOUS ?
               P2PMode.PRECIOUS : P2PMode.CACHED);
         info.setPoolMode(_poolMode.toString());
@@ -733,6 +785,14 @@ public class PoolV4
             throw new FileInCacheException("File " + pnfsId + " already exists in " + _poolName, e);
         }
         try {
+            String queueName = !(message instanceof PoolAcceptFileMessage) && message.isPool2Pool()
+                  ? IoQueueManager.P2P_QUEUE_NAME
+                  : _ioQueue.getQueueByNameOrDefault(message.getIoQueueName()).getName();
+            if (!(message instanceof PoolAcceptFileMessage)) {
+                handle = _readAheadManager.decorate(handle);
+                handle = _hotFileCache.decorate(handle);
+            }
+            handle = _bandwidthShaper.decorate(handle, queueName, message.getSubject());
             return moverFactory.createMover(handle, message, source);
         } catch (Throwable t) {
             handle.close();
@@ -1222,6 +1282,29 @@ public class PoolV4
         return msg;
     }
 
+    public PoolSetStickyBatchMessage messageArrived(PoolSetStickyBatchMessage msg)
+          throws CacheException, InterruptedException {
+        if (_poolMode.isDisabled(PoolV2Mode.DISABLED_STRICT)) {
+            LOGGER.warn("PoolSetStickyBatchMessage request rejected due to {}", _poolMode);
+            throw new CacheException(CacheException.POOL_DISABLED, "Pool is disabled");
+        }
+
+        for (PoolSetStickyBatchMessage.Entry entry : msg.getEntries()) {
+            try {
+                _repository.setSticky(entry.getPnfsId(),
+                      entry.getOwner(),
+                      msg.isSticky()
+                            ? entry.getLifeTime()
+                            : 0,
+                      true);
+            } catch (CacheException e) {
+                entry.setFailed(e.getRc(), e.getMessage());
+            }
+        }
+        msg.setSucceeded();
+        return msg;
+    }
+
     public CacheRepositoryEntryInfo getCacheRepositoryEntryInfo(PnfsId pnfsid)
           throws CacheException, InterruptedException {
         CacheEntry entry = _repository.getEntry(pnfsid);
@@ -1289,6 +1372,10 @@ public class PoolV4
 
         private final Thread _worker;
         private int _heartbeat = HEARTBEAT;
+        private volatile long _costUpdatePeriod;
+        private volatile TimeUnit _costUpdatePeriodUnit = TimeUnit.SECONDS;
+        private final CostUpdateTracker _costUpdates = new CostUpdateTracker(
+              DEFAULT_COST_UPDATE_QUEUE_THRESHOLD, DEFAULT_COST_UPDATE_SPACE_THRESHOLD);
 
         private PoolManagerPingThread() {
             _worker = new Thread(this, "ping");
@@ -1308,7 +1395,17 @@ public class PoolV4
             try {
                 while (!Thread.interrupted()) {
                     sendPoolManagerMessage();
-                    Thread.sleep(_heartbeat * 1000);
+                    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(_heartbeat);
+                    long remaining;
+                    while ((remaining = deadline - System.nanoTime()) > 0) {
+                        long period = _costUpdatePeriodUnit.toNanos(_costUpdatePeriod);
+                        if (period == 0 || period >= remaining) {
+                            TimeUnit.NANOSECONDS.sleep(remaining);
+                        } else {
+                            TimeUnit.NANOSECONDS.sleep(period);
+                            sendCostUpdate();
+                        }
+                    }
                 }
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
@@ -1325,19 +1422,68 @@ public class PoolV4
             return _heartbeat;
         }
 
+        public void setCostUpdatePeriod(long period) {
+            _costUpdatePeriod = period;
+        }
+
+        public void setCostUpdatePeriodUnit(TimeUnit unit) {
+            _costUpdatePeriodUnit = unit;
+        }
+
+        public synchronized void setCostUpdateQueueThreshold(double fraction) {
+            _costUpdates.setQueueThreshold(fraction);
+        }
+
+        public synchronized void setCostUpdateSpaceThreshold(double fraction) {
+            _costUpdates.setSpaceThreshold(fraction);
+        }
+
+        public long getCostUpdatePeriodInMillis() {
+            return _costUpdatePeriodUnit.toMillis(_costUpdatePeriod);
+        }
+
+        public synchronized long getCostUpdates() {
+            return _costUpdates.getUpdates();
+        }
+
         public synchronized void sendPoolManagerMessage() {
-            send(getPoolManagerMessage());
+            send(getPoolManagerMessage(isReportingCost() ? getPoolCostInfo() : null));
+        }
+
+        /**
+         * Reports significant changes of the pool cost since the last report. Changes that cannot
+         * be reported as an update cause the full pool cost to be reported.
+         */
+        private synchronized void sendCostUpdate() {
+            if (!isReportingCost()) {
+                return;
+            }
+            PoolCostInfo info = getPoolCostInfo();
+            if (_costUpdates.requiresFullReport(info)) {
+                send(getPoolManagerMessage(info));
+            } else {
+                PoolManagerPoolCostUpdateMessage update =
+                      _costUpdates.getUpdate(_poolName, _serialId, info);
+                if (update != null) {
+                    send(new CellMessage(new CellPath(_poolupDestination), update));
+                }
+            }
         }
 
-        private CellMessage getPoolManagerMessage() {
-            boolean disabled =
-                  _poolMode.getMode() == PoolV2Mode.DISABLED ||
-                        _poolMode.isDisabled(PoolV2Mode.DISABLED_STRICT);
-            PoolCostInfo info = disabled ? null : getPoolCostInfo();
+        private boolean isReportingCost() {
+            return _poolMode.getMode() != PoolV2Mode.DISABLED &&
+                  !_poolMode.isDisabled(PoolV2Mode.DISABLED_STRICT);
+        }
 
+        private CellMessage getPoolManagerMessage(PoolCostInfo info) {
             PoolManagerPoolUpMessage poolManagerMessage =
                   new PoolManagerPoolUpMessage(_poolName, _serialId,
                         _poolMode, info);
+            if (info == null) {
+                _costUpdates.reset();
+            } else {
+                poolManagerMessage.setSequence(_costUpdates.reported(info));
+            }
 
             poolManagerMessage.setHostName(NetworkUtils.getCanonicalHostName());
             poolManagerMessage.setTagMap(_tags);
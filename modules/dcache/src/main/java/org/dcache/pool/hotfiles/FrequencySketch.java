@@ -0,0 +1,100 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.hotfiles;
+
+/**
+ * Approximate access counts of recently used keys, as used by the TinyLFU admission policy.
+ * <p>
+ * The sketch is a count-min sketch with four rows of four bit counters.  Counters saturate at
+ * 15.  Once the number of increments reaches ten times the width of the sketch, all counters
+ * are halved, so the sketch reflects the recent history of accesses rather than all accesses
+ * ever made.
+ * <p>
+ * The class is not thread safe.
+ */
+class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x97cb3127, 0xb8a3c5e1, 0x6f1b8a2d, 0xe3d2c4b5};
+
+    private final byte[] counters;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * @param expectedKeys the number of distinct keys the sketch should be able to tell apart
+     */
+    FrequencySketch(int expectedKeys) {
+        int width = Integer.highestOneBit(Math.max(16, expectedKeys - 1) << 1);
+        counters = new byte[DEPTH * width];
+        mask = width - 1;
+        sampleSize = 10 * width;
+    }
+
+    private int index(int row, int hash) {
+        int h = hash * SEEDS[row];
+        h ^= h >>> 16;
+        return row * (mask + 1) + (h & mask);
+    }
+
+    private static int spread(Object key) {
+        int h = key.hashCode() * 0x9e3779b9;
+        return h ^ (h >>> 15);
+    }
+
+    /**
+     * Returns the estimated number of recent accesses of {@code key}.
+     */
+    int frequency(Object key) {
+        int hash = spread(key);
+        int min = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters[index(row, hash)]);
+        }
+        return min;
+    }
+
+    /**
+     * Records an access of {@code key}.  Only the smallest counters are incremented, which
+     * reduces the overestimate caused by collisions.
+     */
+    void increment(Object key) {
+        int hash = spread(key);
+        int min = frequency(key);
+        if (min < MAX_COUNT) {
+            for (int row = 0; row < DEPTH; row++) {
+                int i = index(row, hash);
+                if (counters[i] == min) {
+                    counters[i]++;
+                }
+            }
+        }
+        if (++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] >>= 1;
+        }
+        additions /= 2;
+    }
+}
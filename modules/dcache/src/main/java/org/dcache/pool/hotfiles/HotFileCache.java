@@ -0,0 +1,439 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.hotfiles;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.dcache.util.ByteUnit.BYTES;
+import static org.dcache.util.ByteUnit.KiB;
+import static org.dcache.util.ByteUnit.MiB;
+import static org.dcache.util.ByteUnits.isoSymbol;
+
+import diskCacheV111.util.CacheException;
+import diskCacheV111.util.PnfsId;
+import dmg.cells.nucleus.CellCommandListener;
+import dmg.cells.nucleus.CellInfoProvider;
+import dmg.cells.nucleus.CellSetupProvider;
+import dmg.util.command.Command;
+import dmg.util.command.Option;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import javax.annotation.concurrent.GuardedBy;
+import org.dcache.pool.repository.AbstractStateChangeListener;
+import org.dcache.pool.repository.ModifiableReplicaDescriptor;
+import org.dcache.pool.repository.ReplicaDescriptor;
+import org.dcache.pool.repository.Repository;
+import org.dcache.pool.repository.RepositoryChannel;
+import org.dcache.pool.repository.StateChangeEvent;
+import org.dcache.util.ByteSizeParser;
+import org.dcache.util.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Required;
+
+/**
+ * Keeps the content of small, frequently read replicas in off-heap memory.
+ * <p>
+ * Movers reading a replica no larger than the maximum file size obtain their channel through
+ * this cache.  Every such access is recorded in a {@link FrequencySketch}.  On a miss the replica
+ * is admitted if there is free memory, or if it was accessed more often than the least recently
+ * used entries that would have to be evicted to make room (TinyLFU).  Admitted replicas are read
+ * once into a direct buffer by a background task and all later channels on them are served from memory until the replica
+ * changes state in the repository, which includes its removal.
+ * <p>
+ * Buffers of evicted entries are not freed while channels on them are still open; the memory
+ * limit applies to the entries held by the cache.  The cache is disabled while its capacity is
+ * zero, which is the default.
+ */
+public class HotFileCache implements CellCommandListener, CellInfoProvider, CellSetupProvider {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HotFileCache.class);
+
+    private static final ByteSizeParser SIZE_PARSER = ByteSizeParser.using(isoSymbol()).build();
+
+    /**
+     * Assumed average size of cached replicas, used to size the frequency sketch.
+     */
+    private static final long AVERAGE_SIZE = KiB.toBytes(64);
+
+    @GuardedBy("this")
+    private final LinkedHashMap<PnfsId, ByteBuffer> entries = new LinkedHashMap<>(16, 0.75f,
+          true);
+
+    /**
+     * Replicas admitted to the cache and currently being read.  The memory they will occupy is
+     * included in {@link #used}.  Invalidation removes a replica from this map, after which the
+     * loaded content is discarded.
+     */
+    @GuardedBy("this")
+    private final Map<PnfsId, Long> loading = new HashMap<>();
+
+    @GuardedBy("this")
+    private FrequencySketch sketch;
+
+    @GuardedBy("this")
+    private long capacity;
+
+    @GuardedBy("this")
+    private long maxFileSize = MiB.toBytes(1);
+
+    @GuardedBy("this")
+    private long used;
+
+    @GuardedBy("this")
+    private long hits;
+
+    @GuardedBy("this")
+    private long misses;
+
+    @GuardedBy("this")
+    private long admissions;
+
+    @GuardedBy("this")
+    private long rejections;
+
+    @GuardedBy("this")
+    private long evictions;
+
+    @GuardedBy("this")
+    private long invalidations;
+
+    private volatile boolean isEnabled;
+
+    private Executor executor;
+
+    public HotFileCache() {
+        sketch = new FrequencySketch(0);
+    }
+
+    @Required
+    public void setRepository(Repository repository) {
+        repository.addListener(new AbstractStateChangeListener() {
+            @Override
+            public void stateChanged(StateChangeEvent event) {
+                invalidate(event.getPnfsId());
+            }
+        });
+    }
+
+    @Required
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the amount of memory used for cached replicas. A capacity of zero disables the cache.
+     */
+    public synchronized void setCapacity(long bytes) {
+        checkArgument(bytes >= 0, "Capacity must not be negative");
+        capacity = bytes;
+        isEnabled = bytes > 0;
+        sketch = new FrequencySketch((int) Math.min(Integer.MAX_VALUE / 8, bytes / AVERAGE_SIZE));
+        evict(0);
+    }
+
+    public synchronized long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets the size of the largest replica that is cached.
+     */
+    public synchronized void setMaxFileSize(long bytes) {
+        checkArgument(bytes > 0 && bytes <= Integer.MAX_VALUE, "Illegal file size");
+        maxFileSize = bytes;
+        entries.values().removeIf(data -> {
+            if (data.capacity() > bytes) {
+                used -= data.capacity();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public synchronized long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    synchronized long getUsed() {
+        return used;
+    }
+
+    synchronized boolean contains(PnfsId id) {
+        return entries.containsKey(id);
+    }
+
+    /**
+     * Returns a descriptor that serves channels from memory when the replica is cached.
+     * Descriptors through which a replica is written, and all descriptors while the cache is
+     * disabled, are returned unchanged.
+     */
+    public ReplicaDescriptor decorate(ReplicaDescriptor handle) {
+        if (!isEnabled || handle instanceof ModifiableReplicaDescriptor) {
+            return handle;
+        }
+        return new HotFileReplicaDescriptor(handle, this);
+    }
+
+    /**
+     * Returns a channel on the replica of {@code handle}, served from memory if the replica is
+     * cached.  A replica admitted to the cache by this call is loaded in the background while
+     * the returned channel reads from disk.
+     */
+    RepositoryChannel open(ReplicaDescriptor handle) throws IOException, CacheException {
+        PnfsId id = handle.getFileAttributes().getPnfsId();
+        long size = handle.getReplicaSize();
+        ByteBuffer cached;
+        boolean isAdmitted = false;
+        synchronized (this) {
+            cached = lookup(id, size);
+            if (cached == null && size <= maxFileSize && isEnabled
+                  && !loading.containsKey(id) && admit(id, size)) {
+                loading.put(id, size);
+                used += size;
+                admissions++;
+                isAdmitted = true;
+            }
+        }
+        if (cached != null) {
+            return new MemoryRepositoryChannel(cached);
+        }
+        if (!isAdmitted) {
+            return handle.createChannel();
+        }
+
+        RepositoryChannel channel = null;
+        RepositoryChannel source;
+        try {
+            channel = handle.createChannel();
+            source = handle.createChannel();
+        } catch (IOException | CacheException | RuntimeException e) {
+            complete(id, size, null);
+            if (channel != null) {
+                channel.close();
+            }
+            throw e;
+        }
+        try {
+            executor.execute(() -> loadAndComplete(id, size, source));
+        } catch (RejectedExecutionException e) {
+            complete(id, size, null);
+            source.close();
+        }
+        return channel;
+    }
+
+    /**
+     * Reads an admitted replica into memory and adds it to the cache.  Runs on the executor so
+     * that the mover that caused the admission is not delayed.
+     */
+    private void loadAndComplete(PnfsId id, long size, RepositoryChannel source) {
+        ByteBuffer data = null;
+        try (RepositoryChannel channel = source) {
+            data = load(channel, size);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to read {} into memory: {}", id, e.toString());
+        } finally {
+            complete(id, size, data);
+        }
+    }
+
+    @GuardedBy("this")
+    private ByteBuffer lookup(PnfsId id, long size) {
+        if (!isEnabled || size > maxFileSize) {
+            return null;
+        }
+        sketch.increment(id);
+        ByteBuffer data = entries.get(id);
+        if (data != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return data;
+    }
+
+    private static ByteBuffer load(RepositoryChannel channel, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                return null;
+            }
+        }
+        return channel.size() == size ? buffer.asReadOnlyBuffer() : null;
+    }
+
+    /**
+     * Adds the loaded content of a replica to the cache unless loading failed or the replica
+     * was invalidated in the meantime.
+     *
+     * @return the cached content, or null if the replica was not added
+     */
+    private synchronized ByteBuffer complete(PnfsId id, long size, ByteBuffer data) {
+        if (loading.remove(id) == null) {
+            return null;
+        }
+        if (data == null) {
+            used -= size;
+            return null;
+        }
+        entries.put(id, data);
+        return data;
+    }
+
+    /**
+     * Decides whether a replica of {@code size} bytes is admitted to the cache, and if so
+     * evicts the entries needed to make room for it.
+     */
+    @GuardedBy("this")
+    private boolean admit(PnfsId id, long size) {
+        if (used + size <= capacity) {
+            return true;
+        }
+        int frequency = sketch.frequency(id);
+        List<PnfsId> victims = new ArrayList<>();
+        long available = capacity - used;
+        for (Map.Entry<PnfsId, ByteBuffer> entry : entries.entrySet()) {
+            if (available >= size) {
+                break;
+            }
+            if (sketch.frequency(entry.getKey()) >= frequency) {
+                rejections++;
+                return false;
+            }
+            victims.add(entry.getKey());
+            available += entry.getValue().capacity();
+        }
+        if (available < size) {
+            rejections++;
+            return false;
+        }
+        for (PnfsId victim : victims) {
+            used -= entries.remove(victim).capacity();
+            evictions++;
+        }
+        return true;
+    }
+
+    /**
+     * Evicts least recently used entries until at least {@code bytes} bytes are free.
+     */
+    @GuardedBy("this")
+    private void evict(long bytes) {
+        Iterator<ByteBuffer> i = entries.values().iterator();
+        while (used + bytes > capacity && i.hasNext()) {
+            used -= i.next().capacity();
+            i.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes the replica from the cache.
+     */
+    public synchronized void invalidate(PnfsId id) {
+        ByteBuffer data = entries.remove(id);
+        if (data != null) {
+            used -= data.capacity();
+            invalidations++;
+        }
+        Long size = loading.remove(id);
+        if (size != null) {
+            used -= size;
+            invalidations++;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.values().forEach(data -> used -= data.capacity());
+        entries.clear();
+    }
+
+    @Override
+    public synchronized void printSetup(PrintWriter pw) {
+        pw.println("hotfile set -capacity=" + capacity + " -max-file-size=" + maxFileSize);
+    }
+
+    @Override
+    public synchronized void getInfo(PrintWriter pw) {
+        pw.println("Enabled       : " + isEnabled);
+        if (isEnabled) {
+            long requests = hits + misses;
+            pw.println("Memory        : " + Strings.describeSize(used) + " of "
+                  + Strings.describeSize(capacity) + " used");
+            pw.println("Max file size : " + Strings.describeSize(maxFileSize));
+            pw.println("Entries       : " + entries.size());
+            pw.println("Hits          : " + hits + (requests == 0 ? ""
+                  : String.format(" (%.1f%%)", 100.0 * hits / requests)));
+            pw.println("Misses        : " + misses);
+            pw.println("Admitted      : " + admissions);
+            pw.println("Rejected      : " + rejections);
+            pw.println("Evicted       : " + evictions);
+            pw.println("Invalidated   : " + invalidations);
+        }
+    }
+
+    @AffectsSetup
+    @Command(name = "hotfile set", hint = "configure the hot file cache",
+          description = "Configures the in-memory cache of small, frequently read replicas.  "
+                + "Reads of cached replicas are served from off-heap memory without disk IO.  "
+                + "Replicas are admitted when accessed more often than the replicas they would "
+                + "displace.  A capacity of zero disables the cache.")
+    class SetCommand implements Callable<String> {
+
+        @Option(name = "capacity", metaVar = "bytes",
+              usage = "Memory used for cached replicas, e.g. 2GiB.")
+        String capacity;
+
+        @Option(name = "max-file-size", metaVar = "bytes",
+              usage = "Size of the largest replica that is cached.")
+        String maxFileSize;
+
+        @Override
+        public String call() throws IllegalArgumentException {
+            if (maxFileSize != null) {
+                setMaxFileSize(SIZE_PARSER.parse(maxFileSize, BYTES));
+            }
+            if (capacity != null) {
+                setCapacity(SIZE_PARSER.parse(capacity, BYTES));
+            }
+            return "";
+        }
+    }
+
+    @Command(name = "hotfile clear", hint = "empty the hot file cache",
+          description = "Removes all replicas from the in-memory cache.  Access statistics are "
+                + "retained.")
+    class ClearCommand implements Callable<String> {
+
+        @Override
+        public String call() {
+            clear();
+            return "";
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.hotfiles;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import org.dcache.pool.repository.RepositoryChannel;
+
+/**
+ * A read-only {@link RepositoryChannel} on the content of a replica held in memory.
+ * <p>
+ * Zero-copy transfers write the content directly from the buffer into the target channel, so a
+ * {@link org.dcache.pool.movers.RepositoryFileRegion} is served without touching the disk.
+ */
+public class MemoryRepositoryChannel implements RepositoryChannel {
+
+    private final ByteBuffer data;
+    private long position;
+    private volatile boolean isOpen = true;
+
+    /**
+     * @param data the content of the replica; the buffer is not modified
+     */
+    MemoryRepositoryChannel(ByteBuffer data) {
+        this.data = data.duplicate();
+        this.data.clear();
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!isOpen) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    private ByteBuffer slice(long position, long count) {
+        ByteBuffer slice = data.duplicate();
+        slice.position((int) position);
+        slice.limit((int) Math.min(data.capacity(), position + count));
+        return slice;
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public synchronized RepositoryChannel position(long position) throws IOException {
+        checkArgument(position >= 0, "Position must not be negative");
+        ensureOpen();
+        this.position = position;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return data.capacity();
+    }
+
+    @Override
+    public void sync() throws IOException {
+        ensureOpen();
+    }
+
+    @Override
+    public RepositoryChannel truncate(long size) throws IOException {
+        ensureOpen();
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return isOpen;
+    }
+
+    @Override
+    public void close() {
+        isOpen = false;
+    }
+
+    @Override
+    public int read(ByteBuffer buffer, long position) throws IOException {
+        checkArgument(position >= 0, "Position must not be negative");
+        ensureOpen();
+        if (position >= data.capacity()) {
+            return -1;
+        }
+        ByteBuffer src = slice(position, buffer.remaining());
+        int n = src.remaining();
+        buffer.put(src);
+        return n;
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        int n = read(dst, position);
+        if (n > 0) {
+            position += n;
+        }
+        return n;
+    }
+
+    @Override
+    public synchronized long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+        ensureOpen();
+        if (position >= data.capacity()) {
+            return -1;
+        }
+        long total = 0;
+        for (int i = offset; i < offset + length && position < data.capacity(); i++) {
+            int n = read(dsts[i], position);
+            position += n;
+            total += n;
+        }
+        return total;
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts) throws IOException {
+        return read(dsts, 0, dsts.length);
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target)
+          throws IOException {
+        checkArgument(position >= 0, "Position must not be negative");
+        ensureOpen();
+        if (position >= data.capacity()) {
+            return 0;
+        }
+        return target.write(slice(position, count));
+    }
+
+    @Override
+    public int write(ByteBuffer buffer, long position) throws IOException {
+        ensureOpen();
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        ensureOpen();
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+        ensureOpen();
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException {
+        ensureOpen();
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long transferFrom(ReadableByteChannel src, long position, long count)
+          throws IOException {
+        ensureOpen();
+        throw new NonWritableChannelException();
+    }
+}
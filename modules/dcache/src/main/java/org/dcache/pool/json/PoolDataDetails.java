@@ -108,6 +108,8 @@ public class PoolDataDetails implements Serializable {
     private boolean isHsmLoadSuppressed;
 
     private Integer pingHeartbeatInSecs;
+    private Long costUpdatePeriodInMillis;
+    private Long costUpdates;
     private Double breakEven;
     private Lsf largeFileStore;
 
@@ -163,6 +165,14 @@ public class PoolDataDetails implements Serializable {
         return pingHeartbeatInSecs;
     }
 
+    public Long getCostUpdatePeriodInMillis() {
+        return costUpdatePeriodInMillis;
+    }
+
+    public Long getCostUpdates() {
+        return costUpdates;
+    }
+
     public String getPoolMode() {
         return poolMode;
     }
@@ -206,6 +216,11 @@ public class PoolDataDetails implements Serializable {
         }
         pw.println("Hsm Load Suppr.   : " + asOnOff(isHsmLoadSuppressed));
         pw.println("Ping Heartbeat    : " + pingHeartbeatInSecs + " seconds");
+        if (costUpdatePeriodInMillis != null) {
+            pw.println("Cost Updates      : "
+                  + (costUpdatePeriodInMillis == 0 ? "off"
+                  : "every " + costUpdatePeriodInMillis + " ms, " + costUpdates + " sent"));
+        }
         pw.println("Breakeven         : " + breakEven);
         pw.println("LargeFileStore    : " + largeFileStore);
         pw.println("P2P File Mode     : " + p2pFileMode);
@@ -273,6 +288,14 @@ public class PoolDataDetails implements Serializable {
         this.pingHeartbeatInSecs = pingHeartbeatInSecs;
     }
 
+    public void setCostUpdatePeriodInMillis(Long costUpdatePeriodInMillis) {
+        this.costUpdatePeriodInMillis = costUpdatePeriodInMillis;
+    }
+
+    public void setCostUpdates(Long costUpdates) {
+        this.costUpdates = costUpdates;
+    }
+
     public void setPoolMode(String poolMode) {
         this.poolMode = poolMode;
     }
@@ -23,6 +23,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.file.OpenOption;
+import java.util.Optional;
 import java.util.Set;
 import org.dcache.pool.repository.RepositoryChannel;
 import org.dcache.vehicles.FileAttributes;
@@ -133,4 +134,13 @@ public class MoverChannelDecorator<T extends ProtocolInfo> implements Repository
     public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
         return channel.read(dsts, offset, length);
     }
+
+    @Override
+    public <C> Optional<C> optionallyAs(Class<C> type) {
+        if (type.isAssignableFrom(getClass())) {
+            return Optional.of(type.cast(this));
+        } else {
+            return channel.optionallyAs(type);
+        }
+    }
 }
@@ -65,6 +65,7 @@ import java.util.function.Consumer;
 import org.dcache.cells.CellStub;
 import org.dcache.pool.classic.Cancellable;
 import org.dcache.pool.classic.PostTransferService;
+import org.dcache.pool.bandwidth.BandwidthShapingChannel;
 import org.dcache.pool.classic.TransferService;
 import org.dcache.pool.repository.ReplicaDescriptor;
 import org.dcache.util.CDCThreadFactory;
@@ -448,6 +449,7 @@ public abstract class NettyTransferService<P extends ProtocolInfo>
         private final Consumer<ChecksumType> checksumCalculation;
         private final Consumer<Checksum> integrityChecker;
         private final UUID moverUuid;
+        private final BandwidthShapingChannel shapingChannel;
 
         public NettyMoverChannel(UUID moverUuid,
               MoverChannel<P> file,
@@ -460,6 +462,11 @@ public abstract class NettyTransferService<P extends ProtocolInfo>
             this.completionHandler = completionHandler;
             this.checksumCalculation = checksumCalculation;
             this.integrityChecker = integrityChecker;
+            /* The channel is used on event loops, which must not wait for bandwidth. */
+            shapingChannel = file.optionallyAs(BandwidthShapingChannel.class).orElse(null);
+            if (shapingChannel != null) {
+                shapingChannel.setNonBlocking(true);
+            }
             timeout = timeoutScheduler.schedule(() -> {
                 try (CDC ignored = cdc.restore()) {
                     if (sync.onTimeout()) {
@@ -485,6 +492,21 @@ public abstract class NettyTransferService<P extends ProtocolInfo>
             return moverUuid;
         }
 
+        /**
+         * Returns whether the bandwidth of this channel is shaped.
+         */
+        public boolean isBandwidthShaped() {
+            return shapingChannel != null;
+        }
+
+        /**
+         * Returns the number of nanoseconds to wait before transferring more data through this
+         * channel to stay within its bandwidth limits, or zero.
+         */
+        public long getBandwidthDelay() {
+            return shapingChannel == null ? 0 : shapingChannel.getDelay();
+        }
+
         @Override
         public int read(ByteBuffer dst) throws IOException {
             checkState(sync.isExclusive());
@@ -0,0 +1,61 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.movers;
+
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suspends reading from a Netty channel while the bandwidth limits of a mover are exceeded.
+ * <p>
+ * Netty based movers transfer data on event loop threads, which must not wait for bandwidth.
+ * Their requests are served right away and, once the limits are exceeded, reading further
+ * requests from the client is suspended until the limits permit transfers again.
+ * <p>
+ * Instances must only be used on the event loop of the channel.
+ */
+public class ReadThrottle {
+
+    private ScheduledFuture<?> resumption;
+
+    /**
+     * Suspends reading from {@code channel} for {@code delay} nanoseconds, unless reading is
+     * suspended already.
+     */
+    public void suspend(Channel channel, long delay) {
+        if (delay > 0 && resumption == null && channel.config().isAutoRead()) {
+            channel.config().setAutoRead(false);
+            resumption = channel.eventLoop().schedule(() -> {
+                resumption = null;
+                channel.config().setAutoRead(true);
+            }, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Cancels the resumption of a suspended channel, for callers that take over control of
+     * reading from the channel.
+     */
+    public void cancel() {
+        if (resumption != null) {
+            resumption.cancel(false);
+            resumption = null;
+        }
+    }
+}
@@ -48,6 +48,7 @@ import dmg.cells.nucleus.CellCommandListener;
 import dmg.cells.nucleus.CellIdentityAware;
 import dmg.cells.nucleus.CellInfoProvider;
 import dmg.cells.nucleus.CellLifeCycleAware;
+import dmg.cells.nucleus.CellMetricsProvider;
 import dmg.cells.nucleus.CellSetupProvider;
 import dmg.cells.nucleus.DelayedReply;
 import dmg.util.command.Argument;
@@ -90,6 +91,8 @@ import javax.annotation.PreDestroy;
 import javax.annotation.concurrent.Immutable;
 import org.dcache.auth.Subjects;
 import org.dcache.cells.CellStub;
+import org.dcache.kafka.KafkaEventPublisher;
+import org.dcache.metrics.MetricRegistry;
 import org.dcache.namespace.FileAttribute;
 import org.dcache.pool.PoolDataBeanProvider;
 import org.dcache.pool.classic.ChecksumModule;
@@ -123,14 +126,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.kafka.KafkaException;
-import org.springframework.kafka.core.KafkaTemplate;
 
 /**
  * Entry point to and management interface for the nearline storage subsystem.
  */
 public class NearlineStorageHandler
       implements CellCommandListener, StateChangeListener, CellSetupProvider, CellLifeCycleAware,
-      CellInfoProvider, CellIdentityAware,
+      CellInfoProvider, CellIdentityAware, CellMetricsProvider,
       PoolDataBeanProvider<StorageHandlerData> {
 
     /**
@@ -174,6 +176,10 @@ public class NearlineStorageHandler
     private final FlushRequestContainer flushRequests = new FlushRequestContainer();
     private final StageRequestContainer stageRequests = new StageRequestContainer();
     private final RemoveRequestContainer removeRequests = new RemoveRequestContainer();
+    private final TapeRecallScheduler<StageRequestImpl> tapeRecallScheduler =
+          new TapeRecallScheduler<>(StageRequestImpl::getFileAttributes,
+                (storage, requests) -> storage.stage(
+                      transform(requests, Functions.<StageRequest>identity())));
 
     private ScheduledExecutorService scheduledExecutor;
     private ListeningExecutorService executor;
@@ -187,6 +193,7 @@ public class NearlineStorageHandler
     private OptionalLong flushTimeout = OptionalLong.empty();
     private OptionalLong removeTimeout = OptionalLong.empty();
     private ScheduledFuture<?> timeoutFuture;
+    private ScheduledFuture<?> tapeRecallFuture;
     private boolean _addFromNearlineStorage;
     private TimeUnit stickyOnStageDurationUnit;
     private long stickyOnStageDuration;
@@ -215,8 +222,8 @@ public class NearlineStorageHandler
 
     @Autowired(required = false)
     @Qualifier("hsm")
-    public void setKafkaTemplate(KafkaTemplate kafkaTemplate) {
-        _kafkaSender = kafkaTemplate::sendDefault;
+    public void setKafkaPublisher(KafkaEventPublisher kafkaPublisher) {
+        _kafkaSender = kafkaPublisher;
         _addFromNearlineStorage = true;
     }
 
@@ -272,10 +279,28 @@ public class NearlineStorageHandler
         this.stickyOnStageDurationUnit = stickyOnStageDurationUnit;
     }
 
+    public void setStageMaxActiveVolumes(int volumes) {
+        tapeRecallScheduler.setMaxActiveVolumes(volumes);
+    }
+
+    public void setStageMinBatchAge(long age) {
+        tapeRecallScheduler.setMinBatchAge(age);
+    }
+
+    public void setStageMinBatchAgeUnit(TimeUnit unit) {
+        tapeRecallScheduler.setMinBatchAgeUnit(unit);
+    }
+
+    public void setStageMaxBatchSize(int size) {
+        tapeRecallScheduler.setMaxBatchSize(size);
+    }
+
     @PostConstruct
     public void init() {
         timeoutFuture = scheduledExecutor.scheduleWithFixedDelay(new TimeoutTask(), 30, 30,
               TimeUnit.SECONDS);
+        tapeRecallFuture = scheduledExecutor.scheduleWithFixedDelay(
+              tapeRecallScheduler::schedule, 1, 1, TimeUnit.SECONDS);
         repository.addListener(this);
     }
 
@@ -298,6 +323,9 @@ public class NearlineStorageHandler
         if (timeoutFuture != null) {
             timeoutFuture.cancel(false);
         }
+        if (tapeRecallFuture != null) {
+            tapeRecallFuture.cancel(false);
+        }
         repository.removeListener(this);
 
         /* Waits for all requests to have finished. This is blocking to avoid that the
@@ -317,6 +345,7 @@ public class NearlineStorageHandler
     @Override
     public void getInfo(PrintWriter pw) {
         getDataObject().print(pw);
+        tapeRecallScheduler.getInfo(pw);
     }
 
     @Override
@@ -452,6 +481,22 @@ public class NearlineStorageHandler
         removeRequests.addAll(nearlineStorage, files, callback);
     }
 
+    @Override
+    public void registerMetrics(MetricRegistry.Scope scope) {
+        scope.gauge("dcache_pool_nearline_active", "Nearline storage requests being processed.",
+              out -> {
+                  out.sample("operation", "flush", getActiveStoreJobs());
+                  out.sample("operation", "stage", getActiveFetchJobs());
+                  out.sample("operation", "remove", getActiveRemoveJobs());
+              });
+        scope.gauge("dcache_pool_nearline_queued", "Nearline storage requests waiting.",
+              out -> {
+                  out.sample("operation", "flush", getStoreQueueSize());
+                  out.sample("operation", "stage", getFetchQueueSize());
+                  out.sample("operation", "remove", getRemoveQueueSize());
+              });
+    }
+
     public int getActiveFetchJobs() {
         QueueStat queueStat = stageRequests.getQueueStats();
         return queueStat.active() + queueStat.canceled();
@@ -948,7 +993,7 @@ public class NearlineStorageHandler
 
         @Override
         protected void submit(NearlineStorage storage, Iterable<StageRequestImpl> requests) {
-            storage.stage(transform(requests, Functions.<StageRequest>identity()));
+            tapeRecallScheduler.submit(storage, requests);
         }
     }
 
@@ -1320,6 +1365,17 @@ public class NearlineStorageHandler
             return super.activate();
         }
 
+        @Override
+        public void cancel() {
+            super.cancel();
+            /* The nearline storage does not know about requests still held back
+             * by the tape recall scheduler, so fail them here.
+             */
+            if (tapeRecallScheduler.remove(this)) {
+                failed(new CancellationException());
+            }
+        }
+
         @Override
         public File getFile() {
             return Paths.get(descriptor.getReplicaFile()).toFile();
@@ -1437,6 +1493,7 @@ public class NearlineStorageHandler
                 LOGGER.warn("Failed to send message to kafka: {} ", Throwables.getRootCause(e).getMessage());
             }
             stageRequests.removeAndCallback(pnfsId, cause);
+            tapeRecallScheduler.completed(this);
         }
 
         public NearlineData toNearlineData() {
@@ -1573,6 +1630,20 @@ public class NearlineStorageHandler
         }
     }
 
+    @Command(name = "rh ls tapes",
+          hint = "list tape recall batches",
+          description = "List the tapes for which restore requests are being collected, and for "
+                + "each tape seen since the pool started, the number of batches and files "
+                + "released to the nearline storage, the average batch size and the size of "
+                + "the last batch.")
+    class RestoreListTapesCommand implements Callable<String> {
+
+        @Override
+        public String call() {
+            return tapeRecallScheduler.printVolumes();
+        }
+    }
+
     @AffectsSetup
     @Command(name = "st set timeout",
           hint = "set store timeout",
@@ -0,0 +1,437 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.nearline;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.PrintWriter;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import org.dcache.namespace.FileAttribute;
+import org.dcache.pool.nearline.spi.NearlineStorage;
+import org.dcache.vehicles.FileAttributes;
+
+/**
+ * Holds back stage requests so that they reach the nearline storage grouped by tape.
+ * <p>
+ * The tape (volume) of a file and its position on the tape are taken from the query part of the
+ * file's HSM locations, e.g. {@code enstore://enstore/?volume=VR1234&location_cookie=...}.
+ * Requests for files without such information are passed on immediately.
+ * <p>
+ * Requests for the same tape are collected until the oldest of them has waited for the minimum
+ * batch age. The collected requests are then released as one batch, ordered by position on the
+ * tape, unless the maximum number of tapes already have released requests outstanding. Requests
+ * for a tape that has released requests outstanding may join the tape immediately, as the tape
+ * is likely still mounted. Tapes are released in the order in which they started collecting.
+ * <p>
+ * The scheduler is disabled if the maximum number of active volumes is zero.
+ *
+ * @param <R> type of request
+ */
+public class TapeRecallScheduler<R> {
+
+    private static final Set<String> VOLUME_KEYS = Set.of("volume", "vid", "tape");
+    private static final Set<String> POSITION_KEYS = Set.of("location_cookie", "position",
+          "fseq");
+
+    /**
+     * Orders numeric positions by value and fixed-width positions lexicographically; files of
+     * unknown position go last.
+     */
+    private static final Comparator<String> POSITION_ORDER = Comparator.nullsLast(
+          Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()));
+
+    /**
+     * Location of a file on tape.
+     */
+    static final class TapeLocation {
+
+        private final String volume;
+        private final String position;
+
+        TapeLocation(String volume, @Nullable String position) {
+            this.volume = volume;
+            this.position = position;
+        }
+
+        String getVolume() {
+            return volume;
+        }
+
+        @Nullable
+        String getPosition() {
+            return position;
+        }
+
+        static Optional<TapeLocation> of(FileAttributes attributes) {
+            if (attributes.isUndefined(FileAttribute.STORAGEINFO)) {
+                return Optional.empty();
+            }
+            for (URI location : attributes.getStorageInfo().locations()) {
+                String query = location.getQuery();
+                if (query == null) {
+                    continue;
+                }
+                String volume = null;
+                String position = null;
+                for (String parameter : query.split("&")) {
+                    int i = parameter.indexOf('=');
+                    if (i <= 0 || i == parameter.length() - 1) {
+                        continue;
+                    }
+                    String key = parameter.substring(0, i);
+                    if (VOLUME_KEYS.contains(key)) {
+                        volume = parameter.substring(i + 1);
+                    } else if (POSITION_KEYS.contains(key)) {
+                        position = parameter.substring(i + 1);
+                    }
+                }
+                if (volume != null) {
+                    return Optional.of(new TapeLocation(volume, position));
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    private static final class VolumeKey {
+
+        private final NearlineStorage storage;
+        private final String volume;
+
+        VolumeKey(NearlineStorage storage, String volume) {
+            this.storage = storage;
+            this.volume = volume;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof VolumeKey)) {
+                return false;
+            }
+            VolumeKey that = (VolumeKey) o;
+            return storage == that.storage && volume.equals(that.volume);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(storage), volume);
+        }
+    }
+
+    private static final class Held<R> {
+
+        private final R request;
+        private final String position;
+        private final long arrival;
+
+        Held(R request, String position, long arrival) {
+            this.request = request;
+            this.position = position;
+            this.arrival = arrival;
+        }
+    }
+
+    private static final class Group<R> {
+
+        private final List<Held<R>> requests = new ArrayList<>();
+        private long oldest = Long.MAX_VALUE;
+
+        void add(Held<R> held) {
+            requests.add(held);
+            oldest = Math.min(oldest, held.arrival);
+        }
+
+        boolean remove(R request) {
+            Iterator<Held<R>> i = requests.iterator();
+            while (i.hasNext()) {
+                if (i.next().request == request) {
+                    i.remove();
+                    oldest = requests.stream().mapToLong(h -> h.arrival).min()
+                          .orElse(Long.MAX_VALUE);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Removes and returns up to {@code max} requests in the order of their position on
+         * tape.
+         */
+        List<R> take(int max) {
+            requests.sort(Comparator.comparing(h -> h.position, POSITION_ORDER));
+            List<Held<R>> taken = requests.subList(0, Math.min(max, requests.size()));
+            List<R> batch = new ArrayList<>(taken.size());
+            taken.forEach(h -> batch.add(h.request));
+            taken.clear();
+            oldest = requests.stream().mapToLong(h -> h.arrival).min().orElse(Long.MAX_VALUE);
+            return batch;
+        }
+    }
+
+    private static final class VolumeStatistics {
+
+        private long batches;
+        private long files;
+        private int lastBatch;
+    }
+
+    private final Function<R, FileAttributes> attributes;
+    private final BiConsumer<NearlineStorage, List<R>> releaser;
+
+    @GuardedBy("this")
+    private final Map<VolumeKey, Group<R>> waiting = new LinkedHashMap<>();
+
+    @GuardedBy("this")
+    private final Map<R, VolumeKey> held = new IdentityHashMap<>();
+
+    @GuardedBy("this")
+    private final Map<R, VolumeKey> released = new IdentityHashMap<>();
+
+    @GuardedBy("this")
+    private final Map<VolumeKey, Integer> active = new HashMap<>();
+
+    @GuardedBy("this")
+    private final Map<String, VolumeStatistics> statistics = new TreeMap<>();
+
+    @GuardedBy("this")
+    private long batches;
+
+    @GuardedBy("this")
+    private long files;
+
+    private volatile int maxActiveVolumes;
+    private volatile long minBatchAge;
+    private volatile TimeUnit minBatchAgeUnit = TimeUnit.MILLISECONDS;
+    private volatile int maxBatchSize = Integer.MAX_VALUE;
+
+    /**
+     * @param attributes extracts the file attributes of a request
+     * @param releaser   passes released requests on to the nearline storage
+     */
+    public TapeRecallScheduler(Function<R, FileAttributes> attributes,
+          BiConsumer<NearlineStorage, List<R>> releaser) {
+        this.attributes = attributes;
+        this.releaser = releaser;
+    }
+
+    public boolean isEnabled() {
+        return maxActiveVolumes > 0;
+    }
+
+    public void setMaxActiveVolumes(int maxActiveVolumes) {
+        checkArgument(maxActiveVolumes >= 0, "Maximum active volumes must not be negative");
+        this.maxActiveVolumes = maxActiveVolumes;
+    }
+
+    public void setMinBatchAge(long age) {
+        checkArgument(age >= 0, "Minimum batch age must not be negative");
+        minBatchAge = age;
+    }
+
+    public void setMinBatchAgeUnit(TimeUnit unit) {
+        minBatchAgeUnit = unit;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        checkArgument(maxBatchSize > 0, "Maximum batch size must be positive");
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Accepts new stage requests. Requests which cannot be associated with a tape, or all
+     * requests if the scheduler is disabled, are passed on immediately.
+     */
+    public void submit(NearlineStorage storage, Iterable<R> requests) {
+        List<R> passThrough = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            for (R request : requests) {
+                Optional<TapeLocation> location = isEnabled()
+                      ? TapeLocation.of(attributes.apply(request)) : Optional.empty();
+                if (location.isPresent()) {
+                    VolumeKey key = new VolumeKey(storage, location.get().getVolume());
+                    waiting.computeIfAbsent(key, k -> new Group<>())
+                          .add(new Held<>(request, location.get().getPosition(), now));
+                    held.put(request, key);
+                } else {
+                    passThrough.add(request);
+                }
+            }
+        }
+        if (!passThrough.isEmpty()) {
+            releaser.accept(storage, passThrough);
+        }
+        schedule();
+    }
+
+    /**
+     * Must be called when a request has finished, successfully or not.
+     */
+    public void completed(R request) {
+        boolean freed = false;
+        synchronized (this) {
+            VolumeKey key = released.remove(request);
+            if (key != null) {
+                freed = active.computeIfPresent(key, (k, n) -> n > 1 ? n - 1 : null) == null;
+            }
+        }
+        if (freed) {
+            schedule();
+        }
+    }
+
+    /**
+     * Removes a request which has not been released yet.
+     *
+     * @return true if the request was held by the scheduler, false otherwise
+     */
+    public synchronized boolean remove(R request) {
+        VolumeKey key = held.remove(request);
+        if (key == null) {
+            return false;
+        }
+        Group<R> group = waiting.get(key);
+        group.remove(request);
+        if (group.requests.isEmpty()) {
+            waiting.remove(key);
+        }
+        return true;
+    }
+
+    /**
+     * Releases the batches of all tapes which are due. Called whenever requests arrive or tapes
+     * finish, and periodically to release batches that have reached their minimum age.
+     */
+    public void schedule() {
+        Map<VolumeKey, List<R>> batches = new LinkedHashMap<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            long minAge = minBatchAgeUnit.toMillis(minBatchAge);
+            List<Map.Entry<VolumeKey, Group<R>>> due = new ArrayList<>();
+            for (Map.Entry<VolumeKey, Group<R>> entry : waiting.entrySet()) {
+                boolean mounted = active.containsKey(entry.getKey());
+                if (mounted || !isEnabled() || now - entry.getValue().oldest >= minAge) {
+                    due.add(entry);
+                }
+            }
+            due.sort(Comparator.comparingLong(e -> e.getValue().oldest));
+
+            for (Map.Entry<VolumeKey, Group<R>> entry : due) {
+                VolumeKey key = entry.getKey();
+                if (isEnabled() && !active.containsKey(key) && active.size() >= maxActiveVolumes) {
+                    continue;
+                }
+                Group<R> group = entry.getValue();
+                List<R> batch = group.take(maxBatchSize);
+                if (group.requests.isEmpty()) {
+                    waiting.remove(key);
+                }
+                for (R request : batch) {
+                    held.remove(request);
+                    released.put(request, key);
+                }
+                active.merge(key, batch.size(), Integer::sum);
+                record(key.volume, batch.size());
+                batches.put(key, batch);
+            }
+        }
+        batches.forEach((key, batch) -> releaser.accept(key.storage, batch));
+    }
+
+    @GuardedBy("this")
+    private void record(String volume, int size) {
+        batches++;
+        files += size;
+        VolumeStatistics stats = statistics.computeIfAbsent(volume, v -> new VolumeStatistics());
+        stats.batches++;
+        stats.files += size;
+        stats.lastBatch = size;
+    }
+
+    /**
+     * Number of requests released in a batch behind another request for the same tape, i.e.
+     * the number of mounts saved compared to recalling each file individually.
+     */
+    public synchronized long getMountsSaved() {
+        return files - batches;
+    }
+
+    public synchronized int getHeldCount() {
+        return held.size();
+    }
+
+    public synchronized int getActiveVolumes() {
+        return active.size();
+    }
+
+    public synchronized void getInfo(PrintWriter pw) {
+        pw.println("Tape recall scheduling:");
+        if (!isEnabled()) {
+            pw.println("    disabled");
+            return;
+        }
+        pw.println("    Max. active volumes : " + maxActiveVolumes);
+        pw.println("    Min. batch age      : " + minBatchAge + " "
+              + minBatchAgeUnit.name().toLowerCase());
+        pw.println("    Max. batch size     : " + maxBatchSize);
+        pw.println("    Active volumes      : " + active.size());
+        pw.println("    Waiting volumes     : " + waiting.size());
+        pw.println("    Held requests       : " + held.size());
+        pw.println("    Batches released    : " + batches);
+        pw.println("    Mounts saved        : " + (files - batches));
+    }
+
+    /**
+     * Lists the waiting tapes and, for each tape seen since start, the number of batches and
+     * files released and the size of its last batch.
+     */
+    public synchronized String printVolumes() {
+        StringBuilder sb = new StringBuilder();
+        long now = System.currentTimeMillis();
+        sb.append(String.format("%-20s %10s %12s%n", "WAITING", "REQUESTS", "AGE (s)"));
+        waiting.forEach((key, group) -> sb.append(String.format("%-20s %10d %12d%n",
+              key.volume, group.requests.size(), (now - group.oldest) / 1000)));
+        sb.append(String.format("%n%-20s %10s %10s %10s %10s%n", "VOLUME", "BATCHES", "FILES",
+              "AVERAGE", "LAST"));
+        statistics.forEach((volume, stats) -> sb.append(String.format(
+              "%-20s %10d %10d %10d %10d%n", volume, stats.batches, stats.files,
+              stats.files / stats.batches, stats.lastBatch)));
+        return sb.toString();
+    }
+}
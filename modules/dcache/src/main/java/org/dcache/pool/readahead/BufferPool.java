@@ -0,0 +1,95 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.readahead;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * A bounded pool of direct buffers of equal size.
+ * <p>
+ * Buffers are allocated lazily and are kept for reuse once released.  Changing the buffer size
+ * or the capacity discards the idle buffers; buffers in use are discarded when released if they
+ * no longer fit the pool.
+ */
+class BufferPool {
+
+    @GuardedBy("this")
+    private final Deque<ByteBuffer> free = new ArrayDeque<>();
+
+    @GuardedBy("this")
+    private int bufferSize;
+
+    @GuardedBy("this")
+    private int capacity;
+
+    @GuardedBy("this")
+    private int used;
+
+    BufferPool(int bufferSize, int capacity) {
+        this.bufferSize = bufferSize;
+        this.capacity = capacity;
+    }
+
+    synchronized int getBufferSize() {
+        return bufferSize;
+    }
+
+    synchronized void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+        free.clear();
+    }
+
+    synchronized int getCapacity() {
+        return capacity;
+    }
+
+    synchronized void setCapacity(int capacity) {
+        this.capacity = capacity;
+        free.clear();
+    }
+
+    synchronized int getUsed() {
+        return used;
+    }
+
+    /**
+     * Returns a cleared buffer, or null if all buffers are in use.
+     */
+    synchronized ByteBuffer tryAllocate() {
+        if (used >= capacity) {
+            return null;
+        }
+        used++;
+        ByteBuffer buffer = free.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    synchronized void release(ByteBuffer buffer) {
+        used--;
+        if (buffer.capacity() == bufferSize && used + free.size() < capacity) {
+            free.push(buffer);
+        }
+    }
+}
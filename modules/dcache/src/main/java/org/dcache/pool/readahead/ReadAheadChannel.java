@@ -0,0 +1,415 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.readahead;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import javax.annotation.concurrent.GuardedBy;
+import org.dcache.pool.repository.ForwardingRepositoryChannel;
+import org.dcache.pool.repository.RepositoryChannel;
+
+/**
+ * This class decorates a read-only RepositoryChannel with read-ahead for sequential readers.
+ * <p>
+ * The channel tracks the position of consecutive reads.  Once {@link
+ * ReadAheadManager#getThreshold} reads have followed each other without a gap, the stream is
+ * considered sequential and the channel keeps a window of block aligned reads in flight.  These
+ * are issued asynchronously into direct buffers obtained from a pool shared by all channels.  The
+ * window grows with the rate at which the reader consumes data and whenever the reader found a
+ * block still in flight; it is discarded as soon as a read does not continue the stream, so random
+ * access readers bypass the read-ahead after at most one wasted window.
+ * <p>
+ * The channel is used on Netty event loops and therefore never waits for a block: only data that
+ * has already been read ahead is served from memory, the rest of a request is forwarded to the
+ * decorated channel without holding the monitor of this channel.
+ * <p>
+ * Files no larger than a single block are prefetched completely when the channel is opened and
+ * all reads, random or not, are served from memory.
+ * <p>
+ * If no buffer is available, or if an asynchronous read failed, the request is forwarded to the
+ * decorated channel.  The replica must not be modified through this channel.
+ */
+public class ReadAheadChannel extends ForwardingRepositoryChannel {
+
+    private static final double RATE_SMOOTHING = 0.2;
+
+    private final RepositoryChannel inner;
+    private final ReadAheadManager manager;
+    private final int blockSize;
+    private final long size;
+    private final boolean isSmall;
+
+    @GuardedBy("this")
+    private final Deque<Block> blocks = new ArrayDeque<>();
+
+    /**
+     * The position at which the next read continues the stream.
+     */
+    @GuardedBy("this")
+    private long expected;
+
+    @GuardedBy("this")
+    private int streak;
+
+    /**
+     * Number of blocks that must be in flight irrespective of the rate, raised whenever the
+     * reader had to wait for a block.
+     */
+    @GuardedBy("this")
+    private int floor = 1;
+
+    /**
+     * Smoothed consumption rate in bytes per nanosecond.
+     */
+    @GuardedBy("this")
+    private double rate;
+
+    @GuardedBy("this")
+    private long lastRead;
+
+    /**
+     * Serialises reads and writes that use the position of the decorated channel.
+     */
+    private final Object positionLock = new Object();
+
+    private static class Block {
+
+        final long offset;
+        final ByteBuffer buffer;
+        final CompletableFuture<Integer> length;
+        boolean waited;
+
+        Block(long offset, ByteBuffer buffer, CompletableFuture<Integer> length) {
+            this.offset = offset;
+            this.buffer = buffer;
+            this.length = length;
+        }
+    }
+
+    ReadAheadChannel(RepositoryChannel inner, ReadAheadManager manager, int blockSize)
+          throws IOException {
+        this.inner = inner;
+        this.manager = manager;
+        this.blockSize = blockSize;
+        this.size = inner.size();
+        this.isSmall = size <= blockSize;
+        if (isSmall && size > 0) {
+            synchronized (this) {
+                prefetch(0);
+            }
+        }
+    }
+
+    @Override
+    protected RepositoryChannel delegate() {
+        return inner;
+    }
+
+    synchronized int getWindow() {
+        int byRate = (int) Math.min(Integer.MAX_VALUE,
+              Math.ceil(rate * manager.getHorizon() / blockSize));
+        return Math.min(manager.getMaxWindow(), Math.max(floor, byRate));
+    }
+
+    synchronized int getBlocksInFlight() {
+        return blocks.size();
+    }
+
+    /**
+     * Registers a read at {@code position} and returns whether it is to be served through the
+     * read-ahead window.
+     */
+    @GuardedBy("this")
+    private boolean observe(long position) {
+        if (isSmall) {
+            return true;
+        }
+        if (position == expected) {
+            if (++streak == manager.getThreshold()) {
+                manager.streamDetected();
+            }
+        } else {
+            streak = 0;
+            floor = 1;
+            rate = 0;
+            discard();
+        }
+        return streak >= manager.getThreshold();
+    }
+
+    @GuardedBy("this")
+    private void consumed(long position, long count) {
+        long now = manager.now();
+        if (streak > 0 && now > lastRead && count > 0) {
+            double current = (double) count / (now - lastRead);
+            rate = rate == 0 ? current : rate + RATE_SMOOTHING * (current - rate);
+        }
+        lastRead = now;
+        expected = position + Math.max(count, 0);
+    }
+
+    /**
+     * Returns the block containing {@code position}, after discarding all blocks before it and
+     * issuing further reads to fill the window.  Returns null if the block could not be read
+     * ahead.
+     */
+    @GuardedBy("this")
+    private Block blockAt(long position) {
+        long start = position - position % blockSize;
+        Block first;
+        while ((first = blocks.peekFirst()) != null && first.offset < start) {
+            blocks.removeFirst();
+            release(first);
+            if (!first.waited && floor > 1) {
+                floor--;
+            }
+        }
+        if (first != null && first.offset != start) {
+            discard();
+        }
+        prefetch(start);
+        first = blocks.peekFirst();
+        return first != null && first.offset == start ? first : null;
+    }
+
+    @GuardedBy("this")
+    private void prefetch(long start) {
+        int window = isSmall ? 1 : getWindow();
+        long next = blocks.isEmpty() ? start : blocks.peekLast().offset + blockSize;
+        while (blocks.size() < window && next < size) {
+            ByteBuffer buffer = manager.allocate(blockSize);
+            if (buffer == null) {
+                break;
+            }
+            try {
+                blocks.addLast(new Block(next, buffer, read(next, buffer)));
+            } catch (RejectedExecutionException e) {
+                manager.release(buffer);
+                break;
+            }
+            next += blockSize;
+        }
+    }
+
+    private CompletableFuture<Integer> read(long offset, ByteBuffer buffer) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                long position = offset;
+                while (buffer.hasRemaining()) {
+                    int n = inner.read(buffer, position);
+                    if (n < 0) {
+                        break;
+                    }
+                    position += n;
+                }
+                manager.prefetched(buffer.position());
+                return buffer.position();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, manager.getExecutor());
+    }
+
+    /**
+     * Returns the number of bytes read into {@code block}, or -1 if the block is still in flight
+     * or if the read failed, in which case the window is discarded.
+     */
+    @GuardedBy("this")
+    private int available(Block block) {
+        if (!block.length.isDone()) {
+            manager.miss();
+            if (!block.waited) {
+                block.waited = true;
+                floor = Math.min(floor * 2, manager.getMaxWindow());
+            }
+            return -1;
+        }
+        try {
+            int length = block.length.join();
+            manager.hit();
+            return length;
+        } catch (CompletionException | CancellationException e) {
+            discard();
+            return -1;
+        }
+    }
+
+    private void release(Block block) {
+        block.length.whenComplete((n, e) -> manager.release(block.buffer));
+    }
+
+    @GuardedBy("this")
+    private void discard() {
+        blocks.forEach(this::release);
+        blocks.clear();
+    }
+
+    /**
+     * Returns a view of the data of {@code block} from {@code position}, limited to {@code
+     * count} bytes, or null if the block holds no data at that position yet.
+     */
+    @GuardedBy("this")
+    private ByteBuffer slice(Block block, long position, long count) {
+        int length = available(block);
+        int from = (int) (position - block.offset);
+        if (from >= length) {
+            return null;
+        }
+        ByteBuffer slice = block.buffer.duplicate();
+        slice.limit((int) Math.min(length, from + count)).position(from);
+        return slice;
+    }
+
+    /**
+     * Copies data read ahead from {@code position} into {@code dst}, if the read is served through
+     * the read-ahead window.
+     *
+     * @return the number of bytes copied
+     */
+    private synchronized int copyReadAhead(ByteBuffer dst, long position) {
+        if (!observe(position)) {
+            return 0;
+        }
+        int total = 0;
+        long current = position;
+        while (dst.hasRemaining() && current < size) {
+            Block block = blockAt(current);
+            ByteBuffer src = block == null ? null : slice(block, current, dst.remaining());
+            if (src == null) {
+                break;
+            }
+            int n = src.remaining();
+            dst.put(src);
+            total += n;
+            current += n;
+        }
+        return total;
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        int total = copyReadAhead(dst, position);
+        if (dst.hasRemaining()) {
+            int n = super.read(dst, position + total);
+            if (n < 0 && total == 0) {
+                synchronized (this) {
+                    consumed(position, 0);
+                }
+                return n;
+            }
+            total += Math.max(n, 0);
+        }
+        synchronized (this) {
+            consumed(position, total);
+        }
+        return total;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        synchronized (positionLock) {
+            long position = inner.position();
+            int n = read(dst, position);
+            if (n > 0) {
+                inner.position(position + n);
+            }
+            return n;
+        }
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+        synchronized (positionLock) {
+            long position = inner.position();
+            long total = 0;
+            for (int i = offset; i < offset + length; i++) {
+                ByteBuffer dst = dsts[i];
+                if (!dst.hasRemaining()) {
+                    continue;
+                }
+                int n = read(dst, position + total);
+                if (n < 0) {
+                    if (total == 0) {
+                        return n;
+                    }
+                    break;
+                }
+                total += n;
+                if (dst.hasRemaining()) {
+                    break;
+                }
+            }
+            if (total > 0) {
+                inner.position(position + total);
+            }
+            return total;
+        }
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts) throws IOException {
+        return read(dsts, 0, dsts.length);
+    }
+
+    /**
+     * Writes data read ahead from {@code position} to {@code target}, limited to {@code count}
+     * bytes.  The buffers of the window are only accessed while holding the monitor, as they are
+     * returned to the pool once discarded.
+     *
+     * @return the number of bytes written, or -1 if the transfer is not served through the
+     * read-ahead window
+     */
+    private synchronized long transferReadAhead(long position, long count,
+          WritableByteChannel target) throws IOException {
+        if (observe(position) && position < size) {
+            Block block = blockAt(position);
+            ByteBuffer src = block == null ? null : slice(block, position, count);
+            if (src != null) {
+                return target.write(src);
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target)
+          throws IOException {
+        long n = transferReadAhead(position, count, target);
+        if (n < 0) {
+            n = super.transferTo(position, count, target);
+        }
+        synchronized (this) {
+            consumed(position, n);
+        }
+        return n;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        discard();
+        super.close();
+    }
+}
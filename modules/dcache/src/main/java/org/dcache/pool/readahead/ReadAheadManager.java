@@ -0,0 +1,320 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.readahead;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.dcache.util.ByteUnit.BYTES;
+import static org.dcache.util.ByteUnit.MiB;
+import static org.dcache.util.ByteUnits.isoSymbol;
+
+import dmg.cells.nucleus.CellCommandListener;
+import dmg.cells.nucleus.CellInfoProvider;
+import dmg.cells.nucleus.CellSetupProvider;
+import dmg.util.command.Command;
+import dmg.util.command.Option;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.dcache.pool.repository.ModifiableReplicaDescriptor;
+import org.dcache.pool.repository.ReplicaDescriptor;
+import org.dcache.pool.repository.RepositoryChannel;
+import org.dcache.util.ByteSizeParser;
+import org.dcache.util.Strings;
+import org.springframework.beans.factory.annotation.Required;
+
+/**
+ * Adds read-ahead to the channels through which movers read replicas.
+ * <p>
+ * With many concurrent sequential readers on rotating disks, the read-ahead of the kernel is
+ * easily defeated by the interleaving of requests and throughput drops to what the disk can
+ * deliver in random access.  Channels decorated by this class detect sequential streams and
+ * keep large, block aligned reads in flight, so each stream is served by few large requests.
+ * See {@link ReadAheadChannel} for the details.
+ * <p>
+ * The memory used is bounded by the number of buffers times the block size.  Read-ahead is
+ * disabled by default.
+ */
+public class ReadAheadManager implements CellCommandListener, CellInfoProvider,
+      CellSetupProvider {
+
+    private static final ByteSizeParser SIZE_PARSER = ByteSizeParser.using(isoSymbol()).build();
+
+    private final LongSupplier clock;
+
+    private final BufferPool buffers = new BufferPool(MiB.toBytes(1), 64);
+
+    private final LongAdder streams = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder prefetched = new LongAdder();
+
+    private Executor executor;
+
+    private volatile boolean isEnabled;
+
+    private volatile int maxWindow = 8;
+
+    private volatile int threshold = 2;
+
+    private volatile long horizon = TimeUnit.MILLISECONDS.toNanos(500);
+
+    public ReadAheadManager() {
+        this(System::nanoTime);
+    }
+
+    ReadAheadManager(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Required
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    Executor getExecutor() {
+        return executor;
+    }
+
+    public void setEnabled(boolean enabled) {
+        isEnabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Sets the size of the aligned reads issued ahead of the reader.
+     */
+    public void setBlockSize(int bytes) {
+        checkArgument(bytes > 0, "Block size must be positive");
+        buffers.setBufferSize(bytes);
+    }
+
+    public int getBlockSize() {
+        return buffers.getBufferSize();
+    }
+
+    /**
+     * Sets the number of buffers shared by all channels.
+     */
+    public void setBuffers(int count) {
+        checkArgument(count >= 0, "Number of buffers must not be negative");
+        buffers.setCapacity(count);
+    }
+
+    public int getBuffers() {
+        return buffers.getCapacity();
+    }
+
+    /**
+     * Sets the maximum number of blocks a single channel keeps in flight.
+     */
+    public void setMaxWindow(int blocks) {
+        checkArgument(blocks > 0, "Window must be positive");
+        maxWindow = blocks;
+    }
+
+    public int getMaxWindow() {
+        return maxWindow;
+    }
+
+    /**
+     * Sets the number of consecutive reads after which a stream is considered sequential.
+     */
+    public void setThreshold(int reads) {
+        checkArgument(reads > 0, "Threshold must be positive");
+        threshold = reads;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Sets for how long, at the observed consumption rate, the data read ahead should last.
+     */
+    public void setHorizon(long duration, TimeUnit unit) {
+        checkArgument(duration > 0, "Horizon must be positive");
+        horizon = unit.toNanos(duration);
+    }
+
+    long getHorizon() {
+        return horizon;
+    }
+
+    long now() {
+        return clock.getAsLong();
+    }
+
+    ByteBuffer allocate(int blockSize) {
+        ByteBuffer buffer = buffers.tryAllocate();
+        if (buffer != null && buffer.capacity() != blockSize) {
+            buffers.release(buffer);
+            return null;
+        }
+        return buffer;
+    }
+
+    void release(ByteBuffer buffer) {
+        buffers.release(buffer);
+    }
+
+    int getBuffersInUse() {
+        return buffers.getUsed();
+    }
+
+    void streamDetected() {
+        streams.increment();
+    }
+
+    void hit() {
+        hits.increment();
+    }
+
+    void miss() {
+        misses.increment();
+    }
+
+    void prefetched(long bytes) {
+        prefetched.add(bytes);
+    }
+
+    /**
+     * Returns a descriptor that adds read-ahead to the channels created through {@code handle}.
+     * Descriptors through which a replica is written, and all descriptors while read-ahead is
+     * disabled, are returned unchanged.
+     */
+    public ReplicaDescriptor decorate(ReplicaDescriptor handle) {
+        if (!isEnabled || handle instanceof ModifiableReplicaDescriptor) {
+            return handle;
+        }
+        return new ReadAheadReplicaDescriptor(handle, this);
+    }
+
+    RepositoryChannel decorate(RepositoryChannel channel) throws IOException {
+        return new ReadAheadChannel(channel, this, buffers.getBufferSize());
+    }
+
+    @Override
+    public void printSetup(PrintWriter pw) {
+        pw.println("read-ahead set -block-size=" + getBlockSize()
+              + " -buffers=" + getBuffers()
+              + " -window=" + maxWindow
+              + " -threshold=" + threshold
+              + " -horizon=" + TimeUnit.NANOSECONDS.toMillis(horizon));
+        pw.println(isEnabled ? "read-ahead enable" : "read-ahead disable");
+    }
+
+    @Override
+    public void getInfo(PrintWriter pw) {
+        pw.println("Enabled     : " + isEnabled);
+        if (isEnabled) {
+            pw.println("Buffers     : " + getBuffersInUse() + " of " + getBuffers() + " x "
+                  + Strings.describeSize(getBlockSize()) + " in use");
+            pw.println("Streams     : " + streams.sum());
+            pw.println("Hits        : " + hits.sum());
+            pw.println("Misses      : " + misses.sum());
+            pw.println("Prefetched  : " + Strings.describeSize(prefetched.sum()));
+        }
+    }
+
+    @AffectsSetup
+    @Command(name = "read-ahead enable", hint = "enable read-ahead",
+          description = "Enables read-ahead for sequential readers.  Applies to movers started "
+                + "after the command.")
+    class EnableCommand implements Callable<String> {
+
+        @Override
+        public String call() {
+            setEnabled(true);
+            return "";
+        }
+    }
+
+    @AffectsSetup
+    @Command(name = "read-ahead disable", hint = "disable read-ahead",
+          description = "Disables read-ahead.  Movers that are already running keep their "
+                + "read-ahead until they finish.")
+    class DisableCommand implements Callable<String> {
+
+        @Override
+        public String call() {
+            setEnabled(false);
+            return "";
+        }
+    }
+
+    @AffectsSetup
+    @Command(name = "read-ahead set", hint = "set read-ahead parameters",
+          description = "Configures the read-ahead of sequential streams.  A stream is "
+                + "sequential once the given number of reads followed each other without a "
+                + "gap.  For such streams, block aligned reads are issued ahead of the "
+                + "reader.  The number of blocks in flight is chosen such that the data lasts "
+                + "for the horizon at the rate the reader consumes it, bounded by the window.  "
+                + "Files no larger than a block are read completely when opened.\n\n"
+                + "All streams share the given number of buffers of one block each.  Streams "
+                + "for which no buffer is available are read without read-ahead.")
+    class SetCommand implements Callable<String> {
+
+        @Option(name = "block-size", metaVar = "bytes",
+              usage = "Size of the reads issued ahead of the reader, e.g. 4MiB.")
+        String blockSize;
+
+        @Option(name = "buffers", usage = "Number of buffers shared by all streams.")
+        Integer buffers;
+
+        @Option(name = "window", usage = "Maximum number of blocks in flight per stream.")
+        Integer window;
+
+        @Option(name = "threshold",
+              usage = "Number of consecutive reads after which a stream is sequential.")
+        Integer threshold;
+
+        @Option(name = "horizon", metaVar = "ms",
+              usage = "For how long the data read ahead should last.")
+        Long horizon;
+
+        @Override
+        public String call() throws IllegalArgumentException {
+            if (blockSize != null) {
+                long size = SIZE_PARSER.parse(blockSize, BYTES);
+                checkArgument(size <= Integer.MAX_VALUE, "Block size is too large");
+                setBlockSize((int) size);
+            }
+            if (buffers != null) {
+                setBuffers(buffers);
+            }
+            if (window != null) {
+                setMaxWindow(window);
+            }
+            if (threshold != null) {
+                setThreshold(threshold);
+            }
+            if (horizon != null) {
+                setHorizon(horizon, TimeUnit.MILLISECONDS);
+            }
+            return "";
+        }
+    }
+}
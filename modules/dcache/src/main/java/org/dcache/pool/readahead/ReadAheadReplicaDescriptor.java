@@ -0,0 +1,79 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.readahead;
+
+import static java.util.Objects.requireNonNull;
+
+import diskCacheV111.util.CacheException;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collection;
+import org.dcache.pool.repository.ReplicaDescriptor;
+import org.dcache.pool.repository.RepositoryChannel;
+import org.dcache.util.Checksum;
+import org.dcache.vehicles.FileAttributes;
+
+/**
+ * A ReplicaDescriptor that delegates to some inner descriptor while adding read-ahead to all
+ * channels it creates.
+ */
+class ReadAheadReplicaDescriptor implements ReplicaDescriptor {
+
+    private final ReplicaDescriptor inner;
+    private final ReadAheadManager manager;
+
+    ReadAheadReplicaDescriptor(ReplicaDescriptor inner, ReadAheadManager manager) {
+        this.inner = requireNonNull(inner);
+        this.manager = requireNonNull(manager);
+    }
+
+    @Override
+    public void close() throws IllegalStateException {
+        inner.close();
+    }
+
+    @Override
+    public URI getReplicaFile() throws IllegalStateException {
+        return inner.getReplicaFile();
+    }
+
+    @Override
+    public RepositoryChannel createChannel() throws IOException, CacheException {
+        return manager.decorate(inner.createChannel());
+    }
+
+    @Override
+    public FileAttributes getFileAttributes() throws IllegalStateException {
+        return inner.getFileAttributes();
+    }
+
+    @Override
+    public Collection<Checksum> getChecksums() throws CacheException {
+        return inner.getChecksums();
+    }
+
+    @Override
+    public long getReplicaSize() {
+        return inner.getReplicaSize();
+    }
+
+    @Override
+    public long getReplicaCreationTime() {
+        return inner.getReplicaCreationTime();
+    }
+}
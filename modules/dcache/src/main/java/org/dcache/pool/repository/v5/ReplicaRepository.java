@@ -20,11 +20,11 @@ import diskCacheV111.util.FileNotInCacheException;
 import diskCacheV111.util.LockedCacheException;
 import diskCacheV111.util.PnfsHandler;
 import diskCacheV111.util.PnfsId;
-import diskCacheV111.vehicles.PnfsAddCacheLocationMessage;
 import dmg.cells.nucleus.CellAddressCore;
 import dmg.cells.nucleus.CellCommandListener;
 import dmg.cells.nucleus.CellIdentityAware;
 import dmg.cells.nucleus.CellInfoProvider;
+import dmg.cells.nucleus.CellMetricsProvider;
 import dmg.cells.nucleus.CellSetupProvider;
 import dmg.util.command.Argument;
 import dmg.util.command.Command;
@@ -58,6 +58,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.annotation.concurrent.GuardedBy;
+import org.dcache.metrics.MetricRegistry;
 import org.dcache.pool.FaultAction;
 import org.dcache.pool.FaultEvent;
 import org.dcache.pool.FaultListener;
@@ -99,7 +100,7 @@ import org.slf4j.LoggerFactory;
  */
 public class ReplicaRepository
       implements Repository, CellCommandListener, CellSetupProvider, CellInfoProvider,
-      CellIdentityAware,
+      CellIdentityAware, CellMetricsProvider,
       PoolDataBeanProvider<RepositoryData> {
     /* Implementation note
      * -------------------
@@ -681,7 +682,7 @@ public class ReplicaRepository
             /* Somebody got the idea that we don't have the file, so we make
              * sure to register it.
              */
-            _pnfs.notify(new PnfsAddCacheLocationMessage(id, getPoolName()));
+            _pnfs.notifyCacheLocation(id);
             throw new FileInCacheException("Entry already exists: " + id);
         } finally {
             _stateLock.readLock().unlock();
@@ -952,6 +953,19 @@ public class ReplicaRepository
         }
     }
 
+    @Override
+    public void registerMetrics(MetricRegistry.Scope scope) {
+        scope.gauge("dcache_pool_space_bytes", "Space of the pool by usage.", out -> {
+            SpaceRecord space = getSpaceRecord();
+            long used = space.getTotalSpace() - space.getFreeSpace();
+            out.sample("state", "total", space.getTotalSpace());
+            out.sample("state", "free", space.getFreeSpace());
+            out.sample("state", "precious", space.getPreciousSpace());
+            out.sample("state", "removable", space.getRemovableSpace());
+            out.sample("state", "used", used);
+        });
+    }
+
     @Override
     public void getInfo(PrintWriter pw) {
         getDataObject().print(pw);
@@ -130,27 +130,33 @@ public class BillingInfoMessageReceiver implements CellMessageReceiver,
             long insertQueueCurrent;
             long commitCurrent;
             long droppedCurrent;
+            long failedCurrent;
 
             long insertQueueLast;
             long commitLast;
             long droppedLast;
+            long failedLast;
 
             long insertQueueDelta;
             long commitDelta;
             long droppedDelta;
+            long failedDelta;
 
             private void update() {
                 insertQueueLast = insertQueueCurrent;
                 commitLast = commitCurrent;
                 droppedLast = droppedCurrent;
+                failedLast = failedCurrent;
 
                 insertQueueCurrent = access.getInsertQueueSize();
                 commitCurrent = access.getCommittedMessages();
                 droppedCurrent = access.getDroppedMessages();
+                failedCurrent = access.getFailedMessages();
 
                 insertQueueDelta = insertQueueCurrent - insertQueueLast;
                 commitDelta = commitCurrent - commitLast;
                 droppedDelta = droppedCurrent - droppedLast;
+                failedDelta = failedCurrent - failedLast;
             }
 
             /**
@@ -164,6 +170,8 @@ public class BillingInfoMessageReceiver implements CellMessageReceiver,
                       commitLast, commitCurrent, commitDelta);
                 LOGGER.error("dropped (last {}, current {}, change {}/minute)",
                       droppedLast, droppedCurrent, droppedDelta);
+                LOGGER.error("failed (last {}, current {}, change {}/minute)",
+                      failedLast, failedCurrent, failedDelta);
                 LOGGER.error("total memory {}; free memory {}",
                       Runtime.getRuntime().totalMemory(),
                       Runtime.getRuntime().freeMemory());
@@ -103,6 +103,11 @@ public interface IBillingInfoAccess {
 
     long getDroppedMessages();
 
+    /**
+     * @return number of messages which were accepted but could not be committed
+     */
+    long getFailedMessages();
+
     /**
      * @param data mapped type to be stored
      */
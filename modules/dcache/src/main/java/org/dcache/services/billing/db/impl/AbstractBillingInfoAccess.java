@@ -62,8 +62,8 @@ package org.dcache.services.billing.db.impl;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicLong;
 import org.dcache.services.billing.db.IBillingInfoAccess;
 import org.dcache.services.billing.db.data.IHistogramData;
@@ -72,8 +72,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Framework for database access; uses a blocking queue and N consumer threads to process requests;
- * consumer drains the queue up to max, for batching.  Commit is implemented by the store.
+ * Framework for database access; uses a bounded ring buffer and N consumer threads to process
+ * requests; consumer drains the queue up to max, for batching.  Commit is implemented by the store.
+ * <p>
+ * When the buffer is full, new data is either dropped or the caller blocks until space is
+ * available, depending on {@link #setDropMessagesAtLimit(boolean)}.  Data which cannot be
+ * committed even after a retry is counted as failed.
  *
  * @author arossi
  */
@@ -122,7 +126,13 @@ public abstract class AbstractBillingInfoAccess implements IBillingInfoAccess {
                                         + "been lost",
                                   data.size());
                             logger.debug("exception in run(), commit", t1);
+                            failed.addAndGet(data.size());
                         }
+                    } catch (RuntimeException t) {
+                        logger.error("commit failed, {} inserts have been lost: {}",
+                              data.size(), t.getMessage());
+                        logger.debug("exception in run(), commit", t);
+                        failed.addAndGet(data.size());
                     }
                 }
             } catch (InterruptedException ignored) {
@@ -135,6 +145,7 @@ public abstract class AbstractBillingInfoAccess implements IBillingInfoAccess {
 
     private final AtomicLong dropped = new AtomicLong(0);
     private final AtomicLong committed = new AtomicLong(0);
+    private final AtomicLong failed = new AtomicLong(0);
 
     private BlockingQueue<IHistogramData> queue;
     private List<Consumer> consumers;
@@ -165,13 +176,17 @@ public abstract class AbstractBillingInfoAccess implements IBillingInfoAccess {
         return dropped.get();
     }
 
+    public long getFailedMessages() {
+        return failed.get();
+    }
+
     public long getInsertQueueSize() {
         return queue.size();
     }
 
     public void initialize() {
         logger.debug("access type: {}", this.getClass().getName());
-        queue = new LinkedBlockingQueue<>(maxQueueSize);
+        queue = new ArrayBlockingQueue<>(maxQueueSize);
         consumers = new ArrayList<>();
         for (int i = 0; i < numberOfConsumers; i++) {
             consumers.add(new Consumer("histogram data consumer " + i));
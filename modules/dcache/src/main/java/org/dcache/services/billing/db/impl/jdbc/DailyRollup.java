@@ -0,0 +1,233 @@
+/*
+COPYRIGHT STATUS:
+Dec 1st 2001, Fermi National Accelerator Laboratory (FNAL) documents and
+software are sponsored by the U.S. Department of Energy under Contract No.
+DE-AC02-76CH03000. Therefore, the U.S. Government retains a  world-wide
+non-exclusive, royalty-free license to publish or reproduce these documents
+and software for U.S. Government purposes.  All documents and software
+available from this server are protected under the U.S. and Foreign
+Copyright Laws, and FNAL reserves all rights.
+
+Distribution of the software available from this server is free of
+charge subject to the user following the terms of the Fermitools
+Software Legal Information.
+
+Redistribution and/or modification of the software shall be accompanied
+by the Fermitools Software Legal Information  (including the copyright
+notice).
+
+The user is asked to feed back problems, benefits, and/or suggestions
+about the software to the Fermilab Software Providers.
+
+Neither the name of Fermilab, the  URA, nor the names of the contributors
+may be used to endorse or promote products derived from this software
+without specific prior written permission.
+
+DISCLAIMER OF LIABILITY (BSD):
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED  WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED  WARRANTIES OF MERCHANTABILITY AND FITNESS
+FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL FERMILAB,
+OR THE URA, OR THE U.S. DEPARTMENT of ENERGY, OR CONTRIBUTORS BE LIABLE
+FOR  ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY  OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT  OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE  POSSIBILITY OF SUCH DAMAGE.
+
+Liabilities of the Government:
+
+This software is provided by URA, independent from its Prime Contract
+with the U.S. Department of Energy. URA is acting independently from
+the Government and in its own private capacity and is not acting on
+behalf of the U.S. Government, nor as its contractor nor its agent.
+Correspondingly, it is understood and agreed that the U.S. Government
+has no connection to this software and in no manner whatsoever shall
+be liable for nor assume any responsibility or obligation for any claim,
+cost, or damages arising out of or resulting from the use of the software
+available from this server.
+
+Export Control:
+
+All documents and software available from this server are subject to U.S.
+export control laws.  Anyone downloading information from this server is
+obligated to secure any necessary Government licenses before exporting
+documents or software obtained from this server.
+ */
+package org.dcache.services.billing.db.impl.jdbc;
+
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.dcache.services.billing.db.data.IHistogramData;
+import org.dcache.services.billing.db.data.MoverData;
+import org.dcache.services.billing.db.data.PnfsBaseInfo;
+import org.dcache.services.billing.db.data.PoolHitData;
+import org.dcache.services.billing.db.data.StorageData;
+
+/**
+ * <p>Accumulates the daily aggregates of a batch of fine grained billing data.</p>
+ *
+ * <p>Applies the same rules as the <code>f_billing_daily_summary()</code>
+ * stored procedure:  only successful requests are counted, pool-to-pool transfers are kept apart
+ * from reads and writes, and connection times are taken from reads and writes only.  The result
+ * is added to the daily tables when the batch is committed.</p>
+ */
+final class DailyRollup {
+
+    static final class Transfers {
+
+        long count;
+        long size;
+        long transferred;
+
+        private void add(MoverData data) {
+            count++;
+            size += valueOf(data.getFullSize());
+            transferred += valueOf(data.getTransferSize());
+        }
+    }
+
+    static final class Times {
+
+        long count;
+        long minimum = Long.MAX_VALUE;
+        long maximum;
+        long total;
+
+        private void add(MoverData data) {
+            count++;
+            Long time = data.getConnectionTime();
+            if (time != null) {
+                minimum = Math.min(minimum, time);
+                maximum = Math.max(maximum, time);
+                total += time;
+            }
+        }
+
+        long getMinimum() {
+            return minimum == Long.MAX_VALUE ? 0L : minimum;
+        }
+
+        long getAverage() {
+            return count == 0 ? 0L : Math.round((double) total / count);
+        }
+    }
+
+    static final class Storage {
+
+        long count;
+        long size;
+
+        private void add(StorageData data) {
+            count++;
+            size += valueOf(data.getFullSize());
+        }
+    }
+
+    static final class Hits {
+
+        long count;
+        long cached;
+        long notcached;
+
+        private void add(PoolHitData data) {
+            count++;
+            if (Boolean.TRUE.equals(data.getFileCached())) {
+                cached++;
+            } else if (Boolean.FALSE.equals(data.getFileCached())) {
+                notcached++;
+            }
+        }
+    }
+
+    static final class Day {
+
+        final Transfers reads = new Transfers();
+        final Transfers writes = new Transfers();
+        final Transfers p2ps = new Transfers();
+        final Times times = new Times();
+        final Storage restores = new Storage();
+        final Storage stores = new Storage();
+        final Hits hits = new Hits();
+    }
+
+    private static long valueOf(Long value) {
+        return value == null ? 0L : value;
+    }
+
+    private static Date dayOf(Date timestamp) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(timestamp);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        return cal.getTime();
+    }
+
+    /*
+     * Sorted so that concurrent commits lock the rows of the daily
+     * tables in the same order.
+     */
+    private final SortedMap<Date, Day> days = new TreeMap<>();
+
+    DailyRollup(Collection<IHistogramData> data) {
+        data.forEach(this::add);
+    }
+
+    SortedMap<Date, Day> getDays() {
+        return days;
+    }
+
+    private void add(IHistogramData data) {
+        if (!(data instanceof PnfsBaseInfo)) {
+            return;
+        }
+
+        PnfsBaseInfo info = (PnfsBaseInfo) data;
+        if (!Integer.valueOf(0).equals(info.getErrorCode())) {
+            return;
+        }
+
+        if (data instanceof MoverData) {
+            add((MoverData) data);
+        } else if (data instanceof StorageData) {
+            add((StorageData) data);
+        } else if (data instanceof PoolHitData) {
+            dayOf(info).hits.add((PoolHitData) data);
+        }
+    }
+
+    private void add(MoverData data) {
+        Day day = dayOf(data);
+        if (Boolean.TRUE.equals(data.isP2p())) {
+            day.p2ps.add(data);
+        } else {
+            if (Boolean.TRUE.equals(data.getIsNew())) {
+                day.writes.add(data);
+            } else {
+                day.reads.add(data);
+            }
+            day.times.add(data);
+        }
+    }
+
+    private void add(StorageData data) {
+        Day day = dayOf(data);
+        if ("store".equals(data.getAction())) {
+            day.stores.add(data);
+        } else if ("restore".equals(data.getAction())) {
+            day.restores.add(data);
+        }
+    }
+
+    private Day dayOf(PnfsBaseInfo info) {
+        return days.computeIfAbsent(dayOf(info.getDateStamp()), d -> new Day());
+    }
+}
@@ -0,0 +1,406 @@
+/*
+COPYRIGHT STATUS:
+Dec 1st 2001, Fermi National Accelerator Laboratory (FNAL) documents and
+software are sponsored by the U.S. Department of Energy under Contract No.
+DE-AC02-76CH03000. Therefore, the U.S. Government retains a  world-wide
+non-exclusive, royalty-free license to publish or reproduce these documents
+and software for U.S. Government purposes.  All documents and software
+available from this server are protected under the U.S. and Foreign
+Copyright Laws, and FNAL reserves all rights.
+
+Distribution of the software available from this server is free of
+charge subject to the user following the terms of the Fermitools
+Software Legal Information.
+
+Redistribution and/or modification of the software shall be accompanied
+by the Fermitools Software Legal Information  (including the copyright
+notice).
+
+The user is asked to feed back problems, benefits, and/or suggestions
+about the software to the Fermilab Software Providers.
+
+Neither the name of Fermilab, the  URA, nor the names of the contributors
+may be used to endorse or promote products derived from this software
+without specific prior written permission.
+
+DISCLAIMER OF LIABILITY (BSD):
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED  WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED  WARRANTIES OF MERCHANTABILITY AND FITNESS
+FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL FERMILAB,
+OR THE URA, OR THE U.S. DEPARTMENT of ENERGY, OR CONTRIBUTORS BE LIABLE
+FOR  ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY  OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT  OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE  POSSIBILITY OF SUCH DAMAGE.
+
+Liabilities of the Government:
+
+This software is provided by URA, independent from its Prime Contract
+with the U.S. Department of Energy. URA is acting independently from
+the Government and in its own private capacity and is not acting on
+behalf of the U.S. Government, nor as its contractor nor its agent.
+Correspondingly, it is understood and agreed that the U.S. Government
+has no connection to this software and in no manner whatsoever shall
+be liable for nor assume any responsibility or obligation for any claim,
+cost, or damages arising out of or resulting from the use of the software
+available from this server.
+
+Export Control:
+
+All documents and software available from this server are subject to U.S.
+export control laws.  Anyone downloading information from this server is
+obligated to secure any necessary Government licenses before exporting
+documents or software obtained from this server.
+ */
+package org.dcache.services.billing.db.impl.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.dcache.services.billing.db.IBillingInfoAccess;
+import org.dcache.services.billing.db.data.DoorRequestData;
+import org.dcache.services.billing.db.data.IHistogramData;
+import org.dcache.services.billing.db.data.MoverData;
+import org.dcache.services.billing.db.data.PoolHitData;
+import org.dcache.services.billing.db.data.StorageData;
+import org.dcache.services.billing.db.exceptions.RetryException;
+import org.dcache.services.billing.db.impl.AbstractBillingInfoAccess;
+import org.dcache.services.billing.db.impl.datanucleus.DataNucleusBillingInfo;
+import org.springframework.beans.factory.annotation.Required;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.support.SQLErrorCodeSQLExceptionTranslator;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+
+/**
+ * <p>Implements {@link IBillingInfoAccess} writes using plain JDBC.</p>
+ *
+ * <p>Each batch drained from the queue is written in a single transaction using multi-row
+ * INSERT statements, one per table and per {@link #ROWS_PER_STATEMENT} rows.  In the same
+ * transaction, the daily aggregate tables are updated by adding the aggregates of the batch,
+ * so the daily summary no longer needs to scan the fine grained tables.  On PostgreSQL
+ * this uses INSERT ... ON CONFLICT; on other databases the equivalent MERGE statements
+ * are used.</p>
+ *
+ * <p>Queries and removals are still served through DataNucleus.</p>
+ *
+ * @see AbstractBillingInfoAccess
+ */
+public class JdbcBillingInfo extends DataNucleusBillingInfo {
+
+    /**
+     * Bounded by the maximum number of bind parameters of a statement.
+     */
+    private static final int ROWS_PER_STATEMENT = 100;
+
+    /**
+     * Describes the columns of a fine grained table.
+     */
+    private static final class Table<T> {
+
+        private final String name;
+        private final String[] columns;
+        private final int[] types;
+        private final Function<T, Object[]> values;
+
+        private Table(String name, String[] columns, int[] types,
+              Function<T, Object[]> values) {
+            this.name = name;
+            this.columns = columns;
+            this.types = types;
+            this.values = values;
+        }
+
+        private String sql(int rows) {
+            String row = Collections.nCopies(columns.length, "?").stream()
+                  .collect(Collectors.joining(",", "(", ")"));
+            return "INSERT INTO " + name + " (" + String.join(",", columns) + ") VALUES "
+                  + String.join(",", Collections.nCopies(rows, row));
+        }
+
+        private void insert(Connection connection, List<T> data) throws SQLException {
+            for (int from = 0; from < data.size(); from += ROWS_PER_STATEMENT) {
+                List<T> rows = data.subList(from,
+                      Math.min(data.size(), from + ROWS_PER_STATEMENT));
+                try (PreparedStatement statement = connection.prepareStatement(
+                      sql(rows.size()))) {
+                    int index = 1;
+                    for (T row : rows) {
+                        Object[] args = values.apply(row);
+                        for (int i = 0; i < args.length; i++, index++) {
+                            if (args[i] == null) {
+                                statement.setNull(index, types[i]);
+                            } else {
+                                statement.setObject(index, args[i], types[i]);
+                            }
+                        }
+                    }
+                    statement.executeUpdate();
+                }
+            }
+        }
+    }
+
+    private static final Table<MoverData> BILLINGINFO = new Table<>("billinginfo",
+          new String[]{"datestamp", "cellname", "action", "transaction", "pnfsid",
+                "errorcode", "errormessage", "connectiontime", "fullsize", "storageclass",
+                "transfersize", "isnew", "client", "protocol", "initiator", "p2p", "owner",
+                "mappeduid", "mappedgid", "fqan"},
+          new int[]{Types.TIMESTAMP, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                Types.INTEGER, Types.VARCHAR, Types.BIGINT, Types.BIGINT, Types.VARCHAR,
+                Types.BIGINT, Types.BOOLEAN, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                Types.BOOLEAN, Types.VARCHAR, Types.INTEGER, Types.INTEGER, Types.VARCHAR},
+          d -> new Object[]{timestamp(d.getDateStamp()), d.getCellName(), d.getAction(),
+                d.getTransaction(), d.getPfsID(), d.getErrorCode(), d.getErrorMessage(),
+                d.getConnectionTime(), d.getFullSize(), d.getStorageClass(),
+                d.getTransferSize(), d.getIsNew(), d.getClient(), d.getProtocol(),
+                d.getInitiator(), d.isP2p(), d.getOwner(), d.getMappedUID(),
+                d.getMappedGID(), d.getFqan()});
+
+    private static final Table<StorageData> STORAGEINFO = new Table<>("storageinfo",
+          new String[]{"datestamp", "cellname", "action", "transaction", "pnfsid",
+                "errorcode", "errormessage", "connectiontime", "fullsize", "storageclass",
+                "queuedtime"},
+          new int[]{Types.TIMESTAMP, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                Types.INTEGER, Types.VARCHAR, Types.BIGINT, Types.BIGINT, Types.VARCHAR,
+                Types.BIGINT},
+          d -> new Object[]{timestamp(d.getDateStamp()), d.getCellName(), d.getAction(),
+                d.getTransaction(), d.getPfsID(), d.getErrorCode(), d.getErrorMessage(),
+                d.getConnectionTime(), d.getFullSize(), d.getStorageClass(),
+                d.getQueuedTime()});
+
+    private static final Table<DoorRequestData> DOORINFO = new Table<>("doorinfo",
+          new String[]{"datestamp", "cellname", "action", "transaction", "pnfsid",
+                "errorcode", "errormessage", "connectiontime", "owner", "mappeduid",
+                "mappedgid", "client", "path", "queuedtime", "fqan"},
+          new int[]{Types.TIMESTAMP, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                Types.INTEGER, Types.VARCHAR, Types.BIGINT, Types.VARCHAR, Types.INTEGER,
+                Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.BIGINT, Types.VARCHAR},
+          d -> new Object[]{timestamp(d.getDateStamp()), d.getCellName(), d.getAction(),
+                d.getTransaction(), d.getPfsID(), d.getErrorCode(), d.getErrorMessage(),
+                d.getConnectionTime(), d.getOwner(), d.getMappedUID(), d.getMappedGID(),
+                d.getClient(), d.getPath(), d.getQueuedTime(), d.getFqan()});
+
+    private static final Table<PoolHitData> HITINFO = new Table<>("hitinfo",
+          new String[]{"datestamp", "cellname", "action", "transaction", "pnfsid",
+                "errorcode", "errormessage", "filecached"},
+          new int[]{Types.TIMESTAMP, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                Types.INTEGER, Types.VARCHAR, Types.BOOLEAN},
+          d -> new Object[]{timestamp(d.getDateStamp()), d.getCellName(), d.getAction(),
+                d.getTransaction(), d.getPfsID(), d.getErrorCode(), d.getErrorMessage(),
+                d.getFileCached()});
+
+    /**
+     * The statements adding the aggregates of a batch to a row of the daily tables.
+     */
+    private static final class Upserts {
+
+        private final String transfers;
+        private final String times;
+        private final String storage;
+        private final String hits;
+
+        private Upserts(String transfers, String times, String storage, String hits) {
+            this.transfers = transfers;
+            this.times = times;
+            this.storage = storage;
+            this.hits = hits;
+        }
+    }
+
+    /**
+     * Upserts for PostgreSQL, the database billing is deployed on.
+     */
+    private static final Upserts POSTGRESQL_UPSERTS = new Upserts(
+          "INSERT INTO %s AS t (date,count,size,transferred) VALUES (?,?,?,?) "
+                + "ON CONFLICT (date) DO UPDATE SET "
+                + "count = t.count + EXCLUDED.count, "
+                + "size = t.size + EXCLUDED.size, "
+                + "transferred = t.transferred + EXCLUDED.transferred",
+          "INSERT INTO billinginfo_tm_daily AS t (date,count,minimum,maximum,average) "
+                + "VALUES (?,?,?,?,?) "
+                + "ON CONFLICT (date) DO UPDATE SET "
+                + "count = t.count + EXCLUDED.count, "
+                + "minimum = CASE WHEN t.count = 0 THEN EXCLUDED.minimum "
+                + "ELSE LEAST(t.minimum, EXCLUDED.minimum) END, "
+                + "maximum = GREATEST(t.maximum, EXCLUDED.maximum), "
+                + "average = ROUND((t.average::numeric * t.count "
+                + "+ EXCLUDED.average::numeric * EXCLUDED.count) "
+                + "/ (t.count + EXCLUDED.count))",
+          "INSERT INTO %s AS t (date,count,size) VALUES (?,?,?) "
+                + "ON CONFLICT (date) DO UPDATE SET "
+                + "count = t.count + EXCLUDED.count, "
+                + "size = t.size + EXCLUDED.size",
+          "INSERT INTO hitinfo_daily AS t (date,count,notcached,cached) VALUES (?,?,?,?) "
+                + "ON CONFLICT (date) DO UPDATE SET "
+                + "count = t.count + EXCLUDED.count, "
+                + "notcached = t.notcached + EXCLUDED.notcached, "
+                + "cached = t.cached + EXCLUDED.cached");
+
+    /**
+     * The same upserts written as SQL MERGE statements, for databases without
+     * INSERT ... ON CONFLICT, such as the embedded database used in testing.
+     */
+    private static final Upserts MERGE_UPSERTS = new Upserts(
+          "MERGE INTO %s t USING (SELECT CAST(? AS TIMESTAMP) AS date, "
+                + "CAST(? AS BIGINT) AS count, CAST(? AS BIGINT) AS size, "
+                + "CAST(? AS BIGINT) AS transferred) v ON (t.date = v.date) "
+                + "WHEN MATCHED THEN UPDATE SET "
+                + "count = t.count + v.count, "
+                + "size = t.size + v.size, "
+                + "transferred = t.transferred + v.transferred "
+                + "WHEN NOT MATCHED THEN INSERT (date,count,size,transferred) "
+                + "VALUES (v.date,v.count,v.size,v.transferred)",
+          "MERGE INTO billinginfo_tm_daily t USING (SELECT CAST(? AS TIMESTAMP) AS date, "
+                + "CAST(? AS BIGINT) AS count, CAST(? AS BIGINT) AS minimum, "
+                + "CAST(? AS BIGINT) AS maximum, CAST(? AS BIGINT) AS average) v "
+                + "ON (t.date = v.date) "
+                + "WHEN MATCHED THEN UPDATE SET "
+                + "count = t.count + v.count, "
+                + "minimum = CASE WHEN t.count = 0 THEN v.minimum "
+                + "ELSE LEAST(t.minimum, v.minimum) END, "
+                + "maximum = GREATEST(t.maximum, v.maximum), "
+                + "average = ROUND((CAST(t.average AS DECIMAL(38,6)) * t.count "
+                + "+ CAST(v.average AS DECIMAL(38,6)) * v.count) "
+                + "/ (t.count + v.count)) "
+                + "WHEN NOT MATCHED THEN INSERT (date,count,minimum,maximum,average) "
+                + "VALUES (v.date,v.count,v.minimum,v.maximum,v.average)",
+          "MERGE INTO %s t USING (SELECT CAST(? AS TIMESTAMP) AS date, "
+                + "CAST(? AS BIGINT) AS count, CAST(? AS BIGINT) AS size) v "
+                + "ON (t.date = v.date) "
+                + "WHEN MATCHED THEN UPDATE SET "
+                + "count = t.count + v.count, "
+                + "size = t.size + v.size "
+                + "WHEN NOT MATCHED THEN INSERT (date,count,size) "
+                + "VALUES (v.date,v.count,v.size)",
+          "MERGE INTO hitinfo_daily t USING (SELECT CAST(? AS TIMESTAMP) AS date, "
+                + "CAST(? AS BIGINT) AS count, CAST(? AS BIGINT) AS notcached, "
+                + "CAST(? AS BIGINT) AS cached) v ON (t.date = v.date) "
+                + "WHEN MATCHED THEN UPDATE SET "
+                + "count = t.count + v.count, "
+                + "notcached = t.notcached + v.notcached, "
+                + "cached = t.cached + v.cached "
+                + "WHEN NOT MATCHED THEN INSERT (date,count,notcached,cached) "
+                + "VALUES (v.date,v.count,v.notcached,v.cached)");
+
+    private static Upserts upserts(Connection connection) throws SQLException {
+        return connection.getMetaData().getDatabaseProductName().equals("PostgreSQL")
+              ? POSTGRESQL_UPSERTS : MERGE_UPSERTS;
+    }
+
+    private static Timestamp timestamp(Date date) {
+        return date == null ? null : new Timestamp(date.getTime());
+    }
+
+    private static <T> List<T> select(Collection<IHistogramData> data, Class<T> type) {
+        return data.stream().filter(type::isInstance).map(type::cast)
+              .collect(Collectors.toList());
+    }
+
+    private static void update(Connection connection, String sql, Object... args)
+          throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            statement.executeUpdate();
+        }
+    }
+
+    private DataSource dataSource;
+    private SQLExceptionTranslator exceptionTranslator;
+
+    @Override
+    public void commit(Collection<IHistogramData> data) throws RetryException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                BILLINGINFO.insert(connection, select(data, MoverData.class));
+                STORAGEINFO.insert(connection, select(data, StorageData.class));
+                DOORINFO.insert(connection, select(data, DoorRequestData.class));
+                HITINFO.insert(connection, select(data, PoolHitData.class));
+                rollup(connection, upserts(connection), new DailyRollup(data));
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            DataAccessException translated = exceptionTranslator.translate("billing insert",
+                  null, e);
+            if (translated instanceof TransientDataAccessException
+                  || translated instanceof RecoverableDataAccessException) {
+                throw new RetryException(translated);
+            }
+            throw translated == null ? new IllegalStateException(e) : translated;
+        }
+    }
+
+    /**
+     * <p>The daily aggregates are maintained on insert; there is nothing
+     * left to summarize.</p>
+     */
+    @Override
+    public void aggregateDaily() {
+        logger.debug("daily aggregates are updated on insert; skipping summary procedure.");
+    }
+
+    @Required
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+        exceptionTranslator = new SQLErrorCodeSQLExceptionTranslator(dataSource);
+    }
+
+    private void rollup(Connection connection, Upserts upserts, DailyRollup rollup)
+          throws SQLException {
+        for (Map.Entry<Date, DailyRollup.Day> entry : rollup.getDays().entrySet()) {
+            Timestamp date = timestamp(entry.getKey());
+            DailyRollup.Day day = entry.getValue();
+            upsert(connection, upserts, "billinginfo_rd_daily", date, day.reads);
+            upsert(connection, upserts, "billinginfo_wr_daily", date, day.writes);
+            upsert(connection, upserts, "billinginfo_p2p_daily", date, day.p2ps);
+            if (day.times.count > 0) {
+                update(connection, upserts.times, date, day.times.count,
+                      day.times.getMinimum(), day.times.maximum, day.times.getAverage());
+            }
+            upsert(connection, upserts, "storageinfo_rd_daily", date, day.restores);
+            upsert(connection, upserts, "storageinfo_wr_daily", date, day.stores);
+            if (day.hits.count > 0) {
+                update(connection, upserts.hits, date, day.hits.count, day.hits.notcached,
+                      day.hits.cached);
+            }
+        }
+    }
+
+    private void upsert(Connection connection, Upserts upserts, String table, Timestamp date,
+          DailyRollup.Transfers transfers) throws SQLException {
+        if (transfers.count > 0) {
+            update(connection, String.format(upserts.transfers, table), date, transfers.count,
+                  transfers.size, transfers.transferred);
+        }
+    }
+
+    private void upsert(Connection connection, Upserts upserts, String table, Timestamp date,
+          DailyRollup.Storage storage) throws SQLException {
+        if (storage.count > 0) {
+            update(connection, String.format(upserts.storage, table), date, storage.count,
+                  storage.size);
+        }
+    }
+}
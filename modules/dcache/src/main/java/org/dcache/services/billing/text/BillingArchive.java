@@ -0,0 +1,402 @@
+package org.dcache.services.billing.text;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compressed, block structured archive of a billing file.
+ * <p>
+ * The lines of a billing file are stored in blocks of a fixed number of entries.  Each block holds
+ * two separately compressed columns: the timestamps of the rows and the lines themselves.  A
+ * footer at the end of the file records, for every block, its position, the range of its
+ * timestamps and a bloom filter of the search terms (pnfsid, path, owner and client) of its
+ * rows.  Searches read the footer, skip blocks that cannot match, and decode the remaining blocks
+ * independently of each other.
+ * <p>
+ * Every block starts with the format header ('##') in effect for its first row, so that a block
+ * can be parsed without reading the blocks before it.
+ */
+public class BillingArchive {
+
+    public static final String EXTENSION = "arc";
+
+    private static final int MAGIC = 0x44434241;
+    private static final int VERSION = 1;
+    private static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+
+    private BillingArchive() {
+    }
+
+    /**
+     * Position and summary of a block.
+     */
+    public static class Block {
+
+        private final long offset;
+        private final int timesLength;
+        private final int linesLength;
+        private final int rows;
+        private final long minTime;
+        private final long maxTime;
+        private final BloomFilter<CharSequence> filter;
+
+        private Block(long offset, int timesLength, int linesLength, int rows, long minTime,
+              long maxTime, BloomFilter<CharSequence> filter) {
+            this.offset = offset;
+            this.timesLength = timesLength;
+            this.linesLength = linesLength;
+            this.rows = rows;
+            this.minTime = minTime;
+            this.maxTime = maxTime;
+            this.filter = filter;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public long getMinTime() {
+            return minTime;
+        }
+
+        public long getMaxTime() {
+            return maxTime;
+        }
+
+        /**
+         * Returns whether the block has rows with a timestamp in [from;to).
+         */
+        public boolean overlaps(long from, long to) {
+            return minTime < to && maxTime >= from;
+        }
+
+        /**
+         * Returns whether any row of the block might contain one of the terms.  An empty term
+         * matches all rows.
+         */
+        public boolean mightContain(Collection<String> terms) {
+            for (String term : terms) {
+                if (term.isEmpty() || filter.mightContain(term)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void writeTo(DataOutputStream out) throws IOException {
+            out.writeLong(offset);
+            out.writeInt(timesLength);
+            out.writeInt(linesLength);
+            out.writeInt(rows);
+            out.writeLong(minTime);
+            out.writeLong(maxTime);
+            filter.writeTo(out);
+        }
+
+        private static Block readFrom(DataInputStream in) throws IOException {
+            return new Block(in.readLong(), in.readInt(), in.readInt(), in.readInt(),
+                  in.readLong(), in.readLong(),
+                  BloomFilter.readFrom(in, Funnels.stringFunnel(UTF_8)));
+        }
+    }
+
+    /**
+     * Writes an archive.  Rows must be added in the order of the billing file.
+     */
+    public static class Writer implements Closeable {
+
+        private final DataOutputStream out;
+        private final int rowsPerBlock;
+        private final double fpp;
+        private final List<Block> blocks = new ArrayList<>();
+
+        private final List<String> lines = new ArrayList<>();
+        private final List<Long> times = new ArrayList<>();
+        private final Set<String> terms = new HashSet<>();
+        private String header;
+        private int added;
+        private long position;
+
+        public Writer(File file, int rowsPerBlock, double fpp) throws IOException {
+            checkArgument(rowsPerBlock > 0, "Rows per block must be positive.");
+            this.rowsPerBlock = rowsPerBlock;
+            this.fpp = fpp;
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            position = out.size();
+        }
+
+        /**
+         * Adds a format header.  The header applies to all following rows.
+         */
+        public void addHeader(long time, String line) throws IOException {
+            header = line;
+            add(time, line, Collections.emptySet());
+        }
+
+        /**
+         * Adds a billing entry.
+         *
+         * @param time  timestamp of the entry in milliseconds since the epoch
+         * @param line  the entry as found in the billing file
+         * @param terms search terms under which the entry can be found
+         */
+        public void add(long time, String line, Collection<String> terms) throws IOException {
+            if (lines.isEmpty() && header != null && !line.equals(header)) {
+                lines.add(header);
+                times.add(time);
+            }
+            lines.add(line);
+            times.add(time);
+            this.terms.addAll(terms);
+            if (++added >= rowsPerBlock) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            if (lines.isEmpty()) {
+                return;
+            }
+
+            ByteArrayOutputStream timeColumn = new ByteArrayOutputStream();
+            long minTime = Long.MAX_VALUE;
+            long maxTime = Long.MIN_VALUE;
+            try (DataOutputStream column = new DataOutputStream(
+                  new DeflaterOutputStream(timeColumn))) {
+                long previous = 0;
+                for (long time : times) {
+                    writeVarLong(column, zigzag(time - previous));
+                    previous = time;
+                    minTime = Math.min(minTime, time);
+                    maxTime = Math.max(maxTime, time);
+                }
+            }
+
+            ByteArrayOutputStream lineColumn = new ByteArrayOutputStream();
+            try (DataOutputStream column = new DataOutputStream(
+                  new DeflaterOutputStream(lineColumn))) {
+                for (String line : lines) {
+                    byte[] bytes = line.getBytes(UTF_8);
+                    writeVarLong(column, bytes.length);
+                    column.write(bytes);
+                }
+            }
+
+            BloomFilter<CharSequence> filter = BloomFilter.create(Funnels.stringFunnel(UTF_8),
+                  Math.max(terms.size(), 1), fpp);
+            terms.forEach(filter::put);
+
+            blocks.add(new Block(position, timeColumn.size(), lineColumn.size(), lines.size(),
+                  minTime, maxTime, filter));
+            timeColumn.writeTo(out);
+            lineColumn.writeTo(out);
+            position += timeColumn.size() + lineColumn.size();
+
+            lines.clear();
+            times.clear();
+            terms.clear();
+            added = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                long footer = position;
+                out.writeInt(blocks.size());
+                for (Block block : blocks) {
+                    block.writeTo(out);
+                }
+                out.writeLong(footer);
+                out.writeInt(MAGIC);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Reads an archive.  Blocks may be decoded concurrently.
+     */
+    public static class Reader implements Closeable {
+
+        private final FileChannel channel;
+        private final List<Block> blocks;
+
+        public Reader(File file) throws IOException {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            try {
+                blocks = readFooter(file);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        private List<Block> readFooter(File file) throws IOException {
+            long size = channel.size();
+            if (size < 2 * Integer.BYTES + TRAILER_SIZE) {
+                throw new IOException(file + " is not a billing archive.");
+            }
+            ByteBuffer header = read(0, 2 * Integer.BYTES);
+            ByteBuffer trailer = read(size - TRAILER_SIZE, TRAILER_SIZE);
+            long footer = trailer.getLong();
+            if (header.getInt() != MAGIC || trailer.getInt() != MAGIC) {
+                throw new IOException(file + " is not a billing archive.");
+            }
+            if (header.getInt() != VERSION) {
+                throw new IOException(file + " has an unsupported archive version.");
+            }
+
+            ByteBuffer buffer = read(footer, (int) (size - TRAILER_SIZE - footer));
+            try (DataInputStream in = new DataInputStream(
+                  new ByteArrayInputStream(buffer.array()))) {
+                int count = in.readInt();
+                List<Block> blocks = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    blocks.add(Block.readFrom(in));
+                }
+                return blocks;
+            }
+        }
+
+        private ByteBuffer read(long position, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException("Billing archive is truncated.");
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        public List<Block> getBlocks() {
+            return blocks;
+        }
+
+        /**
+         * Returns whether any block might contain one of the terms.
+         */
+        public boolean mightContain(Collection<String> terms) {
+            return blocks.stream().anyMatch(b -> b.mightContain(terms));
+        }
+
+        /**
+         * Writes the rows of block with a timestamp in [from;to) that contain any of the terms
+         * to out.  Format headers are always written.
+         * <p>
+         * The time column is decoded first; the line column is only decoded if some rows are
+         * within the time range.
+         */
+        public void grep(Block block, Collection<String> terms, long from, long to,
+              PrintWriter out) throws IOException {
+            checkState(blocks.contains(block), "Block does not belong to this archive.");
+
+            boolean[] inRange = new boolean[block.rows];
+            boolean anyInRange = false;
+            try (DataInputStream in = new DataInputStream(
+                  inflate(block.offset, block.timesLength))) {
+                long time = 0;
+                for (int i = 0; i < block.rows; i++) {
+                    time += unzigzag(readVarLong(in));
+                    inRange[i] = time >= from && time < to;
+                    anyInRange |= inRange[i];
+                }
+            }
+            if (!anyInRange) {
+                return;
+            }
+
+            try (DataInputStream in = new DataInputStream(
+                  inflate(block.offset + block.timesLength, block.linesLength))) {
+                for (int i = 0; i < block.rows; i++) {
+                    byte[] bytes = new byte[(int) readVarLong(in)];
+                    in.readFully(bytes);
+                    String line = new String(bytes, UTF_8);
+                    if (line.startsWith("##")) {
+                        out.println(line);
+                    } else if (inRange[i] && !line.isEmpty() && line.charAt(0) != '#') {
+                        for (String term : terms) {
+                            if (line.contains(term)) {
+                                out.println(line);
+                                break;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private InputStream inflate(long position, int length) throws IOException {
+            return new InflaterInputStream(new ByteArrayInputStream(read(position, length)
+                  .array()));
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Billing archive block is truncated.");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed billing archive block.");
+    }
+}
@@ -55,6 +55,7 @@ import java.time.format.FormatStyle;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -78,12 +79,13 @@ public class Indexer {
     private static final Logger LOGGER = LoggerFactory.getLogger(Indexer.class);
 
     private static final Pattern BILLING_NAME_PATTERN =
-          Pattern.compile("^billing-(\\d\\d\\d\\d.\\d\\d.\\d\\d)(\\.bz2)?$");
+          Pattern.compile("^billing-(\\d\\d\\d\\d.\\d\\d.\\d\\d)(\\.bz2|\\.arc)?$");
     private static final String BILLING_TEXT_FLAT_DIR = "billing.text.flat-dir";
     private static final String BILLING_TEXT_DIR = "billing.text.dir";
     private static final String BILLING_TEXT_FORMAT_PREFIX = "billing.parser.format!";
     private static final String BZ2 = "bz2";
     private static final int PIPE_SIZE = KiB.toBytes(2);
+    private static final int ROWS_PER_BLOCK = 8192;
 
     private static final DateTimeFormatter CLI_DATE_FORMAT =
           DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM);
@@ -143,6 +145,8 @@ public class Indexer {
             FluentIterable<File> filesWithPossibleMatch =
                   SORTED_FILE_TREE_TRAVERSER
                         .preOrderTraversal(dir);
+            long from = Long.MIN_VALUE;
+            long to = Long.MAX_VALUE;
             if (args.hasOption("since") || args.hasOption("until")) {
                 LocalDate since = args.hasOption("since")
                       ? LocalDate.parse(args.getOption("since"), CLI_DATE_FORMAT)
@@ -152,7 +156,10 @@ public class Indexer {
                       : LocalDate.now().plusDays(1);
                 filesWithPossibleMatch =
                       filesWithPossibleMatch.filter(file -> isInRange(file, since, until));
+                from = toEpochMilli(since.atStartOfDay());
+                to = toEpochMilli(until.atStartOfDay());
             }
+            Range range = new Range(from, to);
             if (searchTerms.contains("")) {
                 filesWithPossibleMatch =
                       filesWithPossibleMatch.filter(file -> isBillingFile(file));
@@ -167,21 +174,21 @@ public class Indexer {
                 }
             } else if (args.hasOption("yaml")) {
                 try (OutputWriter out = toYaml(System.out)) {
-                    find(searchTerms, filesWithPossibleMatch, out);
+                    find(searchTerms, range, filesWithPossibleMatch, out);
                 }
             } else if (args.hasOption("json")) {
                 try (OutputWriter out = toJson(System.out)) {
-                    find(searchTerms, filesWithPossibleMatch, out);
+                    find(searchTerms, range, filesWithPossibleMatch, out);
                 }
             } else {
                 try (OutputWriter out = toText(System.out)) {
-                    find(searchTerms, filesWithPossibleMatch, out);
+                    find(searchTerms, range, filesWithPossibleMatch, out);
                 }
             }
         } else if (args.hasOption("all")) {
             for (File file : SORTED_FILE_TREE_TRAVERSER.preOrderTraversal(dir).filter(isFile())) {
                 Matcher matcher = BILLING_NAME_PATTERN.matcher(file.getName());
-                if (matcher.matches()) {
+                if (matcher.matches() && !isArchive(file)) {
                     System.out.println("Indexing " + file);
                     index(fpp, file, getIndexFile(file.getParentFile(), matcher.group(1)));
                 }
@@ -193,7 +200,9 @@ public class Indexer {
             File indexFile = getIndexFile(yesterday);
             if (billingFile.exists()) {
                 index(fpp, billingFile, indexFile);
-                if (args.hasOption("compress")) {
+                if (args.hasOption("archive")) {
+                    archive(fpp, billingFile);
+                } else if (args.hasOption("compress")) {
                     compress(billingFile);
                 }
             }
@@ -210,6 +219,10 @@ public class Indexer {
                 }
                 index(fpp, file, getIndexFile(file.getParentFile(), matcher.group(1)));
             }
+        } else if (args.hasOption("archive")) {
+            for (String name : args.getArguments()) {
+                archive(fpp, new File(name));
+            }
         } else if (args.hasOption("compress")) {
             for (String name : args.getArguments()) {
                 compress(new File(name));
@@ -322,29 +335,37 @@ public class Indexer {
 
     /**
      * Searches for searchTerm in files and writes any matching lines to out.
+     * <p>
+     * Archived billing files are searched block by block; blocks outside the time range or
+     * without a possible match are skipped, and the remaining blocks are decoded in parallel.
      */
-    private static void find(final Collection<String> searchTerms, FluentIterable<File> files,
-          final OutputWriter out)
+    private static void find(final Collection<String> searchTerms, Range range,
+          FluentIterable<File> files, final OutputWriter out)
           throws IOException {
         int threads = Runtime.getRuntime().availableProcessors();
         ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<BillingArchive.Reader> archives = new ArrayList<>();
         try {
             List<Map.Entry<LocalDate, Reader>> readers = new ArrayList<>();
             for (File file : files) {
                 Matcher matcher = BILLING_NAME_PATTERN.matcher(file.getName());
                 if (matcher.matches()) {
                     LocalDate date = LocalDate.parse(matcher.group(1), FILE_DATE_FORMAT);
-                    PipedReader reader = new PipedReader(PIPE_SIZE);
-                    PipedWriter writer = new PipedWriter(reader);
-                    executor.submit(() -> {
-                        try {
-                            grep(searchTerms, file, new PrintWriter(writer));
-                        } finally {
-                            writer.close();
+                    if (isArchive(file)) {
+                        BillingArchive.Reader archive = new BillingArchive.Reader(file);
+                        archives.add(archive);
+                        for (BillingArchive.Block block : archive.getBlocks()) {
+                            if (block.overlaps(range.from, range.to)
+                                  && block.mightContain(searchTerms)) {
+                                readers.add(Maps.immutableEntry(date, submit(executor,
+                                      w -> archive.grep(block, searchTerms, range.from,
+                                            range.to, w))));
+                            }
                         }
-                        return null;
-                    });
-                    readers.add(Maps.immutableEntry(date, reader));
+                    } else {
+                        readers.add(Maps.immutableEntry(date, submit(executor,
+                              w -> grep(searchTerms, file, w))));
+                    }
                 }
             }
             for (final Map.Entry<LocalDate, Reader> entry : readers) {
@@ -363,9 +384,27 @@ public class Indexer {
             }
         } finally {
             executor.shutdown();
+            for (BillingArchive.Reader archive : archives) {
+                archive.close();
+            }
         }
     }
 
+    /**
+     * Submits a task writing to a pipe and returns the reading end of the pipe.
+     */
+    private static Reader submit(ExecutorService executor, GrepTask task) throws IOException {
+        PipedReader reader = new PipedReader(PIPE_SIZE);
+        PipedWriter writer = new PipedWriter(reader);
+        executor.submit(() -> {
+            try (PrintWriter out = new PrintWriter(writer)) {
+                task.grep(out);
+            }
+            return null;
+        });
+        return reader;
+    }
+
     private static void grep(final Collection<String> searchTerms, File file, PrintWriter out)
           throws IOException {
         asCharSource(file, UTF_8).readLines(new LineProcessor<Void>() {
@@ -422,10 +461,35 @@ public class Indexer {
         java.nio.file.Files.delete(file.toPath());
     }
 
+    /**
+     * Converts a billing file to a billing archive and deletes the billing file.
+     */
+    private void archive(double fpp, File file) throws IOException {
+        Matcher matcher = BILLING_NAME_PATTERN.matcher(file.getName());
+        checkArgument(matcher.matches() && !isArchive(file),
+              "File name does not follow the format of billing files: " + file);
+        LocalDate date = LocalDate.parse(matcher.group(1), FILE_DATE_FORMAT);
+        File archiveFile = new File(file.getParentFile(),
+              "billing-" + matcher.group(1) + "." + BillingArchive.EXTENSION);
+
+        try (BillingArchive.Writer writer = new BillingArchive.Writer(archiveFile, ROWS_PER_BLOCK,
+              fpp)) {
+            asCharSource(file, UTF_8).readLines(new ArchiveProcessor(formats, date, writer));
+        } catch (IOException | RuntimeException e) {
+            java.nio.file.Files.deleteIfExists(archiveFile.toPath());
+            throw e;
+        }
+        java.nio.file.Files.delete(file.toPath());
+    }
+
     private static void help(PrintStream out) {
         out.println("COMMANDS:");
         out.println("   -all [-fpp=PROP] [-dir=BASE]");
         out.println("          (Re)index all billing files.");
+        out.println("   -archive [-fpp=PROP] FILE...");
+        out.println(
+              "          Convert FILE to a compressed billing archive with a search index per");
+        out.println("          block of entries.");
         out.println("   -compress FILE...");
         out.println("          Compress FILE.");
         out.println("   -decompress FILE...");
@@ -441,10 +505,10 @@ public class Indexer {
         out.println("          is provided, all entries are output.");
         out.println("   -index [-fpp=PROP] FILE...");
         out.println("          Create index for FILE.");
-        out.println("   -yesterday [-compress] [-fpp=PROP] [-dir=BASE] [-flat=BOOL]");
+        out.println("   -yesterday [-compress|-archive] [-fpp=PROP] [-dir=BASE] [-flat=BOOL]");
         out.println(
-              "          Index yesterday's billing file. Optionally compresses the billing file");
-        out.println("          after indexing it.");
+              "          Index yesterday's billing file. Optionally compresses or archives the");
+        out.println("          billing file after indexing it.");
         out.println("");
         out.println("OPTIONS:");
         out.println("   -dir=BASE");
@@ -589,7 +653,7 @@ public class Indexer {
                 }
                 try {
                     Matcher matcher = BILLING_NAME_PATTERN.matcher(file.getName());
-                    return matcher.matches() && mightContain(
+                    return matcher.matches() && mightContain(file,
                           getIndexFile(file.getParentFile(), matcher.group(1)));
                 } catch (ClassNotFoundException | IOException e) {
                     throw new RuntimeException("Failed to read index", e);
@@ -597,9 +661,14 @@ public class Indexer {
             }
 
             @SuppressWarnings("unchecked")
-            private boolean mightContain(File index)
+            private boolean mightContain(File file, File index)
                   throws IOException, ClassNotFoundException {
                 if (!index.exists()) {
+                    if (isArchive(file)) {
+                        try (BillingArchive.Reader archive = new BillingArchive.Reader(file)) {
+                            return archive.mightContain(searchTerms);
+                        }
+                    }
                     return true;
                 }
                 BloomFilter<CharSequence> filter = (BloomFilter<CharSequence>) readFromFile(index);
@@ -613,6 +682,14 @@ public class Indexer {
         };
     }
 
+    private static boolean isArchive(File file) {
+        return file.getName().endsWith("." + BillingArchive.EXTENSION);
+    }
+
+    private static long toEpochMilli(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
     private static boolean isInRange(File file, LocalDate since, LocalDate until) {
         Matcher matcher = BILLING_NAME_PATTERN.matcher(file.getName());
         if (matcher.matches()) {
@@ -675,6 +752,68 @@ public class Indexer {
         }
     }
 
+    /**
+     * Billing file line processor that adds lines to a billing archive.
+     * <p>
+     * Entries without a parsable default timestamp inherit the timestamp of the preceding entry.
+     */
+    private static class ArchiveProcessor implements LineProcessor<Void> {
+
+        private final BillingParserBuilder builder;
+        private final BillingArchive.Writer writer;
+        private final int year;
+
+        private Function<String, String[]> parser;
+        private long time;
+
+        private ArchiveProcessor(ImmutableMap<String, String> formats, LocalDate date,
+              BillingArchive.Writer writer) {
+            builder = new BillingParserBuilder(formats)
+                  .addAttribute("path")
+                  .addAttribute("pnfsid")
+                  .addAttribute("owner")
+                  .addAttribute("client");
+            parser = builder.buildToArray();
+            this.writer = writer;
+            year = date.getYear();
+            time = toEpochMilli(date.atStartOfDay());
+        }
+
+        @Override
+        public boolean processLine(String line) throws IOException {
+            if (line.startsWith("##")) {
+                parser = builder.withFormat(line).buildToArray();
+                writer.addHeader(time, line);
+            } else if (!line.isEmpty() && line.charAt(0) != '#') {
+                try {
+                    time = toEpochMilli(parseDefaultTimestamp(year, line));
+                } catch (DateTimeParseException | StringIndexOutOfBoundsException ignore) {
+                }
+                Set<String> terms = new HashSet<>();
+                String[] value = parser.apply(line);
+                if (!Strings.isNullOrEmpty(value[0])) {
+                    IndexProcessor.addAllPathPrefixes(value[0], terms);
+                }
+                if (!Strings.isNullOrEmpty(value[1])) {
+                    terms.add(value[1]);
+                }
+                if (!Strings.isNullOrEmpty(value[2])) {
+                    IndexProcessor.addAllPathPrefixes(value[2], terms);
+                }
+                if (!Strings.isNullOrEmpty(value[3])) {
+                    terms.add(value[3]);
+                }
+                writer.add(time, line, terms);
+            }
+            return true;
+        }
+
+        @Override
+        public Void getResult() {
+            return null;
+        }
+    }
+
     public static void main(String[] arguments)
           throws URISyntaxException, ExecutionException, InterruptedException,
           ClassNotFoundException {
@@ -703,4 +842,23 @@ public class Indexer {
 
         void write(LocalDate date, String line) throws IOException;
     }
+
+    private interface GrepTask {
+
+        void grep(PrintWriter out) throws IOException;
+    }
+
+    /**
+     * Time range [from;to) in milliseconds since the epoch.
+     */
+    private static class Range {
+
+        private final long from;
+        private final long to;
+
+        private Range(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
 }
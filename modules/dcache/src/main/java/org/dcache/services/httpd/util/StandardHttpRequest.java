@@ -11,9 +11,9 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Base64;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.TreeMap;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
@@ -35,7 +35,7 @@ public class StandardHttpRequest implements HttpRequest {
     private final PrintWriter pw;
     private final HttpServletRequest request;
     private final HttpServletResponse response;
-    private final Map<String, String> map = new HashMap<>();
+    private final Map<String, String> map = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
     private final int tokenOffset;
     private final String[] tokens;
     private final boolean isDirectory;
@@ -126,6 +126,16 @@ public class StandardHttpRequest implements HttpRequest {
         response.setContentType(type);
     }
 
+    @Override
+    public void setHeader(String name, String value) {
+        response.setHeader(name, value);
+    }
+
+    @Override
+    public void setStatus(int code) {
+        response.setStatus(code);
+    }
+
     private synchronized void doAuthorization() {
         if (authDone) {
             return;
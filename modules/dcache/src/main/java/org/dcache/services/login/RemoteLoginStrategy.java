@@ -9,6 +9,8 @@ import javax.security.auth.Subject;
 import org.dcache.auth.LoginReply;
 import org.dcache.auth.LoginStrategy;
 import org.dcache.cells.CellStub;
+import org.dcache.tracing.Span;
+import org.dcache.tracing.Tracer;
 import org.springframework.beans.factory.annotation.Required;
 
 public class RemoteLoginStrategy implements LoginStrategy {
@@ -40,11 +42,13 @@ public class RemoteLoginStrategy implements LoginStrategy {
             throw new IllegalStateException("CellStub is not set");
         }
 
-        try {
+        Span span = Tracer.startSpan("login");
+        try (Span.Scope ignored = span.activate()) {
             LoginMessage message = _stub.sendAndWait(new LoginMessage(subject));
             return new LoginReply(message.getSubject(),
                   message.getLoginAttributes());
         } catch (CacheException e) {
+            span.setError(e.getMessage());
             /* Note that dCache vehicles can transport errors.  These
              * are re-thrown as a CacheException (or subclass thereof)
              * with a corresponding return-code value.  The
@@ -73,9 +77,13 @@ public class RemoteLoginStrategy implements LoginStrategy {
                 throw e;
             }
         } catch (NoRouteToCellException e) {
+            span.setError(e.getMessage());
             throw new TimeoutCacheException(e.getMessage(), e);
         } catch (InterruptedException e) {
+            span.setError("Interrupted");
             throw new CacheException("Login failed because the operation was interrupted");
+        } finally {
+            span.end();
         }
     }
 
@@ -22,6 +22,7 @@ public class AdminShellFactory implements ShellFactory, CellMessageSender {
     private CellStub _acm;
     private String _prompt;
     private ListDirectoryHandler _list;
+    private int _fanOutLimit;
 
     @Required
     public void setHistoryFile(File historyFile) {
@@ -63,6 +64,11 @@ public class AdminShellFactory implements ShellFactory, CellMessageSender {
         _list = list;
     }
 
+    @Required
+    public void setFanOutLimit(int limit) {
+        _fanOutLimit = limit;
+    }
+
     @Override
     public void setCellEndpoint(CellEndpoint endpoint) {
         _endpoint = endpoint;
@@ -80,6 +86,7 @@ public class AdminShellFactory implements ShellFactory, CellMessageSender {
         shell.setPoolManager(_poolManager);
         shell.setAcm(_acm);
         shell.setListHandler(_list);
+        shell.setFanOutLimit(_fanOutLimit);
         return shell;
     }
 }
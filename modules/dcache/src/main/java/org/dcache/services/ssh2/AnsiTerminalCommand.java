@@ -19,6 +19,7 @@ import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.io.PrintWriter;
 import jline.TerminalSupport;
 import jline.console.ConsoleReader;
 import jline.console.history.FileHistory;
@@ -117,6 +118,7 @@ public class AnsiTerminalCommand implements Command, Runnable {
                 getOutput().append(s);
             }
         };
+        _userAdminShell.setOutput(new PrintWriter(_console.getOutput()));
         CDC cdc = new CDC();
         _adminShellThread = new Thread(() -> cdc.execute(this));
         _adminShellThread.start();
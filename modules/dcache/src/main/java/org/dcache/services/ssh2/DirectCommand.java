@@ -109,7 +109,8 @@ public class DirectCommand implements Command, Runnable {
           CellStub pnfsManager,
           CellStub acm,
           String prompt,
-          ListDirectoryHandler list) {
+          ListDirectoryHandler list,
+          int fanOutLimit) {
         this.commands = commands;
         shell = new UserAdminShell(prompt);
         shell.setCellEndpoint(endpoint);
@@ -117,6 +118,7 @@ public class DirectCommand implements Command, Runnable {
         shell.setPoolManager(poolManager);
         shell.setAcm(acm);
         shell.setListHandler(list);
+        shell.setFanOutLimit(fanOutLimit);
     }
 
     @Override
@@ -152,6 +154,7 @@ public class DirectCommand implements Command, Runnable {
             CDC.setSession(sessionId);
             shell.setSession(sessionId);
             shell.setUser(env.getEnv().get(Environment.ENV_USER));
+            shell.setOutput(outWriter);
             CDC cdc = new CDC();
             shellThread = new Thread(() -> cdc.execute(this));
             shellThread.start();
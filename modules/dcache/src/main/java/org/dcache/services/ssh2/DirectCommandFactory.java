@@ -87,6 +87,7 @@ public class DirectCommandFactory implements CommandFactory, CellMessageSender {
     private CellStub acm;
     private String prompt;
     private ListDirectoryHandler list;
+    private int fanOutLimit;
 
     @Required
     public void setPnfsManager(CellStub stub) {
@@ -113,6 +114,11 @@ public class DirectCommandFactory implements CommandFactory, CellMessageSender {
         this.list = list;
     }
 
+    @Required
+    public void setFanOutLimit(int limit) {
+        this.fanOutLimit = limit;
+    }
+
     public void setCellEndpoint(CellEndpoint endpoint) {
         this.endpoint = endpoint;
     }
@@ -126,7 +132,8 @@ public class DirectCommandFactory implements CommandFactory, CellMessageSender {
               pnfsManager,
               acm,
               prompt,
-              list);
+              list,
+              fanOutLimit);
     }
 }
 
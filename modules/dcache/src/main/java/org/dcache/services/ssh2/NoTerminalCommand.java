@@ -67,6 +67,7 @@ public class NoTerminalCommand implements Command, Runnable {
     @Override
     public void start(ChannelSession channelSession, Environment env) throws IOException {
         _userAdminShell.setUser(env.getEnv().get(Environment.ENV_USER));
+        _userAdminShell.setOutput(_writer);
         CDC cdc = new CDC();
         _adminShellThread = new Thread(() -> cdc.execute(this));
         _adminShellThread.start();
@@ -0,0 +1,81 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.util;
+
+import static java.util.Objects.requireNonNull;
+
+import diskCacheV111.vehicles.DoorEventMessage;
+import diskCacheV111.vehicles.DoorInfo;
+import diskCacheV111.vehicles.IoDoorEntry;
+import diskCacheV111.vehicles.IoDoorInfo;
+import diskCacheV111.vehicles.TransferEventMessage;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Publishes the changes to the transfers of a door.
+ * <p>
+ * The door provides its transfers in the same form as for the {@code get door info} command.
+ */
+public class DoorEventPublisher extends TransferEventPublisher<IoDoorEntry> {
+
+    private Supplier<IoDoorInfo> doorInfo;
+    private DoorInfo door;
+
+    public void setDoorInfoSupplier(Supplier<IoDoorInfo> doorInfo) {
+        this.doorInfo = requireNonNull(doorInfo);
+    }
+
+    @Override
+    protected Map<Long, IoDoorEntry> collect() {
+        IoDoorInfo info = doorInfo.get();
+        DoorInfo header = new DoorInfo(info.getCellName(), info.getDomainName());
+        header.setProtocol(info.getProtocolFamily(), info.getProtocolVersion());
+        header.setOwner(info.getOwner());
+        header.setProcess(info.getProcess());
+        door = header;
+
+        Map<Long, IoDoorEntry> entries = new HashMap<>();
+        for (IoDoorEntry entry : info.getIoDoorEntries()) {
+            entries.put(entry.getSerialId(), entry);
+        }
+        return entries;
+    }
+
+    @Override
+    protected boolean hasChanged(IoDoorEntry before, IoDoorEntry after) {
+        return !Objects.equals(before.getStatus(), after.getStatus())
+              || !Objects.equals(before.getPool(), after.getPool())
+              || !Objects.equals(before.getPnfsId(), after.getPnfsId())
+              || !Objects.equals(before.getPath(), after.getPath());
+    }
+
+    @Override
+    protected TransferEventMessage<IoDoorEntry> createMessage(long epoch, long sequence,
+          boolean snapshot, long expiry, List<IoDoorEntry> updated, long[] finished) {
+        DoorInfo header = door;
+        if (header == null) {
+            header = new DoorInfo(getCellName(), getCellDomainName());
+        }
+        return new DoorEventMessage(getCellAddress(), epoch, sequence, snapshot, expiry, header,
+              updated, finished);
+    }
+}
@@ -68,12 +68,15 @@ import java.util.EnumSet;
 import java.util.List;
 import java.util.OptionalLong;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import javax.security.auth.Subject;
@@ -84,6 +87,8 @@ import org.dcache.cells.CellStub;
 import org.dcache.namespace.FileAttribute;
 import org.dcache.namespace.FileType;
 import org.dcache.poolmanager.PoolManagerStub;
+import org.dcache.tracing.Span;
+import org.dcache.tracing.Tracer;
 import org.dcache.vehicles.FileAttributes;
 import org.dcache.vehicles.PnfsGetFileAttributes;
 import org.slf4j.Logger;
@@ -118,6 +123,11 @@ public class Transfer implements Comparable<Transfer> {
     protected final long _id;
     protected final String _session;
 
+    /**
+     * Trace span covering the transfer. The phases of the transfer are recorded as child spans.
+     */
+    protected final Span _span;
+
     protected PoolManagerStub _poolManager;
     protected CellStub _poolStub;
     protected CellStub _billing;
@@ -129,6 +139,7 @@ public class Transfer implements Comparable<Transfer> {
     private Integer _moverId;
     private boolean _hasMoverBeenCreated;
     private boolean _hasMoverFinished;
+    private long _moverStartedAt;
     private String _status;
     private CacheException _error;
     private FileAttributes _fileAttributes = new FileAttributes();
@@ -188,6 +199,7 @@ public class Transfer implements Comparable<Transfer> {
         _startedAt = System.currentTimeMillis();
         _id = _sessionCounter.next();
         _session = CDC.getSession();
+        _span = Tracer.startTrace("transfer").setAttribute("path", path);
         _checkStagePermission = new CheckStagePermission(null);
         _checkStagePermission.setAllowAnonymousStaging(true);
     }
@@ -398,6 +410,9 @@ public class Transfer implements Comparable<Transfer> {
     public synchronized void setMoverId(Integer moverId) {
         _moverId = moverId;
         _hasMoverBeenCreated = (_moverId != null);
+        if (_hasMoverBeenCreated) {
+            _moverStartedAt = System.currentTimeMillis();
+        }
     }
 
     /**
@@ -522,6 +537,13 @@ public class Transfer implements Comparable<Transfer> {
      * Signals that the mover of this transfer finished.
      */
     public synchronized void finished(CacheException error) {
+        if (!_hasMoverFinished && _moverStartedAt > 0) {
+            Span span = Tracer.startSpan("data transfer", _span.getContext(), _moverStartedAt);
+            if (error != null) {
+                span.setError(error.getMessage());
+            }
+            span.end();
+        }
         _hasMoverFinished = true;
         _error = error;
         notifyAll();
@@ -685,7 +707,9 @@ public class Transfer implements Comparable<Transfer> {
     public void createNameSpaceEntry()
           throws CacheException {
         setStatus("PnfsManager: Creating name space entry");
-        try {
+        Span span = Tracer.startSpan("namespace create", _span.getContext(),
+              System.currentTimeMillis());
+        try (Span.Scope ignored = span.activate()) {
             FileAttributes desiredAttributes = fileAttributesForNameSpace();
             PnfsCreateEntryMessage msg;
             try {
@@ -706,7 +730,11 @@ public class Transfer implements Comparable<Transfer> {
             FileAttributes attrs = msg.getFileAttributes();
             setFileAttributes(attrs);
             setWrite(true);
+        } catch (CacheException | RuntimeException e) {
+            span.setError(e.getMessage());
+            throw e;
         } finally {
+            span.end();
             setStatus(null);
         }
     }
@@ -750,6 +778,10 @@ public class Transfer implements Comparable<Transfer> {
     }
 
     private ListenableFuture<Void> readNameSpaceEntryAsync(boolean allowWrite, long timeout) {
+        return traced("namespace lookup", () -> readNameSpaceEntryAsync0(allowWrite, timeout));
+    }
+
+    private ListenableFuture<Void> readNameSpaceEntryAsync0(boolean allowWrite, long timeout) {
         Set<FileAttribute> attr = EnumSet.of(PNFSID, TYPE, STORAGEINFO, SIZE, CREATION_TIME);
         attr.addAll(_additionalAttributes);
         attr.addAll(PoolMgrSelectReadPoolMsg.getRequiredAttributes());
@@ -930,6 +962,10 @@ public class Transfer implements Comparable<Transfer> {
             return immediateFuture(null);
         }
 
+        return traced("pool selection", () -> selectPoolAsync0(timeout));
+    }
+
+    private ListenableFuture<Void> selectPoolAsync0(long timeout) {
         FileAttributes fileAttributes = getFileAttributes();
 
         ProtocolInfo protocolInfo = getProtocolInfoForPoolManager();
@@ -1005,6 +1041,12 @@ public class Transfer implements Comparable<Transfer> {
                   "Need PNFS ID, file attributes and pool before a mover can be started");
         }
 
+        return traced("mover start", () -> startMoverAsync0(fileAttributes, pool, timeout));
+    }
+
+    private ListenableFuture<Void> startMoverAsync0(FileAttributes fileAttributes, Pool pool,
+          long timeout) {
+
         ProtocolInfo protocolInfo = getProtocolInfoForPool();
         PoolIoFileMessage message;
         if (isWrite()) {
@@ -1188,6 +1230,16 @@ public class Transfer implements Comparable<Transfer> {
 
         _isBillingNotified = true;
 
+        _span.setAttribute("pnfsid", getPnfsId());
+        if (_pool != null) {
+            _span.setAttribute("pool", _pool.getName());
+        }
+        _span.setAttribute("rc", code);
+        if (code != 0) {
+            _span.setError(error);
+        }
+        _span.end();
+
         msg.setMoverInfo(moverInfoMessage);
 
         try {
@@ -1197,6 +1249,34 @@ public class Transfer implements Comparable<Transfer> {
         }
     }
 
+    /**
+     * Records a phase of the transfer as a child span of the transfer.  Messages sent while
+     * starting the phase carry the context of that span.
+     */
+    private <T> ListenableFuture<T> traced(String name, Supplier<ListenableFuture<T>> phase) {
+        Span span = Tracer.startSpan(name, _span.getContext(), System.currentTimeMillis());
+        ListenableFuture<T> future;
+        try (Span.Scope ignored = span.activate()) {
+            future = phase.get();
+        } catch (RuntimeException e) {
+            span.setError(e.toString()).end();
+            throw e;
+        }
+        if (span.isRecording()) {
+            future.addListener(() -> {
+                try {
+                    Futures.getDone(future);
+                } catch (ExecutionException e) {
+                    span.setError(String.valueOf(e.getCause().getMessage()));
+                } catch (CancellationException e) {
+                    span.setError("Cancelled");
+                }
+                span.end();
+            }, MoreExecutors.directExecutor());
+        }
+        return future;
+    }
+
     private static long getTimeoutFor(long deadline) {
         return subWithInfinity(deadline, System.currentTimeMillis());
     }
@@ -0,0 +1,209 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.util;
+
+import diskCacheV111.vehicles.DoorEventMessage;
+import diskCacheV111.vehicles.DoorInfo;
+import diskCacheV111.vehicles.IoDoorEntry;
+import diskCacheV111.vehicles.IoDoorInfo;
+import diskCacheV111.vehicles.IoJobInfo;
+import diskCacheV111.vehicles.MoverEventMessage;
+import diskCacheV111.vehicles.TransferEventMessage;
+import dmg.cells.nucleus.CellAddressCore;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Live index of the transfers of doors and the movers of pools, maintained from the {@link
+ * TransferEventMessage}s they publish.
+ * <p>
+ * The index checks the sequence numbers of each source.  If a message reveals that an earlier
+ * message of the source was lost, the message is applied nevertheless and the caller is told to
+ * request a snapshot from the source.  Snapshots older than the information already in the index
+ * are ignored.  A source that is not heard from within the expiry of its last message is dropped.
+ */
+public class TransferEventIndex {
+
+    private static class Source<T> {
+
+        private final long epoch;
+        private final Map<Long, T> entries = new HashMap<>();
+        private long sequence;
+        private long expiresAt;
+        private DoorInfo door;
+
+        private Source(long epoch, long sequence) {
+            this.epoch = epoch;
+            this.sequence = sequence;
+        }
+    }
+
+    private final Map<CellAddressCore, Source<IoDoorEntry>> doors = new HashMap<>();
+    private final Map<CellAddressCore, Source<IoJobInfo>> pools = new HashMap<>();
+    private final LongSupplier clock;
+
+    public TransferEventIndex() {
+        this(System::currentTimeMillis);
+    }
+
+    TransferEventIndex(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Applies the changes published by a door.
+     *
+     * @return false if a snapshot should be requested from the door, true otherwise
+     */
+    public synchronized boolean apply(DoorEventMessage message) {
+        boolean isConsistent = apply(doors, message);
+        Source<IoDoorEntry> source = doors.get(message.getSource());
+        if (source != null && source.epoch == message.getEpoch()) {
+            source.door = message.getDoor();
+        }
+        return isConsistent;
+    }
+
+    /**
+     * Applies the changes published by a pool.
+     *
+     * @return false if a snapshot should be requested from the pool, true otherwise
+     */
+    public synchronized boolean apply(MoverEventMessage message) {
+        return apply(pools, message);
+    }
+
+    private <T extends Serializable> boolean apply(Map<CellAddressCore, Source<T>> sources,
+          TransferEventMessage<T> message) {
+        CellAddressCore address = message.getSource();
+        long now = clock.getAsLong();
+
+        if (message.getExpiry() <= 0) {
+            /* The source shut down. */
+            sources.remove(address);
+            return true;
+        }
+
+        Source<T> source = sources.get(address);
+        if (message.isSnapshot()) {
+            if (source != null && source.epoch == message.getEpoch()
+                  && message.getSequence() < source.sequence) {
+                return true;
+            }
+            source = new Source<>(message.getEpoch(), message.getSequence());
+            sources.put(address, source);
+            update(source, message, now);
+            return true;
+        }
+
+        boolean isConsistent;
+        if (source == null || source.epoch != message.getEpoch()) {
+            /* A new publisher starts with sequence number zero. Anything else means that we
+             * joined late or missed the start.
+             */
+            isConsistent = message.getSequence() == (message.hasChanges() ? 1 : 0);
+            source = new Source<>(message.getEpoch(), message.getSequence());
+            sources.put(address, source);
+        } else {
+            long expected = message.hasChanges() ? source.sequence + 1 : source.sequence;
+            if (message.getSequence() < expected) {
+                /* Already reflected by a snapshot. */
+                source.expiresAt = Math.max(source.expiresAt, now + message.getExpiry());
+                return true;
+            }
+            isConsistent = message.getSequence() == expected;
+            source.sequence = message.getSequence();
+        }
+        update(source, message, now);
+        return isConsistent;
+    }
+
+    private static <T extends Serializable> void update(Source<T> source,
+          TransferEventMessage<T> message, long now) {
+        for (T entry : message.getUpdated()) {
+            source.entries.put(message.getKey(entry), entry);
+        }
+        for (long key : message.getFinished()) {
+            source.entries.remove(key);
+        }
+        source.expiresAt = now + message.getExpiry();
+    }
+
+    private void expire() {
+        long now = clock.getAsLong();
+        doors.values().removeIf(s -> s.expiresAt < now);
+        pools.values().removeIf(s -> s.expiresAt < now);
+    }
+
+    /**
+     * Returns whether a door publishes its transfers.
+     */
+    public synchronized boolean isPublishingDoor(CellAddressCore door) {
+        expire();
+        return doors.containsKey(door);
+    }
+
+    /**
+     * Returns whether a pool publishes its movers.
+     */
+    public synchronized boolean isPublishingPool(String pool) {
+        expire();
+        return pools.keySet().stream().anyMatch(a -> a.getCellName().equals(pool));
+    }
+
+    /**
+     * Returns the door information of all publishing doors, in the same form as returned by the
+     * {@code get door info -binary} command.
+     */
+    public synchronized Collection<IoDoorInfo> getDoors() {
+        expire();
+        List<IoDoorInfo> result = new ArrayList<>(doors.size());
+        doors.forEach((address, source) -> {
+            IoDoorInfo info = new IoDoorInfo(address);
+            if (source.door != null) {
+                info.setProtocol(source.door.getProtocolFamily(),
+                      source.door.getProtocolVersion());
+                info.setOwner(source.door.getOwner());
+                info.setProcess(source.door.getProcess());
+            }
+            info.setIoDoorEntries(source.entries.values().toArray(IoDoorEntry[]::new));
+            result.add(info);
+        });
+        return result;
+    }
+
+    /**
+     * Returns the movers of all publishing pools.
+     */
+    public synchronized Collection<IoJobInfo> getMovers() {
+        expire();
+        List<IoJobInfo> result = new ArrayList<>();
+        pools.values().forEach(source -> result.addAll(source.entries.values()));
+        return result;
+    }
+
+    public synchronized void clear() {
+        doors.clear();
+        pools.clear();
+    }
+}
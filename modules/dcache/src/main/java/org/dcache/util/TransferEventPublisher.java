@@ -0,0 +1,181 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.util;
+
+import static java.util.Objects.requireNonNull;
+
+import diskCacheV111.vehicles.TransferEventMessage;
+import diskCacheV111.vehicles.TransferEventSnapshotRequest;
+import dmg.cells.nucleus.AbstractCellComponent;
+import dmg.cells.nucleus.CellInfoProvider;
+import dmg.cells.nucleus.CellLifeCycleAware;
+import dmg.cells.nucleus.CellMessageReceiver;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.dcache.cells.CellStub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Periodically publishes the changes to the transfers of a door or the movers of a pool.
+ * <p>
+ * On every period the current entries are collected and compared with the entries published
+ * last.  Entries that started or changed and the keys of entries that finished are published as a
+ * single {@link TransferEventMessage}.  If nothing changed, a heartbeat is published once the
+ * heartbeat period has elapsed.  Snapshots are served from the entries published last, so they
+ * are consistent with the sequence number they carry.
+ *
+ * @param <T> type of the entries
+ */
+public abstract class TransferEventPublisher<T extends Serializable>
+      extends AbstractCellComponent
+      implements CellMessageReceiver, CellLifeCycleAware, CellInfoProvider {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransferEventPublisher.class);
+
+    private final long epoch = ThreadLocalRandom.current().nextLong();
+
+    private CellStub topic;
+    private ScheduledExecutorService executor;
+    private long period = 5;
+    private long heartbeat = 30;
+    private TimeUnit unit = TimeUnit.SECONDS;
+
+    private ScheduledFuture<?> task;
+    private Map<Long, T> published = Collections.emptyMap();
+    private long sequence;
+    private long lastSent;
+    private long messagesSent;
+
+    public void setTopic(CellStub topic) {
+        this.topic = requireNonNull(topic);
+    }
+
+    public void setExecutor(ScheduledExecutorService executor) {
+        this.executor = requireNonNull(executor);
+    }
+
+    public void setPeriod(long period) {
+        this.period = period;
+    }
+
+    public void setHeartbeat(long heartbeat) {
+        this.heartbeat = heartbeat;
+    }
+
+    public void setUnit(TimeUnit unit) {
+        this.unit = requireNonNull(unit);
+    }
+
+    @Override
+    public synchronized void afterStart() {
+        if (period > 0) {
+            task = executor.scheduleWithFixedDelay(this::publish, period, period, unit);
+        }
+    }
+
+    @Override
+    public synchronized void beforeStop() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+            send(Collections.emptyMap(), 0);
+        }
+    }
+
+    /**
+     * Returns the current entries by key.
+     */
+    protected abstract Map<Long, T> collect();
+
+    /**
+     * Returns whether an entry changed enough to be published again.
+     */
+    protected abstract boolean hasChanged(T before, T after);
+
+    protected abstract TransferEventMessage<T> createMessage(long epoch, long sequence,
+          boolean snapshot, long expiry, List<T> updated, long[] finished);
+
+    private long getExpiry() {
+        return 3 * unit.toMillis(heartbeat);
+    }
+
+    synchronized void publish() {
+        try {
+            send(collect(), getExpiry());
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to publish transfer events. Please report this to "
+                  + "support@dcache.org", e);
+        }
+    }
+
+    private void send(Map<Long, T> current, long expiry) {
+        List<T> updated = new ArrayList<>();
+        current.forEach((key, entry) -> {
+            T before = published.get(key);
+            if (before == null || hasChanged(before, entry)) {
+                updated.add(entry);
+            }
+        });
+        long[] finished = published.keySet().stream()
+              .filter(key -> !current.containsKey(key))
+              .mapToLong(Long::longValue)
+              .toArray();
+
+        long now = System.currentTimeMillis();
+        boolean hasChanges = !updated.isEmpty() || finished.length > 0;
+        if (hasChanges) {
+            sequence++;
+        } else if (now - lastSent < unit.toMillis(heartbeat) && expiry > 0) {
+            return;
+        }
+        topic.notify(createMessage(epoch, sequence, false, expiry, updated, finished));
+        published = current;
+        lastSent = now;
+        messagesSent++;
+    }
+
+    public synchronized TransferEventMessage<T> messageArrived(
+          TransferEventSnapshotRequest request) {
+        return createMessage(epoch, sequence, true, getExpiry(),
+              new ArrayList<>(published.values()), new long[0]);
+    }
+
+    @Override
+    public synchronized void getInfo(PrintWriter pw) {
+        pw.println("Transfer events:");
+        if (task == null) {
+            pw.println("    Publishing : DISABLED");
+            return;
+        }
+        pw.println("    Topic      : " + topic.getDestinationPath());
+        pw.println("    Period     : " + period + " " + unit);
+        pw.println("    Heartbeat  : " + heartbeat + " " + unit);
+        pw.println("    Sequence   : " + sequence);
+        pw.println("    Entries    : " + published.size());
+        pw.println("    Messages   : " + messagesSent);
+    }
+}
@@ -70,7 +70,9 @@ import diskCacheV111.pools.json.PoolQueueData;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -84,6 +86,7 @@ import org.dcache.util.histograms.HistogramMetadata;
 import org.dcache.util.histograms.TimeFrame;
 import org.dcache.util.histograms.TimeFrame.BinType;
 import org.dcache.util.histograms.TimeseriesHistogram;
+import org.dcache.vehicles.histograms.PoolTimeseriesRequestMessage.TimeseriesType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -429,177 +432,106 @@ public final class PoolInfoCollectorUtils {
     }
 
     /**
-     * <p>If the model does not exist, a new one is created.</p>
-     * <p>
-     * <p>The model is then updated with the provided value.</p>
+     * <p>Generates an empty histogram model for the given time series.</p>
      *
-     * @param series    the type of histogram (max, min, avg, stddev)
-     * @param newValue  for the update
-     * @param model     the current model, if it exists
-     * @param timestamp of update
-     * @return the current or new model
+     * @param type of time series
+     * @return the corresponding histogram model
      */
-    public static TimeseriesHistogram updateFileLifetimeSeries(String series,
-          Double newValue,
-          TimeseriesHistogram model,
-          long timestamp) {
-        if (model == null) {
-            model = newLifetimeTimeSeriesHistogram(series, series);
+    public static TimeseriesHistogram newTimeSeriesHistogram(TimeseriesType type) {
+        switch (type) {
+            case FILE_LIFETIME_MAX:
+                return newLifetimeTimeSeriesHistogram("MAX", "MAX");
+            case FILE_LIFETIME_AVG:
+                return newLifetimeTimeSeriesHistogram("AVG", "AVG");
+            case FILE_LIFETIME_MIN:
+                return newLifetimeTimeSeriesHistogram("MIN", "MIN");
+            case FILE_LIFETIME_STDDEV:
+                return newLifetimeTimeSeriesHistogram("STD DEV", "STD DEV");
+            case ACTIVE_MOVERS:
+                return newQueueTimeSeriesHistogram("Active Movers");
+            case QUEUED_MOVERS:
+                return newQueueTimeSeriesHistogram("Queued Movers");
+            case ACTIVE_P2P:
+                return newQueueTimeSeriesHistogram("Active P2P");
+            case QUEUED_P2P:
+                return newQueueTimeSeriesHistogram("Queued P2P");
+            case ACTIVE_P2P_CLIENT:
+                return newQueueTimeSeriesHistogram("Active P2P Client");
+            case QUEUED_P2P_CLIENT:
+                return newQueueTimeSeriesHistogram("Queued P2P Client");
+            case ACTIVE_FLUSH:
+                return newQueueTimeSeriesHistogram("Active Stores");
+            case QUEUED_FLUSH:
+                return newQueueTimeSeriesHistogram("Queued Stores");
+            case ACTIVE_STAGE:
+                return newQueueTimeSeriesHistogram("Active Restores");
+            case QUEUED_STAGE:
+                return newQueueTimeSeriesHistogram("Queued Restores");
+            default:
+                throw new IllegalArgumentException("Unknown time series type: " + type);
         }
-
-        model.replace(newValue, timestamp);
-
-        return model;
-    }
-
-    /**
-     * <p>From the lifetime (last accessed) time interval values, builds
-     * a new binned histogram and updates the time series tracking maximum, minimum, average and
-     * standard deviation for file lifetime. These are added to /updated on the persistent pool data
-     * object.</p>
-     *
-     * @param lifetimeHistogram of the (current) files in the pool's repository
-     * @param info              the storage object to update
-     * @param timestamp         of update
-     */
-    public static void updateFstatHistograms(
-          CountingHistogram lifetimeHistogram,
-          PoolInfoWrapper info,
-          long timestamp) {
-        updateFstatTimeSeries(lifetimeHistogram.getMetadata(), info, timestamp);
     }
 
     /**
-     * <p>Extracts the statistics from the model and updates the
-     * time series histograms.</p>
+     * <p>Extracts the statistics on file lifetime from the model, keyed
+     * by the time series tracking them.  An undefined minimum or maximum is given as NaN, an
+     * undefined standard deviation as zero.  The average is omitted if there are no files.</p>
      *
-     * @param metadata  containing the relevant statistics (usually the binned counts)
-     * @param info      persistent/cached data for the pool
-     * @param timestamp of update
+     * @param metadata containing the relevant statistics (usually the binned counts)
+     * @return the current values
      */
-    public static void updateFstatTimeSeries(HistogramMetadata metadata,
-          PoolInfoWrapper info,
-          long timestamp) {
+    public static Map<TimeseriesType, Double> getLifetimeValues(HistogramMetadata metadata) {
+        Map<TimeseriesType, Double> values = new EnumMap<>(TimeseriesType.class);
         long count = metadata.getCount();
-        Double min = metadata.getMinValue().orElse(null);
-        Double max = metadata.getMaxValue().orElse(null);
-        double stddev = metadata.standardDeviation();
-
         if (count != 0L) {
-            double avg = metadata.getSum() / count;
-            info.setFileLiftimeAvg(updateFileLifetimeSeries("AVG", avg,
-                  info.getFileLiftimeAvg(),
-                  timestamp));
+            values.put(TimeseriesType.FILE_LIFETIME_AVG, metadata.getSum() / count);
         }
-
-        info.setFileLiftimeMax(updateFileLifetimeSeries("MAX", max,
-              info.getFileLiftimeMax(),
-              timestamp));
-        info.setFileLiftimeMin(updateFileLifetimeSeries("MIN", min,
-              info.getFileLiftimeMin(),
-              timestamp));
-        info.setFileLiftimeStddev(updateFileLifetimeSeries("STD DEV", stddev,
-              info.getFileLiftimeStddev(),
-              timestamp));
+        values.put(TimeseriesType.FILE_LIFETIME_MAX, metadata.getMaxValue().orElse(Double.NaN));
+        values.put(TimeseriesType.FILE_LIFETIME_MIN, metadata.getMinValue().orElse(Double.NaN));
+        values.put(TimeseriesType.FILE_LIFETIME_STDDEV, nanToZero(metadata.standardDeviation()));
+        return values;
     }
 
     /**
      * <p>Aggregate version.</p>
      *
-     * @param poolInfo  containing the data for pools in the group.
-     * @param groupInfo the storage object to update
-     * @param timestamp of update
+     * @param poolInfo containing the data for pools in the group.
+     * @return the current values
      */
-    public static void updateQstatTimeSeries(List<PoolInfoWrapper> poolInfo,
-          PoolInfoWrapper groupInfo,
-          long timestamp) {
-        updateQstatTimeSeries(new QueueData(poolInfo), groupInfo, timestamp);
+    public static Map<TimeseriesType, Double> getQueueValues(List<PoolInfoWrapper> poolInfo) {
+        return getQueueValues(new QueueData(poolInfo));
     }
 
     /**
-     * <p>From the latest pool queue values, updates or creates the time series
-     * tracking each type. These are added to / updated on the persistent pool data object.</p>
+     * <p>Extracts the latest pool queue values, keyed by the time series
+     * tracking them.  Queues for which there is no data are omitted.</p>
      *
      * @param poolCostData containing the data for pool queues.
-     * @param info         the storage object to update
-     * @param timestamp    of update
+     * @return the current values
      */
-    public static void updateQstatTimeSeries(PoolCostData poolCostData,
-          PoolInfoWrapper info,
-          long timestamp) {
-        updateQstatTimeSeries(new QueueData(poolCostData), info, timestamp);
+    public static Map<TimeseriesType, Double> getQueueValues(PoolCostData poolCostData) {
+        return getQueueValues(new QueueData(poolCostData));
     }
 
-    /**
-     * <p>If the model does not exist, a new one is created.</p>
-     *
-     * <p>The model is then updated with the provided value.  The current
-     * value replaces rather than averages because we want to see when the queues drop to an
-     * effective zero.</p>
-     *
-     * @param series       active or queued movers, p2ps, p2pclients, stores or restores
-     * @param currentCount the number of requests running or waiting
-     * @param model        the current model, if it exists
-     * @param timestamp    of update
-     * @return the current or new model
-     */
-    public static TimeseriesHistogram updateQueueSeries(String series,
-          Double currentCount,
-          TimeseriesHistogram model,
-          long timestamp) {
-        if (model == null) {
-            model = newQueueTimeSeriesHistogram(series);
-        }
-
-        if (currentCount != null) {
-            model.replace(currentCount, timestamp);
-        }
-
-        return model;
+    private static Map<TimeseriesType, Double> getQueueValues(QueueData data) {
+        Map<TimeseriesType, Double> values = new EnumMap<>(TimeseriesType.class);
+        putIfNotNull(values, TimeseriesType.ACTIVE_MOVERS, data.activeMovers);
+        putIfNotNull(values, TimeseriesType.QUEUED_MOVERS, data.queuedMovers);
+        putIfNotNull(values, TimeseriesType.ACTIVE_P2P, data.activeP2P);
+        putIfNotNull(values, TimeseriesType.QUEUED_P2P, data.queuedP2P);
+        putIfNotNull(values, TimeseriesType.ACTIVE_P2P_CLIENT, data.activeP2PClient);
+        putIfNotNull(values, TimeseriesType.QUEUED_P2P_CLIENT, data.queuedP2PClient);
+        putIfNotNull(values, TimeseriesType.ACTIVE_FLUSH, data.activeFlush);
+        putIfNotNull(values, TimeseriesType.QUEUED_FLUSH, data.queuedFlush);
+        putIfNotNull(values, TimeseriesType.ACTIVE_STAGE, data.activeStage);
+        putIfNotNull(values, TimeseriesType.QUEUED_STAGE, data.queuedStage);
+        return values;
     }
 
-    private static void updateQstatTimeSeries(QueueData data,
-          PoolInfoWrapper info,
-          long timestamp) {
-        info.setActiveMovers(updateQueueSeries("Active Movers",
-              data.activeMovers,
-              info.getActiveMovers(),
-              timestamp));
-        info.setQueuedMovers(updateQueueSeries("Queued Movers",
-              data.queuedMovers,
-              info.getQueuedMovers(),
-              timestamp));
-        info.setActiveP2P(updateQueueSeries("Active P2P",
-              data.activeP2P,
-              info.getActiveP2P(),
-              timestamp));
-        info.setQueuedP2P(updateQueueSeries("Queued P2P",
-              data.queuedP2P,
-              info.getQueuedP2P(),
-              timestamp));
-        info.setActiveP2PClient(updateQueueSeries("Active P2P Client",
-              data.activeP2PClient,
-              info.getActiveP2PClient(),
-              timestamp));
-        info.setQueuedP2PClient(updateQueueSeries("Queued P2P Client",
-              data.queuedP2PClient,
-              info.getQueuedP2PClient(),
-              timestamp));
-        info.setActiveFlush(updateQueueSeries("Active Stores",
-              data.activeFlush,
-              info.getActiveFlush(),
-              timestamp));
-        info.setQueuedFlush(updateQueueSeries("Queued Stores",
-              data.queuedFlush,
-              info.getQueuedFlush(),
-              timestamp));
-        info.setActiveStage(updateQueueSeries("Active Restores",
-              data.activeStage,
-              info.getActiveStage(),
-              timestamp));
-        info.setQueuedStage(updateQueueSeries("Queued Restores",
-              data.queuedStage,
-              info.getQueuedStage(),
-              timestamp));
+    private static void putIfNotNull(Map<TimeseriesType, Double> values,
+          TimeseriesType type, Double value) {
+        if (value != null) {
+            values.put(type, value);
+        }
     }
 }
@@ -0,0 +1,88 @@
+package diskCacheV111.admin;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import org.junit.Test;
+
+public class ReplyReducerTest {
+
+    @Test
+    public void shouldCountLines() {
+        ReplyReducer reducer = ReplyReducer.parse("count");
+
+        reducer.add("a 1\nb 2\n");
+        reducer.add("c 3\n\n");
+
+        assertThat(reducer.toString(), equalTo("count = 3\n"));
+        assertThat(reducer.getReplies(), equalTo(2));
+    }
+
+    @Test
+    public void shouldSumColumn() {
+        ReplyReducer reducer = ReplyReducer.parse("sum:2");
+
+        reducer.add("a 9007199254740993\nb 2");
+        reducer.add("c 3.5");
+
+        assertThat(reducer.toString(), equalTo("sum:2 = 9007199254740998.5\n"));
+    }
+
+    @Test
+    public void shouldIgnoreLinesWithoutNumber() {
+        ReplyReducer reducer = ReplyReducer.parse("max:2");
+
+        reducer.add("header line\nx 4\ny\nz 7");
+
+        assertThat(reducer.toString(), equalTo("max:2 = 7\n"));
+    }
+
+    @Test
+    public void shouldReportMissingMinimum() {
+        ReplyReducer reducer = ReplyReducer.parse("min:1");
+
+        reducer.add("no numbers here");
+
+        assertThat(reducer.toString(), equalTo("min:1 = -\n"));
+    }
+
+    @Test
+    public void shouldGroupByColumn() {
+        ReplyReducer reducer = ReplyReducer.parse("sum:2/1");
+
+        reducer.add("precious 10\ncached 5");
+        reducer.add("cached 7\nprecious 1");
+
+        assertThat(reducer.toString(), equalTo("cached 12\nprecious 11\n"));
+    }
+
+    @Test
+    public void shouldCountByGroup() {
+        ReplyReducer reducer = ReplyReducer.parse("COUNT/2");
+
+        reducer.add("f1 tape\nf2 disk");
+        reducer.add("f3 tape");
+
+        assertThat(reducer.toString(), equalTo("disk 1\ntape 2\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownFunction() {
+        ReplyReducer.parse("avg:1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectSumWithoutColumn() {
+        ReplyReducer.parse("sum");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectZeroColumn() {
+        ReplyReducer.parse("sum:0");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMalformedGroup() {
+        ReplyReducer.parse("count/x");
+    }
+}
@@ -81,9 +81,11 @@ import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.function.IntFunction;
 import java.util.stream.Collectors;
@@ -91,6 +93,7 @@ import javax.security.auth.Subject;
 import org.dcache.auth.Subjects;
 import org.dcache.cells.CellStub;
 import org.dcache.mock.CacheExceptionBuilder;
+import org.dcache.mock.Concurrently;
 import org.dcache.mock.Deliverable;
 import org.dcache.mock.DeliveryRepeater;
 import org.dcache.mock.EndpointMessageReceiver;
@@ -2914,6 +2917,96 @@ public class RequestContainerV5Test {
         then(billing).shouldHaveNoInteractions();
     }
 
+    @Test
+    public void shouldReplyToAllRequestsDeliveredConcurrently() throws Exception {
+        given(aPartitionManager().withDefault(aPartition()));
+        given(aPoolSelectionUnit().withNetUnit("all-net", "192.168.1.1")
+              .withProtocolUnit("HTTP", "http/1"));
+        given(aPoolMonitor().thatReturns(aPoolSelectorThat()
+              .onReadSelects("pool1@dCacheDomain")));
+        given(aContainer("PoolManager@dCacheDomain").thatDoesNotSendHitMessages());
+
+        whenReceiving(concurrently(16), i -> aReadRequestFrom("door-" + i + "@dCacheDomain")
+              .forFile("80D1B8B90CED30430608C58002811B3285FC")
+              .withBillingPath("/public/test")
+              .withTransferPath("/uploads/50/test")
+              .withFileAttributes(
+                    fileAttributes().withSize(10, KiB).withStorageInfo(aStorageInfo()))
+              .withProtocolInfo(aProtocolInfo().withProtocol("http")
+                    .withMajorVersion(1).withIPAddress("192.168.1.1")));
+
+        var allReplies = allRepliesSentWith(endpoint);
+        assertThat(allReplies.size(), equalTo(16));
+        allReplies.forEach(r -> then(r).should().setSucceeded());
+    }
+
+    @Test
+    public void shouldNotExceedMaxRestoreWhenStagingConcurrently() throws Exception {
+        var stagePool = aPool("stage-pool@dCacheDomain");
+        given(aPartitionManager().withDefault(aPartition().withStageAllowed(true)));
+        given(aPoolSelectionUnit().withNetUnit("all-net", "192.168.1.1")
+              .withProtocolUnit("HTTP", "http/1"));
+        given(aPoolMonitor().thatReturns(aPoolSelectorThat()
+              .onReadThrows(aFileNotInCacheException())
+              .onStageSelects(stagePool)));
+        givenExecutorWithThreads(8);
+        given(aContainer("PoolManager@dCacheDomain")
+              .thatDoesNotSendHitMessages()
+              .withConfig("rc set max restore 1"));
+
+        whenReceiving(concurrently(8), i -> aReadRequestFrom("door-" + i + "@dCacheDomain")
+              .by(ROOT)
+              .forFile("80D1B8B90CED30430608C58002811B3285F" + i)
+              .withBillingPath("/public/test")
+              .withTransferPath("/uploads/50/test")
+              .withFileAttributes(fileAttributes().withSize(10, KiB)
+                    .withStorageInfo(aStorageInfo().withLocation("osm://RZ1/bfid1")))
+              .withProtocolInfo(aProtocolInfo().withProtocol("http")
+                    .withMajorVersion(1).withIPAddress("192.168.1.1")));
+
+        var envelopes = ArgumentCaptor.forClass(CellMessage.class);
+        verify(endpoint, Mockito.atLeastOnce()).sendMessage(envelopes.capture());
+        var stageRequests = envelopes.getAllValues().stream()
+              .map(CellMessage::getMessageObject)
+              .filter(PoolFetchFileMessage.class::isInstance)
+              .count();
+        assertThat(stageRequests, equalTo(1L));
+        var allReplies = allRepliesSentWith(endpoint);
+        assertThat(allReplies.size(), equalTo(7));
+        allReplies.forEach(r -> then(r).should().setFailed(eq(5), any()));
+    }
+
+    @Test
+    public void shouldProcessRequestRejectedByExecutorOnNextTick() throws Exception {
+        var rejectingExecutor = new RejectingExecutor();
+        given(aPartitionManager().withDefault(aPartition()));
+        given(aPoolSelectionUnit().withNetUnit("all-net", "192.168.1.1")
+              .withProtocolUnit("HTTP", "http/1"));
+        given(aPoolMonitor().thatReturns(aPoolSelectorThat()
+              .onReadSelects("pool1@dCacheDomain")));
+        given(aContainer("PoolManager@dCacheDomain")
+              .thatDoesNotSendHitMessages()
+              .withExecutor(rejectingExecutor));
+
+        whenReceiving(aReadRequest()
+              .forFile("80D1B8B90CED30430608C58002811B3285FC")
+              .withBillingPath("/public/test")
+              .withTransferPath("/uploads/50/test")
+              .withFileAttributes(
+                    fileAttributes().withSize(10, KiB).withStorageInfo(aStorageInfo()))
+              .withProtocolInfo(aProtocolInfo().withProtocol("http")
+                    .withMajorVersion(1).withIPAddress("192.168.1.1")));
+
+        then(endpoint).shouldHaveNoInteractions();
+
+        rejectingExecutor.isRejecting = false;
+        whenTicked();
+
+        var reply = replySentWith(endpoint);
+        then(reply).should().setSucceeded();
+        assertThat(poolSetInMessage(reply).getName(), equalTo("pool1"));
+    }
+
     @Test
     public void shouldReturnEmptyInfoListWhenIdle() throws Exception {
         var stagePool = aPool("stage-pool@dCacheDomain");
@@ -3339,6 +3432,25 @@ public class RequestContainerV5Test {
         waitUntilQuiescent();
     }
 
+    private void whenReceiving(DeliveryRepeater repeater,
+          IntFunction<Deliverable> messageBuilder) throws InterruptedException {
+        repeater.repeatDeliveryTo(messageBuilder, container);
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            fail("Container took too long to go quiet");
+        }
+    }
+
+    private void whenTicked() throws InterruptedException {
+        container.tick(System.currentTimeMillis());
+        waitUntilQuiescent();
+    }
+
+    private void givenExecutorWithThreads(int threads) {
+        executor.shutdownNow();
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
     private String doAdminCommand(String command) throws CommandException {
         CommandInterpreter interpreter = new CommandInterpreter(container);
         Serializable response = interpreter.command(new Args(command));
@@ -3430,6 +3542,10 @@ public class RequestContainerV5Test {
         return new FixedTimes<RequestContainerV5>(count);
     }
 
+    private Concurrently concurrently(int count) {
+        return new Concurrently<RequestContainerV5>(count);
+    }
+
     private EndpointMessageReceiver aCell(String address) {
         return new ContainerEndpointMessageReceiver(address);
     }
@@ -3513,6 +3629,7 @@ public class RequestContainerV5Test {
 
         private boolean hitMessages;
         private List<String> commands = Collections.emptyList();
+        private Executor containerExecutor = executor;
 
         public ContainerBuilder(String address) {
             this.address = new CellAddressCore(address);
@@ -3533,6 +3650,11 @@ public class RequestContainerV5Test {
             return this;
         }
 
+        public ContainerBuilder withExecutor(Executor executor) {
+            containerExecutor = executor;
+            return this;
+        }
+
         public RequestContainerV5 build() {
             RequestContainerV5 container = new FriendlyRequestContainerV5();
 
@@ -3547,7 +3669,7 @@ public class RequestContainerV5Test {
             container.setPoolMonitor(requireNonNull(poolMonitor));
             container.setPartitionManager(requireNonNull(partitionManager));
             container.setHitInfoMessages(hitMessages);
-            container.setExecutor(executor);
+            container.setExecutor(containerExecutor);
 
             CommandInterpreter interpreter = new CommandInterpreter(container);
 
@@ -3870,6 +3992,23 @@ public class RequestContainerV5Test {
         ExecutorUtils.waitUntilQuiescent(executor);
     }
 
+    /**
+     * Runs tasks on the test's executor, unless told to reject them like a saturated
+     * RequestContainerExecutor.
+     */
+    private class RejectingExecutor implements Executor {
+
+        private volatile boolean isRejecting = true;
+
+        @Override
+        public void execute(Runnable task) {
+            if (isRejecting) {
+                throw new RejectedExecutionException("queue full");
+            }
+            executor.execute(task);
+        }
+    }
+
     /**
      * A subclass of RequestContainerV5 that allows the testing code to obtain information it
      * injected.  This class is ONLY here as a work-around for a setter/getter asymmetry, where the
@@ -0,0 +1,200 @@
+package diskCacheV111.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import diskCacheV111.vehicles.Message;
+import diskCacheV111.vehicles.PnfsUpdateCacheLocationsMessage;
+import diskCacheV111.vehicles.PnfsUpdateCacheLocationsMessage.Update;
+import dmg.cells.nucleus.CellEndpoint;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.dcache.cells.CellStub;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CacheLocationBatcherTest {
+
+    private static final PnfsId ID1 = new PnfsId("000000000000000000000000000000000001");
+    private static final PnfsId ID2 = new PnfsId("000000000000000000000000000000000002");
+    private static final PnfsId ID3 = new PnfsId("000000000000000000000000000000000003");
+
+    private final BlockingQueue<Sent> sent = new LinkedBlockingQueue<>();
+    private ScheduledExecutorService executor;
+    private CacheLocationBatcher batcher;
+
+    private static class Sent {
+
+        final PnfsUpdateCacheLocationsMessage message;
+        final SettableFuture<PnfsUpdateCacheLocationsMessage> reply = SettableFuture.create();
+
+        Sent(PnfsUpdateCacheLocationsMessage message) {
+            this.message = message;
+        }
+
+        void succeed() {
+            reply.set(message);
+        }
+
+        List<String> updates() {
+            return message.getUpdates().stream().map(Update::toString)
+                  .collect(Collectors.toList());
+        }
+    }
+
+    @Before
+    public void setUp() {
+        CellStub stub = new CellStub() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T extends Message> ListenableFuture<T> send(T message,
+                  CellEndpoint.SendFlag... flags) {
+                Sent s = new Sent((PnfsUpdateCacheLocationsMessage) message);
+                sent.add(s);
+                return (ListenableFuture<T>) s.reply;
+            }
+        };
+        executor = Executors.newSingleThreadScheduledExecutor();
+        batcher = new CacheLocationBatcher(stub, "pool");
+        batcher.setExecutor(executor);
+        batcher.setWindow(TimeUnit.HOURS.toMillis(1));
+        batcher.setMaxBatchSize(3);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private Sent nextBatch() throws InterruptedException {
+        Sent s = sent.poll(10, TimeUnit.SECONDS);
+        assertThat("no batch sent", s != null, equalTo(true));
+        return s;
+    }
+
+    @Test
+    public void shouldSendFullBatchInOrder() throws Exception {
+        batcher.clear(ID1, false);
+        batcher.add(ID2, false);
+        batcher.clear(ID2, true);
+
+        Sent batch = nextBatch();
+
+        assertThat(batch.message.getPoolName(), equalTo("pool"));
+        assertThat(batch.updates(), contains(ID1 + ";removing", ID2 + ";adding",
+              ID2 + ";removing;removeIfLast"));
+    }
+
+    @Test
+    public void shouldHoldUpdatesUntilWindowCloses() throws Exception {
+        batcher.clear(ID1, false);
+
+        assertThat(sent.poll(100, TimeUnit.MILLISECONDS), nullValue());
+    }
+
+    @Test
+    public void shouldSendUrgentUpdateImmediately() throws Exception {
+        batcher.clear(ID1, false);
+        ListenableFuture<Void> future = batcher.add(ID2, true);
+
+        Sent batch = nextBatch();
+        assertThat(batch.updates(), contains(ID1 + ";removing", ID2 + ";adding"));
+        assertThat(future.isDone(), equalTo(false));
+
+        batch.succeed();
+        assertThat(future.get(), nullValue());
+    }
+
+    @Test
+    public void shouldReportFailedUpdate() throws Exception {
+        ListenableFuture<Void> failed = batcher.add(ID1, true);
+        ListenableFuture<Void> succeeded = batcher.add(ID2, true);
+
+        Sent batch = nextBatch();
+        batch.message.getUpdates().get(0).setFailed(CacheException.FILE_NOT_FOUND, "gone");
+        batch.succeed();
+
+        assertThat(succeeded.get(), nullValue());
+        try {
+            failed.get();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(FileNotFoundCacheException.class));
+            return;
+        }
+        throw new AssertionError("update did not fail");
+    }
+
+    @Test
+    public void shouldFailAllUpdatesWhenBatchFails() throws Exception {
+        ListenableFuture<Void> first = batcher.clear(ID1, false);
+        ListenableFuture<Void> second = batcher.add(ID2, true);
+
+        nextBatch().reply.setException(new TimeoutCacheException("timeout"));
+
+        for (ListenableFuture<Void> future : List.of(first, second)) {
+            try {
+                future.get();
+                throw new AssertionError("update did not fail");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(TimeoutCacheException.class));
+            }
+        }
+    }
+
+    @Test
+    public void shouldSendPendingUpdatesOfFileWhenFlushed() throws Exception {
+        batcher.clear(ID1, false);
+        batcher.clear(ID2, false);
+
+        ListenableFuture<Void> future = batcher.flush(ID1);
+
+        Sent batch = nextBatch();
+        assertThat(batch.updates(), contains(ID1 + ";removing", ID2 + ";removing"));
+        assertThat(future.isDone(), equalTo(false));
+
+        batch.succeed();
+        assertThat(future.get(), nullValue());
+    }
+
+    @Test
+    public void shouldWaitForBatchInFlightWhenFlushed() throws Exception {
+        batcher.add(ID1, true);
+        Sent batch = nextBatch();
+
+        ListenableFuture<Void> future = batcher.flush(ID1);
+        assertThat(batcher.flush(ID2).isDone(), equalTo(true));
+        assertThat(future.isDone(), equalTo(false));
+
+        batch.succeed();
+        assertThat(future.get(), nullValue());
+    }
+
+    @Test
+    public void shouldSendOneBatchAtATime() throws Exception {
+        batcher.add(ID1, true);
+        Sent first = nextBatch();
+
+        ListenableFuture<Void> future = batcher.add(ID2, true);
+        batcher.clear(ID3, false);
+        assertThat(sent.poll(100, TimeUnit.MILLISECONDS), nullValue());
+
+        first.succeed();
+
+        Sent second = nextBatch();
+        assertThat(second.updates(), contains(ID2 + ";adding", ID3 + ";removing"));
+        second.succeed();
+        assertThat(future.get(), nullValue());
+    }
+}
@@ -0,0 +1,159 @@
+package org.dcache.boot;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class ServiceStartupTest {
+
+    private final List<String> started = new CopyOnWriteArrayList<>();
+
+    private ServiceStartup.Task record(String name) {
+        return () -> started.add(name);
+    }
+
+    @Test
+    public void shouldStartInOrderWithSingleThread() throws Exception {
+        ServiceStartup startup = new ServiceStartup(1);
+        startup.add("a", false, List.of(), record("a"));
+        startup.add("b", false, List.of(), record("b"));
+        startup.add("c", false, List.of(), record("c"));
+
+        startup.start();
+
+        assertThat(started, contains("a", "b", "c"));
+        assertThat(startup.getStartupTimes().keySet(), contains("a", "b", "c"));
+    }
+
+    @Test
+    public void shouldStartUnconstrainedServicesConcurrently() throws Exception {
+        CountDownLatch latch = new CountDownLatch(2);
+        ServiceStartup.Task task = () -> {
+            latch.countDown();
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IOException("services did not start concurrently");
+            }
+        };
+        ServiceStartup startup = new ServiceStartup(2);
+        startup.add("a", false, List.of(), task);
+        startup.add("b", false, List.of(), task);
+
+        startup.start();
+
+        assertThat(startup.getStartupTimes().keySet(), contains("a", "b"));
+    }
+
+    @Test
+    public void shouldStartAfterNamedService() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ServiceStartup startup = new ServiceStartup(4);
+        startup.add("a", false, List.of(), () -> {
+            release.await(10, TimeUnit.SECONDS);
+            started.add("a");
+        });
+        startup.add("b", false, List.of("a"), record("b"));
+        startup.add("c", false, List.of(), () -> {
+            started.add("c");
+            release.countDown();
+        });
+
+        startup.start();
+
+        assertThat(started, contains("c", "a", "b"));
+    }
+
+    @Test
+    public void shouldStartAfterAllPreviousServicesForStar() throws Exception {
+        ServiceStartup startup = new ServiceStartup(4);
+        startup.add("a", false, List.of(), slow("a"));
+        startup.add("b", false, List.of(), slow("b"));
+        startup.add("c", false, List.of("*"), record("c"));
+
+        startup.start();
+
+        assertThat(started.subList(0, 2), containsInAnyOrder("a", "b"));
+        assertThat(started.get(2), equalTo("c"));
+    }
+
+    @Test
+    public void shouldStartSequentialServiceOnItsOwn() throws Exception {
+        ServiceStartup startup = new ServiceStartup(4);
+        startup.add("a", false, List.of(), slow("a"));
+        startup.add("zookeeper", true, List.of(), slow("zookeeper"));
+        startup.add("b", false, List.of(), record("b"));
+
+        startup.start();
+
+        assertThat(started, contains("a", "zookeeper", "b"));
+    }
+
+    @Test
+    public void shouldPropagateFailureAndSkipRemainingServices() throws Exception {
+        ServiceStartup startup = new ServiceStartup(1);
+        startup.add("a", false, List.of(), () -> {
+            throw new IOException("boom");
+        });
+        startup.add("b", false, List.of(), record("b"));
+
+        try {
+            startup.start();
+            throw new AssertionError("startup did not fail");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), equalTo("boom"));
+        }
+        assertThat(started.isEmpty(), equalTo(true));
+        assertThat(startup.getStartupTimes().isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void shouldReportFailureRatherThanCancellation() throws Exception {
+        ServiceStartup startup = new ServiceStartup(2);
+        startup.add("a", false, List.of(), slow("a"));
+        startup.add("b", false, List.of("a"), record("b"));
+        startup.add("c", false, List.of(), () -> {
+            throw new IllegalStateException("boom");
+        });
+
+        try {
+            startup.start();
+            throw new AssertionError("startup did not fail");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), equalTo("boom"));
+        }
+        assertThat(started, contains("a"));
+        assertThat(startup.getStartupTimes().keySet(), equalTo(Set.of("a")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownStartAfter() {
+        ServiceStartup startup = new ServiceStartup(1);
+        startup.add("a", false, List.of("b"), record("a"));
+    }
+
+    @Test
+    public void shouldMeasureStartupTime() throws Exception {
+        ServiceStartup startup = new ServiceStartup(1);
+        startup.add("a", false, List.of(), () -> Thread.sleep(50));
+
+        startup.start();
+
+        assertThat(startup.getStartupTimes().get("a"), greaterThanOrEqualTo(50L));
+    }
+
+    private ServiceStartup.Task slow(String name) {
+        return () -> {
+            Thread.sleep(100);
+            started.add(name);
+        };
+    }
+}
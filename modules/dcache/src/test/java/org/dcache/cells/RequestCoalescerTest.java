@@ -0,0 +1,143 @@
+package org.dcache.cells;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import dmg.cells.nucleus.CellEndpoint;
+import dmg.cells.nucleus.CellMessage;
+import dmg.cells.nucleus.CellMessageAnswerable;
+import dmg.cells.nucleus.CellPath;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class RequestCoalescerTest {
+
+    private CellEndpoint endpoint;
+    private CellStub stub;
+    private RequestCoalescer coalescer;
+
+    @Before
+    public void setup() {
+        endpoint = mock(CellEndpoint.class);
+        stub = new CellStub(endpoint, new CellPath("destination"));
+        coalescer = new RequestCoalescer();
+        coalescer.register(String.class, s -> s.startsWith("!") ? null : s);
+        stub.setRequestCoalescer(coalescer);
+    }
+
+    @Test
+    public void shouldSendIdenticalConcurrentRequestsOnce() throws Exception {
+        ListenableFuture<String> first = stub.send("request", String.class);
+        ListenableFuture<String> second = stub.send("request", String.class);
+
+        List<CellMessageAnswerable> callbacks = verifySent(1);
+        reply(callbacks.get(0), "reply");
+
+        assertThat(first.get(), is("reply"));
+        assertThat(second.get(), is("reply"));
+    }
+
+    @Test
+    public void shouldSendRequestAgainOnceReplied() throws Exception {
+        ListenableFuture<String> first = stub.send("request", String.class);
+        reply(verifySent(1).get(0), "first");
+
+        ListenableFuture<String> second = stub.send("request", String.class);
+        reply(verifySent(2).get(1), "second");
+
+        assertThat(first.get(), is("first"));
+        assertThat(second.get(), is("second"));
+    }
+
+    @Test
+    public void shouldSendRequestsWithDifferentKeys() {
+        stub.send("a", String.class);
+        stub.send("b", String.class);
+
+        verifySent(2);
+    }
+
+    @Test
+    public void shouldSendRequestsWithoutKey() {
+        stub.send("!a", String.class);
+        stub.send("!a", String.class);
+
+        verifySent(2);
+    }
+
+    @Test
+    public void shouldSendUnregisteredTypes() {
+        stub.send(1, Integer.class);
+        stub.send(1, Integer.class);
+
+        verifySent(2);
+    }
+
+    @Test
+    public void shouldSendToDifferentDestinations() {
+        stub.send("request", String.class);
+        stub.withDestination(new CellPath("other")).send("request", String.class);
+
+        verifySent(2);
+    }
+
+    @Test
+    public void shouldSendRequestsWithDifferentTimeouts() {
+        stub.send("request", String.class, 1000);
+        stub.send("request", String.class, 2000);
+
+        verifySent(2);
+    }
+
+    @Test
+    public void shouldNotCancelSharedRequest() throws Exception {
+        ListenableFuture<String> first = stub.send("request", String.class);
+        ListenableFuture<String> second = stub.send("request", String.class);
+
+        second.cancel(true);
+        reply(verifySent(1).get(0), "reply");
+
+        assertThat(first.get(), is("reply"));
+    }
+
+    @Test
+    public void shouldReportCoalescedRequests() {
+        stub.send("request", String.class);
+        stub.send("request", String.class);
+
+        StringWriter info = new StringWriter();
+        coalescer.getInfo(new PrintWriter(info));
+
+        assertThat(info.toString(), containsString("Requests in flight: 1"));
+        assertThat(info.toString(), containsString("(50.0%)"));
+    }
+
+    private List<CellMessageAnswerable> verifySent(int count) {
+        ArgumentCaptor<CellMessage> envelope = ArgumentCaptor.forClass(CellMessage.class);
+        ArgumentCaptor<CellMessageAnswerable> callback =
+              ArgumentCaptor.forClass(CellMessageAnswerable.class);
+        ArgumentCaptor<Executor> executor = ArgumentCaptor.forClass(Executor.class);
+        ArgumentCaptor<Long> timeout = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<CellEndpoint.SendFlag> flags =
+              ArgumentCaptor.forClass(CellEndpoint.SendFlag.class);
+        verify(endpoint, times(count)).sendMessage(envelope.capture(), callback.capture(),
+              executor.capture(), timeout.capture(), flags.capture());
+        return callback.getAllValues();
+    }
+
+    private static void reply(CellMessageAnswerable callback, String reply) {
+        CellMessage request = new CellMessage(new CellPath("destination"), "request");
+        CellMessage answer = new CellMessage(new CellPath("source"), reply);
+        callback.answerArrived(request, answer);
+    }
+}
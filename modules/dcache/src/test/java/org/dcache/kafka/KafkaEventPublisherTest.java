@@ -0,0 +1,125 @@
+package org.dcache.kafka;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+
+public class KafkaEventPublisherTest {
+
+    /**
+     * Stand-in for a broker.  The template closes the producer after every send, which the
+     * stand-in ignores.
+     */
+    private static class Broker extends MockProducer<String, String> {
+
+        Broker(boolean autoComplete) {
+            super(autoComplete, new StringSerializer(), new StringSerializer());
+        }
+
+        @Override
+        public void close(Duration timeout) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private Broker broker;
+    private KafkaEventPublisher<String> publisher;
+
+    private void givenPublisher(boolean autoComplete, int capacity) {
+        broker = new Broker(autoComplete);
+        KafkaTemplate<String, String> template = new KafkaTemplate<>(() -> broker);
+        template.setDefaultTopic("billing");
+        publisher = new KafkaEventPublisher<>(template);
+        publisher.setCapacity(capacity);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (publisher != null) {
+            publisher.stop();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat("timed out", System.nanoTime() < deadline, equalTo(true));
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void shouldPublishEventsInOrder() throws Exception {
+        givenPublisher(true, 10);
+        publisher.start();
+
+        publisher.accept("a");
+        publisher.accept("b");
+        publisher.accept("c");
+
+        await(() -> publisher.getPublished() == 3);
+        assertThat(broker.history().stream().map(ProducerRecord::value)
+              .collect(Collectors.toList()), contains("a", "b", "c"));
+        assertThat(broker.history().get(0).topic(), equalTo("billing"));
+        assertThat(publisher.getQueued(), equalTo(0));
+    }
+
+    @Test
+    public void shouldDropEventsWhenFull() throws Exception {
+        givenPublisher(true, 2);
+
+        for (int i = 0; i < 5; i++) {
+            publisher.accept("event" + i);
+        }
+
+        assertThat(publisher.getQueued(), equalTo(2));
+        assertThat(publisher.getDropped(), equalTo(3L));
+
+        publisher.start();
+
+        await(() -> publisher.getPublished() == 2);
+        assertThat(broker.history().stream().map(ProducerRecord::value)
+              .collect(Collectors.toList()), contains("event0", "event1"));
+    }
+
+    @Test
+    public void shouldPublishQueuedEventsOnStop() throws Exception {
+        givenPublisher(true, 10);
+        publisher.accept("a");
+        publisher.start();
+        publisher.accept("b");
+
+        publisher.stop();
+
+        assertThat(broker.history().size(), equalTo(2));
+    }
+
+    @Test
+    public void shouldCountFailedEvents() throws Exception {
+        givenPublisher(false, 10);
+        publisher.start();
+
+        publisher.accept("a");
+        publisher.accept("b");
+
+        await(() -> broker.history().size() == 2);
+        broker.errorNext(new RuntimeException("broker unavailable"));
+        broker.completeNext();
+
+        await(() -> publisher.getFailed() == 1 && publisher.getPublished() == 1);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.mock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import dmg.cells.nucleus.CellMessageReceiver;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntFunction;
+
+/**
+ * Deliver a message a fixed number of times, each from its own thread.  The threads are started
+ * together and the delivery returns once all of them have delivered their message.  An index
+ * (1-indexed) is passed to the message builder function to allow it to build distinct messages.
+ */
+public class Concurrently<R extends CellMessageReceiver> implements DeliveryRepeater<R> {
+
+    private final int count;
+
+    public Concurrently(int count) {
+        checkArgument(count > 0);
+        this.count = count;
+    }
+
+    @Override
+    public void repeatDeliveryTo(IntFunction<Deliverable<R>> messageBuilder, R container) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            var message = messageBuilder.apply(i);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    message.deliverTo(container);
+                } catch (IOException | InterruptedException | RuntimeException e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        if (!failures.isEmpty()) {
+            throw new RuntimeException(failures.get(0));
+        }
+    }
+}
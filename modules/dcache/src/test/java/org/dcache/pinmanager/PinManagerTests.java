@@ -2,6 +2,7 @@ package org.dcache.pinmanager;
 
 import static java.util.Arrays.asList;
 import static java.util.stream.Collectors.toList;
+import static org.dcache.pinmanager.model.Pin.State.FAILED_TO_UNPIN;
 import static org.dcache.pinmanager.model.Pin.State.PINNED;
 import static org.dcache.pinmanager.model.Pin.State.READY_TO_UNPIN;
 import static org.junit.Assert.assertEquals;
@@ -27,6 +28,7 @@ import diskCacheV111.vehicles.Message;
 import diskCacheV111.vehicles.PoolIoFileMessage;
 import diskCacheV111.vehicles.PoolManagerMessage;
 import diskCacheV111.vehicles.PoolMgrSelectReadPoolMsg;
+import diskCacheV111.vehicles.PoolSetStickyBatchMessage;
 import diskCacheV111.vehicles.PoolSetStickyMessage;
 import diskCacheV111.vehicles.ProtocolInfo;
 import diskCacheV111.vehicles.StorageInfo;
@@ -290,6 +292,130 @@ public class PinManagerTests {
         assertEquals(pin.getSticky(), newPin.getSticky());
     }
 
+    @Test
+    public void testUnpinProcessorClearsStickyFlagsInOneMessagePerPool() throws Exception {
+        TestDao dao = new TestDao();
+        PnfsId missing = new PnfsId("0000D4CF1C3302B44095969C8216CE1E9176");
+        PnfsId failing = new PnfsId("0000D4CF1C3302B44095969C8216CE1E9177");
+        for (PnfsId pnfsId : asList(PNFS_ID1, missing, failing)) {
+            dao.create(dao.set()
+                  .subject(Subjects.ROOT)
+                  .pnfsId(pnfsId)
+                  .pool(POOL1.getName())
+                  .sticky(STICKY1)
+                  .state(READY_TO_UNPIN));
+        }
+
+        Pool pool = new Pool(POOL1.getName());
+        pool.setActive(true);
+        pool.setAddress(POOL1.getAddress());
+        PoolMonitor poolMonitor = mock(PoolMonitor.class, RETURNS_DEEP_STUBS);
+        when(poolMonitor.getPoolSelectionUnit().getPool(POOL1.getName())).thenReturn(pool);
+
+        List<PoolSetStickyBatchMessage> messages = new ArrayList<>();
+        CellStub poolStub = new TestStub(new CellAddressCore("PinManager")) {
+            public PoolSetStickyBatchMessage messageArrived(PoolSetStickyBatchMessage msg) {
+                messages.add(msg);
+                for (PoolSetStickyBatchMessage.Entry entry : msg.getEntries()) {
+                    if (entry.getPnfsId().equals(missing)) {
+                        entry.setFailed(CacheException.FILE_NOT_IN_REPOSITORY, "missing");
+                    } else if (entry.getPnfsId().equals(failing)) {
+                        entry.setFailed(CacheException.ERROR_IO_DISK, "failing");
+                    }
+                }
+                return msg;
+            }
+        };
+
+        UnpinProcessor processor = new UnpinProcessor(dao, poolStub, poolMonitor, -1);
+        processor.setBatching(true);
+        processor.run();
+
+        assertEquals(1, messages.size());
+        assertFalse(messages.get(0).isSticky());
+        assertEquals(3, messages.get(0).getEntries().size());
+        assertEquals(0, dao.count(dao.where().pnfsId(PNFS_ID1)));
+        assertEquals(0, dao.count(dao.where().pnfsId(missing)));
+        assertEquals(FAILED_TO_UNPIN, dao.get(dao.where().pnfsId(failing)).get(0).getState());
+    }
+
+    @Test
+    public void testUnpinProcessorClearsStickyFlagsOneByOneByDefault() throws Exception {
+        TestDao dao = new TestDao();
+        PnfsId pnfsId2 = new PnfsId("0000D4CF1C3302B44095969C8216CE1E9176");
+        createReadyToUnpin(dao, PNFS_ID1, pnfsId2);
+
+        List<PoolSetStickyMessage> messages = new ArrayList<>();
+        CellStub poolStub = new TestStub(new CellAddressCore("PinManager")) {
+            public PoolSetStickyMessage messageArrived(PoolSetStickyMessage msg) {
+                messages.add(msg);
+                return msg;
+            }
+        };
+
+        new UnpinProcessor(dao, poolStub, activePoolMonitor(), -1).run();
+
+        assertEquals(2, messages.size());
+        assertEquals(0, dao.count(dao.where().state(READY_TO_UNPIN)));
+    }
+
+    @Test
+    public void testUnpinProcessorFallsBackWhenPoolRejectsBatch() throws Exception {
+        TestDao dao = new TestDao();
+        PnfsId pnfsId2 = new PnfsId("0000D4CF1C3302B44095969C8216CE1E9176");
+        createReadyToUnpin(dao, PNFS_ID1);
+
+        List<Message> messages = new ArrayList<>();
+        CellStub poolStub = new TestStub(new CellAddressCore("PinManager")) {
+            public PoolSetStickyBatchMessage messageArrived(PoolSetStickyBatchMessage msg)
+                  throws CacheException {
+                messages.add(msg);
+                throw new CacheException("Unsupported message");
+            }
+
+            public PoolSetStickyMessage messageArrived(PoolSetStickyMessage msg) {
+                messages.add(msg);
+                return msg;
+            }
+        };
+
+        UnpinProcessor processor = new UnpinProcessor(dao, poolStub, activePoolMonitor(), -1);
+        processor.setBatching(true);
+        processor.run();
+
+        assertEquals(2, messages.size());
+        assertTrue(messages.get(0) instanceof PoolSetStickyBatchMessage);
+        assertTrue(messages.get(1) instanceof PoolSetStickyMessage);
+        assertEquals(0, dao.count(dao.where().pnfsId(PNFS_ID1)));
+
+        createReadyToUnpin(dao, pnfsId2);
+        processor.run();
+
+        assertEquals(3, messages.size());
+        assertTrue(messages.get(2) instanceof PoolSetStickyMessage);
+        assertEquals(0, dao.count(dao.where().pnfsId(pnfsId2)));
+    }
+
+    private static void createReadyToUnpin(TestDao dao, PnfsId... pnfsIds) {
+        for (PnfsId pnfsId : pnfsIds) {
+            dao.create(dao.set()
+                  .subject(Subjects.ROOT)
+                  .pnfsId(pnfsId)
+                  .pool(POOL1.getName())
+                  .sticky(STICKY1)
+                  .state(READY_TO_UNPIN));
+        }
+    }
+
+    private static PoolMonitor activePoolMonitor() {
+        Pool pool = new Pool(POOL1.getName());
+        pool.setActive(true);
+        pool.setAddress(POOL1.getAddress());
+        PoolMonitor poolMonitor = mock(PoolMonitor.class, RETURNS_DEEP_STUBS);
+        when(poolMonitor.getPoolSelectionUnit().getPool(POOL1.getName())).thenReturn(pool);
+        return poolMonitor;
+    }
+
     <T extends Comparable<T>> void assertBetween(T lower, T upper, T actual) {
         String message =
               String.format("Expected between <%s> and <%s> but was <%s>",
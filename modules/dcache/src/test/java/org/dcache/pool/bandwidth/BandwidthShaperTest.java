@@ -0,0 +1,250 @@
+package org.dcache.pool.bandwidth;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import javax.security.auth.Subject;
+import org.dcache.pool.bandwidth.BandwidthShaper.Level;
+import org.dcache.pool.bandwidth.BandwidthShaper.Limits;
+import org.dcache.pool.repository.ModifiableReplicaDescriptor;
+import org.dcache.pool.repository.ReplicaDescriptor;
+import org.dcache.pool.repository.RepositoryChannel;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BandwidthShaperTest {
+
+    private static final long MB = 1_000_000;
+
+    private long now;
+    private BandwidthShaper shaper;
+
+    @Before
+    public void setUp() {
+        shaper = new BandwidthShaper(() -> now);
+    }
+
+    private void advance(long millis) {
+        now += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private TokenBucket open(String queue, String vo, String user) {
+        RepositoryChannel inner = mock(RepositoryChannel.class);
+        BandwidthShapingChannel channel =
+              (BandwidthShapingChannel) shaper.decorate(inner, queue, vo, user);
+        return channel.getBucket();
+    }
+
+    @Test
+    public void shouldNotDecorateWhenUnlimited() {
+        ReplicaDescriptor handle = mock(ReplicaDescriptor.class);
+
+        assertThat(shaper.decorate(handle, "regular", new Subject()), sameInstance(handle));
+    }
+
+    @Test
+    public void shouldPreserveModifiableDescriptor() {
+        shaper.setLimits(Level.POOL, null, new Limits(10 * MB, 1, MB));
+        ReplicaDescriptor handle = mock(ModifiableReplicaDescriptor.class);
+
+        ReplicaDescriptor decorated = shaper.decorate(handle, "regular", new Subject());
+
+        assertThat(decorated, not(sameInstance(handle)));
+        assertThat(decorated, instanceOf(ModifiableReplicaDescriptor.class));
+    }
+
+    @Test
+    public void shouldNotThrottleWhenUnlimited() {
+        TokenBucket bucket = open("regular", "atlas", "alice");
+
+        assertThat(shaper.tryAcquire(bucket, 100 * MB), equalTo(0L));
+        assertThat(shaper.tryAcquire(bucket, 100 * MB), equalTo(0L));
+    }
+
+    @Test
+    public void shouldThrottleAtPoolLimit() {
+        shaper.setLimits(Level.POOL, null, new Limits(MB, 1, MB));
+        TokenBucket bucket = open("regular", "atlas", "alice");
+
+        assertThat(shaper.tryAcquire(bucket, MB), equalTo(0L));
+        long wait = shaper.tryAcquire(bucket, MB);
+
+        assertThat((double) wait, closeTo(TimeUnit.MICROSECONDS.toNanos(1), 1));
+
+        advance(500);
+        assertThat(shaper.tryAcquire(bucket, MB), equalTo(0L));
+        assertThat(shaper.tryAcquire(bucket, MB), greaterThan(0L));
+    }
+
+    @Test
+    public void shouldShareByWeight() {
+        shaper.setLimits(Level.POOL, null, new Limits(4 * MB, 1, MB));
+        shaper.setLimits(Level.QUEUE, "wan", new Limits(0, 3, MB));
+        TokenBucket wan = open("wan", "atlas", "alice");
+        TokenBucket regular = open("regular", "cms", "bob");
+
+        assertThat(wan.getParent().getParent().rate(), closeTo(3 * MB, 1));
+        assertThat(regular.getParent().getParent().rate(), closeTo(MB, 1));
+    }
+
+    @Test
+    public void shouldGiveIdleBandwidthToActiveMembers() {
+        shaper.setLimits(Level.POOL, null, new Limits(4 * MB, 1, MB));
+        shaper.setLimits(Level.QUEUE, "wan", new Limits(0, 3, MB));
+        TokenBucket regular = open("regular", "cms", "bob");
+
+        assertThat(regular.rate(), closeTo(4 * MB, 1));
+    }
+
+    @Test
+    public void shouldNotExceedCeiling() {
+        shaper.setLimits(Level.POOL, null, new Limits(4 * MB, 1, MB));
+        shaper.setLimits(Level.USER, "alice", new Limits(2 * MB, 1, MB));
+        TokenBucket alice = open("regular", "atlas", "alice");
+        open("regular", "atlas", "bob");
+
+        assertThat(alice.rate(), closeTo(2 * MB, 1));
+        assertThat(alice.ceil(), closeTo(2 * MB, 1));
+
+        assertThat(shaper.tryAcquire(alice, MB), equalTo(0L));
+        advance(500);
+        assertThat(shaper.tryAcquire(alice, MB), equalTo(0L));
+        assertThat(shaper.tryAcquire(alice, MB), greaterThan(0L));
+    }
+
+    @Test
+    public void shouldBorrowIdleBandwidth() {
+        shaper.setLimits(Level.POOL, null, new Limits(4 * MB, 1, MB));
+        TokenBucket alice = open("regular", "atlas", "alice");
+        open("regular", "atlas", "bob");
+
+        assertThat(alice.rate(), closeTo(2 * MB, 1));
+
+        assertThat(shaper.tryAcquire(alice, MB), equalTo(0L));
+        advance(250);
+        assertThat(shaper.tryAcquire(alice, MB), equalTo(0L));
+        advance(125);
+        assertThat(shaper.tryAcquire(alice, MB), equalTo(0L));
+    }
+
+    private BandwidthShapingChannel openChannel(String queue, String vo, String user)
+          throws IOException {
+        RepositoryChannel inner = mock(RepositoryChannel.class);
+        when(inner.read(any(ByteBuffer.class))).thenAnswer(i -> {
+            ByteBuffer buffer = i.getArgument(0);
+            int n = buffer.remaining();
+            buffer.position(buffer.limit());
+            return n;
+        });
+        return (BandwidthShapingChannel) shaper.decorate(inner, queue, vo, user);
+    }
+
+    private static TokenBucket poolOf(BandwidthShapingChannel channel) {
+        return channel.getBucket().getParent().getParent().getParent();
+    }
+
+    @Test
+    public void shouldRefundBytesNotRead() throws IOException {
+        shaper.setLimits(Level.POOL, null, new Limits(MB, 1, MB));
+        RepositoryChannel inner = mock(RepositoryChannel.class);
+        when(inner.read(any(ByteBuffer.class))).thenReturn(-1);
+        BandwidthShapingChannel channel =
+              (BandwidthShapingChannel) shaper.decorate(inner, "regular", "atlas", "alice");
+        channel.setNonBlocking(true);
+
+        channel.read(ByteBuffer.allocate((int) MB));
+
+        assertThat(channel.getDelay(), equalTo(0L));
+        assertThat(poolOf(channel).getBytes(), equalTo(0L));
+    }
+
+    @Test
+    public void shouldServeSmallRequestsFromCredit() throws IOException {
+        shaper.setDefaultBurst(8 * MB);
+        shaper.setLimits(Level.POOL, null, new Limits(MB, 1, 8 * MB));
+        BandwidthShapingChannel channel = openChannel("regular", "atlas", "alice");
+        channel.setNonBlocking(true);
+
+        channel.read(ByteBuffer.allocate(1000));
+        assertThat(shaper.tryAcquire(channel.getBucket(), 7 * MB), equalTo(0L));
+        channel.read(ByteBuffer.allocate((int) MB - 1000));
+
+        assertThat(channel.getBucket().getThrottled(), equalTo(0L));
+        assertThat(channel.getDelay(), greaterThan(0L));
+        assertThat(poolOf(channel).getBytes(), equalTo(MB));
+    }
+
+    @Test
+    public void shouldNotShareCreditBetweenChannels() throws IOException {
+        shaper.setDefaultBurst(8 * MB);
+        shaper.setLimits(Level.POOL, null, new Limits(MB, 1, 8 * MB));
+        BandwidthShapingChannel first = openChannel("regular", "atlas", "alice");
+        BandwidthShapingChannel second = openChannel("regular", "atlas", "alice");
+        first.setNonBlocking(true);
+        second.setNonBlocking(true);
+
+        first.read(ByteBuffer.allocate(1000));
+        assertThat(shaper.tryAcquire(first.getBucket(), 7 * MB), equalTo(0L));
+
+        assertThat(first.getDelay(), equalTo(0L));
+        assertThat(second.getDelay(), greaterThan(0L));
+    }
+
+    @Test
+    public void shouldReturnCreditOnClose() throws IOException {
+        shaper.setDefaultBurst(8 * MB);
+        shaper.setLimits(Level.POOL, null, new Limits(MB, 1, 8 * MB));
+        BandwidthShapingChannel channel = openChannel("regular", "atlas", "alice");
+        TokenBucket bob = open("regular", "cms", "bob");
+
+        channel.read(ByteBuffer.allocate(1000));
+        channel.close();
+
+        assertThat(poolOf(channel).getBytes(), equalTo(1000L));
+        assertThat(shaper.tryAcquire(bob, 7 * MB), equalTo(0L));
+        assertThat(shaper.tryAcquire(bob, 1), equalTo(0L));
+    }
+
+    @Test
+    public void shouldChargeWithoutWaitingInNonBlockingMode() throws IOException {
+        shaper.setLimits(Level.POOL, null, new Limits(MB, 1, MB));
+        BandwidthShapingChannel channel = openChannel("regular", "atlas", "alice");
+        channel.setNonBlocking(true);
+
+        channel.read(ByteBuffer.allocate((int) MB));
+        assertThat(channel.getDelay(), greaterThan(0L));
+        channel.read(ByteBuffer.allocate((int) MB));
+
+        assertThat(poolOf(channel).getBytes(), equalTo(2 * MB));
+        assertThat(channel.getBucket().getThrottled(), equalTo(1L));
+        assertThat(channel.getDelay(), greaterThan(0L));
+
+        advance(2000);
+        assertThat(channel.getDelay(), equalTo(0L));
+    }
+
+    @Test
+    public void shouldRemoveIdleBuckets() throws IOException {
+        shaper.setLimits(Level.POOL, null, new Limits(MB, 1, MB));
+        RepositoryChannel inner = mock(RepositoryChannel.class);
+        BandwidthShapingChannel channel =
+              (BandwidthShapingChannel) shaper.decorate(inner, "regular", "atlas", "alice");
+        TokenBucket queue = channel.getBucket().getParent().getParent();
+
+        channel.close();
+
+        assertThat(queue.getChannels(), equalTo(0));
+        assertThat(queue.getParent().getChildren().isEmpty(), equalTo(true));
+    }
+}
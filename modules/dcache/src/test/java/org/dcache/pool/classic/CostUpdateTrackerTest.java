@@ -0,0 +1,171 @@
+package org.dcache.pool.classic;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import diskCacheV111.pools.PoolCostInfo;
+import diskCacheV111.pools.PoolCostInfo.NamedPoolQueueInfo;
+import diskCacheV111.vehicles.PoolManagerPoolCostUpdateMessage;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CostUpdateTrackerTest {
+
+    private static final String POOL = "pool";
+    private static final long SERIAL_ID = 42;
+
+    private CostUpdateTracker tracker;
+
+    @Before
+    public void setUp() {
+        tracker = new CostUpdateTracker(0.1, 0.01);
+    }
+
+    @Test
+    public void shouldRequireFullReportInitially() {
+        assertThat(tracker.requiresFullReport(cost(1000, 500, 0, 0)), is(true));
+    }
+
+    @Test
+    public void shouldNumberReports() {
+        assertThat(tracker.reported(cost(1000, 500, 0, 0)), is(1L));
+        assertThat(tracker.reported(cost(1000, 500, 0, 0)), is(2L));
+    }
+
+    @Test
+    public void shouldNotUpdateWithoutChanges() {
+        tracker.reported(cost(1000, 500, 0, 0));
+
+        assertThat(tracker.requiresFullReport(cost(1000, 500, 0, 0)), is(false));
+        assertThat(tracker.getUpdate(POOL, SERIAL_ID, cost(1000, 500, 0, 0)), is(nullValue()));
+    }
+
+    @Test
+    public void shouldNotUpdateOnSmallQueueChange() {
+        tracker.reported(cost(1000, 500, 10, 0));
+
+        assertThat(tracker.getUpdate(POOL, SERIAL_ID, cost(1000, 500, 19, 0)), is(nullValue()));
+    }
+
+    @Test
+    public void shouldUpdateOnLargeQueueChange() {
+        tracker.reported(cost(1000, 500, 10, 0));
+
+        PoolManagerPoolCostUpdateMessage update =
+              tracker.getUpdate(POOL, SERIAL_ID, cost(1000, 500, 20, 0));
+
+        assertThat(update, is(notNullValue()));
+        assertThat(update.getSequence(), is(2L));
+        assertThat(update.getSpaceInfo(), is(nullValue()));
+        assertThat(update.getMoverQueues().size(), is(1));
+        assertThat(update.getMoverQueues().iterator().next().getActive(), is(20));
+        assertThat(tracker.getUpdates(), is(1L));
+    }
+
+    @Test
+    public void shouldUpdateWhenQueuingStarts() {
+        tracker.reported(cost(1000, 500, 100, 0));
+
+        assertThat(tracker.getUpdate(POOL, SERIAL_ID, cost(1000, 500, 100, 1)),
+              is(notNullValue()));
+    }
+
+    @Test
+    public void shouldUpdateOnLargeSpaceChange() {
+        tracker.reported(cost(1000, 500, 0, 0));
+
+        PoolManagerPoolCostUpdateMessage update =
+              tracker.getUpdate(POOL, SERIAL_ID, cost(1000, 490, 0, 0));
+
+        assertThat(update, is(notNullValue()));
+        assertThat(update.getSpaceInfo().getFreeSpace(), is(490L));
+        assertThat(update.getMoverQueues().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldIncludeInsignificantChangesInUpdate() {
+        tracker.reported(cost(1000, 500, 10, 0));
+
+        PoolManagerPoolCostUpdateMessage update =
+              tracker.getUpdate(POOL, SERIAL_ID, cost(1000, 495, 20, 0));
+
+        assertThat(update.getSpaceInfo().getFreeSpace(), is(495L));
+    }
+
+    @Test
+    public void shouldCompareWithLastUpdate() {
+        tracker.reported(cost(1000, 500, 10, 0));
+        tracker.getUpdate(POOL, SERIAL_ID, cost(1000, 500, 20, 0));
+
+        assertThat(tracker.getUpdate(POOL, SERIAL_ID, cost(1000, 500, 25, 0)),
+              is(nullValue()));
+        assertThat(tracker.getUpdate(POOL, SERIAL_ID, cost(1000, 500, 30, 0)).getSequence(),
+              is(3L));
+    }
+
+    @Test
+    public void shouldUpdateWhenFreeSpaceCrossesGap() {
+        PoolCostInfo info = cost(1000, 101, 0, 0);
+        info.getSpaceInfo().setParameter(0.7, 100);
+        tracker.reported(info);
+
+        PoolCostInfo next = cost(1000, 99, 0, 0);
+        next.getSpaceInfo().setParameter(0.7, 100);
+
+        assertThat(tracker.requiresFullReport(next), is(false));
+        assertThat(tracker.getUpdate(POOL, SERIAL_ID, next), is(notNullValue()));
+    }
+
+    @Test
+    public void shouldRequireFullReportWhenTotalSpaceChanges() {
+        tracker.reported(cost(1000, 500, 0, 0));
+
+        assertThat(tracker.requiresFullReport(cost(2000, 500, 0, 0)), is(true));
+    }
+
+    @Test
+    public void shouldRequireFullReportWhenMoverQueueIsAdded() {
+        tracker.reported(cost(1000, 500, 0, 0));
+
+        PoolCostInfo info = cost(1000, 500, 0, 0);
+        info.addExtendedMoverQueueSizes("wan", 0, 10, 0, 0, 0);
+
+        assertThat(tracker.requiresFullReport(info), is(true));
+    }
+
+    @Test
+    public void shouldRequireFullReportAfterReset() {
+        tracker.reported(cost(1000, 500, 0, 0));
+        tracker.reset();
+
+        assertThat(tracker.requiresFullReport(cost(1000, 500, 0, 0)), is(true));
+    }
+
+    @Test
+    public void shouldApplyUpdate() {
+        PoolCostInfo before = cost(1000, 500, 10, 0);
+        tracker.reported(before);
+
+        PoolCostInfo after = tracker.getUpdate(POOL, SERIAL_ID, cost(1000, 400, 50, 5))
+              .applyTo(before);
+
+        assertThat(after.getSpaceInfo().getFreeSpace(), is(400L));
+        assertThat(after.getExtendedMoverHash().keySet(), contains(IoQueueManager.DEFAULT_QUEUE));
+        NamedPoolQueueInfo queue = after.getExtendedMoverHash().get(IoQueueManager.DEFAULT_QUEUE);
+        assertThat(queue.getActive(), is(50));
+        assertThat(queue.getQueued(), is(5));
+        assertThat(before.getSpaceInfo().getFreeSpace(), equalTo(500L));
+    }
+
+    private static PoolCostInfo cost(long total, long free, int active, int queued) {
+        PoolCostInfo info = new PoolCostInfo(POOL, IoQueueManager.DEFAULT_QUEUE);
+        info.setSpaceUsage(total, free, 0, total - free);
+        info.setQueueSizes(0, 10, 0, 0, 10, 0);
+        info.addExtendedMoverQueueSizes(IoQueueManager.DEFAULT_QUEUE, active, 100, queued, 0, 0);
+        return info;
+    }
+}
@@ -0,0 +1,246 @@
+package org.dcache.pool.hotfiles;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import diskCacheV111.util.CacheException;
+import diskCacheV111.util.PnfsId;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import org.dcache.pool.repository.CacheEntry;
+import org.dcache.pool.repository.FileRepositoryChannel;
+import org.dcache.pool.repository.ModifiableReplicaDescriptor;
+import org.dcache.pool.repository.ReplicaDescriptor;
+import org.dcache.pool.repository.ReplicaState;
+import org.dcache.pool.repository.Repository;
+import org.dcache.pool.repository.RepositoryChannel;
+import org.dcache.pool.repository.StateChangeEvent;
+import org.dcache.pool.repository.StateChangeListener;
+import org.dcache.vehicles.FileAttributes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class HotFileCacheTest {
+
+    private static final int SIZE = 1000;
+
+    private final List<Path> files = new ArrayList<>();
+    private HotFileCache cache;
+    private StateChangeListener listener;
+
+    @Before
+    public void setUp() {
+        Repository repository = mock(Repository.class);
+        cache = new HotFileCache();
+        cache.setRepository(repository);
+        cache.setExecutor(MoreExecutors.directExecutor());
+        ArgumentCaptor<StateChangeListener> captor =
+              ArgumentCaptor.forClass(StateChangeListener.class);
+        verify(repository).addListener(captor.capture());
+        listener = captor.getValue();
+        cache.setMaxFileSize(SIZE);
+        cache.setCapacity(3 * SIZE);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private ReplicaDescriptor replica(String id, int size) throws IOException, CacheException {
+        byte[] data = new byte[size];
+        new Random(id.hashCode()).nextBytes(data);
+        Path file = Files.createTempFile("hotfile", null);
+        files.add(file);
+        Files.write(file, data);
+
+        ReplicaDescriptor handle = mock(ReplicaDescriptor.class);
+        when(handle.getFileAttributes()).thenReturn(FileAttributes.ofPnfsId(id));
+        when(handle.getReplicaSize()).thenReturn((long) size);
+        when(handle.createChannel()).thenAnswer(
+              i -> new FileRepositoryChannel(file, EnumSet.of(StandardOpenOption.READ)));
+        return handle;
+    }
+
+    private static byte[] readFully(RepositoryChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+        }
+        return buffer.array();
+    }
+
+    private static byte[] content(ReplicaDescriptor handle) throws IOException, CacheException {
+        try (RepositoryChannel channel = handle.createChannel()) {
+            return readFully(channel);
+        }
+    }
+
+    private void access(ReplicaDescriptor handle, int times) throws IOException, CacheException {
+        for (int i = 0; i < times; i++) {
+            cache.open(handle).close();
+        }
+    }
+
+    private void stateChanged(String id) {
+        CacheEntry entry = mock(CacheEntry.class);
+        when(entry.getPnfsId()).thenReturn(new PnfsId(id));
+        listener.stateChanged(new StateChangeEvent("test", entry, entry, ReplicaState.CACHED,
+              ReplicaState.REMOVED));
+    }
+
+    @Test
+    public void shouldNotDecorateWhenDisabled() {
+        cache.setCapacity(0);
+        ReplicaDescriptor handle = mock(ReplicaDescriptor.class);
+
+        assertThat(cache.decorate(handle), sameInstance(handle));
+    }
+
+    @Test
+    public void shouldNotDecorateModifiableDescriptor() {
+        ReplicaDescriptor handle = mock(ModifiableReplicaDescriptor.class);
+
+        assertThat(cache.decorate(handle), sameInstance(handle));
+    }
+
+    @Test
+    public void shouldServeCachedReplicaFromMemory() throws Exception {
+        ReplicaDescriptor handle = replica("000000000000000000000000000000000001", SIZE);
+        byte[] expected = content(handle);
+
+        try (RepositoryChannel first = cache.open(handle)) {
+            assertThat(readFully(first), equalTo(expected));
+        }
+        try (RepositoryChannel second = cache.open(handle)) {
+            assertThat(second, instanceOf(MemoryRepositoryChannel.class));
+            assertThat(readFully(second), equalTo(expected));
+        }
+
+        verify(handle, times(3)).createChannel();
+        assertThat(cache.getUsed(), equalTo((long) SIZE));
+    }
+
+    @Test
+    public void shouldLoadAdmittedReplicaInBackground() throws Exception {
+        List<Runnable> tasks = new ArrayList<>();
+        cache.setExecutor(tasks::add);
+        ReplicaDescriptor handle = replica("000000000000000000000000000000000001", SIZE);
+        byte[] expected = content(handle);
+
+        try (RepositoryChannel channel = cache.open(handle)) {
+            assertThat(channel, not(instanceOf(MemoryRepositoryChannel.class)));
+            assertThat(readFully(channel), equalTo(expected));
+        }
+        assertThat(cache.contains(new PnfsId("000000000000000000000000000000000001")),
+              equalTo(false));
+
+        tasks.forEach(Runnable::run);
+
+        assertThat(cache.contains(new PnfsId("000000000000000000000000000000000001")),
+              equalTo(true));
+        try (RepositoryChannel channel = cache.open(handle)) {
+            assertThat(readFully(channel), equalTo(expected));
+        }
+    }
+
+    @Test
+    public void shouldTransferFromMemory() throws Exception {
+        ReplicaDescriptor handle = replica("000000000000000000000000000000000001", SIZE);
+        byte[] expected = content(handle);
+        access(handle, 1);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (RepositoryChannel channel = cache.open(handle)) {
+            long position = 0;
+            while (position < SIZE) {
+                position += channel.transferTo(position, 300, Channels.newChannel(out));
+            }
+        }
+
+        assertThat(out.toByteArray(), equalTo(expected));
+    }
+
+    @Test
+    public void shouldNotCacheLargeReplicas() throws Exception {
+        ReplicaDescriptor handle = replica("000000000000000000000000000000000001", SIZE + 1);
+
+        access(handle, 2);
+
+        try (RepositoryChannel channel = cache.open(handle)) {
+            assertThat(channel, not(instanceOf(MemoryRepositoryChannel.class)));
+        }
+        assertThat(cache.getUsed(), equalTo(0L));
+    }
+
+    @Test
+    public void shouldInvalidateOnStateChange() throws Exception {
+        ReplicaDescriptor handle = replica("000000000000000000000000000000000001", SIZE);
+        access(handle, 1);
+
+        stateChanged("000000000000000000000000000000000001");
+
+        assertThat(cache.contains(new PnfsId("000000000000000000000000000000000001")),
+              equalTo(false));
+        assertThat(cache.getUsed(), equalTo(0L));
+    }
+
+    @Test
+    public void shouldRejectInfrequentReplicaWhenFull() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            access(replica("00000000000000000000000000000000000" + i, SIZE), 3);
+        }
+
+        access(replica("000000000000000000000000000000000004", SIZE), 1);
+
+        assertThat(cache.contains(new PnfsId("000000000000000000000000000000000004")),
+              equalTo(false));
+        assertThat(cache.getUsed(), equalTo(3L * SIZE));
+    }
+
+    @Test
+    public void shouldAdmitFrequentReplicaWhenFull() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            access(replica("00000000000000000000000000000000000" + i, SIZE), 1);
+        }
+
+        access(replica("000000000000000000000000000000000004", SIZE), 3);
+
+        assertThat(cache.contains(new PnfsId("000000000000000000000000000000000004")),
+              equalTo(true));
+        assertThat(cache.contains(new PnfsId("000000000000000000000000000000000001")),
+              equalTo(false));
+        assertThat(cache.getUsed(), equalTo(3L * SIZE));
+    }
+
+    @Test(expected = NonWritableChannelException.class)
+    public void shouldNotWriteToMemoryChannel() throws Exception {
+        ReplicaDescriptor handle = replica("000000000000000000000000000000000001", SIZE);
+        access(handle, 1);
+
+        try (RepositoryChannel channel = cache.open(handle)) {
+            channel.write(ByteBuffer.allocate(1), 0);
+        }
+    }
+}
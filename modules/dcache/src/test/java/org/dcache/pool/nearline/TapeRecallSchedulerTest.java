@@ -0,0 +1,147 @@
+package org.dcache.pool.nearline;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.mock;
+
+import diskCacheV111.vehicles.GenericStorageInfo;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.dcache.pool.nearline.spi.NearlineStorage;
+import org.dcache.vehicles.FileAttributes;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TapeRecallSchedulerTest {
+
+    private final NearlineStorage storage = mock(NearlineStorage.class);
+    private final Map<String, FileAttributes> files = new HashMap<>();
+    private final List<List<String>> released = new ArrayList<>();
+    private TapeRecallScheduler<String> scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new TapeRecallScheduler<>(files::get,
+              (s, batch) -> released.add(List.copyOf(batch)));
+        scheduler.setMaxActiveVolumes(1);
+        scheduler.setMinBatchAge(0);
+        scheduler.setMinBatchAgeUnit(TimeUnit.MILLISECONDS);
+    }
+
+    private String file(String name, String location) {
+        GenericStorageInfo info = new GenericStorageInfo();
+        if (location != null) {
+            info.addLocation(URI.create(location));
+        }
+        FileAttributes attributes = new FileAttributes();
+        attributes.setStorageInfo(info);
+        files.put(name, attributes);
+        return name;
+    }
+
+    private String onTape(String name, String volume, int position) {
+        return file(name, "enstore://enstore/?volume=" + volume + "&location_cookie=" + position);
+    }
+
+    @Test
+    public void shouldPassThroughFilesWithoutTape() {
+        scheduler.submit(storage, List.of(file("a", "osm://osm/?store=s&bfid=1"), file("b", null)));
+
+        assertThat(released, contains(List.of("a", "b")));
+        assertThat(scheduler.getHeldCount(), equalTo(0));
+    }
+
+    @Test
+    public void shouldPassThroughWhenDisabled() {
+        scheduler.setMaxActiveVolumes(0);
+
+        scheduler.submit(storage, List.of(onTape("a", "T1", 1)));
+
+        assertThat(released, contains(List.of("a")));
+    }
+
+    @Test
+    public void shouldReleaseBatchOrderedByPosition() {
+        scheduler.setMinBatchAge(1);
+        scheduler.setMinBatchAgeUnit(TimeUnit.HOURS);
+
+        scheduler.submit(storage, List.of(onTape("a", "T1", 30)));
+        scheduler.submit(storage, List.of(onTape("b", "T1", 4)));
+        scheduler.submit(storage, List.of(onTape("c", "T1", 200)));
+        assertThat(released, empty());
+
+        scheduler.setMinBatchAge(0);
+        scheduler.schedule();
+
+        assertThat(released, contains(List.of("b", "a", "c")));
+        assertThat(scheduler.getMountsSaved(), equalTo(2L));
+    }
+
+    @Test
+    public void shouldLimitActiveVolumes() {
+        String a = onTape("a", "T1", 1);
+        String b = onTape("b", "T2", 1);
+
+        scheduler.submit(storage, List.of(a));
+        scheduler.submit(storage, List.of(b));
+
+        assertThat(released, contains(List.of("a")));
+        assertThat(scheduler.getActiveVolumes(), equalTo(1));
+
+        scheduler.completed(a);
+
+        assertThat(released, contains(List.of("a"), List.of("b")));
+    }
+
+    @Test
+    public void shouldJoinMountedVolume() {
+        scheduler.submit(storage, List.of(onTape("a", "T1", 1)));
+        scheduler.setMinBatchAge(1);
+        scheduler.setMinBatchAgeUnit(TimeUnit.HOURS);
+
+        scheduler.submit(storage, List.of(onTape("b", "T1", 2)));
+        scheduler.submit(storage, List.of(onTape("c", "T2", 1)));
+
+        assertThat(released, contains(List.of("a"), List.of("b")));
+        assertThat(scheduler.getHeldCount(), equalTo(1));
+    }
+
+    @Test
+    public void shouldSplitLargeBatches() {
+        scheduler.setMaxBatchSize(2);
+        scheduler.setMinBatchAge(1);
+        scheduler.setMinBatchAgeUnit(TimeUnit.HOURS);
+        scheduler.submit(storage, List.of(onTape("a", "T1", 3), onTape("b", "T1", 1),
+              onTape("c", "T1", 2)));
+
+        scheduler.setMinBatchAge(0);
+        scheduler.schedule();
+
+        assertThat(released, contains(List.of("b", "c")));
+
+        scheduler.schedule();
+
+        assertThat(released, contains(List.of("b", "c"), List.of("a")));
+    }
+
+    @Test
+    public void shouldRemoveHeldRequest() {
+        scheduler.setMinBatchAge(1);
+        scheduler.setMinBatchAgeUnit(TimeUnit.HOURS);
+        scheduler.submit(storage, List.of(onTape("a", "T1", 1), onTape("b", "T1", 2)));
+
+        assertThat(scheduler.remove("a"), equalTo(true));
+        assertThat(scheduler.remove("a"), equalTo(false));
+
+        scheduler.setMinBatchAge(0);
+        scheduler.schedule();
+
+        assertThat(released, contains(List.of("b")));
+    }
+}
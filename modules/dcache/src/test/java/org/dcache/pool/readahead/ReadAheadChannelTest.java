@@ -0,0 +1,260 @@
+package org.dcache.pool.readahead;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.dcache.pool.repository.FileRepositoryChannel;
+import org.dcache.pool.repository.ModifiableReplicaDescriptor;
+import org.dcache.pool.repository.ReplicaDescriptor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReadAheadChannelTest {
+
+    private static final int BLOCK_SIZE = 1024;
+
+    private long now;
+    private ReadAheadManager manager;
+    private Path file;
+    private byte[] data;
+
+    @Before
+    public void setUp() throws IOException {
+        manager = new ReadAheadManager(() -> now);
+        manager.setExecutor(MoreExecutors.directExecutor());
+        manager.setBlockSize(BLOCK_SIZE);
+        manager.setBuffers(16);
+        manager.setMaxWindow(4);
+        manager.setEnabled(true);
+        file = Files.createTempFile("read-ahead", null);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private ReadAheadChannel open(int size) throws IOException {
+        data = new byte[size];
+        new Random(size).nextBytes(data);
+        Files.write(file, data);
+        return (ReadAheadChannel) manager.decorate(
+              new FileRepositoryChannel(file, EnumSet.of(StandardOpenOption.READ)));
+    }
+
+    private byte[] readFully(ReadAheadChannel channel, int chunk) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(chunk);
+        while (channel.read(buffer) >= 0) {
+            now += 1000;
+            buffer.flip();
+            out.write(buffer.array(), 0, buffer.limit());
+            buffer.clear();
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void shouldNotDecorateWhenDisabled() {
+        manager.setEnabled(false);
+        ReplicaDescriptor handle = mock(ReplicaDescriptor.class);
+
+        assertThat(manager.decorate(handle), sameInstance(handle));
+    }
+
+    @Test
+    public void shouldNotDecorateModifiableDescriptor() {
+        ReplicaDescriptor handle = mock(ModifiableReplicaDescriptor.class);
+
+        assertThat(manager.decorate(handle), sameInstance(handle));
+    }
+
+    @Test
+    public void shouldDecorateReadOnlyDescriptor() {
+        ReplicaDescriptor handle = mock(ReplicaDescriptor.class);
+
+        assertThat(manager.decorate(handle), instanceOf(ReadAheadReplicaDescriptor.class));
+    }
+
+    @Test
+    public void shouldReadSequentialStream() throws IOException {
+        try (ReadAheadChannel channel = open(20 * BLOCK_SIZE + 17)) {
+            assertThat(readFully(channel, 300), equalTo(data));
+            assertThat(manager.getBuffersInUse(), greaterThan(0));
+        }
+
+        assertThat(manager.getBuffersInUse(), equalTo(0));
+    }
+
+    @Test
+    public void shouldReadAheadOnceSequential() throws IOException {
+        try (ReadAheadChannel channel = open(20 * BLOCK_SIZE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(100);
+
+            channel.read(buffer, 0);
+            buffer.clear();
+            assertThat(channel.getBlocksInFlight(), equalTo(0));
+
+            channel.read(buffer, 100);
+            assertThat(channel.getBlocksInFlight(), greaterThan(0));
+        }
+    }
+
+    @Test
+    public void shouldNotReadAheadForRandomAccess() throws IOException {
+        try (ReadAheadChannel channel = open(20 * BLOCK_SIZE)) {
+            Random random = new Random(0);
+            ByteBuffer buffer = ByteBuffer.allocate(100);
+            for (int i = 0; i < 50; i++) {
+                buffer.clear();
+                int position = random.nextInt(19 * BLOCK_SIZE);
+                channel.read(buffer, position);
+                assertThat(buffer.array(), equalTo(
+                      Arrays.copyOfRange(data, position, position + 100)));
+                assertThat(channel.getBlocksInFlight(), equalTo(0));
+            }
+        }
+    }
+
+    @Test
+    public void shouldDiscardWindowOnSeek() throws IOException {
+        try (ReadAheadChannel channel = open(20 * BLOCK_SIZE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(100);
+            for (int i = 0; i < 3; i++) {
+                buffer.clear();
+                channel.read(buffer, i * 100);
+            }
+            assertThat(channel.getBlocksInFlight(), greaterThan(0));
+
+            buffer.clear();
+            channel.read(buffer, 10 * BLOCK_SIZE);
+
+            assertThat(channel.getBlocksInFlight(), equalTo(0));
+            assertThat(manager.getBuffersInUse(), equalTo(0));
+        }
+    }
+
+    @Test
+    public void shouldGrowWindowWithConsumptionRate() throws IOException {
+        manager.setHorizon(1, TimeUnit.MILLISECONDS);
+        try (ReadAheadChannel channel = open(100 * BLOCK_SIZE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+            long position = 0;
+            for (int i = 0; i < 5; i++) {
+                buffer.clear();
+                position += channel.read(buffer, position);
+                now += 2_000_000;
+            }
+            int slow = channel.getWindow();
+
+            for (int i = 0; i < 20; i++) {
+                buffer.clear();
+                position += channel.read(buffer, position);
+                now += 1_000;
+            }
+
+            assertThat(slow, equalTo(1));
+            assertThat(channel.getWindow(), equalTo(4));
+        }
+    }
+
+    @Test
+    public void shouldPrefetchSmallFile() throws IOException {
+        try (ReadAheadChannel channel = open(BLOCK_SIZE - 10)) {
+            assertThat(channel.getBlocksInFlight(), equalTo(1));
+
+            ByteBuffer buffer = ByteBuffer.allocate(10);
+            channel.read(buffer, 500);
+            assertThat(buffer.array(), equalTo(Arrays.copyOfRange(data, 500, 510)));
+            buffer.clear();
+            channel.read(buffer, 20);
+            assertThat(buffer.array(), equalTo(Arrays.copyOfRange(data, 20, 30)));
+            assertThat(channel.getBlocksInFlight(), equalTo(1));
+        }
+    }
+
+    @Test
+    public void shouldTransferSequentialStream() throws IOException {
+        try (ReadAheadChannel channel = open(10 * BLOCK_SIZE + 5)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long position = 0;
+            while (position < data.length) {
+                position += channel.transferTo(position, 700, Channels.newChannel(out));
+            }
+
+            assertThat(out.toByteArray(), equalTo(data));
+        }
+    }
+
+    @Test
+    public void shouldReadWithoutBuffers() throws IOException {
+        manager.setBuffers(0);
+        try (ReadAheadChannel channel = open(20 * BLOCK_SIZE)) {
+            assertThat(readFully(channel, 300), equalTo(data));
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void shouldNotWaitForBlocksInFlight() throws IOException {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        manager.setExecutor(tasks::add);
+        try (ReadAheadChannel channel = open(20 * BLOCK_SIZE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(100);
+            for (int i = 0; i < 3; i++) {
+                buffer.clear();
+                channel.read(buffer, i * 100);
+            }
+            assertThat(channel.getBlocksInFlight(), greaterThan(0));
+
+            buffer.clear();
+            channel.read(buffer, 300);
+            assertThat(buffer.array(), equalTo(Arrays.copyOfRange(data, 300, 400)));
+            assertThat(channel.getWindow(), greaterThan(1));
+
+            tasks.forEach(Runnable::run);
+            buffer.clear();
+            channel.read(buffer, 400);
+            assertThat(buffer.array(), equalTo(Arrays.copyOfRange(data, 400, 500)));
+        }
+    }
+
+    @Test
+    public void shouldReadAheadForScatterReads() throws IOException {
+        try (ReadAheadChannel channel = open(20 * BLOCK_SIZE + 17)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ByteBuffer[] buffers = {ByteBuffer.allocate(150), ByteBuffer.allocate(150)};
+            int blocksInFlight = 0;
+            while (channel.read(buffers) >= 0) {
+                now += 1000;
+                for (ByteBuffer buffer : buffers) {
+                    buffer.flip();
+                    out.write(buffer.array(), 0, buffer.limit());
+                    buffer.clear();
+                }
+                blocksInFlight = Math.max(blocksInFlight, channel.getBlocksInFlight());
+            }
+
+            assertThat(out.toByteArray(), equalTo(data));
+            assertThat(blocksInFlight, greaterThan(0));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.dcache.services.billing.db.impl.jdbc;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import org.dcache.services.billing.db.data.DoorRequestData;
+import org.dcache.services.billing.db.data.IHistogramData;
+import org.dcache.services.billing.db.data.MoverData;
+import org.dcache.services.billing.db.data.PnfsBaseInfo;
+import org.dcache.services.billing.db.data.PoolHitData;
+import org.dcache.services.billing.db.data.StorageData;
+import org.junit.Test;
+
+public class DailyRollupTest {
+
+    private final List<IHistogramData> data = new ArrayList<>();
+
+    private static Date at(int day, int hour) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(2026, Calendar.MARCH, day, hour, 0);
+        return cal.getTime();
+    }
+
+    private <T extends PnfsBaseInfo> T add(T info, Date date) {
+        info.setDateStamp(date);
+        data.add(info);
+        return info;
+    }
+
+    private MoverData mover(Date date, boolean isNew, boolean p2p, long size,
+          long transferred, long time) {
+        MoverData mover = add(new MoverData(), date);
+        mover.setIsNew(isNew);
+        mover.setP2p(p2p);
+        mover.setFullSize(size);
+        mover.setTransferSize(transferred);
+        mover.setConnectionTime(time);
+        return mover;
+    }
+
+    private StorageData storage(Date date, String action, long size) {
+        StorageData storage = add(new StorageData(), date);
+        storage.setAction(action);
+        storage.setFullSize(size);
+        return storage;
+    }
+
+    private void hit(Date date, boolean cached) {
+        add(new PoolHitData(), date).setFileCached(cached);
+    }
+
+    @Test
+    public void shouldSeparateReadsWritesAndPoolToPoolTransfers() {
+        mover(at(1, 10), false, false, 100, 50, 10);
+        mover(at(1, 11), false, false, 200, 200, 30);
+        mover(at(1, 12), true, false, 300, 300, 20);
+        mover(at(1, 13), false, true, 400, 400, 1000);
+
+        DailyRollup.Day day = new DailyRollup(data).getDays().get(at(1, 0));
+
+        assertThat(day.reads.count, equalTo(2L));
+        assertThat(day.reads.size, equalTo(300L));
+        assertThat(day.reads.transferred, equalTo(250L));
+        assertThat(day.writes.count, equalTo(1L));
+        assertThat(day.writes.transferred, equalTo(300L));
+        assertThat(day.p2ps.count, equalTo(1L));
+        assertThat(day.p2ps.size, equalTo(400L));
+        assertThat(day.times.count, equalTo(3L));
+        assertThat(day.times.getMinimum(), equalTo(10L));
+        assertThat(day.times.maximum, equalTo(30L));
+        assertThat(day.times.getAverage(), equalTo(20L));
+    }
+
+    @Test
+    public void shouldSplitBatchByDay() {
+        mover(at(2, 23), false, false, 1, 1, 1);
+        mover(at(1, 0), false, false, 1, 1, 1);
+        mover(at(1, 23), false, false, 1, 1, 1);
+
+        DailyRollup rollup = new DailyRollup(data);
+
+        assertThat(rollup.getDays().keySet(), contains(at(1, 0), at(2, 0)));
+        assertThat(rollup.getDays().get(at(1, 0)).reads.count, equalTo(2L));
+        assertThat(rollup.getDays().get(at(2, 0)).reads.count, equalTo(1L));
+    }
+
+    @Test
+    public void shouldIgnoreFailedRequests() {
+        mover(at(1, 10), false, false, 100, 100, 10).setErrorCode(10011);
+        storage(at(1, 10), "restore", 100).setErrorCode(10011);
+        storage(at(1, 10), "store", 100);
+
+        DailyRollup.Day day = new DailyRollup(data).getDays().get(at(1, 0));
+
+        assertThat(day.reads.count, equalTo(0L));
+        assertThat(day.times.count, equalTo(0L));
+        assertThat(day.times.getMinimum(), equalTo(0L));
+        assertThat(day.restores.count, equalTo(0L));
+        assertThat(day.stores.count, equalTo(1L));
+        assertThat(day.stores.size, equalTo(100L));
+    }
+
+    @Test
+    public void shouldCountPoolHits() {
+        hit(at(1, 10), true);
+        hit(at(1, 11), true);
+        hit(at(1, 12), false);
+        add(new DoorRequestData(), at(1, 12));
+
+        DailyRollup.Day day = new DailyRollup(data).getDays().get(at(1, 0));
+
+        assertThat(day.hits.count, equalTo(3L));
+        assertThat(day.hits.cached, equalTo(2L));
+        assertThat(day.hits.notcached, equalTo(1L));
+    }
+}
@@ -0,0 +1,212 @@
+package org.dcache.services.billing.db.impl.jdbc;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import org.dcache.services.billing.db.data.DoorRequestData;
+import org.dcache.services.billing.db.data.IHistogramData;
+import org.dcache.services.billing.db.data.MoverData;
+import org.dcache.services.billing.db.data.PnfsBaseInfo;
+import org.dcache.services.billing.db.data.PoolHitData;
+import org.dcache.services.billing.db.data.StorageData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+public class JdbcBillingInfoTest {
+
+    private static final String[] SCHEMA = {
+          "CREATE TABLE billinginfo (datestamp TIMESTAMP, cellname VARCHAR(64),"
+                + " action VARCHAR(40), transaction VARCHAR(255), pnfsid VARCHAR(36),"
+                + " errorcode INTEGER, errormessage VARCHAR(8000), connectiontime BIGINT,"
+                + " fullsize BIGINT, storageclass VARCHAR(128), transfersize BIGINT,"
+                + " isnew BOOLEAN, client VARCHAR(256), protocol VARCHAR(64),"
+                + " initiator VARCHAR(256), p2p BOOLEAN, owner VARCHAR(256),"
+                + " mappeduid INTEGER, mappedgid INTEGER, fqan VARCHAR(256))",
+          "CREATE TABLE storageinfo (datestamp TIMESTAMP, cellname VARCHAR(64),"
+                + " action VARCHAR(40), transaction VARCHAR(255), pnfsid VARCHAR(36),"
+                + " errorcode INTEGER, errormessage VARCHAR(8000), connectiontime BIGINT,"
+                + " fullsize BIGINT, storageclass VARCHAR(128), queuedtime BIGINT)",
+          "CREATE TABLE doorinfo (datestamp TIMESTAMP, cellname VARCHAR(64),"
+                + " action VARCHAR(40), transaction VARCHAR(255), pnfsid VARCHAR(36),"
+                + " errorcode INTEGER, errormessage VARCHAR(8000), connectiontime BIGINT,"
+                + " owner VARCHAR(256), mappeduid INTEGER, mappedgid INTEGER,"
+                + " client VARCHAR(256), path VARCHAR(8000), queuedtime BIGINT,"
+                + " fqan VARCHAR(256))",
+          "CREATE TABLE hitinfo (datestamp TIMESTAMP, cellname VARCHAR(64),"
+                + " action VARCHAR(40), transaction VARCHAR(255), pnfsid VARCHAR(36),"
+                + " errorcode INTEGER, errormessage VARCHAR(8000), filecached BOOLEAN)",
+          "CREATE TABLE billinginfo_rd_daily (date TIMESTAMP PRIMARY KEY, count BIGINT,"
+                + " size BIGINT, transferred BIGINT)",
+          "CREATE TABLE billinginfo_wr_daily (date TIMESTAMP PRIMARY KEY, count BIGINT,"
+                + " size BIGINT, transferred BIGINT)",
+          "CREATE TABLE billinginfo_p2p_daily (date TIMESTAMP PRIMARY KEY, count BIGINT,"
+                + " size BIGINT, transferred BIGINT)",
+          "CREATE TABLE billinginfo_tm_daily (date TIMESTAMP PRIMARY KEY, count BIGINT,"
+                + " minimum BIGINT, maximum BIGINT, average BIGINT)",
+          "CREATE TABLE storageinfo_rd_daily (date TIMESTAMP PRIMARY KEY, count BIGINT,"
+                + " size BIGINT)",
+          "CREATE TABLE storageinfo_wr_daily (date TIMESTAMP PRIMARY KEY, count BIGINT,"
+                + " size BIGINT)",
+          "CREATE TABLE hitinfo_daily (date TIMESTAMP PRIMARY KEY, count BIGINT,"
+                + " notcached BIGINT, cached BIGINT)"
+    };
+
+    private DriverManagerDataSource dataSource;
+    private JdbcBillingInfo billing;
+
+    private static Date at(int day, int hour) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(2026, Calendar.MARCH, day, hour, 0);
+        return cal.getTime();
+    }
+
+    private static <T extends PnfsBaseInfo> T at(T info, Date date) {
+        info.setDateStamp(date);
+        info.setCellName("pool");
+        info.setPnfsID("0000C9B4E3768770452E8B1B8E0232584872");
+        return info;
+    }
+
+    private static MoverData mover(Date date, boolean isNew, long size, long time) {
+        MoverData mover = at(new MoverData(), date);
+        mover.setIsNew(isNew);
+        mover.setFullSize(size);
+        mover.setTransferSize(size);
+        mover.setConnectionTime(time);
+        return mover;
+    }
+
+    private static StorageData restore(Date date, long size) {
+        StorageData storage = at(new StorageData(), date);
+        storage.setAction("restore");
+        storage.setFullSize(size);
+        return storage;
+    }
+
+    private static PoolHitData hit(Date date, boolean cached) {
+        PoolHitData hit = at(new PoolHitData(), date);
+        hit.setFileCached(cached);
+        return hit;
+    }
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:billing;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection();
+              Statement statement = connection.createStatement()) {
+            for (String sql : SCHEMA) {
+                statement.execute(sql);
+            }
+        }
+        billing = new JdbcBillingInfo();
+        billing.setDataSource(dataSource);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+              Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+    }
+
+    private long query(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+              Statement statement = connection.createStatement();
+              ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    @Test
+    public void shouldInsertBatchIntoFineGrainedTables() throws Exception {
+        List<IHistogramData> batch = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            batch.add(mover(at(1, 10), false, 100, 10));
+        }
+        batch.add(restore(at(1, 10), 100));
+        batch.add(at(new DoorRequestData(), at(1, 10)));
+        batch.add(hit(at(1, 10), true));
+
+        billing.commit(batch);
+
+        assertThat(query("SELECT COUNT(*) FROM billinginfo"), equalTo(250L));
+        assertThat(query("SELECT COUNT(*) FROM storageinfo"), equalTo(1L));
+        assertThat(query("SELECT COUNT(*) FROM doorinfo"), equalTo(1L));
+        assertThat(query("SELECT COUNT(*) FROM hitinfo"), equalTo(1L));
+    }
+
+    @Test
+    public void shouldCreateDailyRowsOnFirstCommit() throws Exception {
+        List<IHistogramData> batch = new ArrayList<>();
+        batch.add(mover(at(1, 10), false, 100, 10));
+        batch.add(mover(at(1, 11), true, 200, 30));
+        batch.add(restore(at(1, 12), 300));
+        batch.add(hit(at(1, 13), false));
+
+        billing.commit(batch);
+
+        assertThat(query("SELECT count FROM billinginfo_rd_daily"), equalTo(1L));
+        assertThat(query("SELECT size FROM billinginfo_rd_daily"), equalTo(100L));
+        assertThat(query("SELECT count FROM billinginfo_wr_daily"), equalTo(1L));
+        assertThat(query("SELECT COUNT(*) FROM billinginfo_p2p_daily"), equalTo(0L));
+        assertThat(query("SELECT average FROM billinginfo_tm_daily"), equalTo(20L));
+        assertThat(query("SELECT size FROM storageinfo_rd_daily"), equalTo(300L));
+        assertThat(query("SELECT notcached FROM hitinfo_daily"), equalTo(1L));
+    }
+
+    @Test
+    public void shouldAddSecondCommitToSameDailyRow() throws Exception {
+        List<IHistogramData> first = new ArrayList<>();
+        first.add(mover(at(1, 10), false, 100, 10));
+        first.add(mover(at(1, 11), false, 200, 30));
+        first.add(restore(at(1, 12), 300));
+        first.add(hit(at(1, 13), true));
+        billing.commit(first);
+
+        List<IHistogramData> second = new ArrayList<>();
+        second.add(mover(at(1, 20), false, 400, 5));
+        second.add(mover(at(1, 21), false, 500, 100));
+        second.add(mover(at(1, 22), false, 600, 90));
+        second.add(restore(at(1, 23), 700));
+        second.add(hit(at(1, 23), false));
+        billing.commit(second);
+
+        assertThat(query("SELECT COUNT(*) FROM billinginfo_rd_daily"), equalTo(1L));
+        assertThat(query("SELECT count FROM billinginfo_rd_daily"), equalTo(5L));
+        assertThat(query("SELECT size FROM billinginfo_rd_daily"), equalTo(1800L));
+        assertThat(query("SELECT transferred FROM billinginfo_rd_daily"), equalTo(1800L));
+        assertThat(query("SELECT count FROM billinginfo_tm_daily"), equalTo(5L));
+        assertThat(query("SELECT minimum FROM billinginfo_tm_daily"), equalTo(5L));
+        assertThat(query("SELECT maximum FROM billinginfo_tm_daily"), equalTo(100L));
+        assertThat(query("SELECT average FROM billinginfo_tm_daily"), equalTo(47L));
+        assertThat(query("SELECT count FROM storageinfo_rd_daily"), equalTo(2L));
+        assertThat(query("SELECT size FROM storageinfo_rd_daily"), equalTo(1000L));
+        assertThat(query("SELECT count FROM hitinfo_daily"), equalTo(2L));
+        assertThat(query("SELECT cached FROM hitinfo_daily"), equalTo(1L));
+        assertThat(query("SELECT notcached FROM hitinfo_daily"), equalTo(1L));
+    }
+
+    @Test
+    public void shouldKeepDaysInSeparateRows() throws Exception {
+        List<IHistogramData> batch = new ArrayList<>();
+        batch.add(mover(at(1, 10), false, 100, 10));
+        batch.add(mover(at(2, 10), false, 200, 10));
+        billing.commit(batch);
+
+        assertThat(query("SELECT COUNT(*) FROM billinginfo_rd_daily"), equalTo(2L));
+        assertThat(query("SELECT SUM(size) FROM billinginfo_rd_daily"), equalTo(300L));
+    }
+}
@@ -0,0 +1,123 @@
+package org.dcache.services.billing.text;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.google.common.collect.ImmutableList;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BillingArchiveTest {
+
+    private static final String HEADER = "## mover-info-message $date$ [$pnfsid$] [$path$]";
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("billing-", "." + BillingArchive.EXTENSION);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    private void write(int rowsPerBlock, String... lines) throws IOException {
+        try (BillingArchive.Writer writer = new BillingArchive.Writer(file, rowsPerBlock, 0.01)) {
+            long time = 1000;
+            for (String line : lines) {
+                if (line.startsWith("##")) {
+                    writer.addHeader(time, line);
+                } else {
+                    String pnfsid = line.substring(line.indexOf('[') + 1, line.indexOf(']'));
+                    writer.add(time, line, ImmutableList.of(pnfsid));
+                }
+                time += 1000;
+            }
+        }
+    }
+
+    private static List<String> grep(BillingArchive.Reader reader,
+          Collection<BillingArchive.Block> blocks, Collection<String> terms, long from, long to)
+          throws IOException {
+        StringWriter out = new StringWriter();
+        try (PrintWriter writer = new PrintWriter(out)) {
+            for (BillingArchive.Block block : blocks) {
+                reader.grep(block, terms, from, to, writer);
+            }
+        }
+        return Arrays.asList(out.toString().split("\n")).stream()
+              .filter(s -> !s.isEmpty()).collect(Collectors.toList());
+    }
+
+    @Test
+    public void shouldReturnAllMatchingLines() throws IOException {
+        write(100, HEADER, "a [0001] [/a]", "b [0002] [/b]", "c [0001] [/c]");
+
+        try (BillingArchive.Reader reader = new BillingArchive.Reader(file)) {
+            assertThat(grep(reader, reader.getBlocks(), ImmutableList.of("0001"),
+                        Long.MIN_VALUE, Long.MAX_VALUE),
+                  contains(HEADER, "a [0001] [/a]", "c [0001] [/c]"));
+        }
+    }
+
+    @Test
+    public void shouldRepeatHeaderInEveryBlock() throws IOException {
+        write(2, HEADER, "a [0001] [/a]", "b [0002] [/b]", "c [0003] [/c]");
+
+        try (BillingArchive.Reader reader = new BillingArchive.Reader(file)) {
+            assertThat(reader.getBlocks().size(), equalTo(2));
+            BillingArchive.Block last = reader.getBlocks().get(1);
+            assertThat(grep(reader, ImmutableList.of(last), ImmutableList.of("0003"),
+                        Long.MIN_VALUE, Long.MAX_VALUE),
+                  contains(HEADER, "c [0003] [/c]"));
+        }
+    }
+
+    @Test
+    public void shouldSkipBlocksWithoutTerm() throws IOException {
+        write(2, "a [0001] [/a]", "b [0002] [/b]", "c [0003] [/c]", "d [0004] [/d]");
+
+        try (BillingArchive.Reader reader = new BillingArchive.Reader(file)) {
+            List<BillingArchive.Block> blocks = reader.getBlocks();
+            assertThat(blocks.get(0).mightContain(ImmutableList.of("0004")), equalTo(false));
+            assertThat(blocks.get(1).mightContain(ImmutableList.of("0004")), equalTo(true));
+            assertThat(blocks.get(0).mightContain(ImmutableList.of("")), equalTo(true));
+            assertThat(reader.mightContain(ImmutableList.of("0005")), equalTo(false));
+        }
+    }
+
+    @Test
+    public void shouldRestrictToTimeRange() throws IOException {
+        write(2, "a [0001] [/a]", "b [0001] [/b]", "c [0001] [/c]", "d [0001] [/d]");
+
+        try (BillingArchive.Reader reader = new BillingArchive.Reader(file)) {
+            List<BillingArchive.Block> blocks = reader.getBlocks();
+            assertThat(blocks.get(0).getMinTime(), equalTo(1000L));
+            assertThat(blocks.get(0).getMaxTime(), equalTo(2000L));
+            assertThat(blocks.get(0).overlaps(3000, 5000), equalTo(false));
+            assertThat(grep(reader, blocks, ImmutableList.of("0001"), 2000, 4000),
+                  contains("b [0001] [/b]", "c [0001] [/c]"));
+            assertThat(grep(reader, blocks, ImmutableList.of("0001"), 5000, 6000), empty());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectFileWhichIsNotAnArchive() throws IOException {
+        Files.write(file.toPath(), "01.01 00:00:00 [pool:p:transfer] [0001]\n".getBytes());
+        new BillingArchive.Reader(file).close();
+    }
+}
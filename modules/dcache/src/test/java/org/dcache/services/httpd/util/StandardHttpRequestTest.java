@@ -0,0 +1,34 @@
+package org.dcache.services.httpd.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.Test;
+
+public class StandardHttpRequestTest {
+
+    @Test
+    public void shouldLookUpHeadersRegardlessOfCase() throws Exception {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(request.getRequestURI()).thenReturn("/info/");
+        when(request.getHeaderNames())
+              .thenReturn(Collections.enumeration(List.of("if-none-match", "ACCEPT")));
+        when(request.getHeader("if-none-match")).thenReturn("\"42\"");
+        when(request.getHeader("ACCEPT")).thenReturn("application/json");
+        when(response.getOutputStream()).thenReturn(mock(ServletOutputStream.class));
+
+        StandardHttpRequest httpRequest = new StandardHttpRequest(request, response);
+
+        assertThat(httpRequest.getRequestAttributes().get("If-None-Match"), equalTo("\"42\""));
+        assertThat(httpRequest.getRequestAttributes().get("Accept"),
+              equalTo("application/json"));
+    }
+}
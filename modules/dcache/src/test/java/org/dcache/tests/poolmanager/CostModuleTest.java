@@ -9,6 +9,7 @@ import static org.junit.Assert.assertTrue;
 import diskCacheV111.poolManager.CostModuleV1;
 import diskCacheV111.pools.PoolCostInfo;
 import diskCacheV111.pools.PoolV2Mode;
+import diskCacheV111.vehicles.PoolManagerPoolCostUpdateMessage;
 import diskCacheV111.vehicles.PoolManagerPoolUpMessage;
 import dmg.cells.nucleus.CellAddressCore;
 import dmg.cells.nucleus.CellMessage;
@@ -252,6 +253,78 @@ public class CostModuleTest {
      */
 
 
+    @Test
+    public void testCostUpdateAfterPoolUp() {
+        PoolManagerPoolUpMessage poolUp = buildPoolUpMessageWithCost(POOL_NAME, 100, 30, 10, 20);
+        poolUp.setSequence(1);
+        _costModule.messageArrived(buildEnvelope(POOL_ADDRESS), poolUp);
+
+        _costModule.messageArrived(
+              buildCostUpdateMessage(POOL_NAME, poolUp.getSerialId(), 2, 100, 5, 10, 20));
+
+        assertPoolSpaceInfo("pool", _costModule.getPoolCostInfo(POOL_NAME).getSpaceInfo(),
+              100, 5, 20, 10);
+    }
+
+    @Test
+    public void testCostUpdateOutOfSequenceIsIgnored() {
+        PoolManagerPoolUpMessage poolUp = buildPoolUpMessageWithCost(POOL_NAME, 100, 30, 10, 20);
+        poolUp.setSequence(3);
+        _costModule.messageArrived(buildEnvelope(POOL_ADDRESS), poolUp);
+
+        _costModule.messageArrived(
+              buildCostUpdateMessage(POOL_NAME, poolUp.getSerialId(), 3, 100, 5, 10, 20));
+
+        assertPoolSpaceInfo("pool", _costModule.getPoolCostInfo(POOL_NAME).getSpaceInfo(),
+              100, 30, 20, 10);
+    }
+
+    @Test
+    public void testCostUpdateAfterSkippedSequenceIsIgnored() {
+        PoolManagerPoolUpMessage poolUp = buildPoolUpMessageWithCost(POOL_NAME, 100, 30, 10, 20);
+        poolUp.setSequence(1);
+        _costModule.messageArrived(buildEnvelope(POOL_ADDRESS), poolUp);
+
+        _costModule.messageArrived(
+              buildCostUpdateMessage(POOL_NAME, poolUp.getSerialId(), 3, 100, 5, 10, 20));
+
+        assertPoolSpaceInfo("pool", _costModule.getPoolCostInfo(POOL_NAME).getSpaceInfo(),
+              100, 30, 20, 10);
+    }
+
+    @Test
+    public void testCostUpdateFromOtherPoolInstanceIsIgnored() {
+        PoolManagerPoolUpMessage poolUp = buildPoolUpMessageWithCost(POOL_NAME, 100, 30, 10, 20);
+        poolUp.setSequence(1);
+        _costModule.messageArrived(buildEnvelope(POOL_ADDRESS), poolUp);
+
+        _costModule.messageArrived(
+              buildCostUpdateMessage(POOL_NAME, poolUp.getSerialId() + 1, 2, 100, 5, 10, 20));
+
+        assertPoolSpaceInfo("pool", _costModule.getPoolCostInfo(POOL_NAME).getSpaceInfo(),
+              100, 30, 20, 10);
+    }
+
+    @Test
+    public void testCostUpdateWithoutSequencedPoolUpIsIgnored() {
+        PoolManagerPoolUpMessage poolUp = buildPoolUpMessageWithCost(POOL_NAME, 100, 30, 10, 20);
+        _costModule.messageArrived(buildEnvelope(POOL_ADDRESS), poolUp);
+
+        _costModule.messageArrived(
+              buildCostUpdateMessage(POOL_NAME, poolUp.getSerialId(), 1, 100, 5, 10, 20));
+
+        assertPoolSpaceInfo("pool", _costModule.getPoolCostInfo(POOL_NAME).getSpaceInfo(),
+              100, 30, 20, 10);
+    }
+
+    @Test
+    public void testCostUpdateForUnknownPoolIsIgnored() {
+        _costModule.messageArrived(buildCostUpdateMessage(POOL_NAME, 1, 2, 100, 5, 10, 20));
+
+        assertNull("getPoolCostInfo() after cost update of unknown pool",
+              _costModule.getPoolCostInfo(POOL_NAME));
+    }
+
     private static CellMessage buildEnvelope(CellAddressCore source) {
         CellMessage envelope = new CellMessage(new CellAddressCore("irrelevant"), null);
         envelope.addSourceAddress(source);
@@ -362,6 +435,19 @@ public class CostModuleTest {
      * @param removableSpace the expected removable Space, in gigabytes.
      * @param preciousSpace  the expected precious Space, in gigabytes.
      */
+    /**
+     * Create a cost update message for a pool with the given space parameters
+     */
+    private static PoolManagerPoolCostUpdateMessage buildCostUpdateMessage(String poolName,
+          long serialId, long sequence, long totalSpace, long freeSpace, long preciousSpace,
+          long removableSpace) {
+        PoolManagerPoolCostUpdateMessage update =
+              new PoolManagerPoolCostUpdateMessage(poolName, serialId, sequence);
+        update.setSpaceInfo(new PoolCostInfo.PoolSpaceInfo(GiB.toBytes(totalSpace),
+              GiB.toBytes(freeSpace), GiB.toBytes(preciousSpace), GiB.toBytes(removableSpace)));
+        return update;
+    }
+
     private static void assertPoolSpaceInfo(String msg, PoolCostInfo.PoolSpaceInfo info,
           long totalSpace, long freeSpace,
           long removableSpace,
@@ -0,0 +1,118 @@
+package org.dcache.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+import diskCacheV111.vehicles.DoorEventMessage;
+import diskCacheV111.vehicles.IoDoorEntry;
+import diskCacheV111.vehicles.IoDoorInfo;
+import diskCacheV111.vehicles.TransferEventMessage;
+import diskCacheV111.vehicles.TransferEventSnapshotRequest;
+import dmg.cells.nucleus.CellAddressCore;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.dcache.cells.CellStub;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DoorEventPublisherTest {
+
+    private final List<DoorEventMessage> sent = new ArrayList<>();
+    private IoDoorEntry[] entries = {};
+    private DoorEventPublisher publisher;
+
+    @Before
+    public void setUp() {
+        publisher = new DoorEventPublisher();
+        publisher.setCellAddress(new CellAddressCore("door", "doorDomain"));
+        publisher.setTopic(new CellStub() {
+            @Override
+            public void notify(Serializable message) {
+                sent.add((DoorEventMessage) message);
+            }
+        });
+        publisher.setDoorInfoSupplier(() -> {
+            IoDoorInfo info = new IoDoorInfo("door", "doorDomain");
+            info.setProtocol("test", "1");
+            info.setIoDoorEntries(entries);
+            return info;
+        });
+    }
+
+    private static IoDoorEntry entry(long id, String status) {
+        return new IoDoorEntry(id, null, "/file", null, "pool", status, 0, "localhost");
+    }
+
+    private static List<Long> ids(TransferEventMessage<IoDoorEntry> message) {
+        return message.getUpdated().stream().map(IoDoorEntry::getSerialId)
+              .collect(Collectors.toList());
+    }
+
+    private DoorEventMessage last() {
+        return sent.get(sent.size() - 1);
+    }
+
+    @Test
+    public void shouldPublishStartedAndFinishedTransfers() {
+        entries = new IoDoorEntry[]{entry(1, "a"), entry(2, "a")};
+        publisher.publish();
+        entries = new IoDoorEntry[]{entry(2, "a")};
+        publisher.publish();
+
+        assertThat(sent.size(), equalTo(2));
+        assertThat(sent.get(0).getSequence(), equalTo(1L));
+        assertThat(sent.get(0).getDoor().getProtocolFamily(), equalTo("test"));
+        assertThat(sent.get(1).getSequence(), equalTo(2L));
+        assertThat(ids(sent.get(1)), empty());
+        assertThat(sent.get(1).getFinished()[0], equalTo(1L));
+    }
+
+    @Test
+    public void shouldPublishOnlyChangedTransfers() {
+        entries = new IoDoorEntry[]{entry(1, "a"), entry(2, "a")};
+        publisher.publish();
+        entries = new IoDoorEntry[]{entry(1, "a"), entry(2, "b")};
+        publisher.publish();
+
+        assertThat(ids(last()), contains(2L));
+    }
+
+    @Test
+    public void shouldNotPublishUnchangedTransfersBeforeHeartbeat() {
+        entries = new IoDoorEntry[]{entry(1, "a")};
+        publisher.publish();
+        publisher.publish();
+
+        assertThat(sent.size(), equalTo(1));
+    }
+
+    @Test
+    public void shouldRepeatSequenceInHeartbeat() {
+        publisher.setHeartbeat(0);
+        entries = new IoDoorEntry[]{entry(1, "a")};
+        publisher.publish();
+        publisher.publish();
+
+        assertThat(sent.size(), equalTo(2));
+        assertThat(last().getSequence(), equalTo(1L));
+        assertThat(last().hasChanges(), equalTo(false));
+    }
+
+    @Test
+    public void shouldServeSnapshotOfPublishedTransfers() {
+        entries = new IoDoorEntry[]{entry(1, "a")};
+        publisher.publish();
+        entries = new IoDoorEntry[]{entry(1, "a"), entry(2, "a")};
+
+        TransferEventMessage<IoDoorEntry> snapshot =
+              publisher.messageArrived(new TransferEventSnapshotRequest());
+
+        assertThat(snapshot.isSnapshot(), equalTo(true));
+        assertThat(snapshot.getSequence(), equalTo(1L));
+        assertThat(ids(snapshot), contains(1L));
+    }
+}
@@ -0,0 +1,163 @@
+package org.dcache.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+import diskCacheV111.vehicles.DoorEventMessage;
+import diskCacheV111.vehicles.DoorInfo;
+import diskCacheV111.vehicles.IoDoorEntry;
+import diskCacheV111.vehicles.IoDoorInfo;
+import diskCacheV111.vehicles.IoJobInfo;
+import diskCacheV111.vehicles.MoverEventMessage;
+import dmg.cells.nucleus.CellAddressCore;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TransferEventIndexTest {
+
+    private static final CellAddressCore POOL = new CellAddressCore("pool", "poolDomain");
+    private static final CellAddressCore DOOR = new CellAddressCore("door", "doorDomain");
+    private static final long EXPIRY = 1000;
+
+    private long now;
+    private TransferEventIndex index;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        index = new TransferEventIndex(() -> now);
+    }
+
+    private static IoJobInfo mover(int id, long bytes) {
+        return new IoJobInfo(0, 1, "RUNNING", id, "door@doorDomain", id, null, bytes, null, 0,
+              0, null);
+    }
+
+    private static MoverEventMessage movers(long epoch, long sequence, boolean snapshot,
+          List<IoJobInfo> updated, long... finished) {
+        return new MoverEventMessage(POOL, epoch, sequence, snapshot, EXPIRY, updated, finished);
+    }
+
+    private List<Long> moverIds() {
+        return index.getMovers().stream().map(IoJobInfo::getJobId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void shouldApplyChangesInSequence() {
+        assertThat(index.apply(movers(1, 1, false, List.of(mover(1, 0), mover(2, 0)))),
+              equalTo(true));
+        assertThat(index.apply(movers(1, 2, false, List.of(mover(3, 0)), 1)), equalTo(true));
+
+        assertThat(moverIds(), containsInAnyOrder(2L, 3L));
+        assertThat(index.isPublishingPool("pool"), equalTo(true));
+    }
+
+    @Test
+    public void shouldUpdateProgress() {
+        index.apply(movers(1, 1, false, List.of(mover(1, 0))));
+        index.apply(movers(1, 2, false, List.of(mover(1, 100))));
+
+        assertThat(index.getMovers().iterator().next().getBytesTransferred(), equalTo(100L));
+    }
+
+    @Test
+    public void shouldDetectGap() {
+        index.apply(movers(1, 1, false, List.of(mover(1, 0))));
+
+        assertThat(index.apply(movers(1, 3, false, List.of(mover(2, 0)))), equalTo(false));
+        assertThat(moverIds(), containsInAnyOrder(1L, 2L));
+    }
+
+    @Test
+    public void shouldDetectGapFromHeartbeat() {
+        index.apply(movers(1, 1, false, List.of(mover(1, 0))));
+
+        assertThat(index.apply(movers(1, 2, false, List.of())), equalTo(false));
+    }
+
+    @Test
+    public void shouldAcceptHeartbeat() {
+        index.apply(movers(1, 1, false, List.of(mover(1, 0))));
+
+        assertThat(index.apply(movers(1, 1, false, List.of())), equalTo(true));
+    }
+
+    @Test
+    public void shouldRequestSnapshotWhenJoiningLate() {
+        assertThat(index.apply(movers(1, 5, false, List.of(mover(1, 0)))), equalTo(false));
+    }
+
+    @Test
+    public void shouldAcceptStartOfNewEpoch() {
+        index.apply(movers(1, 5, false, List.of(mover(1, 0))));
+
+        assertThat(index.apply(movers(2, 1, false, List.of(mover(2, 0)))), equalTo(true));
+        assertThat(moverIds(), contains(2L));
+    }
+
+    @Test
+    public void shouldReplaceEntriesBySnapshot() {
+        index.apply(movers(1, 1, false, List.of(mover(1, 0), mover(2, 0))));
+        index.apply(movers(1, 4, false, List.of(mover(3, 0))));
+
+        index.apply(movers(1, 4, true, List.of(mover(3, 0), mover(4, 0))));
+
+        assertThat(moverIds(), containsInAnyOrder(3L, 4L));
+        assertThat(index.apply(movers(1, 5, false, List.of(), 4)), equalTo(true));
+        assertThat(moverIds(), contains(3L));
+    }
+
+    @Test
+    public void shouldIgnoreStaleSnapshotAndChanges() {
+        index.apply(movers(1, 1, false, List.of(mover(1, 0))));
+        index.apply(movers(1, 2, false, List.of(mover(2, 0))));
+
+        index.apply(movers(1, 1, true, List.of(mover(1, 0))));
+        assertThat(index.apply(movers(1, 2, false, List.of(mover(2, 0)))), equalTo(true));
+
+        assertThat(moverIds(), containsInAnyOrder(1L, 2L));
+    }
+
+    @Test
+    public void shouldExpireSilentSource() {
+        index.apply(movers(1, 1, false, List.of(mover(1, 0))));
+
+        now = EXPIRY + 1;
+
+        assertThat(index.getMovers(), empty());
+        assertThat(index.isPublishingPool("pool"), equalTo(false));
+    }
+
+    @Test
+    public void shouldRemoveSourceOnShutdown() {
+        index.apply(movers(1, 1, false, List.of(mover(1, 0))));
+
+        index.apply(new MoverEventMessage(POOL, 1, 2, false, 0, List.of(), new long[]{1}));
+
+        assertThat(index.isPublishingPool("pool"), equalTo(false));
+    }
+
+    @Test
+    public void shouldProvideDoorInfo() {
+        DoorInfo door = new DoorInfo("door", "doorDomain");
+        door.setProtocol("xrootd", "5");
+        IoDoorEntry entry = new IoDoorEntry(7, null, "/file", null, "pool", "Mover pool/1",
+              0, "localhost");
+
+        index.apply(new DoorEventMessage(DOOR, 1, 1, false, EXPIRY, door, List.of(entry),
+              new long[0]));
+
+        assertThat(index.isPublishingDoor(DOOR), equalTo(true));
+        IoDoorInfo info = index.getDoors().iterator().next();
+        assertThat(info.getCellName(), equalTo("door"));
+        assertThat(info.getProtocolFamily(), equalTo("xrootd"));
+        assertThat(info.getIoDoorEntries().stream().map(IoDoorEntry::getSerialId)
+              .collect(Collectors.toList()), equalTo(Arrays.asList(7L)));
+    }
+}